@@ -0,0 +1,105 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.BaseStep;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.steps.dummytrans.DummyTransData;
+import org.pentaho.di.trans.steps.dummytrans.DummyTransMeta;
+
+/**
+ * The per row overhead of BaseStep: a batch of rows is written with putRow by one step and read back with getRow by
+ * the next step, in a single thread so that only the bookkeeping around the row set is measured.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class BaseStepBenchmark {
+
+  private static final int BATCH = 1000;
+
+  @Param( { "blocking", "spsc", "queue" } )
+  public String rowSetType;
+
+  private BaseStep producer;
+  private BaseStep consumer;
+  private RowMetaInterface rowMeta;
+  private Object[] row;
+
+  @Setup( Level.Trial )
+  public void setUp() throws KettleException {
+    BenchmarkTransformation.initEnvironment();
+
+    TransMeta transMeta = new TransMeta();
+    StepMeta producerMeta = new StepMeta( "producer", new DummyTransMeta() );
+    StepMeta consumerMeta = new StepMeta( "consumer", new DummyTransMeta() );
+    transMeta.addStep( producerMeta );
+    transMeta.addStep( consumerMeta );
+    Trans trans = new Trans( transMeta );
+    trans.setRunning( true );
+
+    producer = new BaseStep( producerMeta, new DummyTransData(), 0, transMeta, trans );
+    consumer = new BaseStep( consumerMeta, new DummyTransData(), 0, transMeta, trans );
+
+    RowSet rowSet = RowSetBenchmark.createRowSet( rowSetType );
+    rowSet.setThreadNameFromToCopy( "producer", 0, "consumer", 0 );
+    List<RowSet> outputRowSets = new ArrayList<>();
+    outputRowSets.add( rowSet );
+    producer.setOutputRowSets( outputRowSets );
+    List<RowSet> inputRowSets = new ArrayList<>();
+    inputRowSets.add( rowSet );
+    consumer.setInputRowSets( inputRowSets );
+
+    rowMeta = BenchmarkData.createRowMeta( 10 );
+    row = BenchmarkData.createRow( rowMeta, 0 );
+  }
+
+  @Benchmark
+  @OperationsPerInvocation( BATCH )
+  public void putRowThenGetRow( Blackhole blackhole ) throws KettleException {
+    for ( int i = 0; i < BATCH; i++ ) {
+      producer.putRow( rowMeta, row );
+    }
+    for ( int i = 0; i < BATCH; i++ ) {
+      blackhole.consume( consumer.getRow() );
+    }
+  }
+}
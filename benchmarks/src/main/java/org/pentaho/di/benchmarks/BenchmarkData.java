@@ -0,0 +1,105 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+/**
+ * Generates the rows the benchmarks work on. The data is deterministic so that runs of different versions process
+ * exactly the same rows.
+ */
+final class BenchmarkData {
+
+  private BenchmarkData() {
+  }
+
+  /**
+   * @return row metadata cycling through string, integer, number and date fields, named field0, field1, ...
+   */
+  static RowMetaInterface createRowMeta( int nrFields ) {
+    RowMetaInterface rowMeta = new RowMeta();
+    for ( int i = 0; i < nrFields; i++ ) {
+      String name = "field" + i;
+      ValueMetaInterface valueMeta;
+      switch ( i % 4 ) {
+        case 0:
+          valueMeta = new ValueMetaString( name, 20, -1 );
+          break;
+        case 1:
+          valueMeta = new ValueMetaInteger( name, 9, 0 );
+          break;
+        case 2:
+          valueMeta = new ValueMetaNumber( name, 12, 4 );
+          break;
+        default:
+          valueMeta = new ValueMetaDate( name );
+          break;
+      }
+      rowMeta.addValueMeta( valueMeta );
+    }
+    return rowMeta;
+  }
+
+  /**
+   * @return a row for the row metadata of {@link #createRowMeta(int)}, the values are derived from the key
+   */
+  static Object[] createRow( RowMetaInterface rowMeta, long key ) {
+    Object[] row = new Object[rowMeta.size()];
+    for ( int i = 0; i < row.length; i++ ) {
+      switch ( rowMeta.getValueMeta( i ).getType() ) {
+        case ValueMetaInterface.TYPE_STRING:
+          row[i] = "value-" + key;
+          break;
+        case ValueMetaInterface.TYPE_INTEGER:
+          row[i] = key;
+          break;
+        case ValueMetaInterface.TYPE_NUMBER:
+          row[i] = key / 3.0;
+          break;
+        default:
+          row[i] = new Date( 1500000000000L + key * 1000L );
+          break;
+      }
+    }
+    return row;
+  }
+
+  /**
+   * @return rows with keys spread pseudo-randomly over the given number of distinct keys
+   */
+  static List<Object[]> createRows( RowMetaInterface rowMeta, int nrRows, int nrKeys ) {
+    List<Object[]> rows = new ArrayList<>( nrRows );
+    for ( int r = 0; r < nrRows; r++ ) {
+      long key = ( r * 2654435761L ) % nrKeys;
+      rows.add( createRow( rowMeta, key ) );
+    }
+    return rows;
+  }
+
+  static List<Object[]> repeat( Object[] row, int times ) {
+    return new ArrayList<>( Collections.nCopies( times, row ) );
+  }
+}
@@ -0,0 +1,59 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.pentaho.di.version.BuildVersion;
+
+/**
+ * Runs the benchmarks with the regular JMH command line options. Unless the options say otherwise the results are
+ * written in JSON format to target/jmh-result-[version].json so that the runs of different versions can be compared,
+ * for example with <code>java -jar benchmarks.jar -rff old.json</code> on the old version and a JMH result viewer.
+ */
+public class BenchmarkRunner {
+
+  public static void main( String[] args ) throws RunnerException, CommandLineOptionException, IOException {
+    CommandLineOptions commandLine = new CommandLineOptions( args );
+    if ( commandLine.shouldHelp() ) {
+      commandLine.showHelp();
+      return;
+    }
+
+    ChainedOptionsBuilder options = new OptionsBuilder().parent( commandLine );
+    if ( !commandLine.getResultFormat().hasValue() ) {
+      options.resultFormat( ResultFormatType.JSON );
+    }
+    if ( !commandLine.getResult().hasValue() ) {
+      new File( "target" ).mkdirs();
+      options.result( "target/jmh-result-" + BuildVersion.getInstance().getVersion() + ".json" );
+    }
+
+    Runner runner = new Runner( options.build() );
+    if ( commandLine.shouldList() ) {
+      runner.list();
+    } else {
+      runner.run();
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.plugins.PluginRegistry;
+import org.pentaho.di.core.plugins.StepPluginType;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.trans.RowProducer;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransHopMeta;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.RowAdapter;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.step.StepMetaInterface;
+import org.pentaho.di.trans.steps.dummytrans.DummyTransMeta;
+import org.pentaho.di.trans.steps.injector.InjectorMeta;
+
+/**
+ * Builds small transformations in code and runs them in-process, the same way the step unit tests do with an Injector
+ * step in front and a Dummy step at the end. Everything a transformation run costs is measured: preparing the
+ * execution, starting the step threads, moving the rows and waiting for the steps to finish.
+ */
+final class BenchmarkTransformation {
+  static final String OUTPUT_STEPNAME = "output";
+
+  private BenchmarkTransformation() {
+  }
+
+  static void initEnvironment() throws KettleException {
+    KettleEnvironment.init( false );
+  }
+
+  static StepMeta addStep( TransMeta transMeta, String stepname, StepMetaInterface stepMetaInterface,
+                           StepMeta previous ) {
+    String pluginId = PluginRegistry.getInstance().getPluginId( StepPluginType.class, stepMetaInterface );
+    StepMeta stepMeta = new StepMeta( pluginId, stepname, stepMetaInterface );
+    transMeta.addStep( stepMeta );
+    if ( previous != null ) {
+      transMeta.addTransHop( new TransHopMeta( previous, stepMeta ) );
+    }
+    return stepMeta;
+  }
+
+  static StepMeta addInjector( TransMeta transMeta, String stepname ) {
+    return addStep( transMeta, stepname, new InjectorMeta(), null );
+  }
+
+  static StepMeta addOutput( TransMeta transMeta, StepMeta previous ) {
+    return addStep( transMeta, OUTPUT_STEPNAME, new DummyTransMeta(), previous );
+  }
+
+  /**
+   * Runs the transformation, injecting the rows into the Injector steps in the given order.
+   *
+   * @return the number of rows that reached the output step
+   */
+  static long run( TransMeta transMeta, Injection... injections ) throws KettleException {
+    Trans trans = new Trans( transMeta );
+    trans.prepareExecution( null );
+
+    final AtomicLong nrRows = new AtomicLong();
+    trans.getStepInterface( OUTPUT_STEPNAME, 0 ).addRowListener( new RowAdapter() {
+      @Override
+      public void rowWrittenEvent( RowMetaInterface rowMeta, Object[] row ) {
+        nrRows.incrementAndGet();
+      }
+    } );
+
+    RowProducer[] producers = new RowProducer[injections.length];
+    for ( int i = 0; i < injections.length; i++ ) {
+      producers[i] = trans.addRowProducer( injections[i].stepname, 0 );
+    }
+
+    trans.startThreads();
+    for ( int i = 0; i < injections.length; i++ ) {
+      for ( Object[] row : injections[i].rows ) {
+        producers[i].putRow( injections[i].rowMeta, row );
+      }
+      producers[i].finished();
+    }
+    trans.waitUntilFinished();
+
+    if ( trans.getResult().getNrErrors() > 0 ) {
+      throw new KettleException( "Benchmark transformation finished with errors, check the log." );
+    }
+    return nrRows.get();
+  }
+
+  /**
+   * The rows to inject into an Injector step.
+   */
+  static class Injection {
+    final String stepname;
+    final RowMetaInterface rowMeta;
+    final List<Object[]> rows;
+
+    Injection( String stepname, RowMetaInterface rowMeta, List<Object[]> rows ) {
+      this.stepname = stepname;
+      this.rowMeta = rowMeta;
+      this.rows = rows;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.steps.csvinput.CsvInputMeta;
+import org.pentaho.di.trans.steps.textfileinput.TextFileInputField;
+
+/**
+ * Reads and parses a CSV file with the CSV file input step, with and without lazy conversion.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class CsvInputBenchmark {
+
+  private static final int NR_ROWS = 500000;
+
+  @Param( { "false", "true" } )
+  public boolean lazyConversion;
+
+  private File file;
+  private TransMeta transMeta;
+
+  @Setup( Level.Trial )
+  public void setUp() throws KettleException, IOException {
+    BenchmarkTransformation.initEnvironment();
+
+    file = File.createTempFile( "csv-benchmark", ".csv" );
+    try ( BufferedWriter writer = Files.newBufferedWriter( file.toPath(), StandardCharsets.UTF_8 ) ) {
+      writer.write( "id,name,amount,day" );
+      writer.newLine();
+      for ( int i = 0; i < NR_ROWS; i++ ) {
+        writer.write( i + ",\"name " + i + "\"," + ( i / 100.0 ) + ",2017-07-" + ( 10 + i % 20 ) );
+        writer.newLine();
+      }
+    }
+
+    CsvInputMeta csvInputMeta = new CsvInputMeta();
+    csvInputMeta.setDefault();
+    csvInputMeta.setFilename( file.getAbsolutePath() );
+    csvInputMeta.setDelimiter( "," );
+    csvInputMeta.setEnclosure( "\"" );
+    csvInputMeta.setHeaderPresent( true );
+    csvInputMeta.setBufferSize( "50000" );
+    csvInputMeta.setLazyConversionActive( lazyConversion );
+    csvInputMeta.setInputFields( new TextFileInputField[] {
+      createField( "id", ValueMetaInterface.TYPE_INTEGER, "#" ),
+      createField( "name", ValueMetaInterface.TYPE_STRING, null ),
+      createField( "amount", ValueMetaInterface.TYPE_NUMBER, "#.##" ),
+      createField( "day", ValueMetaInterface.TYPE_DATE, "yyyy-MM-dd" ), } );
+
+    transMeta = new TransMeta();
+    StepMeta csvInput = BenchmarkTransformation.addStep( transMeta, "csv input", csvInputMeta, null );
+    BenchmarkTransformation.addOutput( transMeta, csvInput );
+  }
+
+  private static TextFileInputField createField( String name, int type, String format ) {
+    TextFileInputField field = new TextFileInputField( name, -1, -1 );
+    field.setType( type );
+    field.setFormat( format );
+    field.setDecimalSymbol( "." );
+    return field;
+  }
+
+  @TearDown( Level.Trial )
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Benchmark
+  public long readCsv() throws KettleException {
+    return BenchmarkTransformation.run( transMeta );
+  }
+}
@@ -0,0 +1,132 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.hash.ByteArrayHashIndex;
+import org.pentaho.di.core.hash.LongHashIndex;
+
+/**
+ * Loading and probing the hash indexes of the lookup steps, on and off heap, against a plain {@link HashMap}. The
+ * keys are surrogate keys with gaps, the way a dimension hands them out over time. Run with {@code -prof gc} to
+ * compare the allocation rates.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class HashIndexBenchmark {
+
+  @Param( { "1000000" } )
+  public int keys;
+
+  @Param( { "false", "true" } )
+  public boolean offHeap;
+
+  private Map<Long, Long> hashMap;
+  private LongHashIndex longIndex;
+  private ByteArrayHashIndex byteArrayIndex;
+
+  @Setup( Level.Trial )
+  public void setUp() throws KettleValueException {
+    hashMap = loadHashMap();
+    longIndex = loadLongHashIndex();
+    byteArrayIndex = loadByteArrayHashIndex();
+  }
+
+  private static long key( long i ) {
+    return i * 7 + 1;
+  }
+
+  private static byte[] bytes( long value ) {
+    byte[] bytes = new byte[Long.BYTES];
+    for ( int i = 0; i < bytes.length; i++ ) {
+      bytes[i] = (byte) ( value >>> ( 56 - 8 * i ) );
+    }
+    return bytes;
+  }
+
+  @Benchmark
+  public Map<Long, Long> loadHashMap() {
+    Map<Long, Long> map = new HashMap<>();
+    for ( long i = 0; i < keys; i++ ) {
+      map.put( key( i ), i );
+    }
+    return map;
+  }
+
+  @Benchmark
+  public LongHashIndex loadLongHashIndex() throws KettleValueException {
+    LongHashIndex index = new LongHashIndex( 512, 0.78f, offHeap );
+    for ( long i = 0; i < keys; i++ ) {
+      index.put( key( i ), i );
+    }
+    return index;
+  }
+
+  @Benchmark
+  public ByteArrayHashIndex loadByteArrayHashIndex() throws KettleValueException {
+    ByteArrayHashIndex index = new ByteArrayHashIndex( null, 512, 0.78f, offHeap );
+    for ( long i = 0; i < keys; i++ ) {
+      index.put( bytes( key( i ) ), bytes( i ) );
+    }
+    return index;
+  }
+
+  @Benchmark
+  public long lookupHashMap() {
+    long sum = 0;
+    for ( long i = 0; i < keys; i++ ) {
+      sum += hashMap.get( key( i ) );
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long lookupLongHashIndex() throws KettleValueException {
+    long sum = 0;
+    for ( long i = 0; i < keys; i++ ) {
+      sum += longIndex.get( key( i ) );
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long lookupByteArrayHashIndex() throws KettleValueException {
+    long sum = 0;
+    for ( long i = 0; i < keys; i++ ) {
+      sum += byteArrayIndex.get( bytes( key( i ) ) )[Long.BYTES - 1];
+    }
+    return sum;
+  }
+}
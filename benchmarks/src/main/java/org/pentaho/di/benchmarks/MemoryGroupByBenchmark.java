@@ -0,0 +1,97 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.steps.memgroupby.MemoryGroupByMeta;
+
+/**
+ * Aggregates rows with the Memory group by step: in memory, with aggregation threads and spilling to disk.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class MemoryGroupByBenchmark {
+
+  private static final int NR_ROWS = 500000;
+
+  @Param( { "1000", "100000" } )
+  public int nrGroups;
+
+  @Param( { "default", "threads", "spill" } )
+  public String mode;
+
+  private TransMeta transMeta;
+  private BenchmarkTransformation.Injection injection;
+
+  @Setup( Level.Trial )
+  public void setUp() throws KettleException {
+    BenchmarkTransformation.initEnvironment();
+
+    RowMetaInterface rowMeta = BenchmarkData.createRowMeta( 4 );
+    List<Object[]> rows = BenchmarkData.createRows( rowMeta, NR_ROWS, nrGroups );
+
+    MemoryGroupByMeta groupByMeta = new MemoryGroupByMeta();
+    groupByMeta.setDefault();
+    groupByMeta.allocate( 1, 4 );
+    groupByMeta.getGroupField()[0] = "field0";
+    String[] subjects = { "field1", "field2", "field1", "field2" };
+    int[] types = { MemoryGroupByMeta.TYPE_GROUP_SUM, MemoryGroupByMeta.TYPE_GROUP_AVERAGE,
+      MemoryGroupByMeta.TYPE_GROUP_MAX, MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL };
+    for ( int i = 0; i < subjects.length; i++ ) {
+      groupByMeta.getAggregateField()[i] = "aggregate" + i;
+      groupByMeta.getSubjectField()[i] = subjects[i];
+      groupByMeta.getAggregateType()[i] = types[i];
+    }
+    if ( "threads".equals( mode ) ) {
+      groupByMeta.setAggregationThreads( "4" );
+    } else if ( "spill".equals( mode ) ) {
+      groupByMeta.setSpillingToDisk( true );
+      groupByMeta.setMaxGroups( String.valueOf( nrGroups / 4 ) );
+    }
+
+    transMeta = new TransMeta();
+    StepMeta injector = BenchmarkTransformation.addInjector( transMeta, "injector" );
+    StepMeta groupBy = BenchmarkTransformation.addStep( transMeta, "group by", groupByMeta, injector );
+    BenchmarkTransformation.addOutput( transMeta, groupBy );
+    injection = new BenchmarkTransformation.Injection( "injector", rowMeta, rows );
+  }
+
+  @Benchmark
+  public long groupBy() throws KettleException {
+    return BenchmarkTransformation.run( transMeta, injection );
+  }
+}
@@ -0,0 +1,112 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * Row metadata operations that the steps do for every row or for every batch: cloning, field lookups, comparing,
+ * hashing and the serialization used for temporary files and remote steps.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class RowMetaBenchmark {
+
+  @Param( { "10", "100" } )
+  public int nrFields;
+
+  private RowMetaInterface rowMeta;
+  private Object[] row1;
+  private Object[] row2;
+  private String lastFieldName;
+  private byte[] serializedRow;
+
+  @Setup( Level.Trial )
+  public void setUp() throws KettleException, IOException {
+    rowMeta = BenchmarkData.createRowMeta( nrFields );
+    row1 = BenchmarkData.createRow( rowMeta, 1 );
+    row2 = BenchmarkData.createRow( rowMeta, 2 );
+    lastFieldName = rowMeta.getValueMeta( nrFields - 1 ).getName();
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream dos = new DataOutputStream( bytes );
+    rowMeta.writeData( dos, row1 );
+    dos.close();
+    serializedRow = bytes.toByteArray();
+  }
+
+  @Benchmark
+  public RowMetaInterface cloneRowMeta() {
+    return rowMeta.clone();
+  }
+
+  @Benchmark
+  public Object[] cloneRow() throws KettleException {
+    return rowMeta.cloneRow( row1 );
+  }
+
+  @Benchmark
+  public int indexOfValue() {
+    return rowMeta.indexOfValue( lastFieldName );
+  }
+
+  @Benchmark
+  public int compareRows() throws KettleException {
+    return rowMeta.compare( row1, row2 );
+  }
+
+  @Benchmark
+  public int hashRow() throws KettleException {
+    return rowMeta.hashCode( row1 );
+  }
+
+  @Benchmark
+  public byte[] writeData() throws KettleFileException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream( serializedRow.length );
+    rowMeta.writeData( new DataOutputStream( bytes ), row1 );
+    return bytes.toByteArray();
+  }
+
+  @Benchmark
+  public Object[] readData() throws KettleFileException, SocketTimeoutException {
+    return rowMeta.readData( new DataInputStream( new ByteArrayInputStream( serializedRow ) ) );
+  }
+}
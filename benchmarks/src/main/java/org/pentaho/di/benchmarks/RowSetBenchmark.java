@@ -0,0 +1,150 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.pentaho.di.core.BlockingBatchingRowSet;
+import org.pentaho.di.core.BlockingRowSet;
+import org.pentaho.di.core.QueueRowSet;
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.SpscRowSet;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * Moves rows through the row set implementations that connect the steps: between two threads the way a running
+ * transformation uses them and in a single thread to measure the bookkeeping cost alone.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class RowSetBenchmark {
+
+  private static final int ROW_SET_SIZE = 10000;
+  private static final int BATCH = 1000;
+
+  static RowSet createRowSet( String type ) {
+    switch ( type ) {
+      case "blocking":
+        return new BlockingRowSet( ROW_SET_SIZE );
+      case "batching":
+        return new BlockingBatchingRowSet( ROW_SET_SIZE );
+      case "spsc":
+        return new SpscRowSet( ROW_SET_SIZE );
+      case "queue":
+        return new QueueRowSet();
+      default:
+        throw new IllegalArgumentException( "Unknown row set type: " + type );
+    }
+  }
+
+  /**
+   * One producer and one consumer thread share the row set. Waits are short so that neither thread can hang at the end
+   * of an iteration when the other one already stopped.
+   */
+  @State( Scope.Group )
+  public static class HandOff {
+    @Param( { "blocking", "batching", "spsc" } )
+    public String type;
+
+    RowSet rowSet;
+    RowMetaInterface rowMeta;
+    Object[] row;
+
+    @Setup( Level.Iteration )
+    public void setUp() {
+      rowSet = createRowSet( type );
+      rowMeta = BenchmarkData.createRowMeta( 10 );
+      row = BenchmarkData.createRow( rowMeta, 0 );
+    }
+  }
+
+  @Benchmark
+  @Group( "handOff" )
+  @GroupThreads( 1 )
+  public boolean put( HandOff state ) {
+    return state.rowSet.putRowWait( state.rowMeta, state.row, 1, TimeUnit.MILLISECONDS );
+  }
+
+  @Benchmark
+  @Group( "handOff" )
+  @GroupThreads( 1 )
+  public Object[] get( HandOff state ) {
+    return state.rowSet.getRowWait( 1, TimeUnit.MILLISECONDS );
+  }
+
+  @State( Scope.Thread )
+  public static class SingleThread {
+    @Param( { "blocking", "spsc", "queue" } )
+    public String type;
+
+    RowSet rowSet;
+    RowMetaInterface rowMeta;
+    Object[] row;
+
+    @Setup( Level.Trial )
+    public void setUp() {
+      rowSet = createRowSet( type );
+      rowMeta = BenchmarkData.createRowMeta( 10 );
+      row = BenchmarkData.createRow( rowMeta, 0 );
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation( BATCH )
+  public void putThenGet( SingleThread state, Blackhole blackhole ) {
+    for ( int i = 0; i < BATCH; i++ ) {
+      state.rowSet.putRow( state.rowMeta, state.row );
+    }
+    for ( int i = 0; i < BATCH; i++ ) {
+      blackhole.consume( state.rowSet.getRowImmediate() );
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation( BATCH )
+  public void putRowsThenGetRows( SingleThread state, Blackhole blackhole ) {
+    List<Object[]> rows = BenchmarkData.repeat( state.row, BATCH );
+    int offset = 0;
+    while ( offset < rows.size() ) {
+      offset += state.rowSet.putRows( state.rowMeta, rows, offset );
+    }
+    int read = 0;
+    while ( read < BATCH ) {
+      List<Object[]> batch = state.rowSet.getRows( BATCH - read );
+      read += batch.size();
+      blackhole.consume( batch );
+    }
+  }
+}
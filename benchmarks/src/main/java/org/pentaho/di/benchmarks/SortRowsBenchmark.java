@@ -0,0 +1,92 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.steps.sort.SortRowsMeta;
+
+/**
+ * Sorts rows with the Sort rows step, both in memory and with temporary files.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class SortRowsBenchmark {
+
+  private static final int NR_ROWS = 200000;
+
+  /** The number of rows sorted in memory, below the number of rows to force temporary files */
+  @Param( { "1000000", "50000" } )
+  public String sortSize;
+
+  @Param( { "1", "4" } )
+  public String sortThreads;
+
+  private TransMeta transMeta;
+  private BenchmarkTransformation.Injection injection;
+
+  @Setup( Level.Trial )
+  public void setUp() throws KettleException {
+    BenchmarkTransformation.initEnvironment();
+
+    RowMetaInterface rowMeta = BenchmarkData.createRowMeta( 8 );
+    List<Object[]> rows = BenchmarkData.createRows( rowMeta, NR_ROWS, NR_ROWS );
+
+    SortRowsMeta sortRowsMeta = new SortRowsMeta();
+    sortRowsMeta.setDefault();
+    sortRowsMeta.allocate( 2 );
+    sortRowsMeta.setFieldName( new String[] { "field1", "field0" } );
+    sortRowsMeta.setAscending( new boolean[] { true, false } );
+    sortRowsMeta.setCaseSensitive( new boolean[] { true, true } );
+    sortRowsMeta.setCollatorEnabled( new boolean[] { false, false } );
+    sortRowsMeta.setCollatorStrength( new int[] { 0, 0 } );
+    sortRowsMeta.setPreSortedField( new boolean[] { false, false } );
+    sortRowsMeta.setSortSize( sortSize );
+    sortRowsMeta.setSortThreads( sortThreads );
+    sortRowsMeta.setDirectory( "%%java.io.tmpdir%%" );
+
+    transMeta = new TransMeta();
+    StepMeta injector = BenchmarkTransformation.addInjector( transMeta, "injector" );
+    StepMeta sort = BenchmarkTransformation.addStep( transMeta, "sort", sortRowsMeta, injector );
+    BenchmarkTransformation.addOutput( transMeta, sort );
+    injection = new BenchmarkTransformation.Injection( "injector", rowMeta, rows );
+  }
+
+  @Benchmark
+  public long sortRows() throws KettleException {
+    return BenchmarkTransformation.run( transMeta, injection );
+  }
+}
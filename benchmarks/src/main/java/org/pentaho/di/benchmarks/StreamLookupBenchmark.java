@@ -0,0 +1,100 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.trans.TransHopMeta;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.steps.streamlookup.StreamLookupMeta;
+
+/**
+ * Looks up rows with the Stream lookup step, for each of the ways it can store the lookup data.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class StreamLookupBenchmark {
+
+  private static final int NR_ROWS = 500000;
+  private static final int NR_LOOKUP_ROWS = 100000;
+
+  @Param( { "default", "integerPair", "sortedList", "preserveMemory", "offHeap" } )
+  public String storage;
+
+  private TransMeta transMeta;
+  private BenchmarkTransformation.Injection lookupInjection;
+  private BenchmarkTransformation.Injection mainInjection;
+
+  @Setup( Level.Trial )
+  public void setUp() throws KettleException {
+    BenchmarkTransformation.initEnvironment();
+
+    RowMetaInterface rowMeta = BenchmarkData.createRowMeta( 4 );
+    List<Object[]> lookupRows = BenchmarkData.createRows( rowMeta, NR_LOOKUP_ROWS, NR_LOOKUP_ROWS );
+    List<Object[]> rows = BenchmarkData.createRows( rowMeta, NR_ROWS, NR_LOOKUP_ROWS * 2 );
+
+    StreamLookupMeta lookupMeta = new StreamLookupMeta();
+    lookupMeta.setDefault();
+    lookupMeta.allocate( 1, 1 );
+    lookupMeta.getKeystream()[0] = "field1";
+    lookupMeta.getKeylookup()[0] = "field1";
+    // An integer key and value so that every storage type, including the integer pairs, can be used
+    lookupMeta.getValue()[0] = "field1";
+    lookupMeta.getValueName()[0] = "lookupValue";
+    lookupMeta.getValueDefaultType()[0] = ValueMetaInterface.TYPE_INTEGER;
+    lookupMeta.setUsingIntegerPair( "integerPair".equals( storage ) );
+    lookupMeta.setUsingSortedList( "sortedList".equals( storage ) );
+    lookupMeta.setMemoryPreservationActive( "preserveMemory".equals( storage ) || "sortedList".equals( storage ) );
+    lookupMeta.setUsingOffHeap( "offHeap".equals( storage ) );
+
+    transMeta = new TransMeta();
+    StepMeta lookupSource = BenchmarkTransformation.addInjector( transMeta, "lookup source" );
+    StepMeta injector = BenchmarkTransformation.addInjector( transMeta, "injector" );
+    StepMeta lookup = BenchmarkTransformation.addStep( transMeta, "lookup", lookupMeta, injector );
+    transMeta.addTransHop( new TransHopMeta( lookupSource, lookup ) );
+    lookupMeta.getStepIOMeta().getInfoStreams().get( 0 ).setStepMeta( lookupSource );
+    BenchmarkTransformation.addOutput( transMeta, lookup );
+
+    lookupInjection = new BenchmarkTransformation.Injection( "lookup source", rowMeta, lookupRows );
+    mainInjection = new BenchmarkTransformation.Injection( "injector", rowMeta, rows );
+  }
+
+  @Benchmark
+  public long streamLookup() throws KettleException {
+    // The lookup data is read completely before the first row is looked up, inject it first
+    return BenchmarkTransformation.run( transMeta, lookupInjection, mainInjection );
+  }
+}
@@ -0,0 +1,80 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.steps.dummytrans.DummyTransMeta;
+
+/**
+ * Runs a whole transformation in-process: rows are injected and pass a chain of steps that don't change them. This
+ * measures what the engine itself costs, from preparing the execution to the last step finishing, and the overhead of
+ * every extra hop.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class TransBenchmark {
+
+  @Param( { "1000", "1000000" } )
+  public int nrRows;
+
+  @Param( { "1", "5" } )
+  public int nrSteps;
+
+  private TransMeta transMeta;
+  private BenchmarkTransformation.Injection injection;
+
+  @Setup( Level.Trial )
+  public void setUp() throws KettleException {
+    BenchmarkTransformation.initEnvironment();
+
+    RowMetaInterface rowMeta = BenchmarkData.createRowMeta( 10 );
+    List<Object[]> rows = BenchmarkData.createRows( rowMeta, nrRows, nrRows );
+
+    transMeta = new TransMeta();
+    StepMeta previous = BenchmarkTransformation.addInjector( transMeta, "injector" );
+    for ( int i = 0; i < nrSteps; i++ ) {
+      previous = BenchmarkTransformation.addStep( transMeta, "step " + i, new DummyTransMeta(), previous );
+    }
+    BenchmarkTransformation.addOutput( transMeta, previous );
+    injection = new BenchmarkTransformation.Injection( "injector", rowMeta, rows );
+  }
+
+  @Benchmark
+  public long runTransformation() throws KettleException {
+    return BenchmarkTransformation.run( transMeta, injection );
+  }
+}
@@ -0,0 +1,142 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.benchmarks;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+/**
+ * Data conversion and comparison in ValueMetaBase, the work every input step and every sort or lookup does per value.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class ValueMetaBenchmark {
+
+  private ValueMetaInterface stringMeta;
+  private ValueMetaInterface integerMeta;
+  private ValueMetaInterface numberMeta;
+  private ValueMetaInterface dateMeta;
+  private ValueMetaInterface dateStringMeta;
+
+  private String integerString;
+  private String numberString;
+  private String dateString;
+
+  private String string1;
+  private String string2;
+  private Long integer1;
+  private Long integer2;
+  private Double number1;
+  private Double number2;
+  private Date date1;
+  private Date date2;
+
+  @Setup( Level.Trial )
+  public void setUp() {
+    stringMeta = new ValueMetaString( "string" );
+    integerMeta = new ValueMetaInteger( "integer" );
+    numberMeta = new ValueMetaNumber( "number" );
+    numberMeta.setConversionMask( "#.##" );
+    dateMeta = new ValueMetaDate( "date" );
+    dateMeta.setConversionMask( "yyyy/MM/dd HH:mm:ss" );
+    dateStringMeta = new ValueMetaString( "dateString" );
+    dateStringMeta.setConversionMask( "yyyy/MM/dd HH:mm:ss" );
+
+    integerString = "1234567";
+    numberString = "12345.67";
+    dateString = "2017/07/14 02:40:00";
+
+    string1 = "Pentaho Data Integration 1";
+    string2 = "Pentaho Data Integration 2";
+    integer1 = 1234567L;
+    integer2 = 1234568L;
+    number1 = 12345.67;
+    number2 = 12345.68;
+    date1 = new Date( 1500000000000L );
+    date2 = new Date( 1500000001000L );
+  }
+
+  @Benchmark
+  public Object convertStringToInteger() throws KettleValueException {
+    return integerMeta.convertData( stringMeta, integerString );
+  }
+
+  @Benchmark
+  public Object convertStringToNumber() throws KettleValueException {
+    return numberMeta.convertData( stringMeta, numberString );
+  }
+
+  @Benchmark
+  public Object convertStringToDate() throws KettleValueException {
+    return dateMeta.convertData( dateStringMeta, dateString );
+  }
+
+  @Benchmark
+  public Object convertIntegerToString() throws KettleValueException {
+    return stringMeta.convertData( integerMeta, integer1 );
+  }
+
+  @Benchmark
+  public Object convertDateToString() throws KettleValueException {
+    return dateStringMeta.convertData( dateMeta, date1 );
+  }
+
+  @Benchmark
+  public int compareStrings() throws KettleValueException {
+    return stringMeta.compare( string1, string2 );
+  }
+
+  @Benchmark
+  public int compareIntegers() throws KettleValueException {
+    return integerMeta.compare( integer1, integer2 );
+  }
+
+  @Benchmark
+  public int compareNumbers() throws KettleValueException {
+    return numberMeta.compare( number1, number2 );
+  }
+
+  @Benchmark
+  public int compareDates() throws KettleValueException {
+    return dateMeta.compare( date1, date2 );
+  }
+
+  @Benchmark
+  public int compareIntegerWithString() throws KettleValueException {
+    return integerMeta.compare( integer1, stringMeta, integerString );
+  }
+}
@@ -13,6 +13,8 @@
 
 package org.pentaho.di.core;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -116,6 +118,22 @@ public class BlockingRowSet extends BaseRowSet implements Comparable<RowSet>, Ro
     }
   }
 
+  /**
+   * Waits for the first row and then drains the rows that are available while holding the queue lock only once.
+   */
+  @Override
+  public List<Object[]> getRows( int max ) {
+    List<Object[]> rows = new ArrayList<>( Math.min( max, queArray.size() + 1 ) );
+    Object[] row = getRow();
+    if ( row != null ) {
+      rows.add( row );
+      if ( max > 1 ) {
+        queArray.drainTo( rows, max - 1 );
+      }
+    }
+    return rows;
+  }
+
   @Override
   public int size() {
     return queArray.size();
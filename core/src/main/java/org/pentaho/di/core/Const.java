@@ -140,6 +140,11 @@ public class Const {
    */
   public static final int ROWS_IN_ROWSET = 10000;
 
+  /**
+   * Maximum number of rows handed over in one go by steps that read and write rows in batches
+   */
+  public static final int ROWS_IN_BATCH = 500;
+
   /**
    * Fetch size in rows when querying a database
    */
@@ -1042,6 +1047,29 @@ public class Const {
    */
   public static final String KETTLE_BATCHING_ROWSET = "KETTLE_BATCHING_ROWSET";
 
+  /**
+   * The number of rows Table Input reads ahead from the database on a separate thread. 0 disables the read ahead.
+   * (default = 0)
+   */
+  public static final String KETTLE_DATABASE_PREFETCH_ROWS = "KETTLE_DATABASE_PREFETCH_ROWS";
+
+  /**
+   * The number of bytes a query should fetch per round trip to the database. When set, the fetch size of a query is
+   * calculated from the size of its rows instead of using a fixed number of rows. (default = 0, not set)
+   */
+  public static final String KETTLE_DATABASE_FETCH_BUFFER_SIZE = "KETTLE_DATABASE_FETCH_BUFFER_SIZE";
+
+  /**
+   * The maximum number of idle prepared statements a database connection keeps for reuse. (default = 0, no cache)
+   */
+  public static final String KETTLE_DATABASE_STATEMENT_CACHE_SIZE = "KETTLE_DATABASE_STATEMENT_CACHE_SIZE";
+
+  /**
+   * The number of seconds the tables and columns found in the database metadata are remembered for all connections to
+   * the same database. (default = 0, no cache)
+   */
+  public static final String KETTLE_DATABASE_METADATA_CACHE_TTL = "KETTLE_DATABASE_METADATA_CACHE_TTL";
+
   /**
    * Set this variable to limit max number of files the Text File Output step can have open at one time.
    */
@@ -1052,6 +1080,17 @@ public class Const {
    */
   public static final String KETTLE_FILE_OUTPUT_MAX_STREAM_LIFE = "KETTLE_FILE_OUTPUT_MAX_STREAM_LIFE";
 
+  /**
+   * The size in bytes of the write buffer of every file the Text File Output step has open. (default = 5000)
+   */
+  public static final String KETTLE_FILE_OUTPUT_BUFFER_SIZE = "KETTLE_FILE_OUTPUT_BUFFER_SIZE";
+
+  /**
+   * Set this variable to Y to let the Text File Output step compress and write its files on a background thread.
+   * (default = N)
+   */
+  public static final String KETTLE_FILE_OUTPUT_WRITE_BEHIND = "KETTLE_FILE_OUTPUT_WRITE_BEHIND";
+
   /**
    * Set this variable to Y to disable standard Kettle logging to the console. (stdout)
    */
@@ -13,6 +13,8 @@
 
 package org.pentaho.di.core;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -47,6 +49,32 @@ public interface RowSet {
    */
   boolean putRowWait( RowMetaInterface rowMeta, Object[] rowData, long time, TimeUnit tu );
 
+  /**
+   * Offer a batch of rows to this rowset, starting with the row at position offset in the list. If the buffer is full,
+   * wait (block) for a small period of time for room for the first row. The remaining rows are only added as long as
+   * there is room in the buffer. Implementations can override this to hand over all rows in a single operation.
+   *
+   * @param rowMeta
+   *          The description of the row data
+   * @param rows
+   *          the rows of data
+   * @param offset
+   *          the position in the list of the first row to add
+   * @return the number of rows that were added, 0 if the buffer was full.
+   */
+  default int putRows( RowMetaInterface rowMeta, List<Object[]> rows, int offset ) {
+    int added = 0;
+    for ( int i = offset; i < rows.size(); i++ ) {
+      boolean accepted =
+        added == 0 ? putRow( rowMeta, rows.get( i ) ) : putRowWait( rowMeta, rows.get( i ), 0, TimeUnit.MILLISECONDS );
+      if ( !accepted ) {
+        break;
+      }
+      added++;
+    }
+    return added;
+  }
+
   /**
    * Get a row from the input buffer, it blocks for a short period until a new row becomes available. Otherwise, it
    * returns null.
@@ -69,6 +97,28 @@ public interface RowSet {
    */
   Object[] getRowWait( long timeout, TimeUnit tu );
 
+  /**
+   * Get a batch of up to max rows from the input buffer. It blocks for a short period until a first row becomes
+   * available, after that only the rows that are immediately available are returned. Implementations can override this
+   * to take all rows in a single operation.
+   *
+   * @param max
+   *          the maximum number of rows to return
+   * @return the rows in the order they were added, an empty list if no row is available.
+   */
+  default List<Object[]> getRows( int max ) {
+    List<Object[]> rows = new ArrayList<>( Math.min( max, size() + 1 ) );
+    Object[] row = getRow();
+    while ( row != null ) {
+      rows.add( row );
+      if ( rows.size() >= max ) {
+        break;
+      }
+      row = getRowImmediate();
+    }
+    return rows;
+  }
+
   /**
    * @return Set indication that there is no more input
    */
@@ -0,0 +1,326 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * A lock-free buffer of rows for hops that have exactly one writing and one reading thread (single producer, single
+ * consumer). Rows are kept in a ring buffer indexed by two ever increasing sequences: the tail is only advanced by the
+ * producer and the head is only advanced by the consumer. No locks are taken when putting or getting rows, a thread
+ * that has to wait for space or for data spins for a short while, then yields and finally parks for short periods
+ * until the timeout expires.
+ *
+ * This row set must not be shared by more than one writer or more than one reader thread. Trans only allocates it for
+ * non-repartitioning hops when the transformation is configured to use lock-free row sets.
+ *
+ */
+public class SpscRowSet extends BaseRowSet implements Comparable<RowSet>, RowSet {
+  private static final int SPIN_TRIES = 100;
+  private static final int YIELD_TRIES = 200;
+  private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos( 50 );
+
+  private final Object[][] buffer;
+  private final int mask;
+  private final int capacity;
+
+  /** The sequence of the next row to read, only written by the consumer */
+  private final PaddedSequence head = new PaddedSequence();
+
+  /** The sequence of the next row to write, only written by the producer */
+  private final PaddedSequence tail = new PaddedSequence();
+
+  /** The producer's last known value of the head, saves reading the shared counter on every put */
+  private long cachedHead;
+
+  /** The consumer's last known value of the tail, saves reading the shared counter on every get */
+  private long cachedTail;
+
+  private int timeoutPut;
+  private int timeoutGet;
+
+  /**
+   * Create a new lock-free row set with maxSize capacity.
+   *
+   * @param maxSize
+   *          the maximum number of rows in the buffer
+   */
+  public SpscRowSet( int maxSize ) {
+    super();
+
+    capacity = Math.max( 1, maxSize );
+    int length = Integer.highestOneBit( capacity );
+    if ( length < capacity ) {
+      length <<= 1;
+    }
+    buffer = new Object[length][];
+    mask = length - 1;
+
+    timeoutGet = Const.toInt( System.getProperty( Const.KETTLE_ROWSET_GET_TIMEOUT ), Const.TIMEOUT_GET_MILLIS );
+    timeoutPut = Const.toInt( System.getProperty( Const.KETTLE_ROWSET_PUT_TIMEOUT ), Const.TIMEOUT_PUT_MILLIS );
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see org.pentaho.di.core.RowSetInterface#putRow(org.pentaho.di.core.row.RowMetaInterface, java.lang.Object[])
+   */
+  @Override
+  public boolean putRow( RowMetaInterface rowMeta, Object[] rowData ) {
+    return putRowWait( rowMeta, rowData, timeoutPut, TimeUnit.MILLISECONDS );
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see org.pentaho.di.core.RowSetInterface#putRowWait(org.pentaho.di.core.row.RowMetaInterface, java.lang.Object[],
+   * long, java.util.concurrent.TimeUnit)
+   */
+  @Override
+  public boolean putRowWait( RowMetaInterface rowMeta, Object[] rowData, long time, TimeUnit tu ) {
+    this.rowMeta = rowMeta;
+    if ( rowData == null ) {
+      // Same behavior as the blocking row set: a null row can't be queued
+      return false;
+    }
+
+    long t = tail.get();
+    long wrapPoint = t - capacity;
+    if ( cachedHead <= wrapPoint ) {
+      cachedHead = head.get();
+      if ( cachedHead <= wrapPoint && !awaitSpace( wrapPoint, tu.toNanos( time ) ) ) {
+        return false;
+      }
+    }
+
+    buffer[(int) t & mask] = rowData;
+    tail.lazySet( t + 1 );
+    return true;
+  }
+
+  /**
+   * Copies as many rows as there is room for into the ring buffer and publishes them with a single update of the tail.
+   */
+  @Override
+  public int putRows( RowMetaInterface rowMeta, List<Object[]> rows, int offset ) {
+    this.rowMeta = rowMeta;
+    int count = rows.size() - offset;
+    if ( count <= 0 ) {
+      return 0;
+    }
+
+    long t = tail.get();
+    long wrapPoint = t - capacity;
+    if ( cachedHead <= wrapPoint ) {
+      cachedHead = head.get();
+      if ( cachedHead <= wrapPoint && !awaitSpace( wrapPoint, TimeUnit.MILLISECONDS.toNanos( timeoutPut ) ) ) {
+        return 0;
+      }
+    }
+    int room = (int) Math.min( count, cachedHead + capacity - t );
+    if ( room < count ) {
+      // Perhaps the consumer made more room in the meantime
+      cachedHead = head.get();
+      room = (int) Math.min( count, cachedHead + capacity - t );
+    }
+
+    int added = 0;
+    while ( added < room ) {
+      Object[] rowData = rows.get( offset + added );
+      if ( rowData == null ) {
+        break;
+      }
+      buffer[(int) ( t + added ) & mask] = rowData;
+      added++;
+    }
+    tail.lazySet( t + added );
+    return added;
+  }
+
+  private boolean awaitSpace( long wrapPoint, long timeoutNanos ) {
+    long deadline = System.nanoTime() + timeoutNanos;
+    int tries = 0;
+    while ( true ) {
+      cachedHead = head.get();
+      if ( cachedHead > wrapPoint ) {
+        return true;
+      }
+      if ( Thread.interrupted() ) {
+        return false;
+      }
+      long remaining = deadline - System.nanoTime();
+      if ( remaining <= 0 ) {
+        return false;
+      }
+      idle( tries++, remaining );
+    }
+  }
+
+  // default getRow with wait time = 100ms
+  //
+  /*
+   * (non-Javadoc)
+   *
+   * @see org.pentaho.di.core.RowSetInterface#getRow()
+   */
+  @Override
+  public Object[] getRow() {
+    return getRowWait( timeoutGet, TimeUnit.MILLISECONDS );
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see org.pentaho.di.core.RowSetInterface#getRowImmediate()
+   */
+  @Override
+  public Object[] getRowImmediate() {
+    long h = head.get();
+    if ( cachedTail <= h ) {
+      cachedTail = tail.get();
+      if ( cachedTail <= h ) {
+        return null;
+      }
+    }
+    return take( h );
+  }
+
+  /*
+   * (non-Javadoc)
+   *
+   * @see org.pentaho.di.core.RowSetInterface#getRowWait(long, java.util.concurrent.TimeUnit)
+   */
+  @Override
+  public Object[] getRowWait( long timeout, TimeUnit tu ) {
+    long h = head.get();
+    if ( cachedTail <= h ) {
+      cachedTail = tail.get();
+      if ( cachedTail <= h && !awaitData( h, tu.toNanos( timeout ) ) ) {
+        return null;
+      }
+    }
+    return take( h );
+  }
+
+  /**
+   * Takes all the rows that are available, up to max, and releases their slots with a single update of the head.
+   */
+  @Override
+  public List<Object[]> getRows( int max ) {
+    long h = head.get();
+    if ( cachedTail - h < max ) {
+      // Perhaps the producer added more rows in the meantime
+      cachedTail = tail.get();
+      if ( cachedTail <= h && !awaitData( h, TimeUnit.MILLISECONDS.toNanos( timeoutGet ) ) ) {
+        return new ArrayList<>( 0 );
+      }
+    }
+    int available = (int) Math.min( max, cachedTail - h );
+    List<Object[]> rows = new ArrayList<>( available );
+    for ( int i = 0; i < available; i++ ) {
+      int index = (int) ( h + i ) & mask;
+      rows.add( buffer[index] );
+      buffer[index] = null; // prevent any hold-up to GC
+    }
+    head.lazySet( h + available );
+    return rows;
+  }
+
+  private boolean awaitData( long h, long timeoutNanos ) {
+    long deadline = System.nanoTime() + timeoutNanos;
+    int tries = 0;
+    while ( true ) {
+      cachedTail = tail.get();
+      if ( cachedTail > h ) {
+        return true;
+      }
+      if ( Thread.interrupted() ) {
+        return false;
+      }
+      long remaining = deadline - System.nanoTime();
+      if ( remaining <= 0 ) {
+        return false;
+      }
+      idle( tries++, remaining );
+    }
+  }
+
+  private Object[] take( long h ) {
+    int index = (int) h & mask;
+    Object[] row = buffer[index];
+    buffer[index] = null; // prevent any hold-up to GC
+    head.lazySet( h + 1 );
+    return row;
+  }
+
+  /**
+   * Spin first, then yield and finally park for short periods. A hop is usually only empty or full for a very short
+   * while so most waits end during the spin phase without involving the scheduler.
+   */
+  private static void idle( int tries, long remainingNanos ) {
+    if ( tries < SPIN_TRIES ) {
+      return;
+    }
+    if ( tries < YIELD_TRIES ) {
+      Thread.yield();
+    } else {
+      LockSupport.parkNanos( Math.min( PARK_NANOS, remainingNanos ) );
+    }
+  }
+
+  @Override
+  public int size() {
+    // read the head first so the result never goes negative
+    long h = head.get();
+    long t = tail.get();
+    return (int) Math.max( 0, Math.min( capacity, t - h ) );
+  }
+
+  /**
+   * Clears the buffer. Just like with the other row sets this is only safe when neither the producer nor the consumer
+   * is active.
+   */
+  @Override
+  public void clear() {
+    for ( int i = 0; i < buffer.length; i++ ) {
+      buffer[i] = null;
+    }
+    long t = tail.get();
+    head.set( t );
+    cachedHead = t;
+    cachedTail = t;
+    done.set( false );
+  }
+
+  /**
+   * A sequence padded so that the head and tail sequences don't end up on the same cache line. Without this the
+   * producer and consumer would keep invalidating each other's cache lines (false sharing).
+   */
+  @SuppressWarnings( "unused" )
+  private static final class PaddedSequence extends AtomicLong {
+    private static final long serialVersionUID = 1L;
+
+    public volatile long p1, p2, p3, p4, p5, p6, p7 = 7L;
+
+    long sumPaddingToPreventOptimisation() {
+      return p1 + p2 + p3 + p4 + p5 + p6 + p7;
+    }
+  }
+}
@@ -0,0 +1,262 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.database;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * Looks up many keys in a table with a few queries, every key column is compared with "=". The statements come from
+ * {@link Database#prepareBatchLookup(String, String, String[], String[], String, int)}, batches are padded with null
+ * keys up to a power of two so only a few of them get prepared.
+ * <p>
+ * The rows found are matched with the keys that were asked for by comparing their key columns in Java. The database
+ * can consider keys equal that differ in Java, think of collations, CHAR padding, trailing spaces or the scale of
+ * numbers. That's why the keys without a match in Java are asked for again: all together first, which in the usual
+ * case finds nothing and proves they are not in the table, one by one otherwise. A key is never reported missing
+ * unless the database didn't find it either.
+ */
+public class BatchLookup {
+
+  private final Database db;
+  private final String schemaName;
+  private final String tableName;
+  private final String[] keyFields;
+  private final String[] returnFields;
+  private final String orderBy;
+  private final RowMetaInterface keyMeta;
+  private final int maxKeys;
+  private final boolean failingOnMultipleResults;
+
+  private final Map<Integer, PreparedStatement> statements = new HashMap<>();
+  private RowMetaInterface returnedRowMeta;
+  private RowMetaInterface returnRowMeta;
+
+  /**
+   * @param db                       the connected database
+   * @param schemaName               the schema of the lookup table
+   * @param tableName                the lookup table
+   * @param keyFields                the key columns
+   * @param returnFields             the columns to return
+   * @param orderBy                  the order by clause or null, the first row found for a key wins
+   * @param keyMeta                  the metadata of the keys to look up, in normal storage
+   * @param maxKeys                  the maximum number of keys per query
+   * @param failingOnMultipleResults true to fail if more than one row is found for a key
+   */
+  public BatchLookup( Database db, String schemaName, String tableName, String[] keyFields, String[] returnFields,
+                      String orderBy, RowMetaInterface keyMeta, int maxKeys, boolean failingOnMultipleResults ) {
+    this.db = db;
+    this.schemaName = schemaName;
+    this.tableName = tableName;
+    this.keyFields = keyFields;
+    this.returnFields = returnFields;
+    this.orderBy = orderBy;
+    this.keyMeta = keyMeta;
+    this.maxKeys = Math.max( 1, maxKeys );
+    this.failingOnMultipleResults = failingOnMultipleResults;
+  }
+
+  /**
+   * @return the number of keys to look up per query: the batch size asked for, capped by the number of parameters the
+   *         database accepts in a single statement
+   */
+  public static int getMaxKeys( DatabaseMeta databaseMeta, int nrKeyFields, int batchSize ) {
+    int maxParameters = databaseMeta.getDatabaseInterface().getMaxBatchLookupParameters();
+    return Math.max( 1, Math.min( batchSize, maxParameters / Math.max( 1, nrKeyFields ) ) );
+  }
+
+  public int getMaxKeys() {
+    return maxKeys;
+  }
+
+  /**
+   * Look up a number of distinct keys.
+   *
+   * @param keys the keys, without null values: those never match
+   * @return for every key, by position, the values of the return columns of the row found or null if there is none
+   * @throws KettleDatabaseException in case a query fails or if more than one row is found for a key when that's not
+   *                                 allowed
+   * @throws KettleValueException    in case a key found can't be converted to the type of the keys
+   */
+  public Object[][] lookup( List<Object[]> keys ) throws KettleDatabaseException, KettleValueException {
+    Object[][] results = new Object[ keys.size() ][];
+    for ( int start = 0; start < keys.size(); start += maxKeys ) {
+      lookupBatch( keys.subList( start, Math.min( keys.size(), start + maxKeys ) ), start, results );
+    }
+    return results;
+  }
+
+  /**
+   * @return the metadata of the values returned by {@link #lookup(List)}, null until the first query
+   */
+  public RowMetaInterface getReturnRowMeta() {
+    return returnRowMeta;
+  }
+
+  private void lookupBatch( List<Object[]> keys, int offset, Object[][] results )
+    throws KettleDatabaseException, KettleValueException {
+    List<Object[]> rows = query( keys );
+    if ( rows.isEmpty() ) {
+      return;
+    }
+
+    Map<RowMetaAndData, Integer> positions = new HashMap<>();
+    for ( int k = 0; k < keys.size(); k++ ) {
+      positions.put( new RowMetaAndData( keyMeta, keys.get( k ) ), k );
+    }
+    for ( Object[] row : rows ) {
+      Integer position = positions.get( new RowMetaAndData( keyMeta, getReturnedKey( row ) ) );
+      if ( position != null ) {
+        store( results, offset + position, row );
+      }
+    }
+
+    List<Integer> unmatched = new ArrayList<>();
+    for ( int k = 0; k < keys.size(); k++ ) {
+      if ( results[ offset + k ] == null ) {
+        unmatched.add( k );
+      }
+    }
+    if ( unmatched.isEmpty() ) {
+      return;
+    }
+    if ( unmatched.size() < keys.size() ) {
+      // A row can match several keys in the database but only one of them in Java, ask for the others together
+      List<Object[]> unmatchedKeys = new ArrayList<>( unmatched.size() );
+      for ( int k : unmatched ) {
+        unmatchedKeys.add( keys.get( k ) );
+      }
+      if ( query( unmatchedKeys ).isEmpty() ) {
+        return;
+      }
+    }
+    // The database spells these keys differently, every row found for a single key belongs to it
+    for ( int k : unmatched ) {
+      for ( Object[] row : query( Collections.singletonList( keys.get( k ) ) ) ) {
+        store( results, offset + k, row );
+      }
+    }
+  }
+
+  private void store( Object[][] results, int position, Object[] row ) throws KettleDatabaseException {
+    if ( results[ position ] != null ) {
+      if ( failingOnMultipleResults ) {
+        throw new KettleDatabaseException(
+          "Only 1 row was expected as a result of a lookup, and at least 2 were found!" );
+      }
+      // Just like a single lookup we keep the first row
+      return;
+    }
+    results[ position ] = Arrays.copyOfRange( row, keyFields.length, keyFields.length + returnFields.length );
+  }
+
+  /**
+   * @return the key columns of a row found, converted to the types of the keys
+   */
+  private Object[] getReturnedKey( Object[] row ) throws KettleValueException {
+    Object[] key = new Object[ keyFields.length ];
+    for ( int f = 0; f < key.length; f++ ) {
+      key[ f ] = keyMeta.getValueMeta( f ).convertData( returnedRowMeta.getValueMeta( f ), row[ f ] );
+    }
+    return key;
+  }
+
+  private List<Object[]> query( List<Object[]> keys ) throws KettleDatabaseException {
+    // Pad the batch with null keys up to a power of two, this limits the number of statements to prepare
+    int nrKeys = Integer.highestOneBit( keys.size() );
+    if ( nrKeys < keys.size() ) {
+      nrKeys = Math.min( maxKeys, nrKeys << 1 );
+    }
+    PreparedStatement ps = statements.get( nrKeys );
+    if ( ps == null ) {
+      ps = db.prepareBatchLookup( schemaName, tableName, keyFields, returnFields, orderBy, nrKeys );
+      statements.put( nrKeys, ps );
+    }
+
+    int pos = 1;
+    for ( int k = 0; k < nrKeys; k++ ) {
+      Object[] key = k < keys.size() ? keys.get( k ) : null;
+      for ( int f = 0; f < keyFields.length; f++ ) {
+        db.setValue( ps, keyMeta.getValueMeta( f ), key == null ? null : key[ f ], pos++ );
+      }
+    }
+
+    List<Object[]> rows = db.getBatchLookup( ps );
+    if ( returnedRowMeta == null ) {
+      returnedRowMeta = db.getReturnRowMeta();
+      returnRowMeta = new RowMeta();
+      for ( int i = 0; i < returnFields.length; i++ ) {
+        returnRowMeta.addValueMeta( returnedRowMeta.getValueMeta( keyFields.length + i ) );
+      }
+    }
+    return rows;
+  }
+
+  /**
+   * Close the prepared statements.
+   */
+  public void close() throws KettleDatabaseException {
+    KettleDatabaseException exception = null;
+    for ( PreparedStatement ps : statements.values() ) {
+      try {
+        db.closePreparedStatement( ps );
+      } catch ( KettleDatabaseException e ) {
+        exception = e;
+      }
+    }
+    statements.clear();
+    if ( exception != null ) {
+      throw exception;
+    }
+  }
+
+  /**
+   * @return the key of a lookup row in normal storage, null if one of its values is null since that never matches
+   */
+  public static Object[] getKey( RowMetaInterface lookupRowMeta, Object[] lookupRow ) throws KettleValueException {
+    Object[] key = new Object[ lookupRow.length ];
+    for ( int i = 0; i < lookupRow.length; i++ ) {
+      if ( lookupRow[ i ] == null ) {
+        return null;
+      }
+      key[ i ] = lookupRowMeta.getValueMeta( i ).convertToNormalStorageType( lookupRow[ i ] );
+    }
+    return key;
+  }
+
+  /**
+   * @return a copy of the row metadata with all values in normal storage
+   */
+  public static RowMetaInterface getNormalStorageRowMeta( RowMetaInterface rowMeta ) {
+    RowMetaInterface normalMeta = new RowMeta();
+    for ( ValueMetaInterface valueMeta : rowMeta.getValueMetaList() ) {
+      ValueMetaInterface normalValueMeta = valueMeta.clone();
+      normalValueMeta.setStorageType( ValueMetaInterface.STORAGE_TYPE_NORMAL );
+      normalMeta.addValueMeta( normalValueMeta );
+    }
+    return normalMeta;
+  }
+}
@@ -0,0 +1,48 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.database;
+
+import org.pentaho.di.core.exception.KettleDatabaseException;
+
+/**
+ * Streams rows into a table through the native bulk load path of a database, for example COPY ... FROM STDIN on
+ * PostgreSQL, instead of batches of INSERT statements. A writer loads a single set of rows: once it is finished the
+ * rows are part of the current transaction of the connection and a new writer has to be created for the next rows.
+ * <p>
+ * Databases provide a writer through
+ * {@link DatabaseInterface#createBulkInsertWriter(java.sql.Connection, String, String[],
+ * org.pentaho.di.core.row.RowMetaInterface)}.
+ */
+public interface BulkInsertWriter {
+
+  /**
+   * Write a row. This blocks while the database can't keep up with the rows that are sent.
+   *
+   * @param row
+   *          the values to insert, described by the row metadata the writer was created with
+   */
+  void writeRow( Object[] row ) throws KettleDatabaseException;
+
+  /**
+   * Send the remaining rows and wait for the database to load them.
+   *
+   * @return the number of rows loaded
+   */
+  long finish() throws KettleDatabaseException;
+
+  /**
+   * Abort loading the rows, none of the rows written so far are loaded.
+   */
+  void cancel();
+}
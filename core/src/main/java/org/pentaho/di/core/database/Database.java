@@ -141,6 +141,9 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
   private PreparedStatement prepStatementUpdate;
   private PreparedStatement prepStatementInsert;
   private PreparedStatement pstmtSeq;
+
+  /** The idle prepared statements of the connection, null if they aren't kept */
+  private PreparedStatementCache statementCache;
   private CallableStatement cstmt;
 
   private DatabaseMetaData dbmd;
@@ -154,6 +157,14 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
   private static final String[] TABLE_TYPES_TO_GET = { "TABLE", "VIEW" };
   private static final String TABLES_META_DATA_TABLE_NAME = "TABLE_NAME";
 
+  /** The bounds of the fetch size calculated by {@link #adaptFetchSize(ResultSet, long)} */
+  private static final int MIN_ADAPTIVE_FETCH_SIZE = 100;
+  private static final int MAX_ADAPTIVE_FETCH_SIZE = 10 * Const.FETCH_SIZE;
+
+  /** The assumed length of a field without a declared length and the memory overhead of a value, in bytes */
+  private static final int DEFAULT_VALUE_LENGTH = 64;
+  private static final int VALUE_OVERHEAD = 16;
+
   /**
    * Number of times a connection was opened using this object. Only used in the context of a database connection map
    */
@@ -399,6 +410,11 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
         normalConnect( partitionId );
       }
 
+      int statementCacheSize = Const.toInt( getVariable( Const.KETTLE_DATABASE_STATEMENT_CACHE_SIZE ), 0 );
+      if ( statementCacheSize > 0 && statementCache == null ) {
+        statementCache = new PreparedStatementCache( statementCacheSize );
+      }
+
       try {
         ExtensionPointHandler.callExtensionPoint( log, KettleExtensionPoint.DatabaseConnected.id, this );
       } catch ( KettleException e ) {
@@ -699,6 +715,13 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
       }
       pstmtSeq = null;
     }
+    if ( statementCache != null ) {
+      if ( log.isDetailed() ) {
+        log.logDetailed( "Closing " + statementCache );
+      }
+      statementCache.close();
+      statementCache = null;
+    }
 
     // See if there are other steps using this connection in a connection
     // group.
@@ -1019,12 +1042,27 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
     DatabaseInterface databaseInterface = databaseMeta.getDatabaseInterface();
     boolean supportsAutoGeneratedKeys = databaseInterface.supportsAutoGeneratedKeys();
 
+    // Reuse a statement that was prepared and released before
+    String key = null;
+    if ( statementCache != null ) {
+      key = PreparedStatementCache.getKey( sql, returnKeys );
+      PreparedStatement ps = statementCache.take( key );
+      if ( ps != null ) {
+        return ps;
+      }
+    }
+
     try {
+      PreparedStatement ps;
       if ( returnKeys && supportsAutoGeneratedKeys ) {
-        return connection.prepareStatement( databaseMeta.stripCR( sql ), Statement.RETURN_GENERATED_KEYS );
+        ps = connection.prepareStatement( databaseMeta.stripCR( sql ), Statement.RETURN_GENERATED_KEYS );
       } else {
-        return connection.prepareStatement( databaseMeta.stripCR( sql ) );
+        ps = connection.prepareStatement( databaseMeta.stripCR( sql ) );
       }
+      if ( statementCache != null ) {
+        statementCache.register( ps, key );
+      }
+      return ps;
     } catch ( SQLException ex ) {
       throw new KettleDatabaseException( "Couldn't prepare statement:" + Const.CR + sql, ex );
     }
@@ -1036,6 +1074,10 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
   }
 
   public void closePreparedStatement( PreparedStatement ps ) throws KettleDatabaseException {
+    if ( ps != null && statementCache != null && statementCache.release( ps ) ) {
+      // Kept open for the next time the same SQL is prepared
+      return;
+    }
     if ( ps != null ) {
       try {
         ps.close();
@@ -1267,6 +1309,25 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
     return ins.toString();
   }
 
+  /**
+   * Start loading rows into a table through the native bulk load path of the database, see
+   * {@link DatabaseInterface#createBulkInsertWriter(Connection, String, String[], RowMetaInterface)}.
+   *
+   * @param schemaName the schema of the table, can be null
+   * @param tableName  the table to load
+   * @param fields     the values to load, named after the columns
+   * @return the writer or null if the database can't load these rows in bulk
+   */
+  public BulkInsertWriter createBulkInsertWriter( String schemaName, String tableName, RowMetaInterface fields )
+    throws KettleDatabaseException {
+    String schemaTable = databaseMeta.getQuotedSchemaTableCombination( schemaName, tableName );
+    String[] columns = new String[ fields.size() ];
+    for ( int i = 0; i < fields.size(); i++ ) {
+      columns[ i ] = databaseMeta.quoteField( fields.getValueMeta( i ).getName() );
+    }
+    return databaseMeta.getDatabaseInterface().createBulkInsertWriter( connection, schemaTable, columns, fields );
+  }
+
   public void insertRow() throws KettleDatabaseException {
     insertRow( prepStatementInsert );
   }
@@ -1602,6 +1663,7 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
       if ( upperSql.startsWith( "ALTER TABLE" )
         || upperSql.startsWith( "DROP TABLE" ) || upperSql.startsWith( "CREATE TABLE" ) ) {
         DBCache.getInstance().clear( databaseMeta.getName() );
+        DatabaseMetaDataCache.getInstance().clear( getMetaDataCacheKey( null ) );
       }
     } catch ( SQLException ex ) {
       throw new KettleDatabaseException( "Couldn't execute SQL: " + sql + Const.CR, ex );
@@ -1807,6 +1869,7 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
       // of Strings in result rows.
       //
       rowMeta = getRowInfo( res.getMetaData(), databaseMeta.isMySQLVariant(), lazyConversion );
+      adaptFetchSize( res, estimateRowSize( rowMeta ) );
     } catch ( SQLException ex ) {
       throw new KettleDatabaseException( "An error occurred executing SQL: " + Const.CR + sql, ex );
     } catch ( Exception e ) {
@@ -1867,6 +1930,7 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
       log.snap( Metrics.METRIC_DATABASE_GET_ROW_META_START, databaseMeta.getName() );
       rowMeta = getRowInfo( res.getMetaData(), databaseMeta.isMySQLVariant(), false );
       log.snap( Metrics.METRIC_DATABASE_GET_ROW_META_STOP, databaseMeta.getName() );
+      adaptFetchSize( res, estimateRowSize( rowMeta ) );
     } catch ( SQLException ex ) {
       throw new KettleDatabaseException( "ERROR executing query", ex );
     } catch ( Exception e ) {
@@ -1887,6 +1951,87 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
     }
   }
 
+  /**
+   * Adapt the fetch size of an open result set to the size of its rows, so that every round trip to the database
+   * transfers about {@link Const#KETTLE_DATABASE_FETCH_BUFFER_SIZE} bytes. Narrow rows are then fetched in large blocks
+   * and wide rows in small blocks. Nothing changes if that variable isn't set, if the database doesn't support setting
+   * the fetch size or for MySQL, where the fetch size also controls result streaming.
+   *
+   * @param rs      the open result set
+   * @param rowSize the estimated or observed average size of a row in bytes
+   */
+  public void adaptFetchSize( ResultSet rs, long rowSize ) {
+    long bufferSize = Const.toLong( getVariable( Const.KETTLE_DATABASE_FETCH_BUFFER_SIZE ), 0L );
+    if ( bufferSize <= 0 || rowSize <= 0 || !databaseMeta.isFetchSizeSupported() || databaseMeta.isMySQLVariant() ) {
+      return;
+    }
+    int fetchSize =
+      (int) Math.max( MIN_ADAPTIVE_FETCH_SIZE, Math.min( MAX_ADAPTIVE_FETCH_SIZE, bufferSize / rowSize ) );
+    try {
+      Statement statement = rs.getStatement();
+      if ( statement != null && statement.getMaxRows() > 0 ) {
+        // PDI-11373 do not fetch more than max rows can return
+        fetchSize = Math.min( fetchSize, statement.getMaxRows() );
+      }
+      if ( rs.getFetchSize() != fetchSize ) {
+        rs.setFetchSize( fetchSize );
+        if ( log.isDebug() ) {
+          log.logDebug( "Fetch size set to " + fetchSize + " rows of about " + rowSize + " bytes" );
+        }
+      }
+    } catch ( SQLException e ) {
+      // The fetch size is only a hint, just keep the current one
+      log.logDebug( "Unable to change the fetch size: " + e.getMessage() );
+    }
+  }
+
+  /**
+   * Estimate the size of a row from the declared lengths of its fields, before any row is read.
+   *
+   * @param rowMeta the row metadata
+   * @return the estimated size of a row in bytes
+   */
+  static long estimateRowSize( RowMetaInterface rowMeta ) {
+    long size = 0;
+    for ( ValueMetaInterface valueMeta : rowMeta.getValueMetaList() ) {
+      int length = valueMeta.getLength() > 0 ? valueMeta.getLength() : DEFAULT_VALUE_LENGTH;
+      switch ( valueMeta.getType() ) {
+        case ValueMetaInterface.TYPE_STRING:
+          size += VALUE_OVERHEAD + 2L * length;
+          break;
+        case ValueMetaInterface.TYPE_BINARY:
+          size += VALUE_OVERHEAD + length;
+          break;
+        default:
+          size += VALUE_OVERHEAD;
+          break;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Calculate the approximate size of a row that was read.
+   *
+   * @param rowMeta the row metadata
+   * @param row     the row data
+   * @return the size of the row in bytes
+   */
+  public static long getRowSize( RowMetaInterface rowMeta, Object[] row ) {
+    long size = 0;
+    for ( int i = 0; i < rowMeta.size(); i++ ) {
+      Object value = row[ i ];
+      if ( value instanceof String ) {
+        size += VALUE_OVERHEAD + 2L * ( (String) value ).length();
+      } else if ( value instanceof byte[] ) {
+        size += VALUE_OVERHEAD + ( (byte[]) value ).length;
+      } else if ( value != null ) {
+        size += VALUE_OVERHEAD;
+      }
+    }
+    return size;
+  }
+
   /**
    * Returns a RowMeta describing the fields of a table expression.
    *
@@ -1951,12 +2096,56 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
    * @return true if the table exists, false if it doesn't.
    */
   public boolean checkTableExists( String schema, String tablename ) throws KettleDatabaseException {
+    long ttl = getMetaDataCacheTtl();
+    String key = null;
+    if ( ttl > 0 ) {
+      key = getMetaDataCacheKey( "table", schema, tablename );
+      if ( DatabaseMetaDataCache.getInstance().get( key ) != null ) {
+        return true;
+      }
+    }
 
+    boolean exists;
     if ( useJdbcMeta() ) {
-      return checkTableExistsByDbMeta( schema, tablename );
+      exists = checkTableExistsByDbMeta( schema, tablename );
     } else {
-      return checkTableExists( databaseMeta.getQuotedSchemaTableCombination( schema, tablename ) );
+      exists = checkTableExists( databaseMeta.getQuotedSchemaTableCombination( schema, tablename ) );
+    }
+
+    // Only remember the tables that exist, a missing table can be created at any time
+    if ( exists && key != null ) {
+      DatabaseMetaDataCache.getInstance().put( key, Boolean.TRUE, ttl );
+    }
+    return exists;
+  }
+
+  /**
+   * @return the number of milliseconds tables and columns are remembered in the {@link DatabaseMetaDataCache}, 0 if
+   *         they aren't
+   */
+  private long getMetaDataCacheTtl() {
+    return Const.toLong( getVariable( Const.KETTLE_DATABASE_METADATA_CACHE_TTL ), 0L ) * 1000L;
+  }
+
+  /**
+   * Get the key of an entry in the {@link DatabaseMetaDataCache}. The keys of all the entries of a database start with
+   * the key without a kind.
+   *
+   * @param kind  the kind of entry or null to get the prefix of the keys of the database
+   * @param names the names identifying the entry
+   * @return the key
+   */
+  String getMetaDataCacheKey( String kind, String... names ) {
+    StringBuilder key = new StringBuilder( databaseMeta.getName() );
+    key.append( '|' ).append( environmentSubstitute( databaseMeta.getHostname() ) );
+    key.append( '|' ).append( environmentSubstitute( databaseMeta.getDatabaseName() ) ).append( '|' );
+    if ( kind != null ) {
+      key.append( kind );
+      for ( String name : names ) {
+        key.append( '|' ).append( name );
+      }
     }
+    return key.toString();
   }
 
   /**
@@ -2058,13 +2247,29 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
    */
   public boolean checkColumnExists( String schemaname, String tablename, String columnname )
     throws KettleDatabaseException {
+    long ttl = getMetaDataCacheTtl();
+    String key = null;
+    if ( ttl > 0 ) {
+      key = getMetaDataCacheKey( "column", schemaname, tablename, columnname );
+      if ( DatabaseMetaDataCache.getInstance().get( key ) != null ) {
+        return true;
+      }
+    }
+
+    boolean exists;
     if ( useJdbcMeta() ) {
-      return checkColumnExistsByDbMeta( schemaname, tablename, columnname );
+      exists = checkColumnExistsByDbMeta( schemaname, tablename, columnname );
     } else {
-      return checkColumnExists(
+      exists = checkColumnExists(
         databaseMeta.quoteField( columnname ),
         databaseMeta.getQuotedSchemaTableCombination( schemaname, tablename ) );
     }
+
+    // Only remember the columns that exist, a missing column can be added at any time
+    if ( exists && key != null ) {
+      DatabaseMetaDataCache.getInstance().put( key, Boolean.TRUE, ttl );
+    }
+    return exists;
   }
 
   public boolean checkColumnExistsByDbMeta( String schemaname, String tablename, String columnname )
@@ -2075,13 +2280,20 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
 
     // First try the metadata
     try {
-      ResultSet columns = getColumnsMetaData( schemaname, tablename );
-      while ( columns.next() ) {
-        if ( columnname.equals( columns.getString( "COLUMN_NAME" ) ) ) {
-          return true;
-        }
+      long ttl = getMetaDataCacheTtl();
+      if ( ttl <= 0 ) {
+        return getColumnNames( schemaname, tablename ).contains( columnname );
+      }
+      // Checking the columns of a table one by one reads the metadata of the table only once
+      String key = getMetaDataCacheKey( "columns", schemaname, tablename );
+      Set<String> names = DatabaseMetaDataCache.getInstance().get( key );
+      if ( names != null && names.contains( columnname ) ) {
+        return true;
       }
-      return false;
+      // A column that is missing from the cached names can have been added since, read them again
+      names = getColumnNames( schemaname, tablename );
+      DatabaseMetaDataCache.getInstance().put( key, names, ttl );
+      return names.contains( columnname );
     } catch ( KettleDatabaseException | SQLException e ) {
       // That's ok. We will use a prepared statement.
       throw new KettleDatabaseException( "Metadata check failed. Fallback to statement check." );
@@ -2089,6 +2301,17 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
 
   }
 
+  private Set<String> getColumnNames( String schemaname, String tablename )
+    throws KettleDatabaseException, SQLException {
+    Set<String> names = new HashSet<>();
+    try ( ResultSet columns = getColumnsMetaData( schemaname, tablename ) ) {
+      while ( columns.next() ) {
+        names.add( columns.getString( "COLUMN_NAME" ) );
+      }
+    }
+    return names;
+  }
+
   /**
    * See if the column specified exists by reading
    *
@@ -3143,6 +3366,69 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
     }
   }
 
+  /**
+   * Prepare a statement to look up a batch of keys in a single query. The statement selects the key fields followed by
+   * the fields to return, see {@link DatabaseInterface#getBatchLookupSQL(String, String[], String[], int, String)}.
+   *
+   * @param schemaName the schema of the lookup table
+   * @param tableName  the lookup table
+   * @param codes      the key fields, all compared with "="
+   * @param gets       the fields to return
+   * @param orderby    the order by clause or null
+   * @param nrKeys     the number of keys in the batch
+   * @return the prepared statement, to be closed by the caller
+   * @throws KettleDatabaseException in case the statement can't be prepared
+   */
+  public PreparedStatement prepareBatchLookup( String schemaName, String tableName, String[] codes, String[] gets,
+                                               String orderby, int nrKeys ) throws KettleDatabaseException {
+    String table = databaseMeta.getQuotedSchemaTableCombination( schemaName, tableName );
+    String[] keyFields = new String[ codes.length ];
+    for ( int i = 0; i < codes.length; i++ ) {
+      keyFields[ i ] = databaseMeta.quoteField( codes[ i ] );
+    }
+    String[] returnFields = new String[ gets.length ];
+    for ( int i = 0; i < gets.length; i++ ) {
+      returnFields[ i ] = databaseMeta.quoteField( gets[ i ] );
+    }
+    String sql =
+      databaseMeta.getDatabaseInterface().getBatchLookupSQL( table, keyFields, returnFields, nrKeys, orderby );
+
+    try {
+      if ( log.isDetailed() ) {
+        log.logDetailed( "Setting batch lookup preparedStatement to [" + sql + "]" );
+      }
+      return connection.prepareStatement( databaseMeta.stripCR( sql ) );
+    } catch ( SQLException ex ) {
+      throw new KettleDatabaseException( "Unable to prepare statement for batch lookup [" + sql + "]", ex );
+    }
+  }
+
+  /**
+   * Execute a batch lookup prepared with {@link #prepareBatchLookup(String, String, String[], String[], String, int)}
+   * and read all the rows found. Their metadata is available through {@link #getReturnRowMeta()} afterwards.
+   *
+   * @param ps the batch lookup statement with all its values set
+   * @return the rows found, in the order the database returned them
+   * @throws KettleDatabaseException in case something went wrong
+   */
+  public List<Object[]> getBatchLookup( PreparedStatement ps ) throws KettleDatabaseException {
+    log.snap( Metrics.METRIC_DATABASE_GET_LOOKUP_START, databaseMeta.getName() );
+    try ( ResultSet res = ps.executeQuery() ) {
+      rowMeta = getRowInfo( res.getMetaData(), databaseMeta.isMySQLVariant(), false );
+      List<Object[]> rows = new ArrayList<>();
+      Object[] row = getRow( res, null, rowMeta );
+      while ( row != null ) {
+        rows.add( row );
+        row = getRow( res, null, rowMeta );
+      }
+      return rows;
+    } catch ( SQLException ex ) {
+      throw new KettleDatabaseException( "Error looking up a batch of rows in database", ex );
+    } finally {
+      log.snap( Metrics.METRIC_DATABASE_GET_LOOKUP_STOP, databaseMeta.getName() );
+    }
+  }
+
   public DatabaseMetaData getDatabaseMetaData() throws KettleDatabaseException {
     if ( dbmd == null ) {
       try {
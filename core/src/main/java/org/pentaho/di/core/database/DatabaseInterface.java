@@ -13,6 +13,7 @@
 
 package org.pentaho.di.core.database;
 
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -23,6 +24,7 @@ import java.util.Properties;
 
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.repository.ObjectId;
@@ -1253,6 +1255,106 @@ public interface DatabaseInterface extends Cloneable {
     return "";
   }
 
+  /**
+   * Get the SQL to look up a batch of keys in a single query. The key columns are selected first, followed by the
+   * return columns, so the rows found can be matched with the keys that were asked for. There is a ? placeholder for
+   * every key column of every key in the batch, key by key. A batch can be padded with null keys: they never match.
+   * <p>
+   * The default uses an IN list for a single key column and OR-ed conditions for compound keys, which every database
+   * understands.
+   *
+   * @param schemaTable
+   *          the quoted schema and table name
+   * @param keyFields
+   *          the quoted key columns
+   * @param returnFields
+   *          the quoted columns to return
+   * @param nrKeys
+   *          the number of keys in the batch
+   * @param orderBy
+   *          the order by clause or null if there is none
+   * @return the batch lookup SQL
+   */
+  default String getBatchLookupSQL( String schemaTable, String[] keyFields, String[] returnFields, int nrKeys,
+                                    String orderBy ) {
+    StringBuilder sql = new StringBuilder( "SELECT " );
+    sql.append( String.join( ", ", keyFields ) );
+    for ( String returnField : returnFields ) {
+      sql.append( ", " ).append( returnField );
+    }
+    sql.append( " FROM " ).append( schemaTable ).append( " WHERE " );
+    if ( keyFields.length == 1 ) {
+      sql.append( keyFields[ 0 ] ).append( " IN (" );
+      for ( int i = 0; i < nrKeys; i++ ) {
+        sql.append( i == 0 ? "?" : ", ?" );
+      }
+      sql.append( ')' );
+    } else {
+      for ( int i = 0; i < nrKeys; i++ ) {
+        sql.append( i == 0 ? "( " : " OR ( " );
+        for ( int k = 0; k < keyFields.length; k++ ) {
+          if ( k > 0 ) {
+            sql.append( " AND " );
+          }
+          sql.append( keyFields[ k ] ).append( " = ?" );
+        }
+        sql.append( " )" );
+      }
+    }
+    if ( orderBy != null && orderBy.length() != 0 ) {
+      sql.append( " ORDER BY " ).append( orderBy );
+    }
+    return sql.toString();
+  }
+
+  /**
+   * @return the maximum number of parameters a batch lookup query can have, see
+   *         {@link #getBatchLookupSQL(String, String[], String[], int, String)}
+   */
+  default int getMaxBatchLookupParameters() {
+    return 1000;
+  }
+
+  /**
+   * Get the native statement that inserts a row or updates it when a row with the same key already exists (MERGE,
+   * INSERT ... ON CONFLICT, ...). There is a ? placeholder for every insert column, in the order of the insert columns.
+   * Depending on the database the key columns need a primary key or a unique constraint for this to work. Where
+   * possible an existing row without changes is left alone so the statement reports no changed rows for it.
+   *
+   * @param schemaTable
+   *          the quoted schema and table name
+   * @param keyFields
+   *          the quoted key columns, these are also part of the insert columns
+   * @param insertFields
+   *          the quoted columns to insert
+   * @param updateFields
+   *          the quoted columns to update when the key exists, when empty an existing row is left alone
+   * @return the upsert SQL or null if the database has no native upsert statement
+   */
+  default String getUpsertSQL( String schemaTable, String[] keyFields, String[] insertFields,
+                               String[] updateFields ) {
+    return null;
+  }
+
+  /**
+   * Start loading rows into a table through the native bulk load path of the database instead of INSERT statements.
+   * Databases that have such a path (COPY, bulk copy, LOAD DATA LOCAL, ...) can return their own writer.
+   *
+   * @param connection
+   *          the connection to load the rows over
+   * @param schemaTable
+   *          the quoted schema and table name
+   * @param fields
+   *          the quoted columns to load
+   * @param rowMeta
+   *          the metadata of the values to load
+   * @return the writer or null if the database, the driver or the data types don't allow bulk loading
+   */
+  default BulkInsertWriter createBulkInsertWriter( Connection connection, String schemaTable, String[] fields,
+                                                   RowMetaInterface rowMeta ) throws KettleDatabaseException {
+    return null;
+  }
+
   /**
    * Allows to get the column name for JDBC drivers with different behavior for aliases depending on the connector version.
    *
@@ -0,0 +1,131 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.database;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Remembers the tables and columns found in the database metadata for a limited time. The cache is shared by all
+ * {@link Database} instances, so that many short transformations using the same database don't ask the database for
+ * the same tables over and over again.
+ * <p>
+ * Keys start with a prefix identifying the database, see {@link Database#getMetaDataCacheKey(String, String...)}, so
+ * that the entries of a database can be removed after it changed.
+ */
+public class DatabaseMetaDataCache {
+
+  /** The maximum number of entries, the expired entries are removed once there are more */
+  static final int MAX_ENTRIES = 10000;
+
+  private static final DatabaseMetaDataCache instance = new DatabaseMetaDataCache();
+
+  private static class Entry {
+    final Object value;
+    final long expires;
+
+    Entry( Object value, long expires ) {
+      this.value = value;
+      this.expires = expires;
+    }
+  }
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  @VisibleForTesting
+  LongSupplier clock = System::currentTimeMillis;
+
+  @VisibleForTesting
+  DatabaseMetaDataCache() {
+  }
+
+  public static DatabaseMetaDataCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * @param key the key of the entry
+   * @return the value or null if there is no entry for the key or it expired
+   */
+  @SuppressWarnings( "unchecked" )
+  public <T> T get( String key ) {
+    Entry entry = entries.get( key );
+    if ( entry != null ) {
+      if ( entry.expires > clock.getAsLong() ) {
+        hits.incrementAndGet();
+        return (T) entry.value;
+      }
+      entries.remove( key, entry );
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * @param key        the key of the entry
+   * @param value      the value to remember
+   * @param ttlMillis  the number of milliseconds to remember the value
+   */
+  public void put( String key, Object value, long ttlMillis ) {
+    long now = clock.getAsLong();
+    if ( entries.size() >= MAX_ENTRIES ) {
+      removeExpired( now );
+      if ( entries.size() >= MAX_ENTRIES ) {
+        entries.clear();
+      }
+    }
+    entries.put( key, new Entry( value, now + ttlMillis ) );
+  }
+
+  private void removeExpired( long now ) {
+    Iterator<Entry> iterator = entries.values().iterator();
+    while ( iterator.hasNext() ) {
+      if ( iterator.next().expires <= now ) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Remove the entries with keys starting with a prefix.
+   *
+   * @param prefix the prefix of the keys to remove or null to remove all the entries
+   */
+  public void clear( String prefix ) {
+    if ( prefix == null ) {
+      entries.clear();
+    } else {
+      entries.keySet().removeIf( key -> key.startsWith( prefix ) );
+    }
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+}
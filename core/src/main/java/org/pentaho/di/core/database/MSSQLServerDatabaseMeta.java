@@ -523,4 +523,91 @@ public class MSSQLServerDatabaseMeta extends BaseDatabaseMeta implements Databas
     return 8000;
   }
 
+  /**
+   * Joins the table with the keys as a table value constructor, SQL Server has no multi-column IN lists.
+   */
+  @Override
+  public String getBatchLookupSQL( String schemaTable, String[] keyFields, String[] returnFields, int nrKeys,
+                                   String orderBy ) {
+    StringBuilder sql = new StringBuilder( "SELECT " );
+    for ( int k = 0; k < keyFields.length; k++ ) {
+      sql.append( k == 0 ? "t." : ", t." ).append( keyFields[ k ] );
+    }
+    for ( String returnField : returnFields ) {
+      sql.append( ", t." ).append( returnField );
+    }
+    sql.append( " FROM " ).append( schemaTable ).append( " t JOIN ( VALUES " );
+    for ( int i = 0; i < nrKeys; i++ ) {
+      sql.append( i == 0 ? "(" : ", (" );
+      for ( int k = 0; k < keyFields.length; k++ ) {
+        sql.append( k == 0 ? "?" : ", ?" );
+      }
+      sql.append( ')' );
+    }
+    sql.append( " ) AS v (" );
+    for ( int k = 0; k < keyFields.length; k++ ) {
+      sql.append( k == 0 ? " lookup_key" : ", lookup_key" ).append( k );
+    }
+    sql.append( " ) ON " );
+    for ( int k = 0; k < keyFields.length; k++ ) {
+      if ( k > 0 ) {
+        sql.append( " AND " );
+      }
+      sql.append( "t." ).append( keyFields[ k ] ).append( " = v.lookup_key" ).append( k );
+    }
+    if ( orderBy != null && orderBy.length() != 0 ) {
+      sql.append( " ORDER BY " ).append( orderBy );
+    }
+    return sql.toString();
+  }
+
+  /**
+   * SQL Server accepts up to 2100 parameters per statement.
+   */
+  @Override
+  public int getMaxBatchLookupParameters() {
+    return 2000;
+  }
+
+  /**
+   * MERGE with the row to write as a table value constructor. HOLDLOCK keeps concurrent writers from inserting the
+   * same key twice, the terminating semicolon is mandatory for MERGE. An existing row is only updated when one of the
+   * columns changes, EXCEPT considers two nulls equal.
+   */
+  @Override
+  public String getUpsertSQL( String schemaTable, String[] keyFields, String[] insertFields,
+                              String[] updateFields ) {
+    StringBuilder sql = new StringBuilder( "MERGE INTO " ).append( schemaTable );
+    sql.append( " WITH ( HOLDLOCK ) AS t USING ( VALUES ( " );
+    for ( int i = 0; i < insertFields.length; i++ ) {
+      sql.append( i == 0 ? "?" : ", ?" );
+    }
+    sql.append( " ) ) AS s ( " ).append( String.join( ", ", insertFields ) ).append( " ) ON ( " );
+    for ( int k = 0; k < keyFields.length; k++ ) {
+      if ( k > 0 ) {
+        sql.append( " AND " );
+      }
+      sql.append( "t." ).append( keyFields[ k ] ).append( " = s." ).append( keyFields[ k ] );
+    }
+    sql.append( " )" );
+    if ( updateFields.length > 0 ) {
+      sql.append( " WHEN MATCHED AND EXISTS ( SELECT s." ).append( String.join( ", s.", updateFields ) );
+      sql.append( " EXCEPT SELECT t." ).append( String.join( ", t.", updateFields ) ).append( " )" );
+      sql.append( " THEN UPDATE SET " );
+      for ( int i = 0; i < updateFields.length; i++ ) {
+        if ( i > 0 ) {
+          sql.append( ", " );
+        }
+        sql.append( "t." ).append( updateFields[ i ] ).append( " = s." ).append( updateFields[ i ] );
+      }
+    }
+    sql.append( " WHEN NOT MATCHED THEN INSERT ( " ).append( String.join( ", ", insertFields ) );
+    sql.append( " ) VALUES ( " );
+    for ( int i = 0; i < insertFields.length; i++ ) {
+      sql.append( i == 0 ? "s." : ", s." ).append( insertFields[ i ] );
+    }
+    sql.append( " );" );
+    return sql.toString();
+  }
+
 }
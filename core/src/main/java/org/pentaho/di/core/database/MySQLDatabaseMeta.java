@@ -534,4 +534,30 @@ public class MySQLDatabaseMeta extends BaseDatabaseMeta implements DatabaseInter
       throw new KettleDatabaseException( String.format( "%s: %s", BaseMessages.getString( PKG, "MySQLDatabaseMeta.Exception.LegacyColumnNameException" ), e.getMessage() ), e );
     }
   }
+
+  /**
+   * INSERT ... ON DUPLICATE KEY UPDATE. MySQL matches the rows on any primary key or unique index, the key columns
+   * need one of those. When there is nothing to update the first key column is set to itself so the row is kept.
+   */
+  @Override
+  public String getUpsertSQL( String schemaTable, String[] keyFields, String[] insertFields,
+                              String[] updateFields ) {
+    StringBuilder sql = new StringBuilder( "INSERT INTO " ).append( schemaTable );
+    sql.append( " ( " ).append( String.join( ", ", insertFields ) ).append( " ) VALUES ( " );
+    for ( int i = 0; i < insertFields.length; i++ ) {
+      sql.append( i == 0 ? "?" : ", ?" );
+    }
+    sql.append( " ) ON DUPLICATE KEY UPDATE " );
+    if ( updateFields.length == 0 ) {
+      sql.append( keyFields[ 0 ] ).append( " = " ).append( keyFields[ 0 ] );
+    } else {
+      for ( int i = 0; i < updateFields.length; i++ ) {
+        if ( i > 0 ) {
+          sql.append( ", " );
+        }
+        sql.append( updateFields[ i ] ).append( " = VALUES( " ).append( updateFields[ i ] ).append( " )" );
+      }
+    }
+    return sql.toString();
+  }
 }
@@ -653,4 +653,46 @@ public class OracleDatabaseMeta extends BaseDatabaseMeta implements DatabaseInte
     getAttributes().setProperty( STRICT_BIGNUMBER_INTERPRETATION, strictBigNumberInterpretation ? "Y" : "N" );
   }
 
+  /**
+   * MERGE with the row to write selected from DUAL. An existing row is only updated when one of the columns changes,
+   * DECODE considers two nulls equal.
+   */
+  @Override
+  public String getUpsertSQL( String schemaTable, String[] keyFields, String[] insertFields,
+                              String[] updateFields ) {
+    StringBuilder sql = new StringBuilder( "MERGE INTO " ).append( schemaTable ).append( " t USING ( SELECT " );
+    for ( int i = 0; i < insertFields.length; i++ ) {
+      sql.append( i == 0 ? "? " : ", ? " ).append( insertFields[ i ] );
+    }
+    sql.append( " FROM DUAL ) s ON ( " );
+    for ( int k = 0; k < keyFields.length; k++ ) {
+      if ( k > 0 ) {
+        sql.append( " AND " );
+      }
+      sql.append( "t." ).append( keyFields[ k ] ).append( " = s." ).append( keyFields[ k ] );
+    }
+    sql.append( " )" );
+    if ( updateFields.length > 0 ) {
+      sql.append( " WHEN MATCHED THEN UPDATE SET " );
+      for ( int i = 0; i < updateFields.length; i++ ) {
+        if ( i > 0 ) {
+          sql.append( ", " );
+        }
+        sql.append( "t." ).append( updateFields[ i ] ).append( " = s." ).append( updateFields[ i ] );
+      }
+      for ( int i = 0; i < updateFields.length; i++ ) {
+        sql.append( i == 0 ? " WHERE " : " OR " );
+        sql.append( "DECODE( t." ).append( updateFields[ i ] ).append( ", s." ).append( updateFields[ i ] );
+        sql.append( ", 0, 1 ) = 1" );
+      }
+    }
+    sql.append( " WHEN NOT MATCHED THEN INSERT ( " ).append( String.join( ", ", insertFields ) );
+    sql.append( " ) VALUES ( " );
+    for ( int i = 0; i < insertFields.length; i++ ) {
+      sql.append( i == 0 ? "s." : ", s." ).append( insertFields[ i ] );
+    }
+    sql.append( " )" );
+    return sql.toString();
+  }
+
 }
@@ -0,0 +1,284 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.database;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * Loads rows with COPY ... FROM STDIN through the CopyManager API of the PostgreSQL JDBC driver. The rows are encoded
+ * in the COPY text format and streamed over the connection in blocks. When the server can't keep up the socket
+ * fills up and writing a row blocks, so the rows waiting for the step are limited by the buffer of the stream.
+ * <p>
+ * The driver is only known at runtime, it is accessed through reflection.
+ */
+public class PostgreSQLCopyWriter implements BulkInsertWriter {
+
+  /** The size of the blocks sent to the server */
+  static final int BUFFER_SIZE = 65536;
+
+  private static final String PG_CONNECTION_CLASS = "org.postgresql.PGConnection";
+  private static final String PG_COPY_OUTPUT_STREAM_CLASS = "org.postgresql.copy.PGCopyOutputStream";
+
+  private final OutputStream out;
+  private final RowMetaInterface rowMeta;
+  private final boolean booleanDataType;
+  private final StringBuilder line = new StringBuilder( 256 );
+  private final SimpleDateFormat dateFormat = new SimpleDateFormat( "yyyy-MM-dd HH:mm:ss.SSS" );
+  private final SimpleDateFormat timestampFormat = new SimpleDateFormat( "yyyy-MM-dd HH:mm:ss" );
+
+  PostgreSQLCopyWriter( OutputStream out, RowMetaInterface rowMeta, boolean booleanDataType ) {
+    this.out = out;
+    this.rowMeta = rowMeta;
+    this.booleanDataType = booleanDataType;
+  }
+
+  /**
+   * Start a COPY into a table.
+   *
+   * @param connection
+   *          the connection to the PostgreSQL database
+   * @param schemaTable
+   *          the quoted schema and table name
+   * @param fields
+   *          the quoted columns to load
+   * @param rowMeta
+   *          the metadata of the values to load
+   * @param booleanDataType
+   *          true if booleans go into boolean columns, false to write them as Y or N just like INSERT statements do
+   * @return the writer or null if the connection is not a PostgreSQL driver connection or the values can't be encoded
+   */
+  public static PostgreSQLCopyWriter open( Connection connection, String schemaTable, String[] fields,
+    RowMetaInterface rowMeta, boolean booleanDataType ) throws KettleDatabaseException {
+    if ( !isSupported( rowMeta ) ) {
+      return null;
+    }
+    try {
+      Class<?> pgConnectionClass = Class.forName( PG_CONNECTION_CLASS, true, connection.getClass().getClassLoader() );
+      if ( !connection.isWrapperFor( pgConnectionClass ) ) {
+        return null;
+      }
+      Object pgConnection = connection.unwrap( pgConnectionClass );
+      Class<?> streamClass =
+        Class.forName( PG_COPY_OUTPUT_STREAM_CLASS, true, pgConnectionClass.getClassLoader() );
+      Constructor<?> constructor = streamClass.getConstructor( pgConnectionClass, String.class, int.class );
+      OutputStream out =
+        (OutputStream) constructor.newInstance( pgConnection, getCopySQL( schemaTable, fields ), BUFFER_SIZE );
+      return new PostgreSQLCopyWriter( out, rowMeta, booleanDataType );
+    } catch ( ClassNotFoundException | NoSuchMethodException | SQLException e ) {
+      // Not the PostgreSQL driver or a version without the copy API
+      return null;
+    } catch ( InvocationTargetException e ) {
+      throw new KettleDatabaseException( "Unable to start copying rows into " + schemaTable, e.getCause() );
+    } catch ( ReflectiveOperationException e ) {
+      throw new KettleDatabaseException( "Unable to start copying rows into " + schemaTable, e );
+    }
+  }
+
+  static String getCopySQL( String schemaTable, String[] fields ) {
+    return "COPY " + schemaTable + " ( " + String.join( ", ", fields ) + " ) FROM STDIN";
+  }
+
+  /**
+   * @return true if all the values of the row can be encoded in the COPY text format
+   */
+  static boolean isSupported( RowMetaInterface rowMeta ) {
+    for ( ValueMetaInterface valueMeta : rowMeta.getValueMetaList() ) {
+      switch ( valueMeta.getType() ) {
+        case ValueMetaInterface.TYPE_STRING:
+        case ValueMetaInterface.TYPE_INTEGER:
+        case ValueMetaInterface.TYPE_NUMBER:
+        case ValueMetaInterface.TYPE_BIGNUMBER:
+        case ValueMetaInterface.TYPE_BOOLEAN:
+        case ValueMetaInterface.TYPE_DATE:
+        case ValueMetaInterface.TYPE_TIMESTAMP:
+        case ValueMetaInterface.TYPE_BINARY:
+        case ValueMetaInterface.TYPE_INET:
+          break;
+        default:
+          return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void writeRow( Object[] row ) throws KettleDatabaseException {
+    line.setLength( 0 );
+    try {
+      appendRow( row );
+      out.write( line.toString().getBytes( StandardCharsets.UTF_8 ) );
+    } catch ( KettleValueException e ) {
+      throw new KettleDatabaseException( "Unable to encode the row to copy", e );
+    } catch ( IOException e ) {
+      throw new KettleDatabaseException( "Error copying rows", e );
+    }
+  }
+
+  /**
+   * Encode a row as a line in the COPY text format: tab separated values, \N for null and backslash escapes.
+   */
+  void appendRow( Object[] row ) throws KettleValueException {
+    for ( int i = 0; i < rowMeta.size(); i++ ) {
+      if ( i > 0 ) {
+        line.append( '\t' );
+      }
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( i );
+      Object value = row[i];
+      if ( valueMeta.isNull( value ) ) {
+        line.append( "\\N" );
+        continue;
+      }
+      switch ( valueMeta.getType() ) {
+        case ValueMetaInterface.TYPE_INTEGER:
+          line.append( valueMeta.getInteger( value ).longValue() );
+          break;
+        case ValueMetaInterface.TYPE_NUMBER:
+          appendNumber( valueMeta.getNumber( value ).doubleValue() );
+          break;
+        case ValueMetaInterface.TYPE_BIGNUMBER:
+          BigDecimal bigNumber = valueMeta.getBigNumber( value );
+          line.append( bigNumber.toString() );
+          break;
+        case ValueMetaInterface.TYPE_BOOLEAN:
+          if ( booleanDataType ) {
+            line.append( valueMeta.getBoolean( value ) ? 't' : 'f' );
+          } else {
+            line.append( valueMeta.getBoolean( value ) ? 'Y' : 'N' );
+          }
+          break;
+        case ValueMetaInterface.TYPE_DATE:
+          line.append( dateFormat.format( valueMeta.getDate( value ) ) );
+          break;
+        case ValueMetaInterface.TYPE_TIMESTAMP:
+          appendTimestamp( valueMeta.getDate( value ) );
+          break;
+        case ValueMetaInterface.TYPE_BINARY:
+          appendBinary( valueMeta.getBinary( value ) );
+          break;
+        case ValueMetaInterface.TYPE_INET:
+          appendEscaped( ( (InetAddress) valueMeta.convertToNormalStorageType( value ) ).getHostAddress() );
+          break;
+        default:
+          appendEscaped( valueMeta.getString( value ) );
+          break;
+      }
+    }
+    line.append( '\n' );
+  }
+
+  private void appendNumber( double number ) {
+    // Whole numbers without a fraction or exponent: COPY into an integer column doesn't accept 5.0 or 1.0E10
+    if ( number == Math.rint( number ) && Math.abs( number ) < Long.MAX_VALUE ) {
+      line.append( (long) number );
+    } else {
+      line.append( number );
+    }
+  }
+
+  private void appendTimestamp( Date date ) {
+    if ( !( date instanceof Timestamp ) ) {
+      line.append( dateFormat.format( date ) );
+      return;
+    }
+    line.append( timestampFormat.format( date ) );
+    int nanos = ( (Timestamp) date ).getNanos();
+    if ( nanos != 0 ) {
+      // Nine digits with the leading zeros
+      String fraction = Integer.toString( nanos + 1000000000 );
+      line.append( '.' ).append( fraction, 1, fraction.length() );
+    }
+  }
+
+  private void appendBinary( byte[] bytes ) {
+    // bytea in hex format, the backslash itself needs to be escaped in the text format
+    line.append( "\\\\x" );
+    for ( byte b : bytes ) {
+      line.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) ).append( Character.forDigit( b & 0xF, 16 ) );
+    }
+  }
+
+  private void appendEscaped( String string ) {
+    for ( int i = 0; i < string.length(); i++ ) {
+      char c = string.charAt( i );
+      switch ( c ) {
+        case '\\':
+          line.append( "\\\\" );
+          break;
+        case '\t':
+          line.append( "\\t" );
+          break;
+        case '\n':
+          line.append( "\\n" );
+          break;
+        case '\r':
+          line.append( "\\r" );
+          break;
+        default:
+          line.append( c );
+          break;
+      }
+    }
+  }
+
+  @Override
+  public long finish() throws KettleDatabaseException {
+    try {
+      out.flush();
+      return (Long) invoke( "endCopy" );
+    } catch ( IOException e ) {
+      throw new KettleDatabaseException( "Error copying rows", e );
+    }
+  }
+
+  @Override
+  public void cancel() {
+    try {
+      invoke( "cancelCopy" );
+    } catch ( KettleDatabaseException e ) {
+      // Nothing else to do, the transaction is rolled back anyway
+    }
+  }
+
+  private Object invoke( String methodName ) throws KettleDatabaseException {
+    try {
+      Method method = out.getClass().getMethod( methodName );
+      return method.invoke( out );
+    } catch ( InvocationTargetException e ) {
+      throw new KettleDatabaseException( "Error copying rows", e.getCause() );
+    } catch ( ReflectiveOperationException e ) {
+      throw new KettleDatabaseException( "Error copying rows", e );
+    }
+  }
+
+  String getLine() {
+    return line.toString();
+  }
+}
@@ -13,7 +13,11 @@
 
 package org.pentaho.di.core.database;
 
+import java.sql.Connection;
+
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 
 /**
@@ -555,4 +559,83 @@ public class PostgreSQLDatabaseMeta extends BaseDatabaseMeta implements Database
   public int getMaxTextFieldLength() {
     return GB_LIMIT;
   }
+
+  /**
+   * Compound keys are matched with a row value IN list over a VALUES list instead of OR-ed conditions, the planner
+   * turns that into a hash join with the table.
+   */
+  @Override
+  public String getBatchLookupSQL( String schemaTable, String[] keyFields, String[] returnFields, int nrKeys,
+                                   String orderBy ) {
+    if ( keyFields.length == 1 ) {
+      return super.getBatchLookupSQL( schemaTable, keyFields, returnFields, nrKeys, orderBy );
+    }
+    StringBuilder sql = new StringBuilder( "SELECT " );
+    sql.append( String.join( ", ", keyFields ) );
+    for ( String returnField : returnFields ) {
+      sql.append( ", " ).append( returnField );
+    }
+    sql.append( " FROM " ).append( schemaTable );
+    sql.append( " WHERE ( " ).append( String.join( ", ", keyFields ) ).append( " ) IN ( VALUES " );
+    for ( int i = 0; i < nrKeys; i++ ) {
+      sql.append( i == 0 ? "(" : ", (" );
+      for ( int k = 0; k < keyFields.length; k++ ) {
+        sql.append( k == 0 ? "?" : ", ?" );
+      }
+      sql.append( ')' );
+    }
+    sql.append( " )" );
+    if ( orderBy != null && orderBy.length() != 0 ) {
+      sql.append( " ORDER BY " ).append( orderBy );
+    }
+    return sql.toString();
+  }
+
+  /**
+   * The PostgreSQL protocol allows up to 32767 parameters per statement, stay well below that.
+   */
+  @Override
+  public int getMaxBatchLookupParameters() {
+    return 10000;
+  }
+
+  /**
+   * INSERT ... ON CONFLICT, available as of PostgreSQL 9.5. The key columns need a primary key or unique constraint.
+   * An existing row is only updated when one of the columns changes, so it doesn't count as a changed row otherwise.
+   */
+  @Override
+  public String getUpsertSQL( String schemaTable, String[] keyFields, String[] insertFields,
+                              String[] updateFields ) {
+    StringBuilder sql = new StringBuilder( "INSERT INTO " ).append( schemaTable );
+    sql.append( " AS t ( " ).append( String.join( ", ", insertFields ) ).append( " ) VALUES ( " );
+    for ( int i = 0; i < insertFields.length; i++ ) {
+      sql.append( i == 0 ? "?" : ", ?" );
+    }
+    sql.append( " ) ON CONFLICT ( " ).append( String.join( ", ", keyFields ) ).append( " ) DO " );
+    if ( updateFields.length == 0 ) {
+      sql.append( "NOTHING" );
+    } else {
+      sql.append( "UPDATE SET " );
+      StringBuilder current = new StringBuilder();
+      StringBuilder excluded = new StringBuilder();
+      for ( int i = 0; i < updateFields.length; i++ ) {
+        if ( i > 0 ) {
+          sql.append( ", " );
+          current.append( ", " );
+          excluded.append( ", " );
+        }
+        sql.append( updateFields[ i ] ).append( " = EXCLUDED." ).append( updateFields[ i ] );
+        current.append( "t." ).append( updateFields[ i ] );
+        excluded.append( "EXCLUDED." ).append( updateFields[ i ] );
+      }
+      sql.append( " WHERE ( " ).append( current ).append( " ) IS DISTINCT FROM ( " ).append( excluded ).append( " )" );
+    }
+    return sql.toString();
+  }
+
+  @Override
+  public BulkInsertWriter createBulkInsertWriter( Connection connection, String schemaTable, String[] fields,
+                                                  RowMetaInterface rowMeta ) throws KettleDatabaseException {
+    return PostgreSQLCopyWriter.open( connection, schemaTable, fields, rowMeta, supportsBooleanDataType() );
+  }
 }
@@ -0,0 +1,151 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.database;
+
+import java.sql.ResultSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * Reads the rows of a result set on a separate thread into a bounded buffer. Waiting for the next block of rows from
+ * the database and converting the JDBC values then happen while the reading step passes the previous rows on to the
+ * next steps.
+ * <p>
+ * After the first rows are read the fetch size of the result set is adapted to the observed size of the rows, see
+ * {@link Database#adaptFetchSize(ResultSet, long)}.
+ * <p>
+ * A reader has exactly one consumer thread. It has to be closed before the result set is closed.
+ */
+public class PrefetchingRowReader {
+
+  /** The number of rows used to measure the size of the rows */
+  static final int SAMPLE_ROWS = 100;
+
+  private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+  /** Marks the end of the rows in the buffer */
+  private static final Object[] END_OF_ROWS = new Object[0];
+
+  private final Database db;
+  private final ResultSet rs;
+  private final RowMetaInterface rowMeta;
+  private final BlockingQueue<Object[]> buffer;
+  private final Thread thread;
+
+  private volatile boolean closed;
+  private volatile KettleDatabaseException failure;
+  private boolean finished;
+
+  /**
+   * Create a reader and start reading ahead.
+   *
+   * @param db         the database the result set belongs to
+   * @param rs         the result set to read
+   * @param rowMeta    the metadata of the rows in the result set
+   * @param bufferSize the maximum number of rows to read ahead
+   */
+  public PrefetchingRowReader( Database db, ResultSet rs, RowMetaInterface rowMeta, int bufferSize ) {
+    this.db = db;
+    this.rs = rs;
+    this.rowMeta = rowMeta;
+    this.buffer = new ArrayBlockingQueue<>( Math.max( 1, bufferSize ) );
+
+    thread = new Thread( this::readRows, "Prefetch " + db.getDatabaseMeta().getName() );
+    thread.setDaemon( true );
+    thread.start();
+  }
+
+  private void readRows() {
+    try {
+      long sampleSize = 0;
+      int sampleRows = 0;
+      Object[] row = db.getRow( rs, null, rowMeta );
+      while ( row != null && !closed ) {
+        if ( sampleRows < SAMPLE_ROWS ) {
+          sampleSize += Database.getRowSize( rowMeta, row );
+          if ( ++sampleRows == SAMPLE_ROWS ) {
+            db.adaptFetchSize( rs, sampleSize / SAMPLE_ROWS );
+          }
+        }
+        if ( !put( row ) ) {
+          return;
+        }
+        row = db.getRow( rs, null, rowMeta );
+      }
+    } catch ( KettleDatabaseException e ) {
+      failure = e;
+    }
+    put( END_OF_ROWS );
+  }
+
+  private boolean put( Object[] row ) {
+    try {
+      while ( !buffer.offer( row, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS ) ) {
+        if ( closed ) {
+          return false;
+        }
+      }
+      return true;
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Get the next row, waiting for it to be read if needed.
+   *
+   * @return the next row or null if there are no more rows
+   * @throws KettleDatabaseException
+   *           if reading the rows failed, the same exception reading the result set directly would have thrown
+   */
+  public Object[] getRow() throws KettleDatabaseException {
+    if ( finished ) {
+      return null;
+    }
+    Object[] row;
+    try {
+      row = buffer.take();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleDatabaseException( "Interrupted while waiting for the next row", e );
+    }
+    if ( row == END_OF_ROWS ) {
+      finished = true;
+      if ( failure != null ) {
+        throw failure;
+      }
+      return null;
+    }
+    return row;
+  }
+
+  /**
+   * Stop reading ahead and wait until the reading thread no longer uses the result set.
+   */
+  public void close() {
+    closed = true;
+    buffer.clear();
+    try {
+      thread.join();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    buffer.clear();
+  }
+}
@@ -0,0 +1,209 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps the prepared statements of a connection for reuse. Preparing SQL that was prepared and closed before returns
+ * the same statement again, saving the round trip to the database and the parsing of the SQL.
+ * <p>
+ * A statement is handed out to a single user at a time: it only becomes available again once it is released. The
+ * idle statements are kept in least recently used order, the oldest ones are closed once there are more than the
+ * maximum.
+ * <p>
+ * The maximum number of rows, the fetch size and the query timeout a statement had when it was prepared are restored
+ * each time it is handed out again, a previous user changing them doesn't limit the next one.
+ */
+public class PreparedStatementCache {
+
+  private final int maxSize;
+
+  /** The idle statements by key, in least recently used order */
+  private final LinkedHashMap<String, Entry> idle;
+
+  /** The statements that are handed out. Statements that are closed directly are forgotten. */
+  private final Map<PreparedStatement, Entry> inUse = Collections.synchronizedMap( new WeakHashMap<>() );
+
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * @param maxSize the maximum number of idle statements to keep
+   */
+  public PreparedStatementCache( int maxSize ) {
+    this.maxSize = Math.max( 1, maxSize );
+    this.idle = new LinkedHashMap<>( 16, 0.75f, true );
+  }
+
+  /**
+   * @return the key of a statement for the SQL and the way it is prepared
+   */
+  public static String getKey( String sql, boolean returnKeys ) {
+    return ( returnKeys ? "K:" : "S:" ) + sql;
+  }
+
+  /**
+   * Take an idle statement.
+   *
+   * @param key the key of the statement
+   * @return the statement or null if there is no idle statement for the key
+   */
+  public synchronized PreparedStatement take( String key ) {
+    Entry entry = idle.remove( key );
+    if ( entry != null && !isClosed( entry.ps ) ) {
+      try {
+        entry.reset();
+        hits++;
+        inUse.put( entry.ps, entry );
+        return entry.ps;
+      } catch ( SQLException e ) {
+        close( entry.ps );
+      }
+    }
+    misses++;
+    return null;
+  }
+
+  /**
+   * Remember a newly prepared statement, so that it can be kept once it is released. A statement of which the settings
+   * can't be read is not kept.
+   */
+  public void register( PreparedStatement ps, String key ) {
+    try {
+      inUse.put( ps, new Entry( key, ps ) );
+    } catch ( SQLException e ) {
+      // Not kept, the statement is closed as usual once it is released
+    }
+  }
+
+  /**
+   * Release a statement that is no longer used.
+   *
+   * @return true if the statement is kept, false if the caller needs to close the statement itself
+   */
+  public synchronized boolean release( PreparedStatement ps ) {
+    Entry entry = inUse.remove( ps );
+    if ( entry == null || isClosed( ps ) ) {
+      return false;
+    }
+    if ( idle.containsKey( entry.key ) ) {
+      // Keep a single idle statement per key
+      return false;
+    }
+    try {
+      ps.clearParameters();
+      ps.clearBatch();
+    } catch ( SQLException e ) {
+      return false;
+    }
+    idle.put( entry.key, entry );
+
+    // The released statement is the most recently used one, it is never evicted itself
+    Iterator<Entry> iterator = idle.values().iterator();
+    while ( idle.size() > maxSize ) {
+      Entry eldest = iterator.next();
+      iterator.remove();
+      evictions++;
+      close( eldest.ps );
+    }
+    return true;
+  }
+
+  /**
+   * Close all the idle statements.
+   */
+  public synchronized void close() {
+    for ( Entry entry : idle.values() ) {
+      close( entry.ps );
+    }
+    idle.clear();
+    inUse.clear();
+  }
+
+  private static boolean isClosed( PreparedStatement ps ) {
+    try {
+      return ps.isClosed();
+    } catch ( SQLException e ) {
+      return true;
+    }
+  }
+
+  private static void close( PreparedStatement ps ) {
+    try {
+      ps.close();
+    } catch ( SQLException e ) {
+      // The statement can't be used anymore anyway
+    }
+  }
+
+  public synchronized int size() {
+    return idle.size();
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "statement cache: " + hits + " hits, " + misses + " misses, " + evictions + " evictions";
+  }
+
+  /**
+   * A kept statement with the settings it had when it was prepared.
+   */
+  private static class Entry {
+    private final String key;
+    private final PreparedStatement ps;
+    private final int maxRows;
+    private final int fetchSize;
+    private final int queryTimeout;
+
+    private Entry( String key, PreparedStatement ps ) throws SQLException {
+      this.key = key;
+      this.ps = ps;
+      this.maxRows = ps.getMaxRows();
+      this.fetchSize = ps.getFetchSize();
+      this.queryTimeout = ps.getQueryTimeout();
+    }
+
+    private void reset() throws SQLException {
+      if ( ps.getMaxRows() != maxRows ) {
+        ps.setMaxRows( maxRows );
+      }
+      if ( ps.getFetchSize() != fetchSize ) {
+        ps.setFetchSize( fetchSize );
+      }
+      if ( ps.getQueryTimeout() != queryTimeout ) {
+        ps.setQueryTimeout( queryTimeout );
+      }
+    }
+  }
+}
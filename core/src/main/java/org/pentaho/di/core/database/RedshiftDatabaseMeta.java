@@ -13,7 +13,9 @@
 package org.pentaho.di.core.database;
 
 import org.pentaho.di.core.encryption.Encr;
+import org.pentaho.di.core.row.RowMetaInterface;
 
+import java.sql.Connection;
 import java.util.Arrays;
 import java.util.Map;
 
@@ -105,6 +107,17 @@ public class RedshiftDatabaseMeta extends PostgreSQLDatabaseMeta {
     return false;
   }
 
+  /**
+   * Redshift doesn't support COPY ... FROM STDIN, it only copies from files in S3 and the like
+   *
+   * @return null
+   */
+  @Override
+  public BulkInsertWriter createBulkInsertWriter( Connection connection, String schemaTable, String[] fields,
+                                                  RowMetaInterface rowMeta ) {
+    return null;
+  }
+
   @Override
   public String[] getUsedLibraries() {
     return new String[] { "RedshiftJDBC4_1.0.10.1010.jar" };
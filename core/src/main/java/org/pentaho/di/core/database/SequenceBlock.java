@@ -0,0 +1,141 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.database;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.i18n.BaseMessages;
+
+/**
+ * Hands out the values of a sequence from blocks that are reserved with one call each, instead of asking the database
+ * for every single value. A block is reserved from a database sequence that increments by the block size, or from a
+ * counter table like the one of a slave sequence. Since every caller gets a block of its own, the values are unique
+ * over step copies and slave servers without any locking.
+ * <p>
+ * A database sequence that increments by less than the block size hands out overlapping blocks. When the increment
+ * is verified, the first two blocks are reserved together and have to be a multiple of the block size apart, as do
+ * all the blocks after them. Otherwise reserving a block fails before any duplicate value is handed out.
+ * <p>
+ * An instance is not thread safe: use one per step copy.
+ */
+public class SequenceBlock {
+
+  private static final Class<?> PKG = Database.class; // for i18n purposes, needed by Translator2!!
+
+  /**
+   * Reserves the next block of values of a sequence.
+   */
+  public interface Source {
+    /**
+     * @param blockSize the number of values to reserve
+     * @return the first value of the reserved block, or null if no value could be found
+     * @throws KettleException in case the block couldn't be reserved
+     */
+    Long reserveBlock( long blockSize ) throws KettleException;
+  }
+
+  private final Source source;
+  private final long blockSize;
+  private final boolean verifyIncrement;
+
+  private long nextValue;
+  private long remaining;
+
+  /** The first value of the first block, null until the increment is verified */
+  private Long firstValue;
+
+  /** The first value of a block that was reserved ahead, or null */
+  private Long reservedValue;
+
+  /**
+   * @param source    reserves the blocks of exactly the block size, like a counter table
+   * @param blockSize the number of values in a block, at least 1
+   */
+  public SequenceBlock( Source source, long blockSize ) {
+    this( source, blockSize, false );
+  }
+
+  /**
+   * @param source          reserves the blocks
+   * @param blockSize       the number of values in a block, at least 1
+   * @param verifyIncrement true to verify that the blocks don't overlap, for a database sequence that has to increment
+   *                        by the block size
+   */
+  public SequenceBlock( Source source, long blockSize, boolean verifyIncrement ) {
+    if ( blockSize < 1 ) {
+      throw new IllegalArgumentException( "The block size of a sequence has to be at least 1: " + blockSize );
+    }
+    this.source = source;
+    this.blockSize = blockSize;
+    this.verifyIncrement = verifyIncrement && blockSize > 1;
+  }
+
+  /**
+   * @return the next value of the sequence, reserving a new block if the current one is used up, or null if the
+   * source didn't return a block
+   * @throws KettleException in case a new block couldn't be reserved
+   */
+  public Long getNextValue() throws KettleException {
+    if ( remaining == 0 ) {
+      Long first = reserveBlock();
+      if ( first == null ) {
+        return null;
+      }
+      nextValue = first;
+      remaining = blockSize;
+    }
+    remaining--;
+    return nextValue++;
+  }
+
+  private Long reserveBlock() throws KettleException {
+    if ( reservedValue != null ) {
+      Long first = reservedValue;
+      reservedValue = null;
+      return first;
+    }
+    Long first = source.reserveBlock( blockSize );
+    if ( first == null || !verifyIncrement ) {
+      return first;
+    }
+    if ( firstValue == null ) {
+      // The distance between the first two blocks shows the increment of the sequence
+      //
+      Long second = source.reserveBlock( blockSize );
+      if ( second == null ) {
+        return null;
+      }
+      if ( second <= first || ( second - first ) % blockSize != 0 ) {
+        throw new KettleException( BaseMessages.getString( PKG, "SequenceBlock.Error.IncrementNotBlockSize",
+          String.valueOf( blockSize ), String.valueOf( first ), String.valueOf( second ) ) );
+      }
+      firstValue = first;
+      reservedValue = second;
+      return first;
+    }
+    // All the values of a sequence that increments by the block size are a multiple of it apart
+    //
+    if ( ( first - firstValue ) % blockSize != 0 ) {
+      throw new KettleException( BaseMessages.getString( PKG, "SequenceBlock.Error.IncrementNotBlockSize",
+        String.valueOf( blockSize ), String.valueOf( firstValue ), String.valueOf( first ) ) );
+    }
+    return first;
+  }
+
+  /**
+   * @return the number of values in a block
+   */
+  public long getBlockSize() {
+    return blockSize;
+  }
+}
@@ -13,44 +13,110 @@
 
 package org.pentaho.di.core.hash;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 
+/**
+ * A hash index mapping serialized keys to serialized values. The index uses open addressing with linear probing over a
+ * flat slab of slots, holding the address and the hash code of every entry. The bytes of the keys and values themselves
+ * are appended to a paged slab. Both slabs live on the Java heap or in direct memory outside of the heap. There is no
+ * entry object nor a byte[] per key or value, a lookup only compares the bytes of the entries with the same hash code.
+ * <p>
+ * Keys are compared and hashed byte by byte so the keys need to be serialized with the same row metadata, for example
+ * with {@link RowMeta#extractData(RowMetaInterface, Object[])}.
+ */
 public class ByteArrayHashIndex {
 
   private static final int STANDARD_INDEX_SIZE = 512;
   private static final float STANDARD_LOAD_FACTOR = 0.78f;
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  private final RowMetaInterface keyRowMeta;
+  private final float loadFactor;
+  private PageAllocator allocator;
 
-  private RowMetaInterface keyRowMeta;
-  private ByteArrayHashIndexEntry[] index;
+  /** For every slot: the slab address of the entry plus one (0 for an empty slot) followed by its hash code */
+  private LongSlab slots;
+  private int capacity;
   private int size;
   private int resizeThresHold;
 
+  private ByteSlab slab;
+
+  /** The number of bytes in the slab taken by removed or replaced entries */
+  private long garbageBytes;
+
   /**
-   * Create a Byte array hash index to store row
+   * Create a Byte array hash index to store rows
    *
-   * @param rowMeta
+   * @param keyRowMeta
+   *          the metadata of the serialized keys
+   * @param size
+   *          the initial number of slots in the hash index, rounded up to a power of 2
+   * @param loadFactor
+   *          the fraction of the slots that can be used before the index grows, between 0 and 1 (exclusive)
+   * @param offHeap
+   *          true to keep the slots, keys and values in direct memory outside of the Java heap
    */
-  public ByteArrayHashIndex( RowMetaInterface keyRowMeta, int size ) {
+  public ByteArrayHashIndex( RowMetaInterface keyRowMeta, int size, float loadFactor, boolean offHeap ) {
+    this( keyRowMeta, size, loadFactor, offHeap ? PageAllocator.direct() : PageAllocator.heap() );
+  }
+
+  ByteArrayHashIndex( RowMetaInterface keyRowMeta, int size, float loadFactor, PageAllocator allocator ) {
+    if ( !( loadFactor > 0 && loadFactor < 1 ) ) {
+      throw new IllegalArgumentException( "Illegal load factor: " + loadFactor );
+    }
     this.keyRowMeta = keyRowMeta;
+    this.loadFactor = loadFactor;
+    this.allocator = allocator;
+    this.slab = new ByteSlab( allocator );
 
     // Find a suitable capacity being a factor of 2:
     int factor2Size = 1;
-    while ( factor2Size < size ) {
+    while ( factor2Size < size && factor2Size < MAXIMUM_CAPACITY ) {
       factor2Size <<= 1; // Multiply by 2
     }
+    allocate( factor2Size );
+  }
 
-    this.size = factor2Size;
-    this.resizeThresHold = (int) ( factor2Size * STANDARD_LOAD_FACTOR );
-
-    index = new ByteArrayHashIndexEntry[factor2Size];
+  /**
+   * Create a Byte array hash index to store rows
+   *
+   * @param keyRowMeta
+   *          the metadata of the serialized keys
+   * @param size
+   *          the initial number of slots in the hash index, rounded up to a power of 2
+   */
+  public ByteArrayHashIndex( RowMetaInterface keyRowMeta, int size ) {
+    this( keyRowMeta, size, STANDARD_LOAD_FACTOR, false );
   }
 
   public ByteArrayHashIndex( RowMetaInterface keyRowMeta ) {
     this( keyRowMeta, STANDARD_INDEX_SIZE );
   }
 
+  /**
+   * Create a Byte array hash index for keys that are serialized by the caller
+   *
+   * @param size
+   *          the initial number of slots in the hash index, rounded up to a power of 2
+   */
+  public ByteArrayHashIndex( int size ) {
+    this( null, size, STANDARD_LOAD_FACTOR, false );
+  }
+
+  public RowMetaInterface getKeyRowMeta() {
+    return keyRowMeta;
+  }
+
+  /**
+   * @return the number of keys in the index
+   */
   public int getSize() {
     return size;
   }
@@ -59,201 +125,229 @@ public class ByteArrayHashIndex {
     return size == 0;
   }
 
-  public byte[] get( byte[] key ) throws KettleValueException {
-    int hashCode = generateHashCode( key, keyRowMeta );
+  /**
+   * @return the number of slots in the index
+   */
+  public int getCapacity() {
+    return capacity;
+  }
 
-    int indexPointer = hashCode & ( index.length - 1 );
-    ByteArrayHashIndexEntry check = index[indexPointer];
+  public boolean isOffHeap() {
+    return !allocator.isHeap();
+  }
 
-    while ( check != null ) {
-      if ( check.hashCode == hashCode && check.equalsKey( key ) ) {
-        return check.value;
-      }
-      check = check.nextEntry;
-    }
-    return null;
+  /**
+   * @return the number of bytes used to store the keys and values, including the bytes of removed entries that were
+   *         not reclaimed yet
+   */
+  public long getDataSize() {
+    return slab.getUsedBytes();
   }
 
-  public void put( byte[] key, byte[] value ) throws KettleValueException {
-    int hashCode = generateHashCode( key, keyRowMeta );
-    int indexPointer = hashCode & ( index.length - 1 );
+  /**
+   * @return the number of bytes taken by the slots and the pages of the index
+   */
+  public long getMemoryUsage() {
+    return allocator.getUsedBytes();
+  }
 
-    // First see if there is an entry on that pointer...
-    //
-    boolean searchEmptySpot = false;
+  public byte[] get( byte[] key ) throws KettleValueException {
+    return get( key, generateHashCode( key ) );
+  }
 
-    ByteArrayHashIndexEntry check = index[indexPointer];
-    ByteArrayHashIndexEntry previousCheck = null;
+  byte[] get( byte[] key, int hashCode ) {
+    int slot = find( key, hashCode );
+    return slot < 0 ? null : slab.getValue( address( slot ) );
+  }
 
-    while ( check != null ) {
-      searchEmptySpot = true;
+  public void put( byte[] key, byte[] value ) throws KettleValueException {
+    put( key, value, generateHashCode( key ) );
+  }
 
-      // If there is an identical entry in there, we replace the value.
-      // And then we just return...
-      //
-      if ( check.hashCode == hashCode && check.equalsKey( key ) ) {
-        check.value = value;
+  void put( byte[] key, byte[] value, int hashCode ) throws KettleValueException {
+    int mask = capacity - 1;
+    int slot = hashCode & mask;
+    while ( slots.get( (long) slot << 1 ) != 0L ) {
+      long address = address( slot );
+      if ( hashCode( slot ) == hashCode && slab.keyEquals( address, key ) ) {
+        // Same key: overwrite the value in place if possible, otherwise append a new entry
+        //
+        if ( !slab.replaceValue( address, value ) ) {
+          garbageBytes += slab.entryLength( address );
+          slots.set( (long) slot << 1, slab.append( key, value ) + 1 );
+        }
         return;
       }
-      previousCheck = check;
-      check = check.nextEntry;
+      slot = ( slot + 1 ) & mask;
     }
 
-    // If we are still here, that means that we are ready to put the value down...
-    // Where do we need to search for an empty spot in the index?
+    slots.set( (long) slot << 1, slab.append( key, value ) + 1 );
+    slots.set( ( (long) slot << 1 ) + 1, hashCode );
+
+    // If required, resize the table...
     //
-    while ( searchEmptySpot ) {
-      indexPointer++;
-      if ( indexPointer >= size ) {
-        indexPointer = 0;
-      }
-      if ( index[indexPointer] == null ) {
-        searchEmptySpot = false;
+    if ( ++size >= resizeThresHold ) {
+      if ( capacity >= MAXIMUM_CAPACITY ) {
+        if ( size >= capacity - 1 ) {
+          throw new KettleValueException( "The hash index can't hold more than " + size + " keys" );
+        }
+      } else {
+        rehash( capacity * 2, allocator );
       }
     }
+  }
 
-    // OK, now that we know where to put the entry, insert it...
-    //
-    index[indexPointer] = new ByteArrayHashIndexEntry( hashCode, key, value, index[indexPointer] );
+  /**
+   * Remove a key from the index.
+   *
+   * @return true if the key was found and removed
+   */
+  public boolean remove( byte[] key ) {
+    int slot = find( key, generateHashCode( key ) );
+    if ( slot < 0 ) {
+      return false;
+    }
+    garbageBytes += slab.entryLength( address( slot ) );
+    size--;
 
-    // Don't forget to link to the previous check entry if there was any...
+    // Shift the following entries of the probe sequence back so no lookup stops early on the freed slot
     //
-    if ( previousCheck != null ) {
-      previousCheck.nextEntry = index[indexPointer];
+    int mask = capacity - 1;
+    int free = slot;
+    int next = ( free + 1 ) & mask;
+    while ( slots.get( (long) next << 1 ) != 0L ) {
+      int home = hashCode( next ) & mask;
+      // Only move the entry if its home slot is not in the cyclic range (free, next]
+      //
+      if ( ( ( next - home ) & mask ) >= ( ( next - free ) & mask ) ) {
+        slots.set( (long) free << 1, slots.get( (long) next << 1 ) );
+        slots.set( ( (long) free << 1 ) + 1, slots.get( ( (long) next << 1 ) + 1 ) );
+        free = next;
+      }
+      next = ( next + 1 ) & mask;
     }
+    slots.set( (long) free << 1, 0L );
+    slots.set( ( (long) free << 1 ) + 1, 0L );
 
-    // If required, resize the table...
+    // Reclaim the space of the removed entries once they take more than half of the slab
     //
-    resize();
+    if ( garbageBytes > PageAllocator.MAX_PAGE_SIZE && garbageBytes * 2 > slab.getUsedBytes() ) {
+      rehash( capacity, allocator );
+    }
+    return true;
   }
 
-  private final void resize() {
-    // Increase the size of the index...
-    //
-    size++;
-
-    // See if we've reached our resize threshold...
-    //
-    if ( size >= resizeThresHold ) {
-
-      ByteArrayHashIndexEntry[] oldIndex = index;
-
-      // Double the size to keep the size of the index a factor of 2...
-      // Allocate the new array...
-      //
-      int newSize = 2 * index.length;
-
-      ByteArrayHashIndexEntry[] newIndex = new ByteArrayHashIndexEntry[newSize];
-
-      // Loop over the old index and re-distribute the entries
-      // We want to make sure that the calculation
-      // entry.hashCode & ( size - 1)
-      // ends up in the right location after re-sizing...
-      //
-      for ( int i = 0; i < oldIndex.length; i++ ) {
-        ByteArrayHashIndexEntry entry = oldIndex[i];
-        if ( entry != null ) {
-          oldIndex[i] = null;
-          entry.nextEntry = null; // we assume there is plenty of room in the new index...
-
-          // Make sure we follow all the linked entries...
-          // TODO This is a lot of extra work, see how we can avoid it!
-          //
-          int newIndexPointer = entry.hashCode & ( newSize - 1 );
-
-          // Make sure on this new index pointer, we have room to put the entry
-          //
-          ByteArrayHashIndexEntry check = newIndex[newIndexPointer];
-          if ( check == null ) {
-            // Yes, plenty of room
-            //
-            newIndex[newIndexPointer] = check;
-          } else {
-            // No, we need to look for a nice spot to put the hash entry...
-            //
-            ByteArrayHashIndexEntry previousCheck = null;
-            while ( check != null ) {
-              previousCheck = check;
-              check = check.nextEntry;
-            }
-            while ( newIndex[newIndexPointer] != null ) {
-              newIndexPointer++;
-              if ( newIndexPointer >= newSize ) {
-                newIndexPointer = 0;
-              }
-            }
-            // OK, now that we have a nice spot to put the entry, link the previous check entry to this one...
-            //
-            previousCheck.nextEntry = entry;
-            newIndex[newIndexPointer] = entry;
-          }
-          newIndex[newIndexPointer] = entry;
-        }
+  /**
+   * @return a copy of all the keys in the index
+   */
+  public List<byte[]> getKeys() {
+    List<byte[]> keys = new ArrayList<>( size );
+    for ( int slot = 0; slot < capacity; slot++ ) {
+      if ( slots.get( (long) slot << 1 ) != 0L ) {
+        keys.add( slab.getKey( address( slot ) ) );
       }
-
-      // Replace the old index with the new one we just created...
-      //
-      index = newIndex;
-
-      // Also change the resize threshold...
-      //
-      resizeThresHold = (int) ( newSize * STANDARD_LOAD_FACTOR );
     }
+    return keys;
   }
 
-  public static int generateHashCode( byte[] key, RowMetaInterface rowMeta ) throws KettleValueException {
-    Object[] rowData = RowMeta.getRow( rowMeta, key );
-    return rowMeta.hashCode( rowData );
+  /**
+   * Copy all the entries to pages of another allocator and release the current pages.
+   */
+  void moveTo( PageAllocator newAllocator ) {
+    rehash( capacity, newAllocator );
   }
 
-  private static final class ByteArrayHashIndexEntry {
-    private int hashCode;
-    private byte[] key;
-    private byte[] value;
-    private ByteArrayHashIndexEntry nextEntry;
-
-    /**
-     * @param hashCode
-     * @param key
-     * @param value
-     * @param nextEntry
-     */
-    public ByteArrayHashIndexEntry( int hashCode, byte[] key, byte[] value, ByteArrayHashIndexEntry nextEntry ) {
-      this.hashCode = hashCode;
-      this.key = key;
-      this.value = value;
-      this.nextEntry = nextEntry;
-    }
-
-    public boolean equalsKey( byte[] cmpKey ) {
-      return equalsByteArray( key, cmpKey );
-    }
+  private long address( int slot ) {
+    return slots.get( (long) slot << 1 ) - 1;
+  }
 
-    /**
-     * The row is the same if the value is the same The data types are the same so no error is made here.
-     */
-    @Override
-    public boolean equals( Object obj ) {
-      ByteArrayHashIndexEntry e = (ByteArrayHashIndexEntry) obj;
+  private int hashCode( int slot ) {
+    return (int) slots.get( ( (long) slot << 1 ) + 1 );
+  }
 
-      return equalsValue( e.value );
+  private int find( byte[] key, int hashCode ) {
+    int mask = capacity - 1;
+    int slot = hashCode & mask;
+    while ( true ) {
+      long address = slots.get( (long) slot << 1 );
+      if ( address == 0L ) {
+        return -1;
+      }
+      if ( hashCode( slot ) == hashCode && slab.keyEquals( address - 1, key ) ) {
+        return slot;
+      }
+      slot = ( slot + 1 ) & mask;
     }
+  }
 
-    public boolean equalsValue( byte[] cmpValue ) {
-      return equalsByteArray( value, cmpValue );
+  /**
+   * Re-distribute the entries over a new table. If more than half of the slab is taken by removed entries, or if the
+   * entries move to another allocator, the live entries are copied to a new slab as well.
+   */
+  private void rehash( int newCapacity, PageAllocator newAllocator ) {
+    LongSlab oldSlots = slots;
+    int oldCapacity = capacity;
+    ByteSlab oldSlab = slab;
+    PageAllocator oldAllocator = allocator;
+    boolean copy = newAllocator != oldAllocator || garbageBytes * 2 > slab.getUsedBytes();
+
+    allocator = newAllocator;
+    if ( copy ) {
+      slab = new ByteSlab( newAllocator );
+      garbageBytes = 0L;
     }
-
-    public static final boolean equalsByteArray( byte[] value, byte[] cmpValue ) {
-      if ( value.length != cmpValue.length ) {
-        return false;
-      }
-      for ( int i = value.length - 1; i >= 0; i-- ) {
-        if ( value[i] != cmpValue[i] ) {
-          return false;
+    allocate( newCapacity );
+
+    int mask = newCapacity - 1;
+    for ( int i = 0; i < oldCapacity; i++ ) {
+      long address = oldSlots.get( (long) i << 1 );
+      if ( address != 0L ) {
+        long hashCode = oldSlots.get( ( (long) i << 1 ) + 1 );
+        if ( copy ) {
+          address = slab.append( oldSlab.getKey( address - 1 ), oldSlab.getValue( address - 1 ) ) + 1;
         }
+        int slot = (int) hashCode & mask;
+        while ( slots.get( (long) slot << 1 ) != 0L ) {
+          slot = ( slot + 1 ) & mask;
+        }
+        slots.set( (long) slot << 1, address );
+        slots.set( ( (long) slot << 1 ) + 1, hashCode );
       }
-      return true;
     }
 
+    oldSlots.release( oldAllocator );
+    if ( copy ) {
+      oldSlab.release();
+    }
+  }
+
+  private void allocate( int newCapacity ) {
+    slots = LongSlab.allocate( (long) newCapacity << 1, allocator );
+    capacity = newCapacity;
+    // Always keep free slots around, a probe only ends on an empty slot
+    //
+    resizeThresHold = Math.max( 1, Math.min( (int) ( newCapacity * loadFactor ), newCapacity - 1 ) );
+  }
+
+  /**
+   * Hash the serialized key byte by byte, spreading the bits over the hash code (the MurmurHash3 finalizer) so that
+   * similar keys don't end up in long runs of neighbouring slots.
+   */
+  public static int generateHashCode( byte[] key ) {
+    int h = Arrays.hashCode( key );
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  /**
+   * @return the hash code of the deserialized row, this is not the hash code used by the index
+   */
+  public static int generateHashCode( byte[] key, RowMetaInterface rowMeta ) throws KettleValueException {
+    Object[] rowData = RowMeta.getRow( rowMeta, key );
+    return rowMeta.hashCode( rowData );
   }
 }
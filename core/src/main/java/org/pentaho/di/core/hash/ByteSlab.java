@@ -0,0 +1,165 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.hash;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append-only storage for key/value pairs of bytes, kept in pages handed out by a {@link PageAllocator}: on the Java
+ * heap, in direct (off-heap) memory or in a memory-mapped file.
+ * Every entry is stored as the length of the key, the length of the value, the key and the value. An entry never
+ * crosses a page boundary so it can be addressed by a single long: the page number in the upper and the offset in the
+ * page in the lower 32 bits.
+ */
+final class ByteSlab {
+  static final int MIN_PAGE_SIZE = 4096;
+  private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+  private final PageAllocator allocator;
+  private final List<ByteBuffer> pages = new ArrayList<>();
+  private ByteBuffer current;
+  private int position;
+  private long usedBytes;
+
+  ByteSlab( PageAllocator allocator ) {
+    this.allocator = allocator;
+  }
+
+  /**
+   * Store a key and a value.
+   *
+   * @return the address of the new entry
+   */
+  long append( byte[] key, byte[] value ) {
+    int length = HEADER_SIZE + key.length + value.length;
+    if ( current == null || position + length > current.capacity() ) {
+      int pageSize = current == null ? MIN_PAGE_SIZE
+        : (int) Math.min( allocator.getMaxPageSize(), current.capacity() * 2L );
+      current = allocator.allocate( Math.max( pageSize, length ) );
+      pages.add( current );
+      position = 0;
+    }
+    int offset = position;
+    current.putInt( offset, key.length );
+    current.putInt( offset + Integer.BYTES, value.length );
+    write( current, offset + HEADER_SIZE, key );
+    write( current, offset + HEADER_SIZE + key.length, value );
+    position += length;
+    usedBytes += length;
+    return ( (long) ( pages.size() - 1 ) << 32 ) | offset;
+  }
+
+  /**
+   * @return the number of bytes taken by an entry
+   */
+  int entryLength( long address ) {
+    ByteBuffer page = page( address );
+    int offset = (int) address;
+    return HEADER_SIZE + page.getInt( offset ) + page.getInt( offset + Integer.BYTES );
+  }
+
+  boolean keyEquals( long address, byte[] key ) {
+    ByteBuffer page = page( address );
+    int offset = (int) address;
+    if ( page.getInt( offset ) != key.length ) {
+      return false;
+    }
+    offset += HEADER_SIZE;
+    if ( page.hasArray() ) {
+      int start = page.arrayOffset() + offset;
+      return Arrays.equals( page.array(), start, start + key.length, key, 0, key.length );
+    }
+    for ( int i = 0; i < key.length; i++ ) {
+      if ( page.get( offset + i ) != key[i] ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  byte[] getKey( long address ) {
+    ByteBuffer page = page( address );
+    int offset = (int) address;
+    return read( page, offset + HEADER_SIZE, page.getInt( offset ) );
+  }
+
+  byte[] getValue( long address ) {
+    ByteBuffer page = page( address );
+    int offset = (int) address;
+    return read( page, offset + HEADER_SIZE + page.getInt( offset ), page.getInt( offset + Integer.BYTES ) );
+  }
+
+  /**
+   * Replace the value of an entry in place, only possible with a value of the same length.
+   *
+   * @return false if the length of the value differs, in which case nothing is changed
+   */
+  boolean replaceValue( long address, byte[] value ) {
+    ByteBuffer page = page( address );
+    int offset = (int) address;
+    if ( page.getInt( offset + Integer.BYTES ) != value.length ) {
+      return false;
+    }
+    write( page, offset + HEADER_SIZE + page.getInt( offset ), value );
+    return true;
+  }
+
+  /**
+   * @return the number of bytes taken by all the entries that were appended
+   */
+  long getUsedBytes() {
+    return usedBytes;
+  }
+
+  /**
+   * Hand the pages of this slab back to the allocator, the slab can't be used afterwards.
+   */
+  void release() {
+    for ( ByteBuffer page : pages ) {
+      allocator.free( page );
+    }
+    pages.clear();
+    current = null;
+  }
+
+  private ByteBuffer page( long address ) {
+    return pages.get( (int) ( address >>> 32 ) );
+  }
+
+  private static void write( ByteBuffer page, int offset, byte[] bytes ) {
+    if ( page.hasArray() ) {
+      System.arraycopy( bytes, 0, page.array(), page.arrayOffset() + offset, bytes.length );
+    } else {
+      ByteBuffer target = page.duplicate();
+      target.position( offset );
+      target.put( bytes );
+    }
+  }
+
+  private static byte[] read( ByteBuffer page, int offset, int length ) {
+    byte[] bytes = new byte[length];
+    if ( page.hasArray() ) {
+      System.arraycopy( page.array(), page.arrayOffset() + offset, bytes, 0, length );
+    } else {
+      ByteBuffer source = page.duplicate();
+      source.position( offset );
+      source.get( bytes );
+    }
+    return bytes;
+  }
+}
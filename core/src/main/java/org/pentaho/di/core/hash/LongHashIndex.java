@@ -15,32 +15,61 @@ package org.pentaho.di.core.hash;
 
 import org.pentaho.di.core.exception.KettleValueException;
 
+/**
+ * A hash index mapping long keys to long values, typically surrogate keys. The index uses open addressing with linear
+ * probing: keys and values are stored next to each other in a single flat slab of longs so that there is no entry
+ * object per key and a lookup usually touches a single cache line. The slab can be allocated in direct memory outside
+ * of the Java heap.
+ * <p>
+ * Key 0 is used to mark empty slots, its value is kept outside of the slab.
+ */
 public class LongHashIndex {
 
   private static final int STANDARD_INDEX_SIZE = 512;
   private static final float STANDARD_LOAD_FACTOR = 0.78f;
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
 
-  private LongHashIndexEntry[] index;
+  private final float loadFactor;
+  private final boolean offHeap;
+  private final PageAllocator allocator;
+
+  /** The keys at the even and the values at the odd positions */
+  private LongSlab slots;
+  private int capacity;
   private int size;
   private int resizeThresHold;
 
+  private boolean hasZeroKey;
+  private long zeroKeyValue;
+
   /**
    * Create a new long/long hash index
-   * 
+   *
    * @param size
-   *          the initial size of the hash index
+   *          the initial number of slots in the hash index, rounded up to a power of 2
+   * @param loadFactor
+   *          the fraction of the slots that can be used before the index grows, between 0 and 1 (exclusive)
+   * @param offHeap
+   *          true to keep the keys and values in direct memory outside of the Java heap
    */
-  public LongHashIndex( int size ) {
-
-    // Find a suitable capacity being a factor of 2:
-    int factor2Size = 1;
-    while ( factor2Size < size ) {
-      factor2Size <<= 1; // Multiply by 2
+  public LongHashIndex( int size, float loadFactor, boolean offHeap ) {
+    if ( !( loadFactor > 0 && loadFactor < 1 ) ) {
+      throw new IllegalArgumentException( "Illegal load factor: " + loadFactor );
     }
+    this.loadFactor = loadFactor;
+    this.offHeap = offHeap;
+    this.allocator = offHeap ? PageAllocator.direct() : PageAllocator.heap();
+    allocate( tableSizeFor( size ) );
+  }
 
-    this.resizeThresHold = (int) ( factor2Size * STANDARD_LOAD_FACTOR );
-
-    index = new LongHashIndexEntry[factor2Size];
+  /**
+   * Create a new long/long hash index
+   *
+   * @param size
+   *          the initial size of the hash index
+   */
+  public LongHashIndex( int size ) {
+    this( size, STANDARD_LOAD_FACTOR, false );
   }
 
   /**
@@ -58,103 +87,141 @@ public class LongHashIndex {
     return size == 0;
   }
 
-  public Long get( long key ) throws KettleValueException {
-    int hashCode = generateHashCode( key );
+  /**
+   * @return the number of slots in the index
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public boolean isOffHeap() {
+    return offHeap;
+  }
 
-    int indexPointer = indexFor( hashCode, index.length );
-    LongHashIndexEntry check = index[indexPointer];
+  /**
+   * @return the number of bytes taken by the slots of the index
+   */
+  public long getMemoryUsage() {
+    return allocator.getUsedBytes();
+  }
 
-    while ( check != null ) {
-      if ( check.hashCode == hashCode && check.equalsKey( key ) ) {
-        return check.value;
+  public Long get( long key ) throws KettleValueException {
+    if ( key == 0L ) {
+      return hasZeroKey ? Long.valueOf( zeroKeyValue ) : null;
+    }
+    int mask = capacity - 1;
+    int slot = indexFor( spread( key ), capacity );
+    while ( true ) {
+      long check = slots.get( (long) slot << 1 );
+      if ( check == key ) {
+        return slots.get( ( (long) slot << 1 ) + 1 );
       }
-      check = check.nextEntry;
+      if ( check == 0L ) {
+        return null;
+      }
+      slot = ( slot + 1 ) & mask;
     }
-    return null;
   }
 
+  /**
+   * Add a key or replace the value of an existing key.
+   *
+   * @param value
+   *          the value, can't be null: a lookup returns null for keys that are not in the index
+   * @throws KettleValueException
+   *           if the value is null or if the index is full
+   */
   public void put( long key, Long value ) throws KettleValueException {
-    int hashCode = generateHashCode( key );
-    int indexPointer = indexFor( hashCode, index.length );
-
-    LongHashIndexEntry check = index[indexPointer];
-    LongHashIndexEntry previousCheck = null;
-
-    while ( check != null ) {
-
-      // If there is an identical entry in there, we replace the entry
-      // And then we just return...
+    if ( value == null ) {
+      throw new KettleValueException( "The hash index can't store a null value, key " + key );
+    }
+    if ( key == 0L ) {
+      if ( !hasZeroKey ) {
+        hasZeroKey = true;
+        size++;
+      }
+      zeroKeyValue = value;
+      return;
+    }
+    if ( insert( slots, capacity, key, value ) ) {
+      // If required, resize the table...
       //
-      if ( check.hashCode == hashCode && check.equalsKey( key ) ) {
-        check.value = value;
-        return;
+      if ( ++size >= resizeThresHold ) {
+        resize();
       }
-      previousCheck = check;
-      check = check.nextEntry;
     }
+  }
 
-    // Don't forget to link to the previous check entry if there was any...
-    //
-    if ( previousCheck != null ) {
-      previousCheck.nextEntry = new LongHashIndexEntry( hashCode, key, value, null );
-    } else {
-      index[indexPointer] = new LongHashIndexEntry( hashCode, key, value, null );
+  /**
+   * @return true if the key was added, false if the value of an existing key was replaced
+   */
+  private static boolean insert( LongSlab slots, int capacity, long key, long value ) {
+    int mask = capacity - 1;
+    int slot = indexFor( spread( key ), capacity );
+    while ( true ) {
+      long index = (long) slot << 1;
+      long check = slots.get( index );
+      if ( check == 0L || check == key ) {
+        slots.set( index, key );
+        slots.set( index + 1, value );
+        return check == 0L;
+      }
+      slot = ( slot + 1 ) & mask;
     }
-
-    // If required, resize the table...
-    //
-    resize();
   }
 
-  private final void resize() {
-    // Increase the size of the index...
-    //
-    size++;
+  private void resize() throws KettleValueException {
+    if ( capacity >= MAXIMUM_CAPACITY ) {
+      if ( size >= capacity - 1 ) {
+        throw new KettleValueException( "The hash index can't hold more than " + ( capacity - 1 ) + " keys" );
+      }
+      return;
+    }
+    LongSlab oldSlots = slots;
+    int oldCapacity = capacity;
 
-    // See if we've reached our resize threshold...
+    // Double the size to keep the size of the index a factor of 2...
     //
-    if ( size >= resizeThresHold ) {
-
-      LongHashIndexEntry[] oldIndex = index;
-
-      // Double the size to keep the size of the index a factor of 2...
-      // Allocate the new array...
-      //
-      int newSize = 2 * index.length;
-
-      LongHashIndexEntry[] newIndex = new LongHashIndexEntry[newSize];
-
-      // Loop over the old index and re-distribute the entries
-      // We want to make sure that the calculation
-      // entry.hashCode & ( size - 1)
-      // ends up in the right location after re-sizing...
-      //
-      for ( int i = 0; i < oldIndex.length; i++ ) {
-        LongHashIndexEntry entry = oldIndex[i];
-        if ( entry != null ) {
-          oldIndex[i] = null;
-
-          // Make sure we follow all the linked entries...
-          // This is a bit of extra work, TODO: see how we can avoid it!
-          //
-          do {
-            LongHashIndexEntry next = entry.nextEntry;
-            int indexPointer = indexFor( entry.hashCode, newSize );
-            entry.nextEntry = newIndex[indexPointer];
-            newIndex[indexPointer] = entry;
-            entry = next;
-          } while ( entry != null );
-        }
+    allocate( oldCapacity * 2 );
+    for ( int i = 0; i < oldCapacity; i++ ) {
+      long key = oldSlots.get( (long) i << 1 );
+      if ( key != 0L ) {
+        insert( slots, capacity, key, oldSlots.get( ( (long) i << 1 ) + 1 ) );
       }
+    }
+    oldSlots.release( allocator );
+  }
 
-      // Replace the old index with the new one we just created...
-      //
-      index = newIndex;
+  private void allocate( int newCapacity ) {
+    slots = LongSlab.allocate( (long) newCapacity << 1, allocator );
+    capacity = newCapacity;
+    // Always keep free slots around, a probe only ends on an empty slot
+    //
+    resizeThresHold = Math.max( 1, Math.min( (int) ( newCapacity * loadFactor ), newCapacity - 1 ) );
+  }
 
-      // Also change the resize threshold...
-      //
-      resizeThresHold = (int) ( newSize * STANDARD_LOAD_FACTOR );
+  private static int tableSizeFor( int size ) {
+    // Find a suitable capacity being a factor of 2, at least 2:
+    int factor2Size = 2;
+    while ( factor2Size < size && factor2Size < MAXIMUM_CAPACITY ) {
+      factor2Size <<= 1; // Multiply by 2
     }
+    return factor2Size;
+  }
+
+  /**
+   * Spreads the bits of the key over the hash code (the MurmurHash3 finalizer) so that sequential or strided keys
+   * don't end up in long runs of neighbouring slots. This is the hash the index uses internally, it differs from
+   * {@link #generateHashCode(Long)}.
+   */
+  private static int spread( long key ) {
+    long h = key;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return (int) h;
   }
 
   public static int generateHashCode( Long key ) throws KettleValueException {
@@ -164,28 +231,4 @@ public class LongHashIndex {
   public static int indexFor( int hash, int length ) {
     return hash & ( length - 1 );
   }
-
-  private static final class LongHashIndexEntry {
-    private int hashCode;
-    private long key;
-    private long value;
-    private LongHashIndexEntry nextEntry;
-
-    /**
-     * @param hashCode
-     * @param key
-     * @param value
-     * @param nextEntry
-     */
-    public LongHashIndexEntry( int hashCode, Long key, Long value, LongHashIndexEntry nextEntry ) {
-      this.hashCode = hashCode;
-      this.key = key;
-      this.value = value;
-      this.nextEntry = nextEntry;
-    }
-
-    public boolean equalsKey( long cmpKey ) {
-      return key == cmpKey;
-    }
-  }
 }
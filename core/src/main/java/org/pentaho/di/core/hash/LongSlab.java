@@ -0,0 +1,128 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.hash;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * A fixed length, zero initialized array of longs, stored in pages either on the Java heap or in pages handed out by a
+ * {@link PageAllocator} (direct memory or a mapped file). Paging keeps every single allocation well below the 2GB limit
+ * of Java arrays and buffers.
+ */
+abstract class LongSlab {
+  static final int PAGE_SHIFT = 24;
+  static final int PAGE_LENGTH = 1 << PAGE_SHIFT;
+  static final int PAGE_MASK = PAGE_LENGTH - 1;
+
+  private final long length;
+
+  LongSlab( long length ) {
+    this.length = length;
+  }
+
+  /**
+   * @param length
+   *          the number of longs to allocate
+   * @param allocator
+   *          the allocator to account the memory to and to take the pages from if it is not a heap allocator
+   * @return a new slab of longs, all set to 0
+   */
+  static LongSlab allocate( long length, PageAllocator allocator ) {
+    if ( allocator.isHeap() ) {
+      allocator.reserve( length * Long.BYTES );
+      return new HeapLongSlab( length );
+    }
+    return new BufferLongSlab( length, allocator );
+  }
+
+  long length() {
+    return length;
+  }
+
+  /**
+   * Hand the memory of this slab back to the allocator, the slab can't be used afterwards.
+   */
+  void release( PageAllocator allocator ) {
+    allocator.release( length * Long.BYTES );
+  }
+
+  abstract long get( long index );
+
+  abstract void set( long index, long value );
+
+  static int pageCount( long length ) {
+    return (int) ( ( length + PAGE_MASK ) >>> PAGE_SHIFT );
+  }
+
+  static int pageLength( long length, int page ) {
+    return (int) Math.min( PAGE_LENGTH, length - ( (long) page << PAGE_SHIFT ) );
+  }
+
+  private static final class HeapLongSlab extends LongSlab {
+    private final long[][] pages;
+
+    HeapLongSlab( long length ) {
+      super( length );
+      pages = new long[pageCount( length )][];
+      for ( int i = 0; i < pages.length; i++ ) {
+        pages[i] = new long[pageLength( length, i )];
+      }
+    }
+
+    @Override
+    long get( long index ) {
+      return pages[(int) ( index >>> PAGE_SHIFT )][(int) index & PAGE_MASK];
+    }
+
+    @Override
+    void set( long index, long value ) {
+      pages[(int) ( index >>> PAGE_SHIFT )][(int) index & PAGE_MASK] = value;
+    }
+  }
+
+  private static final class BufferLongSlab extends LongSlab {
+    private final ByteBuffer[] buffers;
+    private final LongBuffer[] pages;
+
+    BufferLongSlab( long length, PageAllocator allocator ) {
+      super( length );
+      buffers = new ByteBuffer[pageCount( length )];
+      pages = new LongBuffer[buffers.length];
+      for ( int i = 0; i < pages.length; i++ ) {
+        buffers[i] = allocator.allocate( pageLength( length, i ) * Long.BYTES );
+        pages[i] = buffers[i].order( ByteOrder.nativeOrder() ).asLongBuffer();
+      }
+    }
+
+    @Override
+    void release( PageAllocator allocator ) {
+      for ( ByteBuffer buffer : buffers ) {
+        allocator.free( buffer );
+      }
+    }
+
+    @Override
+    long get( long index ) {
+      return pages[(int) ( index >>> PAGE_SHIFT )].get( (int) index & PAGE_MASK );
+    }
+
+    @Override
+    void set( long index, long value ) {
+      pages[(int) ( index >>> PAGE_SHIFT )].put( (int) index & PAGE_MASK, value );
+    }
+  }
+}
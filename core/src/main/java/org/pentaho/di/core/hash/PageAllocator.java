@@ -0,0 +1,254 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.hash;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hands out the pages of the slabs used by the hash indexes and keeps track of the number of bytes in use. Pages are
+ * allocated on the Java heap, in direct memory or in a memory-mapped temporary file.
+ */
+abstract class PageAllocator {
+  static final int MAX_PAGE_SIZE = 1 << 20;
+
+  private long usedBytes;
+
+  static PageAllocator heap() {
+    return new PageAllocator() {
+      @Override
+      ByteBuffer newPage( int size ) {
+        return ByteBuffer.allocate( size );
+      }
+
+      @Override
+      boolean isHeap() {
+        return true;
+      }
+    };
+  }
+
+  static PageAllocator direct() {
+    return new PageAllocator() {
+      @Override
+      ByteBuffer newPage( int size ) {
+        return ByteBuffer.allocateDirect( size );
+      }
+    };
+  }
+
+  /**
+   * @param directory
+   *          the directory to create the temporary file in
+   * @return an allocator of pages that are mapped into a new temporary file, the operating system decides which parts
+   *         of the file stay in memory
+   * @throws IOException
+   *           in case the file can't be created
+   */
+  static PageAllocator mappedFile( File directory ) throws IOException {
+    return new MappedFileAllocator( File.createTempFile( "hashindex", ".tmp", directory ) );
+  }
+
+  /**
+   * Allocate a new page, zero initialized.
+   */
+  final ByteBuffer allocate( int size ) {
+    ByteBuffer page = newPage( size );
+    usedBytes += size;
+    return page;
+  }
+
+  /**
+   * Account for memory that was allocated elsewhere on behalf of this allocator.
+   */
+  final void reserve( long bytes ) {
+    usedBytes += bytes;
+  }
+
+  /**
+   * Signal that memory accounted for with {@link #reserve(long)} is no longer used.
+   */
+  final void release( long bytes ) {
+    usedBytes -= bytes;
+  }
+
+  /**
+   * Hand back a page obtained from {@link #allocate(int)}, the page can't be used afterwards.
+   */
+  final void free( ByteBuffer page ) {
+    usedBytes -= page.capacity();
+    recycle( page );
+  }
+
+  /**
+   * @return the number of bytes in the pages that are still in use
+   */
+  final long getUsedBytes() {
+    return usedBytes;
+  }
+
+  abstract ByteBuffer newPage( int size );
+
+  /**
+   * Called for every page that is handed back, to reuse the space of the page for new pages.
+   */
+  void recycle( ByteBuffer page ) {
+  }
+
+  boolean isHeap() {
+    return false;
+  }
+
+  /**
+   * @return the largest page to allocate for many small entries
+   */
+  int getMaxPageSize() {
+    return MAX_PAGE_SIZE;
+  }
+
+  /**
+   * @return the number of bytes in the file backing the pages, 0 if the pages are not kept in a file
+   */
+  long getFileLength() {
+    return 0L;
+  }
+
+  /**
+   * Free the resources held by this allocator, its pages can't be used afterwards.
+   */
+  void close() throws IOException {
+  }
+
+  private static final class MappedFileAllocator extends PageAllocator {
+    /** Bigger pages for files: every page is a separate mapping and the number of mappings is limited */
+    private static final int MAX_MAPPED_PAGE_SIZE = 64 << 20;
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private long fileLength;
+
+    /** The offset in the file of every page in use */
+    private final Map<ByteBuffer, Long> offsets = new IdentityHashMap<>();
+    /** The regions of the file of the pages that were handed back, by offset, with neighbouring regions merged */
+    private final TreeMap<Long, Long> freeRegions = new TreeMap<>();
+
+    MappedFileAllocator( File file ) throws IOException {
+      this.file = file;
+      this.randomAccessFile = new RandomAccessFile( file, "rw" );
+      this.channel = randomAccessFile.getChannel();
+    }
+
+    /**
+     * Map the page into a free region of the file if there is one that is large enough, otherwise grow the file. A
+     * growing hash index hands back its old slots and slabs after every rehash, reusing their space keeps the file
+     * from growing beyond about twice the size of the live data.
+     */
+    @Override
+    ByteBuffer newPage( int size ) {
+      Map.Entry<Long, Long> region = null;
+      for ( Map.Entry<Long, Long> entry : freeRegions.entrySet() ) {
+        if ( entry.getValue() >= size ) {
+          region = entry;
+          break;
+        }
+      }
+
+      try {
+        ByteBuffer page;
+        long offset;
+        if ( region != null ) {
+          offset = region.getKey();
+          freeRegions.remove( offset );
+          if ( region.getValue() > size ) {
+            freeRegions.put( offset + size, region.getValue() - size );
+          }
+          page = channel.map( FileChannel.MapMode.READ_WRITE, offset, size );
+          clear( page );
+        } else {
+          // Mapping beyond the end of the file grows the file, the new bytes are zero
+          offset = fileLength;
+          page = channel.map( FileChannel.MapMode.READ_WRITE, offset, size );
+          fileLength += size;
+        }
+        offsets.put( page, offset );
+        return page;
+      } catch ( IOException e ) {
+        throw new IllegalStateException( "Unable to map " + size + " bytes of temporary file " + file, e );
+      }
+    }
+
+    @Override
+    void recycle( ByteBuffer page ) {
+      Long pageOffset = offsets.remove( page );
+      if ( pageOffset == null ) {
+        return;
+      }
+      long offset = pageOffset;
+      long length = page.capacity();
+
+      Map.Entry<Long, Long> previous = freeRegions.floorEntry( offset );
+      if ( previous != null && previous.getKey() + previous.getValue() == offset ) {
+        offset = previous.getKey();
+        length += previous.getValue();
+      }
+      Long next = freeRegions.remove( offset + length );
+      if ( next != null ) {
+        length += next;
+      }
+      freeRegions.put( offset, length );
+    }
+
+    @Override
+    long getFileLength() {
+      return fileLength;
+    }
+
+    private static void clear( ByteBuffer page ) {
+      int position = 0;
+      while ( position + Long.BYTES <= page.capacity() ) {
+        page.putLong( position, 0L );
+        position += Long.BYTES;
+      }
+      while ( position < page.capacity() ) {
+        page.put( position++, (byte) 0 );
+      }
+    }
+
+    @Override
+    int getMaxPageSize() {
+      return MAX_MAPPED_PAGE_SIZE;
+    }
+
+    @Override
+    void close() throws IOException {
+      // The mappings stay valid until they are garbage collected, closing the channel doesn't affect them
+      try {
+        channel.close();
+        randomAccessFile.close();
+      } finally {
+        if ( !file.delete() ) {
+          file.deleteOnExit();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,218 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.hash;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleFileException;
+
+/**
+ * A hash index of serialized keys and values that keeps (almost) nothing on the Java heap. The keys are hash
+ * partitioned over a number of {@link ByteArrayHashIndex} partitions that start out in direct memory. Once the direct
+ * memory used by the partitions exceeds the memory budget, the largest partitions are moved to memory-mapped temporary
+ * files. Lookups in a spilled partition still take a single probe in the mapped file, it's up to the operating system
+ * to keep the hot pages of the file in memory.
+ * <p>
+ * Call {@link #close()} to delete the temporary files.
+ */
+public class SpillingByteArrayHashIndex implements Closeable {
+
+  private static final int PARTITION_BITS = 4;
+  private static final int NR_PARTITIONS = 1 << PARTITION_BITS;
+  private static final float LOAD_FACTOR = 0.7f;
+
+  private final long memoryBudget;
+  private final File spillDirectory;
+
+  private final ByteArrayHashIndex[] partitions = new ByteArrayHashIndex[NR_PARTITIONS];
+  private final PageAllocator[] allocators = new PageAllocator[NR_PARTITIONS];
+  private final boolean[] spilled = new boolean[NR_PARTITIONS];
+  private int nrSpilled;
+
+  /**
+   * @param memoryBudget
+   *          the maximum number of bytes of direct memory to use before partitions are spilled to disk
+   * @param spillDirectory
+   *          the directory to create the temporary files in
+   */
+  public SpillingByteArrayHashIndex( long memoryBudget, String spillDirectory ) {
+    this.memoryBudget = memoryBudget;
+    this.spillDirectory = new File( spillDirectory );
+    for ( int i = 0; i < NR_PARTITIONS; i++ ) {
+      allocators[i] = PageAllocator.direct();
+      partitions[i] = new ByteArrayHashIndex( null, 64, LOAD_FACTOR, allocators[i] );
+    }
+  }
+
+  public byte[] get( byte[] key ) {
+    int hashCode = ByteArrayHashIndex.generateHashCode( key );
+    return partitions[partition( hashCode )].get( key, hashCode );
+  }
+
+  public void put( byte[] key, byte[] value ) throws KettleException {
+    int hashCode = ByteArrayHashIndex.generateHashCode( key );
+    partitions[partition( hashCode )].put( key, value, hashCode );
+
+    while ( nrSpilled < NR_PARTITIONS && getMemoryUsage() > memoryBudget ) {
+      spillLargestPartition();
+    }
+  }
+
+  /**
+   * @return the number of keys in the index
+   */
+  public int getSize() {
+    int size = 0;
+    for ( ByteArrayHashIndex partition : partitions ) {
+      size += partition.getSize();
+    }
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return getSize() == 0;
+  }
+
+  /**
+   * @return the number of bytes of direct memory used by the partitions that were not spilled
+   */
+  public long getMemoryUsage() {
+    long bytes = 0L;
+    for ( int i = 0; i < NR_PARTITIONS; i++ ) {
+      if ( !spilled[i] ) {
+        bytes += allocators[i].getUsedBytes();
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * @return the number of bytes in the temporary files of the spilled partitions
+   */
+  public long getSpilledBytes() {
+    long bytes = 0L;
+    for ( int i = 0; i < NR_PARTITIONS; i++ ) {
+      if ( spilled[i] ) {
+        bytes += allocators[i].getFileLength();
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * @return the number of partitions that were moved to disk
+   */
+  public int getNrSpilledPartitions() {
+    return nrSpilled;
+  }
+
+  public int getNrPartitions() {
+    return NR_PARTITIONS;
+  }
+
+  private void spillLargestPartition() throws KettleException {
+    int largest = -1;
+    for ( int i = 0; i < NR_PARTITIONS; i++ ) {
+      if ( !spilled[i] && ( largest < 0 || allocators[i].getUsedBytes() > allocators[largest].getUsedBytes() ) ) {
+        largest = i;
+      }
+    }
+
+    PageAllocator fileAllocator;
+    try {
+      fileAllocator = PageAllocator.mappedFile( spillDirectory );
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to create a temporary file in directory " + spillDirectory, e );
+    }
+    partitions[largest].moveTo( fileAllocator );
+    allocators[largest] = fileAllocator;
+    spilled[largest] = true;
+    nrSpilled++;
+  }
+
+  /**
+   * @return the direct memory the JVM hands out at most: the value of -XX:MaxDirectMemorySize or else the maximum heap
+   *         size, which is the default of the JVM
+   */
+  public static long getMaxDirectMemory() {
+    long maxDirectMemory = Runtime.getRuntime().maxMemory();
+    for ( String argument : ManagementFactory.getRuntimeMXBean().getInputArguments() ) {
+      if ( argument.startsWith( "-XX:MaxDirectMemorySize=" ) ) {
+        long size = parseSize( argument.substring( argument.indexOf( '=' ) + 1 ) );
+        if ( size > 0 ) {
+          maxDirectMemory = size;
+        }
+      }
+    }
+    return maxDirectMemory;
+  }
+
+  /**
+   * Parse a JVM memory size like 512m or 2G.
+   *
+   * @return the number of bytes or -1 if the size can't be parsed
+   */
+  static long parseSize( String size ) {
+    String value = size.trim().toLowerCase( Locale.ROOT );
+    long unit = 1L;
+    if ( value.endsWith( "k" ) ) {
+      unit = 1L << 10;
+    } else if ( value.endsWith( "m" ) ) {
+      unit = 1L << 20;
+    } else if ( value.endsWith( "g" ) ) {
+      unit = 1L << 30;
+    } else if ( value.endsWith( "t" ) ) {
+      unit = 1L << 40;
+    }
+    if ( unit > 1L ) {
+      value = value.substring( 0, value.length() - 1 );
+    }
+    try {
+      return Long.parseLong( value ) * unit;
+    } catch ( NumberFormatException e ) {
+      return -1L;
+    }
+  }
+
+  /**
+   * The partition is picked with the upper bits of the hash code, the partitions themselves use the lower bits.
+   */
+  private static int partition( int hashCode ) {
+    return hashCode >>> ( Integer.SIZE - PARTITION_BITS );
+  }
+
+  /**
+   * Deletes the temporary files, the index can't be used afterwards.
+   */
+  @Override
+  public void close() throws IOException {
+    IOException exception = null;
+    for ( PageAllocator allocator : allocators ) {
+      try {
+        allocator.close();
+      } catch ( IOException e ) {
+        exception = e;
+      }
+    }
+    if ( exception != null ) {
+      throw exception;
+    }
+  }
+}
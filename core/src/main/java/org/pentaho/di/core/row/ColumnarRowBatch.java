@@ -0,0 +1,351 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.row;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.di.core.exception.KettleValueException;
+
+/**
+ * A batch of rows stored column by column instead of row by row. Integers and dates are kept in primitive long arrays,
+ * numbers in primitive double arrays and strings are dictionary encoded so that repeated values are stored only once.
+ * Null values are tracked in a bitmap per column. All other data types and values that don't use the normal storage
+ * type (lazy conversion, indexed) are kept as they are in an object column.
+ * <p>
+ * Steps that understand the columnar format can process whole columns at once. Steps that don't simply ask for the
+ * materialized rows with {@link #toRows()} or {@link #getRow(int)}.
+ *
+ * @see #fromRows(RowMetaInterface, List)
+ */
+public class ColumnarRowBatch {
+
+  private final RowMetaInterface rowMeta;
+  private final int size;
+  private final ColumnVector[] columns;
+
+  private ColumnarRowBatch( RowMetaInterface rowMeta, int size, ColumnVector[] columns ) {
+    this.rowMeta = rowMeta;
+    this.size = size;
+    this.columns = columns;
+  }
+
+  /**
+   * Convert a list of rows into a columnar batch.
+   *
+   * @param rowMeta
+   *          the description of the rows
+   * @param rows
+   *          the rows to convert
+   * @return the columnar batch
+   * @throws KettleValueException
+   *           in case a value doesn't match the data type of its field
+   */
+  public static ColumnarRowBatch fromRows( RowMetaInterface rowMeta, List<Object[]> rows )
+    throws KettleValueException {
+    int nrRows = rows.size();
+    int nrFields = rowMeta.size();
+    ColumnVector[] columns = new ColumnVector[nrFields];
+
+    for ( int f = 0; f < nrFields; f++ ) {
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( f );
+      ColumnVector column = createVector( valueMeta, nrRows );
+      for ( int r = 0; r < nrRows; r++ ) {
+        Object[] row = rows.get( r );
+        Object value = f < row.length ? row[f] : null;
+        try {
+          column.set( r, value );
+        } catch ( ClassCastException e ) {
+          throw new KettleValueException( valueMeta.toStringMeta() + " : unexpected data type "
+            + value.getClass().getName() + " for value '" + value + "' in row " + r, e );
+        }
+      }
+      columns[f] = column;
+    }
+
+    return new ColumnarRowBatch( rowMeta, nrRows, columns );
+  }
+
+  private static ColumnVector createVector( ValueMetaInterface valueMeta, int nrRows ) {
+    if ( valueMeta.getStorageType() != ValueMetaInterface.STORAGE_TYPE_NORMAL ) {
+      return new ObjectColumnVector( nrRows );
+    }
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_INTEGER:
+        return new LongColumnVector( nrRows );
+      case ValueMetaInterface.TYPE_NUMBER:
+        return new DoubleColumnVector( nrRows );
+      case ValueMetaInterface.TYPE_DATE:
+        return new DateColumnVector( nrRows );
+      case ValueMetaInterface.TYPE_STRING:
+        return new StringColumnVector( nrRows );
+      default:
+        return new ObjectColumnVector( nrRows );
+    }
+  }
+
+  /**
+   * @return the description of the rows in this batch
+   */
+  public RowMetaInterface getRowMeta() {
+    return rowMeta;
+  }
+
+  /**
+   * @return the number of rows in this batch
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param fieldIndex
+   *          the index of the field in the row metadata
+   * @return the column holding the values of the field
+   */
+  public ColumnVector getColumn( int fieldIndex ) {
+    return columns[fieldIndex];
+  }
+
+  /**
+   * Materialize a single row.
+   *
+   * @param rowIndex
+   *          the index of the row in the batch
+   * @return the row data, over allocated just like any other row
+   */
+  public Object[] getRow( int rowIndex ) {
+    Object[] row = RowDataUtil.allocateRowData( columns.length );
+    for ( int f = 0; f < columns.length; f++ ) {
+      row[f] = columns[f].getObject( rowIndex );
+    }
+    return row;
+  }
+
+  /**
+   * Materialize all the rows in the batch, for steps that are not aware of the columnar format.
+   *
+   * @return the rows in their original order
+   */
+  public List<Object[]> toRows() {
+    List<Object[]> rows = new ArrayList<>( size );
+    for ( int r = 0; r < size; r++ ) {
+      rows.add( getRow( r ) );
+    }
+    return rows;
+  }
+
+  /**
+   * The values of a single field in the batch with a bitmap to keep track of the null values.
+   */
+  public abstract static class ColumnVector {
+    private final long[] nulls;
+
+    protected ColumnVector( int capacity ) {
+      nulls = new long[( capacity + 63 ) >>> 6];
+    }
+
+    public boolean isNull( int rowIndex ) {
+      return ( nulls[rowIndex >>> 6] & ( 1L << rowIndex ) ) != 0;
+    }
+
+    /**
+     * @return true if at least one value in this column is null
+     */
+    public boolean hasNulls() {
+      for ( long word : nulls ) {
+        if ( word != 0 ) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    protected void setNull( int rowIndex ) {
+      nulls[rowIndex >>> 6] |= 1L << rowIndex;
+    }
+
+    void set( int rowIndex, Object value ) {
+      if ( value == null ) {
+        setNull( rowIndex );
+      } else {
+        setValue( rowIndex, value );
+      }
+    }
+
+    protected abstract void setValue( int rowIndex, Object value );
+
+    /**
+     * @return the value as it would appear in a row, null for null values
+     */
+    public abstract Object getObject( int rowIndex );
+  }
+
+  /**
+   * Integer values in a primitive long array.
+   */
+  public static class LongColumnVector extends ColumnVector {
+    private final long[] values;
+
+    LongColumnVector( int capacity ) {
+      super( capacity );
+      values = new long[capacity];
+    }
+
+    @Override
+    protected void setValue( int rowIndex, Object value ) {
+      values[rowIndex] = (Long) value;
+    }
+
+    /**
+     * @return the values, the value of a null is undefined so check {@link #isNull(int)}
+     */
+    public long[] getValues() {
+      return values;
+    }
+
+    @Override
+    public Object getObject( int rowIndex ) {
+      return isNull( rowIndex ) ? null : Long.valueOf( values[rowIndex] );
+    }
+  }
+
+  /**
+   * Dates as milliseconds since the epoch in a primitive long array.
+   */
+  public static class DateColumnVector extends ColumnVector {
+    private final long[] values;
+
+    DateColumnVector( int capacity ) {
+      super( capacity );
+      values = new long[capacity];
+    }
+
+    @Override
+    protected void setValue( int rowIndex, Object value ) {
+      values[rowIndex] = ( (Date) value ).getTime();
+    }
+
+    /**
+     * @return the dates in milliseconds, the value of a null is undefined so check {@link #isNull(int)}
+     */
+    public long[] getValues() {
+      return values;
+    }
+
+    @Override
+    public Object getObject( int rowIndex ) {
+      return isNull( rowIndex ) ? null : new Date( values[rowIndex] );
+    }
+  }
+
+  /**
+   * Number values in a primitive double array.
+   */
+  public static class DoubleColumnVector extends ColumnVector {
+    private final double[] values;
+
+    DoubleColumnVector( int capacity ) {
+      super( capacity );
+      values = new double[capacity];
+    }
+
+    @Override
+    protected void setValue( int rowIndex, Object value ) {
+      values[rowIndex] = (Double) value;
+    }
+
+    /**
+     * @return the values, the value of a null is undefined so check {@link #isNull(int)}
+     */
+    public double[] getValues() {
+      return values;
+    }
+
+    @Override
+    public Object getObject( int rowIndex ) {
+      return isNull( rowIndex ) ? null : Double.valueOf( values[rowIndex] );
+    }
+  }
+
+  /**
+   * Dictionary encoded strings: every distinct string is stored once and each row refers to it by its code.
+   */
+  public static class StringColumnVector extends ColumnVector {
+    private final int[] codes;
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> lookup = new HashMap<>();
+
+    StringColumnVector( int capacity ) {
+      super( capacity );
+      codes = new int[capacity];
+    }
+
+    @Override
+    protected void setValue( int rowIndex, Object value ) {
+      String string = (String) value;
+      Integer code = lookup.get( string );
+      if ( code == null ) {
+        code = dictionary.size();
+        dictionary.add( string );
+        lookup.put( string, code );
+      }
+      codes[rowIndex] = code;
+    }
+
+    /**
+     * @return the dictionary codes of the rows, the code of a null is undefined so check {@link #isNull(int)}
+     */
+    public int[] getCodes() {
+      return codes;
+    }
+
+    /**
+     * @return the distinct strings, indexed by code
+     */
+    public List<String> getDictionary() {
+      return dictionary;
+    }
+
+    @Override
+    public Object getObject( int rowIndex ) {
+      return isNull( rowIndex ) ? null : dictionary.get( codes[rowIndex] );
+    }
+  }
+
+  /**
+   * Values that are not vectorized, kept as they are.
+   */
+  public static class ObjectColumnVector extends ColumnVector {
+    private final Object[] values;
+
+    ObjectColumnVector( int capacity ) {
+      super( capacity );
+      values = new Object[capacity];
+    }
+
+    @Override
+    protected void setValue( int rowIndex, Object value ) {
+      values[rowIndex] = value;
+    }
+
+    @Override
+    public Object getObject( int rowIndex ) {
+      return values[rowIndex];
+    }
+  }
+}
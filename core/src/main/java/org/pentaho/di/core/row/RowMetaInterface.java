@@ -542,6 +542,58 @@ public interface RowMetaInterface extends Cloneable {
    */
   public int compare( Object[] rowData1, Object[] rowData2 ) throws KettleValueException;
 
+  /**
+   * @param fieldnrs
+   *          the fields to build sort keys with
+   * @return true if all the specified fields support normalized sort keys
+   */
+  public default boolean isSortKeySupported( int[] fieldnrs ) {
+    for ( int fieldnr : fieldnrs ) {
+      ValueMetaInterface valueMeta = getValueMeta( fieldnr );
+      if ( valueMeta == null || !valueMeta.isSortKeySupported() ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Build a normalized sort key for a row: 2 keys compare with {@link SortKeyBuilder#compare(byte[], byte[])} in the
+   * same order as {@link #compare(Object[], Object[], int[])} compares the rows.
+   *
+   * @param rowData
+   *          The row of data
+   * @param fieldnrs
+   *          the fields to build the key with (in that order)
+   * @return the sort key
+   * @throws KettleValueException
+   *           the kettle value exception
+   */
+  public default byte[] getSortKey( Object[] rowData, int[] fieldnrs ) throws KettleValueException {
+    SortKeyBuilder builder = new SortKeyBuilder();
+    writeSortKey( builder, rowData, fieldnrs );
+    return builder.toByteArray();
+  }
+
+  /**
+   * Append the normalized sort key of a row to a builder, see {@link #getSortKey(Object[], int[])}.
+   *
+   * @param builder
+   *          the builder to write to
+   * @param rowData
+   *          The row of data
+   * @param fieldnrs
+   *          the fields to build the key with (in that order)
+   * @throws KettleValueException
+   *           the kettle value exception
+   */
+  public default void writeSortKey( SortKeyBuilder builder, Object[] rowData, int[] fieldnrs )
+    throws KettleValueException {
+    for ( int fieldnr : fieldnrs ) {
+      getValueMeta( fieldnr ).writeSortKey( builder, rowData[fieldnr] );
+    }
+  }
+
   /**
    * Calculate a hashCode of the content (not the index) of the data specified NOTE: This method uses a simple XOR of
    * the individual hashCodes which can result in a lot of collisions for similar types of data (e.g. [A,B] == [B,A] and
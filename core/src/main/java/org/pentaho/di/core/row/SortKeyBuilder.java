@@ -0,0 +1,234 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+
+package org.pentaho.di.core.row;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Builds normalized sort keys: byte arrays that sort in the same order as the rows they were built from when compared
+ * byte by byte as unsigned values (memcmp). Comparing two keys this way is a lot cheaper than comparing the rows field
+ * by field with {@link RowMetaInterface#compare(Object[], Object[], int[])}, so it pays off whenever rows are compared
+ * many times, like when sorting.
+ * <p>
+ * Every value is written in an order-preserving encoding. Variable length values are terminated so that no encoded
+ * value is the prefix of another one, which means the bytes of a value can simply be inverted to sort it in descending
+ * order.
+ *
+ * @see ValueMetaInterface#writeSortKey(SortKeyBuilder, Object)
+ * @see RowMetaInterface#getSortKey(Object[], int[])
+ */
+public class SortKeyBuilder {
+  private byte[] buffer;
+  private int length;
+
+  public SortKeyBuilder() {
+    this( 64 );
+  }
+
+  public SortKeyBuilder( int capacity ) {
+    buffer = new byte[Math.max( 16, capacity )];
+  }
+
+  /**
+   * Compare 2 sort keys.
+   *
+   * @return 0 if the keys are equal, a negative number if key1 is smaller and a positive number if it's larger.
+   */
+  public static int compare( byte[] key1, byte[] key2 ) {
+    return Arrays.compareUnsigned( key1, key2 );
+  }
+
+  /**
+   * Start a new key, the internal buffer is reused.
+   */
+  public void reset() {
+    length = 0;
+  }
+
+  /**
+   * @return the number of bytes written so far
+   */
+  public int length() {
+    return length;
+  }
+
+  /**
+   * @return a copy of the key built so far
+   */
+  public byte[] toByteArray() {
+    return Arrays.copyOf( buffer, length );
+  }
+
+  public void writeByte( int value ) {
+    ensureCapacity( 1 );
+    buffer[length++] = (byte) value;
+  }
+
+  /**
+   * Write a signed integer: the sign bit is flipped so negative numbers sort before positive ones.
+   */
+  public void writeInt( int value ) {
+    int bits = value ^ Integer.MIN_VALUE;
+    ensureCapacity( 4 );
+    buffer[length++] = (byte) ( bits >>> 24 );
+    buffer[length++] = (byte) ( bits >>> 16 );
+    buffer[length++] = (byte) ( bits >>> 8 );
+    buffer[length++] = (byte) bits;
+  }
+
+  /**
+   * Write a signed long: the sign bit is flipped so negative numbers sort before positive ones.
+   */
+  public void writeLong( long value ) {
+    writeRawLong( value ^ Long.MIN_VALUE );
+  }
+
+  /**
+   * Write a double in the order of {@link Double#compare(double, double)}: all the bits of negative numbers are
+   * flipped, only the sign bit of positive numbers is flipped.
+   */
+  public void writeDouble( double value ) {
+    long bits = Double.doubleToLongBits( value );
+    writeRawLong( bits ^ ( ( bits >> 63 ) | Long.MIN_VALUE ) );
+  }
+
+  /**
+   * Write a big number in the order of {@link BigDecimal#compareTo(BigDecimal)}, the scale is ignored. The value is
+   * written as sign, decimal exponent and the significant digits.
+   */
+  public void writeBigDecimal( BigDecimal value ) {
+    int signum = value.signum();
+    if ( signum == 0 ) {
+      writeByte( 1 );
+      return;
+    }
+    writeByte( signum < 0 ? 0 : 2 );
+    int start = length;
+
+    // value = 0.digits x 10^exponent
+    BigDecimal normalized = value.stripTrailingZeros();
+    String digits = normalized.unscaledValue().abs().toString();
+    writeInt( digits.length() - normalized.scale() );
+    ensureCapacity( digits.length() + 1 );
+    for ( int i = 0; i < digits.length(); i++ ) {
+      buffer[length++] = (byte) digits.charAt( i );
+    }
+    buffer[length++] = 0;
+
+    if ( signum < 0 ) {
+      invert( start );
+    }
+  }
+
+  /**
+   * Write a string in the order of {@link String#compareTo(String)}. Every character is written as its value plus one
+   * in the UTF-8 scheme, which keeps the order and never produces a 0 byte. A 0 byte terminates the string.
+   */
+  public void writeString( String value ) {
+    int n = value.length();
+    ensureCapacity( n * 3 + 2 );
+    for ( int i = 0; i < n; i++ ) {
+      writeChar( value.charAt( i ) );
+    }
+    buffer[length++] = 0;
+  }
+
+  /**
+   * Write a string in the order of {@link String#compareToIgnoreCase(String)}.
+   */
+  public void writeStringIgnoreCase( String value ) {
+    int n = value.length();
+    ensureCapacity( n * 3 + 2 );
+    for ( int i = 0; i < n; i++ ) {
+      writeChar( Character.toLowerCase( Character.toUpperCase( value.charAt( i ) ) ) );
+    }
+    buffer[length++] = 0;
+  }
+
+  private void writeChar( char c ) {
+    int v = c + 1;
+    if ( v < 0x80 ) {
+      buffer[length++] = (byte) v;
+    } else if ( v < 0x800 ) {
+      buffer[length++] = (byte) ( 0xC0 | ( v >>> 6 ) );
+      buffer[length++] = (byte) ( 0x80 | ( v & 0x3F ) );
+    } else if ( v < 0x10000 ) {
+      buffer[length++] = (byte) ( 0xE0 | ( v >>> 12 ) );
+      buffer[length++] = (byte) ( 0x80 | ( ( v >>> 6 ) & 0x3F ) );
+      buffer[length++] = (byte) ( 0x80 | ( v & 0x3F ) );
+    } else {
+      // only character 0xFFFF ends up here
+      ensureCapacity( 4 );
+      buffer[length++] = (byte) 0xF0;
+      buffer[length++] = (byte) 0x90;
+      buffer[length++] = (byte) 0x80;
+      buffer[length++] = (byte) 0x80;
+    }
+  }
+
+  /**
+   * Write bytes that already compare as unsigned values, a collation key for example. A 0 byte is escaped as 0x00
+   * 0xFF and the value is terminated with 0x00 0x00.
+   */
+  public void writeUnsignedBytes( byte[] value ) {
+    ensureCapacity( value.length * 2 + 2 );
+    for ( byte b : value ) {
+      buffer[length++] = b;
+      if ( b == 0 ) {
+        buffer[length++] = (byte) 0xFF;
+      }
+    }
+    buffer[length++] = 0;
+    buffer[length++] = 0;
+  }
+
+  /**
+   * Write binary data in the order of the binary data type: shorter values first, then byte by byte as signed values.
+   */
+  public void writeBinary( byte[] value ) {
+    writeInt( value.length );
+    ensureCapacity( value.length );
+    for ( byte b : value ) {
+      buffer[length++] = (byte) ( b ^ 0x80 );
+    }
+  }
+
+  /**
+   * Invert all the bytes from a position to the end of the key, reversing the sort order of the values written since.
+   *
+   * @param from
+   *          the position to start from, see {@link #length()}
+   */
+  public void invert( int from ) {
+    for ( int i = from; i < length; i++ ) {
+      buffer[i] = (byte) ~buffer[i];
+    }
+  }
+
+  private void writeRawLong( long bits ) {
+    ensureCapacity( 8 );
+    for ( int shift = 56; shift >= 0; shift -= 8 ) {
+      buffer[length++] = (byte) ( bits >>> shift );
+    }
+  }
+
+  private void ensureCapacity( int extra ) {
+    if ( length + extra > buffer.length ) {
+      buffer = Arrays.copyOf( buffer, Math.max( buffer.length * 2, length + extra ) );
+    }
+  }
+}
@@ -987,6 +987,30 @@ public interface ValueMetaInterface extends Cloneable {
    */
   int compare( Object data1, ValueMetaInterface meta2, Object data2 ) throws KettleValueException;
 
+  /**
+   * @return true if the values of this type can be written as a normalized sort key, see
+   *         {@link #writeSortKey(SortKeyBuilder, Object)}
+   */
+  default boolean isSortKeySupported() {
+    return false;
+  }
+
+  /**
+   * Write the value to a normalized sort key. The keys of 2 values compare as unsigned bytes in the same order as
+   * {@link #compare(Object, Object)} compares the values, taking into account the sort direction, case sensitivity and
+   * collator settings.
+   *
+   * @param builder
+   *          the sort key to append the value to
+   * @param data
+   *          the value
+   * @throws KettleValueException
+   *           In case we get conversion errors or the data type doesn't support sort keys
+   */
+  default void writeSortKey( SortKeyBuilder builder, Object data ) throws KettleValueException {
+    throw new KettleValueException( toStringMeta() + " : Sort keys are not supported for this data type" );
+  }
+
   /**
    * Convert the specified data to the data type specified in this object.
    *
@@ -32,6 +32,7 @@ import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.gui.PrimitiveGCInterface;
 import org.pentaho.di.core.logging.KettleLogStore;
 import org.pentaho.di.core.logging.LogChannelInterface;
+import org.pentaho.di.core.row.SortKeyBuilder;
 import org.pentaho.di.core.row.ValueDataUtil;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.util.EnvUtil;
@@ -3759,6 +3760,81 @@ public class ValueMetaBase implements ValueMetaInterface {
 
   }
 
+  @Override
+  public boolean isSortKeySupported() {
+    if ( comparator != null ) {
+      return false;
+    }
+    switch ( getType() ) {
+      case TYPE_STRING:
+      case TYPE_INTEGER:
+      case TYPE_NUMBER:
+      case TYPE_DATE:
+      case TYPE_BIGNUMBER:
+      case TYPE_BOOLEAN:
+      case TYPE_BINARY:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  @Override
+  public void writeSortKey( SortKeyBuilder builder, Object data ) throws KettleValueException {
+    int start = builder.length();
+
+    // Same order as compare(): null values come first, before the sort direction is applied
+    if ( isNull( data ) ) {
+      builder.writeByte( 0 );
+    } else {
+      builder.writeByte( 1 );
+      if ( comparator != null ) {
+        throw new KettleValueException( toStringMeta()
+          + " : Sort keys are not supported for values with a custom comparator" );
+      }
+      switch ( getType() ) {
+        case TYPE_STRING:
+          String string = getString( data );
+          if ( ignoreWhitespace ) {
+            string = string.trim();
+          }
+          if ( !collatorDisabled ) {
+            builder.writeUnsignedBytes( collator.getCollationKey( string ).toByteArray() );
+          } else if ( caseInsensitive ) {
+            builder.writeStringIgnoreCase( string );
+          } else {
+            builder.writeString( string );
+          }
+          break;
+        case TYPE_INTEGER:
+          builder.writeLong( getInteger( data ) );
+          break;
+        case TYPE_NUMBER:
+          builder.writeDouble( getNumber( data ) );
+          break;
+        case TYPE_DATE:
+          builder.writeLong( getDate( data ).getTime() );
+          break;
+        case TYPE_BIGNUMBER:
+          builder.writeBigDecimal( getBigNumber( data ) );
+          break;
+        case TYPE_BOOLEAN:
+          builder.writeByte( getBoolean( data ) ? 1 : 0 );
+          break;
+        case TYPE_BINARY:
+          builder.writeBinary( (byte[]) data );
+          break;
+        default:
+          throw new KettleValueException( toStringMeta() + " : Sort keys are not supported for data type : "
+            + getType() );
+      }
+    }
+
+    if ( isSortedDescending() ) {
+      builder.invert( start );
+    }
+  }
+
   /**
    * Compare 2 values of the same data type
    *
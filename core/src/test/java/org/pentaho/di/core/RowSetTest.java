@@ -14,6 +14,9 @@
 package org.pentaho.di.core;
 
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.pentaho.di.core.row.RowMeta;
@@ -161,6 +164,35 @@ public class RowSetTest {
      **********************************************************************/
   }
 
+  /**
+   * Batch test: rows are added as long as there is room and taken in the order they were added.
+   */
+  @Test
+  public void testBatches() {
+    RowSet set = new BlockingRowSet( 3 );
+    RowMetaInterface rm = createRowMetaInterface();
+
+    List<Object[]> rows = new ArrayList<>();
+    for ( long i = 1; i <= 5; i++ ) {
+      rows.add( new Object[] { i } );
+    }
+
+    assertEquals( 3, set.putRows( rm, rows, 0 ) );
+    assertEquals( 3, set.size() );
+
+    List<Object[]> batch = set.getRows( 2 );
+    assertEquals( 2, batch.size() );
+    assertEquals( 1L, batch.get( 0 )[0] );
+    assertEquals( 2L, batch.get( 1 )[0] );
+
+    assertEquals( 2, set.putRows( rm, rows, 3 ) );
+    batch = set.getRows( 10 );
+    assertEquals( 3, batch.size() );
+    assertEquals( 3L, batch.get( 0 )[0] );
+    assertEquals( 5L, batch.get( 2 )[0] );
+    assertTrue( set.getRows( 10 ).isEmpty() );
+  }
+
   /**
    * Names test. Just for completeness.
    */
@@ -0,0 +1,174 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.junit.rules.RestorePDIEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the lock-free single producer, single consumer row set.
+ */
+public class SpscRowSetTest {
+  @ClassRule public static RestorePDIEnvironment env = new RestorePDIEnvironment();
+
+  private RowMetaInterface createRowMetaInterface() {
+    RowMetaInterface rm = new RowMeta();
+    rm.addValueMeta( new ValueMetaInteger( "ROWNR" ) );
+    return rm;
+  }
+
+  @Test
+  public void testBasicCreation() {
+    RowSet set = new SpscRowSet( 10 );
+
+    assertFalse( set.isDone() );
+    assertEquals( 0, set.size() );
+    assertNull( set.getRowImmediate() );
+  }
+
+  @Test
+  public void testCapacityIsRespected() {
+    // 3 is not a power of two: the ring buffer is bigger but the capacity stays 3
+    RowSet set = new SpscRowSet( 3 );
+    RowMetaInterface rm = createRowMetaInterface();
+
+    assertTrue( set.putRowWait( rm, new Object[] { 1L }, 10, TimeUnit.MILLISECONDS ) );
+    assertTrue( set.putRowWait( rm, new Object[] { 2L }, 10, TimeUnit.MILLISECONDS ) );
+    assertTrue( set.putRowWait( rm, new Object[] { 3L }, 10, TimeUnit.MILLISECONDS ) );
+    assertEquals( 3, set.size() );
+    assertFalse( set.putRowWait( rm, new Object[] { 4L }, 10, TimeUnit.MILLISECONDS ) );
+    assertEquals( 3, set.size() );
+
+    assertEquals( 1L, set.getRowImmediate()[0] );
+    assertTrue( set.putRowWait( rm, new Object[] { 4L }, 10, TimeUnit.MILLISECONDS ) );
+    assertEquals( 2L, set.getRow()[0] );
+    assertEquals( 3L, set.getRow()[0] );
+    assertEquals( 4L, set.getRow()[0] );
+    assertEquals( 0, set.size() );
+    assertNull( set.getRowWait( 10, TimeUnit.MILLISECONDS ) );
+    assertEquals( rm, set.getRowMeta() );
+  }
+
+  @Test
+  public void testBatches() {
+    RowSet set = new SpscRowSet( 4 );
+    RowMetaInterface rm = createRowMetaInterface();
+    List<Object[]> rows = new ArrayList<>();
+    for ( long i = 0; i < 6; i++ ) {
+      rows.add( new Object[] { i } );
+    }
+
+    assertEquals( 4, set.putRows( rm, rows, 0 ) );
+    assertEquals( 4, set.size() );
+    assertEquals( 0, set.putRows( rm, rows, 4 ) );
+
+    List<Object[]> batch = set.getRows( 3 );
+    assertEquals( 3, batch.size() );
+    assertEquals( 0L, batch.get( 0 )[0] );
+    assertEquals( 2L, batch.get( 2 )[0] );
+
+    assertEquals( 2, set.putRows( rm, rows, 4 ) );
+    batch = set.getRows( 10 );
+    assertEquals( 3, batch.size() );
+    assertEquals( 3L, batch.get( 0 )[0] );
+    assertEquals( 5L, batch.get( 2 )[0] );
+    assertTrue( set.getRows( 10 ).isEmpty() );
+  }
+
+  @Test
+  public void testNullRowIsRejected() {
+    RowSet set = new SpscRowSet( 3 );
+
+    assertFalse( set.putRow( createRowMetaInterface(), null ) );
+    assertEquals( 0, set.size() );
+  }
+
+  @Test
+  public void testClear() {
+    RowSet set = new SpscRowSet( 2 );
+    RowMetaInterface rm = createRowMetaInterface();
+    set.putRow( rm, new Object[] { 1L } );
+    set.putRow( rm, new Object[] { 2L } );
+    set.setDone();
+
+    set.clear();
+
+    assertFalse( set.isDone() );
+    assertEquals( 0, set.size() );
+    assertNull( set.getRowImmediate() );
+    assertTrue( set.putRow( rm, new Object[] { 3L } ) );
+    assertEquals( 3L, set.getRow()[0] );
+  }
+
+  @Test
+  public void testNames() {
+    RowSet set = new SpscRowSet( 3 );
+
+    set.setThreadNameFromToCopy( "from", 2, "to", 3 );
+
+    assertEquals( "from.2 - to.3", set.getName() );
+  }
+
+  @Test
+  public void testProducerConsumerKeepOrder() throws Exception {
+    final int nrRows = 200000;
+    final RowSet set = new SpscRowSet( 16 );
+    final RowMetaInterface rm = createRowMetaInterface();
+    final AtomicReference<String> failure = new AtomicReference<>();
+
+    Thread producer = new Thread( () -> {
+      for ( long i = 0; i < nrRows; i++ ) {
+        Object[] row = new Object[] { i };
+        while ( !set.putRowWait( rm, row, 1, TimeUnit.MILLISECONDS ) ) {
+          // retry, just like BaseStep.handlePutRow
+        }
+      }
+      set.setDone();
+    } );
+    producer.start();
+
+    long expected = 0;
+    while ( true ) {
+      Object[] row = set.getRowWait( 1, TimeUnit.MILLISECONDS );
+      if ( row == null ) {
+        if ( set.isDone() && set.size() == 0 ) {
+          break;
+        }
+        continue;
+      }
+      if ( (Long) row[0] != expected ) {
+        failure.compareAndSet( null, "Expected row " + expected + " but got " + row[0] );
+      }
+      expected++;
+    }
+    producer.join();
+
+    assertNull( failure.get() );
+    assertEquals( nrRows, expected );
+  }
+}
@@ -354,4 +354,18 @@ public class BaseDatabaseMetaTest {
     Mockito.when(  db.getDatabaseMeta() ).thenReturn( dm );
   }
 
+  @Test
+  public void testBatchLookupSQL() {
+    assertEquals( "SELECT ID, NAME FROM FOO WHERE ID IN (?, ?, ?)",
+      nativeMeta.getBatchLookupSQL( "FOO", new String[] { "ID" }, new String[] { "NAME" }, 3, null ) );
+    assertEquals( "SELECT A, B, NAME FROM FOO WHERE ( A = ? AND B = ? ) OR ( A = ? AND B = ? ) ORDER BY NAME",
+      nativeMeta.getBatchLookupSQL( "FOO", new String[] { "A", "B" }, new String[] { "NAME" }, 2, "NAME" ) );
+    assertEquals( 1000, nativeMeta.getMaxBatchLookupParameters() );
+  }
+
+  @Test
+  public void testUpsertSQL() {
+    assertNull( nativeMeta.getUpsertSQL( "FOO", new String[] { "ID" }, new String[] { "ID", "NAME" },
+      new String[] { "NAME" } ) );
+  }
 }
@@ -0,0 +1,193 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.database;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+public class BatchLookupTest {
+
+  private Database db;
+  private RowMetaInterface keyMeta;
+  private List<Object[]> table;
+  private List<Object> keysAskedFor;
+  private int nrQueries;
+
+  /**
+   * A table with a case insensitive collation that ignores trailing spaces, the rows come back in table order.
+   */
+  @Before
+  public void setUp() throws Exception {
+    db = mock( Database.class );
+    table = new ArrayList<>();
+    keysAskedFor = new ArrayList<>();
+    List<Object> parameters = new ArrayList<>();
+    when( db.prepareBatchLookup( any(), any(), any(), any(), any(), anyInt() ) )
+      .thenAnswer( invocation -> mock( PreparedStatement.class ) );
+    doAnswer( invocation -> {
+      parameters.add( invocation.getArgument( 2 ) );
+      return keysAskedFor.add( invocation.getArgument( 2 ) );
+    } ).when( db ).setValue( any(), any(), any(), anyInt() );
+    when( db.getBatchLookup( any() ) ).thenAnswer( invocation -> {
+      nrQueries++;
+      List<Object[]> rows = new ArrayList<>();
+      for ( Object[] row : table ) {
+        for ( Object parameter : parameters ) {
+          if ( parameter != null && collate( parameter ).equals( collate( row[ 0 ] ) ) ) {
+            rows.add( row );
+            break;
+          }
+        }
+      }
+      parameters.clear();
+      return rows;
+    } );
+
+    keyMeta = new RowMeta();
+    keyMeta.addValueMeta( new ValueMetaString( "code" ) );
+    RowMetaInterface returnedMeta = new RowMeta();
+    returnedMeta.addValueMeta( new ValueMetaString( "CODE" ) );
+    returnedMeta.addValueMeta( new ValueMetaString( "NAME" ) );
+    when( db.getReturnRowMeta() ).thenReturn( returnedMeta );
+  }
+
+  private static String collate( Object value ) {
+    return value.toString().replaceAll( " +$", "" ).toLowerCase( Locale.ROOT );
+  }
+
+  private BatchLookup createLookup( boolean failingOnMultipleResults ) {
+    return new BatchLookup( db, null, "T", new String[] { "CODE" }, new String[] { "NAME" }, null, keyMeta, 4,
+      failingOnMultipleResults );
+  }
+
+  private void addRow( String code, String name ) {
+    table.add( new Object[] { code, name } );
+  }
+
+  private static List<Object[]> keys( String... codes ) {
+    List<Object[]> keys = new ArrayList<>();
+    for ( String code : codes ) {
+      keys.add( new Object[] { code } );
+    }
+    return keys;
+  }
+
+  @Test
+  public void testRowsAreMatchedByKey() throws Exception {
+    addRow( "c", "cee" );
+    addRow( "a", "ay" );
+
+    Object[][] results = createLookup( false ).lookup( keys( "a", "b", "c" ) );
+
+    assertArrayEquals( new Object[] { "ay" }, results[ 0 ] );
+    assertNull( results[ 1 ] );
+    assertArrayEquals( new Object[] { "cee" }, results[ 2 ] );
+    // The key without a match is asked for once more, nothing is found so it's really missing
+    assertEquals( 2, nrQueries );
+    assertEquals( "b", keysAskedFor.get( keysAskedFor.size() - 1 ) );
+  }
+
+  @Test
+  public void testNothingFoundIsNotAskedForAgain() throws Exception {
+    Object[][] results = createLookup( false ).lookup( keys( "a", "b" ) );
+
+    assertNull( results[ 0 ] );
+    assertNull( results[ 1 ] );
+    assertEquals( 1, nrQueries );
+  }
+
+  @Test
+  public void testKeysSpelledDifferentlyAreFound() throws Exception {
+    addRow( "b", "bee" );
+    addRow( "C", "cee" );
+
+    // "b " finds the row that matched "b" in Java already, "c" finds a row spelled "C"
+    Object[][] results = createLookup( false ).lookup( keys( "b", "b ", "c", "d" ) );
+
+    assertArrayEquals( new Object[] { "bee" }, results[ 0 ] );
+    assertArrayEquals( new Object[] { "bee" }, results[ 1 ] );
+    assertArrayEquals( new Object[] { "cee" }, results[ 2 ] );
+    assertNull( results[ 3 ] );
+    // The batch, the keys without a match together and then one by one
+    assertEquals( 5, nrQueries );
+  }
+
+  @Test
+  public void testFirstRowWins() throws Exception {
+    addRow( "a", "first" );
+    addRow( "a", "second" );
+
+    Object[][] results = createLookup( false ).lookup( keys( "a" ) );
+
+    assertArrayEquals( new Object[] { "first" }, results[ 0 ] );
+  }
+
+  @Test( expected = KettleDatabaseException.class )
+  public void testFailingOnMultipleResults() throws Exception {
+    addRow( "a", "first" );
+    addRow( "a", "second" );
+
+    createLookup( true ).lookup( keys( "a" ) );
+  }
+
+  @Test
+  public void testBatchesAreSplit() throws Exception {
+    addRow( "a", "ay" );
+    addRow( "e", "ee" );
+
+    Object[][] results = createLookup( false ).lookup( keys( "a", "b", "c", "d", "e" ) );
+
+    assertEquals( 5, results.length );
+    assertArrayEquals( new Object[] { "ay" }, results[ 0 ] );
+    assertNull( results[ 1 ] );
+    assertNull( results[ 2 ] );
+    assertNull( results[ 3 ] );
+    assertArrayEquals( new Object[] { "ee" }, results[ 4 ] );
+    // The keys of the first batch without a match are asked for again padded to four, the second batch holds one key
+    assertEquals( 4 + 4 + 1, keysAskedFor.size() );
+  }
+
+  @Test
+  public void testGetKey() throws Exception {
+    assertArrayEquals( new Object[] { "a" }, BatchLookup.getKey( keyMeta, new Object[] { "a" } ) );
+    assertNull( BatchLookup.getKey( keyMeta, new Object[] { null } ) );
+  }
+
+  @Test
+  public void testClose() throws Exception {
+    BatchLookup lookup = createLookup( false );
+    lookup.lookup( keys( "a" ) );
+    lookup.close();
+    verify( db ).closePreparedStatement( any() );
+  }
+}
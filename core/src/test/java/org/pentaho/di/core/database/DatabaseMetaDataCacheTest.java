@@ -0,0 +1,68 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DatabaseMetaDataCacheTest {
+
+  private DatabaseMetaDataCache cache;
+  private AtomicLong now;
+
+  @Before
+  public void setUp() {
+    cache = new DatabaseMetaDataCache();
+    now = new AtomicLong( 1000L );
+    cache.clock = () -> now.get();
+  }
+
+  @Test
+  public void testEntriesExpire() {
+    cache.put( "db|table|sales", Boolean.TRUE, 500L );
+
+    assertEquals( Boolean.TRUE, cache.get( "db|table|sales" ) );
+    now.addAndGet( 500L );
+    assertNull( cache.get( "db|table|sales" ) );
+    assertEquals( 0, cache.size() );
+    assertEquals( 1, cache.getHits() );
+    assertEquals( 1, cache.getMisses() );
+  }
+
+  @Test
+  public void testClearRemovesTheEntriesOfADatabase() {
+    cache.put( "db1|table|sales", Boolean.TRUE, 500L );
+    cache.put( "db1|column|sales|id", Boolean.TRUE, 500L );
+    cache.put( "db2|table|sales", Boolean.TRUE, 500L );
+
+    cache.clear( "db1|" );
+
+    assertNull( cache.get( "db1|table|sales" ) );
+    assertNull( cache.get( "db1|column|sales|id" ) );
+    assertEquals( Boolean.TRUE, cache.get( "db2|table|sales" ) );
+  }
+
+  @Test
+  public void testSizeIsBounded() {
+    for ( int i = 0; i <= DatabaseMetaDataCache.MAX_ENTRIES; i++ ) {
+      cache.put( "db|table|t" + i, Boolean.TRUE, 500L );
+    }
+    assertEquals( 1, cache.size() );
+  }
+}
@@ -73,9 +73,12 @@ import org.pentaho.di.core.exception.KettleDatabaseBatchException;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.logging.LogLevel;
 import org.pentaho.di.core.logging.LoggingObjectInterface;
+import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.junit.rules.RestorePDIEnvironment;
 import org.springframework.mock.jndi.SimpleNamingContextBuilder;
@@ -954,6 +957,35 @@ public class DatabaseTest {
     verify( db, times( 1 ) ).getTableFieldsMetaByDbMeta( any(), any() );
   }
 
+  @Test
+  public void testAdaptFetchSize() throws Exception {
+    when( dbMetaMock.isFetchSizeSupported() ).thenReturn( true );
+    Database db = new Database( log, dbMetaMock );
+    ResultSet resultSet = mock( ResultSet.class );
+
+    db.adaptFetchSize( resultSet, 500 );
+    verify( resultSet, never() ).setFetchSize( anyInt() );
+
+    db.setVariable( Const.KETTLE_DATABASE_FETCH_BUFFER_SIZE, "1000000" );
+    db.adaptFetchSize( resultSet, 500 );
+    verify( resultSet ).setFetchSize( 2000 );
+
+    // very wide rows still fetch a minimum number of rows per round trip
+    db.adaptFetchSize( resultSet, 100000000 );
+    verify( resultSet ).setFetchSize( 100 );
+  }
+
+  @Test
+  public void testRowSize() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name", 10, -1 ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+
+    assertEquals( 16 + 20 + 16, Database.estimateRowSize( rowMeta ) );
+    assertEquals( 16 + 6 + 16, Database.getRowSize( rowMeta, new Object[] { "abc", 1L } ) );
+    assertEquals( 16, Database.getRowSize( rowMeta, new Object[] { null, 1L } ) );
+  }
+
   public static class MockDriver implements Driver {
     public static Connection conn;
 
@@ -252,4 +252,21 @@ public class MSSQLServerDatabaseMetaTest {
 
   }
 
+  @Test
+  public void testBatchLookupSQL() {
+    assertEquals( "SELECT t.A, t.B, t.NAME FROM FOO t JOIN ( VALUES (?, ?), (?, ?) ) AS v ( lookup_key0, lookup_key1 )"
+        + " ON t.A = v.lookup_key0 AND t.B = v.lookup_key1 ORDER BY NAME",
+      nativeMeta.getBatchLookupSQL( "FOO", new String[] { "A", "B" }, new String[] { "NAME" }, 2, "NAME" ) );
+    assertEquals( 2000, nativeMeta.getMaxBatchLookupParameters() );
+  }
+
+  @Test
+  public void testUpsertSQL() {
+    assertEquals( "MERGE INTO FOO WITH ( HOLDLOCK ) AS t USING ( VALUES ( ?, ? ) ) AS s ( ID, NAME ) ON ( t.ID = s.ID )"
+        + " WHEN MATCHED AND EXISTS ( SELECT s.NAME EXCEPT SELECT t.NAME ) THEN UPDATE SET t.NAME = s.NAME"
+        + " WHEN NOT MATCHED THEN INSERT ( ID, NAME )"
+        + " VALUES ( s.ID, s.NAME );",
+      nativeMeta.getUpsertSQL( "FOO", new String[] { "ID" }, new String[] { "ID", "NAME" },
+        new String[] { "NAME" } ) );
+  }
 }
@@ -396,4 +396,13 @@ public class MySQLDatabaseMetaTest {
       assert( key.startsWith( "foobar." ) );
     }
   }
+
+  @Test
+  public void testUpsertSQL() {
+    assertEquals( "INSERT INTO FOO ( ID, NAME ) VALUES ( ?, ? ) ON DUPLICATE KEY UPDATE NAME = VALUES( NAME )",
+      nativeMeta.getUpsertSQL( "FOO", new String[] { "ID" }, new String[] { "ID", "NAME" },
+        new String[] { "NAME" } ) );
+    assertEquals( "INSERT INTO FOO ( ID, NAME ) VALUES ( ?, ? ) ON DUPLICATE KEY UPDATE ID = ID",
+      nativeMeta.getUpsertSQL( "FOO", new String[] { "ID" }, new String[] { "ID", "NAME" }, new String[ 0 ] ) );
+  }
 }
@@ -303,4 +303,14 @@ public class OracleDatabaseMetaTest {
       nativeMeta.getAddColumnStatement( "FOO", new ValueMetaTimestamp( "FOO" ), "", false, "", false ) );
   }
 
+  @Test
+  public void testUpsertSQL() {
+    assertEquals( "MERGE INTO FOO t USING ( SELECT ? ID, ? NAME FROM DUAL ) s ON ( t.ID = s.ID )"
+        + " WHEN MATCHED THEN UPDATE SET t.NAME = s.NAME WHERE DECODE( t.NAME, s.NAME, 0, 1 ) = 1"
+        + " WHEN NOT MATCHED THEN INSERT ( ID, NAME )"
+        + " VALUES ( s.ID, s.NAME )",
+      nativeMeta.getUpsertSQL( "FOO", new String[] { "ID" }, new String[] { "ID", "NAME" },
+        new String[] { "NAME" } ) );
+  }
+
 }
@@ -0,0 +1,124 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Timestamp;
+
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaBinary;
+import org.pentaho.di.core.row.value.ValueMetaBoolean;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaSerializable;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.row.value.ValueMetaTimestamp;
+
+public class PostgreSQLCopyWriterTest {
+
+  @Test
+  public void testCopySQL() {
+    assertEquals( "COPY \"public\".\"sales\" ( \"id\", \"amount\" ) FROM STDIN",
+      PostgreSQLCopyWriter.getCopySQL( "\"public\".\"sales\"", new String[] { "\"id\"", "\"amount\"" } ) );
+  }
+
+  @Test
+  public void testRowsAreEncodedInTheTextFormat() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "amount" ) );
+    rowMeta.addValueMeta( new ValueMetaBigNumber( "total" ) );
+    rowMeta.addValueMeta( new ValueMetaBoolean( "active" ) );
+    rowMeta.addValueMeta( new ValueMetaBinary( "data" ) );
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter( out, rowMeta, true );
+    writer.writeRow( new Object[] { 1L, "a\tb\\c\nd", 1.5, new BigDecimal( "12.30" ), true, new byte[] { 1, -1 } } );
+    writer.writeRow( new Object[] { 2L, null, null, null, false, null } );
+
+    assertEquals( "1\ta\\tb\\\\c\\nd\t1.5\t12.30\tt\t\\\\x01ff\n" + "2\t\\N\t\\N\t\\N\tf\t\\N\n",
+      new String( out.toByteArray(), StandardCharsets.UTF_8 ) );
+  }
+
+  @Test
+  public void testBooleansAreWrittenAsCharactersWithoutBooleanDataType() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaBoolean( "active" ) );
+
+    PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter( new ByteArrayOutputStream(), rowMeta, false );
+    writer.appendRow( new Object[] { true } );
+    writer.appendRow( new Object[] { false } );
+
+    assertEquals( "Y\nN\n", writer.getLine() );
+  }
+
+  @Test
+  public void testWholeNumbersAreWrittenWithoutAFraction() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaNumber( "amount" ) );
+
+    // The whole numbers can be copied into integer columns, just like they can be inserted into them
+    PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter( new ByteArrayOutputStream(), rowMeta, true );
+    for ( double number : new double[] { 5.0, -3.0, 1.0E10, 2.5, 1.0E-7, 1.0E300 } ) {
+      writer.appendRow( new Object[] { number } );
+    }
+
+    assertEquals( "5\n-3\n10000000000\n2.5\n1.0E-7\n1.0E300\n", writer.getLine() );
+  }
+
+  @Test
+  public void testTimestampKeepsTheNanoseconds() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaTimestamp( "ts" ) );
+    Timestamp timestamp = Timestamp.valueOf( "2024-02-29 13:14:15.000123456" );
+
+    PostgreSQLCopyWriter writer = new PostgreSQLCopyWriter( new ByteArrayOutputStream(), rowMeta, true );
+    writer.appendRow( new Object[] { timestamp } );
+
+    assertEquals( "2024-02-29 13:14:15.000123456\n", writer.getLine() );
+  }
+
+  @Test
+  public void testUnsupportedTypes() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    assertTrue( PostgreSQLCopyWriter.isSupported( rowMeta ) );
+
+    rowMeta.addValueMeta( new ValueMetaSerializable( "object" ) );
+    assertFalse( PostgreSQLCopyWriter.isSupported( rowMeta ) );
+    assertNull(
+      PostgreSQLCopyWriter.open( mock( Connection.class ), "t", new String[] { "id", "object" }, rowMeta, true ) );
+  }
+
+  @Test
+  public void testOtherDriversAreNotSupported() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+
+    assertNull( PostgreSQLCopyWriter.open( mock( Connection.class ), "t", new String[] { "id" }, rowMeta, true ) );
+  }
+}
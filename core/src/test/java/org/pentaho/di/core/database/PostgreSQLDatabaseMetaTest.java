@@ -232,4 +232,21 @@ public class PostgreSQLDatabaseMetaTest {
     assertNull( nativeMeta.getSQLUnlockTables(  new String[] { "FOO" } ) );
   }
 
+  @Test
+  public void testBatchLookupSQL() {
+    assertEquals( "SELECT ID, NAME FROM FOO WHERE ID IN (?, ?)",
+      nativeMeta.getBatchLookupSQL( "FOO", new String[] { "ID" }, new String[] { "NAME" }, 2, "" ) );
+    assertEquals( "SELECT A, B, NAME FROM FOO WHERE ( A, B ) IN ( VALUES (?, ?), (?, ?) )",
+      nativeMeta.getBatchLookupSQL( "FOO", new String[] { "A", "B" }, new String[] { "NAME" }, 2, null ) );
+  }
+
+  @Test
+  public void testUpsertSQL() {
+    assertEquals( "INSERT INTO FOO AS t ( ID, NAME, AGE ) VALUES ( ?, ?, ? ) ON CONFLICT ( ID ) DO UPDATE SET NAME = "
+        + "EXCLUDED.NAME, AGE = EXCLUDED.AGE WHERE ( t.NAME, t.AGE ) IS DISTINCT FROM ( EXCLUDED.NAME, EXCLUDED.AGE )",
+      nativeMeta.getUpsertSQL( "FOO", new String[] { "ID" }, new String[] { "ID", "NAME", "AGE" },
+        new String[] { "NAME", "AGE" } ) );
+    assertEquals( "INSERT INTO FOO AS t ( ID, NAME ) VALUES ( ?, ? ) ON CONFLICT ( ID ) DO NOTHING",
+      nativeMeta.getUpsertSQL( "FOO", new String[] { "ID" }, new String[] { "ID", "NAME" }, new String[ 0 ] ) );
+  }
 }
@@ -0,0 +1,105 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+
+public class PrefetchingRowReaderTest {
+
+  private Database db;
+  private ResultSet rs;
+  private RowMetaInterface rowMeta;
+
+  @Before
+  public void setUp() {
+    DatabaseMeta databaseMeta = mock( DatabaseMeta.class );
+    when( databaseMeta.getName() ).thenReturn( "test" );
+    db = mock( Database.class );
+    when( db.getDatabaseMeta() ).thenReturn( databaseMeta );
+    rs = mock( ResultSet.class );
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+  }
+
+  private void returnRows( long nrRows ) throws KettleDatabaseException {
+    AtomicLong counter = new AtomicLong();
+    doAnswer( invocation -> {
+      long id = counter.getAndIncrement();
+      return id < nrRows ? new Object[] { id } : null;
+    } ).when( db ).getRow( eq( rs ), isNull(), eq( rowMeta ) );
+  }
+
+  @Test
+  public void testRowsKeepTheirOrder() throws Exception {
+    int nrRows = 1000;
+    returnRows( nrRows );
+
+    PrefetchingRowReader reader = new PrefetchingRowReader( db, rs, rowMeta, 10 );
+    for ( long i = 0; i < nrRows; i++ ) {
+      assertEquals( i, reader.getRow()[0] );
+    }
+    assertNull( reader.getRow() );
+    assertNull( reader.getRow() );
+    reader.close();
+
+    verify( db ).adaptFetchSize( eq( rs ), anyLong() );
+  }
+
+  @Test
+  public void testFailureIsPassedOn() throws Exception {
+    KettleDatabaseException failure = new KettleDatabaseException( "Couldn't get row from result set" );
+    when( db.getRow( eq( rs ), isNull(), eq( rowMeta ) ) ).thenReturn( new Object[] { 1L } ).thenThrow( failure );
+
+    PrefetchingRowReader reader = new PrefetchingRowReader( db, rs, rowMeta, 10 );
+    assertEquals( 1L, reader.getRow()[0] );
+    try {
+      reader.getRow();
+      fail( "Expected the failure of the reading thread" );
+    } catch ( KettleDatabaseException e ) {
+      assertSame( failure, e );
+    }
+    reader.close();
+  }
+
+  @Test
+  public void testCloseStopsReading() throws Exception {
+    returnRows( Long.MAX_VALUE );
+
+    PrefetchingRowReader reader = new PrefetchingRowReader( db, rs, rowMeta, 10 );
+    assertEquals( 0L, reader.getRow()[0] );
+
+    // returns once the reading thread stopped, even though the buffer is full
+    reader.close();
+  }
+}
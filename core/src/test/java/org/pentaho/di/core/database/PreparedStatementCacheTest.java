@@ -0,0 +1,132 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.junit.Test;
+
+public class PreparedStatementCacheTest {
+
+  @Test
+  public void testReleasedStatementIsReused() throws Exception {
+    PreparedStatementCache cache = new PreparedStatementCache( 10 );
+    String key = PreparedStatementCache.getKey( "SELECT 1", false );
+    PreparedStatement ps = mock( PreparedStatement.class );
+
+    assertNull( cache.take( key ) );
+    cache.register( ps, key );
+    assertTrue( cache.release( ps ) );
+    verify( ps ).clearParameters();
+    verify( ps, never() ).close();
+
+    assertSame( ps, cache.take( key ) );
+    // handed out once: it has to be released before it is available again
+    assertNull( cache.take( key ) );
+    assertEquals( 1, cache.getHits() );
+    assertEquals( 2, cache.getMisses() );
+  }
+
+  @Test
+  public void testSettingsAreResetWhenHandedOut() throws Exception {
+    PreparedStatementCache cache = new PreparedStatementCache( 10 );
+    PreparedStatement ps = mock( PreparedStatement.class );
+    cache.register( ps, "key" );
+
+    // The previous user limited the statement
+    when( ps.getMaxRows() ).thenReturn( 1 );
+    when( ps.getFetchSize() ).thenReturn( 10 );
+    when( ps.getQueryTimeout() ).thenReturn( 5 );
+    assertTrue( cache.release( ps ) );
+
+    assertSame( ps, cache.take( "key" ) );
+    verify( ps ).setMaxRows( 0 );
+    verify( ps ).setFetchSize( 0 );
+    verify( ps ).setQueryTimeout( 0 );
+  }
+
+  @Test
+  public void testStatementThatCanNotBeResetIsNotHandedOut() throws Exception {
+    PreparedStatementCache cache = new PreparedStatementCache( 10 );
+    PreparedStatement ps = mock( PreparedStatement.class );
+    cache.register( ps, "key" );
+    when( ps.getMaxRows() ).thenReturn( 1 );
+    doThrow( new SQLException( "closed" ) ).when( ps ).setMaxRows( 0 );
+    assertTrue( cache.release( ps ) );
+
+    assertNull( cache.take( "key" ) );
+    verify( ps ).close();
+    assertEquals( 0, cache.size() );
+  }
+
+  @Test
+  public void testKeysDependOnGeneratedKeys() {
+    assertFalse( PreparedStatementCache.getKey( "INSERT", true ).equals( PreparedStatementCache.getKey( "INSERT",
+      false ) ) );
+  }
+
+  @Test
+  public void testUnknownOrClosedStatementsAreNotKept() throws Exception {
+    PreparedStatementCache cache = new PreparedStatementCache( 10 );
+    assertFalse( cache.release( mock( PreparedStatement.class ) ) );
+
+    PreparedStatement closed = mock( PreparedStatement.class );
+    cache.register( closed, "key" );
+    when( closed.isClosed() ).thenReturn( true );
+    assertFalse( cache.release( closed ) );
+    assertEquals( 0, cache.size() );
+  }
+
+  @Test
+  public void testLeastRecentlyUsedStatementIsEvicted() throws Exception {
+    PreparedStatementCache cache = new PreparedStatementCache( 2 );
+    PreparedStatement[] statements = new PreparedStatement[3];
+    for ( int i = 0; i < statements.length; i++ ) {
+      statements[i] = mock( PreparedStatement.class );
+      cache.register( statements[i], "key" + i );
+      assertTrue( cache.release( statements[i] ) );
+    }
+
+    assertEquals( 2, cache.size() );
+    assertEquals( 1, cache.getEvictions() );
+    verify( statements[0] ).close();
+    assertNull( cache.take( "key0" ) );
+    assertSame( statements[2], cache.take( "key2" ) );
+  }
+
+  @Test
+  public void testCloseClosesIdleStatements() throws Exception {
+    PreparedStatementCache cache = new PreparedStatementCache( 2 );
+    PreparedStatement ps = mock( PreparedStatement.class );
+    cache.register( ps, "key" );
+    cache.release( ps );
+
+    cache.close();
+
+    verify( ps ).close();
+    assertEquals( 0, cache.size() );
+  }
+}
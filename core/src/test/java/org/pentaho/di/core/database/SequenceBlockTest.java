@@ -0,0 +1,127 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleException;
+
+public class SequenceBlockTest {
+
+  @Test
+  public void testValuesComeFromReservedBlocks() throws Exception {
+    List<Long> blockSizes = new ArrayList<>();
+    long[] sequence = { 1 };
+    SequenceBlock block = new SequenceBlock( blockSize -> {
+      blockSizes.add( blockSize );
+      long first = sequence[0];
+      sequence[0] += blockSize; // like a sequence created with INCREMENT BY <block size>
+      return first;
+    }, 3 );
+
+    for ( long i = 1; i <= 7; i++ ) {
+      assertEquals( Long.valueOf( i ), block.getNextValue() );
+    }
+    assertEquals( 3, blockSizes.size() );
+    assertEquals( Long.valueOf( 3 ), blockSizes.get( 0 ) );
+  }
+
+  @Test
+  public void testBlocksDoNotNeedToBeAdjacent() throws Exception {
+    long[] firstValues = { 100, 500 };
+    int[] calls = { 0 };
+    SequenceBlock block = new SequenceBlock( blockSize -> firstValues[calls[0]++], 2 );
+
+    assertEquals( Long.valueOf( 100 ), block.getNextValue() );
+    assertEquals( Long.valueOf( 101 ), block.getNextValue() );
+    assertEquals( Long.valueOf( 500 ), block.getNextValue() );
+  }
+
+  @Test
+  public void testNoBlockFound() throws Exception {
+    SequenceBlock block = new SequenceBlock( blockSize -> null, 10 );
+    assertNull( block.getNextValue() );
+  }
+
+  @Test
+  public void testVerifiedIncrementByTheBlockSize() throws Exception {
+    long[] sequence = { 1 };
+    int[] calls = { 0 };
+    SequenceBlock block = new SequenceBlock( blockSize -> {
+      calls[0]++;
+      long first = sequence[0];
+      sequence[0] += blockSize;
+      return first;
+    }, 3, true );
+
+    for ( long i = 1; i <= 7; i++ ) {
+      assertEquals( Long.valueOf( i ), block.getNextValue() );
+    }
+    // The first two blocks are reserved together
+    assertEquals( 3, calls[0] );
+  }
+
+  @Test
+  public void testVerifiedIncrementAllowsBlocksOfOtherCopies() throws Exception {
+    long[] firstValues = { 1, 21, 11 };
+    int[] calls = { 0 };
+    SequenceBlock block = new SequenceBlock( blockSize -> firstValues[calls[0]++], 10, true );
+
+    assertEquals( Long.valueOf( 1 ), block.getNextValue() );
+    for ( int i = 0; i < 9; i++ ) {
+      block.getNextValue();
+    }
+    assertEquals( Long.valueOf( 21 ), block.getNextValue() );
+  }
+
+  @Test
+  public void testIncrementSmallerThanTheBlockSizeFails() throws Exception {
+    long[] sequence = { 1 };
+    SequenceBlock block = new SequenceBlock( blockSize -> sequence[0]++, 10, true );
+    try {
+      block.getNextValue();
+      fail( "An increment of 1 hands out overlapping blocks" );
+    } catch ( KettleException e ) {
+      assertTrue( e.getMessage().contains( "increment by the block size of 10" ) );
+    }
+  }
+
+  @Test
+  public void testIncrementIsVerifiedForLaterBlocks() throws Exception {
+    long[] firstValues = { 1, 11, 15 };
+    int[] calls = { 0 };
+    SequenceBlock block = new SequenceBlock( blockSize -> firstValues[calls[0]++], 10, true );
+    for ( int i = 0; i < 20; i++ ) {
+      block.getNextValue();
+    }
+    try {
+      block.getNextValue();
+      fail( "15 isn't a multiple of the block size away from 1" );
+    } catch ( KettleException e ) {
+      // expected
+    }
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testBlockSizeMustBePositive() {
+    new SequenceBlock( blockSize -> 1L, 0 );
+  }
+}
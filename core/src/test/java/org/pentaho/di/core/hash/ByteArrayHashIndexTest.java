@@ -18,6 +18,12 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowMeta;
@@ -27,19 +33,20 @@ public class ByteArrayHashIndexTest {
   @Test
   public void testArraySizeConstructor() {
     ByteArrayHashIndex obj = new ByteArrayHashIndex( new RowMeta(), 1 );
-    assertEquals( 1, obj.getSize() );
+    assertEquals( 1, obj.getCapacity() );
+    assertEquals( 0, obj.getSize() );
 
     obj = new ByteArrayHashIndex( new RowMeta(), 2 );
-    assertEquals( 2, obj.getSize() );
+    assertEquals( 2, obj.getCapacity() );
 
     obj = new ByteArrayHashIndex( new RowMeta(), 3 );
-    assertEquals( 4, obj.getSize() );
+    assertEquals( 4, obj.getCapacity() );
 
     obj = new ByteArrayHashIndex( new RowMeta(), 12 );
-    assertEquals( 16, obj.getSize() );
+    assertEquals( 16, obj.getCapacity() );
 
     obj = new ByteArrayHashIndex( new RowMeta(), 99 );
-    assertEquals( 128, obj.getSize() );
+    assertEquals( 128, obj.getCapacity() );
   }
 
   @Test
@@ -51,4 +58,69 @@ public class ByteArrayHashIndexTest {
     assertNotNull( obj.get( new byte[]{ 10 } ) );
     assertArrayEquals( new byte[]{ 53, 12 }, obj.get( new byte[]{ 10 } ) );
   }
+
+  @Test
+  public void testReplaceValue() throws KettleValueException {
+    ByteArrayHashIndex obj = new ByteArrayHashIndex( new RowMeta(), 10 );
+    obj.put( new byte[]{ 10 }, new byte[]{ 53, 12 } );
+    obj.put( new byte[]{ 10 }, new byte[]{ 54, 13 } );
+    assertArrayEquals( new byte[]{ 54, 13 }, obj.get( new byte[]{ 10 } ) );
+
+    obj.put( new byte[]{ 10 }, new byte[]{ 1, 2, 3 } );
+    assertArrayEquals( new byte[]{ 1, 2, 3 }, obj.get( new byte[]{ 10 } ) );
+    assertEquals( 1, obj.getSize() );
+  }
+
+  @Test
+  public void testGrowAndRemove() throws KettleValueException {
+    ByteArrayHashIndex obj = new ByteArrayHashIndex( new RowMeta(), 1 );
+    for ( int i = 0; i < 10000; i++ ) {
+      obj.put( key( i ), new byte[]{ (byte) i } );
+    }
+    assertEquals( 10000, obj.getSize() );
+    assertTrue( obj.getCapacity() > 10000 );
+
+    for ( int i = 0; i < 10000; i += 2 ) {
+      assertTrue( obj.remove( key( i ) ) );
+    }
+    assertFalse( obj.remove( key( 0 ) ) );
+    assertEquals( 5000, obj.getSize() );
+    assertEquals( 5000, obj.getKeys().size() );
+
+    for ( int i = 0; i < 10000; i++ ) {
+      if ( i % 2 == 0 ) {
+        assertNull( obj.get( key( i ) ) );
+      } else {
+        assertArrayEquals( new byte[]{ (byte) i }, obj.get( key( i ) ) );
+      }
+    }
+  }
+
+  @Test
+  public void testOffHeap() throws KettleValueException {
+    ByteArrayHashIndex obj = new ByteArrayHashIndex( new RowMeta(), 16, 0.5f, true );
+    assertTrue( obj.isOffHeap() );
+
+    List<byte[]> keys = new ArrayList<>();
+    for ( int i = 0; i < 1000; i++ ) {
+      keys.add( key( i ) );
+      obj.put( key( i ), key( i * 2 ) );
+    }
+    obj.put( new byte[0], new byte[]{ 1 } );
+
+    for ( int i = 0; i < 1000; i++ ) {
+      assertArrayEquals( key( i * 2 ), obj.get( keys.get( i ) ) );
+    }
+    assertArrayEquals( new byte[]{ 1 }, obj.get( new byte[0] ) );
+    assertNull( obj.get( key( 1000 ) ) );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testIllegalLoadFactor() {
+    new ByteArrayHashIndex( new RowMeta(), 16, 1.0f, false );
+  }
+
+  private static byte[] key( int i ) {
+    return new byte[]{ (byte) ( i >>> 24 ), (byte) ( i >>> 16 ), (byte) ( i >>> 8 ), (byte) i };
+  }
 }
@@ -101,4 +101,64 @@ public class LongHashIndexTest {
     assertThat( "Not empty index should return false.", index.isEmpty(), is( false ) );
   }
 
+  @Test
+  public void testZeroKey() throws KettleValueException {
+    LongHashIndex index = new LongHashIndex();
+    assertThat( index.get( 0L ), nullValue() );
+    index.put( 0L, 5L );
+    index.put( 0L, 6L );
+    assertThat( "Element has uncorrect value.", index.get( 0L ), equalTo( 6L ) );
+    assertThat( "Incorrect size of index.", index.getSize(), equalTo( 1 ) );
+  }
+
+  @Test
+  public void testReplaceValue() throws KettleValueException {
+    LongHashIndex index = new LongHashIndex();
+    index.put( 1L, 1L );
+    index.put( 1L, 2L );
+    assertThat( "Element has uncorrect value.", index.get( 1L ), equalTo( 2L ) );
+    assertThat( "Incorrect size of index.", index.getSize(), equalTo( 1 ) );
+  }
+
+  @Test
+  public void testResize() throws KettleValueException {
+    LongHashIndex index = new LongHashIndex( 2, 0.5f, false );
+    for ( long i = 1; i <= 10000; i++ ) {
+      index.put( i << 32, i );
+    }
+    assertThat( index.getSize(), equalTo( 10000 ) );
+    assertThat( index.getCapacity(), equalTo( 32768 ) );
+    for ( long i = 1; i <= 10000; i++ ) {
+      assertThat( "Element has uncorrect value.", index.get( i << 32 ), equalTo( i ) );
+    }
+    assertThat( index.get( 10001L << 32 ), nullValue() );
+  }
+
+  @Test
+  public void testOffHeap() throws KettleValueException {
+    LongHashIndex index = new LongHashIndex( 16, 0.78f, true );
+    assertThat( index.isOffHeap(), is( true ) );
+    for ( long i = -500; i <= 500; i++ ) {
+      index.put( i, -i );
+    }
+    assertThat( index.getSize(), equalTo( 1001 ) );
+    for ( long i = -500; i <= 500; i++ ) {
+      assertThat( "Element has uncorrect value.", index.get( i ), equalTo( -i ) );
+    }
+  }
+
+  @Test( expected = KettleValueException.class )
+  public void testNullValue() throws KettleValueException {
+    new LongHashIndex().put( 1L, null );
+  }
+
+  @Test
+  public void testGenerateHashCode() throws KettleValueException {
+    assertThat( LongHashIndex.generateHashCode( 123456789012L ), equalTo( Long.valueOf( 123456789012L ).hashCode() ) );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testIllegalLoadFactor() {
+    new LongHashIndex( 16, 0f, false );
+  }
 }
@@ -0,0 +1,70 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.hash;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PageAllocatorTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testDirect() {
+    PageAllocator allocator = PageAllocator.direct();
+    ByteBuffer page = allocator.allocate( 4096 );
+    assertEquals( 4096, allocator.getUsedBytes() );
+    allocator.free( page );
+    assertEquals( 0, allocator.getUsedBytes() );
+  }
+
+  @Test
+  public void testMappedFileReusesFreedPages() throws Exception {
+    PageAllocator allocator = PageAllocator.mappedFile( folder.getRoot() );
+    try {
+      ByteBuffer first = allocator.allocate( 4096 );
+      ByteBuffer second = allocator.allocate( 4096 );
+      ByteBuffer third = allocator.allocate( 8192 );
+      first.putLong( 0, 42L );
+      second.put( 4095, (byte) 7 );
+      assertEquals( 16384, allocator.getFileLength() );
+
+      // Neighbouring free pages are merged and reused for a larger page
+      allocator.free( first );
+      allocator.free( second );
+      assertEquals( 8192, allocator.getUsedBytes() );
+      ByteBuffer fourth = allocator.allocate( 8192 );
+      assertEquals( 16384, allocator.getFileLength() );
+      assertEquals( 0L, fourth.getLong( 0 ) );
+      assertEquals( 0, fourth.get( 4095 ) );
+
+      // The remainder of a free region is used for smaller pages
+      allocator.free( third );
+      allocator.allocate( 4096 );
+      allocator.allocate( 4096 );
+      assertEquals( 16384, allocator.getFileLength() );
+      allocator.allocate( 4096 );
+      assertEquals( 20480, allocator.getFileLength() );
+      assertEquals( 20480, allocator.getUsedBytes() );
+    } finally {
+      allocator.close();
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.hash;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SpillingByteArrayHashIndexTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static byte[] bytes( int i ) {
+    return ByteBuffer.allocate( 4 ).putInt( i ).array();
+  }
+
+  @Test
+  public void testInMemory() throws Exception {
+    try ( SpillingByteArrayHashIndex index =
+      new SpillingByteArrayHashIndex( Long.MAX_VALUE, folder.getRoot().getAbsolutePath() ) ) {
+      assertTrue( index.isEmpty() );
+      for ( int i = 0; i < 1000; i++ ) {
+        index.put( bytes( i ), bytes( -i ) );
+      }
+      index.put( bytes( 5 ), bytes( 55 ) );
+
+      assertEquals( 1000, index.getSize() );
+      assertEquals( 0, index.getNrSpilledPartitions() );
+      assertArrayEquals( bytes( 55 ), index.get( bytes( 5 ) ) );
+      assertArrayEquals( bytes( -999 ), index.get( bytes( 999 ) ) );
+      assertNull( index.get( bytes( 1000 ) ) );
+    }
+  }
+
+  @Test
+  public void testSpill() throws Exception {
+    File dir = folder.newFolder();
+    SpillingByteArrayHashIndex index = new SpillingByteArrayHashIndex( 64 * 1024, dir.getAbsolutePath() );
+    int nrKeys = 50000;
+    for ( int i = 0; i < nrKeys; i++ ) {
+      index.put( bytes( i ), bytes( i * 7 ) );
+    }
+
+    assertTrue( index.getNrSpilledPartitions() > 0 );
+    assertTrue( index.getMemoryUsage() <= 64 * 1024 );
+    assertTrue( dir.list().length > 0 );
+    assertEquals( nrKeys, index.getSize() );
+    for ( int i = 0; i < nrKeys; i++ ) {
+      assertArrayEquals( bytes( i * 7 ), index.get( bytes( i ) ) );
+    }
+    assertNull( index.get( bytes( -1 ) ) );
+
+    index.close();
+    assertEquals( 0, dir.list().length );
+  }
+
+  @Test
+  public void testParseSize() {
+    assertEquals( 512L << 20, SpillingByteArrayHashIndex.parseSize( "512m" ) );
+    assertEquals( 2L << 30, SpillingByteArrayHashIndex.parseSize( "2G" ) );
+    assertEquals( 4096L, SpillingByteArrayHashIndex.parseSize( "4096" ) );
+    assertEquals( -1L, SpillingByteArrayHashIndex.parseSize( "lots" ) );
+    assertTrue( SpillingByteArrayHashIndex.getMaxDirectMemory() > 0 );
+  }
+}
@@ -0,0 +1,136 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.row;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnarRowBatchTest {
+
+  private RowMetaInterface rowMeta;
+  private List<Object[]> rows;
+
+  @Before
+  public void setUp() {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "amount" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "day" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "country" ) );
+    rowMeta.addValueMeta( new ValueMetaBigNumber( "total" ) );
+
+    rows = new ArrayList<>();
+    rows.add( new Object[] { 1L, 1.5, new Date( 1000L ), "BE", new BigDecimal( "1.50" ) } );
+    rows.add( new Object[] { 2L, null, new Date( 2000L ), "NL", null } );
+    rows.add( new Object[] { null, 3.5, null, "BE", new BigDecimal( "3.50" ) } );
+    rows.add( new Object[] { 4L, 4.5, new Date( 4000L ), null, new BigDecimal( "4.50" ) } );
+  }
+
+  @Test
+  public void testColumns() throws KettleValueException {
+    ColumnarRowBatch batch = ColumnarRowBatch.fromRows( rowMeta, rows );
+
+    assertEquals( 4, batch.size() );
+    assertSame( rowMeta, batch.getRowMeta() );
+
+    ColumnarRowBatch.LongColumnVector ids = (ColumnarRowBatch.LongColumnVector) batch.getColumn( 0 );
+    assertEquals( 1L, ids.getValues()[0] );
+    assertEquals( 4L, ids.getValues()[3] );
+    assertTrue( ids.isNull( 2 ) );
+    assertFalse( ids.isNull( 3 ) );
+    assertTrue( ids.hasNulls() );
+
+    ColumnarRowBatch.DoubleColumnVector amounts = (ColumnarRowBatch.DoubleColumnVector) batch.getColumn( 1 );
+    assertEquals( 3.5, amounts.getValues()[2], 0.0 );
+    assertTrue( amounts.isNull( 1 ) );
+
+    ColumnarRowBatch.DateColumnVector days = (ColumnarRowBatch.DateColumnVector) batch.getColumn( 2 );
+    assertEquals( 2000L, days.getValues()[1] );
+
+    ColumnarRowBatch.StringColumnVector countries = (ColumnarRowBatch.StringColumnVector) batch.getColumn( 3 );
+    assertEquals( Arrays.asList( "BE", "NL" ), countries.getDictionary() );
+    assertEquals( countries.getCodes()[0], countries.getCodes()[2] );
+    assertTrue( countries.isNull( 3 ) );
+
+    assertTrue( batch.getColumn( 4 ) instanceof ColumnarRowBatch.ObjectColumnVector );
+  }
+
+  @Test
+  public void testRoundTrip() throws KettleValueException {
+    List<Object[]> result = ColumnarRowBatch.fromRows( rowMeta, rows ).toRows();
+
+    assertEquals( rows.size(), result.size() );
+    for ( int i = 0; i < rows.size(); i++ ) {
+      Object[] expected = rows.get( i );
+      Object[] actual = result.get( i );
+      assertTrue( actual.length >= rowMeta.size() );
+      assertArrayEquals( expected, Arrays.copyOf( actual, expected.length ) );
+    }
+  }
+
+  @Test
+  public void testNonNormalStorageIsKept() throws KettleValueException {
+    ValueMetaInterface lazy = new ValueMetaInteger( "lazy" );
+    lazy.setStorageType( ValueMetaInterface.STORAGE_TYPE_BINARY_STRING );
+    lazy.setStorageMetadata( new ValueMetaString( "lazy" ) );
+    RowMetaInterface lazyMeta = new RowMeta();
+    lazyMeta.addValueMeta( lazy );
+    byte[] bytes = "123".getBytes();
+
+    ColumnarRowBatch batch = ColumnarRowBatch.fromRows( lazyMeta, Arrays.<Object[]>asList( new Object[] { bytes } ) );
+
+    assertTrue( batch.getColumn( 0 ) instanceof ColumnarRowBatch.ObjectColumnVector );
+    assertSame( bytes, batch.getRow( 0 )[0] );
+  }
+
+  @Test
+  public void testShortRowsAreNullPadded() throws KettleValueException {
+    List<Object[]> shortRows = new ArrayList<>();
+    shortRows.add( new Object[] { 1L } );
+
+    ColumnarRowBatch batch = ColumnarRowBatch.fromRows( rowMeta, shortRows );
+
+    assertTrue( batch.getColumn( 1 ).isNull( 0 ) );
+    assertNull( batch.getRow( 0 )[3] );
+  }
+
+  @Test( expected = KettleValueException.class )
+  public void testWrongDataType() throws KettleValueException {
+    List<Object[]> wrongRows = new ArrayList<>();
+    wrongRows.add( new Object[] { "not a number" } );
+
+    RowMetaInterface integerMeta = new RowMeta();
+    integerMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    ColumnarRowBatch.fromRows( integerMeta, wrongRows );
+  }
+}
@@ -0,0 +1,190 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+
+package org.pentaho.di.core.row;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaBinary;
+import org.pentaho.di.core.row.value.ValueMetaBoolean;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaInternetAddress;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.junit.rules.RestorePDIEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SortKeyBuilderTest {
+  @ClassRule public static RestorePDIEnvironment env = new RestorePDIEnvironment();
+
+  private final Random random = new Random( 42 );
+
+  @Test
+  public void testIntegers() throws KettleValueException {
+    List<Object> values = values( Long.MIN_VALUE, -1L, 0L, 1L, Long.MAX_VALUE, null );
+    for ( int i = 0; i < 200; i++ ) {
+      values.add( random.nextLong() );
+    }
+    checkOrder( new ValueMetaInteger( "int" ), values );
+  }
+
+  @Test
+  public void testNumbers() throws KettleValueException {
+    List<Object> values = values( -Double.MAX_VALUE, -1.5, -0.0, 0.0, Double.MIN_VALUE, 1.5,
+      Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN, null );
+    for ( int i = 0; i < 200; i++ ) {
+      values.add( random.nextGaussian() * 1000 );
+    }
+    checkOrder( new ValueMetaNumber( "num" ), values );
+  }
+
+  @Test
+  public void testDates() throws KettleValueException {
+    List<Object> values = values( new Date( -1000L ), new Date( 0L ), new Date( 1000L ), null );
+    for ( int i = 0; i < 100; i++ ) {
+      values.add( new Date( random.nextLong() ) );
+    }
+    checkOrder( new ValueMetaDate( "date" ), values );
+  }
+
+  @Test
+  public void testBigNumbers() throws KettleValueException {
+    List<Object> values = values( new BigDecimal( "0" ), new BigDecimal( "0.00" ), new BigDecimal( "1" ),
+      new BigDecimal( "1.0" ), new BigDecimal( "10" ), new BigDecimal( "0.1" ), new BigDecimal( "0.12" ),
+      new BigDecimal( "0.123" ), new BigDecimal( "-0.12" ), new BigDecimal( "-0.123" ), new BigDecimal( "-10" ),
+      new BigDecimal( "1E+40" ), new BigDecimal( "-1E-40" ), null );
+    for ( int i = 0; i < 200; i++ ) {
+      values.add( BigDecimal.valueOf( random.nextLong(), random.nextInt( 20 ) - 10 ) );
+    }
+    checkOrder( new ValueMetaBigNumber( "big" ), values );
+  }
+
+  @Test
+  public void testStrings() throws KettleValueException {
+    List<Object> values = values( "a", "ab", "abc", "b", "B", "Ab", "aB", "a\u0000", "\u00e9t\u00e9", "ete",
+      "\uFFFF", "\u0800", " a ", "a ", null );
+    for ( int i = 0; i < 200; i++ ) {
+      values.add( randomString() );
+    }
+
+    ValueMetaInterface sensitive = new ValueMetaString( "str" );
+    checkOrder( sensitive, values );
+
+    ValueMetaInterface insensitive = new ValueMetaString( "str" );
+    insensitive.setCaseInsensitive( true );
+    checkOrder( insensitive, values );
+
+    ValueMetaInterface trimmed = new ValueMetaString( "str" );
+    trimmed.setIgnoreWhitespace( true );
+    checkOrder( trimmed, values );
+
+    ValueMetaInterface collated = new ValueMetaString( "str" );
+    collated.setCollatorDisabled( false );
+    collated.setCollatorStrength( 1 );
+    // the JDK collator itself is not consistent with its collation keys for the non-character U+FFFF
+    values.remove( "\uFFFF" );
+    checkOrder( collated, values );
+  }
+
+  @Test
+  public void testBooleansAndBinaries() throws KettleValueException {
+    checkOrder( new ValueMetaBoolean( "bool" ), values( true, false, null ) );
+    checkOrder( new ValueMetaBinary( "bin" ), values( new byte[] {}, new byte[] { 0 }, new byte[] { -1 },
+      new byte[] { 1 }, new byte[] { 1, 2 }, new byte[] { -128, 0 }, null ) );
+  }
+
+  @Test
+  public void testRows() throws KettleValueException {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    ValueMetaInterface amount = new ValueMetaInteger( "amount" );
+    amount.setSortedDescending( true );
+    rowMeta.addValueMeta( amount );
+    rowMeta.addValueMeta( new ValueMetaNumber( "ignored" ) );
+    int[] fieldnrs = { 0, 1 };
+    assertTrue( rowMeta.isSortKeySupported( fieldnrs ) );
+
+    List<Object[]> rows = new ArrayList<>();
+    for ( int i = 0; i < 300; i++ ) {
+      rows.add( new Object[] { random.nextInt( 10 ) == 0 ? null : "n" + random.nextInt( 5 ),
+        random.nextInt( 10 ) == 0 ? null : (long) random.nextInt( 5 ), random.nextDouble() } );
+    }
+    for ( Object[] row1 : rows ) {
+      for ( Object[] row2 : rows ) {
+        assertEquals( Integer.signum( rowMeta.compare( row1, row2, fieldnrs ) ),
+          Integer.signum( SortKeyBuilder.compare( rowMeta.getSortKey( row1, fieldnrs ), rowMeta.getSortKey( row2,
+            fieldnrs ) ) ) );
+      }
+    }
+  }
+
+  @Test
+  public void testUnsupportedTypes() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaInternetAddress( "ip" ) );
+
+    assertTrue( rowMeta.isSortKeySupported( new int[] { 0 } ) );
+    assertFalse( rowMeta.isSortKeySupported( new int[] { 0, 1 } ) );
+  }
+
+  private void checkOrder( ValueMetaInterface valueMeta, List<Object> values ) throws KettleValueException {
+    for ( boolean descending : new boolean[] { false, true } ) {
+      valueMeta.setSortedDescending( descending );
+      List<byte[]> keys = new ArrayList<>();
+      for ( Object value : values ) {
+        SortKeyBuilder builder = new SortKeyBuilder( 1 );
+        valueMeta.writeSortKey( builder, value );
+        keys.add( builder.toByteArray() );
+      }
+      for ( int i = 0; i < values.size(); i++ ) {
+        for ( int j = 0; j < values.size(); j++ ) {
+          int expected = Integer.signum( valueMeta.compare( values.get( i ), values.get( j ) ) );
+          int actual = Integer.signum( SortKeyBuilder.compare( keys.get( i ), keys.get( j ) ) );
+          assertEquals( valueMeta.toStringMeta() + " " + values.get( i ) + " <> " + values.get( j ), expected,
+            actual );
+        }
+      }
+    }
+  }
+
+  private String randomString() {
+    char[] chars = new char[random.nextInt( 6 )];
+    for ( int i = 0; i < chars.length; i++ ) {
+      chars[i] = random.nextInt( 4 ) == 0 ? (char) random.nextInt( 0x10000 ) : (char) ( 'A' + random.nextInt( 58 ) );
+    }
+    return new String( chars );
+  }
+
+  private static List<Object> values( Object... values ) {
+    List<Object> list = new ArrayList<>();
+    for ( Object value : values ) {
+      list.add( value );
+    }
+    return list;
+  }
+}
@@ -0,0 +1,310 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.compress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decompresses a stream made of blocks that can be decoded independently of each other, using all the cores. A
+ * background thread splits the compressed data into blocks and hands them to a shared pool of decoding threads, the
+ * decoded blocks are read in their original order.
+ * <p>
+ * When the boundaries between blocks can only be guessed, a block that doesn't decode can be joined with the next one
+ * and decoded again, see {@link #join(Block, Block)}. The stream has to be closed to stop the background thread.
+ */
+public abstract class ParallelBlockInputStream extends InputStream {
+
+  public static final String SIMPLE_NAME = ParallelBlockInputStream.class.getSimpleName();
+
+  /** The number of times a block is joined with the next one before its decoding error is passed on */
+  private static final int MAX_JOINS = 8;
+
+  private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+  private static final int NR_DECODERS = Runtime.getRuntime().availableProcessors();
+
+  private static final AtomicInteger threadNum = new AtomicInteger( 1 );
+
+  private static final ExecutorService decoders = Executors.newFixedThreadPool( NR_DECODERS, r -> {
+    Thread thread = Executors.defaultThreadFactory().newThread( r );
+    thread.setDaemon( true );
+    thread.setName( SIMPLE_NAME + " thread " + threadNum.getAndIncrement() );
+    return thread;
+  } );
+
+  /**
+   * A block of compressed data that can be decoded on its own.
+   */
+  public interface Block {
+    /**
+     * @return the decoded data of the block
+     * @throws IOException
+     *           if the data can't be decoded
+     */
+    byte[] decode() throws IOException;
+  }
+
+  /**
+   * A block that is being decoded, or the end of the blocks, or the failure reading them.
+   */
+  private static class Pending {
+    final Block block;
+    final Future<byte[]> result;
+    final IOException failure;
+
+    Pending( Block block, Future<byte[]> result, IOException failure ) {
+      this.block = block;
+      this.result = result;
+      this.failure = failure;
+    }
+  }
+
+  private static final Pending END_OF_BLOCKS = new Pending( null, null, null );
+
+  protected final InputStream source;
+  private final BlockingQueue<Pending> pending = new ArrayBlockingQueue<>( NR_DECODERS * 2 );
+  private Thread thread;
+
+  private volatile boolean closed;
+
+  private byte[] data = new byte[0];
+  private int position;
+  private boolean endOfStream;
+  private IOException failure;
+
+  protected ParallelBlockInputStream( InputStream source ) {
+    this.source = source;
+  }
+
+  /**
+   * Start splitting the source stream into blocks. Called by the subclasses once they are initialized.
+   *
+   * @param name
+   *          the name of the background thread
+   */
+  protected void start( String name ) {
+    thread = new Thread( this::split, name );
+    thread.setDaemon( true );
+    thread.start();
+  }
+
+  /**
+   * Read the next block from the source stream, on the background thread.
+   *
+   * @return the next block or null at the end of the stream
+   * @throws IOException
+   *           in case of a read error or if the stream has an invalid format
+   */
+  protected abstract Block nextBlock() throws IOException;
+
+  /**
+   * Join a block that could not be decoded with the block after it, for streams where a block boundary was a guess
+   * that turned out wrong.
+   *
+   * @return a block covering the data of both blocks or null if blocks can't be joined
+   */
+  protected Block join( Block block, Block next ) {
+    return null;
+  }
+
+  protected boolean isClosed() {
+    return closed;
+  }
+
+  private void split() {
+    try {
+      Block block = nextBlock();
+      while ( block != null && !closed ) {
+        Block toDecode = block;
+        if ( !offer( new Pending( block, decoders.submit( toDecode::decode ), null ) ) ) {
+          return;
+        }
+        block = nextBlock();
+      }
+      offer( END_OF_BLOCKS );
+    } catch ( IOException e ) {
+      offer( new Pending( null, null, e ) );
+    } catch ( RuntimeException e ) {
+      offer( new Pending( null, null, new IOException( e ) ) );
+    }
+  }
+
+  private boolean offer( Pending next ) {
+    try {
+      while ( !pending.offer( next, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS ) ) {
+        if ( closed ) {
+          if ( next.result != null ) {
+            next.result.cancel( false );
+          }
+          return false;
+        }
+      }
+      return true;
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private Pending take() throws IOException {
+    try {
+      Pending next = pending.take();
+      if ( next.failure != null ) {
+        throw next.failure;
+      }
+      return next;
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Interrupted while waiting for data" );
+    }
+  }
+
+  private byte[] decoded( Pending block ) throws IOException {
+    try {
+      return block.result.get();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Interrupted while decoding" );
+    } catch ( ExecutionException e ) {
+      if ( e.getCause() instanceof IOException ) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException( e.getCause() );
+    }
+  }
+
+  /**
+   * Decode a block that failed by joining it with the blocks after it, in case its end was not a real block boundary.
+   */
+  private byte[] decodeJoined( Pending failed, IOException error ) throws IOException {
+    Block joined = failed.block;
+    for ( int i = 0; i < MAX_JOINS; i++ ) {
+      Pending next = take();
+      if ( next == END_OF_BLOCKS ) {
+        endOfStream = true;
+        throw error;
+      }
+      next.result.cancel( false );
+      joined = join( joined, next.block );
+      if ( joined == null ) {
+        throw error;
+      }
+      try {
+        return joined.decode();
+      } catch ( IOException e ) {
+        // The next block boundary may not be a real one either
+      } catch ( RuntimeException e ) {
+        // Decoders can fail with runtime exceptions on data that is cut off at the wrong place
+      }
+    }
+    throw error;
+  }
+
+  /**
+   * Make sure there is data left in the current block, taking the next one if needed.
+   *
+   * @return false at the end of the stream
+   */
+  private boolean fill() throws IOException {
+    while ( position >= data.length ) {
+      if ( failure != null ) {
+        throw failure;
+      }
+      if ( endOfStream ) {
+        return false;
+      }
+      if ( closed ) {
+        throw new IOException( "Stream closed" );
+      }
+      try {
+        Pending next = take();
+        if ( next == END_OF_BLOCKS ) {
+          endOfStream = true;
+          return false;
+        }
+        try {
+          data = decoded( next );
+        } catch ( IOException e ) {
+          data = decodeJoined( next, e );
+        }
+        position = 0;
+      } catch ( IOException e ) {
+        failure = e;
+        throw e;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if ( !fill() ) {
+      return -1;
+    }
+    return data[position++] & 0xff;
+  }
+
+  @Override
+  public int read( byte[] b, int off, int len ) throws IOException {
+    if ( len == 0 ) {
+      return 0;
+    }
+    if ( !fill() ) {
+      return -1;
+    }
+    int n = Math.min( len, data.length - position );
+    System.arraycopy( data, position, b, off, n );
+    position += n;
+    return n;
+  }
+
+  @Override
+  public int available() {
+    return data.length - position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if ( closed ) {
+      return;
+    }
+    closed = true;
+    try {
+      if ( thread != null ) {
+        Pending next = pending.poll();
+        while ( next != null || thread.isAlive() ) {
+          if ( next != null && next.result != null ) {
+            next.result.cancel( false );
+          }
+          next = pending.poll( OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS );
+        }
+        thread.join();
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    } finally {
+      source.close();
+    }
+  }
+}
@@ -0,0 +1,212 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.compress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a stream on a background thread, a few chunks ahead of the reader. Wrapped around a decompressing stream, the
+ * decompression runs in parallel with the step that parses the data instead of on the thread of that step.
+ * <p>
+ * The stream has to be closed to stop the background thread.
+ */
+public class ReadAheadInputStream extends InputStream {
+
+  public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+  public static final int DEFAULT_CHUNKS_AHEAD = 4;
+
+  private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+  private static final Chunk END_OF_STREAM = new Chunk( new byte[0], null );
+
+  /**
+   * A chunk of data read ahead, or the failure reading it.
+   */
+  private static class Chunk {
+    final byte[] data;
+    final IOException failure;
+
+    Chunk( byte[] data, IOException failure ) {
+      this.data = data;
+      this.failure = failure;
+    }
+  }
+
+  private final InputStream source;
+  private final int chunkSize;
+  private final BlockingQueue<Chunk> chunks;
+  private final Thread thread;
+
+  private volatile boolean closed;
+
+  private Chunk chunk = new Chunk( new byte[0], null );
+  private int position;
+  private IOException failure;
+
+  public ReadAheadInputStream( InputStream source, String name ) {
+    this( source, name, DEFAULT_CHUNK_SIZE, DEFAULT_CHUNKS_AHEAD );
+  }
+
+  /**
+   * Start reading the source stream ahead.
+   *
+   * @param source
+   *          the stream to read, usually a decompressing stream
+   * @param name
+   *          the name of the background thread
+   * @param chunkSize
+   *          the number of bytes to read at a time
+   * @param chunksAhead
+   *          the number of chunks the background thread can read before the data is asked for
+   */
+  public ReadAheadInputStream( InputStream source, String name, int chunkSize, int chunksAhead ) {
+    this.source = source;
+    this.chunkSize = chunkSize;
+    chunks = new ArrayBlockingQueue<>( chunksAhead );
+
+    thread = new Thread( this::readAhead, name );
+    thread.setDaemon( true );
+    thread.start();
+  }
+
+  private void readAhead() {
+    try {
+      byte[] data = readChunk();
+      while ( data.length > 0 ) {
+        if ( !offer( new Chunk( data, null ) ) ) {
+          return;
+        }
+        data = readChunk();
+      }
+      offer( END_OF_STREAM );
+    } catch ( IOException e ) {
+      offer( new Chunk( null, e ) );
+    } catch ( RuntimeException e ) {
+      offer( new Chunk( null, new IOException( e ) ) );
+    }
+  }
+
+  private byte[] readChunk() throws IOException {
+    byte[] data = new byte[chunkSize];
+    int length = 0;
+    while ( length < chunkSize && !closed ) {
+      int n = source.read( data, length, chunkSize - length );
+      if ( n < 0 ) {
+        break;
+      }
+      length += n;
+    }
+    return length == chunkSize ? data : Arrays.copyOf( data, length );
+  }
+
+  /**
+   * @return false if the stream was closed while waiting for room in the queue
+   */
+  private boolean offer( Chunk next ) {
+    try {
+      while ( !chunks.offer( next, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS ) ) {
+        if ( closed ) {
+          return false;
+        }
+      }
+      return true;
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Make sure there is data left in the current chunk, taking the next one if needed.
+   *
+   * @return false at the end of the stream
+   */
+  private boolean fill() throws IOException {
+    while ( position >= chunk.data.length ) {
+      if ( failure != null ) {
+        throw failure;
+      }
+      if ( chunk == END_OF_STREAM ) {
+        return false;
+      }
+      if ( closed ) {
+        throw new IOException( "Stream closed" );
+      }
+      try {
+        chunk = chunks.take();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException( "Interrupted while waiting for data" );
+      }
+      if ( chunk.failure != null ) {
+        failure = chunk.failure;
+        chunk = END_OF_STREAM;
+        throw failure;
+      }
+      position = 0;
+    }
+    return true;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if ( !fill() ) {
+      return -1;
+    }
+    return chunk.data[position++] & 0xff;
+  }
+
+  @Override
+  public int read( byte[] b, int off, int len ) throws IOException {
+    if ( len == 0 ) {
+      return 0;
+    }
+    if ( !fill() ) {
+      return -1;
+    }
+    int n = Math.min( len, chunk.data.length - position );
+    System.arraycopy( chunk.data, position, b, off, n );
+    position += n;
+    return n;
+  }
+
+  @Override
+  public int available() {
+    return chunk.data.length - position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if ( closed ) {
+      return;
+    }
+    closed = true;
+    chunks.clear();
+    try {
+      // The source is only closed once the thread stopped using it
+      thread.join();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    } finally {
+      source.close();
+    }
+  }
+}
@@ -0,0 +1,207 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.compress;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compresses and writes data on a background thread. Wrapped around the output stream of a compression provider, the
+ * compression and the writing of the file run in parallel with the step that produces the data instead of on the
+ * thread of that step.
+ * <p>
+ * The data is collected in one buffer while the other buffer is written, so at most one buffer is waiting to be
+ * written at any time. Write errors are reported by the next write, flush or close. Closing the stream also returns its
+ * buffers to a shared pool, so streams that are opened and closed often don't allocate new buffers every time.
+ */
+public class WriteBehindCompressionOutputStream extends CompressionOutputStream {
+
+  public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+  public static final String SIMPLE_NAME = WriteBehindCompressionOutputStream.class.getSimpleName();
+
+  /** The number of buffers of the default size kept for reuse */
+  private static final int MAX_POOLED_BUFFERS = 2 * Runtime.getRuntime().availableProcessors();
+
+  private static final Queue<byte[]> bufferPool = new ConcurrentLinkedQueue<>();
+
+  private static final AtomicInteger threadNum = new AtomicInteger( 1 );
+
+  private static final ExecutorService writers = Executors.newCachedThreadPool( r -> {
+    Thread thread = Executors.defaultThreadFactory().newThread( r );
+    thread.setDaemon( true );
+    thread.setName( SIMPLE_NAME + " thread " + threadNum.getAndIncrement() );
+    return thread;
+  } );
+
+  private byte[] buffer;
+  private byte[] spare;
+  private int count;
+  private Future<?> pending;
+  private boolean closed;
+
+  public WriteBehindCompressionOutputStream( CompressionOutputStream out ) {
+    this( out, DEFAULT_BUFFER_SIZE );
+  }
+
+  /**
+   * @param out
+   *          the compressing stream to write to
+   * @param bufferSize
+   *          the number of bytes to collect before they are handed to the background thread
+   */
+  public WriteBehindCompressionOutputStream( CompressionOutputStream out, int bufferSize ) {
+    super( out, out.getCompressionProvider() );
+    buffer = allocate( bufferSize );
+    spare = allocate( bufferSize );
+  }
+
+  private static byte[] allocate( int size ) {
+    if ( size == DEFAULT_BUFFER_SIZE ) {
+      byte[] pooled = bufferPool.poll();
+      if ( pooled != null ) {
+        return pooled;
+      }
+    }
+    return new byte[size];
+  }
+
+  private static void release( byte[] buffer ) {
+    if ( buffer.length == DEFAULT_BUFFER_SIZE && bufferPool.size() < MAX_POOLED_BUFFERS ) {
+      bufferPool.offer( buffer );
+    }
+  }
+
+  /**
+   * Wait until the buffer that is being written is done.
+   */
+  private void await() throws IOException {
+    if ( pending == null ) {
+      return;
+    }
+    try {
+      pending.get();
+      pending = null;
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Interrupted while waiting for data to be written" );
+    } catch ( ExecutionException e ) {
+      pending = null;
+      if ( e.getCause() instanceof IOException ) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException( e.getCause() );
+    }
+  }
+
+  /**
+   * Hand the collected data to the background thread and continue in the other buffer.
+   */
+  private void handOff() throws IOException {
+    await();
+    byte[] full = buffer;
+    int length = count;
+    pending = writers.submit( () -> {
+      delegate.write( full, 0, length );
+      return null;
+    } );
+    buffer = spare;
+    spare = full;
+    count = 0;
+  }
+
+  private void ensureOpen() throws IOException {
+    if ( closed ) {
+      throw new IOException( "Stream closed" );
+    }
+  }
+
+  /**
+   * Write the data collected so far before the entry is added, so it ends up in the previous entry.
+   */
+  @Override
+  public void addEntry( String filename, String extension ) throws IOException {
+    flush();
+    ( (CompressionOutputStream) delegate ).addEntry( filename, extension );
+  }
+
+  @Override
+  public void write( int b ) throws IOException {
+    ensureOpen();
+    if ( count == buffer.length ) {
+      handOff();
+    }
+    buffer[count++] = (byte) b;
+  }
+
+  @Override
+  public void write( byte[] b ) throws IOException {
+    write( b, 0, b.length );
+  }
+
+  @Override
+  public void write( byte[] b, int off, int len ) throws IOException {
+    ensureOpen();
+    while ( len > 0 ) {
+      if ( count == buffer.length ) {
+        handOff();
+      }
+      int n = Math.min( len, buffer.length - count );
+      System.arraycopy( b, off, buffer, count, n );
+      count += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  /**
+   * Write all the data collected so far and flush the underlying stream.
+   */
+  @Override
+  public void flush() throws IOException {
+    ensureOpen();
+    if ( count > 0 ) {
+      handOff();
+    }
+    await();
+    delegate.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if ( closed ) {
+      return;
+    }
+    try {
+      flush();
+    } finally {
+      closed = true;
+      if ( pending == null || pending.isDone() ) {
+        // The buffers are only reused when the background thread is done with them
+        release( buffer );
+        release( spare );
+      }
+      buffer = null;
+      spare = null;
+      delegate.close();
+    }
+  }
+}
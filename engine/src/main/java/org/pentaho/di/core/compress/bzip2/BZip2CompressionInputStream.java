@@ -0,0 +1,39 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.compress.bzip2;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.pentaho.di.core.compress.CompressionInputStream;
+import org.pentaho.di.core.compress.CompressionProvider;
+
+public class BZip2CompressionInputStream extends CompressionInputStream {
+
+  public BZip2CompressionInputStream( InputStream in, CompressionProvider provider ) throws IOException {
+    super( getDelegate( in ), provider );
+  }
+
+  /**
+   * The blocks of the stream are decompressed in parallel.
+   */
+  protected static InputStream getDelegate( InputStream in ) throws IOException {
+    if ( in instanceof BlockBZip2InputStream ) {
+      return in;
+    }
+    return new BlockBZip2InputStream( new BufferedInputStream( in ), Thread.currentThread().getName() + " bzip2" );
+  }
+
+}
@@ -0,0 +1,58 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.compress.bzip2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.pentaho.di.core.compress.CompressionProvider;
+
+public class BZip2CompressionProvider implements CompressionProvider {
+
+  @Override
+  public BZip2CompressionInputStream createInputStream( InputStream in ) throws IOException {
+    return new BZip2CompressionInputStream( in, this );
+  }
+
+  @Override
+  public boolean supportsInput() {
+    return true;
+  }
+
+  @Override
+  public BZip2CompressionOutputStream createOutputStream( OutputStream out ) throws IOException {
+    return new BZip2CompressionOutputStream( out, this );
+  }
+
+  @Override
+  public boolean supportsOutput() {
+    return true;
+  }
+
+  @Override
+  public String getDescription() {
+    return "BZip2 compression";
+  }
+
+  @Override
+  public String getName() {
+    return "BZip2";
+  }
+
+  @Override
+  public String getDefaultExtension() {
+    return "bz2";
+  }
+}
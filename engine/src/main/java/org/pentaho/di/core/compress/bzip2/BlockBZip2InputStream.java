@@ -0,0 +1,274 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.compress.bzip2;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.pentaho.di.core.compress.ParallelBlockInputStream;
+
+/**
+ * Decompresses the blocks of a bzip2 stream in parallel. Every bzip2 block starts with a 48 bit marker and carries its
+ * own CRC, so the stream is split at the markers and every block is decoded as a bzip2 stream of its own.
+ * <p>
+ * The markers are not aligned to bytes and can, rarely, appear in the compressed data as well. A block cut off at
+ * such a false marker fails to decode and is joined with the next block. Concatenated streams, as written by pbzip2,
+ * are split at their end of stream markers too. The data from an end of stream marker up to the next marker is passed
+ * on as a block without data, so a block cut off at a false end of stream marker can be joined with it as well.
+ */
+public class BlockBZip2InputStream extends ParallelBlockInputStream {
+
+  private static final long BLOCK_MAGIC = 0x314159265359L;
+
+  private static final long END_OF_STREAM_MAGIC = 0x177245385090L;
+
+  private static final long MAGIC_MASK = 0xffffffffffffL;
+
+  private static final int MAGIC_BITS = 48;
+
+  private static final int CRC_BITS = 32;
+
+  /** The header of the stream a single block is decoded as, with the largest block size */
+  private static final byte[] STREAM_HEADER = { 'B', 'Z', 'h', '9' };
+
+  /** No valid block gets close to this size: the largest block is 900 kB before compression */
+  private static final int MAX_BLOCK_SIZE = 4 * 1024 * 1024;
+
+  private static final int READ_SIZE = 256 * 1024;
+
+  private byte[] buffer = new byte[READ_SIZE * 2];
+  private int bufferLength;
+  /** The position in the stream of the first byte in the buffer */
+  private long bufferStart;
+  /** The index in the buffer of the next byte to scan */
+  private int scanPosition;
+  /** The last 64 bits scanned */
+  private long window;
+  /** The position in the stream, in bits, of the block being scanned, -1 before the first marker */
+  private long blockStart = -1;
+  /** True if the block being scanned starts with an end of stream marker */
+  private boolean endOfStream;
+
+  /**
+   * @param in
+   *          the compressed stream, positioned at the start of a bzip2 stream
+   * @param name
+   *          the name of the background thread
+   * @throws IOException
+   *           if the stream doesn't start with a bzip2 header
+   */
+  public BlockBZip2InputStream( InputStream in, String name ) throws IOException {
+    super( in );
+    byte[] header = new byte[STREAM_HEADER.length];
+    int n = 0;
+    while ( n < header.length ) {
+      int r = in.read( header, n, header.length - n );
+      if ( r < 0 ) {
+        break;
+      }
+      n += r;
+    }
+    if ( n < header.length || header[0] != 'B' || header[1] != 'Z' || header[2] != 'h' || header[3] < '1'
+      || header[3] > '9' ) {
+      throw new IOException( "Stream is not in the BZip2 format" );
+    }
+    bufferStart = header.length;
+    start( name );
+  }
+
+  @Override
+  protected Block nextBlock() throws IOException {
+    while ( true ) {
+      if ( scanPosition >= bufferLength && !readMore() ) {
+        if ( blockStart >= 0 ) {
+          // A stream without an end marker, the decoder reports it
+          Block block = cut( blockStart, ( bufferStart + bufferLength ) * 8 );
+          blockStart = -1;
+          return block;
+        }
+        return null;
+      }
+
+      window = ( window << 8 ) | ( buffer[scanPosition++] & 0xff );
+      long scanned = ( bufferStart + scanPosition ) * 8;
+      for ( int shift = 7; shift >= 0; shift-- ) {
+        long bits = ( window >>> shift ) & MAGIC_MASK;
+        if ( bits == BLOCK_MAGIC || bits == END_OF_STREAM_MAGIC ) {
+          long markerStart = scanned - shift - MAGIC_BITS;
+          Block block = blockStart >= 0 ? cut( blockStart, markerStart ) : null;
+          blockStart = markerStart;
+          endOfStream = bits == END_OF_STREAM_MAGIC;
+          if ( block != null ) {
+            return block;
+          }
+        }
+      }
+
+      if ( blockStart >= 0 && scanned - blockStart > MAX_BLOCK_SIZE * 8L ) {
+        if ( !endOfStream ) {
+          throw new IOException( "No bzip2 block marker found in " + MAX_BLOCK_SIZE + " bytes" );
+        }
+        // Too long to be the rest of a block after a false marker: data after the end of the stream
+        blockStart = -1;
+      }
+    }
+  }
+
+  /**
+   * Read more compressed data, dropping the data before the block being scanned.
+   *
+   * @return false at the end of the stream
+   */
+  private boolean readMore() throws IOException {
+    if ( isClosed() ) {
+      return false;
+    }
+
+    // Keep the bytes a marker that ends in the next byte can start in
+    long keepFrom = bufferStart + Math.max( 0, scanPosition - MAGIC_BITS / 8 - 1 );
+    if ( blockStart >= 0 ) {
+      keepFrom = Math.min( keepFrom, blockStart / 8 );
+    }
+    int drop = (int) ( keepFrom - bufferStart );
+    if ( drop > 0 ) {
+      System.arraycopy( buffer, drop, buffer, 0, bufferLength - drop );
+      bufferLength -= drop;
+      scanPosition -= drop;
+      bufferStart = keepFrom;
+    }
+    if ( buffer.length - bufferLength < READ_SIZE ) {
+      byte[] newBuffer = new byte[buffer.length * 2];
+      System.arraycopy( buffer, 0, newBuffer, 0, bufferLength );
+      buffer = newBuffer;
+    }
+
+    int n = source.read( buffer, bufferLength, buffer.length - bufferLength );
+    if ( n < 0 ) {
+      return false;
+    }
+    bufferLength += n;
+    return true;
+  }
+
+  /**
+   * Copy the bits of a block out of the buffer.
+   */
+  private Piece cut( long start, long end ) {
+    int from = (int) ( start / 8 - bufferStart );
+    int to = (int) ( ( end + 7 ) / 8 - bufferStart );
+    byte[] bytes = new byte[to - from];
+    System.arraycopy( buffer, from, bytes, 0, bytes.length );
+    return new Piece( bytes, start, end, endOfStream );
+  }
+
+  @Override
+  protected Block join( Block block, Block next ) {
+    Piece piece = (Piece) block;
+    Piece nextPiece = (Piece) next;
+    if ( piece.end != nextPiece.start ) {
+      return null;
+    }
+    // The next piece starts with the byte the first one ends in
+    int prefix = (int) ( piece.end / 8 - piece.start / 8 );
+    byte[] bytes = new byte[prefix + nextPiece.bytes.length];
+    System.arraycopy( piece.bytes, 0, bytes, 0, prefix );
+    System.arraycopy( nextPiece.bytes, 0, bytes, prefix, nextPiece.bytes.length );
+    return new Piece( bytes, piece.start, nextPiece.end, piece.endOfStream );
+  }
+
+  /**
+   * The bits of one block, from its marker up to the next marker.
+   */
+  private static class Piece implements Block {
+    /** The bytes the bits are in, starting with the byte of the first bit */
+    final byte[] bytes;
+    /** The position of the first bit in the stream */
+    final long start;
+    /** The position in the stream after the last bit */
+    final long end;
+    /** True if the bits start with an end of stream marker and hold no data */
+    final boolean endOfStream;
+
+    Piece( byte[] bytes, long start, long end, boolean endOfStream ) {
+      this.bytes = bytes;
+      this.start = start;
+      this.end = end;
+      this.endOfStream = endOfStream;
+    }
+
+    @Override
+    public byte[] decode() throws IOException {
+      if ( endOfStream ) {
+        // The stream CRC, the padding and the header of the next stream
+        return new byte[0];
+      }
+      try ( InputStream in = new BZip2CompressorInputStream( new ByteArrayInputStream( toStream() ) ) ) {
+        return in.readAllBytes();
+      } catch ( RuntimeException e ) {
+        throw new IOException( "Unable to decode bzip2 block", e );
+      }
+    }
+
+    /**
+     * Wrap the block in a stream of its own: a stream header, the block, and the end of stream marker with the CRC of
+     * the block as the CRC of the stream.
+     */
+    byte[] toStream() throws IOException {
+      long length = end - start;
+      if ( length < MAGIC_BITS + CRC_BITS ) {
+        throw new IOException( "Truncated bzip2 block" );
+      }
+      int offset = (int) ( start % 8 );
+      long streamBits = STREAM_HEADER.length * 8L + length + MAGIC_BITS + CRC_BITS;
+      byte[] stream = new byte[(int) ( ( streamBits + 7 ) / 8 )];
+      System.arraycopy( STREAM_HEADER, 0, stream, 0, STREAM_HEADER.length );
+
+      int blockBytes = (int) ( ( length + 7 ) / 8 );
+      for ( int i = 0; i < blockBytes; i++ ) {
+        int next = i + 1 < bytes.length ? bytes[i + 1] & 0xff : 0;
+        stream[STREAM_HEADER.length + i] = (byte) ( ( bytes[i] & 0xff ) << offset | next >>> ( 8 - offset ) );
+      }
+      int partial = (int) ( length % 8 );
+      if ( partial != 0 ) {
+        stream[STREAM_HEADER.length + blockBytes - 1] &= (byte) ( 0xff << ( 8 - partial ) );
+      }
+
+      long position = STREAM_HEADER.length * 8L + length;
+      long crc = getBits( stream, STREAM_HEADER.length * 8L + MAGIC_BITS, CRC_BITS );
+      putBits( stream, position, END_OF_STREAM_MAGIC, MAGIC_BITS );
+      putBits( stream, position + MAGIC_BITS, crc, CRC_BITS );
+      return stream;
+    }
+
+    private static long getBits( byte[] data, long position, int count ) {
+      long value = 0;
+      for ( int i = 0; i < count; i++ ) {
+        long bit = position + i;
+        value = ( value << 1 ) | ( ( data[(int) ( bit / 8 )] >>> ( 7 - bit % 8 ) ) & 1 );
+      }
+      return value;
+    }
+
+    private static void putBits( byte[] data, long position, long value, int count ) {
+      for ( int i = 0; i < count; i++ ) {
+        long bit = position + i;
+        if ( ( ( value >>> ( count - 1 - i ) ) & 1 ) != 0 ) {
+          data[(int) ( bit / 8 )] |= (byte) ( 0x80 >>> ( bit % 8 ) );
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.compress.gzip;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import org.pentaho.di.core.compress.ParallelBlockInputStream;
+
+/**
+ * Decompresses the members of a block gzip file (BGZF, as written by bgzip and most tools for genomic data) in
+ * parallel. Every member of such a file has its compressed size in the "BC" extra field of its header, so the members
+ * can be handed to the decoding threads without inflating them first.
+ */
+public class BlockGZIPInputStream extends ParallelBlockInputStream {
+
+  private static final int HEADER_SIZE = 12;
+
+  private static final int FEXTRA = 4;
+
+  private static final int MAX_EXTRA_SIZE = 0xffff;
+
+  /**
+   * @param in
+   *          the compressed stream, positioned at the start of a block gzip file
+   * @param name
+   *          the name of the background thread
+   */
+  public BlockGZIPInputStream( InputStream in, String name ) {
+    super( in );
+    start( name );
+  }
+
+  /**
+   * See if the stream starts with a gzip member that has its size in the header, leaving the stream where it was.
+   *
+   * @param in
+   *          a stream that supports mark and reset
+   * @return true if the first member has a "BC" extra field
+   */
+  public static boolean isBlockGZIP( InputStream in ) throws IOException {
+    in.mark( HEADER_SIZE + MAX_EXTRA_SIZE );
+    try {
+      byte[] header = new byte[HEADER_SIZE];
+      if ( readFully( in, header, 0, HEADER_SIZE ) < HEADER_SIZE || !hasExtraField( header ) ) {
+        return false;
+      }
+      byte[] extra = new byte[extraLength( header )];
+      return readFully( in, extra, 0, extra.length ) == extra.length && blockSize( extra ) > 0;
+    } finally {
+      in.reset();
+    }
+  }
+
+  @Override
+  protected Block nextBlock() throws IOException {
+    byte[] header = new byte[HEADER_SIZE];
+    int n = readFully( source, header, 0, HEADER_SIZE );
+    if ( n == 0 ) {
+      return null;
+    }
+    if ( n < HEADER_SIZE ) {
+      throw new EOFException( "Unexpected end of block gzip stream" );
+    }
+    if ( !hasExtraField( header ) ) {
+      throw new IOException( "A gzip member in a block gzip stream has no block size" );
+    }
+
+    byte[] extra = new byte[extraLength( header )];
+    if ( readFully( source, extra, 0, extra.length ) < extra.length ) {
+      throw new EOFException( "Unexpected end of block gzip stream" );
+    }
+    int blockSize = blockSize( extra );
+    if ( blockSize < HEADER_SIZE + extra.length ) {
+      throw new IOException( "A gzip member in a block gzip stream has no valid block size" );
+    }
+
+    byte[] member = Arrays.copyOf( header, blockSize );
+    System.arraycopy( extra, 0, member, HEADER_SIZE, extra.length );
+    int offset = HEADER_SIZE + extra.length;
+    if ( readFully( source, member, offset, blockSize - offset ) < blockSize - offset ) {
+      throw new EOFException( "Unexpected end of block gzip stream" );
+    }
+    return () -> inflate( member );
+  }
+
+  private static byte[] inflate( byte[] member ) throws IOException {
+    // GZIPInputStream checks the CRC and size of the member
+    try ( GZIPInputStream gis = new GZIPInputStream( new ByteArrayInputStream( member ), member.length ) ) {
+      return gis.readAllBytes();
+    }
+  }
+
+  private static boolean hasExtraField( byte[] header ) {
+    return ( header[0] & 0xff ) == 0x1f && ( header[1] & 0xff ) == 0x8b && header[2] == 8
+      && ( header[3] & FEXTRA ) != 0;
+  }
+
+  private static int extraLength( byte[] header ) {
+    return ( header[10] & 0xff ) | ( header[11] & 0xff ) << 8;
+  }
+
+  /**
+   * @return the total size of the member from the "BC" subfield, or -1 if there is no such subfield
+   */
+  private static int blockSize( byte[] extra ) {
+    int i = 0;
+    while ( i + 4 <= extra.length ) {
+      int length = ( extra[i + 2] & 0xff ) | ( extra[i + 3] & 0xff ) << 8;
+      if ( extra[i] == 'B' && extra[i + 1] == 'C' && length == 2 && i + 6 <= extra.length ) {
+        return ( ( extra[i + 4] & 0xff ) | ( extra[i + 5] & 0xff ) << 8 ) + 1;
+      }
+      i += 4 + length;
+    }
+    return -1;
+  }
+
+  private static int readFully( InputStream in, byte[] b, int off, int len ) throws IOException {
+    int read = 0;
+    while ( read < len ) {
+      int n = in.read( b, off + read, len - read );
+      if ( n < 0 ) {
+        break;
+      }
+      read += n;
+    }
+    return read;
+  }
+}
@@ -13,12 +13,14 @@
 
 package org.pentaho.di.core.compress.gzip;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.zip.GZIPInputStream;
 
 import org.pentaho.di.core.compress.CompressionInputStream;
 import org.pentaho.di.core.compress.CompressionProvider;
+import org.pentaho.di.core.compress.ReadAheadInputStream;
 
 public class GZIPCompressionInputStream extends CompressionInputStream {
 
@@ -26,26 +28,21 @@ public class GZIPCompressionInputStream extends CompressionInputStream {
     super( getDelegate( in ), provider );
   }
 
-  protected static GZIPInputStream getDelegate( InputStream in ) throws IOException {
-    GZIPInputStream delegate = null;
+  /**
+   * Block gzip files are decompressed in parallel. Other gzip streams are decompressed by a background thread, so the
+   * inflating and the parsing of the data by the reading step overlap.
+   */
+  protected static InputStream getDelegate( InputStream in ) throws IOException {
     if ( in instanceof GZIPInputStream ) {
-      delegate = (GZIPInputStream) in;
-    } else {
-      delegate = new GZIPInputStream( in );
+      return in;
     }
-    return delegate;
-  }
-
-  @Override
-  public void close() throws IOException {
-    GZIPInputStream gis = (GZIPInputStream) delegate;
-    gis.close();
-  }
-
-  @Override
-  public int read() throws IOException {
-    GZIPInputStream gis = (GZIPInputStream) delegate;
-    return gis.read();
+    BufferedInputStream bis = new BufferedInputStream( in );
+    String name = Thread.currentThread().getName() + " gzip";
+    if ( BlockGZIPInputStream.isBlockGZIP( bis ) ) {
+      return new BlockGZIPInputStream( bis, name );
+    }
+    // The header is read here, so a stream that is not gzip fails right away
+    return new ReadAheadInputStream( new GZIPInputStream( bis ), name );
   }
 
 }
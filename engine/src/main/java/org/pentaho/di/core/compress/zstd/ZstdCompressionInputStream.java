@@ -0,0 +1,42 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.compress.zstd;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.pentaho.di.core.compress.CompressionInputStream;
+import org.pentaho.di.core.compress.CompressionProvider;
+import org.pentaho.di.core.compress.ReadAheadInputStream;
+
+public class ZstdCompressionInputStream extends CompressionInputStream {
+
+  public ZstdCompressionInputStream( InputStream in, CompressionProvider provider ) throws IOException {
+    super( getDelegate( in ), provider );
+  }
+
+  /**
+   * The stream is decompressed by a background thread, so the decompression and the parsing of the data by the reading
+   * step overlap.
+   */
+  protected static InputStream getDelegate( InputStream in ) throws IOException {
+    if ( in instanceof ZstdCompressorInputStream ) {
+      return in;
+    }
+    ZstdCompressionProvider.checkAvailable();
+    return new ReadAheadInputStream( new ZstdCompressorInputStream( in ), Thread.currentThread().getName() + " zstd" );
+  }
+
+}
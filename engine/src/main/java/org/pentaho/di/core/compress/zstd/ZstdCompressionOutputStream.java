@@ -0,0 +1,37 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.compress.zstd;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+import org.pentaho.di.core.compress.CompressionOutputStream;
+import org.pentaho.di.core.compress.CompressionProvider;
+
+public class ZstdCompressionOutputStream extends CompressionOutputStream {
+
+  public ZstdCompressionOutputStream( OutputStream out, CompressionProvider provider ) throws IOException {
+    super( getDelegate( out ), provider );
+  }
+
+  protected static OutputStream getDelegate( OutputStream out ) throws IOException {
+    if ( out instanceof ZstdCompressorOutputStream ) {
+      return out;
+    }
+    ZstdCompressionProvider.checkAvailable();
+    return new ZstdCompressorOutputStream( out );
+  }
+
+}
@@ -0,0 +1,69 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.compress.zstd;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.compress.compressors.zstandard.ZstdUtils;
+import org.pentaho.di.core.compress.CompressionProvider;
+
+/**
+ * Zstandard compression. The codec comes from the zstd-jni library, which the engine ships with: without it on the
+ * classpath the provider supports neither input nor output.
+ */
+public class ZstdCompressionProvider implements CompressionProvider {
+
+  @Override
+  public ZstdCompressionInputStream createInputStream( InputStream in ) throws IOException {
+    return new ZstdCompressionInputStream( in, this );
+  }
+
+  @Override
+  public boolean supportsInput() {
+    return ZstdUtils.isZstdCompressionAvailable();
+  }
+
+  @Override
+  public ZstdCompressionOutputStream createOutputStream( OutputStream out ) throws IOException {
+    return new ZstdCompressionOutputStream( out, this );
+  }
+
+  @Override
+  public boolean supportsOutput() {
+    return ZstdUtils.isZstdCompressionAvailable();
+  }
+
+  @Override
+  public String getDescription() {
+    return "Zstandard compression";
+  }
+
+  @Override
+  public String getName() {
+    return "Zstd";
+  }
+
+  @Override
+  public String getDefaultExtension() {
+    return "zst";
+  }
+
+  static void checkAvailable() throws IOException {
+    if ( !ZstdUtils.isZstdCompressionAvailable() ) {
+      throw new IOException( "Zstandard compression needs the zstd-jni library on the classpath" );
+    }
+  }
+}
@@ -261,6 +261,9 @@ public class TransMeta extends AbstractMeta
    */
   protected boolean usingThreadPriorityManagment;
 
+  /** Flag to indicate that hops with a single writer and reader use lock-free row sets. */
+  protected boolean usingLockFreeRowSets;
+
   /** The slave-step-copy/partition distribution. Only used for slave transformations in a clustering environment. */
   protected SlaveStepCopyPartitionDistribution slaveStepCopyPartitionDistribution;
 
@@ -686,6 +689,8 @@ public class TransMeta extends AbstractMeta
     //
     usingThreadPriorityManagment = true;
 
+    usingLockFreeRowSets = false;
+
     // The performance monitoring options
     //
     capturingStepPerformanceSnapShots = false;
@@ -2476,6 +2481,7 @@ public class TransMeta extends AbstractMeta
     retval.append( "    " ).append( XMLHandler.addTagValue( "feedback_shown", feedbackShown ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "feedback_size", feedbackSize ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "using_thread_priorities", usingThreadPriorityManagment ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "lock_free_rowsets", usingLockFreeRowSets ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "shared_objects_file", sharedObjectsFile ) );
 
     // Performance monitoring
@@ -3398,6 +3404,7 @@ public class TransMeta extends AbstractMeta
         feedbackSize = Const.toInt( XMLHandler.getTagValue( infonode, "feedback_size" ), Const.ROWS_UPDATE );
         usingThreadPriorityManagment =
             !"N".equalsIgnoreCase( XMLHandler.getTagValue( infonode, "using_thread_priorities" ) );
+        usingLockFreeRowSets = "Y".equalsIgnoreCase( XMLHandler.getTagValue( infonode, "lock_free_rowsets" ) );
 
         // Performance monitoring for steps...
         //
@@ -5600,6 +5607,25 @@ public class TransMeta extends AbstractMeta
     this.usingThreadPriorityManagment = usingThreadPriorityManagment;
   }
 
+  /**
+   * Checks whether hops with exactly one writing and one reading step copy use lock-free row sets.
+   *
+   * @return true if the transformation is using lock-free row sets, false otherwise
+   */
+  public boolean isUsingLockFreeRowSets() {
+    return usingLockFreeRowSets;
+  }
+
+  /**
+   * Sets whether hops with exactly one writing and one reading step copy use lock-free row sets.
+   *
+   * @param usingLockFreeRowSets
+   *          true if the transformation should use lock-free row sets, false otherwise
+   */
+  public void setUsingLockFreeRowSets( boolean usingLockFreeRowSets ) {
+    this.usingLockFreeRowSets = usingLockFreeRowSets;
+  }
+
   /**
    * Check a step to see if there are no multiple steps to read from. If so, check to see if the receiving rows are all
    * the same in layout. We only want to ONLY use the DBCache for this to prevent GUI stalls.
@@ -6389,6 +6415,7 @@ public class TransMeta extends AbstractMeta
         .append( this.isFeedbackShown() )
         .append( this.getFeedbackSize() )
         .append( this.isUsingThreadPriorityManagment() )
+        .append( this.isUsingLockFreeRowSets() )
         .append( this.getSharedObjectsFile() )
         .append( this.isCapturingStepPerformanceSnapShots() )
         .append( this.getStepPerformanceCapturingDelay() )
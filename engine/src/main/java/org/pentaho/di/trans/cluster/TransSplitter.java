@@ -337,6 +337,9 @@ public class TransSplitter {
     // Priority management
     transMeta.setUsingThreadPriorityManagment( originalTransformation.isUsingThreadPriorityManagment() );
 
+    // Lock-free row sets
+    transMeta.setUsingLockFreeRowSets( originalTransformation.isUsingLockFreeRowSets() );
+
     // Unique connections
     transMeta.setUsingUniqueConnections( originalTransformation.isUsingUniqueConnections() );
 
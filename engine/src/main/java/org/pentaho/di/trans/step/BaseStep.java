@@ -1243,6 +1243,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   @Override
   public void putRow( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
+    verifyOutputRowMeta( rowMeta );
+    getRowHandler().putRow( rowMeta, row );
+  }
+
+  private void verifyOutputRowMeta( RowMetaInterface rowMeta ) throws KettleStepException {
     if ( rowMeta != null ) {
       if ( !allowEmptyFieldNamesAndTypes ) {
         // check row meta for empty field name (BACKLOG-18004)
@@ -1256,7 +1261,159 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
         }
       }
     }
-    getRowHandler().putRow( rowMeta, row );
+  }
+
+  /**
+   * putRows is the batch equivalent of {@link #putRow(RowMetaInterface, Object[])}: the pause, stop and startup checks
+   * are done once per batch and the rows are handed over to the output row sets in as few operations as possible. Row
+   * listeners still see every row. When the rows need to be partitioned, distributed by a plugin or when a custom
+   * {@link RowHandler} is installed, the rows are simply passed one at a time to putRow().
+   *
+   * @param rowMeta The description of the rows
+   * @param rows    The rows to put to the destination rowset(s).
+   * @throws KettleStepException
+   */
+  @Override
+  public void putRows( RowMetaInterface rowMeta, List<Object[]> rows ) throws KettleStepException {
+    if ( rows.isEmpty() ) {
+      return;
+    }
+    if ( !isBatchTransferPossible() || repartitioning != StepPartitioningMeta.PARTITIONING_METHOD_NONE
+      || ( distributed && rowDistribution != null ) ) {
+      for ( Object[] row : rows ) {
+        putRow( rowMeta, row );
+      }
+      return;
+    }
+    verifyOutputRowMeta( rowMeta );
+    handlePutRows( rowMeta, rows );
+  }
+
+  private void handlePutRows( RowMetaInterface rowMeta, List<Object[]> rows ) throws KettleStepException {
+    // Are we pausing the step? If so, stall forever...
+    //
+    while ( paused.get() && !stopped.get() ) {
+      try {
+        Thread.sleep( 1 );
+      } catch ( InterruptedException e ) {
+        throw new KettleStepException( e );
+      }
+    }
+
+    if ( stopped.get() && !safeStopped.get() ) {
+      if ( log.isDebug() ) {
+        logDebug( BaseMessages.getString( PKG, "BaseStep.Log.StopPuttingARow" ) );
+      }
+      stopAll();
+      return;
+    }
+
+    if ( this.checkTransRunning == false ) {
+      while ( !trans.isRunning() && !stopped.get() ) {
+        try {
+          Thread.sleep( 1 );
+        } catch ( InterruptedException e ) {
+          // Ignore
+        }
+      }
+      this.checkTransRunning = true;
+    }
+
+    for ( Object[] row : rows ) {
+      for ( RowListener listener : rowListeners ) {
+        listener.rowWrittenEvent( rowMeta, row );
+      }
+      if ( terminator && terminator_rows != null ) {
+        try {
+          terminator_rows.add( rowMeta.cloneRow( row ) );
+        } catch ( KettleValueException e ) {
+          throw new KettleStepException( "Unable to clone row while adding rows to the terminator rows.", e );
+        }
+      }
+    }
+
+    outputRowSetsLock.readLock().lock();
+    try {
+      if ( outputRowSets.isEmpty() ) {
+        addLinesWritten( rows.size() );
+        return;
+      }
+
+      if ( distributed ) {
+        // Round robin, one batch at a time
+        //
+        RowSet rs = outputRowSets.get( currentOutputRowSetNr );
+        putRowsToRowSet( rs, rowMeta, rows );
+        addLinesWritten( rows.size() );
+
+        if ( outputRowSets.size() > 1 ) {
+          currentOutputRowSetNr++;
+          if ( currentOutputRowSetNr >= outputRowSets.size() ) {
+            currentOutputRowSetNr = 0;
+          }
+        }
+      } else {
+        // Copy the rows to all the other output rowsets
+        //
+        for ( int i = 1; i < outputRowSets.size(); i++ ) {
+          List<Object[]> copies = new ArrayList<>( rows.size() );
+          try {
+            for ( Object[] row : rows ) {
+              copies.add( rowMeta.cloneRow( row ) );
+            }
+          } catch ( KettleValueException e ) {
+            throw new KettleStepException( "Unable to clone row while copying rows to multiple target steps", e );
+          }
+          putRowsToRowSet( outputRowSets.get( i ), rowMeta, copies );
+          addLinesWritten( copies.size() );
+        }
+
+        putRowsToRowSet( outputRowSets.get( 0 ), rowMeta, rows );
+        addLinesWritten( rows.size() );
+      }
+    } finally {
+      outputRowSetsLock.readLock().unlock();
+    }
+  }
+
+  private void putRowsToRowSet( RowSet rs, RowMetaInterface rowMeta, List<Object[]> rows ) {
+    RowMetaInterface toBeSent;
+    RowMetaInterface metaFromRs = rs.getRowMeta();
+    if ( metaFromRs == null ) {
+      // RowSet is not initialised so far
+      toBeSent = rowMeta.clone();
+    } else {
+      // use the existing
+      toBeSent = metaFromRs;
+    }
+
+    int offset = 0;
+    while ( offset < rows.size() ) {
+      int added = rs.putRows( toBeSent, rows, offset );
+      if ( added == 0 && isStopped() && !safeStopped.get() ) {
+        return;
+      }
+      offset += added;
+    }
+  }
+
+  private void addLinesWritten( int nrRows ) {
+    synchronized ( statusCountersLock ) {
+      linesWritten += nrRows;
+    }
+  }
+
+  private void addLinesRead( int nrRows ) {
+    synchronized ( statusCountersLock ) {
+      linesRead += nrRows;
+    }
+  }
+
+  /**
+   * Batches can only bypass putRow() and getRow() when the default row handling is in place.
+   */
+  private boolean isBatchTransferPossible() {
+    return rowHandler == null || rowHandler instanceof DefaultRowHandler;
   }
 
   private void handlePutRow( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
@@ -1993,6 +2150,123 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     return row;
   }
 
+  /**
+   * getRows is the batch equivalent of {@link #getRow()}. It waits for the first row to arrive and then also returns the
+   * rows that are immediately available, up to max rows. Row listeners still see every row. When reading from more
+   * than one input row set or when a custom {@link RowHandler} is installed, a batch holds a single row read with
+   * getRow().
+   *
+   * @param max the maximum number of rows to return
+   * @return the next rows from the source step(s) or null if there is no more input.
+   * @throws KettleException
+   */
+  @Override
+  public List<Object[]> getRows( int max ) throws KettleException {
+    if ( !isBatchTransferPossible() || !hasSingleInputRowSet() ) {
+      Object[] row = getRow();
+      if ( row == null ) {
+        return null;
+      }
+      List<Object[]> rows = new ArrayList<>( 1 );
+      rows.add( row );
+      return rows;
+    }
+    return handleGetRows( Math.max( 1, max ) );
+  }
+
+  private boolean hasSingleInputRowSet() {
+    inputRowSetsLock.readLock().lock();
+    try {
+      return inputRowSets.size() == 1;
+    } finally {
+      inputRowSetsLock.readLock().unlock();
+    }
+  }
+
+  private List<Object[]> handleGetRows( int max ) throws KettleException {
+    // Are we pausing the step? If so, stall forever...
+    //
+    while ( paused.get() && !stopped.get() ) {
+      try {
+        Thread.sleep( 100 );
+      } catch ( InterruptedException e ) {
+        throw new KettleStepException( e );
+      }
+    }
+
+    if ( stopped.get() ) {
+      if ( log.isDebug() ) {
+        logDebug( BaseMessages.getString( PKG, "BaseStep.Log.StopLookingForMoreRows" ) );
+      }
+      stopAll();
+      return null;
+    }
+
+    waitUntilTransformationIsStarted();
+    openRemoteInputStepSocketsOnce();
+
+    RowSet inputRowSet;
+    List<Object[]> rows = null;
+
+    inputRowSetsLock.readLock().lock();
+    try {
+      if ( inputRowSets.isEmpty() ) {
+        return null;
+      }
+      inputRowSet = inputRowSets.get( 0 );
+
+      while ( !isStopped() ) {
+        rows = inputRowSet.getRows( max );
+        if ( !rows.isEmpty() ) {
+          break;
+        }
+        if ( inputRowSet.isDone() ) {
+          // Try once more, rows could have been added right before the row set was flagged as done
+          //
+          rows = inputRowSet.getRows( max );
+          if ( rows.isEmpty() ) {
+            // Must release the read lock before acquisition of the write lock to prevent deadlocks.
+            inputRowSetsLock.readLock().unlock();
+            inputRowSetsLock.writeLock().lock();
+            try {
+              inputRowSets.remove( inputRowSet );
+            } finally {
+              inputRowSetsLock.readLock().lock(); // downgrade to read lock
+              inputRowSetsLock.writeLock().unlock();
+            }
+            return null; // We're completely done.
+          }
+          break;
+        }
+      }
+    } finally {
+      inputRowSetsLock.readLock().unlock();
+    }
+
+    if ( rows == null || rows.isEmpty() ) {
+      return null;
+    }
+    addLinesRead( rows.size() );
+
+    if ( inputRowMeta == null || prevSteps.length > 1 ) {
+      inputRowMeta = inputRowSet.getRowMeta();
+    }
+
+    if ( trans.isSafeModeEnabled() ) {
+      transMeta.checkRowMixingStatically( stepMeta, null );
+    }
+
+    for ( Object[] row : rows ) {
+      for ( RowListener listener : rowListeners ) {
+        listener.rowReadEvent( inputRowMeta, row );
+      }
+    }
+
+    verifyRejectionRates();
+
+    return rows;
+  }
+
   /**
    * RowHandler controls how getRow/putRow are handled.
    * The default RowHandler will simply call
@@ -3728,6 +4002,20 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
       && ( lines % getTransMeta().getFeedbackSize() ) == 0;
   }
 
+  /**
+   * Check feedback after a batch of rows was processed.
+   *
+   * @param lines the number of lines after the batch
+   * @param batchSize the number of rows in the batch
+   * @return true if the feedback size was reached by one of the rows in the batch
+   */
+  protected boolean checkFeedback( long lines, int batchSize ) {
+    int feedbackSize = getTransMeta().getFeedbackSize();
+    return getTransMeta().isFeedbackShown()
+      && ( lines > 0 ) && ( feedbackSize > 0 )
+      && ( lines / feedbackSize ) > ( ( lines - batchSize ) / feedbackSize );
+  }
+
   /**
    * @return the rowMeta
    */
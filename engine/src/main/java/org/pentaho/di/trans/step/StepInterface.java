@@ -13,6 +13,7 @@
 
 package org.pentaho.di.trans.step;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -280,6 +281,39 @@ public interface StepInterface extends VariableSpace, HasLogChannelInterface {
    */
   Object[] getRow() throws KettleException;
 
+  /**
+   * Put a batch of rows on the destination rowsets. By default the rows are passed one at a time to
+   * {@link #putRow(RowMetaInterface, Object[])}.
+   *
+   * @param rowMeta
+   *          The description of the rows
+   * @param rows
+   *          The rows to send to the destinations steps
+   */
+  default void putRows( RowMetaInterface rowMeta, List<Object[]> rows ) throws KettleException {
+    for ( Object[] row : rows ) {
+      putRow( rowMeta, row );
+    }
+  }
+
+  /**
+   * Get a batch of rows from the source step(s). By default a batch holds the single row returned by
+   * {@link #getRow()}.
+   *
+   * @param max
+   *          The maximum number of rows to return
+   * @return the rows from the source step(s) or null if there is no more input.
+   */
+  default List<Object[]> getRows( int max ) throws KettleException {
+    Object[] row = getRow();
+    if ( row == null ) {
+      return null;
+    }
+    List<Object[]> rows = new ArrayList<>( 1 );
+    rows.add( row );
+    return rows;
+  }
+
   /**
    * Signal output done to destination steps
    */
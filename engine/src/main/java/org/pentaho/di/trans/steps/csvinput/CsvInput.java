@@ -48,6 +48,7 @@ import org.pentaho.di.trans.step.StepDataInterface;
 import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
+import org.pentaho.di.trans.steps.file.MappedFileReader;
 import org.pentaho.di.trans.steps.fileinput.text.BOMDetector;
 import org.pentaho.di.trans.steps.textfileinput.EncodingType;
 import org.pentaho.di.trans.steps.textfileinput.TextFileInput;
@@ -151,6 +152,12 @@ public class CsvInput extends BaseStep implements StepInterface {
           return false;
         }
       } else {
+        if ( data.rowStartFinder != null && data.endPosition < data.totalFileSize
+          && data.totalBytesRead > data.blockToRead ) {
+          // The next step copy starts reading in the middle of this row: the row start it found was a guess
+          throw new KettleException( BaseMessages.getString( PKG, "CsvInput.Exception.RowCrossesParallelBoundary",
+            Long.toString( data.endPosition ), Long.toString( RowStartFinder.DEFAULT_SPECULATION_LIMIT ) ) );
+        }
         putRow( data.outputRowMeta, outputRowData ); // copy row to possible alternate rowset(s).
         if ( checkFeedback( getLinesInput() ) ) {
           if ( log.isBasic() ) {
@@ -209,6 +216,19 @@ public class CsvInput extends BaseStep implements StepInterface {
       //
       data.startPosition = data.blockToRead * data.stepNumber;
       data.endPosition = data.startPosition + data.blockToRead;
+      if ( data.stepNumber == data.totalNumberOfSteps - 1 ) {
+        // The rounded block size shouldn't leave the last bytes of the files unread
+        data.endPosition = data.totalFileSize;
+      }
+
+      // With an enclosure the rows can contain line ends. The copies then agree on the row starts at the edges of their
+      // blocks up front and read exactly the rows in between.
+      //
+      if ( isFindingRowStarts() ) {
+        data.rowStartFinder = new RowStartFinder( data.delimiter[ 0 ], data.enclosure[ 0 ] );
+        data.endPosition = findRowStart( data.endPosition );
+      }
+      data.blockToRead = data.endPosition - data.startPosition;
 
       // Determine the start file number (0 or 2 in our sample) :
       // >0<,1000,>2000<,3000,4000
@@ -254,6 +274,37 @@ public class CsvInput extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * The row starts can be found for single byte encodings with a single byte delimiter and enclosure, when only
+   * enclosed fields can contain line ends.
+   */
+  private boolean isFindingRowStarts() {
+    return data.enclosure != null && data.enclosure.length == 1 && data.delimiter.length == 1
+      && data.encodingType.getLength() == 1 && !meta.isNewlinePossibleInFields();
+  }
+
+  /**
+   * @param position a position in all the files together
+   * @return the position of the first row that starts at or after it, in all the files together
+   */
+  private long findRowStart( long position ) throws KettleException, IOException {
+    long fileStart = 0L;
+    for ( int i = 0; i < data.fileSizes.size(); i++ ) {
+      long size = data.fileSizes.get( i );
+      if ( position < fileStart + size ) {
+        if ( position == fileStart ) {
+          return position;
+        }
+        FileObject fileObject = KettleVFS.getFileObject( data.filenames[ i ], getTransMeta() );
+        try ( FileInputStream fis = new FileInputStream( KettleVFS.getFilename( fileObject ) ) ) {
+          return fileStart + data.rowStartFinder.findRowStart( fis.getChannel(), position - fileStart, size );
+        }
+      }
+      fileStart += size;
+    }
+    return position;
+  }
+
   private void getFilenamesFromPreviousSteps() throws KettleException {
     List<String> filenames = new ArrayList<>();
     boolean firstRow = true;
@@ -341,21 +392,38 @@ public class CsvInput extends BaseStep implements StepInterface {
       data.fis = new FileInputStream( vfsFilename );
       if ( 0 != bomSize ) {
         data.fis.skip( bomSize );
+        if ( data.parallel && data.bytesToSkipInFirstFile <= 0 ) {
+          // The sizes of the blocks to read include the byte order marks
+          data.totalBytesRead += bomSize;
+        }
       }
 
       data.fc = data.fis.getChannel();
-      data.bb = ByteBuffer.allocateDirect( data.preferredBufferSize );
+      if ( meta.isMemoryMapped() ) {
+        data.mappedReader = new MappedFileReader( data.fc );
+      } else {
+        data.bb = ByteBuffer.allocateDirect( data.preferredBufferSize );
+      }
 
       // If we are running in parallel and we need to skip bytes in the first file, let's do so here.
       //
       if ( data.parallel ) {
-        if ( data.bytesToSkipInFirstFile > 0 ) {
+        if ( data.bytesToSkipInFirstFile > 0 && data.rowStartFinder != null ) {
+          // Start at the same row the previous step copy stops at
+          long rowStart =
+            data.rowStartFinder.findRowStart( data.fc, data.bytesToSkipInFirstFile, data.fc.size() );
+          data.fc.position( rowStart );
+          data.totalBytesRead = rowStart - data.bytesToSkipInFirstFile;
+          if ( log.isDetailed() ) {
+            logDetailed( BaseMessages.getString( PKG, "CsvInput.Log.ParallelRowStart", Long.toString( rowStart ) ) );
+          }
+        } else if ( data.bytesToSkipInFirstFile > 0 ) {
           data.fc.position( data.bytesToSkipInFirstFile );
 
           // evaluate whether there is a need to skip a row
           if ( needToSkipRow() ) {
             // PDI-16589 - when reading in parallel, the previous code would introduce additional rows and / or invalid data in the output.
-            // in parallel mode we don't support new lines inside field data so it's safe to fast forward until we find a new line.
+            // without an enclosure we don't support new lines inside field data so it's safe to fast forward until we find a new line.
             // when a newline is found we need to check for an additional new line character, while in unix systems it's just a single '\n',
             // on windows systems, it's a sequence of '\r' and '\n'. finally we set the start of the buffer to the end buffer position.
             while ( !data.newLineFound() ) {
@@ -664,6 +732,7 @@ public class CsvInput extends BaseStep implements StepInterface {
                   enclosureFound = false;
                   break;
                 }
+                data.skipToEnclosure();
                 keepGoing = !data.enclosureFound();
                 if ( !keepGoing ) {
                   // We found an enclosure character.
@@ -699,6 +768,7 @@ public class CsvInput extends BaseStep implements StepInterface {
               endOfBuffer = true;
               break;
             }
+            data.skipOrdinaryBytes();
           }
         }
 
@@ -802,6 +872,7 @@ public class CsvInput extends BaseStep implements StepInterface {
           if ( data.resizeBufferIfNeeded() ) {
             break; // nothing more to read.
           }
+          data.skipOrdinaryBytes();
 
           // TODO: if we're using quoting we might be dealing with a very dirty file with quoted newlines in trailing
           // fields. (imagine that)
@@ -943,6 +1014,19 @@ public class CsvInput extends BaseStep implements StepInterface {
         }
       }
 
+      // With a single byte encoding the parser can skip over the bytes without special meaning a word at a time
+      //
+      if ( data.encodingType.getLength() == 1 ) {
+        byte lineFeed = '\n';
+        byte carriageReturn = '\r';
+        if ( data.enclosure == null ) {
+          data.markerScanner = new MarkerScanner( data.delimiter[ 0 ], lineFeed, carriageReturn );
+        } else {
+          data.markerScanner = new MarkerScanner( data.delimiter[ 0 ], data.enclosure[ 0 ], lineFeed, carriageReturn );
+          data.enclosureScanner = new MarkerScanner( data.enclosure[ 0 ] );
+        }
+      }
+
       switch ( data.encodingType ) {
         case DOUBLE_BIG_ENDIAN:
           data.crLfMatcher = new MultiByteBigCrLfMatcher();
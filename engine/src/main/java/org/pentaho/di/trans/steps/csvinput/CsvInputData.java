@@ -23,6 +23,7 @@ import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
+import org.pentaho.di.trans.steps.file.MappedFileReader;
 import org.pentaho.di.trans.steps.textfileinput.EncodingType;
 
 /**
@@ -49,6 +50,8 @@ public class CsvInputData extends BaseStepData implements StepDataInterface {
   public int startFilenr;
   public byte[] binaryFilename;
   public FileInputStream fis;
+  /** Reads the file through memory mapped windows instead of the NIO buffer, null if not memory mapped */
+  public MappedFileReader mappedReader;
 
   public boolean isAddingRowNumber;
   public long rowNumber;
@@ -65,6 +68,8 @@ public class CsvInputData extends BaseStepData implements StepDataInterface {
   public long totalBytesRead;
 
   public boolean parallel;
+  /** Finds the row starts when reading in parallel, taking enclosed line ends into account, null if not possible */
+  public RowStartFinder rowStartFinder;
   public int filenameFieldIndex;
   public int rownumFieldIndex;
   public EncodingType encodingType;
@@ -72,6 +77,11 @@ public class CsvInputData extends BaseStepData implements StepDataInterface {
   public PatternMatcherInterface enclosureMatcher;
   public CrLfMatcherInterface crLfMatcher;
 
+  /** Stops at the bytes that could start a delimiter, an enclosure or a new line, null for multi-byte encodings */
+  public MarkerScanner markerScanner;
+  /** Stops at the bytes that could start an enclosure, null for multi-byte encodings or without enclosure */
+  public MarkerScanner enclosureScanner;
+
   public FieldsMapping fieldsMapping;
 
   /**
@@ -110,6 +120,10 @@ public class CsvInputData extends BaseStepData implements StepDataInterface {
   }
 
   private int readBufferFromFile() throws IOException {
+    if ( mappedReader != null ) {
+      return readMappedBufferFromFile();
+    }
+
     // See if the line is not longer than the buffer.
     // In that case we need to increase the size of the byte buffer.
     // Since this method doesn't get called every other character, I'm sure we can spend a bit of time here without
@@ -144,6 +158,24 @@ public class CsvInputData extends BaseStepData implements StepDataInterface {
     return n;
   }
 
+  /**
+   * Copy the next block of the file from the mapped file straight into the byte array, without the NIO buffer in
+   * between.
+   */
+  private int readMappedBufferFromFile() throws IOException {
+    if ( byteBuffer.length - endBuffer < preferredBufferSize ) {
+      byte[] newByteBuffer = new byte[endBuffer + preferredBufferSize];
+      System.arraycopy( byteBuffer, 0, newByteBuffer, 0, endBuffer );
+      byteBuffer = newByteBuffer;
+    }
+
+    int n = mappedReader.read( byteBuffer, endBuffer, byteBuffer.length - endBuffer );
+    if ( n >= 0 ) {
+      bufferSize = endBuffer + n;
+    }
+    return n;
+  }
+
   private void resizeByteBuffer( int newSize ) {
     ByteBuffer newBuffer = ByteBuffer.allocateDirect( newSize ); // Increase by 50%
     newBuffer.position( 0 );
@@ -258,6 +290,7 @@ public class CsvInputData extends BaseStepData implements StepDataInterface {
   }
 
   void closeFile() throws KettleException {
+    mappedReader = null;
     try {
       if ( fc != null ) {
         fc.close();
@@ -282,6 +315,30 @@ public class CsvInputData extends BaseStepData implements StepDataInterface {
     return endBuffer;
   }
 
+  /**
+   * Moves the endBuffer pointer over the bytes that can't start a delimiter, an enclosure or a new line. The pointer
+   * stops at the last byte read so far at the latest, reading more data is left to {@link #moveEndBufferPointer()}.
+   */
+  void skipOrdinaryBytes() {
+    skipTo( markerScanner );
+  }
+
+  /**
+   * Moves the endBuffer pointer inside an enclosed field to the next byte that could start an enclosure, or to the
+   * last byte read so far.
+   */
+  void skipToEnclosure() {
+    skipTo( enclosureScanner );
+  }
+
+  private void skipTo( MarkerScanner scanner ) {
+    if ( scanner != null && endBuffer < bufferSize - 1 ) {
+      int next = scanner.indexOf( byteBuffer, endBuffer, bufferSize - 1 );
+      totalBytesRead += next - endBuffer;
+      endBuffer = next;
+    }
+  }
+
   boolean isCarriageReturn() {
     return encodingType.isReturn( byteBuffer[endBuffer] );
   }
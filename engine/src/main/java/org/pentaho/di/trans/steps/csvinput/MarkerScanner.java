@@ -0,0 +1,85 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.csvinput;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Finds the next of a few marker bytes, like the first bytes of the delimiter and the enclosure and the new line
+ * characters, in a byte array. The bytes are compared 8 at a time: every byte of a long read from the array is matched
+ * against a marker with a couple of arithmetic operations (SWAR, SIMD within a register). The parser only has to look
+ * at the bytes this scanner stops at, it can skip all the others.
+ * <p>
+ * Only usable for single byte encodings, where a marker byte can't be part of another character.
+ */
+public class MarkerScanner {
+
+  private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle( long[].class, ByteOrder.LITTLE_ENDIAN );
+
+  private static final long ONES = 0x0101010101010101L;
+  private static final long HIGH_BITS = 0x8080808080808080L;
+
+  private final byte[] markers;
+
+  /** Every marker repeated in all 8 bytes of a long */
+  private final long[] patterns;
+
+  public MarkerScanner( byte... markers ) {
+    this.markers = markers.clone();
+    patterns = new long[ markers.length ];
+    for ( int i = 0; i < markers.length; i++ ) {
+      patterns[ i ] = ( markers[ i ] & 0xFFL ) * ONES;
+    }
+  }
+
+  /**
+   * @param buffer the bytes to scan
+   * @param from   the index to start at
+   * @param to     the index to stop at, exclusive
+   * @return the index of the first marker byte in [from, to[, or to if there is none
+   */
+  public int indexOf( byte[] buffer, int from, int to ) {
+    int index = from;
+    while ( index + Long.BYTES <= to ) {
+      long word = (long) LONGS.get( buffer, index );
+      long found = 0L;
+      for ( long pattern : patterns ) {
+        // The high bit is set in the bytes that are zero after the XOR, the lowest one is exact
+        long matched = word ^ pattern;
+        found |= ( matched - ONES ) & ~matched & HIGH_BITS;
+      }
+      if ( found != 0L ) {
+        return index + ( Long.numberOfTrailingZeros( found ) >>> 3 );
+      }
+      index += Long.BYTES;
+    }
+    for ( ; index < to; index++ ) {
+      if ( isMarker( buffer[ index ] ) ) {
+        return index;
+      }
+    }
+    return to;
+  }
+
+  private boolean isMarker( byte b ) {
+    for ( byte marker : markers ) {
+      if ( b == marker ) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
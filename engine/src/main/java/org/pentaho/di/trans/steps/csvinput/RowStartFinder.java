@@ -0,0 +1,189 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.csvinput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Finds where the rows start around the positions a CSV file is split at to read it in parallel, also when enclosed
+ * fields contain line ends.
+ * <p>
+ * Whether a line end at some position ends a row depends on everything in front of it: it could be inside an enclosed
+ * field. Rather than reading the file from the start, the bytes after the position are parsed speculatively for every
+ * state the parser could be in there: at the start of a field, in a field, in an enclosed field or right after an
+ * enclosure. As soon as all these parses end up in the same state, the real parse is in that state too, whatever the
+ * bytes in front of the position were, and the next line end is a real row end. Usually a few fields are enough for
+ * this, but in a file without enclosures the parse that started in an enclosed field never catches up. When the parses
+ * didn't agree within the speculation limit, the parse that started in a field that isn't enclosed is taken.
+ * <p>
+ * The step copy reading the part in front of the position parses it for real. It verifies the outcome: a row it reads
+ * can't cross the row start found here.
+ */
+public class RowStartFinder {
+
+  /** How far to parse speculatively before taking the parse that started in a field that isn't enclosed */
+  static final long DEFAULT_SPECULATION_LIMIT = 1024L * 1024;
+
+  private static final int BLOCK_SIZE = 64 * 1024;
+
+  private static final int FIELD_START = 0;
+  private static final int IN_FIELD = 1;
+  private static final int ENCLOSED = 2;
+  private static final int AFTER_ENCLOSURE = 3;
+
+  private static final int ORDINARY = 0;
+  private static final int DELIMITER = 1;
+  private static final int ENCLOSURE = 2;
+  private static final int NEW_LINE = 3;
+
+  /**
+   * The next state by state and type of byte, the way {@link CsvInput} reads a row: an enclosure only starts an
+   * enclosed field at the start of the field, a double enclosure in an enclosed field is escaped.
+   */
+  private static final int[][] TRANSITIONS = {
+    // ordinary, delimiter, enclosure, new line
+    { IN_FIELD, FIELD_START, ENCLOSED, FIELD_START }, // field start
+    { IN_FIELD, FIELD_START, IN_FIELD, FIELD_START }, // in field
+    { ENCLOSED, ENCLOSED, AFTER_ENCLOSURE, ENCLOSED }, // enclosed
+    { IN_FIELD, FIELD_START, ENCLOSED, FIELD_START }, // after enclosure
+  };
+
+  private final byte delimiter;
+  private final byte enclosure;
+  private final long speculationLimit;
+  private final MarkerScanner markerScanner;
+
+  private final int[] states = new int[ TRANSITIONS.length ];
+  /** Whether a parse just passed a line end outside of an enclosed field */
+  private final boolean[] afterNewLine = new boolean[ TRANSITIONS.length ];
+  /** The first row start every parse found, -1 if none yet */
+  private final long[] rowStarts = new long[ TRANSITIONS.length ];
+  private int nrParses;
+
+  public RowStartFinder( byte delimiter, byte enclosure ) {
+    this( delimiter, enclosure, DEFAULT_SPECULATION_LIMIT );
+  }
+
+  RowStartFinder( byte delimiter, byte enclosure, long speculationLimit ) {
+    this.delimiter = delimiter;
+    this.enclosure = enclosure;
+    this.speculationLimit = speculationLimit;
+    markerScanner = new MarkerScanner( delimiter, enclosure, (byte) '\r', (byte) '\n' );
+  }
+
+  /**
+   * Find the first row that starts at or after a position in a file. A row starts after one or more line ends that
+   * aren't enclosed. The position of the channel isn't changed.
+   *
+   * @param fc       the channel to read the file from
+   * @param position the position in the file, larger than 0
+   * @param fileSize the size of the file
+   * @return the position the row starts at, or the size of the file if no row starts after the position
+   * @throws IOException in case reading the file fails
+   */
+  public long findRowStart( FileChannel fc, long position, long fileSize ) throws IOException {
+    for ( int i = 0; i < states.length; i++ ) {
+      states[ i ] = i;
+      afterNewLine[ i ] = false;
+      rowStarts[ i ] = -1L;
+    }
+    nrParses = states.length;
+
+    // Start with the byte in front of the position, it might be the line end the row starts after
+    //
+    long limit = position + speculationLimit;
+    long blockPosition = position - 1;
+    ByteBuffer buffer = ByteBuffer.allocate( BLOCK_SIZE );
+    byte[] bytes = buffer.array();
+    while ( blockPosition < fileSize ) {
+      buffer.clear();
+      int length = fc.read( buffer, blockPosition );
+      if ( length <= 0 ) {
+        break;
+      }
+      int index = 0;
+      while ( index < length ) {
+        if ( nrParses > 1 && blockPosition + index >= limit ) {
+          takeParse( IN_FIELD );
+        }
+        if ( nrParses == 1 && rowStarts[ 0 ] >= 0 ) {
+          return rowStarts[ 0 ];
+        }
+        int next = markerScanner.indexOf( bytes, index, length );
+        if ( next > index ) {
+          // The transition of a stretch of ordinary bytes is the same as the one of a single ordinary byte
+          step( ORDINARY, blockPosition + index );
+          index = next;
+        } else {
+          step( getType( bytes[ index ] ), blockPosition + index );
+          index++;
+        }
+      }
+      blockPosition += length;
+    }
+    if ( nrParses > 1 ) {
+      takeParse( IN_FIELD );
+    }
+    return rowStarts[ 0 ] >= 0 ? rowStarts[ 0 ] : fileSize;
+  }
+
+  /**
+   * Continue with a single parse when the parses didn't agree.
+   */
+  private void takeParse( int parse ) {
+    states[ 0 ] = states[ parse ];
+    afterNewLine[ 0 ] = afterNewLine[ parse ];
+    rowStarts[ 0 ] = rowStarts[ parse ];
+    nrParses = 1;
+  }
+
+  private int getType( byte b ) {
+    if ( b == delimiter ) {
+      return DELIMITER;
+    }
+    if ( b == '\r' || b == '\n' ) {
+      return NEW_LINE;
+    }
+    return b == enclosure ? ENCLOSURE : ORDINARY;
+  }
+
+  /**
+   * Move all parses over a byte.
+   */
+  private void step( int type, long bytePosition ) {
+    for ( int i = 0; i < nrParses; i++ ) {
+      if ( afterNewLine[ i ] && type != NEW_LINE && rowStarts[ i ] < 0 ) {
+        rowStarts[ i ] = bytePosition;
+      }
+      afterNewLine[ i ] = type == NEW_LINE && states[ i ] != ENCLOSED;
+      states[ i ] = TRANSITIONS[ states[ i ] ][ type ];
+    }
+    if ( nrParses > 1 && isConverged() ) {
+      // Only a row start after this point is certain
+      nrParses = 1;
+      rowStarts[ 0 ] = -1L;
+    }
+  }
+
+  private boolean isConverged() {
+    for ( int i = 1; i < nrParses; i++ ) {
+      if ( states[ i ] != states[ 0 ] || afterNewLine[ i ] != afterNewLine[ 0 ] ) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -13,13 +13,18 @@
 
 package org.pentaho.di.trans.steps.databaselookup;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.row.value.ValueMetaBase;
 import org.pentaho.di.core.util.Utils;
+import org.pentaho.di.core.database.BatchLookup;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleDatabaseException;
@@ -69,8 +74,47 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
    */
   @VisibleForTesting
   synchronized Object[] lookupValues( RowMetaInterface inputRowMeta, Object[] row ) throws KettleException {
-    Object[] outputRow = RowDataUtil.resizeArray( row, data.outputRowMeta.size() );
+    Object[] lookupRow = getLookupRow( inputRowMeta, row );
+
+    Object[] add;
+    boolean cache_now = false;
+    boolean cacheHit = false;
+
+    // First, check if we looked up before
+    if ( meta.isCached() ) {
+      add = data.cache.getRowFromCache( data.lookupMeta, lookupRow );
+      if ( add != null ) {
+        cacheHit = true;
+      }
+    } else {
+      add = null;
+    }
+
+    if ( add == null ) {
+      if ( !( meta.isCached() && meta.isLoadingAllDataInCache() ) || data.hasDBCondition ) { // do not go to the
+        // database when all rows
+        // are in (exception LIKE
+        // operator)
+        if ( log.isRowLevel() ) {
+          logRowlevel( BaseMessages.getString( PKG, "DatabaseLookup.Log.AddedValuesToLookupRow1" )
+            + meta.getStreamKeyField1().length
+            + BaseMessages.getString( PKG, "DatabaseLookup.Log.AddedValuesToLookupRow2" )
+            + data.lookupMeta.getString( lookupRow ) );
+        }
+
+        data.db.setValuesLookup( data.lookupMeta, lookupRow );
+        add = data.db.getLookup( meta.isFailingOnMultipleResults() );
+        cache_now = true;
+      }
+    }
+
+    return addLookupResult( inputRowMeta, row, lookupRow, add, cacheHit, cache_now );
+  }
 
+  /**
+   * Builds the values to look up from an input row, converted to the data types of the table keys.
+   */
+  private Object[] getLookupRow( RowMetaInterface inputRowMeta, Object[] row ) throws KettleException {
     Object[] lookupRow = new Object[ data.lookupMeta.size() ];
     int lookupIndex = 0;
 
@@ -109,38 +153,20 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         lookupIndex++;
       }
     }
+    return lookupRow;
+  }
 
-    Object[] add;
-    boolean cache_now = false;
-    boolean cacheHit = false;
-
-    // First, check if we looked up before
-    if ( meta.isCached() ) {
-      add = data.cache.getRowFromCache( data.lookupMeta, lookupRow );
-      if ( add != null ) {
-        cacheHit = true;
-      }
-    } else {
-      add = null;
-    }
-
-    if ( add == null ) {
-      if ( !( meta.isCached() && meta.isLoadingAllDataInCache() ) || data.hasDBCondition ) { // do not go to the
-        // database when all rows
-        // are in (exception LIKE
-        // operator)
-        if ( log.isRowLevel() ) {
-          logRowlevel( BaseMessages.getString( PKG, "DatabaseLookup.Log.AddedValuesToLookupRow1" )
-            + meta.getStreamKeyField1().length
-            + BaseMessages.getString( PKG, "DatabaseLookup.Log.AddedValuesToLookupRow2" )
-            + data.lookupMeta.getString( lookupRow ) );
-        }
-
-        data.db.setValuesLookup( data.lookupMeta, lookupRow );
-        add = data.db.getLookup( meta.isFailingOnMultipleResults() );
-        cache_now = true;
-      }
-    }
+  /**
+   * Adds the looked up values, or the defaults when nothing was found, to the input row.
+   *
+   * @param add the values found or null if nothing was found
+   * @param cacheHit true if the values came from the cache, their data types are already correct
+   * @param cacheNow true if the result needs to be stored in the cache
+   * @return the output row or null if the row doesn't need to be passed on
+   */
+  private Object[] addLookupResult( RowMetaInterface inputRowMeta, Object[] row, Object[] lookupRow, Object[] add,
+                                    boolean cacheHit, boolean cacheNow ) throws KettleException {
+    Object[] outputRow = RowDataUtil.resizeArray( row, data.outputRowMeta.size() );
 
     if ( add == null ) { // nothing was found, unknown code: add default values
       if ( meta.isEatingRowOnLookupFailure() ) {
@@ -175,28 +201,14 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
       // In that case, we already know the data type is OK.
       if ( !cacheHit ) {
         incrementLines();
-        int[] types = meta.getReturnValueDefaultType();
-
-        // The assumption here is that the types are in the same order
-        // as the returned lookup row, but since we make the lookup row
-        // that should not be a problem.
-        //
-        for ( int i = 0; i < types.length; i++ ) {
-          ValueMetaInterface returned = data.db.getReturnRowMeta().getValueMeta( i );
-          ValueMetaInterface expected = data.returnMeta.getValueMeta( i );
-
-          if ( returned != null && types[ i ] > 0 && types[ i ] != returned.getType() ) {
-            // Set the type to the default return type
-            add[ i ] = expected.convertData( returned, add[ i ] );
-          }
-        }
+        convertReturnedValues( data.db.getReturnRowMeta(), 0, add );
       }
     }
 
     // Store in cache if we need to!
     // If we already loaded all data into the cache, storing more makes no sense.
     //
-    if ( meta.isCached() && cache_now && !meta.isLoadingAllDataInCache() && data.allEquals ) {
+    if ( meta.isCached() && cacheNow && !meta.isLoadingAllDataInCache() && data.allEquals ) {
       data.cache.storeRowInCache( meta, data.lookupMeta, lookupRow, add );
     }
 
@@ -207,6 +219,132 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
     return outputRow;
   }
 
+  /**
+   * Converts the values returned by the database to the return types of the step.
+   *
+   * @param returnedMeta the metadata of the row returned by the database
+   * @param offset the index of the first return value in the returned row
+   * @param add the return values, converted in place
+   */
+  private void convertReturnedValues( RowMetaInterface returnedMeta, int offset, Object[] add )
+    throws KettleException {
+    int[] types = meta.getReturnValueDefaultType();
+
+    // The assumption here is that the types are in the same order
+    // as the returned lookup row, but since we make the lookup row
+    // that should not be a problem.
+    //
+    for ( int i = 0; i < types.length; i++ ) {
+      ValueMetaInterface returned = returnedMeta.getValueMeta( offset + i );
+      ValueMetaInterface expected = data.returnMeta.getValueMeta( i );
+
+      if ( returned != null && types[ i ] > 0 && types[ i ] != returned.getType() ) {
+        // Set the type to the default return type
+        add[ i ] = expected.convertData( returned, add[ i ] );
+      }
+    }
+  }
+
+  /**
+   * Looks up all the rows waiting in the batch and passes them on in their original order. The cache is consulted
+   * first, the keys that are left are looked up with as few queries as possible: every distinct key is looked up only
+   * once.
+   */
+  private void lookupBatch() throws KettleException {
+    int nrRows = data.batchRows.size();
+    Object[][] cached = new Object[ nrRows ][];
+    Map<RowMetaAndData, Object[]> results = new HashMap<>();
+    List<Object[]> keys = new ArrayList<>();
+
+    for ( int i = 0; i < nrRows; i++ ) {
+      Object[] lookupRow = data.batchLookupRows.get( i );
+      if ( meta.isCached() ) {
+        cached[ i ] = data.cache.getRowFromCache( data.lookupMeta, lookupRow );
+        if ( cached[ i ] != null ) {
+          continue;
+        }
+      }
+      RowMetaAndData key = new RowMetaAndData( data.lookupMeta, lookupRow );
+      if ( !results.containsKey( key ) ) {
+        results.put( key, null );
+        // A null never equals anything, there is no need to ask the database
+        if ( !hasNullValue( lookupRow ) ) {
+          keys.add( lookupRow );
+        }
+      }
+    }
+
+    if ( !keys.isEmpty() ) {
+      if ( log.isRowLevel() ) {
+        logRowlevel( BaseMessages.getString( PKG, "DatabaseLookup.Log.LookingUpBatch", keys.size() ) );
+      }
+      Object[][] found = data.batchLookup.lookup( keys );
+      for ( int k = 0; k < found.length; k++ ) {
+        Object[] add = found[ k ];
+        if ( add != null ) {
+          incrementLines();
+          convertReturnedValues( data.batchLookup.getReturnRowMeta(), 0, add );
+          results.put( new RowMetaAndData( data.lookupMeta, keys.get( k ) ), add );
+          // Cache the values under the key asked for, the database can spell it differently
+          if ( meta.isCached() && !meta.isLoadingAllDataInCache() ) {
+            data.cache.storeRowInCache( meta, data.lookupMeta, keys.get( k ), add );
+          }
+        }
+      }
+    }
+
+    for ( int i = 0; i < nrRows; i++ ) {
+      Object[] row = data.batchRows.get( i );
+      Object[] lookupRow = data.batchLookupRows.get( i );
+      Object[] add = cached[ i ];
+      if ( add == null ) {
+        add = results.get( new RowMetaAndData( data.lookupMeta, lookupRow ) );
+      }
+      // Values found in the database were already converted and cached. Only cache the defaults of a miss, a key is
+      // only missing when the database didn't find it either
+      try {
+        Object[] outputRow = addLookupResult( getInputRowMeta(), row, lookupRow, add, true, add == null );
+        if ( outputRow != null ) {
+          putRow( data.outputRowMeta, outputRow );
+        }
+      } catch ( KettleException e ) {
+        if ( !getStepMeta().isDoingErrorHandling() ) {
+          throw e;
+        }
+        putError( getInputRowMeta(), row, 1, e.getMessage(), null, "DBLOOKUPD001" );
+      }
+    }
+
+    data.batchRows.clear();
+    data.batchLookupRows.clear();
+  }
+
+  private static boolean hasNullValue( Object[] lookupRow ) {
+    for ( Object value : lookupRow ) {
+      if ( value == null ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Batched lookups are used when asked for and when every key is compared with "=". Other conditions can't be
+   * matched with the rows found afterwards.
+   */
+  private int determineBatchSize() {
+    if ( meta.getBatchSize() <= 1 || ( meta.isCached() && meta.isLoadingAllDataInCache() ) ) {
+      return 0;
+    }
+    for ( int i = 0; i < data.conditions.length; i++ ) {
+      if ( data.conditions[ i ] != DatabaseLookupMeta.CONDITION_EQ || data.keynrs[ i ] < 0 ) {
+        logBasic( BaseMessages.getString( PKG, "DatabaseLookup.Log.BatchLookupNotPossible" ) );
+        return 0;
+      }
+    }
+    return BatchLookup.getMaxKeys( meta.getDatabaseMeta(), data.conditions.length, meta.getBatchSize() );
+  }
+
   @VisibleForTesting
   boolean isTimelessMask( String dateMask ) {
     if ( dateMask == null ) {
@@ -348,6 +486,9 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if ( r == null ) { // no more input to be expected...
+      if ( data.batchSize > 0 && !data.batchRows.isEmpty() && !processBatch() ) {
+        return false;
+      }
       setOutputDone();
       return false;
     }
@@ -405,7 +546,11 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
       }
 
       if ( meta.isCached() ) {
-        data.cache = DefaultCache.newCache( data, meta.getCacheSize() );
+        if ( isSharingCache() ) {
+          data.sharedCache = SharedLookupCache.acquire( getTrans(), getStepname() );
+        } else {
+          data.cache = DefaultCache.newCache( data, meta.getCacheSize() );
+        }
       }
 
       determineFieldsTypesQueryingDb();
@@ -416,12 +561,26 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
 
       initReturnMeta();
 
-      // If the user selected to load all data into the cache at startup, that's what we do now...
-      //
-      if ( meta.isCached() && meta.isLoadingAllDataInCache() ) {
+      if ( data.sharedCache != null ) {
+        // The first copy creates the cache, the others wait for it
+        data.cache = data.sharedCache.getCache( () -> createSharedCache() );
+      } else if ( meta.isCached() && meta.isLoadingAllDataInCache() ) {
+        // If the user selected to load all data into the cache at startup, that's what we do now...
+        //
         loadAllTableDataIntoTheCache();
       }
 
+      data.batchSize = determineBatchSize();
+      if ( data.batchSize > 0 ) {
+        data.batchRows = new ArrayList<>( data.batchSize );
+        data.batchLookupRows = new ArrayList<>( data.batchSize );
+        data.batchLookup = new BatchLookup( data.db, environmentSubstitute( meta.getSchemaName() ),
+          environmentSubstitute( meta.getTablename() ), meta.getTableKeyField(), meta.getReturnValueField(),
+          meta.getOrderByClause(), data.lookupMeta, data.batchSize, meta.isFailingOnMultipleResults() );
+        if ( log.isDetailed() ) {
+          logDetailed( BaseMessages.getString( PKG, "DatabaseLookup.Log.UsingBatchLookup", data.batchSize ) );
+        }
+      }
     }
 
     if ( log.isRowLevel() ) {
@@ -429,6 +588,23 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         + getInputRowMeta().getString( r ) );
     }
 
+    if ( data.batchSize > 0 ) {
+      try {
+        data.batchLookupRows.add( getLookupRow( getInputRowMeta(), r ) );
+      } catch ( KettleException e ) {
+        if ( !getStepMeta().isDoingErrorHandling() ) {
+          throw e;
+        }
+        putError( getInputRowMeta(), r, 1, e.getMessage(), null, "DBLOOKUPD001" );
+        return true;
+      }
+      data.batchRows.add( r );
+      if ( data.batchRows.size() >= data.batchSize ) {
+        return processBatch();
+      }
+      return true;
+    }
+
     try {
       // add new lookup values to the row
       Object[] outputRow = lookupValues( getInputRowMeta(), r );
@@ -461,6 +637,70 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
     return true;
   }
 
+  /**
+   * Looks up the rows waiting in the batch. When the batch as a whole fails, all its rows are sent to the error
+   * handling or the step stops.
+   *
+   * @return false if the step needs to stop
+   */
+  private boolean processBatch() throws KettleException {
+    try {
+      lookupBatch();
+    } catch ( KettleException e ) {
+      if ( getStepMeta().isDoingErrorHandling() ) {
+        for ( Object[] row : data.batchRows ) {
+          putError( getInputRowMeta(), row, 1, e.getMessage(), null, "DBLOOKUPD001" );
+        }
+        data.batchRows.clear();
+        data.batchLookupRows.clear();
+      } else {
+        logError( BaseMessages.getString( PKG, "DatabaseLookup.ERROR003.UnexpectedErrorDuringProcessing" )
+          + e.getMessage() );
+        setErrors( 1 );
+        stopAll();
+        setOutputDone(); // signal end to receiver(s)
+        return false;
+      }
+    }
+    if ( checkFeedback( getLinesRead() ) ) {
+      logBasic( "linenr " + getLinesRead() );
+    }
+    return true;
+  }
+
+  /**
+   * The copies can only share a cache when they look up in the same database and either all key conditions are "=" or
+   * the whole table is loaded. Otherwise nothing is stored in the cache while the rows come in.
+   */
+  private boolean isSharingCache() {
+    if ( !meta.isSharedCache() || getStepMeta().getCopies() <= 1 ) {
+      return false;
+    }
+    if ( meta.getDatabaseMeta().isPartitioned() || !( data.allEquals || meta.isLoadingAllDataInCache() ) ) {
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "DatabaseLookup.Log.SharedCacheNotPossible" ) );
+      }
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Creates the cache the copies of this step share, loading the whole table into it if needed.
+   */
+  private DatabaseLookupData.Cache createSharedCache() throws KettleException {
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "DatabaseLookup.Log.CreatingSharedCache" ) );
+    }
+    if ( !meta.isLoadingAllDataInCache() ) {
+      return new SegmentedLruCache( meta.getCacheSize() );
+    }
+    // Without rows to index, an empty cache that finds nothing will do
+    data.cache = new SegmentedLruCache( 0 );
+    loadAllTableDataIntoTheCache();
+    return data.cache;
+  }
+
   private void loadAllTableDataIntoTheCache() throws KettleException {
     DatabaseMeta dbMeta = meta.getDatabaseMeta();
 
@@ -643,12 +883,24 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
     data = (DatabaseLookupData) sdi;
 
     if ( data.db != null ) {
+      if ( data.batchLookup != null ) {
+        try {
+          data.batchLookup.close();
+        } catch ( KettleDatabaseException e ) {
+          logError( "Unable to close a batch lookup statement", e );
+        }
+        data.batchLookup = null;
+      }
       data.db.disconnect();
     }
 
     // Recover memory immediately, allow in-memory data to be garbage collected
     //
     data.cache = null;
+    if ( data.sharedCache != null ) {
+      data.sharedCache.release( getTrans() );
+      data.sharedCache = null;
+    }
 
     super.dispose( smi, sdi );
   }
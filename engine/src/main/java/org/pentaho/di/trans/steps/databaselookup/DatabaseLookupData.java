@@ -13,6 +13,9 @@
 
 package org.pentaho.di.trans.steps.databaselookup;
 
+import java.util.List;
+
+import org.pentaho.di.core.database.BatchLookup;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -25,6 +28,7 @@ import org.pentaho.di.trans.step.StepDataInterface;
  */
 public class DatabaseLookupData extends BaseStepData implements StepDataInterface {
   public Cache cache;
+  public SharedLookupCache sharedCache; // The cache shared with the other copies, null when not sharing
   public Database db;
 
   public Object[] nullif; // Not found: default values...
@@ -40,6 +44,11 @@ public class DatabaseLookupData extends BaseStepData implements StepDataInterfac
   public int[] conditions;
   public boolean hasDBCondition;
 
+  public int batchSize; // Number of keys per batched lookup query, 0 when looking up row by row
+  public List<Object[]> batchRows; // The input rows waiting for the batched lookup
+  public List<Object[]> batchLookupRows; // The lookup keys of these rows
+  public BatchLookup batchLookup; // Looks up the keys of the batch
+
   public DatabaseLookupData() {
     super();
 
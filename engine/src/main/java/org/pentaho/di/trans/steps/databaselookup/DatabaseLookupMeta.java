@@ -111,12 +111,18 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
   /** Flag to make it load all data into the cache at startup */
   private boolean loadingAllDataInCache;
 
+  /** Share one cache between the copies of the step */
+  private boolean sharedCache;
+
   /** Have the lookup fail if multiple results were found, renders the orderByClause useless */
   private boolean failingOnMultipleResults;
 
   /** Have the lookup eat the incoming row when nothing gets found */
   private boolean eatingRowOnLookupFailure;
 
+  /** Look up this many rows in a single query, 0 or 1 looks up row by row */
+  private int batchSize;
+
   public DatabaseLookupMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -151,6 +157,36 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
     this.cacheSize = cacheSize;
   }
 
+  /**
+   * @return true if the copies of the step share one cache
+   */
+  public boolean isSharedCache() {
+    return sharedCache;
+  }
+
+  /**
+   * @param sharedCache
+   *          true to share one cache between the copies of the step
+   */
+  public void setSharedCache( boolean sharedCache ) {
+    this.sharedCache = sharedCache;
+  }
+
+  /**
+   * @return the number of rows to look up in a single query, 0 or 1 to look up row by row
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * @param batchSize
+   *          the number of rows to look up in a single query, 0 or 1 to look up row by row
+   */
+  public void setBatchSize( int batchSize ) {
+    this.batchSize = batchSize;
+  }
+
   /**
    * @return Returns the database.
    */
@@ -386,8 +422,10 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
       databaseMeta = DatabaseMeta.findDatabase( databases, con );
       cached = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "cache" ) );
       loadingAllDataInCache = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "cache_load_all" ) );
+      sharedCache = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "cache_shared" ) );
       csize = XMLHandler.getTagValue( stepnode, "cache_size" );
       cacheSize = Const.toInt( csize, 0 );
+      batchSize = Const.toInt( XMLHandler.getTagValue( stepnode, "batch_size" ), 0 );
       schemaName = XMLHandler.getTagValue( stepnode, "lookup", "schema" );
       tablename = XMLHandler.getTagValue( stepnode, "lookup", "table" );
 
@@ -442,6 +480,8 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
     databaseMeta = null;
     cached = false;
     cacheSize = 0;
+    sharedCache = false;
+    batchSize = 0;
     schemaName = "";
     tablename = BaseMessages.getString( PKG, "DatabaseLookupMeta.Default.TableName" );
 
@@ -506,7 +546,9 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
         XMLHandler.addTagValue( "connection", databaseMeta == null ? "" : databaseMeta.getName() ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "cache", cached ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "cache_load_all", loadingAllDataInCache ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "cache_shared", sharedCache ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "cache_size", cacheSize ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "batch_size", batchSize ) );
     retval.append( "    <lookup>" ).append( Const.CR );
     retval.append( "      " ).append( XMLHandler.addTagValue( "schema", schemaName ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "table", tablename ) );
@@ -545,7 +587,9 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
 
       cached = rep.getStepAttributeBoolean( id_step, "cache" );
       loadingAllDataInCache = rep.getStepAttributeBoolean( id_step, "cache_load_all" );
+      sharedCache = rep.getStepAttributeBoolean( id_step, "cache_shared" );
       cacheSize = (int) rep.getStepAttributeInteger( id_step, "cache_size" );
+      batchSize = (int) rep.getStepAttributeInteger( id_step, "batch_size" );
       schemaName = rep.getStepAttributeString( id_step, "lookup_schema" );
       tablename = rep.getStepAttributeString( id_step, "lookup_table" );
       orderByClause = rep.getStepAttributeString( id_step, "lookup_orderby" );
@@ -583,7 +627,9 @@ public class DatabaseLookupMeta extends BaseStepMeta implements StepMetaInterfac
       rep.saveDatabaseMetaStepAttribute( id_transformation, id_step, "id_connection", databaseMeta );
       rep.saveStepAttribute( id_transformation, id_step, "cache", cached );
       rep.saveStepAttribute( id_transformation, id_step, "cache_load_all", loadingAllDataInCache );
+      rep.saveStepAttribute( id_transformation, id_step, "cache_shared", sharedCache );
       rep.saveStepAttribute( id_transformation, id_step, "cache_size", cacheSize );
+      rep.saveStepAttribute( id_transformation, id_step, "batch_size", batchSize );
       rep.saveStepAttribute( id_transformation, id_step, "lookup_schema", schemaName );
       rep.saveStepAttribute( id_transformation, id_step, "lookup_table", tablename );
       rep.saveStepAttribute( id_transformation, id_step, "lookup_orderby", orderByClause );
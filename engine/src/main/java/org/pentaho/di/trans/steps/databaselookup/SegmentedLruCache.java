@@ -0,0 +1,103 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.databaselookup;
+
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache for {@linkplain DatabaseLookup} that several step copies can use at the same time. The entries are spread
+ * over segments by the hash code of their keys. Every segment has its own lock and, once full, evicts the entry that
+ * was used least recently. Copies looking up different keys hardly ever wait for each other.
+ * <p>
+ * Like {@linkplain DefaultCache}, it only finds rows by keys that are equal, so it is used when all the key
+ * conditions are "=".
+ */
+public class SegmentedLruCache implements DatabaseLookupData.Cache {
+
+  /** The number of segments, a power of two */
+  static final int NR_SEGMENTS = 16;
+
+  private final Segment[] segments;
+
+  /**
+   * @param maxSize the maximum number of entries to keep, 0 for no limit
+   */
+  public SegmentedLruCache( int maxSize ) {
+    int segmentSize = maxSize > 0 ? ( maxSize + NR_SEGMENTS - 1 ) / NR_SEGMENTS : 0;
+    segments = new Segment[ NR_SEGMENTS ];
+    for ( int i = 0; i < NR_SEGMENTS; i++ ) {
+      segments[ i ] = new Segment( segmentSize );
+    }
+  }
+
+  @Override
+  public Object[] getRowFromCache( RowMetaInterface lookupMeta, Object[] lookupRow ) {
+    RowMetaAndData key = new RowMetaAndData( lookupMeta, lookupRow );
+    Segment segment = getSegment( key );
+    synchronized ( segment ) {
+      return segment.get( key );
+    }
+  }
+
+  @Override
+  public void storeRowInCache( DatabaseLookupMeta meta, RowMetaInterface lookupMeta, Object[] lookupRow,
+                               Object[] add ) {
+    RowMetaAndData key = new RowMetaAndData( lookupMeta, lookupRow );
+    Segment segment = getSegment( key );
+    synchronized ( segment ) {
+      // Another copy may have stored the same key in the meantime, keep the first value like DefaultCache does
+      segment.putIfAbsent( key, add );
+    }
+  }
+
+  /**
+   * @return the number of entries in the cache
+   */
+  public int size() {
+    int size = 0;
+    for ( Segment segment : segments ) {
+      synchronized ( segment ) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  private Segment getSegment( RowMetaAndData key ) {
+    int hash = key.hashCode();
+    hash ^= hash >>> 16;
+    return segments[ hash & ( NR_SEGMENTS - 1 ) ];
+  }
+
+  /**
+   * The entries of a segment in access order, the least recently used first.
+   */
+  private static class Segment extends LinkedHashMap<RowMetaAndData, Object[]> {
+    private final int maxSize;
+
+    Segment( int maxSize ) {
+      super( 16, 0.75f, true );
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry( Map.Entry<RowMetaAndData, Object[]> eldest ) {
+      return maxSize > 0 && size() > maxSize;
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.databaselookup;
+
+import java.util.Map;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.trans.Trans;
+
+/**
+ * The lookup cache that the copies of a Database lookup step share when "Share the cache between copies" is enabled.
+ * It is kept in the extension data of the transformation and created by the first copy that needs it. The other
+ * copies wait for it and use the same cache, so a table that is loaded completely is read and indexed only once.
+ * The cache is dropped when the last copy releases it.
+ */
+public class SharedLookupCache {
+
+  static final String EXTENSION_DATA_KEY_PREFIX = "DatabaseLookup.SharedCache.";
+
+  /**
+   * Creates the cache the copies share.
+   */
+  public interface Loader {
+    DatabaseLookupData.Cache load() throws KettleException;
+  }
+
+  private final String key;
+
+  /** The number of copies using this cache, guarded by the extension data map of the transformation */
+  private int users;
+
+  private DatabaseLookupData.Cache cache;
+
+  private SharedLookupCache( String key ) {
+    this.key = key;
+  }
+
+  /**
+   * Get the shared cache of a step, registering one more copy that uses it.
+   *
+   * @param trans    the transformation the step copies run in
+   * @param stepname the name of the step
+   * @return the shared cache, to be released in dispose()
+   */
+  public static SharedLookupCache acquire( Trans trans, String stepname ) {
+    Map<String, Object> extensionData = trans.getExtensionDataMap();
+    String key = EXTENSION_DATA_KEY_PREFIX + stepname;
+    synchronized ( extensionData ) {
+      SharedLookupCache shared = (SharedLookupCache) extensionData.get( key );
+      if ( shared == null ) {
+        shared = new SharedLookupCache( key );
+        extensionData.put( key, shared );
+      }
+      shared.users++;
+      return shared;
+    }
+  }
+
+  /**
+   * A copy stops using the cache. The last copy removes it from the transformation.
+   *
+   * @param trans the transformation the step copies run in
+   */
+  public void release( Trans trans ) {
+    Map<String, Object> extensionData = trans.getExtensionDataMap();
+    synchronized ( extensionData ) {
+      users--;
+      if ( users <= 0 && extensionData.get( key ) == this ) {
+        extensionData.remove( key );
+      }
+    }
+  }
+
+  /**
+   * Get the cache, creating it if no copy did so before. Copies asking for the cache while it is created wait for it.
+   * When creating the cache fails, the next copy that asks tries again.
+   *
+   * @param loader creates the cache
+   * @return the cache all the copies use
+   */
+  public synchronized DatabaseLookupData.Cache getCache( Loader loader ) throws KettleException {
+    if ( cache == null ) {
+      cache = loader.load();
+    }
+    return cache;
+  }
+
+  int getUsers() {
+    return users;
+  }
+}
@@ -28,11 +28,17 @@ import java.util.PriorityQueue;
  * This is a read-only array-based cache to be used in
  * {@linkplain org.pentaho.di.trans.steps.databaselookup.DatabaseLookup DatabaseLookup} when "Load All Data In Cache"
  * checkbox is selected. Internally, it uses some optimizations to reduce memory consumption.
+ * <p>
+ * The cache does not change once it is built, so the copies of a step sharing their cache can search it at the same
+ * time.
  *
  * @author Andrey Khayrutdinov
  */
 public class ReadAllCache implements DatabaseLookupData.Cache {
 
+  /** The number of rows from which the indexes are built in parallel */
+  static final int PARALLEL_INDEXING_THRESHOLD = 10000;
+
   private final DatabaseLookupData stepData;
 
   private final Object[][] keys;
@@ -64,7 +70,7 @@ public class ReadAllCache implements DatabaseLookupData.Cache {
 
     // it makes sense to apply restrictions in the specific order, namely, to use those, that can filter more elements
     // Index.restrictionComparator() uses heuristic "restriction power" of each index
-    PriorityQueue<Index> indexes = new PriorityQueue<>( conditions.length, Index.restrictionComparator() );
+    List<Index> indexes = new ArrayList<>( conditions.length );
     List<int[]> otherConditions = new ArrayList<>();
     for ( int i = 0, len = conditions.length; i < len; i++ ) {
       int condition = conditions[ i ];
@@ -98,13 +104,23 @@ public class ReadAllCache implements DatabaseLookupData.Cache {
       if ( index == null ) {
         otherConditions.add( new int[] { i, condition } );
       } else {
-        index.performIndexingOf( keys );
         indexes.add( index );
       }
     }
 
+    // the indexes are independent of each other, so large tables get all their columns sorted at the same time
+    if ( indexes.size() > 1 && rowsAmount >= PARALLEL_INDEXING_THRESHOLD ) {
+      indexes.parallelStream().forEach( index -> index.performIndexingOf( keys ) );
+    } else {
+      for ( Index index : indexes ) {
+        index.performIndexingOf( keys );
+      }
+    }
+
+    PriorityQueue<Index> ordered = new PriorityQueue<>( Math.max( 1, indexes.size() ), Index.restrictionComparator() );
+    ordered.addAll( indexes );
     return new Object[] {
-      indexes.toArray( new Index[ indexes.size() ] ),
+      ordered.toArray( new Index[ ordered.size() ] ),
       otherConditions.toArray( new int[ otherConditions.size() ][] )
     };
   }
@@ -13,6 +13,8 @@
 
 package org.pentaho.di.trans.steps.dimensionlookup;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
@@ -20,16 +22,19 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.database.SequenceBlock;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.exception.KettleValueException;
-import org.pentaho.di.core.hash.ByteArrayHashMap;
+import org.pentaho.di.core.hash.ByteArrayHashIndex;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
@@ -55,6 +60,9 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
   private static final int CREATION_METHOD_SEQUENCE = 2;
   private static final int CREATION_METHOD_TABLEMAX = 3;
 
+  /** The number of changes to apply in one batch in bulk update mode when there is no commit size */
+  private static final int DEFAULT_BULK_BATCH_SIZE = 1000;
+
   private int techKeyCreation;
 
   private DimensionLookupMeta meta;
@@ -102,6 +110,9 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
 
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if ( r == null ) { // no more input to be expected...
+      if ( data.currentVersions != null ) {
+        flushBatches(); // apply the last changes
+      }
 
       setOutputDone(); // signal end to receiver(s)
       return false;
@@ -181,7 +192,7 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
           }
 
           data.cache =
-            new ByteArrayHashMap( meta.getCacheSize() > 0 ? meta.getCacheSize() : 5000, data.cacheKeyRowMeta );
+            new ByteArrayHashIndex( data.cacheKeyRowMeta, meta.getCacheSize() > 0 ? meta.getCacheSize() : 5000 );
         }
       }
 
@@ -197,6 +208,17 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
 
       determineTechKeyCreation();
 
+      if ( getTechKeyCreation() == CREATION_METHOD_SEQUENCE && meta.getSequenceBlockSize() > 1 ) {
+        // Every value of the sequence reserves a block of technical keys, the sequence increments by the block size
+        //
+        data.sequenceBlock = new SequenceBlock( blockSize -> data.db.getNextSequenceValue(
+          data.realSchemaName, meta.getSequenceName(), meta.getKeyField() ), meta.getSequenceBlockSize(), true );
+      }
+
+      if ( meta.isUpdate() && meta.isBulkUpdate() && isBulkUpdatePossible() ) {
+        preloadCurrentVersions();
+      }
+
       data.notFoundTk = new Long( meta.getDatabaseMeta().getNotFoundTK( isAutoIncrement() ) );
       // if (meta.getKeyRename()!=null && meta.getKeyRename().length()>0) data.notFoundTk.setName(meta.getKeyRename());
 
@@ -215,7 +237,12 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
     }
 
     try {
-      Object[] outputRow = lookupValues( data.inputRowMeta, r ); // add new values to the row in rowset[0].
+      Object[] outputRow; // add new values to the row in rowset[0].
+      if ( data.currentVersions != null ) {
+        outputRow = lookupCurrentVersion( data.inputRowMeta, r );
+      } else {
+        outputRow = lookupValues( data.inputRowMeta, r );
+      }
       putRow( data.outputRowMeta, outputRow ); // copy row to output rowset(s);
 
       if ( checkFeedback( getLinesRead() ) ) {
@@ -321,18 +348,12 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
   }
 
   private synchronized Object[] lookupValues( RowMetaInterface rowMeta, Object[] row ) throws KettleException {
-    Object[] outputRow = new Object[ data.outputRowMeta.size() ];
-
     RowMetaInterface lookupRowMeta;
     Object[] lookupRow;
 
     Object[] returnRow = null;
 
-    Long technicalKey;
-    Long valueVersion;
     Date valueDate = null;
-    Date valueDateFrom = null;
-    Date valueDateTo = null;
 
     // Determine the lookup date ("now") if we have a field that carries said
     // date.
@@ -422,8 +443,9 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
 
       // Do the lookup and see if we can find anything in the database.
       // But before that, let's see if we can find anything in the cache
+      // (not in bulk update mode, where only the keys missing from the current versions get here)
       //
-      if ( meta.getCacheSize() >= 0 ) {
+      if ( meta.getCacheSize() >= 0 && data.currentVersions == null ) {
         returnRow = getFromCache( lookupRow, valueDate );
       }
 
@@ -437,12 +459,33 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
 
         incrementLinesInput();
 
-        if ( returnRow != null && meta.getCacheSize() >= 0 ) {
+        if ( returnRow != null && meta.getCacheSize() >= 0 && data.currentVersions == null ) {
           addToCache( lookupRow, returnRow );
         }
       }
     }
 
+    return processLookupResult( rowMeta, row, lookupRowMeta, lookupRow, returnRow, valueDate );
+  }
+
+  /**
+   * Handles the version of the dimension entry found for a row, or the lack of one: inserts or updates the dimension
+   * if needed and adds the technical key and the retrieved fields to the row.
+   *
+   * @param returnRow the version found, in the layout of data.returnRowMeta, or null if there is none
+   * @param valueDate the date to look up the version for
+   * @return the output row
+   */
+  private Object[] processLookupResult( RowMetaInterface rowMeta, Object[] row, RowMetaInterface lookupRowMeta,
+                                        Object[] lookupRow, Object[] returnRow, Date valueDate )
+    throws KettleException {
+    Object[] outputRow = new Object[ data.outputRowMeta.size() ];
+
+    Long technicalKey;
+    Long valueVersion;
+    Date valueDateFrom = null;
+    Date valueDateTo = null;
+
     // This next block of code handles the dimension key LOOKUP ONLY.
     // We handle this case where "update = false" first for performance reasons
     //
@@ -508,8 +551,7 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
             technicalKey = null; // Set to null to flag auto-increment usage
             break;
           case CREATION_METHOD_SEQUENCE:
-            technicalKey =
-              data.db.getNextSequenceValue( data.realSchemaName, meta.getSequenceName(), meta.getKeyField() );
+            technicalKey = getNextSequenceValue();
             if ( technicalKey != null && isRowLevel() ) {
               logRowlevel( BaseMessages.getString( PKG, "DimensionLookup.Log.FoundNextSequence" )
                 + technicalKey.toString() );
@@ -546,6 +588,9 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
          *
          * // put it in the cache... if (values!=null) { addToCache(lookupRow, values); } }
          */
+        if ( data.currentVersions != null ) {
+          storeCurrentVersion( lookupRow, row, technicalKey, valueVersion, valueDateFrom, valueDateTo );
+        }
 
         if ( isRowLevel() ) {
           logRowlevel( BaseMessages.getString( PKG, "DimensionLookup.Log.AddedDimensionEntry" )
@@ -683,7 +728,9 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
             incrementLinesUpdated();
 
             // We need to capture this change in the cache as well...
-            if ( meta.getCacheSize() >= 0 ) {
+            if ( data.currentVersions != null ) {
+              updateCurrentVersion( lookupRow, row, false );
+            } else if ( meta.getCacheSize() >= 0 ) {
               Object[] values =
                 getCacheValues( rowMeta, row, technicalKey, valueVersion, valueDateFrom, valueDateTo );
               addToCache( lookupRow, values );
@@ -714,8 +761,7 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
           } else if ( meta.getDatabaseMeta().supportsSequences()
             // Try to get the value by looking at a SEQUENCE (oracle mostly)
             && meta.getSequenceName() != null && meta.getSequenceName().length() > 0 ) {
-            technicalKey =
-              data.db.getNextSequenceValue( data.realSchemaName, meta.getSequenceName(), meta.getKeyField() );
+            technicalKey = getNextSequenceValue();
             if ( technicalKey != null && isRowLevel() ) {
               logRowlevel( BaseMessages.getString( PKG, "DimensionLookup.Log.FoundNextSequence2" )
                 + technicalKey.toString() );
@@ -734,7 +780,9 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
           incrementLinesOutput();
 
           // We need to capture this change in the cache as well...
-          if ( meta.getCacheSize() >= 0 ) {
+          if ( data.currentVersions != null ) {
+            storeCurrentVersion( lookupRow, row, technicalKey, valueNewVersion, valueDateFrom, valueDateTo );
+          } else if ( meta.getCacheSize() >= 0 ) {
             Object[] values =
               getCacheValues( rowMeta, row, technicalKey, valueNewVersion, valueDateFrom, valueDateTo );
             addToCache( lookupRow, values );
@@ -750,6 +798,10 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
            */
           dimPunchThrough( rowMeta, row );
           incrementLinesUpdated();
+
+          if ( data.currentVersions != null ) {
+            updateCurrentVersion( lookupRow, row, true );
+          }
         }
 
         returnRow = new Object[ data.returnRowMeta.size() ];
@@ -1162,7 +1214,7 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
 
     // INSERT NEW VALUE!
     data.db.setValues( data.insertRowMeta, insertRow, data.prepStatementInsert );
-    data.db.insertRow( data.prepStatementInsert );
+    executeOrBatch( data.prepStatementInsert );
 
     if ( isDebug() ) {
       logDebug( "Row inserted!" );
@@ -1247,7 +1299,7 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
       if ( isDebug() ) {
         logDebug( "Values set for update (" + data.updateRowMeta.size() + ")" );
       }
-      data.db.insertRow( data.prepStatementUpdate ); // do the actual update
+      executeOrBatch( data.prepStatementUpdate ); // do the actual update
       if ( isDebug() ) {
         logDebug( "Row updated!" );
       }
@@ -1356,7 +1408,7 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
     dimensionUpdateRow[ updateIndex++ ] = dimkey;
 
     data.db.setValues( data.dimensionUpdateRowMeta, dimensionUpdateRow, data.prepStatementDimensionUpdate );
-    data.db.insertRow( data.prepStatementDimensionUpdate );
+    executeOrBatch( data.prepStatementDimensionUpdate );
   }
 
   // This updates all versions of a dimension entry.
@@ -1446,7 +1498,337 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
     // UPDATE VALUES
     data.db.setValues( data.punchThroughRowMeta, punchThroughRow, data.prepStatementPunchThrough ); // set values for
     // update
-    data.db.insertRow( data.prepStatementPunchThrough ); // do the actual punch through update
+    executeOrBatch( data.prepStatementPunchThrough ); // do the actual punch through update
+  }
+
+  /**
+   * @return the next technical key from the reserved block, or straight from the sequence if there is no block
+   */
+  private Long getNextSequenceValue() throws KettleException {
+    if ( data.sequenceBlock != null ) {
+      return data.sequenceBlock.getNextValue();
+    }
+    return data.db.getNextSequenceValue( data.realSchemaName, meta.getSequenceName(), meta.getKeyField() );
+  }
+
+  /**
+   * A bulk update needs the technical key of a new version before inserting it and a database that executes batches.
+   * The copies of the step don't see each other's changes, so several copies need rows partitioned on the natural key.
+   */
+  private boolean isBulkUpdatePossible() {
+    if ( isAutoIncrement() || !meta.getDatabaseMeta().supportsBatchUpdates() ) {
+      logBasic( BaseMessages.getString( PKG, "DimensionLookup.Log.BulkUpdateNotPossible" ) );
+      return false;
+    }
+    if ( getStepMeta().getCopies() > 1 && !getStepMeta().isPartitioned() ) {
+      logBasic( BaseMessages.getString( PKG, "DimensionLookup.Log.BulkUpdateNeedsPartitioning" ) );
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Reads the current version of every natural key into a hash index, so the rows can be compared with it in memory.
+   * The fields are stored with the metadata of the input fields they are compared with. The index is keyed by the
+   * normalized natural key, see {@link #getCurrentVersionKey(Object[])}.
+   *
+   * @throws KettleException in case there is a database or conversion problem.
+   */
+  private void preloadCurrentVersions() throws KettleException {
+    DatabaseMeta databaseMeta = meta.getDatabaseMeta();
+
+    // tk, version, fields in the same order as the lookup query, from, to, natural keys
+    //
+    String sql =
+      "SELECT "
+        + databaseMeta.quoteField( meta.getKeyField() ) + ", "
+        + databaseMeta.quoteField( meta.getVersionField() );
+    RowMetaInterface valueRowMeta = new RowMeta();
+    valueRowMeta.addValueMeta( new ValueMetaInteger( meta.getKeyField() ) );
+    valueRowMeta.addValueMeta( new ValueMetaInteger( meta.getVersionField() ) );
+
+    data.currentVersionFieldIndexes = new int[ meta.getFieldLookup().length ];
+    for ( int i = 0; i < meta.getFieldLookup().length; i++ ) {
+      data.currentVersionFieldIndexes[ i ] = -1;
+      if ( !Utils.isEmpty( meta.getFieldLookup()[ i ] ) && data.fieldnrs[ i ] >= 0 ) {
+        sql += ", " + databaseMeta.quoteField( meta.getFieldLookup()[ i ] );
+        data.currentVersionFieldIndexes[ i ] = valueRowMeta.size();
+        valueRowMeta.addValueMeta( data.inputRowMeta.getValueMeta( data.fieldnrs[ i ] ).clone() );
+      }
+    }
+    sql += ", " + databaseMeta.quoteField( meta.getDateFrom() ) + ", " + databaseMeta.quoteField( meta.getDateTo() );
+    valueRowMeta.addValueMeta( new ValueMetaDate( meta.getDateFrom() ) );
+    valueRowMeta.addValueMeta( new ValueMetaDate( meta.getDateTo() ) );
+
+    for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
+      sql += ", " + databaseMeta.quoteField( meta.getKeyLookup()[ i ] );
+    }
+    sql += " FROM " + data.schemaTable;
+
+    logDetailed( "Pre-loading the current versions of the dimension with: " + Const.CR + sql + Const.CR );
+
+    data.currentVersionRowMeta = valueRowMeta;
+    data.currentVersions = new ByteArrayHashIndex( data.cacheKeyRowMeta );
+    data.currentVersionKeys = new ByteArrayHashIndex( data.cacheKeyRowMeta );
+    data.bulkBatchSize = meta.getCommitSize() > 0 ? meta.getCommitSize() : DEFAULT_BULK_BATCH_SIZE;
+
+    ResultSet resultSet = data.db.openQuery( databaseMeta.stripCR( sql ) );
+    try {
+      RowMetaInterface rowMeta = data.db.getReturnRowMeta();
+      int nrValues = valueRowMeta.size();
+      Object[] keyRow = new Object[ data.cacheKeyRowMeta.size() ];
+
+      Object[] row = data.db.getRow( resultSet );
+      while ( row != null && !isStopped() ) {
+        boolean nullKey = false;
+        for ( int i = 0; i < keyRow.length; i++ ) {
+          ValueMetaInterface keyMeta = data.cacheKeyRowMeta.getValueMeta( i );
+          keyRow[ i ] = keyMeta.convertData( rowMeta.getValueMeta( nrValues + i ), row[ nrValues + i ] );
+          nullKey |= keyRow[ i ] == null;
+        }
+
+        // Entries without a natural key, like the "unknown" entry, are never found by a lookup
+        //
+        if ( !nullKey ) {
+          Object[] values = new Object[ nrValues ];
+          values[ 0 ] = rowMeta.getInteger( row, 0 );
+          values[ 1 ] = rowMeta.getInteger( row, 1 );
+          for ( int i = 2; i < nrValues - 2; i++ ) {
+            values[ i ] = valueRowMeta.getValueMeta( i ).convertData( rowMeta.getValueMeta( i ), row[ i ] );
+          }
+          values[ nrValues - 2 ] = rowMeta.getDate( row, nrValues - 2 );
+          values[ nrValues - 1 ] = rowMeta.getDate( row, nrValues - 1 );
+
+          // Keep the version with the highest number. Keys that are only the same once normalized are left to the
+          // database to tell apart.
+          //
+          byte[] key = getCurrentVersionKey( keyRow );
+          byte[] previous = data.currentVersions.get( key );
+          if ( previous == null ) {
+            data.currentVersions.put( key, RowMeta.extractData( valueRowMeta, values ) );
+            storeSpelling( key, keyRow );
+          } else if ( previous.length > 0 && !isSameKey( key, keyRow ) ) {
+            data.currentVersions.put( key, LOOK_UP_IN_DATABASE );
+          } else if ( previous.length > 0 && compareVersions( values, RowMeta.getRow( valueRowMeta, previous ) ) > 0 ) {
+            data.currentVersions.put( key, RowMeta.extractData( valueRowMeta, values ) );
+          }
+        }
+        row = data.db.getRow( resultSet );
+      }
+    } finally {
+      data.db.closeQuery( resultSet );
+    }
+
+    logBasic( BaseMessages.getString(
+      PKG, "DimensionLookup.Log.PreloadedCurrentVersions", String.valueOf( data.currentVersions.getSize() ) ) );
+  }
+
+  private static int compareVersions( Object[] values1, Object[] values2 ) {
+    Long version1 = (Long) values1[ 1 ];
+    Long version2 = (Long) values2[ 1 ];
+    return Long.compare( version1 == null ? 0L : version1, version2 == null ? 0L : version2 );
+  }
+
+  /**
+   * Looks up the version of a row in the preloaded current versions. The changes to the dimension are batched. A key
+   * with a current version that isn't valid on the date of the row, for example because the row is older, is looked up
+   * in the database from then on.
+   */
+  private Object[] lookupCurrentVersion( RowMetaInterface rowMeta, Object[] row ) throws KettleException {
+    Date valueDate = determineDimensionUpdatedDate( row );
+
+    Object[] lookupRow = new Object[ data.lookupRowMeta.size() ];
+    for ( int i = 0; i < data.keynrs.length; i++ ) {
+      lookupRow[ i ] = row[ data.keynrs[ i ] ];
+    }
+    lookupRow[ data.keynrs.length ] = valueDate; // ? >= date_from
+    lookupRow[ data.keynrs.length + 1 ] = valueDate; // ? < date_to
+
+    Object[] outputRow;
+    Object[] returnRow = null;
+    byte[] key = getCurrentVersionKey( lookupRow );
+    byte[] value = key == null ? null : data.currentVersions.get( key );
+    if ( value != null && value.length > 0 && !isSameKey( key, lookupRow ) ) {
+      // Only the same once normalized: the database decides if it is the same key or a new one
+      //
+      data.currentVersions.put( key, LOOK_UP_IN_DATABASE );
+      value = LOOK_UP_IN_DATABASE;
+    }
+    if ( value != null && value.length > 0 ) {
+      returnRow = RowMeta.getRow( data.currentVersionRowMeta, value );
+      if ( !isValidOn( returnRow, valueDate ) ) {
+        data.currentVersions.put( key, LOOK_UP_IN_DATABASE );
+        returnRow = null;
+        value = LOOK_UP_IN_DATABASE;
+      }
+    }
+
+    if ( value != null && value.length == 0 ) {
+      // The database has to reflect the changes so far
+      //
+      flushBatches();
+      outputRow = lookupValues( rowMeta, row );
+    } else {
+      data.returnRowMeta = data.currentVersionRowMeta;
+      outputRow = processLookupResult( rowMeta, row, data.lookupRowMeta, lookupRow, returnRow, valueDate );
+    }
+
+    if ( data.nrBatched >= data.bulkBatchSize ) {
+      flushBatches();
+    }
+    return outputRow;
+  }
+
+  /** The value of a key in the current versions that needs to be looked up in the database */
+  private static final byte[] LOOK_UP_IN_DATABASE = new byte[ 0 ];
+
+  private boolean isValidOn( Object[] version, Date date ) throws KettleValueException {
+    Date dateFrom = data.currentVersionRowMeta.getDate( version, version.length - 2 );
+    Date dateTo = data.currentVersionRowMeta.getDate( version, version.length - 1 );
+    return ( dateFrom == null || !date.before( dateFrom ) ) && ( dateTo == null || date.before( dateTo ) );
+  }
+
+  /**
+   * Gets the key of a natural key in the current versions. Many databases compare strings without case or trailing
+   * spaces, so the strings are normalized that way: a key that isn't in the current versions is new to the database
+   * as well. A key that is found with another spelling is looked up in the database, see
+   * {@link #isSameKey(byte[], Object[])}.
+   *
+   * @return the serialized normalized natural key of a lookup row, null if part of the key is null
+   */
+  private byte[] getCurrentVersionKey( Object[] lookupRow ) throws KettleValueException {
+    Object[] keyRow = lookupRow;
+    for ( int i = 0; i < data.keynrs.length; i++ ) {
+      if ( data.cacheKeyRowMeta.getValueMeta( i ).isNull( lookupRow[ i ] ) ) {
+        return null;
+      }
+      if ( lookupRow[ i ] instanceof String ) {
+        String string = (String) lookupRow[ i ];
+        String normalized = Const.rtrim( string ).toLowerCase( Locale.ROOT );
+        if ( !normalized.equals( string ) ) {
+          if ( keyRow == lookupRow ) {
+            keyRow = lookupRow.clone();
+          }
+          keyRow[ i ] = normalized;
+        }
+      }
+    }
+    return RowMeta.extractData( data.cacheKeyRowMeta, keyRow );
+  }
+
+  /**
+   * Remembers the spelling of a natural key that isn't normalized already.
+   */
+  private void storeSpelling( byte[] key, Object[] keyRow ) throws KettleValueException {
+    byte[] spelling = RowMeta.extractData( data.cacheKeyRowMeta, keyRow );
+    if ( !Arrays.equals( spelling, key ) ) {
+      data.currentVersionKeys.put( key, spelling );
+    }
+  }
+
+  /**
+   * @return true if the natural key of a row is spelled exactly like the one stored under the normalized key
+   */
+  private boolean isSameKey( byte[] key, Object[] keyRow ) throws KettleValueException {
+    byte[] spelling = data.currentVersionKeys.get( key );
+    return Arrays.equals( RowMeta.extractData( data.cacheKeyRowMeta, keyRow ), spelling == null ? key : spelling );
+  }
+
+  /**
+   * Stores a new version of a natural key as its current version, unless the key is looked up in the database.
+   */
+  private void storeCurrentVersion( Object[] lookupRow, Object[] row, Long technicalKey, Long version,
+                                    Date dateFrom, Date dateTo ) throws KettleValueException {
+    byte[] key = getCurrentVersionKey( lookupRow );
+    if ( key == null || isLookedUpInDatabase( key ) ) {
+      return;
+    }
+    Object[] values = new Object[ data.currentVersionRowMeta.size() ];
+    values[ 0 ] = technicalKey;
+    values[ 1 ] = version;
+    for ( int i = 0; i < data.currentVersionFieldIndexes.length; i++ ) {
+      if ( data.currentVersionFieldIndexes[ i ] >= 0 ) {
+        values[ data.currentVersionFieldIndexes[ i ] ] = row[ data.fieldnrs[ i ] ];
+      }
+    }
+    values[ values.length - 2 ] = dateFrom;
+    values[ values.length - 1 ] = dateTo;
+    data.currentVersions.put( key, RowMeta.extractData( data.currentVersionRowMeta, values ) );
+    storeSpelling( key, lookupRow );
+  }
+
+  /**
+   * Updates the fields of the current version of a natural key after an update or a punch through.
+   *
+   * @param punchThroughOnly true to only update the punch through fields
+   */
+  private void updateCurrentVersion( Object[] lookupRow, Object[] row, boolean punchThroughOnly )
+    throws KettleValueException {
+    byte[] key = getCurrentVersionKey( lookupRow );
+    byte[] value = key == null ? null : data.currentVersions.get( key );
+    if ( value == null || value.length == 0 ) {
+      return;
+    }
+    Object[] values = RowMeta.getRow( data.currentVersionRowMeta, value );
+    for ( int i = 0; i < data.currentVersionFieldIndexes.length; i++ ) {
+      if ( data.currentVersionFieldIndexes[ i ] >= 0
+        && ( !punchThroughOnly || meta.getFieldUpdate()[ i ] == DimensionLookupMeta.TYPE_UPDATE_DIM_PUNCHTHROUGH ) ) {
+        values[ data.currentVersionFieldIndexes[ i ] ] = row[ data.fieldnrs[ i ] ];
+      }
+    }
+    data.currentVersions.put( key, RowMeta.extractData( data.currentVersionRowMeta, values ) );
+  }
+
+  private boolean isLookedUpInDatabase( byte[] key ) throws KettleValueException {
+    byte[] value = data.currentVersions.get( key );
+    return value != null && value.length == 0;
+  }
+
+  /**
+   * Executes an insert or update statement, or adds it to the batch in bulk update mode.
+   */
+  private void executeOrBatch( PreparedStatement statement ) throws KettleDatabaseException {
+    if ( data.currentVersions == null ) {
+      data.db.insertRow( statement );
+      return;
+    }
+    try {
+      statement.addBatch();
+    } catch ( SQLException e ) {
+      throw new KettleDatabaseException( "Unable to add a statement to the batch", e );
+    }
+    data.nrBatched++;
+  }
+
+  /**
+   * Applies the batched changes and commits them. The new versions are inserted first, so the updates of the same
+   * entries that follow find them.
+   */
+  private void flushBatches() throws KettleDatabaseException {
+    if ( data.nrBatched == 0 ) {
+      return;
+    }
+    executeBatch( data.prepStatementInsert );
+    executeBatch( data.prepStatementUpdate );
+    executeBatch( data.prepStatementDimensionUpdate );
+    executeBatch( data.prepStatementPunchThrough );
+    data.nrBatched = 0;
+
+    if ( !data.db.isAutoCommit() ) {
+      data.db.commit();
+    }
+  }
+
+  private void executeBatch( PreparedStatement statement ) throws KettleDatabaseException {
+    if ( statement == null ) {
+      return;
+    }
+    try {
+      statement.executeBatch();
+      statement.clearBatch();
+    } catch ( SQLException e ) {
+      throw Database.createKettleDatabaseBatchException( "Error updating batch", e );
+    }
   }
 
   /**
@@ -1513,7 +1895,7 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
     // Just to keep performance in track.
     //
     int tenPercent = meta.getCacheSize() / 10;
-    if ( meta.getCacheSize() > 0 && data.cache.size() > meta.getCacheSize() + tenPercent ) {
+    if ( meta.getCacheSize() > 0 && data.cache.getSize() > meta.getCacheSize() + tenPercent ) {
       // Which cache entries do we delete here?
       // We delete those with the lowest technical key...
       // Those would arguably be the "oldest" dimension entries.
@@ -1572,7 +1954,7 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
         }
       }
 
-      int sizeAfter = data.cache.size();
+      int sizeAfter = data.cache.getSize();
       logDetailed( "Reduced the lookup cache from " + sizeBefore + " to " + sizeAfter + " rows." );
     }
 
@@ -1712,6 +2094,8 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
     meta = (DimensionLookupMeta) smi;
     data = (DimensionLookupData) sdi;
+    data.currentVersions = null;
+    data.currentVersionKeys = null;
     if ( data.db != null ) {
       try {
         if ( !data.db.isAutoCommit() ) {
@@ -18,7 +18,8 @@ import java.util.Date;
 import java.util.List;
 
 import org.pentaho.di.core.database.Database;
-import org.pentaho.di.core.hash.ByteArrayHashMap;
+import org.pentaho.di.core.database.SequenceBlock;
+import org.pentaho.di.core.hash.ByteArrayHashIndex;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseDatabaseStepData;
 import org.pentaho.di.trans.step.BaseStepData;
@@ -39,7 +40,7 @@ public class DimensionLookupData extends BaseDatabaseStepData implements StepDat
   public int[] fieldnrs; // nrs in row of the fields
   public int datefieldnr; // Nr of datefield field in row
 
-  public ByteArrayHashMap cache;
+  public ByteArrayHashIndex cache;
 
   public long smallestCacheKey;
 
@@ -84,6 +85,18 @@ public class DimensionLookupData extends BaseDatabaseStepData implements StepDat
 
   public List<Integer> lazyList;
 
+  /** The current version of every natural key in bulk update mode, null when updating row by row */
+  public ByteArrayHashIndex currentVersions;
+  /** The spelling of the natural keys in the current versions that differs from their normalized form */
+  public ByteArrayHashIndex currentVersionKeys;
+  public RowMetaInterface currentVersionRowMeta;
+  public int[] currentVersionFieldIndexes;
+
+  public SequenceBlock sequenceBlock; // The reserved technical keys, null to get every key from the sequence
+
+  public int nrBatched; // The number of statements waiting in the batches
+  public int bulkBatchSize;
+
   /**
    * The input row metadata, but converted to normal storage type
    */
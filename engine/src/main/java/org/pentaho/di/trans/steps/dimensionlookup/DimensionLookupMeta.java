@@ -184,6 +184,10 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
   @Injection( name = "TECHNICAL_KEY_SEQUENCE" )
   private String sequenceName;
 
+  /** The number of technical keys to reserve with one sequence value, the sequence has to increment by it */
+  @Injection( name = "SEQUENCE_BLOCK_SIZE" )
+  private int sequenceBlockSize;
+
   /** The number of rows between commits */
   @Injection( name = "COMMIT_SIZE" )
   private int commitSize;
@@ -226,6 +230,13 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
   @Injection( name = "PRELOAD_CACHE" )
   private boolean preloadingCache;
 
+  /**
+   * Flag to update the dimension in bulk: preload the current versions, compare in memory and apply the changes in
+   * batches
+   */
+  @Injection( name = "BULK_UPDATE" )
+  private boolean bulkUpdate;
+
   public DimensionLookupMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -541,6 +552,22 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
     this.sequenceName = sequenceName;
   }
 
+  /**
+   * @return the number of technical keys to reserve with one sequence value, 1 or less to get a sequence value per key
+   */
+  public int getSequenceBlockSize() {
+    return sequenceBlockSize;
+  }
+
+  /**
+   * @param sequenceBlockSize
+   *          the number of technical keys to reserve with one sequence value. The sequence has to increment by this
+   *          number.
+   */
+  public void setSequenceBlockSize( int sequenceBlockSize ) {
+    this.sequenceBlockSize = sequenceBlockSize;
+  }
+
   /**
    * @return Returns the versionField.
    */
@@ -727,9 +754,11 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
     keyRename = "";
     autoIncrement = false;
     versionField = "version";
+    sequenceBlockSize = 1;
 
     cacheSize = 5000;
     preloadingCache = false;
+    bulkUpdate = false;
   }
 
   @Override
@@ -864,11 +893,13 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
 
     // If sequence is empty: use auto-increment field!
     retval.append( "      " ).append( XMLHandler.addTagValue( "sequence", sequenceName ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "sequence_block_size", sequenceBlockSize ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "min_year", minYear ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "max_year", maxYear ) );
 
     retval.append( "      " ).append( XMLHandler.addTagValue( "cache_size", cacheSize ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "preload_cache", preloadingCache ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "bulk_update", bulkUpdate ) );
 
     retval.append( "      " ).append( XMLHandler.addTagValue( "use_start_date_alternative",
         usingStartDateAlternative ) );
@@ -935,6 +966,7 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
         // If this is empty: use auto-increment field!
         sequenceName = XMLHandler.getTagValue( stepnode, "sequence" );
       }
+      sequenceBlockSize = Const.toInt( XMLHandler.getTagValue( stepnode, "sequence_block_size" ), 1 );
 
       maxYear = Const.toInt( XMLHandler.getTagValue( stepnode, "max_year" ), Const.MAX_YEAR );
       minYear = Const.toInt( XMLHandler.getTagValue( stepnode, "min_year" ), Const.MIN_YEAR );
@@ -948,6 +980,7 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
 
       cacheSize = Const.toInt( XMLHandler.getTagValue( stepnode, "cache_size" ), -1 );
       preloadingCache = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "preload_cache" ) );
+      bulkUpdate = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "bulk_update" ) );
       useBatchUpdate = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "useBatch" ) );
 
       usingStartDateAlternative =
@@ -1003,11 +1036,13 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
       if ( update ) { // symmetry with readData above ...
         sequenceName = rep.getStepAttributeString( id_step, "sequence" );
       }
+      sequenceBlockSize = (int) rep.getStepAttributeInteger( id_step, "sequence_block_size" );
       minYear = (int) rep.getStepAttributeInteger( id_step, "min_year" );
       maxYear = (int) rep.getStepAttributeInteger( id_step, "max_year" );
 
       cacheSize = (int) rep.getStepAttributeInteger( id_step, "cache_size" );
       preloadingCache = rep.getStepAttributeBoolean( id_step, "preload_cache" );
+      bulkUpdate = rep.getStepAttributeBoolean( id_step, "bulk_update" );
       useBatchUpdate = rep.getStepAttributeBoolean( id_step, "useBatch" );
 
       usingStartDateAlternative = rep.getStepAttributeBoolean( id_step, "use_start_date_alternative" );
@@ -1058,11 +1093,13 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
       rep.saveStepAttribute( id_transformation, id_step, "version_field", versionField );
 
       rep.saveStepAttribute( id_transformation, id_step, "sequence", sequenceName );
+      rep.saveStepAttribute( id_transformation, id_step, "sequence_block_size", sequenceBlockSize );
       rep.saveStepAttribute( id_transformation, id_step, "min_year", minYear );
       rep.saveStepAttribute( id_transformation, id_step, "max_year", maxYear );
 
       rep.saveStepAttribute( id_transformation, id_step, "cache_size", cacheSize );
       rep.saveStepAttribute( id_transformation, id_step, "preload_cache", preloadingCache );
+      rep.saveStepAttribute( id_transformation, id_step, "bulk_update", bulkUpdate );
       rep.saveStepAttribute( id_transformation, id_step, "useBatch", useBatchUpdate );
 
       rep.saveStepAttribute( id_transformation, id_step, "use_start_date_alternative", usingStartDateAlternative );
@@ -1683,7 +1720,9 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
               // The optional Oracle sequence
               if ( CREATION_METHOD_SEQUENCE.equals( getTechKeyCreation() ) && !Utils.isEmpty( sequenceName ) ) {
                 if ( !db.checkSequenceExists( schemaName, sequenceName ) ) {
-                  sql += db.getCreateSequenceStatement( schemaName, sequenceName, 1L, 1L, -1L, true );
+                  sql +=
+                    db.getCreateSequenceStatement( schemaName, sequenceName, 1L, Math.max( sequenceBlockSize, 1 ), -1L,
+                      true );
                 }
               }
 
@@ -1882,6 +1921,21 @@ public class DimensionLookupMeta extends BaseDatabaseStepMeta implements StepMet
     this.preloadingCache = preloadingCache;
   }
 
+  /**
+   * @return true to preload the current versions of the dimension and apply the changes in batches when updating
+   */
+  public boolean isBulkUpdate() {
+    return bulkUpdate;
+  }
+
+  /**
+   * @param bulkUpdate
+   *          true to preload the current versions of the dimension and apply the changes in batches when updating
+   */
+  public void setBulkUpdate( boolean bulkUpdate ) {
+    this.bulkUpdate = bulkUpdate;
+  }
+
   /**
    * @return the useBatchUpdate
    */
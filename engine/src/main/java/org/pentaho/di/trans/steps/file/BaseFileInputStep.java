@@ -71,6 +71,13 @@ public abstract class BaseFileInputStep<M extends BaseFileInputMeta<?, ?, ?>, D
    */
   protected abstract IBaseFileInputReader createReader( M meta, D data, FileObject file ) throws Exception;
 
+  /**
+   * Do the copies of the step divide the files between them?
+   */
+  protected boolean isRunningInParallel() {
+    return false;
+  }
+
   public BaseFileInputStep( StepMeta stepMeta, StepDataInterface stepDataInterface, int copyNr, TransMeta transMeta,
       Trans trans ) {
     super( stepMeta, stepDataInterface, copyNr, transMeta, trans );
@@ -248,6 +255,11 @@ public abstract class BaseFileInputStep<M extends BaseFileInputMeta<?, ?, ?>, D
     BaseFileInputStepUtils.handleMissingFiles( data.files, log, meta.errorHandling.errorIgnored,
         data.dataErrorLineHandler );
 
+    // The file names from a previous step are already divided over the copies with the rows
+    if ( isRunningInParallel() && !meta.inputFiles.acceptingFilenames ) {
+      keepFilesOfThisCopy();
+    }
+
     // Count the number of repeat fields...
     for ( int i = 0; i < meta.inputFields.length; i++ ) {
       if ( meta.inputFields[i].isRepeated() ) {
@@ -261,6 +273,40 @@ public abstract class BaseFileInputStep<M extends BaseFileInputMeta<?, ?, ?>, D
     return super.checkFeedback( lines );
   }
 
+  /**
+   * Only keep the files this copy reads. Every copy reads whole files, about the same number of bytes in total.
+   */
+  private void keepFilesOfThisCopy() throws KettleException {
+    int nrCopies = getUniqueStepCountAcrossSlaves();
+    if ( nrCopies <= 1 ) {
+      return;
+    }
+    List<FileObject> files = data.files.getFiles();
+    long[] sizes = new long[files.size()];
+    try {
+      for ( int i = 0; i < sizes.length; i++ ) {
+        sizes[i] = files.get( i ).getContent().getSize();
+      }
+    } catch ( FileSystemException e ) {
+      throw new KettleException( e );
+    }
+
+    int[] copies = BaseFileInputStepUtils.divideFilesBySize( sizes, nrCopies );
+    int copyNr = getUniqueStepNrAcrossSlaves();
+    List<FileObject> filesOfThisCopy = new ArrayList<>();
+    for ( int i = 0; i < copies.length; i++ ) {
+      if ( copies[i] == copyNr ) {
+        filesOfThisCopy.add( files.get( i ) );
+      }
+    }
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "BaseFileInputStep.Log.FilesOfThisCopy", String.valueOf(
+          filesOfThisCopy.size() ), String.valueOf( files.size() ) ) );
+    }
+    files.clear();
+    files.addAll( filesOfThisCopy );
+  }
+
   /**
    * Initialize error handling.
    *
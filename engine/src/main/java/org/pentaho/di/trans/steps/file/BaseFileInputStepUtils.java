@@ -13,6 +13,8 @@
 
 package org.pentaho.di.trans.steps.file;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 import org.apache.commons.vfs2.FileObject;
@@ -65,6 +67,39 @@ public class BaseFileInputStepUtils {
     }
   }
 
+  /**
+   * Divides files over the copies of a step, so that every copy reads about the same number of bytes. The largest
+   * files are handed out first, each to the copy with the fewest bytes so far.
+   *
+   * @param sizes
+   *          the sizes of the files
+   * @param nrCopies
+   *          the number of copies
+   * @return the number of the copy that reads each file
+   */
+  public static int[] divideFilesBySize( long[] sizes, int nrCopies ) {
+    Integer[] largestFirst = new Integer[sizes.length];
+    for ( int i = 0; i < sizes.length; i++ ) {
+      largestFirst[i] = i;
+    }
+    // A stable sort, every copy divides the files the same way
+    Arrays.sort( largestFirst, Comparator.comparingLong( ( Integer i ) -> sizes[i] ).reversed() );
+
+    int[] copies = new int[sizes.length];
+    long[] bytesPerCopy = new long[nrCopies];
+    for ( int file : largestFirst ) {
+      int copy = 0;
+      for ( int i = 1; i < nrCopies; i++ ) {
+        if ( bytesPerCopy[i] < bytesPerCopy[copy] ) {
+          copy = i;
+        }
+      }
+      copies[file] = copy;
+      bytesPerCopy[copy] += sizes[file];
+    }
+    return copies;
+  }
+
   /**
    * Adds <code>String</code> value meta with given name if not present and returns index
    *
@@ -0,0 +1,92 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.file;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a local file through memory mapped windows instead of reading it into a buffer with {@link FileChannel#read}.
+ * The bytes are copied straight from the operating system's file cache into the buffer of the step, so repeated
+ * runs over the same files don't need any read calls at all.
+ * <p>
+ * The reader follows the position of the file channel: it reads from the current position and moves it past the
+ * bytes read, so it can be used wherever the channel itself was read before. A read that runs over the end of a
+ * window continues in the next one, records spanning two windows are returned in one piece.
+ * <p>
+ * Mapped windows are released by the garbage collector, the reader keeps one of them at a time.
+ */
+public class MappedFileReader {
+
+  /** The size of the windows the file is mapped in, large enough to make remapping rare */
+  public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+  private final FileChannel fc;
+  private final int windowSize;
+  private final long fileSize;
+
+  private MappedByteBuffer window;
+  private long windowStart;
+
+  public MappedFileReader( FileChannel fc ) throws IOException {
+    this( fc, DEFAULT_WINDOW_SIZE );
+  }
+
+  public MappedFileReader( FileChannel fc, int windowSize ) throws IOException {
+    this.fc = fc;
+    this.windowSize = windowSize;
+    this.fileSize = fc.size();
+  }
+
+  /**
+   * Read bytes from the current position of the file channel, mapping the next windows as needed.
+   *
+   * @param dst
+   *          the array to copy the bytes to
+   * @param offset
+   *          the first index in the array to copy to
+   * @param length
+   *          the maximum number of bytes to read
+   * @return the number of bytes read, less than length only at the end of the file, -1 if the position is at the end
+   *         of the file already
+   * @throws IOException
+   *           in case the file can't be mapped
+   */
+  public int read( byte[] dst, int offset, int length ) throws IOException {
+    long position = fc.position();
+    if ( position >= fileSize ) {
+      return -1;
+    }
+
+    int read = 0;
+    while ( read < length && position < fileSize ) {
+      if ( window == null || position < windowStart || position >= windowStart + window.limit() ) {
+        mapWindow( position );
+      }
+      int n = (int) Math.min( length - read, windowStart + window.limit() - position );
+      window.position( (int) ( position - windowStart ) );
+      window.get( dst, offset + read, n );
+      read += n;
+      position += n;
+    }
+    fc.position( position );
+    return read;
+  }
+
+  private void mapWindow( long position ) throws IOException {
+    windowStart = position;
+    window = fc.map( FileChannel.MapMode.READ_ONLY, position, Math.min( windowSize, fileSize - position ) );
+  }
+}
@@ -81,6 +81,11 @@ public class TextFileInput extends BaseFileInputStep<TextFileInputMeta, TextFile
     return true;
   }
 
+  @Override
+  protected boolean isRunningInParallel() {
+    return meta.content.runningInParallel;
+  }
+
   public boolean isWaitingForData() {
     return true;
   }
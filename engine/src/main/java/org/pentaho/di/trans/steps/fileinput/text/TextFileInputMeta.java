@@ -199,6 +199,10 @@ public class TextFileInputMeta extends BaseFileInputMeta<BaseFileInputAdditional
     @Injection( name = "LENGTH" )
     public String length;
 
+    /** Flag indicating that the copies of the step divide the files between them */
+    @Injection( name = "RUNNING_IN_PARALLEL" )
+    public boolean runningInParallel;
+
   }
 
   /** The filters to use... */
@@ -300,6 +304,7 @@ public class TextFileInputMeta extends BaseFileInputMeta<BaseFileInputAdditional
       content.fileFormat = XMLHandler.getTagValue( stepnode, "format" );
       content.encoding = XMLHandler.getTagValue( stepnode, "encoding" );
       content.length = XMLHandler.getTagValue( stepnode, "length" );
+      content.runningInParallel = YES.equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "parallel" ) );
 
       Node filenode = XMLHandler.getSubNode( stepnode, "file" );
       Node fields = XMLHandler.getSubNode( stepnode, "fields" );
@@ -701,6 +706,7 @@ public class TextFileInputMeta extends BaseFileInputMeta<BaseFileInputAdditional
     retval.append( "    " ).append( XMLHandler.addTagValue( "format", content.fileFormat ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "encoding", content.encoding ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "length", content.length ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "parallel", content.runningInParallel ) );
     retval.append( "    " + XMLHandler.addTagValue( "add_to_result_filenames", inputFiles.isaddresult ) );
 
     retval.append( "    <file>" ).append( Const.CR );
@@ -867,6 +873,7 @@ public class TextFileInputMeta extends BaseFileInputMeta<BaseFileInputAdditional
       content.fileFormat = rep.getStepAttributeString( id_step, "format" );
       content.encoding = rep.getStepAttributeString( id_step, "encoding" );
       content.length = rep.getStepAttributeString( id_step, "length" );
+      content.runningInParallel = rep.getStepAttributeBoolean( id_step, "parallel" );
       String addToResult = rep.getStepAttributeString( id_step, "add_to_result_filenames" );
       if ( Utils.isEmpty( addToResult ) ) {
         inputFiles.isaddresult = true;
@@ -1007,6 +1014,7 @@ public class TextFileInputMeta extends BaseFileInputMeta<BaseFileInputAdditional
       rep.saveStepAttribute( id_transformation, id_step, "format", content.fileFormat );
       rep.saveStepAttribute( id_transformation, id_step, "encoding", content.encoding );
       rep.saveStepAttribute( id_transformation, id_step, "length", content.length );
+      rep.saveStepAttribute( id_transformation, id_step, "parallel", content.runningInParallel );
       rep.saveStepAttribute( id_transformation, id_step, "add_to_result_filenames", inputFiles.isaddresult );
 
       rep.saveStepAttribute( id_transformation, id_step, "limit", content.rowLimit );
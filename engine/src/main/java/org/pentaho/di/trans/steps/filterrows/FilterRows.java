@@ -13,6 +13,7 @@
 
 package org.pentaho.di.trans.steps.filterrows;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.pentaho.di.core.Const;
@@ -63,10 +64,8 @@ public class FilterRows extends BaseStep implements StepInterface {
     meta = (FilterRowsMeta) smi;
     data = (FilterRowsData) sdi;
 
-    boolean keep;
-
-    Object[] r = getRow(); // Get next usable row from input rowset(s)!
-    if ( r == null ) { // no more input to be expected...
+    List<Object[]> rows = getRows( Const.ROWS_IN_BATCH ); // Get next usable rows from input rowset(s)!
+    if ( rows == null ) { // no more input to be expected...
 
       setOutputDone();
       return false;
@@ -107,30 +106,35 @@ public class FilterRows extends BaseStep implements StepInterface {
       }
     }
 
-    keep = keepRow( getInputRowMeta(), r ); // Keep this row?
     if ( !data.chosesTargetSteps ) {
-      if ( keep ) {
-        putRow( data.outputRowMeta, r ); // copy row to output rowset(s);
+      List<Object[]> kept = new ArrayList<>( rows.size() );
+      for ( Object[] r : rows ) {
+        if ( keepRow( getInputRowMeta(), r ) ) { // Keep this row?
+          kept.add( r );
+        }
       }
+      putRows( data.outputRowMeta, kept ); // copy rows to output rowset(s);
     } else {
-      if ( keep ) {
-        if ( data.trueRowSet != null ) {
-          if ( log.isRowLevel() ) {
-            logRowlevel( "Sending row to true  :" + data.trueStepname + " : " + getInputRowMeta().getString( r ) );
+      for ( Object[] r : rows ) {
+        if ( keepRow( getInputRowMeta(), r ) ) {
+          if ( data.trueRowSet != null ) {
+            if ( log.isRowLevel() ) {
+              logRowlevel( "Sending row to true  :" + data.trueStepname + " : " + getInputRowMeta().getString( r ) );
+            }
+            putRowTo( data.outputRowMeta, r, data.trueRowSet );
           }
-          putRowTo( data.outputRowMeta, r, data.trueRowSet );
-        }
-      } else {
-        if ( data.falseRowSet != null ) {
-          if ( log.isRowLevel() ) {
-            logRowlevel( "Sending row to false :" + data.falseStepname + " : " + getInputRowMeta().getString( r ) );
+        } else {
+          if ( data.falseRowSet != null ) {
+            if ( log.isRowLevel() ) {
+              logRowlevel( "Sending row to false :" + data.falseStepname + " : " + getInputRowMeta().getString( r ) );
+            }
+            putRowTo( data.outputRowMeta, r, data.falseRowSet );
           }
-          putRowTo( data.outputRowMeta, r, data.falseRowSet );
         }
       }
     }
 
-    if ( checkFeedback( getLinesRead() ) ) {
+    if ( checkFeedback( getLinesRead(), rows.size() ) ) {
       if ( log.isBasic() ) {
         logBasic( BaseMessages.getString( PKG, "FilterRows.Log.LineNumber" ) + getLinesRead() );
       }
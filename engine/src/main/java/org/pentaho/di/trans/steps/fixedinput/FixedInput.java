@@ -38,6 +38,7 @@ import org.pentaho.di.trans.step.StepDataInterface;
 import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
+import org.pentaho.di.trans.steps.file.MappedFileReader;
 
 /**
  * Read a simple fixed width file Just output fields found in the file...
@@ -251,7 +252,11 @@ public class FixedInput extends BaseStep implements StepInterface {
         try {
           data.fis = getFileInputStream( fileObject.getURL() );
           data.fc = data.fis.getChannel();
-          data.bb = ByteBuffer.allocateDirect( data.preferredBufferSize );
+          if ( meta.isMemoryMapped() ) {
+            data.mappedReader = new MappedFileReader( data.fc );
+          } else {
+            data.bb = ByteBuffer.allocateDirect( data.preferredBufferSize );
+          }
         } catch ( IOException e ) {
           logError( e.toString() );
           return false;
@@ -21,6 +21,7 @@ import java.nio.channels.FileChannel;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
+import org.pentaho.di.trans.steps.file.MappedFileReader;
 
 /**
  * @author Matt
@@ -32,6 +33,8 @@ public class FixedInputData extends BaseStepData implements StepDataInterface {
   public FileInputStream fis;
   public FileChannel fc;
   public ByteBuffer bb;
+  /** Reads the file through memory mapped windows instead of the NIO buffer, null if not memory mapped */
+  public MappedFileReader mappedReader;
   public RowMetaInterface outputRowMeta;
   public RowMetaInterface convertRowMeta;
 
@@ -91,6 +94,11 @@ public class FixedInputData extends BaseStepData implements StepDataInterface {
   }
 
   public void readBufferFromFile() throws IOException {
+    if ( mappedReader != null ) {
+      readMappedBufferFromFile();
+      return;
+    }
+
     bb.position( 0 );
     int n = fc.read( bb );
     if ( n == -1 ) {
@@ -108,4 +116,17 @@ public class FixedInputData extends BaseStepData implements StepDataInterface {
     }
   }
 
+  /**
+   * Copy the next block of the file from the mapped file straight into the byte array, without the NIO buffer in
+   * between.
+   */
+  private void readMappedBufferFromFile() throws IOException {
+    int n = mappedReader.read( byteBuffer, loadPoint, preferredBufferSize );
+    if ( n == -1 ) {
+      stopReading = true;
+    } else {
+      bufferSize += n;
+    }
+  }
+
 }
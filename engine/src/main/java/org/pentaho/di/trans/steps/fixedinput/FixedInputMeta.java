@@ -85,6 +85,8 @@ public class FixedInputMeta extends BaseStepMeta implements StepMetaInterface {
 
   private boolean runningInParallel;
 
+  private boolean memoryMapped;
+
   private int fileType;
 
   private boolean isaddresult;
@@ -126,6 +128,7 @@ public class FixedInputMeta extends BaseStepMeta implements StepMetaInterface {
       lineFeedPresent = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "line_feed" ) );
       lazyConversionActive = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "lazy_conversion" ) );
       runningInParallel = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "parallel" ) );
+      memoryMapped = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "memory_mapped" ) );
       fileType = getFileType( XMLHandler.getTagValue( stepnode, "file_type" ) );
       encoding = XMLHandler.getTagValue( stepnode, "encoding" );
       isaddresult = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "add_to_result_filenames" ) );
@@ -158,6 +161,7 @@ public class FixedInputMeta extends BaseStepMeta implements StepMetaInterface {
     retval.append( "    " ).append( XMLHandler.addTagValue( "lazy_conversion", lazyConversionActive ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "line_feed", lineFeedPresent ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "parallel", runningInParallel ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "memory_mapped", memoryMapped ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "file_type", getFileTypeCode() ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "encoding", encoding ) );
 
@@ -181,6 +185,7 @@ public class FixedInputMeta extends BaseStepMeta implements StepMetaInterface {
       bufferSize = rep.getStepAttributeString( id_step, "buffer_size" );
       lazyConversionActive = rep.getStepAttributeBoolean( id_step, "lazy_conversion" );
       runningInParallel = rep.getStepAttributeBoolean( id_step, "parallel" );
+      memoryMapped = rep.getStepAttributeBoolean( id_step, "memory_mapped" );
       fileType = getFileType( rep.getStepAttributeString( id_step, "file_type" ) );
       encoding = rep.getStepAttributeString( id_step, "encoding" );
       isaddresult = rep.getStepAttributeBoolean( id_step, "add_to_result_filenames" );
@@ -220,6 +225,7 @@ public class FixedInputMeta extends BaseStepMeta implements StepMetaInterface {
       rep.saveStepAttribute( id_transformation, id_step, "lazy_conversion", lazyConversionActive );
       rep.saveStepAttribute( id_transformation, id_step, "line_feed", lineFeedPresent );
       rep.saveStepAttribute( id_transformation, id_step, "parallel", runningInParallel );
+      rep.saveStepAttribute( id_transformation, id_step, "memory_mapped", memoryMapped );
       rep.saveStepAttribute( id_transformation, id_step, "file_type", getFileTypeCode( fileType ) );
       rep.saveStepAttribute( id_transformation, id_step, "encoding", encoding );
       rep.saveStepAttribute( id_transformation, id_step, "add_to_result_filenames", isaddresult );
@@ -428,6 +434,21 @@ public class FixedInputMeta extends BaseStepMeta implements StepMetaInterface {
     this.runningInParallel = runningInParallel;
   }
 
+  /**
+   * @return true if the file is read through memory mapped windows instead of a read buffer
+   */
+  public boolean isMemoryMapped() {
+    return memoryMapped;
+  }
+
+  /**
+   * @param memoryMapped
+   *          true to read the file through memory mapped windows instead of a read buffer
+   */
+  public void setMemoryMapped( boolean memoryMapped ) {
+    this.memoryMapped = memoryMapped;
+  }
+
   /**
    * @return the fieldDefinition
    */
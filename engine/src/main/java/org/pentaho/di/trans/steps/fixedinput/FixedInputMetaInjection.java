@@ -158,6 +158,9 @@ public class FixedInputMetaInjection implements StepMetaInjectionInterface {
           case RUNNING_IN_PARALLEL:
             meta.setRunningInParallel( "Y".equalsIgnoreCase( lookValue ) );
             break;
+          case MEMORY_MAPPED:
+            meta.setMemoryMapped( "Y".equalsIgnoreCase( lookValue ) );
+            break;
           case FILE_TYPE_CODE:
             meta.setFileType( FixedInputMeta.getFileType( lookValue ) );
             break;
@@ -206,7 +209,8 @@ public class FixedInputMetaInjection implements StepMetaInjectionInterface {
         ValueMetaInterface.TYPE_STRING, "The buffer size" ), LAZY_CONVERSION_ACTIVE(
         ValueMetaInterface.TYPE_STRING, "Lazy conversion active? (Y/N)" ), LINE_FEED_PRESENT(
         ValueMetaInterface.TYPE_STRING, "Line feed present? (Y/N)" ), RUNNING_IN_PARALLEL(
-        ValueMetaInterface.TYPE_STRING, "Running in parallel? (Y/N)" ), FILE_TYPE_CODE(
+        ValueMetaInterface.TYPE_STRING, "Running in parallel? (Y/N)" ), MEMORY_MAPPED(
+        ValueMetaInterface.TYPE_STRING, "Use memory mapping? (Y/N)" ), FILE_TYPE_CODE(
         ValueMetaInterface.TYPE_STRING, "File type code (NONE, UNIX, DOS)" ), ADD_TO_RESULT(
         ValueMetaInterface.TYPE_STRING, "Add filename to result? (Y/N)" );
 
@@ -13,17 +13,26 @@
 
 package org.pentaho.di.trans.steps.insertupdate;
 
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.database.BatchLookup;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
@@ -58,19 +67,7 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
   protected synchronized void lookupValues( RowMetaInterface rowMeta, Object[] row ) throws KettleException {
     // OK, now do the lookup.
     // We need the lookupvalues for that.
-    Object[] lookupRow = new Object[ data.lookupParameterRowMeta.size() ];
-    int lookupIndex = 0;
-
-    for ( int i = 0; i < data.keynrs.length; i++ ) {
-      if ( data.keynrs[ i ] >= 0 ) {
-        lookupRow[ lookupIndex ] = row[ data.keynrs[ i ] ];
-        lookupIndex++;
-      }
-      if ( data.keynrs2[ i ] >= 0 ) {
-        lookupRow[ lookupIndex ] = row[ data.keynrs2[ i ] ];
-        lookupIndex++;
-      }
-    }
+    Object[] lookupRow = getLookupRow( row );
 
     data.db.setValues( data.lookupParameterRowMeta, lookupRow, data.prepStatementLookup );
 
@@ -91,16 +88,8 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
         logRowlevel( BaseMessages.getString( PKG, "InsertUpdate.InsertRow" ) + rowMeta.getString( row ) );
       }
 
-      // The values to insert are those in the update section (all fields should be specified)
-      // For the others, we have no definite mapping!
-      //
-      Object[] insertRow = new Object[ data.valuenrs.length ];
-      for ( int i = 0; i < data.valuenrs.length; i++ ) {
-        insertRow[ i ] = row[ data.valuenrs[ i ] ];
-      }
-
       // Set the values on the prepared statement...
-      data.db.setValuesInsert( data.insertRowMeta, insertRow );
+      data.db.setValuesInsert( data.insertRowMeta, getInsertRow( row ) );
 
       // Insert the row
       data.db.insertRow();
@@ -118,40 +107,12 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
          *
          * UPDATE row or do nothing?
          */
-        boolean update = false;
-        for ( int i = 0; i < data.valuenrs.length; i++ ) {
-          if ( meta.getUpdateFields()[ i ].getUpdate().booleanValue() ) {
-            ValueMetaInterface valueMeta = rowMeta.getValueMeta( data.valuenrs[ i ] );
-            ValueMetaInterface retMeta = data.db.getReturnRowMeta().getValueMeta( i );
-
-            Object rowvalue = row[ data.valuenrs[ i ] ];
-            Object retvalue = add[ i ];
-
-            if ( retMeta.compare( retvalue, valueMeta, rowvalue ) != 0 ) {
-              update = true;
-            }
-          }
-        }
-        if ( update ) {
-          // Create the update row...
-          Object[] updateRow = new Object[ data.updateParameterRowMeta.size() ];
-          int j = 0;
-          for ( int i = 0; i < data.valuenrs.length; i++ ) {
-            if ( meta.getUpdateFields()[ i ].getUpdate().booleanValue() ) {
-              updateRow[ j ] = row[ data.valuenrs[ i ] ]; // the setters
-              j++;
-            }
-          }
-          // add the where clause parameters, they are exactly the same for lookup and update
-          for ( int i = 0; i < lookupRow.length; i++ ) {
-            updateRow[ j + i ] = lookupRow[ i ];
-          }
-
+        if ( isChanged( rowMeta, row, data.db.getReturnRowMeta(), add ) ) {
           if ( log.isRowLevel() ) {
             logRowlevel( BaseMessages.getString( PKG, "InsertUpdate.Log.UpdateRow" )
               + data.lookupParameterRowMeta.getString( lookupRow ) );
           }
-          data.db.setValues( data.updateParameterRowMeta, updateRow, data.prepStatementUpdate );
+          data.db.setValues( data.updateParameterRowMeta, getUpdateRow( row, lookupRow ), data.prepStatementUpdate );
           data.db.insertRow( data.prepStatementUpdate );
           incrementLinesUpdated();
         } else {
@@ -166,6 +127,423 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
     }
   }
 
+  private Object[] getLookupRow( Object[] row ) {
+    Object[] lookupRow = new Object[ data.lookupParameterRowMeta.size() ];
+    int lookupIndex = 0;
+
+    for ( int i = 0; i < data.keynrs.length; i++ ) {
+      if ( data.keynrs[ i ] >= 0 ) {
+        lookupRow[ lookupIndex ] = row[ data.keynrs[ i ] ];
+        lookupIndex++;
+      }
+      if ( data.keynrs2[ i ] >= 0 ) {
+        lookupRow[ lookupIndex ] = row[ data.keynrs2[ i ] ];
+        lookupIndex++;
+      }
+    }
+    return lookupRow;
+  }
+
+  private Object[] getInsertRow( Object[] row ) {
+    // The values to insert are those in the update section (all fields should be specified)
+    // For the others, we have no definite mapping!
+    //
+    Object[] insertRow = new Object[ data.valuenrs.length ];
+    for ( int i = 0; i < data.valuenrs.length; i++ ) {
+      insertRow[ i ] = row[ data.valuenrs[ i ] ];
+    }
+    return insertRow;
+  }
+
+  private Object[] getUpdateRow( Object[] row, Object[] lookupRow ) {
+    Object[] updateRow = new Object[ data.updateParameterRowMeta.size() ];
+    int j = 0;
+    for ( int i = 0; i < data.valuenrs.length; i++ ) {
+      if ( meta.getUpdateFields()[ i ].getUpdate().booleanValue() ) {
+        updateRow[ j ] = row[ data.valuenrs[ i ] ]; // the setters
+        j++;
+      }
+    }
+    // add the where clause parameters, they are exactly the same for lookup and update
+    for ( int i = 0; i < lookupRow.length; i++ ) {
+      updateRow[ j + i ] = lookupRow[ i ];
+    }
+    return updateRow;
+  }
+
+  /**
+   * @return true if one of the fields to update has a different value in the row than in the table
+   */
+  private boolean isChanged( RowMetaInterface rowMeta, Object[] row, RowMetaInterface returnMeta, Object[] add )
+    throws KettleValueException {
+    for ( int i = 0; i < data.valuenrs.length; i++ ) {
+      if ( meta.getUpdateFields()[ i ].getUpdate().booleanValue() ) {
+        ValueMetaInterface valueMeta = rowMeta.getValueMeta( data.valuenrs[ i ] );
+        ValueMetaInterface retMeta = returnMeta.getValueMeta( i );
+
+        Object rowvalue = row[ data.valuenrs[ i ] ];
+        Object retvalue = add[ i ];
+
+        if ( retMeta.compare( retvalue, valueMeta, rowvalue ) != 0 ) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Writes the buffered rows. With a native upsert statement every row is simply added to its batch. Otherwise the keys
+   * of all the rows are looked up with a few queries, after which the inserts and the updates are sent to the database
+   * as two separate batches. Rows with the same key are handled in order, just like row by row: the first one inserts
+   * the row and the others update it.
+   * <p>
+   * A row that can't be written goes to the error handling on its own. When a batch fails its rows go there. The
+   * updates of rows inserted by a failed insert batch go there as well, the other updates are still sent.
+   */
+  private void writeBulk() throws KettleException {
+    RowMetaInterface rowMeta = getInputRowMeta();
+    int nrRows = data.bulkRows.size();
+    String[] errors = new String[ nrRows ];
+    int nrWritten = 0;
+
+    if ( data.prepStatementUpsert != null ) {
+      List<Integer> upserts = new ArrayList<>( nrRows );
+      int[] counts = new int[ nrRows ];
+      for ( int r = 0; r < nrRows; r++ ) {
+        try {
+          data.db.setValues( data.insertRowMeta, getInsertRow( data.bulkRows.get( r ) ), data.prepStatementUpsert );
+          counts[ r ] = addToBulk( data.prepStatementUpsert );
+          upserts.add( r );
+        } catch ( KettleException e ) {
+          failRows( Collections.singletonList( r ), errors, e );
+        }
+      }
+      if ( executeBulk( data.prepStatementUpsert, upserts, counts, errors ) ) {
+        for ( int r : upserts ) {
+          incrementUpsertLines( counts[ r ] );
+        }
+        nrWritten = upserts.size();
+      }
+    } else {
+      // Look up the distinct keys, a key with a null value never matches
+      List<Object[]> lookupRows = new ArrayList<>( nrRows );
+      List<RowMetaAndData> keyRows = new ArrayList<>( nrRows );
+      Map<RowMetaAndData, Integer> distinct = new HashMap<>();
+      List<Object[]> keys = new ArrayList<>();
+      for ( Object[] row : data.bulkRows ) {
+        Object[] lookupRow = getLookupRow( row );
+        Object[] keyRow = BatchLookup.getKey( data.lookupParameterRowMeta, lookupRow );
+        RowMetaAndData key = keyRow == null ? null : new RowMetaAndData( data.bulkKeyMeta, keyRow );
+        lookupRows.add( lookupRow );
+        keyRows.add( key );
+        if ( key != null && !distinct.containsKey( key ) ) {
+          distinct.put( key, keys.size() );
+          keys.add( keyRow );
+        }
+      }
+      Map<RowMetaAndData, Object[]> existing = lookupKeys( keys, distinct );
+
+      PreparedStatement insertStatement = data.db.getPrepStatementInsert();
+      List<Integer> inserts = new ArrayList<>();
+      List<Integer> updates = new ArrayList<>();
+      List<Object[]> updateRows = new ArrayList<>();
+      Set<RowMetaAndData> insertedKeys = new HashSet<>();
+      for ( int r = 0; r < nrRows; r++ ) {
+        Object[] row = data.bulkRows.get( r );
+        Object[] lookupRow = lookupRows.get( r );
+        RowMetaAndData key = keyRows.get( r );
+        incrementLinesInput();
+
+        try {
+          Object[] current = key == null ? null : existing.get( key );
+          if ( current == null ) {
+            if ( log.isRowLevel() ) {
+              logRowlevel( BaseMessages.getString( PKG, "InsertUpdate.InsertRow" ) + rowMeta.getString( row ) );
+            }
+            data.db.setValues( data.insertRowMeta, getInsertRow( row ), insertStatement );
+            addToBulk( insertStatement );
+            inserts.add( r );
+            if ( key != null ) {
+              existing.put( key, getCurrentValues( rowMeta, row, null ) );
+              insertedKeys.add( key );
+            }
+          } else if ( !meta.isUpdateBypassed() && isChanged( rowMeta, row, data.bulkValueMeta, current ) ) {
+            if ( log.isRowLevel() ) {
+              logRowlevel( BaseMessages.getString( PKG, "InsertUpdate.Log.UpdateRow" )
+                + data.lookupParameterRowMeta.getString( lookupRow ) );
+            }
+            Object[] updateRow = getUpdateRow( row, lookupRow );
+            data.db.setValues( data.updateParameterRowMeta, updateRow, data.prepStatementUpdate );
+            addToBulk( data.prepStatementUpdate );
+            updates.add( r );
+            updateRows.add( updateRow );
+            existing.put( key, getCurrentValues( rowMeta, row, current ) );
+          } else {
+            incrementLinesSkipped();
+          }
+        } catch ( KettleException e ) {
+          failRows( Collections.singletonList( r ), errors, e );
+        }
+      }
+
+      // The inserts go first: a later row in the buffer can update a row inserted by an earlier one
+      if ( executeBulk( insertStatement, inserts, null, errors ) ) {
+        for ( int i = 0; i < inserts.size(); i++ ) {
+          incrementLinesOutput();
+        }
+        nrWritten += inserts.size();
+      } else if ( !updates.isEmpty() ) {
+        // Rebuild the update batch without the updates of the rows that weren't inserted
+        data.db.clearBatch( data.prepStatementUpdate );
+        String insertError = errors[ inserts.get( 0 ) ];
+        List<Integer> remaining = new ArrayList<>( updates.size() );
+        for ( int i = 0; i < updates.size(); i++ ) {
+          int r = updates.get( i );
+          if ( insertedKeys.contains( keyRows.get( r ) ) ) {
+            errors[ r ] = insertError;
+            continue;
+          }
+          try {
+            data.db.setValues( data.updateParameterRowMeta, updateRows.get( i ), data.prepStatementUpdate );
+            addToBulk( data.prepStatementUpdate );
+            remaining.add( r );
+          } catch ( KettleException e ) {
+            failRows( Collections.singletonList( r ), errors, e );
+          }
+        }
+        updates = remaining;
+      }
+      if ( executeBulk( data.prepStatementUpdate, updates, null, errors ) ) {
+        for ( int i = 0; i < updates.size(); i++ ) {
+          incrementLinesUpdated();
+        }
+        nrWritten += updates.size();
+      }
+    }
+
+    data.bulkWritten += nrWritten;
+    if ( !data.db.isAutoCommit() && data.commitSize > 0 && data.bulkWritten >= data.commitSize ) {
+      data.db.commit();
+      data.bulkWritten = 0;
+    }
+
+    for ( int r = 0; r < nrRows; r++ ) {
+      if ( errors[ r ] == null ) {
+        putRow( data.outputRowMeta, data.bulkRows.get( r ) );
+      } else {
+        putError( rowMeta, data.bulkRows.get( r ), 1, errors[ r ], null, "ISU001" );
+      }
+    }
+    data.bulkRows.clear();
+  }
+
+  /**
+   * Looks up the distinct keys and returns the values of the fields to compare, converted to the data types of the
+   * stream fields, by key.
+   */
+  private Map<RowMetaAndData, Object[]> lookupKeys( List<Object[]> keys, Map<RowMetaAndData, Integer> distinct )
+    throws KettleException {
+    Map<RowMetaAndData, Object[]> existing = new HashMap<>();
+    if ( keys.isEmpty() ) {
+      return existing;
+    }
+    if ( log.isRowLevel() ) {
+      logRowlevel( BaseMessages.getString( PKG, "InsertUpdate.Log.LookingUpBulk", keys.size() ) );
+    }
+    Object[][] results = data.bulkLookup.lookup( keys );
+    RowMetaInterface returnedMeta = data.bulkLookup.getReturnRowMeta();
+    for ( Map.Entry<RowMetaAndData, Integer> entry : distinct.entrySet() ) {
+      Object[] result = results[ entry.getValue() ];
+      if ( result != null ) {
+        Object[] values = new Object[ data.bulkValueMeta.size() ];
+        for ( int i = 0; i < values.length; i++ ) {
+          values[ i ] = data.bulkValueMeta.getValueMeta( i ).convertData( returnedMeta.getValueMeta( i ), result[ i ] );
+        }
+        existing.put( entry.getKey(), values );
+      }
+    }
+    return existing;
+  }
+
+  /**
+   * @return the values of the fields to compare in the table after writing the row
+   */
+  private Object[] getCurrentValues( RowMetaInterface rowMeta, Object[] row, Object[] current )
+    throws KettleValueException {
+    Object[] values = new Object[ data.valuenrs.length ];
+    for ( int i = 0; i < data.valuenrs.length; i++ ) {
+      if ( current == null || meta.getUpdateFields()[ i ].getUpdate().booleanValue() ) {
+        values[ i ] = data.bulkValueMeta.getValueMeta( i ).convertData(
+          rowMeta.getValueMeta( data.valuenrs[ i ] ), row[ data.valuenrs[ i ] ] );
+      } else {
+        values[ i ] = current[ i ];
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Adds the row to the batch or, when batches aren't used, writes it right away.
+   *
+   * @return the number of rows changed by the statement, 0 when the row was added to the batch
+   */
+  private int addToBulk( PreparedStatement ps ) throws KettleDatabaseException {
+    try {
+      if ( data.useBatch ) {
+        ps.addBatch();
+        return 0;
+      }
+      return ps.executeUpdate();
+    } catch ( SQLException ex ) {
+      throw new KettleDatabaseException( "Error inserting/updating row", ex );
+    }
+  }
+
+  /**
+   * Sends a batch to the database. When that fails the rows of the batch go to the error handling.
+   *
+   * @param rows   the positions of the rows in the batch
+   * @param counts receives the number of rows changed by every row of the batch, can be null
+   * @return true if the rows were written
+   */
+  private boolean executeBulk( PreparedStatement ps, List<Integer> rows, int[] counts, String[] errors )
+    throws KettleException {
+    if ( !data.useBatch || rows.isEmpty() ) {
+      return true;
+    }
+    try {
+      int[] batchCounts = ps.executeBatch();
+      ps.clearBatch();
+      for ( int i = 0; counts != null && i < batchCounts.length && i < rows.size(); i++ ) {
+        counts[ rows.get( i ) ] = batchCounts[ i ];
+      }
+      return true;
+    } catch ( SQLException ex ) {
+      data.db.clearBatch( ps );
+      failRows( rows, errors, Database.createKettleDatabaseBatchException( "Error updating batch", ex ) );
+      return false;
+    }
+  }
+
+  /**
+   * Sends the rows to the error handling, or stops the step when there is none.
+   */
+  private void failRows( List<Integer> rows, String[] errors, KettleException e ) throws KettleException {
+    if ( !getStepMeta().isDoingErrorHandling() ) {
+      throw e;
+    }
+    for ( int r : rows ) {
+      errors[ r ] = e.toString();
+    }
+  }
+
+  /**
+   * A native upsert only tells how many rows it changed: none for an existing row without changes and 2 for an
+   * updated row on MySQL. The other databases report a single row for both an insert and an update, or nothing at all
+   * in a batch, those rows count as output.
+   */
+  private void incrementUpsertLines( int count ) {
+    if ( count == 0 ) {
+      incrementLinesSkipped();
+    } else if ( count == 2 ) {
+      incrementLinesUpdated();
+    } else {
+      incrementLinesOutput();
+    }
+  }
+
+  private boolean processBulk() throws KettleException {
+    try {
+      writeBulk();
+    } catch ( KettleException e ) {
+      if ( data.useBatch ) {
+        clearBulkBatches();
+      }
+      if ( getStepMeta().isDoingErrorHandling() ) {
+        // Nothing of the buffer was passed on yet: the lookup or the commit failed
+        for ( Object[] row : data.bulkRows ) {
+          putError( getInputRowMeta(), row, 1, e.toString(), null, "ISU001" );
+        }
+        data.bulkRows.clear();
+      } else {
+        logError( BaseMessages.getString( PKG, "InsertUpdate.Log.ErrorInStep" ), e );
+        setErrors( 1 );
+        stopAll();
+        setOutputDone(); // signal end to receiver(s)
+        return false;
+      }
+    }
+    if ( checkFeedback( getLinesRead() ) ) {
+      if ( log.isBasic() ) {
+        logBasic( BaseMessages.getString( PKG, "InsertUpdate.Log.LineNumber" ) + getLinesRead() );
+      }
+    }
+    return true;
+  }
+
+  private void clearBulkBatches() throws KettleDatabaseException {
+    if ( data.prepStatementUpsert != null ) {
+      data.db.clearBatch( data.prepStatementUpsert );
+    } else {
+      data.db.clearBatch( data.db.getPrepStatementInsert() );
+      if ( data.prepStatementUpdate != null ) {
+        data.db.clearBatch( data.prepStatementUpdate );
+      }
+    }
+  }
+
+  /**
+   * Bulk mode is used when asked for and when every key is compared with "=", other conditions can't be matched with
+   * the rows found afterwards.
+   */
+  private int determineBulkSize() {
+    if ( meta.getBulkSize() <= 1 || meta.getKeyFields().length == 0 ) {
+      return 0;
+    }
+    for ( int i = 0; i < meta.getKeyFields().length; i++ ) {
+      if ( !"=".equals( meta.getKeyFields()[ i ].getKeyCondition() ) ) {
+        logBasic( BaseMessages.getString( PKG, "InsertUpdate.Log.BulkNotPossible" ) );
+        return 0;
+      }
+    }
+    return meta.getBulkSize();
+  }
+
+  /**
+   * Prepares the native upsert statement of the database. This is only possible when all the key columns are inserted
+   * as well.
+   */
+  private void prepareUpsert() throws KettleDatabaseException {
+    DatabaseMeta databaseMeta = meta.getDatabaseMeta();
+    String[] keyFields = new String[ meta.getKeyFields().length ];
+    for ( int i = 0; i < keyFields.length; i++ ) {
+      keyFields[ i ] = databaseMeta.quoteField( meta.getKeyFields()[ i ].getKeyLookup() );
+      if ( data.insertRowMeta.indexOfValue( meta.getKeyFields()[ i ].getKeyLookup() ) < 0 ) {
+        logBasic( BaseMessages.getString( PKG, "InsertUpdate.Log.NativeUpsertNotPossible" ) );
+        return;
+      }
+    }
+    String[] insertFields = new String[ meta.getUpdateFields().length ];
+    List<String> updateFields = new ArrayList<>();
+    for ( int i = 0; i < insertFields.length; i++ ) {
+      insertFields[ i ] = databaseMeta.quoteField( meta.getUpdateFields()[ i ].getUpdateLookup() );
+      if ( !meta.isUpdateBypassed() && meta.getUpdateFields()[ i ].getUpdate().booleanValue() ) {
+        updateFields.add( insertFields[ i ] );
+      }
+    }
+    String sql = databaseMeta.getDatabaseInterface().getUpsertSQL( data.schemaTable, keyFields, insertFields,
+      updateFields.toArray( new String[ 0 ] ) );
+    if ( sql == null ) {
+      logBasic( BaseMessages.getString( PKG, "InsertUpdate.Log.NativeUpsertNotPossible" ) );
+      return;
+    }
+    if ( log.isDetailed() ) {
+      logDetailed( "Setting upsert preparedStatement to [" + sql + "]" );
+    }
+    data.prepStatementUpsert = data.db.prepareSQL( sql );
+  }
+
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
     meta = (InsertUpdateMeta) smi;
     data = (InsertUpdateData) sdi;
@@ -176,6 +554,9 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if ( r == null ) {
       // no more input to be expected...
+      if ( data.bulkSize > 0 && !data.bulkRows.isEmpty() && !processBulk() ) {
+        return false;
+      }
 
       setOutputDone();
       return false;
@@ -288,6 +669,38 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
         }
         prepareUpdate( getInputRowMeta() );
       }
+
+      data.bulkSize = determineBulkSize();
+      if ( data.bulkSize > 0 ) {
+        data.bulkRows = new ArrayList<>( data.bulkSize );
+        data.bulkKeyMeta = BatchLookup.getNormalStorageRowMeta( data.lookupParameterRowMeta );
+        data.bulkValueMeta = BatchLookup.getNormalStorageRowMeta( data.lookupReturnRowMeta );
+        String[] keyFields = new String[ meta.getKeyFields().length ];
+        for ( int i = 0; i < keyFields.length; i++ ) {
+          keyFields[ i ] = meta.getKeyFields()[ i ].getKeyLookup();
+        }
+        String[] valueFields = new String[ meta.getUpdateFields().length ];
+        for ( int i = 0; i < valueFields.length; i++ ) {
+          valueFields[ i ] = meta.getUpdateFields()[ i ].getUpdateLookup();
+        }
+        data.bulkLookup = new BatchLookup( data.db, environmentSubstitute( meta.getSchemaName() ),
+          environmentSubstitute( meta.getTableName() ), keyFields, valueFields, null, data.bulkKeyMeta,
+          BatchLookup.getMaxKeys( meta.getDatabaseMeta(), keyFields.length, data.bulkSize ), false );
+        data.useBatch = !data.db.isAutoCommit() && data.db.getUseBatchInsert( true );
+        if ( meta.isNativeUpsert() ) {
+          prepareUpsert();
+        }
+        logBasic( BaseMessages.getString( PKG, data.prepStatementUpsert != null
+          ? "InsertUpdate.Log.UsingNativeUpsert" : "InsertUpdate.Log.UsingBulk", data.bulkSize ) );
+      }
+    }
+
+    if ( data.bulkSize > 0 ) {
+      data.bulkRows.add( r );
+      if ( data.bulkRows.size() >= data.bulkSize ) {
+        return processBulk();
+      }
+      return true;
     }
 
     try {
@@ -471,7 +884,8 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
     data = (InsertUpdateData) sdi;
 
     if ( super.init( smi, sdi ) ) {
-      data.db.setCommitSize( meta.getCommitSize( this ) );
+      data.commitSize = meta.getCommitSize( this );
+      data.db.setCommitSize( data.commitSize );
       return true;
     }
     return false;
@@ -497,6 +911,10 @@ public class InsertUpdate extends BaseDatabaseStep implements StepInterface {
         }
         data.db.closeUpdate();
         data.db.closeInsert();
+        data.db.closePreparedStatement( data.prepStatementUpsert );
+        if ( data.bulkLookup != null ) {
+          data.bulkLookup.close();
+        }
       } catch ( KettleDatabaseException e ) {
         logError( BaseMessages.getString( PKG, "InsertUpdate.Log.UnableToCommitConnection" ) + e.toString() );
         setErrors( 1 );
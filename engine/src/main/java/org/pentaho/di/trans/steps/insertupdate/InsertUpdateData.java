@@ -13,11 +13,13 @@
 
 package org.pentaho.di.trans.steps.insertupdate;
 
+import org.pentaho.di.core.database.BatchLookup;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseDatabaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
 
 import java.sql.PreparedStatement;
+import java.util.List;
 
 /**
  * Stores data for the Insert/Update step.
@@ -43,6 +45,22 @@ public class InsertUpdateData extends BaseDatabaseStepData implements StepDataIn
   public RowMetaInterface lookupReturnRowMeta;
   public RowMetaInterface insertRowMeta;
 
+  /** The number of rows looked up and written together, 0 when handling the rows one by one */
+  public int bulkSize;
+  public int commitSize;
+  /** true if the bulk writes are sent as JDBC batches */
+  public boolean useBatch;
+  /** The number of rows written in bulk since the last commit */
+  public int bulkWritten;
+  public List<Object[]> bulkRows;
+  /** Looks up the keys of the buffered rows */
+  public BatchLookup bulkLookup;
+  /** The lookup keys and the values to compare in normal storage */
+  public RowMetaInterface bulkKeyMeta;
+  public RowMetaInterface bulkValueMeta;
+  /** The native upsert statement, null if it's not used */
+  public PreparedStatement prepStatementUpsert;
+
   /**
    * Default constructor.
    */
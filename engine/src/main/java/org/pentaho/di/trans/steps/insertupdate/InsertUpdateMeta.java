@@ -93,6 +93,18 @@ public class InsertUpdateMeta extends BaseDatabaseStepMeta implements StepMetaIn
   @Injection( name = "DO_NOT" )
   private boolean updateBypassed;
 
+  /**
+   * The number of rows to look up and write together, 0 or 1 to handle row by row
+   */
+  @Injection( name = "BULK_SIZE" )
+  private int bulkSize;
+
+  /**
+   * Use the native upsert statement of the database in bulk mode
+   */
+  @Injection( name = "NATIVE_UPSERT" )
+  private boolean nativeUpsert;
+
   @Injection( name = "CONNECTIONNAME", required = true )
   public void setConnection( String connectionName ) {
     databaseMeta = DatabaseMeta.findDatabase( databases, connectionName );
@@ -232,6 +244,8 @@ public class InsertUpdateMeta extends BaseDatabaseStepMeta implements StepMetaIn
       schemaName = XMLHandler.getTagValue( stepnode, "lookup", "schema" );
       tableName = XMLHandler.getTagValue( stepnode, "lookup", "table" );
       updateBypassed = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "update_bypassed" ) );
+      bulkSize = Const.toInt( XMLHandler.getTagValue( stepnode, "bulk_size" ), 0 );
+      nativeUpsert = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "native_upsert" ) );
 
       Node lookup = XMLHandler.getSubNode( stepnode, "lookup" );
       nrkeys = XMLHandler.countNodes( lookup, "key" );
@@ -280,6 +294,8 @@ public class InsertUpdateMeta extends BaseDatabaseStepMeta implements StepMetaIn
   public void setDefault() {
     databaseMeta = null;
     commitSize = "100";
+    bulkSize = 0;
+    nativeUpsert = false;
     schemaName = "";
     tableName = BaseMessages.getString( PKG, "InsertUpdateMeta.DefaultTableName" );
 
@@ -311,6 +327,8 @@ public class InsertUpdateMeta extends BaseDatabaseStepMeta implements StepMetaIn
         XMLHandler.addTagValue( "connection", databaseMeta == null ? "" : databaseMeta.getName() ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "commit", commitSize ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "update_bypassed", updateBypassed ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "bulk_size", bulkSize ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "native_upsert", nativeUpsert ) );
     retval.append( "    <lookup>" ).append( Const.CR );
     retval.append( "      " ).append( XMLHandler.addTagValue( "schema", schemaName ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "table", tableName ) );
@@ -359,6 +377,8 @@ public class InsertUpdateMeta extends BaseDatabaseStepMeta implements StepMetaIn
       schemaName = rep.getStepAttributeString( id_step, "schema" );
       tableName = rep.getStepAttributeString( id_step, "table" );
       updateBypassed = rep.getStepAttributeBoolean( id_step, "update_bypassed" );
+      bulkSize = (int) rep.getStepAttributeInteger( id_step, "bulk_size" );
+      nativeUpsert = rep.getStepAttributeBoolean( id_step, "native_upsert" );
 
       int nrkeys = rep.countNrStepAttributes( id_step, "key_field" );
       int nrvalues = rep.countNrStepAttributes( id_step, "value_name" );
@@ -392,6 +412,8 @@ public class InsertUpdateMeta extends BaseDatabaseStepMeta implements StepMetaIn
       rep.saveStepAttribute( id_transformation, id_step, "schema", schemaName );
       rep.saveStepAttribute( id_transformation, id_step, "table", tableName );
       rep.saveStepAttribute( id_transformation, id_step, "update_bypassed", updateBypassed );
+      rep.saveStepAttribute( id_transformation, id_step, "bulk_size", bulkSize );
+      rep.saveStepAttribute( id_transformation, id_step, "native_upsert", nativeUpsert );
 
       for ( int i = 0; i < keyFields.length; i++ ) {
         rep.saveStepAttribute( id_transformation, id_step, i, "key_name", keyFields[ i ].getKeyStream() );
@@ -782,6 +804,34 @@ public class InsertUpdateMeta extends BaseDatabaseStepMeta implements StepMetaIn
     this.updateBypassed = updateBypassed;
   }
 
+  /**
+   * @return the number of rows to look up and write together, 0 or 1 to handle the rows one by one.
+   */
+  public int getBulkSize() {
+    return bulkSize;
+  }
+
+  /**
+   * @param bulkSize the number of rows to look up and write together, 0 or 1 to handle the rows one by one.
+   */
+  public void setBulkSize( int bulkSize ) {
+    this.bulkSize = bulkSize;
+  }
+
+  /**
+   * @return true if the native upsert statement of the database is used in bulk mode, if it has one.
+   */
+  public boolean isNativeUpsert() {
+    return nativeUpsert;
+  }
+
+  /**
+   * @param nativeUpsert true to use the native upsert statement of the database in bulk mode, if it has one.
+   */
+  public void setNativeUpsert( boolean nativeUpsert ) {
+    this.nativeUpsert = nativeUpsert;
+  }
+
   public RowMetaInterface getRequiredFields( VariableSpace space ) throws KettleException {
     String realSchemaName = space.environmentSubstitute( schemaName );
     String realTableName = space.environmentSubstitute( tableName );
@@ -0,0 +1,354 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.memgroupby;
+
+import java.util.Arrays;
+
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * The aggregate state of all the groups of a {@link GroupTable}, kept column by column in primitive arrays that are
+ * indexed by group number. Counts and the sum, average, minimum and maximum of Integer and Number fields don't need
+ * any objects per group. The remaining aggregates (median, concatenation, distinct count, ...) keep their state in an
+ * {@link Aggregate} per group, which is only allocated when at least one of those aggregates is used.
+ */
+class GroupAccumulators {
+
+  private final Column[] columns;
+  private final boolean usingAggregates;
+  private Aggregate[] aggregates;
+  private int capacity;
+
+  /**
+   * @param columns
+   *          the primitive column per aggregate, null for the aggregates that need an {@link Aggregate}
+   */
+  GroupAccumulators( Column[] columns ) {
+    this.columns = columns;
+
+    boolean objects = false;
+    for ( Column column : columns ) {
+      objects |= column == null;
+    }
+    usingAggregates = objects;
+  }
+
+  /**
+   * Picks the primitive column for an aggregate.
+   *
+   * @param aggregateType
+   *          the type of aggregate, one of the MemoryGroupByMeta.TYPE_GROUP_ constants
+   * @param subjMeta
+   *          the metadata of the aggregated field
+   * @param aggMeta
+   *          the metadata of the result
+   * @param minNullIsValued
+   *          true if a null is the minimum of any group that contains a null
+   * @return the column or null if the aggregate can't be calculated with primitives
+   */
+  static Column createColumn( int aggregateType, ValueMetaInterface subjMeta, ValueMetaInterface aggMeta,
+    boolean minNullIsValued ) {
+    switch ( aggregateType ) {
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
+        return new CountColumn( subjMeta, false );
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
+        return new CountColumn( subjMeta, true );
+      default:
+        break;
+    }
+
+    if ( subjMeta.getStorageType() != ValueMetaInterface.STORAGE_TYPE_NORMAL
+      || ( subjMeta.getType() != ValueMetaInterface.TYPE_INTEGER
+        && subjMeta.getType() != ValueMetaInterface.TYPE_NUMBER ) ) {
+      return null;
+    }
+    boolean integer = subjMeta.getType() == ValueMetaInterface.TYPE_INTEGER;
+
+    switch ( aggregateType ) {
+      case MemoryGroupByMeta.TYPE_GROUP_SUM:
+      case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+        if ( aggMeta.getType() != subjMeta.getType() ) {
+          // Compatibility mode: the sum of integers is a number
+          return null;
+        }
+        boolean average = aggregateType == MemoryGroupByMeta.TYPE_GROUP_AVERAGE;
+        return integer ? new LongSumColumn( average ) : new DoubleSumColumn( average );
+      case MemoryGroupByMeta.TYPE_GROUP_MIN:
+      case MemoryGroupByMeta.TYPE_GROUP_MAX:
+        if ( subjMeta.isSortedDescending() ) {
+          return null;
+        }
+        boolean min = aggregateType == MemoryGroupByMeta.TYPE_GROUP_MIN;
+        boolean nullWins = min && minNullIsValued;
+        return integer ? new LongMinMaxColumn( min, nullWins ) : new DoubleMinMaxColumn( min, nullWins );
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Makes room for the state of at least the given number of groups.
+   */
+  void ensureCapacity( int nrGroups ) {
+    if ( nrGroups <= capacity ) {
+      return;
+    }
+    int newCapacity = Math.max( nrGroups, Math.max( 16, capacity * 2 ) );
+    for ( Column column : columns ) {
+      if ( column != null ) {
+        column.grow( newCapacity );
+      }
+    }
+    if ( usingAggregates ) {
+      aggregates = aggregates == null ? new Aggregate[newCapacity] : Arrays.copyOf( aggregates, newCapacity );
+    }
+    capacity = newCapacity;
+  }
+
+  /**
+   * @return true if there is at least one aggregate that keeps its state in an {@link Aggregate} per group
+   */
+  boolean isUsingAggregates() {
+    return usingAggregates;
+  }
+
+  /**
+   * @return the primitive column of an aggregate or null if the aggregate is kept in the {@link Aggregate} per group
+   */
+  Column getColumn( int index ) {
+    return columns[index];
+  }
+
+  Aggregate getAggregate( int group ) {
+    return aggregates[group];
+  }
+
+  void setAggregate( int group, Aggregate aggregate ) {
+    aggregates[group] = aggregate;
+  }
+
+  /**
+   * The state of one aggregate for all the groups.
+   */
+  abstract static class Column {
+    abstract void grow( int capacity );
+
+    /**
+     * Adds a value of the aggregated field to the state of a group.
+     */
+    abstract void add( int group, Object subj ) throws KettleValueException;
+
+    /**
+     * @return the value of the aggregate of a group
+     */
+    abstract Object getResult( int group );
+  }
+
+  /**
+   * Number of rows or number of non-null values.
+   */
+  static class CountColumn extends Column {
+    private final ValueMetaInterface subjMeta;
+    private final boolean countingNulls;
+    private long[] counts = new long[0];
+
+    CountColumn( ValueMetaInterface subjMeta, boolean countingNulls ) {
+      this.subjMeta = subjMeta;
+      this.countingNulls = countingNulls;
+    }
+
+    @Override
+    void grow( int capacity ) {
+      counts = Arrays.copyOf( counts, capacity );
+    }
+
+    @Override
+    void add( int group, Object subj ) throws KettleValueException {
+      if ( countingNulls || !subjMeta.isNull( subj ) ) {
+        counts[group]++;
+      }
+    }
+
+    @Override
+    Object getResult( int group ) {
+      return counts[group];
+    }
+  }
+
+  /**
+   * Sum or average of integers. The sum is null as long as only nulls were added.
+   */
+  static class LongSumColumn extends Column {
+    private final boolean average;
+    private long[] sums = new long[0];
+    private long[] counts = new long[0];
+
+    LongSumColumn( boolean average ) {
+      this.average = average;
+    }
+
+    @Override
+    void grow( int capacity ) {
+      sums = Arrays.copyOf( sums, capacity );
+      counts = Arrays.copyOf( counts, capacity );
+    }
+
+    @Override
+    void add( int group, Object subj ) {
+      if ( subj != null ) {
+        sums[group] += (Long) subj;
+        counts[group]++;
+      }
+    }
+
+    @Override
+    Object getResult( int group ) {
+      if ( counts[group] == 0 ) {
+        return null;
+      }
+      return average ? sums[group] / counts[group] : sums[group];
+    }
+  }
+
+  /**
+   * Sum or average of numbers. The sum is null as long as only nulls were added.
+   */
+  static class DoubleSumColumn extends Column {
+    private final boolean average;
+    private double[] sums = new double[0];
+    private long[] counts = new long[0];
+
+    DoubleSumColumn( boolean average ) {
+      this.average = average;
+    }
+
+    @Override
+    void grow( int capacity ) {
+      sums = Arrays.copyOf( sums, capacity );
+      counts = Arrays.copyOf( counts, capacity );
+    }
+
+    @Override
+    void add( int group, Object subj ) {
+      if ( subj != null ) {
+        sums[group] += (Double) subj;
+        counts[group]++;
+      }
+    }
+
+    @Override
+    Object getResult( int group ) {
+      if ( counts[group] == 0 ) {
+        return null;
+      }
+      return average ? sums[group] / counts[group] : sums[group];
+    }
+  }
+
+  private static final byte EMPTY = 0;
+  private static final byte VALUED = 1;
+  private static final byte NULL = 2;
+
+  /**
+   * Minimum or maximum of integers. Nulls are ignored unless a null is the minimum of a group (nullWins).
+   */
+  static class LongMinMaxColumn extends Column {
+    private final boolean min;
+    private final boolean nullWins;
+    private long[] values = new long[0];
+    private byte[] states = new byte[0];
+
+    LongMinMaxColumn( boolean min, boolean nullWins ) {
+      this.min = min;
+      this.nullWins = nullWins;
+    }
+
+    @Override
+    void grow( int capacity ) {
+      values = Arrays.copyOf( values, capacity );
+      states = Arrays.copyOf( states, capacity );
+    }
+
+    @Override
+    void add( int group, Object subj ) {
+      if ( states[group] == NULL ) {
+        return;
+      }
+      if ( subj == null ) {
+        if ( nullWins ) {
+          states[group] = NULL;
+        }
+        return;
+      }
+      long value = (Long) subj;
+      if ( states[group] == EMPTY || ( min ? value < values[group] : value > values[group] ) ) {
+        values[group] = value;
+        states[group] = VALUED;
+      }
+    }
+
+    @Override
+    Object getResult( int group ) {
+      return states[group] == VALUED ? Long.valueOf( values[group] ) : null;
+    }
+  }
+
+  /**
+   * Minimum or maximum of numbers, ordered like {@link Double#compare(double, double)}. Nulls are ignored unless a
+   * null is the minimum of a group (nullWins).
+   */
+  static class DoubleMinMaxColumn extends Column {
+    private final boolean min;
+    private final boolean nullWins;
+    private double[] values = new double[0];
+    private byte[] states = new byte[0];
+
+    DoubleMinMaxColumn( boolean min, boolean nullWins ) {
+      this.min = min;
+      this.nullWins = nullWins;
+    }
+
+    @Override
+    void grow( int capacity ) {
+      values = Arrays.copyOf( values, capacity );
+      states = Arrays.copyOf( states, capacity );
+    }
+
+    @Override
+    void add( int group, Object subj ) {
+      if ( states[group] == NULL ) {
+        return;
+      }
+      if ( subj == null ) {
+        if ( nullWins ) {
+          states[group] = NULL;
+        }
+        return;
+      }
+      double value = (Double) subj;
+      int cmp = states[group] == EMPTY ? 0 : Double.compare( value, values[group] );
+      if ( states[group] == EMPTY || ( min ? cmp < 0 : cmp > 0 ) ) {
+        values[group] = value;
+        states[group] = VALUED;
+      }
+    }
+
+    @Override
+    Object getResult( int group ) {
+      return states[group] == VALUED ? Double.valueOf( values[group] ) : null;
+    }
+  }
+}
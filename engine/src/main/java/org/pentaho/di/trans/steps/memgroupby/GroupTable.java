@@ -0,0 +1,140 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.memgroupby;
+
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * Gives every distinct combination of group field values a dense group number: 0 for the first group, 1 for the next
+ * and so on. The aggregate state can then be kept in arrays indexed by group number instead of in an object per group.
+ * <p>
+ * The table uses open addressing with linear probing over an int array and remembers the hash code of every group so
+ * that most probes don't need to compare the group values themselves. Group values are equal when the group metadata
+ * says so, just like for {@link MemoryGroupByData.HashEntry}.
+ */
+class GroupTable {
+  private static final int MIN_CAPACITY = 16;
+
+  private final RowMetaInterface groupMeta;
+
+  /** Group number + 1 per slot, 0 marks an empty slot */
+  private int[] slots;
+  private int mask;
+
+  private Object[][] groups;
+  private int[] hashes;
+  private int size;
+
+  GroupTable( RowMetaInterface groupMeta, int expectedGroups ) {
+    this.groupMeta = groupMeta;
+
+    int capacity = Integer.highestOneBit( Math.max( MIN_CAPACITY, expectedGroups ) * 2 - 1 ) << 1;
+    slots = new int[capacity];
+    mask = capacity - 1;
+    groups = new Object[capacity / 2][];
+    hashes = new int[capacity / 2];
+  }
+
+  /**
+   * Calculates the hash code of the group values, independent of their storage type. The bits are mixed so that both
+   * the lower bits (used by this table) and the upper bits (used to pick a spill partition) are well distributed.
+   */
+  int hash( Object[] groupData ) throws KettleValueException {
+    return hash( groupMeta, groupData );
+  }
+
+  /**
+   * The same hash code as {@link #hash(Object[])}, for threads that only need to pick a partition.
+   */
+  static int hash( RowMetaInterface groupMeta, Object[] groupData ) throws KettleValueException {
+    Object[] normal = new Object[groupData.length];
+    for ( int i = 0; i < groupData.length; i++ ) {
+      normal[i] = groupMeta.getValueMeta( i ).convertToNormalStorageType( groupData[i] );
+    }
+    int h = groupMeta.hashCode( normal );
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  /**
+   * @return the number of the group or -1 if the group values were not added yet
+   */
+  int find( Object[] groupData, int hash ) throws KettleValueException {
+    int index = hash & mask;
+    int slot;
+    while ( ( slot = slots[index] ) != 0 ) {
+      int group = slot - 1;
+      if ( hashes[group] == hash && groupMeta.compare( groups[group], groupData ) == 0 ) {
+        return group;
+      }
+      index = ( index + 1 ) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * Adds group values that are not in the table yet.
+   *
+   * @return the number of the new group
+   */
+  int add( Object[] groupData, int hash ) {
+    if ( size == groups.length ) {
+      grow();
+    }
+    int group = size++;
+    groups[group] = groupData;
+    hashes[group] = hash;
+    insert( group );
+    return group;
+  }
+
+  private void insert( int group ) {
+    int index = hashes[group] & mask;
+    while ( slots[index] != 0 ) {
+      index = ( index + 1 ) & mask;
+    }
+    slots[index] = group + 1;
+  }
+
+  private void grow() {
+    int capacity = slots.length * 2;
+    slots = new int[capacity];
+    mask = capacity - 1;
+
+    Object[][] newGroups = new Object[capacity / 2][];
+    System.arraycopy( groups, 0, newGroups, 0, size );
+    groups = newGroups;
+    int[] newHashes = new int[capacity / 2];
+    System.arraycopy( hashes, 0, newHashes, 0, size );
+    hashes = newHashes;
+
+    for ( int group = 0; group < size; group++ ) {
+      insert( group );
+    }
+  }
+
+  Object[] getGroupData( int group ) {
+    return groups[group];
+  }
+
+  int size() {
+    return size;
+  }
+}
@@ -13,17 +13,31 @@
 
 package org.pentaho.di.trans.steps.memgroupby;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.math.stat.descriptive.rank.Percentile;
+import org.apache.commons.vfs2.FileSystemException;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleFileException;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
@@ -34,6 +48,7 @@ import org.pentaho.di.core.row.value.ValueMetaBase;
 import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaNumber;
 import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.vfs.KettleVFS;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -42,7 +57,10 @@ import org.pentaho.di.trans.step.StepDataInterface;
 import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
+import org.pentaho.di.trans.steps.memgroupby.MemoryGroupByData.AggregationPartition;
 import org.pentaho.di.trans.steps.memgroupby.MemoryGroupByData.HashEntry;
+import org.pentaho.di.trans.steps.memgroupby.MemoryGroupByData.RowBatch;
+import org.pentaho.di.trans.steps.memgroupby.MemoryGroupByData.SpillFile;
 
 /**
  * Groups information based on aggregation rules. (sum, count, ...)
@@ -53,6 +71,23 @@ import org.pentaho.di.trans.steps.memgroupby.MemoryGroupByData.HashEntry;
 public class MemoryGroupBy extends BaseStep implements StepInterface {
   private static Class<?> PKG = MemoryGroupByMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /** Spill to disk: the number of hash bits used to pick a partition file at every level */
+  static final int PARTITION_BITS = 4;
+  static final int NR_PARTITIONS = 1 << PARTITION_BITS;
+
+  /** Spill to disk: from this level on there are not enough unused hash bits left, all groups stay in memory */
+  static final int MAX_SPILL_LEVEL = 6;
+
+  private static final int DEFAULT_FREE_MEMORY_LIMIT = 25;
+  private static final int MIN_GROUPS_IN_MEMORY = 1000;
+  private static final int EXPECTED_GROUPS = 5000;
+  private static final int SPILL_BUFFER_SIZE = 65536;
+
+  /** Aggregation threads: the rows are handed over in batches, at most a few batches are queued per thread */
+  private static final int ROW_BATCH_SIZE = 1024;
+  private static final int ROW_QUEUE_SIZE = 4;
+  private static final long QUEUE_WAIT_MILLIS = 100;
+
   private MemoryGroupByMeta meta;
 
   private MemoryGroupByData data;
@@ -161,6 +196,12 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       data.groupAggMeta = new RowMeta();
       data.groupAggMeta.addRowMeta( data.groupMeta );
       data.groupAggMeta.addRowMeta( data.aggMeta );
+
+      if ( r != null && meta.isSpillingToDisk() ) {
+        initHashAggregation();
+      } else if ( r != null && data.aggregationThreads > 1 ) {
+        startParallelAggregation();
+      }
     }
 
     // Here is where we start to do the real work...
@@ -168,7 +209,13 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
     if ( r == null ) { // no more input to be expected... (or none received in the first place)
 
       updateValueMeta();
-      handleLastOfGroup();
+      if ( data.groupTable != null ) {
+        handleLastOfHashAggregation();
+      } else if ( data.aggregationPartitions != null ) {
+        handleLastOfParallelAggregation();
+      } else {
+        handleLastOfGroup();
+      }
 
       setOutputDone();
       return false;
@@ -179,7 +226,13 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       data.newBatch = false;
     }
 
-    addToAggregate( r );
+    if ( data.groupTable != null ) {
+      addToHashAggregation( r );
+    } else if ( data.aggregationPartitions != null ) {
+      addToParallelAggregation( r );
+    } else {
+      addToAggregate( r );
+    }
 
     if ( checkFeedback( getLinesRead() ) ) {
       if ( log.isBasic() ) {
@@ -195,39 +248,47 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
     //
     for ( HashEntry entry : data.map.keySet() ) {
       Aggregate aggregate = data.map.get( entry );
-      Object[] aggregateResult = getAggregateResult( aggregate );
-
-      Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
-      int index = 0;
-      for ( int i = 0; i < data.groupMeta.size(); i++ ) {
-        outputRowData[index++] = data.groupMeta.getValueMeta( i ).convertToNormalStorageType( entry.getGroupData()[i] );
-      }
-      for ( int i = 0; i < data.aggMeta.size(); i++ ) {
-        outputRowData[index++] = data.aggMeta.getValueMeta( i ).convertToNormalStorageType( aggregateResult[i] );
-      }
-      putRow( data.outputRowMeta, outputRowData );
+      putGroupRow( entry.getGroupData(), getAggregateResult( aggregate ) );
     }
 
     // What if we always need to give back one row?
-    // This means we give back 0 for count all, count distinct, null for everything else
     //
     if ( data.map.isEmpty() && meta.isAlwaysGivingBackOneRow() ) {
-      Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
-      int index = 0;
-      for ( int i = 0; i < data.groupMeta.size(); i++ ) {
+      giveBackOneRow();
+    }
+  }
+
+  private void putGroupRow( Object[] groupData, Object[] aggregateResult ) throws KettleException {
+    Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+    int index = 0;
+    for ( int i = 0; i < data.groupMeta.size(); i++ ) {
+      outputRowData[index++] = data.groupMeta.getValueMeta( i ).convertToNormalStorageType( groupData[i] );
+    }
+    for ( int i = 0; i < data.aggMeta.size(); i++ ) {
+      outputRowData[index++] = data.aggMeta.getValueMeta( i ).convertToNormalStorageType( aggregateResult[i] );
+    }
+    putRow( data.outputRowMeta, outputRowData );
+  }
+
+  /**
+   * This means we give back 0 for count all, count distinct, null for everything else
+   */
+  private void giveBackOneRow() throws KettleException {
+    Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+    int index = 0;
+    for ( int i = 0; i < data.groupMeta.size(); i++ ) {
+      outputRowData[index++] = null;
+    }
+    for ( int i = 0; i < data.aggMeta.size(); i++ ) {
+      if ( meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL
+        || meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY
+        || meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT ) {
+        outputRowData[index++] = Long.valueOf( 0L );
+      } else {
         outputRowData[index++] = null;
       }
-      for ( int i = 0; i < data.aggMeta.size(); i++ ) {
-        if ( meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL
-          || meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY
-          || meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT ) {
-          outputRowData[index++] = Long.valueOf( 0L );
-        } else {
-          outputRowData[index++] = null;
-        }
-      }
-      putRow( data.outputRowMeta, outputRowData );
     }
+    putRow( data.outputRowMeta, outputRowData );
   }
 
   @VisibleForTesting
@@ -251,7 +312,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
    * @param r
    * @throws KettleException
    */
-  @SuppressWarnings( "unchecked" ) void addToAggregate( Object[] r ) throws KettleException {
+  void addToAggregate( Object[] r ) throws KettleException {
 
     Object[] groupData = new Object[data.groupMeta.size()];
     for ( int i = 0; i < data.groupnrs.length; i++ ) {
@@ -272,135 +333,501 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
     }
 
     for ( int i = 0; i < data.subjectnrs.length; i++ ) {
-      Object subj = r[data.subjectnrs[i]];
-      ValueMetaInterface subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[i] );
-      Object value = aggregate.agg[i];
-      ValueMetaInterface valueMeta = data.aggMeta.getValueMeta( i );
+      updateAggregate( aggregate, i, r, data.inputRowMeta, data.aggMeta );
+    }
+  }
 
-      switch ( meta.getAggregateType()[i] ) {
-        case MemoryGroupByMeta.TYPE_GROUP_SUM:
+  /**
+   * Adds the value of a subject field to the state of one aggregate of a group. The row metadata is passed in because
+   * aggregation threads use their own copy.
+   */
+  @SuppressWarnings( "unchecked" )
+  private void updateAggregate( Aggregate aggregate, int i, Object[] r, RowMetaInterface inputRowMeta,
+                                RowMetaInterface aggMeta ) throws KettleException {
+    Object subj = r[data.subjectnrs[i]];
+    ValueMetaInterface subjMeta = inputRowMeta.getValueMeta( data.subjectnrs[i] );
+    Object value = aggregate.agg[i];
+    ValueMetaInterface valueMeta = aggMeta.getValueMeta( i );
+
+    switch ( meta.getAggregateType()[i] ) {
+      case MemoryGroupByMeta.TYPE_GROUP_SUM:
+        aggregate.agg[i] = ValueDataUtil.sum( valueMeta, value, subjMeta, subj );
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+        if ( !subjMeta.isNull( subj ) ) {
           aggregate.agg[i] = ValueDataUtil.sum( valueMeta, value, subjMeta, subj );
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
-          if ( !subjMeta.isNull( subj ) ) {
-            aggregate.agg[i] = ValueDataUtil.sum( valueMeta, value, subjMeta, subj );
-            aggregate.counts[i]++;
-          }
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_MEDIAN:
-        case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE:
-          if ( !subjMeta.isNull( subj ) ) {
-            ( (List<Double>) aggregate.agg[i] ).add( subjMeta.getNumber( subj ) );
-          }
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
-          if ( aggregate.mean == null ) {
-            aggregate.mean = new double[meta.getSubjectField().length];
-          }
           aggregate.counts[i]++;
-          double n = aggregate.counts[i];
-          double x = subjMeta.getNumber( subj );
-          // for standard deviation null is exact 0
-          double sum = value == null ? new Double( 0 ) : (Double) value;
-          double mean = aggregate.mean[i];
-
-          double delta = x - mean;
-          mean = mean + ( delta / n );
-          sum = sum + delta * ( x - mean );
-
-          aggregate.mean[i] = mean;
-          aggregate.agg[i] = sum;
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
-          if ( aggregate.distinctObjs == null ) {
-            aggregate.distinctObjs = new Set[meta.getSubjectField().length];
-          }
-          if ( aggregate.distinctObjs[i] == null ) {
-            aggregate.distinctObjs[i] = new TreeSet<>();
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_MEDIAN:
+      case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE:
+        if ( !subjMeta.isNull( subj ) ) {
+          ( (List<Double>) aggregate.agg[i] ).add( subjMeta.getNumber( subj ) );
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
+        if ( aggregate.mean == null ) {
+          aggregate.mean = new double[meta.getSubjectField().length];
+        }
+        aggregate.counts[i]++;
+        double n = aggregate.counts[i];
+        double x = subjMeta.getNumber( subj );
+        // for standard deviation null is exact 0
+        double sum = value == null ? new Double( 0 ) : (Double) value;
+        double mean = aggregate.mean[i];
+
+        double delta = x - mean;
+        mean = mean + ( delta / n );
+        sum = sum + delta * ( x - mean );
+
+        aggregate.mean[i] = mean;
+        aggregate.agg[i] = sum;
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
+        if ( aggregate.distinctObjs == null ) {
+          aggregate.distinctObjs = new Set[meta.getSubjectField().length];
+        }
+        if ( aggregate.distinctObjs[i] == null ) {
+          aggregate.distinctObjs[i] = new TreeSet<>();
+        }
+        if ( !subjMeta.isNull( subj ) ) {
+          Object obj = subjMeta.convertToNormalStorageType( subj );
+          // byte [] is not Comparable and can not be added to TreeSet.
+          // For our case it can be binary array. It was typed as String.
+          // So it can be processing (comparing and displaying) correctly as String
+          if ( obj instanceof byte [] ) {
+            obj = new String( (byte []) obj );
           }
-          if ( !subjMeta.isNull( subj ) ) {
-            Object obj = subjMeta.convertToNormalStorageType( subj );
-            // byte [] is not Comparable and can not be added to TreeSet.
-            // For our case it can be binary array. It was typed as String.
-            // So it can be processing (comparing and displaying) correctly as String
-            if ( obj instanceof byte [] ) {
-              obj = new String( (byte []) obj );
-            }
-            if ( !aggregate.distinctObjs[i].contains( obj ) ) {
-              aggregate.distinctObjs[i].add( obj );
-            }
+          if ( !aggregate.distinctObjs[i].contains( obj ) ) {
+            aggregate.distinctObjs[i].add( obj );
           }
-          aggregate.counts[i] = aggregate.distinctObjs[i].size();
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
-          if ( !subjMeta.isNull( subj ) ) {
-            aggregate.counts[i]++;
-          }
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
+        }
+        aggregate.counts[i] = aggregate.distinctObjs[i].size();
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
+        if ( !subjMeta.isNull( subj ) ) {
           aggregate.counts[i]++;
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_MIN:
-          boolean subjIsNull = subjMeta.isNull( subj );
-          boolean valueIsNull = valueMeta.isNull( value );
-          if ( minNullIsValued || ( !subjIsNull && !valueIsNull ) ) {
-            // PDI-11530 do not compare null
-            aggregate.agg[i] = subjMeta.compare( subj, valueMeta, value ) < 0 ? subj : value;
-          } else if ( valueIsNull && !subjIsNull ) {
-            // By default set aggregate to first not null value
-            aggregate.agg[i] = subj;
-          }
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_MAX:
-          if ( subjMeta.compare( subj, valueMeta, value ) > 0 ) {
-            aggregate.agg[i] = subj;
-          }
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_FIRST:
-          if ( !subjMeta.isNull( subj ) && value == null ) {
-            aggregate.agg[i] = subj;
-          }
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_LAST:
-          if ( !subjMeta.isNull( subj ) ) {
-            aggregate.agg[i] = subj;
-          }
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_FIRST_INCL_NULL:
-          if ( aggregate.counts[i] == 0 ) {
-            aggregate.agg[i] = subj;
-            aggregate.counts[i]++;
-          }
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_LAST_INCL_NULL:
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
+        aggregate.counts[i]++;
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_MIN:
+        boolean subjIsNull = subjMeta.isNull( subj );
+        boolean valueIsNull = valueMeta.isNull( value );
+        if ( minNullIsValued || ( !subjIsNull && !valueIsNull ) ) {
+          // PDI-11530 do not compare null
+          aggregate.agg[i] = subjMeta.compare( subj, valueMeta, value ) < 0 ? subj : value;
+        } else if ( valueIsNull && !subjIsNull ) {
+          // By default set aggregate to first not null value
           aggregate.agg[i] = subj;
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA:
-          if ( !( subj == null ) ) {
-            StringBuilder sb = (StringBuilder) value;
-            if ( sb.length() > 0 ) {
-              sb.append( ", " );
-            }
-            sb.append( subjMeta.getString( subj ) );
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_MAX:
+        if ( subjMeta.compare( subj, valueMeta, value ) > 0 ) {
+          aggregate.agg[i] = subj;
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_FIRST:
+        if ( !subjMeta.isNull( subj ) && value == null ) {
+          aggregate.agg[i] = subj;
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_LAST:
+        if ( !subjMeta.isNull( subj ) ) {
+          aggregate.agg[i] = subj;
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_FIRST_INCL_NULL:
+        if ( aggregate.counts[i] == 0 ) {
+          aggregate.agg[i] = subj;
+          aggregate.counts[i]++;
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_LAST_INCL_NULL:
+        aggregate.agg[i] = subj;
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA:
+        if ( !( subj == null ) ) {
+          StringBuilder sb = (StringBuilder) value;
+          if ( sb.length() > 0 ) {
+            sb.append( ", " );
           }
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_CONCAT_STRING:
-          if ( !( subj == null ) ) {
-            String separator = "";
-            if ( !Utils.isEmpty( meta.getValueField()[i] ) ) {
-              separator = environmentSubstitute( meta.getValueField()[i] );
-            }
-            StringBuilder sb = (StringBuilder) value;
-            if ( sb.length() > 0 ) {
-              sb.append( separator );
-            }
-            sb.append( subjMeta.getString( subj ) );
+          sb.append( subjMeta.getString( subj ) );
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_CONCAT_STRING:
+        if ( !( subj == null ) ) {
+          String separator = "";
+          if ( !Utils.isEmpty( meta.getValueField()[i] ) ) {
+            separator = environmentSubstitute( meta.getValueField()[i] );
           }
-          break;
-        default:
-          break;
+          StringBuilder sb = (StringBuilder) value;
+          if ( sb.length() > 0 ) {
+            sb.append( separator );
+          }
+          sb.append( subjMeta.getString( subj ) );
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void initHashAggregation() {
+    data.maxGroups = Const.toInt( environmentSubstitute( meta.getMaxGroups() ), 0 );
+    data.freeMemoryPctLimit = Const.toInt( environmentSubstitute( meta.getFreeMemoryLimit() ), -1 );
+    if ( data.maxGroups <= 0 && data.freeMemoryPctLimit <= 0 ) {
+      // Prevent out-of-memory errors
+      data.freeMemoryPctLimit = DEFAULT_FREE_MEMORY_LIMIT;
+    }
+    data.partitions = new SpillFile[NR_PARTITIONS];
+    resetHashAggregation( 0 );
+  }
+
+  /**
+   * Starts over with an empty group table, for the next batch or the next partition file.
+   */
+  private void resetHashAggregation( int level ) {
+    data.accumulators = createAccumulators( data.inputRowMeta, data.aggMeta );
+    data.groupTable = new GroupTable( data.groupMeta, EXPECTED_GROUPS );
+    data.spilling = false;
+    data.spillLevel = level;
+    data.freeCounter = 0;
+    data.freeMemoryPct = Const.getPercentageFreeMemory();
+  }
+
+  private GroupAccumulators createAccumulators( RowMetaInterface inputRowMeta, RowMetaInterface aggMeta ) {
+    GroupAccumulators.Column[] columns = new GroupAccumulators.Column[data.subjectnrs.length];
+    for ( int i = 0; i < columns.length; i++ ) {
+      columns[i] = GroupAccumulators.createColumn( meta.getAggregateType()[i],
+        inputRowMeta.getValueMeta( data.subjectnrs[i] ), aggMeta.getValueMeta( i ), minNullIsValued );
+    }
+    return new GroupAccumulators( columns );
+  }
+
+  /**
+   * Spill to disk variant of {@link #addToAggregate(Object[])}: the aggregates are updated in the primitive columns of
+   * the group, the rows of new groups that don't fit in memory anymore are written to a partition file instead.
+   */
+  private void addToHashAggregation( Object[] r ) throws KettleException {
+    Object[] groupData = new Object[data.groupMeta.size()];
+    for ( int i = 0; i < data.groupnrs.length; i++ ) {
+      groupData[i] = r[data.groupnrs[i]];
+    }
+    int hash = data.groupTable.hash( groupData );
+
+    int group = data.groupTable.find( groupData, hash );
+    if ( group < 0 && isMemoryFull() ) {
+      spillRow( r, hash );
+      return;
+    }
+    addToGroup( data.groupTable, data.accumulators, data.inputRowMeta, data.aggMeta, r, groupData, hash, group );
+  }
+
+  /**
+   * Updates the aggregates of a group in a group table with a row, adding the group first if it's new (group -1).
+   */
+  private void addToGroup( GroupTable groupTable, GroupAccumulators accumulators, RowMetaInterface inputRowMeta,
+                           RowMetaInterface aggMeta, Object[] r, Object[] groupData, int hash, int group )
+    throws KettleException {
+    if ( group < 0 ) {
+      group = groupTable.add( groupData, hash );
+      accumulators.ensureCapacity( group + 1 );
+      if ( accumulators.isUsingAggregates() ) {
+        Aggregate aggregate = new Aggregate();
+        newAggregate( r, aggregate, inputRowMeta );
+        accumulators.setAggregate( group, aggregate );
       }
     }
+
+    Aggregate aggregate = accumulators.isUsingAggregates() ? accumulators.getAggregate( group ) : null;
+    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+      GroupAccumulators.Column column = accumulators.getColumn( i );
+      if ( column != null ) {
+        column.add( group, r[data.subjectnrs[i]] );
+      } else {
+        updateAggregate( aggregate, i, r, inputRowMeta, aggMeta );
+      }
+    }
+  }
+
+  /**
+   * Once memory is full no new groups are added at the current level until all the rows have been read. The groups
+   * that are already in memory keep being aggregated.
+   */
+  private boolean isMemoryFull() {
+    if ( data.spilling || data.spillLevel >= MAX_SPILL_LEVEL ) {
+      return data.spilling;
+    }
+
+    int nrGroups = data.groupTable.size();
+    if ( data.maxGroups > 0 && nrGroups >= data.maxGroups ) {
+      data.spilling = true;
+    } else if ( data.freeMemoryPctLimit > 0 && ++data.freeCounter >= 1000 ) {
+      // Check the free memory every 1000 new groups...
+      //
+      data.freeCounter = 0;
+      data.freeMemoryPct = Const.getPercentageFreeMemory();
+      data.spilling = data.freeMemoryPct < data.freeMemoryPctLimit && nrGroups >= MIN_GROUPS_IN_MEMORY;
+    }
+
+    if ( data.spilling && log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "MemoryGroupBy.Log.StartSpilling", nrGroups, data.freeMemoryPct,
+        data.spillLevel ) );
+    }
+    return data.spilling;
+  }
+
+  /**
+   * Writes the row to the partition file picked by the next unused bits of the hash code of its group.
+   */
+  private void spillRow( Object[] r, int hash ) throws KettleException {
+    int shift = Integer.SIZE - PARTITION_BITS * ( data.spillLevel + 1 );
+    int partition = ( hash >>> shift ) & ( NR_PARTITIONS - 1 );
+
+    SpillFile spillFile = data.partitions[partition];
+    if ( spillFile == null ) {
+      spillFile = new SpillFile();
+      spillFile.level = data.spillLevel + 1;
+      spillFile.file = KettleVFS.createTempFile( environmentSubstitute( meta.getPrefix() ), ".tmp",
+        environmentSubstitute( meta.getDirectory() ), getTransMeta() );
+      spillFile.outputStream = new DataOutputStream(
+        new BufferedOutputStream( KettleVFS.getOutputStream( spillFile.file, false ), SPILL_BUFFER_SIZE ) );
+      data.partitions[partition] = spillFile;
+    }
+    data.inputRowMeta.writeData( spillFile.outputStream, r );
+    spillFile.nrRows++;
+  }
+
+  /**
+   * Spill to disk variant of {@link #handleLastOfGroup()}: outputs the groups in memory and then aggregates the
+   * partition files one by one. A partition that doesn't fit in memory either is split up again using the next bits
+   * of the hash codes.
+   */
+  private void handleLastOfHashAggregation() throws KettleException {
+    long nrGroups = 0;
+    while ( !isStopped() ) {
+      nrGroups += putHashAggregationGroups( data.groupTable, data.accumulators );
+      closePartitions();
+
+      SpillFile spillFile = data.spillFiles.poll();
+      if ( spillFile == null ) {
+        break;
+      }
+      resetHashAggregation( spillFile.level );
+      aggregateSpillFile( spillFile );
+    }
+
+    if ( nrGroups == 0 && meta.isAlwaysGivingBackOneRow() ) {
+      giveBackOneRow();
+    }
+  }
+
+  private int putHashAggregationGroups( GroupTable groupTable, GroupAccumulators accumulators )
+    throws KettleException {
+    int nrGroups = groupTable.size();
+    for ( int group = 0; group < nrGroups && !isStopped(); group++ ) {
+      Aggregate aggregate = accumulators.isUsingAggregates() ? accumulators.getAggregate( group ) : null;
+      Object[] aggregateResult = new Object[data.subjectnrs.length];
+      for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+        GroupAccumulators.Column column = accumulators.getColumn( i );
+        if ( column != null ) {
+          aggregateResult[i] = nullToZero( i, column.getResult( group ) );
+        } else {
+          aggregateResult[i] = getAggregateResult( aggregate, i );
+        }
+      }
+      putGroupRow( groupTable.getGroupData( group ), aggregateResult );
+    }
+    return nrGroups;
+  }
+
+  private void closePartitions() throws KettleException {
+    for ( int p = 0; p < NR_PARTITIONS; p++ ) {
+      SpillFile spillFile = data.partitions[p];
+      if ( spillFile == null ) {
+        continue;
+      }
+      data.partitions[p] = null;
+      data.spillFiles.push( spillFile );
+      try {
+        spillFile.outputStream.close();
+        spillFile.outputStream = null;
+      } catch ( IOException e ) {
+        throw new KettleFileException( BaseMessages.getString(
+          PKG, "MemoryGroupBy.Exception.UnableToCloseTemporaryFile", spillFile.file.toString() ), e );
+      }
+    }
+  }
+
+  private void aggregateSpillFile( SpillFile spillFile ) throws KettleException {
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "MemoryGroupBy.Log.AggregatingSpillFile", spillFile.file.toString(),
+        spillFile.nrRows, spillFile.level ) );
+    }
+
+    InputStream inputStream = KettleVFS.getInputStream( spillFile.file );
+    try {
+      DataInputStream dis = new DataInputStream( new BufferedInputStream( inputStream, SPILL_BUFFER_SIZE ) );
+      for ( long r = 0; r < spillFile.nrRows && !isStopped(); r++ ) {
+        addToHashAggregation( data.inputRowMeta.readData( dis ) );
+      }
+    } catch ( SocketTimeoutException e ) {
+      throw new KettleException( BaseMessages.getString(
+        PKG, "MemoryGroupBy.Exception.UnableToReadBackRowFromTemporaryFile" ), e );
+    } finally {
+      BaseStep.closeQuietly( inputStream );
+      deleteSpillFile( spillFile );
+    }
+  }
+
+  private void deleteSpillFile( SpillFile spillFile ) {
+    try {
+      spillFile.file.delete();
+    } catch ( FileSystemException e ) {
+      logError( e.getLocalizedMessage(), e );
+    }
+  }
+
+  /**
+   * Removes the temporary files that are left when the step stopped before it could aggregate them.
+   */
+  private void deleteSpillFiles( MemoryGroupByData groupByData ) {
+    if ( groupByData.partitions != null ) {
+      for ( int p = 0; p < groupByData.partitions.length; p++ ) {
+        SpillFile spillFile = groupByData.partitions[p];
+        if ( spillFile != null ) {
+          BaseStep.closeQuietly( spillFile.outputStream );
+          groupByData.spillFiles.push( spillFile );
+          groupByData.partitions[p] = null;
+        }
+      }
+    }
+    while ( !groupByData.spillFiles.isEmpty() ) {
+      deleteSpillFile( groupByData.spillFiles.pop() );
+    }
+  }
+
+  /**
+   * Creates a hash partition of the groups per aggregation thread and starts the threads.
+   */
+  private void startParallelAggregation() {
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "MemoryGroupBy.Log.StartingAggregationThreads",
+        data.aggregationThreads ) );
+    }
+    data.aggregationPartitions = new AggregationPartition[data.aggregationThreads];
+    for ( int p = 0; p < data.aggregationPartitions.length; p++ ) {
+      final AggregationPartition partition = new AggregationPartition( ROW_QUEUE_SIZE, data.inputRowMeta.clone(),
+        data.aggMeta.clone(), data.groupMeta.clone(), EXPECTED_GROUPS / data.aggregationThreads );
+      partition.accumulators = createAccumulators( partition.inputRowMeta, partition.aggMeta );
+      partition.batch = new RowBatch( ROW_BATCH_SIZE );
+      partition.future = data.aggregationExecutor.submit( new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          aggregatePartition( partition );
+          return null;
+        }
+      } );
+      data.aggregationPartitions[p] = partition;
+    }
+  }
+
+  /**
+   * Aggregation threads variant of {@link #addToAggregate(Object[])}: the row is handed over to the thread of its hash
+   * partition. The partition is picked with the upper bits of the hash code, the group tables use the lower bits.
+   */
+  private void addToParallelAggregation( Object[] r ) throws KettleException {
+    Object[] groupData = new Object[data.groupMeta.size()];
+    for ( int i = 0; i < data.groupnrs.length; i++ ) {
+      groupData[i] = r[data.groupnrs[i]];
+    }
+    int hash = GroupTable.hash( data.groupMeta, groupData );
+    int p = (int) ( ( ( hash >>> 1 ) * (long) data.aggregationThreads ) >>> 31 );
+
+    AggregationPartition partition = data.aggregationPartitions[p];
+    partition.batch.add( r, groupData, hash );
+    if ( partition.batch.isFull() ) {
+      queueBatch( partition, partition.batch );
+      partition.batch = new RowBatch( ROW_BATCH_SIZE );
+    }
+  }
+
+  private void queueBatch( AggregationPartition partition, RowBatch batch ) throws KettleException {
+    try {
+      while ( !partition.queue.offer( batch, QUEUE_WAIT_MILLIS, TimeUnit.MILLISECONDS ) ) {
+        if ( partition.future.isDone() ) {
+          // The thread ended before it got all the rows, report its error
+          waitForPartition( partition );
+          return;
+        }
+        if ( isStopped() ) {
+          return;
+        }
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( BaseMessages.getString( PKG, "MemoryGroupBy.Exception.ErrorInAggregationThread" ), e );
+    }
+  }
+
+  // runs in an aggregation thread: adds the rows of its partition to the groups until all the rows have been handed
+  // over or the step is stopped
+  private void aggregatePartition( AggregationPartition partition ) throws KettleException, InterruptedException {
+    while ( !isStopped() ) {
+      RowBatch batch = partition.queue.poll( QUEUE_WAIT_MILLIS, TimeUnit.MILLISECONDS );
+      if ( batch == RowBatch.END ) {
+        return;
+      }
+      if ( batch == null ) {
+        continue;
+      }
+      for ( int b = 0; b < batch.size; b++ ) {
+        Object[] groupData = batch.groupData[b];
+        int hash = batch.hashes[b];
+        int group = partition.groupTable.find( groupData, hash );
+        addToGroup( partition.groupTable, partition.accumulators, partition.inputRowMeta, partition.aggMeta,
+          batch.rows[b], groupData, hash, group );
+      }
+    }
+  }
+
+  private void waitForPartition( AggregationPartition partition ) throws KettleException {
+    try {
+      partition.future.get();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( BaseMessages.getString( PKG, "MemoryGroupBy.Exception.ErrorInAggregationThread" ), e );
+    } catch ( ExecutionException e ) {
+      throw new KettleException( BaseMessages.getString( PKG, "MemoryGroupBy.Exception.ErrorInAggregationThread" ),
+        e.getCause() );
+    }
+  }
+
+  /**
+   * Aggregation threads variant of {@link #handleLastOfGroup()}: waits until every thread has aggregated its rows and
+   * outputs the groups of all the partitions. A group only ever ends up in one partition so there is nothing to merge.
+   */
+  private void handleLastOfParallelAggregation() throws KettleException {
+    for ( AggregationPartition partition : data.aggregationPartitions ) {
+      if ( partition.batch.size > 0 ) {
+        queueBatch( partition, partition.batch );
+      }
+      queueBatch( partition, RowBatch.END );
+    }
+
+    long nrGroups = 0;
+    for ( AggregationPartition partition : data.aggregationPartitions ) {
+      waitForPartition( partition );
+      if ( !isStopped() ) {
+        nrGroups += putHashAggregationGroups( partition.groupTable, partition.accumulators );
+      }
+    }
+
+    if ( nrGroups == 0 && meta.isAlwaysGivingBackOneRow() ) {
+      giveBackOneRow();
+    }
   }
 
   /**
@@ -411,6 +838,11 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
    * @throws KettleException
    */
   void newAggregate( Object[] r, Aggregate aggregate ) throws KettleException {
+    newAggregate( r, aggregate, data.inputRowMeta );
+  }
+
+  private void newAggregate( Object[] r, Aggregate aggregate, RowMetaInterface inputRowMeta )
+    throws KettleException {
     if ( aggregate == null ) {
       data.aggMeta = new RowMeta();
     } else {
@@ -426,7 +858,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
     }
 
     for ( int i = 0; i < data.subjectnrs.length; i++ ) {
-      ValueMetaInterface subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[i] );
+      ValueMetaInterface subjMeta = inputRowMeta.getValueMeta( data.subjectnrs[i] );
       Object v = null;
       ValueMetaInterface vMeta = null;
       switch ( meta.getAggregateType()[i] ) {
@@ -510,56 +942,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
 
     if ( data.subjectnrs != null ) {
       for ( int i = 0; i < data.subjectnrs.length; i++ ) {
-        Object ag = aggregate.agg[i];
-        switch ( meta.getAggregateType()[i] ) {
-          case MemoryGroupByMeta.TYPE_GROUP_SUM:
-            break;
-          case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
-            ag = ValueDataUtil.divide(
-              data.aggMeta.getValueMeta( i ), ag,
-              new ValueMetaInteger( "c" ), aggregate.counts[i]
-            );
-            break;
-          case MemoryGroupByMeta.TYPE_GROUP_MEDIAN:
-          case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE:
-            double percentile = 50.0;
-            if ( meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_PERCENTILE ) {
-              percentile = Double.parseDouble( meta.getValueField()[i] );
-            }
-            @SuppressWarnings( "unchecked" )
-            List<Double> valuesList = (List<Double>) aggregate.agg[i];
-            double[] values = new double[valuesList.size()];
-            for ( int v = 0; v < values.length; v++ ) {
-              values[v] = valuesList.get( v );
-            }
-            ag = new Percentile().evaluate( values, percentile );
-            break;
-          case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
-          case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
-          case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
-            ag = aggregate.counts[i];
-            break;
-          case MemoryGroupByMeta.TYPE_GROUP_MIN:
-            break;
-          case MemoryGroupByMeta.TYPE_GROUP_MAX:
-            break;
-          case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
-            double sum = (Double) ag / aggregate.counts[i];
-            ag = Double.valueOf( Math.sqrt( sum ) );
-            break;
-          case MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA:
-          case MemoryGroupByMeta.TYPE_GROUP_CONCAT_STRING:
-            ag = ( (StringBuilder) ag ).toString();
-            break;
-          default:
-            break;
-        }
-        if ( ag == null && allNullsAreZero ) {
-          // PDI-11530 seems all rows for min function was nulls...
-          ValueMetaInterface vm = data.aggMeta.getValueMeta( i );
-          ag = ValueDataUtil.getZeroForValueMetaType( vm );
-        }
-        result[i] = ag;
+        result[i] = getAggregateResult( aggregate, i );
       }
     }
 
@@ -567,6 +950,63 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
 
   }
 
+  private Object getAggregateResult( Aggregate aggregate, int i ) throws KettleValueException {
+    Object ag = aggregate.agg[i];
+    switch ( meta.getAggregateType()[i] ) {
+      case MemoryGroupByMeta.TYPE_GROUP_SUM:
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+        ag = ValueDataUtil.divide(
+          data.aggMeta.getValueMeta( i ), ag,
+          new ValueMetaInteger( "c" ), aggregate.counts[i]
+        );
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_MEDIAN:
+      case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE:
+        double percentile = 50.0;
+        if ( meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_PERCENTILE ) {
+          percentile = Double.parseDouble( meta.getValueField()[i] );
+        }
+        @SuppressWarnings( "unchecked" )
+        List<Double> valuesList = (List<Double>) aggregate.agg[i];
+        double[] values = new double[valuesList.size()];
+        for ( int v = 0; v < values.length; v++ ) {
+          values[v] = valuesList.get( v );
+        }
+        ag = new Percentile().evaluate( values, percentile );
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
+        ag = aggregate.counts[i];
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_MIN:
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_MAX:
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
+        double sum = (Double) ag / aggregate.counts[i];
+        ag = Double.valueOf( Math.sqrt( sum ) );
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA:
+      case MemoryGroupByMeta.TYPE_GROUP_CONCAT_STRING:
+        ag = ( (StringBuilder) ag ).toString();
+        break;
+      default:
+        break;
+    }
+    return nullToZero( i, ag );
+  }
+
+  private Object nullToZero( int i, Object ag ) throws KettleValueException {
+    if ( ag == null && allNullsAreZero ) {
+      // PDI-11530 seems all rows for min function was nulls...
+      ValueMetaInterface vm = data.aggMeta.getValueMeta( i );
+      ag = ValueDataUtil.getZeroForValueMetaType( vm );
+    }
+    return ag;
+  }
+
   @Override
   public boolean init( StepMetaInterface smi, StepDataInterface sdi ) {
     meta = (MemoryGroupByMeta) smi;
@@ -574,6 +1014,20 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
 
     if ( super.init( smi, sdi ) ) {
       data.map = new HashMap<HashEntry, Aggregate>( 5000 );
+
+      // Spilling to disk already bounds the memory used, the rows are aggregated single-threaded then
+      data.aggregationThreads = meta.isSpillingToDisk() ? 1
+        : Const.toInt( environmentSubstitute( meta.getAggregationThreads() ), 1 );
+      if ( data.aggregationThreads > 1 ) {
+        data.aggregationExecutor = Executors.newFixedThreadPool( data.aggregationThreads, new ThreadFactory() {
+          @Override
+          public Thread newThread( Runnable r ) {
+            Thread thread = new Thread( r, "Memory group by aggregation thread for: " + getStepname() );
+            thread.setDaemon( true );
+            return thread;
+          }
+        } );
+      }
       return true;
     }
     return false;
@@ -581,19 +1035,33 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
 
   @Override
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
+    MemoryGroupByData groupByData = (MemoryGroupByData) sdi;
+    deleteSpillFiles( groupByData );
+    if ( groupByData.aggregationExecutor != null ) {
+      groupByData.aggregationExecutor.shutdownNow();
+      groupByData.aggregationExecutor = null;
+    }
     super.dispose( smi, sdi );
-    ( (MemoryGroupByData) sdi ).clear();
+    groupByData.clear();
   }
 
   @Override
   public void batchComplete() throws KettleException {
-    // Empty the hash table
-    //
-    handleLastOfGroup();
+    if ( data.groupTable != null ) {
+      handleLastOfHashAggregation();
+      resetHashAggregation( 0 );
+    } else if ( data.aggregationPartitions != null ) {
+      handleLastOfParallelAggregation();
+      startParallelAggregation();
+    } else {
+      // Empty the hash table
+      //
+      handleLastOfGroup();
 
-    // Clear the complete cache...
-    //
-    data.map.clear();
+      // Clear the complete cache...
+      //
+      data.map.clear();
+    }
 
     data.newBatch = true;
   }
@@ -13,8 +13,16 @@
 
 package org.pentaho.di.trans.steps.memgroupby;
 
+import java.io.DataOutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import org.apache.commons.vfs2.FileObject;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
@@ -90,6 +98,101 @@ public class MemoryGroupByData extends BaseStepData implements StepDataInterface
 
   public boolean newBatch;
 
+  /** Spill to disk: the groups kept in memory, numbered in order of arrival */
+  public GroupTable groupTable;
+
+  /** Spill to disk: the aggregate state per group number */
+  public GroupAccumulators accumulators;
+
+  /** Spill to disk: true once new groups no longer fit in memory and their rows go to the partition files */
+  public boolean spilling;
+
+  /** Spill to disk: 0 while reading the input, n while aggregating a partition file written at level n-1 */
+  public int spillLevel;
+
+  public int maxGroups;
+  public int freeMemoryPctLimit;
+  public int freeMemoryPct;
+  public int freeCounter;
+
+  /** Spill to disk: the partition files of the current level, null for the partitions without rows */
+  public SpillFile[] partitions;
+
+  /** Spill to disk: partition files that still need to be aggregated */
+  public Deque<SpillFile> spillFiles = new ArrayDeque<>();
+
+  /**
+   * A temporary file with the input rows of one hash partition.
+   */
+  public static class SpillFile {
+    public FileObject file;
+    public DataOutputStream outputStream;
+    public long nrRows;
+    public int level;
+  }
+
+  /** Aggregation threads: the number of threads, 1 when the rows are aggregated in the step thread */
+  public int aggregationThreads;
+
+  public ExecutorService aggregationExecutor;
+
+  /** Aggregation threads: one hash partition of the groups per thread, null when aggregating single-threaded */
+  public AggregationPartition[] aggregationPartitions;
+
+  /**
+   * The groups of one hash partition, aggregated by their own thread. The thread works on its own copy of the row
+   * metadata because value metadata caches formatting objects that are not thread safe.
+   */
+  public static class AggregationPartition {
+    public final BlockingQueue<RowBatch> queue;
+    public final RowMetaInterface inputRowMeta;
+    public final RowMetaInterface aggMeta;
+    public final GroupTable groupTable;
+    public GroupAccumulators accumulators;
+    public Future<?> future;
+
+    /** The batch of rows that is being filled by the step thread */
+    public RowBatch batch;
+
+    public AggregationPartition( int queueSize, RowMetaInterface inputRowMeta, RowMetaInterface aggMeta,
+                                 RowMetaInterface groupMeta, int expectedGroups ) {
+      this.queue = new ArrayBlockingQueue<>( queueSize );
+      this.inputRowMeta = inputRowMeta;
+      this.aggMeta = aggMeta;
+      this.groupTable = new GroupTable( groupMeta, expectedGroups );
+    }
+  }
+
+  /**
+   * Rows handed over to an aggregation thread together with their group values and the hash code of the group.
+   */
+  public static class RowBatch {
+    /** Marks the end of the rows for an aggregation thread */
+    public static final RowBatch END = new RowBatch( 0 );
+
+    public final Object[][] rows;
+    public final Object[][] groupData;
+    public final int[] hashes;
+    public int size;
+
+    public RowBatch( int capacity ) {
+      rows = new Object[capacity][];
+      groupData = new Object[capacity][];
+      hashes = new int[capacity];
+    }
+
+    public boolean isFull() {
+      return size == rows.length;
+    }
+
+    public void add( Object[] row, Object[] group, int hash ) {
+      rows[size] = row;
+      groupData[size] = group;
+      hashes[size] = hash;
+      size++;
+    }
+  }
+
   public MemoryGroupByData() {
     super();
 
@@ -104,5 +207,8 @@ public class MemoryGroupByData extends BaseStepData implements StepDataInterface
    */
   public void clear() {
     map = new HashMap<MemoryGroupByData.HashEntry, Aggregate>();
+    groupTable = null;
+    accumulators = null;
+    aggregationPartitions = null;
   }
 }
@@ -137,6 +137,30 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
   /** Flag to indicate that we always give back one row. Defaults to true for existing transformations. */
   private boolean alwaysGivingBackOneRow;
 
+  @Injection( name = "SPILLTODISK" )
+  /** Flag to indicate that the rows of groups that don't fit in memory are written to temporary files */
+  private boolean spillingToDisk;
+
+  @Injection( name = "SPILLDIRECTORY" )
+  /** Directory to store the temporary files */
+  private String directory;
+
+  @Injection( name = "SPILLFILEPREFIX" )
+  /** Temporary file prefix */
+  private String prefix;
+
+  @Injection( name = "MAXGROUPSINMEMORY" )
+  /** The maximum number of groups to keep in memory, empty or 0 to only look at the free memory */
+  private String maxGroups;
+
+  @Injection( name = "FREEMEMORYLIMIT" )
+  /** The free memory percentage below which no new groups are kept in memory */
+  private String freeMemoryLimit;
+
+  @Injection( name = "AGGREGATIONTHREADS" )
+  /** The number of threads that aggregate the rows, each one the groups of its own hash partition */
+  private String aggregationThreads;
+
   public MemoryGroupByMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -280,6 +304,13 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
       } else {
         alwaysGivingBackOneRow = "Y".equalsIgnoreCase( giveBackRow );
       }
+
+      spillingToDisk = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "spill_to_disk" ) );
+      directory = XMLHandler.getTagValue( stepnode, "directory" );
+      prefix = XMLHandler.getTagValue( stepnode, "prefix" );
+      maxGroups = XMLHandler.getTagValue( stepnode, "max_groups" );
+      freeMemoryLimit = XMLHandler.getTagValue( stepnode, "free_memory" );
+      aggregationThreads = XMLHandler.getTagValue( stepnode, "aggregation_threads" );
     } catch ( Exception e ) {
       throw new KettleXMLException( BaseMessages.getString(
         PKG, "MemoryGroupByMeta.Exception.UnableToLoadStepInfoFromXML" ), e );
@@ -320,6 +351,13 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     int nrfields = 0;
 
     allocate( sizegroup, nrfields );
+
+    spillingToDisk = false;
+    directory = "%%java.io.tmpdir%%";
+    prefix = "mgrp";
+    maxGroups = "";
+    freeMemoryLimit = "25";
+    aggregationThreads = null;
   }
 
   @Override
@@ -436,6 +474,12 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     StringBuilder retval = new StringBuilder( 500 );
 
     retval.append( "      " ).append( XMLHandler.addTagValue( "give_back_row", alwaysGivingBackOneRow ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "spill_to_disk", spillingToDisk ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "directory", directory ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "prefix", prefix ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "max_groups", maxGroups ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "free_memory", freeMemoryLimit ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "aggregation_threads", aggregationThreads ) );
 
     retval.append( "      <group>" ).append( Const.CR );
     for ( int i = 0; i < groupField.length; i++ ) {
@@ -485,6 +529,13 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
       }
 
       alwaysGivingBackOneRow = rep.getStepAttributeBoolean( id_step, 0, "give_back_row", hasNumberOfValues );
+
+      spillingToDisk = rep.getStepAttributeBoolean( id_step, "spill_to_disk" );
+      directory = rep.getStepAttributeString( id_step, "directory" );
+      prefix = rep.getStepAttributeString( id_step, "prefix" );
+      maxGroups = rep.getStepAttributeString( id_step, "max_groups" );
+      freeMemoryLimit = rep.getStepAttributeString( id_step, "free_memory" );
+      aggregationThreads = rep.getStepAttributeString( id_step, "aggregation_threads" );
     } catch ( Exception e ) {
       throw new KettleException( BaseMessages.getString(
         PKG, "MemoryGroupByMeta.Exception.UnexpectedErrorInReadingStepInfoFromRepository" ), e );
@@ -495,6 +546,12 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
   public void saveRep( Repository rep, IMetaStore metaStore, ObjectId id_transformation, ObjectId id_step ) throws KettleException {
     try {
       rep.saveStepAttribute( id_transformation, id_step, "give_back_row", alwaysGivingBackOneRow );
+      rep.saveStepAttribute( id_transformation, id_step, "spill_to_disk", spillingToDisk );
+      rep.saveStepAttribute( id_transformation, id_step, "directory", directory );
+      rep.saveStepAttribute( id_transformation, id_step, "prefix", prefix );
+      rep.saveStepAttribute( id_transformation, id_step, "max_groups", maxGroups );
+      rep.saveStepAttribute( id_transformation, id_step, "free_memory", freeMemoryLimit );
+      rep.saveStepAttribute( id_transformation, id_step, "aggregation_threads", aggregationThreads );
 
       for ( int i = 0; i < groupField.length; i++ ) {
         rep.saveStepAttribute( id_transformation, id_step, i, "group_name", groupField[i] );
@@ -558,6 +615,96 @@ public class MemoryGroupByMeta extends BaseStepMeta implements StepMetaInterface
     this.alwaysGivingBackOneRow = alwaysGivingBackOneRow;
   }
 
+  /**
+   * @return true if the rows of the groups that don't fit in memory are written to temporary files
+   */
+  public boolean isSpillingToDisk() {
+    return spillingToDisk;
+  }
+
+  /**
+   * @param spillingToDisk
+   *          true to write the rows of the groups that don't fit in memory to temporary files
+   */
+  public void setSpillingToDisk( boolean spillingToDisk ) {
+    this.spillingToDisk = spillingToDisk;
+  }
+
+  /**
+   * @return the directory to store the temporary files in
+   */
+  public String getDirectory() {
+    return directory;
+  }
+
+  /**
+   * @param directory
+   *          the directory to store the temporary files in
+   */
+  public void setDirectory( String directory ) {
+    this.directory = directory;
+  }
+
+  /**
+   * @return the prefix of the temporary files
+   */
+  public String getPrefix() {
+    return prefix;
+  }
+
+  /**
+   * @param prefix
+   *          the prefix of the temporary files
+   */
+  public void setPrefix( String prefix ) {
+    this.prefix = prefix;
+  }
+
+  /**
+   * @return the maximum number of groups to keep in memory
+   */
+  public String getMaxGroups() {
+    return maxGroups;
+  }
+
+  /**
+   * @param maxGroups
+   *          the maximum number of groups to keep in memory
+   */
+  public void setMaxGroups( String maxGroups ) {
+    this.maxGroups = maxGroups;
+  }
+
+  /**
+   * @return the free memory percentage below which no new groups are kept in memory
+   */
+  public String getFreeMemoryLimit() {
+    return freeMemoryLimit;
+  }
+
+  /**
+   * @param freeMemoryLimit
+   *          the free memory percentage below which no new groups are kept in memory
+   */
+  public void setFreeMemoryLimit( String freeMemoryLimit ) {
+    this.freeMemoryLimit = freeMemoryLimit;
+  }
+
+  /**
+   * @return the number of threads that aggregate the rows, empty or 1 means single-threaded
+   */
+  public String getAggregationThreads() {
+    return aggregationThreads;
+  }
+
+  /**
+   * @param aggregationThreads
+   *          the number of threads that aggregate the rows, empty or 1 means single-threaded
+   */
+  public void setAggregationThreads( String aggregationThreads ) {
+    this.aggregationThreads = aggregationThreads;
+  }
+
   /**
    * If we use injection we can have different arrays lengths.
    * We need synchronize them for consistency behavior with UI
@@ -0,0 +1,53 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.sort;
+
+import java.util.Comparator;
+
+import org.pentaho.di.core.row.SortKeyBuilder;
+
+/**
+ * A row with its normalized sort key. The key is null when the sort fields don't support sort keys, the rows are then
+ * compared field by field.
+ */
+class KeyedRow {
+  /** Compares the sort keys */
+  static final Comparator<KeyedRow> KEY_ORDER = new Comparator<KeyedRow>() {
+    @Override
+    public int compare( KeyedRow o1, KeyedRow o2 ) {
+      return SortKeyBuilder.compare( o1.key, o2.key );
+    }
+  };
+
+  final byte[] key;
+  final Object[] row;
+
+  KeyedRow( byte[] key, Object[] row ) {
+    this.key = key;
+    this.row = row;
+  }
+
+  /**
+   * @return a comparator that compares the rows themselves
+   */
+  static Comparator<KeyedRow> rowOrder( final Comparator<Object[]> rowComparator ) {
+    return new Comparator<KeyedRow>() {
+      @Override
+      public int compare( KeyedRow o1, KeyedRow o2 ) {
+        return rowComparator.compare( o1.row, o2.row );
+      }
+    };
+  }
+}
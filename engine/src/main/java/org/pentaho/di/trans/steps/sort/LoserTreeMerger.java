@@ -0,0 +1,131 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.sort;
+
+import java.util.Comparator;
+import java.util.List;
+
+import org.pentaho.di.core.exception.KettleException;
+
+/**
+ * Merges k sorted runs of rows with a tournament tree of losers. Every internal node of the tree remembers the run
+ * that lost the match played at that node, the overall winner is kept in node 0. After taking the smallest row only
+ * the matches on the path from the winner's leaf to the root are replayed: log2(k) comparisons per row, whatever the
+ * number of runs.
+ *
+ * @param <T>
+ *          the rows, or rows with their sort key
+ */
+class LoserTreeMerger<T> {
+
+  /**
+   * A sorted sequence of rows, a temporary file or an in-memory buffer.
+   */
+  interface Run<T> {
+    /**
+     * @return the next row or null if the run is exhausted
+     */
+    T next() throws KettleException;
+
+    void close();
+  }
+
+  private final List<Run<T>> runs;
+  private final Object[] heads;
+  private final int[] tree;
+  private final Comparator<? super T> comparator;
+
+  LoserTreeMerger( List<Run<T>> runs, Comparator<? super T> comparator ) throws KettleException {
+    this.runs = runs;
+    this.comparator = comparator;
+
+    int k = runs.size();
+    heads = new Object[k];
+    tree = new int[Math.max( 1, k )];
+    for ( int i = 0; i < k; i++ ) {
+      heads[i] = runs.get( i ).next();
+    }
+    if ( k > 0 ) {
+      // Play the initial tournament bottom-up, leaves are implicitly numbered k..2k-1
+      int[] winners = new int[2 * k];
+      for ( int i = 0; i < k; i++ ) {
+        winners[k + i] = i;
+      }
+      for ( int node = k - 1; node > 0; node-- ) {
+        int left = winners[2 * node];
+        int right = winners[2 * node + 1];
+        if ( beats( right, left ) ) {
+          winners[node] = right;
+          tree[node] = left;
+        } else {
+          winners[node] = left;
+          tree[node] = right;
+        }
+      }
+      tree[0] = winners[1];
+    }
+  }
+
+  /**
+   * @return the next row in sort order or null when all the runs are exhausted
+   */
+  T next() throws KettleException {
+    if ( heads.length == 0 ) {
+      return null;
+    }
+    int winner = tree[0];
+    T row = head( winner );
+    if ( row == null ) {
+      return null;
+    }
+    heads[winner] = runs.get( winner ).next();
+
+    // Replay the matches from the leaf of the winner up to the root
+    for ( int node = ( winner + heads.length ) >>> 1; node > 0; node >>>= 1 ) {
+      if ( beats( tree[node], winner ) ) {
+        int loser = winner;
+        winner = tree[node];
+        tree[node] = loser;
+      }
+    }
+    tree[0] = winner;
+    return row;
+  }
+
+  /**
+   * Exhausted runs lose every match. Ties go to the run with the lowest number so the merge is deterministic.
+   */
+  private boolean beats( int a, int b ) {
+    if ( heads[a] == null ) {
+      return false;
+    }
+    if ( heads[b] == null ) {
+      return true;
+    }
+    int cmp = comparator.compare( head( a ), head( b ) );
+    return cmp < 0 || ( cmp == 0 && a < b );
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private T head( int run ) {
+    return (T) heads[run];
+  }
+
+  void close() {
+    for ( Run<T> run : runs ) {
+      run.close();
+    }
+  }
+}
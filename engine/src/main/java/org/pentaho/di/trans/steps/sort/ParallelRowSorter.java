@@ -0,0 +1,111 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.sort;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorts a buffer of rows with fork/join: the buffer is split into segments that are sorted concurrently and the sorted
+ * segments are then merged pair by pair. Just like Collections.sort() the sort is stable.
+ *
+ * @param <T>
+ *          the rows, or rows with their sort key
+ */
+class ParallelRowSorter<T> {
+  /** Segments smaller than this are sorted by a single thread */
+  static final int MIN_SEGMENT_SIZE = 8192;
+
+  private final ForkJoinPool pool;
+  private final Comparator<? super T> comparator;
+
+  ParallelRowSorter( ForkJoinPool pool, Comparator<? super T> comparator ) {
+    this.pool = pool;
+    this.comparator = comparator;
+  }
+
+  /**
+   * Sort the rows in place.
+   *
+   * @param rows
+   *          the rows to sort
+   */
+  void sort( T[] rows ) {
+    if ( rows.length < 2 ) {
+      return;
+    }
+    int segmentSize = Math.max( MIN_SEGMENT_SIZE, rows.length / ( pool.getParallelism() * 4 ) + 1 );
+    if ( rows.length <= segmentSize ) {
+      Arrays.sort( rows, comparator );
+    } else {
+      pool.invoke( new SortTask( rows, rows.clone(), 0, rows.length, segmentSize ) );
+    }
+  }
+
+  private class SortTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final T[] rows;
+    private final T[] work;
+    private final int from;
+    private final int to;
+    private final int segmentSize;
+
+    SortTask( T[] rows, T[] work, int from, int to, int segmentSize ) {
+      this.rows = rows;
+      this.work = work;
+      this.from = from;
+      this.to = to;
+      this.segmentSize = segmentSize;
+    }
+
+    @Override
+    protected void compute() {
+      if ( to - from <= segmentSize ) {
+        Arrays.sort( rows, from, to, comparator );
+        return;
+      }
+      int middle = ( from + to ) >>> 1;
+      invokeAll( new SortTask( rows, work, from, middle, segmentSize ),
+        new SortTask( rows, work, middle, to, segmentSize ) );
+
+      // The halves are already in the right order: nothing to merge
+      if ( comparator.compare( rows[middle - 1], rows[middle] ) <= 0 ) {
+        return;
+      }
+      merge( middle );
+    }
+
+    private void merge( int middle ) {
+      System.arraycopy( rows, from, work, from, middle - from );
+      int left = from;
+      int right = middle;
+      int target = from;
+      while ( left < middle && right < to ) {
+        // take from the left on equal keys to keep the sort stable
+        if ( comparator.compare( rows[right], work[left] ) < 0 ) {
+          rows[target++] = rows[right++];
+        } else {
+          rows[target++] = work[left++];
+        }
+      }
+      while ( left < middle ) {
+        rows[target++] = work[left++];
+      }
+    }
+  }
+}
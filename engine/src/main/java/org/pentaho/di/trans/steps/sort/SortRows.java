@@ -17,14 +17,21 @@ import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.SocketTimeoutException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -35,6 +42,7 @@ import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleFileException;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.SortKeyBuilder;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.vfs.KettleVFS;
 import org.pentaho.di.i18n.BaseMessages;
@@ -55,6 +63,12 @@ import org.pentaho.di.trans.step.StepMetaInterface;
 public class SortRows extends BaseStep implements StepInterface {
   private static Class<?> PKG = SortRows.class; // for i18n
 
+  /** The buffer size used to write a temporary file */
+  private static final int SPILL_BUFFER_SIZE = 500000;
+
+  /** The buffer size used per temporary file while merging, there can be a lot of files open at the same time */
+  private static final int MERGE_BUFFER_SIZE = 65536;
+
   private SortRowsMeta meta;
   private SortRowsData data;
 
@@ -107,7 +121,130 @@ public class SortRows extends BaseStep implements StepInterface {
     }
     // time to sort the buffer and write the data to disk...
     if ( doSort ) {
-      sortExternalRows();
+      if ( data.sortThreads > 1 ) {
+        sortExternalRowsInBackground();
+      } else {
+        sortExternalRows();
+      }
+    }
+  }
+
+  // hand the in-memory buffer over to the spill thread which sorts it and writes it to a new fs file.
+  // the step continues to fill a new buffer in the meantime.
+  void sortExternalRowsInBackground() throws KettleException {
+    if ( data.buffer.isEmpty() ) {
+      return;
+    }
+
+    // Only one buffer is sorted and written at a time: this keeps the memory usage to at most twice the buffer
+    //
+    waitForSpill();
+
+    final List<Object[]> rows = data.buffer;
+    data.buffer = new ArrayList<Object[]>( rows.size() );
+    data.getBufferIndex = 0;
+
+    if ( data.sortSize < 0 && rows.size() > data.minSortSize ) {
+      // See sortExternalRows()
+      data.minSortSize = (int) Math.round( rows.size() * 0.90 );
+    }
+
+    final FileObject fileObject =
+        KettleVFS.createTempFile( meta.getPrefix(), ".tmp", environmentSubstitute( meta.getDirectory() ),
+            getTransMeta() );
+    data.files.add( fileObject ); // Remember the files!
+
+    data.spill = data.spillExecutor.submit( new Callable<Integer>() {
+      @Override
+      public Integer call() throws Exception {
+        return writeSortedRows( rows, fileObject );
+      }
+    } );
+
+    data.freeMemoryPct = Const.getPercentageFreeMemory();
+    data.freeCounter = 0;
+  }
+
+  // runs in the spill thread: sort the rows in parallel and write them to the file, preceded by their sort key if
+  // there is one. returns the number of rows written.
+  private int writeSortedRows( List<Object[]> rows, FileObject fileObject ) throws KettleException {
+    KeyedRow[] sorted = sortInParallel( rows );
+
+    OutputStream outputStream = KettleVFS.getOutputStream( fileObject, false );
+    try {
+      DataOutputStream dos;
+      if ( data.compressFiles ) {
+        dos = new DataOutputStream( new GZIPOutputStream( new BufferedOutputStream( outputStream, SPILL_BUFFER_SIZE ) ) );
+      } else {
+        dos = new DataOutputStream( new BufferedOutputStream( outputStream, SPILL_BUFFER_SIZE ) );
+      }
+
+      int written = 0;
+      KeyedRow previous = null;
+      for ( KeyedRow keyedRow : sorted ) {
+        if ( meta.isOnlyPassingUniqueRows() && previous != null
+            && data.keyedRowComparator.compare( keyedRow, previous ) == 0 ) {
+          if ( log.isRowLevel() ) {
+            logRowlevel( BaseMessages.getString( PKG, "SortRows.RowLevel.DuplicateRowRemoved", data.outputRowMeta
+                .getString( keyedRow.row ) ) );
+          }
+          continue;
+        }
+        if ( keyedRow.key != null ) {
+          dos.writeInt( keyedRow.key.length );
+          dos.write( keyedRow.key );
+        }
+        data.outputRowMeta.writeData( dos, keyedRow.row );
+        previous = keyedRow;
+        written++;
+      }
+
+      dos.close(); // also closes the gzip and file streams
+      return written;
+    } catch ( IOException e ) {
+      throw new KettleException( "Error processing temp-file!", e );
+    } finally {
+      BaseStep.closeQuietly( outputStream );
+    }
+  }
+
+  // pair the rows with their sort keys, if the sort fields support them
+  private KeyedRow[] toKeyedRows( List<Object[]> rows ) throws KettleValueException {
+    KeyedRow[] keyedRows = new KeyedRow[rows.size()];
+    SortKeyBuilder builder = data.sortKeys ? new SortKeyBuilder() : null;
+    for ( int i = 0; i < keyedRows.length; i++ ) {
+      Object[] row = rows.get( i );
+      byte[] key = null;
+      if ( builder != null ) {
+        builder.reset();
+        data.outputRowMeta.writeSortKey( builder, row, data.fieldnrs );
+        key = builder.toByteArray();
+      }
+      keyedRows[i] = new KeyedRow( key, row );
+    }
+    return keyedRows;
+  }
+
+  private KeyedRow[] sortInParallel( List<Object[]> rows ) throws KettleValueException {
+    KeyedRow[] keyedRows = toKeyedRows( rows );
+    new ParallelRowSorter<KeyedRow>( data.sortPool, data.keyedRowComparator ).sort( keyedRows );
+    return keyedRows;
+  }
+
+  // wait until the buffer that is being written in the background is on disk
+  private void waitForSpill() throws KettleException {
+    if ( data.spill == null ) {
+      return;
+    }
+    try {
+      data.bufferSizes.add( data.spill.get() );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( "Error processing temp-file!", e );
+    } catch ( ExecutionException e ) {
+      throw new KettleException( "Error processing temp-file!", e.getCause() );
+    } finally {
+      data.spill = null;
     }
   }
 
@@ -363,6 +500,43 @@ public class SortRows extends BaseStep implements StepInterface {
     return retval;
   }
 
+  // the next row in sort order: with parallel sorting the temporary files and the rows still in memory are merged
+  // with a tournament tree, otherwise see getBuffer()
+  Object[] getSortedRow() throws KettleException {
+    if ( data.sortThreads <= 1 || data.files.isEmpty() ) {
+      return getBuffer();
+    }
+    if ( data.merger == null ) {
+      openMerger();
+    }
+    KeyedRow next = data.merger.next();
+    return next == null ? null : next.row;
+  }
+
+  private void openMerger() throws KettleException {
+    if ( log.isBasic() ) {
+      logBasic( BaseMessages.getString( PKG, "SortRows.Basic.OpeningTempFiles", data.files.size() ) );
+    }
+
+    List<LoserTreeMerger.Run<KeyedRow>> runs =
+        new ArrayList<LoserTreeMerger.Run<KeyedRow>>( data.files.size() + 1 );
+    try {
+      for ( FileObject fileObject : data.files ) {
+        runs.add( new FileRun( fileObject ) );
+      }
+      // The last buffer was sorted in memory and never written to disk
+      if ( data.sortedBuffer != null && data.sortedBuffer.length > 0 ) {
+        runs.add( new BufferRun( data.sortedBuffer ) );
+      }
+      data.merger = new LoserTreeMerger<KeyedRow>( runs, data.keyedRowComparator );
+    } catch ( KettleException e ) {
+      for ( LoserTreeMerger.Run<KeyedRow> run : runs ) {
+        run.close();
+      }
+      throw e;
+    }
+  }
+
   @Override
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
 
@@ -429,6 +603,10 @@ public class SortRows extends BaseStep implements StepInterface {
         i++;
       }
       data.rowComparator = new RowObjectArrayComparator( data.outputRowMeta, data.fieldnrs );
+
+      // Compare normalized sort keys instead of the fields when possible
+      data.sortKeys = data.outputRowMeta.isSortKeySupported( data.fieldnrs );
+      data.keyedRowComparator = data.sortKeys ? KeyedRow.KEY_ORDER : KeyedRow.rowOrder( data.rowComparator );
     } // end if first
 
     // it is not first row and it is null
@@ -488,7 +666,7 @@ public class SortRows extends BaseStep implements StepInterface {
   void passBuffer() throws KettleException {
     // Now we can start the output!
     //
-    Object[] r = getBuffer();
+    Object[] r = getSortedRow();
     Object[] previousRow = null;
 
     // log time spent for external merge (expected time consuming operation)
@@ -522,7 +700,7 @@ public class SortRows extends BaseStep implements StepInterface {
                                          // rowset(s).
       }
 
-      r = getBuffer();
+      r = getSortedRow();
     }
 
     if ( log.isDebug() && !data.files.isEmpty() ) {
@@ -571,17 +749,52 @@ public class SortRows extends BaseStep implements StepInterface {
 
     data.minSortSize = 5000;
 
+    data.sortThreads = Const.toInt( environmentSubstitute( meta.getSortThreads() ), 1 );
+    if ( data.sortThreads > 1 ) {
+      data.sortPool = new ForkJoinPool( data.sortThreads );
+      data.spillExecutor = Executors.newSingleThreadExecutor( new ThreadFactory() {
+        @Override
+        public Thread newThread( Runnable r ) {
+          Thread thread = new Thread( r, "Sort rows spill thread for: " + getStepname() );
+          thread.setDaemon( true );
+          return thread;
+        }
+      } );
+    }
+
     return true;
   }
 
   @Override
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
     clearBuffers();
+    if ( data.spillExecutor != null ) {
+      data.spillExecutor.shutdownNow();
+      data.spillExecutor = null;
+    }
+    if ( data.sortPool != null ) {
+      data.sortPool.shutdownNow();
+      data.sortPool = null;
+    }
     super.dispose( smi, sdi );
   }
 
   private void clearBuffers() {
 
+    // A buffer may still be written in the background, let it finish before removing the files
+    if ( data.spill != null ) {
+      try {
+        waitForSpill();
+      } catch ( KettleException e ) {
+        logError( e.getLocalizedMessage(), e );
+      }
+    }
+    if ( data.merger != null ) {
+      data.merger.close();
+      data.merger = null;
+    }
+    data.sortedBuffer = null;
+
     // Clean out the sort buffer
     data.buffer.clear();
     data.getBufferIndex = 0;
@@ -610,6 +823,8 @@ public class SortRows extends BaseStep implements StepInterface {
         logError( e.getLocalizedMessage(), e );
       }
     }
+    data.files.clear();
+    data.bufferSizes.clear();
   }
 
   /**
@@ -617,7 +832,16 @@ public class SortRows extends BaseStep implements StepInterface {
    */
   void quickSort( List<Object[]> elements ) throws KettleException {
     if ( elements.size() > 0 ) {
-      Collections.sort( elements, data.rowComparator );
+      if ( data.sortKeys ) {
+        // encode every row once, then compare bytes
+        KeyedRow[] keyedRows = toKeyedRows( elements );
+        Arrays.sort( keyedRows, KeyedRow.KEY_ORDER );
+        for ( int i = 0; i < keyedRows.length; i++ ) {
+          elements.set( i, keyedRows[i].row );
+        }
+      } else {
+        Collections.sort( elements, data.rowComparator );
+      }
 
       long nrConversions = 0L;
       for ( ValueMetaInterface valueMeta : data.outputRowMeta.getValueMetaList() ) {
@@ -642,6 +866,17 @@ public class SortRows extends BaseStep implements StepInterface {
   }
 
   private void preSortBeforeFlush() throws KettleException {
+    if ( data.sortThreads > 1 ) {
+      // the rows left in memory are sorted here and merged with the files as they are
+      waitForSpill();
+      KeyedRow[] sorted = sortInParallel( data.buffer );
+      data.buffer.clear();
+      for ( KeyedRow keyedRow : sorted ) {
+        data.buffer.add( keyedRow.row );
+      }
+      data.sortedBuffer = data.files.isEmpty() ? null : sorted;
+      return;
+    }
     if ( data.files.size() > 0 ) {
       // dump to dist and then read from disk
       sortExternalRows();
@@ -668,6 +903,78 @@ public class SortRows extends BaseStep implements StepInterface {
     }
   }
 
+  private class FileRun implements LoserTreeMerger.Run<KeyedRow> {
+    private final DataInputStream dis;
+    private boolean closed;
+
+    FileRun( FileObject fileObject ) throws KettleException {
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.OpeningTempFile", fileObject.toString() ) );
+      }
+      InputStream fi = KettleVFS.getInputStream( fileObject );
+      try {
+        if ( data.compressFiles ) {
+          dis = new DataInputStream( new BufferedInputStream( new GZIPInputStream( fi, MERGE_BUFFER_SIZE ),
+              MERGE_BUFFER_SIZE ) );
+        } else {
+          dis = new DataInputStream( new BufferedInputStream( fi, MERGE_BUFFER_SIZE ) );
+        }
+      } catch ( IOException e ) {
+        BaseStep.closeQuietly( fi );
+        throw new KettleException( BaseMessages.getString( PKG, "SortRows.Error.ErrorReadingBackTempFiles" ), e );
+      }
+    }
+
+    @Override
+    public KeyedRow next() throws KettleException {
+      if ( closed ) {
+        return null;
+      }
+      try {
+        byte[] key = null;
+        if ( data.sortKeys ) {
+          key = new byte[dis.readInt()];
+          dis.readFully( key );
+        }
+        return new KeyedRow( key, data.outputRowMeta.readData( dis ) );
+      } catch ( EOFException | KettleFileException e ) { // end of file
+        close();
+        return null;
+      } catch ( SocketTimeoutException e ) {
+        throw new KettleValueException( e ); // should never happen on local files
+      } catch ( IOException e ) {
+        throw new KettleFileException( e );
+      }
+    }
+
+    @Override
+    public void close() {
+      if ( !closed ) {
+        closed = true;
+        BaseStep.closeQuietly( dis );
+      }
+    }
+  }
+
+  private static class BufferRun implements LoserTreeMerger.Run<KeyedRow> {
+    private final KeyedRow[] rows;
+    private int index;
+
+    BufferRun( KeyedRow[] rows ) {
+      this.rows = rows;
+    }
+
+    @Override
+    public KeyedRow next() {
+      return index < rows.length ? rows[index++] : null;
+    }
+
+    @Override
+    public void close() {
+      // the buffer is cleared with the other buffers
+    }
+  }
+
   private class SortRowsComparator {
     protected RowMetaInterface rowMeta;
     protected int[] fieldNrs;
@@ -18,6 +18,9 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.vfs2.FileObject;
@@ -54,12 +57,26 @@ public class SortRowsData extends BaseStepData implements StepDataInterface {
   Comparator<RowTempFile> comparator;
   Comparator<Object[]> rowComparator;
 
+  /** true if the rows are sorted on their normalized sort keys */
+  public boolean sortKeys;
+  Comparator<KeyedRow> keyedRowComparator;
+
   public int freeCounter;
   public int freeMemoryPct;
   public int minSortSize;
   public int freeMemoryPctLimit;
   public int memoryReporting;
 
+  /*
+   * Parallel sort: buffers are sorted by the pool and written to disk by the spill executor
+   */
+  public int sortThreads;
+  ForkJoinPool sortPool;
+  ExecutorService spillExecutor;
+  Future<Integer> spill;
+  LoserTreeMerger<KeyedRow> merger;
+  KeyedRow[] sortedBuffer;
+
   /*
    * Group Fields Implementation heroic
    */
@@ -112,6 +112,13 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
   /** The variable to use to set the compressFiles option boolean */
   private String compressFilesVariable;
 
+  /**
+   * The number of threads used to sort and spill the buffers. With more than one thread the buffers are sorted in
+   * parallel and written to disk in the background while the step keeps reading rows.
+   */
+  @Injection( name = "SORT_THREADS" )
+  private String sortThreads;
+
   public SortRowsMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -217,6 +224,7 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
       compressFiles = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "compress" ) );
       compressFilesVariable = XMLHandler.getTagValue( stepnode, "compress_variable" );
       onlyPassingUniqueRows = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "unique_rows" ) );
+      sortThreads = XMLHandler.getTagValue( stepnode, "sort_threads" );
 
       Node fields = XMLHandler.getSubNode( stepnode, "fields" );
       int nrfields = XMLHandler.countNodes( fields, "field" );
@@ -253,6 +261,7 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
     compressFiles = false;
     compressFilesVariable = null;
     onlyPassingUniqueRows = false;
+    sortThreads = null;
 
     int nrfields = 0;
 
@@ -283,6 +292,7 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
     retval.append( "      " ).append( XMLHandler.addTagValue( "compress", compressFiles ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "compress_variable", compressFilesVariable ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "unique_rows", onlyPassingUniqueRows ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "sort_threads", sortThreads ) );
 
     retval.append( "    <fields>" ).append( Const.CR );
     for ( int i = 0; i < fieldName.length; i++ ) {
@@ -313,6 +323,7 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
       compressFilesVariable = rep.getStepAttributeString( id_step, "compress_variable" );
 
       onlyPassingUniqueRows = rep.getStepAttributeBoolean( id_step, "unique_rows" );
+      sortThreads = rep.getStepAttributeString( id_step, "sort_threads" );
 
       int nrfields = rep.countNrStepAttributes( id_step, "field_name" );
 
@@ -365,6 +376,7 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
       rep.saveStepAttribute( id_transformation, id_step, "compress", compressFiles );
       rep.saveStepAttribute( id_transformation, id_step, "compress_variable", compressFilesVariable );
       rep.saveStepAttribute( id_transformation, id_step, "unique_rows", onlyPassingUniqueRows );
+      rep.saveStepAttribute( id_transformation, id_step, "sort_threads", sortThreads );
 
       for ( int i = 0; i < fieldName.length; i++ ) {
         rep.saveStepAttribute( id_transformation, id_step, i, "field_name", fieldName[i] );
@@ -573,6 +585,21 @@ public class SortRowsMeta extends BaseStepMeta implements StepMetaInterface, Ser
     this.compressFilesVariable = compressFilesVariable;
   }
 
+  /**
+   * @return the number of threads to sort and spill with, empty or 1 means single-threaded
+   */
+  public String getSortThreads() {
+    return sortThreads;
+  }
+
+  /**
+   * @param sortThreads
+   *          the number of threads to sort and spill with, empty or 1 means single-threaded
+   */
+  public void setSortThreads( String sortThreads ) {
+    this.sortThreads = sortThreads;
+  }
+
   /**
    * @return the caseSensitive
    */
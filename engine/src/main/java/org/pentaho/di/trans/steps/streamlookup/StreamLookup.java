@@ -13,16 +13,19 @@
 
 package org.pentaho.di.trans.steps.streamlookup;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.text.DateFormat;
 import java.util.Collections;
 
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.hash.ByteArrayHashIndex;
+import org.pentaho.di.core.hash.SpillingByteArrayHashIndex;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -50,6 +53,9 @@ import org.pentaho.di.trans.step.StepMetaInterface;
 public class StreamLookup extends BaseStep implements StepInterface {
   private static Class<?> PKG = StreamLookupMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /** The default memory budget of the off-heap lookup data in MB */
+  static final long DEFAULT_MEMORY_BUDGET = 1024L;
+
   private StreamLookupMeta meta;
   private StreamLookupData data;
 
@@ -209,6 +215,11 @@ public class StreamLookup extends BaseStep implements StepInterface {
       rowData = getRowFrom( rowSet );
     }
 
+    if ( data.offHeapIndex != null && log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "StreamLookup.Log.OffHeapLookupData", data.offHeapIndex.getSize(),
+        data.offHeapIndex.getNrSpilledPartitions(), data.offHeapIndex.getNrPartitions() ) );
+    }
+
     return true;
   }
 
@@ -284,7 +295,7 @@ public class StreamLookup extends BaseStep implements StepInterface {
   }
 
   private void addToCache( RowMetaInterface keyMeta, Object[] keyData, RowMetaInterface valueMeta,
-    Object[] valueData ) throws KettleValueException {
+    Object[] valueData ) throws KettleException {
     if ( meta.isMemoryPreservationActive() ) {
       if ( meta.isUsingSortedList() ) {
         KeyValue keyValue = new KeyValue( keyData, valueData );
@@ -311,6 +322,13 @@ public class StreamLookup extends BaseStep implements StepInterface {
           Long key = keyMeta.getInteger( keyData, 0 );
           Long value = valueMeta.getInteger( valueData, 0 );
           data.longIndex.put( key, value );
+        } else if ( meta.isUsingOffHeap() ) {
+          if ( data.offHeapIndex == null ) {
+            data.offHeapIndex =
+              new SpillingByteArrayHashIndex( getMemoryBudget(), environmentSubstitute( meta.getSpillDirectory() ) );
+          }
+          data.offHeapIndex
+            .put( RowMeta.extractData( keyMeta, keyData ), RowMeta.extractData( valueMeta, valueData ) );
         } else {
           if ( data.hashIndex == null ) {
             data.hashIndex = new ByteArrayHashIndex( keyMeta );
@@ -346,7 +364,8 @@ public class StreamLookup extends BaseStep implements StepInterface {
           return new Object[] { value, };
         } else {
           try {
-            byte[] value = data.hashIndex.get( RowMeta.extractData( keyMeta, keyData ) );
+            byte[] key = RowMeta.extractData( keyMeta, keyData );
+            byte[] value = meta.isUsingOffHeap() ? data.offHeapIndex.get( key ) : data.hashIndex.get( key );
             if ( value == null ) {
               return null;
             }
@@ -452,6 +471,18 @@ public class StreamLookup extends BaseStep implements StepInterface {
     return true;
   }
 
+  /**
+   * @return the number of bytes of direct memory the off-heap lookup data can take before it spills to disk. The
+   *         default is capped at half of the direct memory limit of the JVM, to leave room for other direct buffers.
+   */
+  long getMemoryBudget() {
+    long memoryBudget = Const.toLong( environmentSubstitute( meta.getMemoryBudget() ), -1L );
+    if ( memoryBudget >= 0 ) {
+      return memoryBudget * 1024 * 1024;
+    }
+    return Math.min( DEFAULT_MEMORY_BUDGET * 1024 * 1024, SpillingByteArrayHashIndex.getMaxDirectMemory() / 2 );
+  }
+
   @Override
   public boolean init( StepMetaInterface smi, StepDataInterface sdi ) {
     meta = (StreamLookupMeta) smi;
@@ -460,6 +491,10 @@ public class StreamLookup extends BaseStep implements StepInterface {
     if ( super.init( smi, sdi ) ) {
       data.readLookupValues = true;
 
+      if ( meta.isUsingOffHeap() && !meta.isMemoryPreservationActive() ) {
+        logBasic( BaseMessages.getString( PKG, "StreamLookup.Log.OffHeapNeedsPreserveMemory" ) );
+      }
+
       return true;
     }
 
@@ -474,6 +509,14 @@ public class StreamLookup extends BaseStep implements StepInterface {
     data.list = null;
     data.hashIndex = null;
     data.longIndex = null;
+    if ( data.offHeapIndex != null ) {
+      try {
+        data.offHeapIndex.close();
+      } catch ( IOException e ) {
+        logError( "Unable to delete the temporary files of the off-heap lookup data", e );
+      }
+      data.offHeapIndex = null;
+    }
 
     super.dispose( smi, sdi );
   }
@@ -23,6 +23,7 @@ import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.hash.ByteArrayHashIndex;
 import org.pentaho.di.core.hash.LongHashIndex;
+import org.pentaho.di.core.hash.SpillingByteArrayHashIndex;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
@@ -65,6 +66,9 @@ public class StreamLookupData extends BaseStepData implements StepDataInterface
   public ByteArrayHashIndex hashIndex;
   public LongHashIndex longIndex;
 
+  /** The serialized lookup data kept outside of the heap, spilled to disk when it doesn't fit the memory budget */
+  public SpillingByteArrayHashIndex offHeapIndex;
+
   public RowMetaInterface lookupMeta;
 
   public RowMetaInterface infoMeta;
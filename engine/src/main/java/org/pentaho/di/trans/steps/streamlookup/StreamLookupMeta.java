@@ -92,6 +92,18 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
   @Injection( name = "INTEGER_PAIR" )
   private boolean usingIntegerPair;
 
+  /** Indicate that we want to keep the serialized lookup data outside of the Java heap */
+  @Injection( name = "OFF_HEAP" )
+  private boolean usingOffHeap;
+
+  /** The memory (MB) the off-heap lookup data can take before it is spilled to disk */
+  @Injection( name = "MEMORY_BUDGET" )
+  private String memoryBudget;
+
+  /** The directory to spill the off-heap lookup data to */
+  @Injection( name = "SPILL_DIRECTORY" )
+  private String spillDirectory;
+
   public StreamLookupMeta() {
     super(); // allocate BaseStepMeta
   }
@@ -154,6 +166,9 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
       setMemoryPreservationActive( "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "preserve_memory" ) ) );
       setUsingSortedList( "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "sorted_list" ) ) );
       setUsingIntegerPair( "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "integer_pair" ) ) );
+      setUsingOffHeap( "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "off_heap" ) ) );
+      setMemoryBudget( XMLHandler.getTagValue( stepnode, "memory_budget" ) );
+      setSpillDirectory( XMLHandler.getTagValue( stepnode, "spill_directory" ) );
 
       Node lookup = XMLHandler.getSubNode( stepnode, "lookup" );
       nrkeys = XMLHandler.countNodes( lookup, "key" );
@@ -202,6 +217,9 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
     setMemoryPreservationActive( true );
     setUsingSortedList( false );
     setUsingIntegerPair( false );
+    setUsingOffHeap( false );
+    setMemoryBudget( null );
+    setSpillDirectory( "%%java.io.tmpdir%%" );
 
     allocate( 0, 0 );
   }
@@ -245,6 +263,9 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
     retval.append( "    " ).append( XMLHandler.addTagValue( "preserve_memory", isMemoryPreservationActive() ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "sorted_list", isUsingSortedList() ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "integer_pair", isUsingIntegerPair() ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "off_heap", isUsingOffHeap() ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "memory_budget", getMemoryBudget() ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "spill_directory", getSpillDirectory() ) );
 
     retval.append( "    <lookup>" ).append( Const.CR );
     for ( int i = 0; i < getKeystream().length; i++ ) {
@@ -279,6 +300,9 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
       setMemoryPreservationActive( rep.getStepAttributeBoolean( id_step, "preserve_memory" ) );
       setUsingSortedList( rep.getStepAttributeBoolean( id_step, "sorted_list" ) );
       setUsingIntegerPair( rep.getStepAttributeBoolean( id_step, "integer_pair" ) );
+      setUsingOffHeap( rep.getStepAttributeBoolean( id_step, "off_heap" ) );
+      setMemoryBudget( rep.getStepAttributeString( id_step, "memory_budget" ) );
+      setSpillDirectory( rep.getStepAttributeString( id_step, "spill_directory" ) );
 
       int nrkeys = rep.countNrStepAttributes( id_step, "lookup_key_name" );
       int nrvalues = rep.countNrStepAttributes( id_step, "return_value_name" );
@@ -316,6 +340,9 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
       rep.saveStepAttribute( id_transformation, id_step, "preserve_memory", isMemoryPreservationActive() );
       rep.saveStepAttribute( id_transformation, id_step, "sorted_list", isUsingSortedList() );
       rep.saveStepAttribute( id_transformation, id_step, "integer_pair", isUsingIntegerPair() );
+      rep.saveStepAttribute( id_transformation, id_step, "off_heap", isUsingOffHeap() );
+      rep.saveStepAttribute( id_transformation, id_step, "memory_budget", getMemoryBudget() );
+      rep.saveStepAttribute( id_transformation, id_step, "spill_directory", getSpillDirectory() );
 
       for ( int i = 0; i < getKeystream().length; i++ ) {
         rep.saveStepAttribute( id_transformation, id_step, i, "lookup_key_name", getKeystream()[i] );
@@ -479,6 +506,13 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
           PKG, "StreamLookupMeta.CheckResult.NeedAtLeast2InputStreams", Const.CR, Const.CR ), stepMeta );
       remarks.add( cr );
     }
+
+    if ( isUsingOffHeap() && !isMemoryPreservationActive() ) {
+      cr =
+        new CheckResult( CheckResultInterface.TYPE_RESULT_WARNING, BaseMessages.getString(
+          PKG, "StreamLookupMeta.CheckResult.OffHeapNeedsPreserveMemory" ), stepMeta );
+      remarks.add( cr );
+    }
   }
 
   @Override
@@ -658,6 +692,51 @@ public class StreamLookupMeta extends BaseStepMeta implements StepMetaInterface
     this.usingIntegerPair = usingIntegerPair;
   }
 
+  /**
+   * @return true if the serialized lookup data is kept outside of the Java heap
+   */
+  public boolean isUsingOffHeap() {
+    return usingOffHeap;
+  }
+
+  /**
+   * @param usingOffHeap
+   *          true to keep the serialized lookup data outside of the Java heap
+   */
+  public void setUsingOffHeap( boolean usingOffHeap ) {
+    this.usingOffHeap = usingOffHeap;
+  }
+
+  /**
+   * @return the memory in MB the off-heap lookup data can take before it is spilled to disk
+   */
+  public String getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  /**
+   * @param memoryBudget
+   *          the memory in MB the off-heap lookup data can take before it is spilled to disk
+   */
+  public void setMemoryBudget( String memoryBudget ) {
+    this.memoryBudget = memoryBudget;
+  }
+
+  /**
+   * @return the directory to spill the off-heap lookup data to
+   */
+  public String getSpillDirectory() {
+    return spillDirectory;
+  }
+
+  /**
+   * @param spillDirectory
+   *          the directory to spill the off-heap lookup data to
+   */
+  public void setSpillDirectory( String spillDirectory ) {
+    this.spillDirectory = spillDirectory;
+  }
+
   /**
    * If we use injection we can have different arrays lengths.
    * We need synchronize them for consistency behavior with UI
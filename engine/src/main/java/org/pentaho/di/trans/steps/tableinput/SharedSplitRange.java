@@ -0,0 +1,109 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableinput;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.trans.Trans;
+
+/**
+ * The minimum and maximum values of the split field that the copies of a Table input step share. When every copy
+ * calculated the range itself, rows added in the meantime could give the copies different boundaries: rows would be
+ * read twice or not at all. The range is kept in the extension data of the transformation and calculated by the
+ * first copy that needs it, the other copies wait for it. Copies that run on other slave servers calculate it once
+ * per slave server. The range is dropped when the last copy releases it.
+ */
+public class SharedSplitRange {
+
+  static final String EXTENSION_DATA_KEY_PREFIX = "TableInput.SplitRange.";
+
+  /**
+   * Calculates the range of the split field values.
+   */
+  public interface Loader {
+    RowMetaAndData load() throws KettleException;
+  }
+
+  private final String key;
+
+  /** The number of copies using the range, guarded by the extension data map of the transformation */
+  private int users;
+
+  /** The ranges by query and parameters, a query executed for every input row has a range per row */
+  private final Map<String, RowMetaAndData> ranges = new HashMap<>();
+
+  private SharedSplitRange( String key ) {
+    this.key = key;
+  }
+
+  /**
+   * Get the shared range of a step, registering one more copy that uses it.
+   *
+   * @param trans    the transformation the step copies run in
+   * @param stepname the name of the step
+   * @return the shared range, to be released in dispose()
+   */
+  public static SharedSplitRange acquire( Trans trans, String stepname ) {
+    Map<String, Object> extensionData = trans.getExtensionDataMap();
+    String key = EXTENSION_DATA_KEY_PREFIX + stepname;
+    synchronized ( extensionData ) {
+      SharedSplitRange shared = (SharedSplitRange) extensionData.get( key );
+      if ( shared == null ) {
+        shared = new SharedSplitRange( key );
+        extensionData.put( key, shared );
+      }
+      shared.users++;
+      return shared;
+    }
+  }
+
+  /**
+   * A copy stops using the range. The last copy removes it from the transformation.
+   *
+   * @param trans the transformation the step copies run in
+   */
+  public void release( Trans trans ) {
+    Map<String, Object> extensionData = trans.getExtensionDataMap();
+    synchronized ( extensionData ) {
+      users--;
+      if ( users <= 0 && extensionData.get( key ) == this ) {
+        extensionData.remove( key );
+      }
+    }
+  }
+
+  /**
+   * Get the range of a query, calculating it if no copy did so before. When that fails, the next copy that asks
+   * tries again.
+   *
+   * @param query  the query and its parameter values
+   * @param loader calculates the range
+   * @return the minimum and maximum value all the copies use
+   */
+  public synchronized RowMetaAndData getRange( String query, Loader loader ) throws KettleException {
+    RowMetaAndData range = ranges.get( query );
+    if ( range == null ) {
+      range = loader.load();
+      ranges.put( query, range );
+    }
+    return range;
+  }
+
+  int getUsers() {
+    return users;
+  }
+}
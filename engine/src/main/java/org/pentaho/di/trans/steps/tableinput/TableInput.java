@@ -13,20 +13,29 @@
 
 package org.pentaho.di.trans.steps.tableinput;
 
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.database.PrefetchingRowReader;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaTimestamp;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -135,7 +144,7 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
         if ( data.thisrow != null ) { // We can expect more rows
 
           try {
-            data.nextrow = data.db.getRow( data.rs, meta.isLazyConversionActive() );
+            data.nextrow = getNextRow();
           } catch ( KettleDatabaseException e ) {
             if ( e.getCause() instanceof SQLException && isStopped() ) {
               //This exception indicates we tried reading a row after the statment for this step was cancelled
@@ -205,13 +214,25 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
     }
   }
 
+  private Object[] getNextRow() throws KettleDatabaseException {
+    if ( data.reader != null ) {
+      return data.reader.getRow();
+    }
+    return data.db.getRow( data.rs, meta.isLazyConversionActive() );
+  }
+
   private void closePreviousQuery() throws KettleDatabaseException {
+    if ( data.reader != null ) {
+      // stop reading ahead before the result set is closed
+      data.reader.close();
+      data.reader = null;
+    }
     if ( data.db != null ) {
       data.db.closeQuery( data.rs );
     }
   }
 
-  private boolean doQuery( RowMetaInterface parametersMeta, Object[] parameters ) throws KettleDatabaseException {
+  private boolean doQuery( RowMetaInterface parametersMeta, Object[] parameters ) throws KettleException {
     boolean success = true;
 
     // Open the query with the optional parameters received from the source steps.
@@ -222,6 +243,46 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
       sql = meta.getSQL();
     }
 
+    // Only read this copy's range of the split field values
+    if ( data.splitCount > 1 ) {
+      String splitField = meta.getDatabaseMeta().quoteField( environmentSubstitute( meta.getSplitField() ) );
+      String rangeSQL = getSplitRangeSQL( sql, splitField );
+      RowMetaInterface rangeParametersMeta = parametersMeta;
+      Object[] rangeParameters = parameters;
+      // All the copies use the same range, calculated once
+      RowMetaAndData range = data.splitRange.getRange( rangeSQL + Const.CR + parametersMeta.getString( parameters ),
+        () -> data.db.getOneRow( rangeSQL, rangeParametersMeta, rangeParameters ) );
+      if ( range == null || range.getRowMeta() == null || range.getRowMeta().size() < 2 ) {
+        throw new KettleException( BaseMessages.getString( PKG, "TableInput.Exception.UnableToDetermineSplitRange",
+          meta.getSplitField() ) );
+      }
+      ValueMetaInterface rangeMeta = range.getRowMeta().getValueMeta( 0 );
+      Object[] boundaries =
+        getSplitBoundaries( rangeMeta, range.getData()[0], range.getData()[1], data.splitCount );
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "TableInput.Log.SplitRange", meta.getSplitField(),
+          String.valueOf( data.splitNr + 1 ), String.valueOf( data.splitCount ),
+          rangeMeta.getString( range.getData()[0] ), rangeMeta.getString( range.getData()[1] ) ) );
+      }
+
+      RowMetaInterface splitMeta = parametersMeta.clone();
+      Object[] splitData = RowDataUtil.createResizedCopy( parameters, parametersMeta.size() );
+      if ( boundaries != null ) {
+        ValueMetaInterface boundaryMeta = getSplitValueMeta( rangeMeta );
+        if ( data.splitNr > 0 ) {
+          splitData = RowDataUtil.addValueData( splitData, splitMeta.size(), boundaries[data.splitNr - 1] );
+          splitMeta.addValueMeta( boundaryMeta.clone() );
+        }
+        if ( data.splitNr < data.splitCount - 1 ) {
+          splitData = RowDataUtil.addValueData( splitData, splitMeta.size(), boundaries[data.splitNr] );
+          splitMeta.addValueMeta( boundaryMeta.clone() );
+        }
+      }
+      sql = getSplitSQL( sql, splitField, data.splitNr, data.splitCount, boundaries != null );
+      parametersMeta = splitMeta;
+      parameters = splitData;
+    }
+
     if ( log.isDetailed() ) {
       logDetailed( BaseMessages.getString( PKG, "TableInput.Log.SqlQuery", sql ) );
     }
@@ -248,11 +309,15 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
         }
       }
 
+      if ( data.prefetchRows > 0 ) {
+        data.reader = new PrefetchingRowReader( data.db, data.rs, data.rowMeta, data.prefetchRows );
+      }
+
       // Get the first row...
-      data.thisrow = data.db.getRow( data.rs );
+      data.thisrow = getNextRow();
       if ( data.thisrow != null ) {
         incrementLinesInput();
-        data.nextrow = data.db.getRow( data.rs );
+        data.nextrow = getNextRow();
         if ( data.nextrow != null ) {
           incrementLinesInput();
         }
@@ -274,6 +339,10 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
         setErrors( 1 );
         stopAll();
       } finally {
+        if ( data.splitRange != null ) {
+          data.splitRange.release( getTrans() );
+          data.splitRange = null;
+        }
         super.dispose( smi, sdi );
       }
     } finally {
@@ -321,6 +390,17 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
         if ( meta.getDatabaseMeta().isRequiringTransactionsOnQueries() ) {
           data.db.setCommitSize( 100 ); // needed for PGSQL it seems...
         }
+
+        data.prefetchRows = Const.toInt( getVariable( Const.KETTLE_DATABASE_PREFETCH_ROWS ), 0 );
+
+        // Split the query over the step copies, each copy has its own connection
+        if ( !Utils.isEmpty( meta.getSplitField() ) ) {
+          data.splitNr = getUniqueStepNrAcrossSlaves();
+          data.splitCount = getUniqueStepCountAcrossSlaves();
+          if ( data.splitCount > 1 ) {
+            data.splitRange = SharedSplitRange.acquire( getTrans(), getStepname() );
+          }
+        }
         return true;
       }
       return false;
@@ -329,6 +409,197 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
     }
   }
 
+  /**
+   * @return the query that calculates the minimum and maximum value of the split field in the result of the given query
+   */
+  static String getSplitRangeSQL( String sql, String splitField ) {
+    return "SELECT MIN( " + splitField + " ), MAX( " + splitField + " ) FROM ( " + stripSQL( sql ) + " ) split_source";
+  }
+
+  /**
+   * Restrict the query to one range of split field values. The first range is open at the bottom and also includes the
+   * null values, the last range is open at the top. This way every row is read exactly once, even when the boundaries
+   * are calculated before rows are added. The lower and upper boundaries of the range are parameters, in that order.
+   *
+   * @param sql
+   *          the query to split
+   * @param splitField
+   *          the quoted name of the split field
+   * @param splitNr
+   *          the range to read
+   * @param splitCount
+   *          the number of ranges
+   * @param hasValues
+   *          false if the split field has no values at all: the first range then reads the whole query
+   * @return the query that only reads the given range
+   */
+  static String getSplitSQL( String sql, String splitField, int splitNr, int splitCount, boolean hasValues ) {
+    String predicate;
+    if ( !hasValues ) {
+      if ( splitNr == 0 ) {
+        return sql;
+      }
+      predicate = "1 = 0";
+    } else if ( splitNr == 0 ) {
+      predicate = "( " + splitField + " < ? OR " + splitField + " IS NULL )";
+    } else if ( splitNr == splitCount - 1 ) {
+      predicate = splitField + " >= ?";
+    } else {
+      predicate = splitField + " >= ? AND " + splitField + " < ?";
+    }
+    return "SELECT * FROM ( " + stripSQL( sql ) + " ) split_source WHERE " + predicate;
+  }
+
+  /**
+   * @return the query without trailing semicolons and without the ORDER BY clause that ends it, so it can be used as a
+   *         derived table
+   */
+  private static String stripSQL( String sql ) {
+    String stripped = Const.trim( sql );
+    while ( stripped.endsWith( ";" ) ) {
+      stripped = Const.trim( stripped.substring( 0, stripped.length() - 1 ) );
+    }
+    return stripOrderBy( stripped );
+  }
+
+  /**
+   * SQL Server doesn't accept ORDER BY in a derived table unless the rows are limited with TOP or OFFSET. The order
+   * doesn't matter to the range query and the copies each read their rows in no particular order, so the ORDER BY that
+   * ends the query is left out. It is kept when the query limits the number of rows, since those depend on the order.
+   * Parentheses, quoted names, string literals and comments are skipped.
+   *
+   * @param sql
+   *          the query without trailing semicolons
+   * @return the query without the ORDER BY clause that ends it
+   */
+  static String stripOrderBy( String sql ) {
+    int orderBy = -1;
+    int depth = 0;
+    String previousWord = null;
+    int previousWordStart = -1;
+    for ( int i = 0; i < sql.length(); i++ ) {
+      char c = sql.charAt( i );
+      int end = i;
+      if ( c == '\'' || c == '"' || c == '`' || c == '[' ) {
+        end = sql.indexOf( c == '[' ? ']' : c, i + 1 );
+      } else if ( sql.startsWith( "--", i ) ) {
+        end = sql.indexOf( '\n', i );
+        if ( end < 0 ) {
+          end = sql.length();
+        }
+      } else if ( sql.startsWith( "/*", i ) ) {
+        end = sql.indexOf( "*/", i + 2 );
+        if ( end >= 0 ) {
+          end++;
+        }
+      } else if ( c == '(' ) {
+        depth++;
+      } else if ( c == ')' ) {
+        depth--;
+      } else if ( isWordPart( c ) ) {
+        while ( end + 1 < sql.length() && isWordPart( sql.charAt( end + 1 ) ) ) {
+          end++;
+        }
+        if ( depth == 0 ) {
+          String word = sql.substring( i, end + 1 ).toUpperCase();
+          if ( "TOP".equals( word ) || "LIMIT".equals( word ) || "OFFSET".equals( word ) || "FETCH".equals( word ) ) {
+            return sql;
+          }
+          if ( "BY".equals( word ) && "ORDER".equals( previousWord ) ) {
+            orderBy = previousWordStart;
+          }
+          previousWord = word;
+          previousWordStart = i;
+        }
+      }
+      if ( end < 0 ) {
+        // An unterminated literal or comment: leave the query alone
+        return sql;
+      }
+      i = end;
+    }
+    return orderBy < 0 ? sql : Const.trim( sql.substring( 0, orderBy ) );
+  }
+
+  private static boolean isWordPart( char c ) {
+    return Character.isLetterOrDigit( c ) || c == '_' || c == '$' || c == '#';
+  }
+
+  /**
+   * @return the metadata of the range boundaries for a split field of the given type
+   */
+  static ValueMetaInterface getSplitValueMeta( ValueMetaInterface valueMeta ) throws KettleException {
+    if ( valueMeta.isNumeric() ) {
+      return new ValueMetaBigNumber( valueMeta.getName() );
+    }
+    switch ( valueMeta.getType() ) {
+      case ValueMetaInterface.TYPE_DATE:
+        return new ValueMetaDate( valueMeta.getName() );
+      case ValueMetaInterface.TYPE_TIMESTAMP:
+        return new ValueMetaTimestamp( valueMeta.getName() );
+      default:
+        throw new KettleException( BaseMessages.getString( PKG, "TableInput.Exception.SplitFieldTypeNotSupported",
+          valueMeta.getName(), valueMeta.getTypeDesc() ) );
+    }
+  }
+
+  /**
+   * Divide the values between min and max in ranges of equal width.
+   *
+   * @param valueMeta
+   *          the metadata of the minimum and maximum value
+   * @param min
+   *          the minimum value of the split field
+   * @param max
+   *          the maximum value of the split field
+   * @param splitCount
+   *          the number of ranges
+   * @return the splitCount-1 boundaries between the ranges or null if the split field has no values
+   * @throws KettleException
+   *           if the split field is not a numeric or a date field
+   */
+  static Object[] getSplitBoundaries( ValueMetaInterface valueMeta, Object min, Object max, int splitCount )
+    throws KettleException {
+    ValueMetaInterface boundaryMeta = getSplitValueMeta( valueMeta );
+    if ( min == null || max == null ) {
+      return null;
+    }
+
+    BigDecimal low;
+    BigDecimal high;
+    if ( valueMeta.isNumeric() ) {
+      low = valueMeta.getBigNumber( min );
+      high = valueMeta.getBigNumber( max );
+    } else {
+      low = BigDecimal.valueOf( valueMeta.getDate( min ).getTime() );
+      high = BigDecimal.valueOf( valueMeta.getDate( max ).getTime() );
+    }
+    boolean integral = valueMeta.isInteger() || valueMeta.isDate();
+
+    BigDecimal width = high.subtract( low );
+    Object[] boundaries = new Object[splitCount - 1];
+    for ( int i = 1; i < splitCount; i++ ) {
+      BigDecimal boundary =
+        low.add( width.multiply( BigDecimal.valueOf( i ) ).divide( BigDecimal.valueOf( splitCount ),
+          MathContext.DECIMAL64 ) );
+      if ( integral ) {
+        boundary = boundary.setScale( 0, RoundingMode.FLOOR );
+      }
+      switch ( boundaryMeta.getType() ) {
+        case ValueMetaInterface.TYPE_DATE:
+          boundaries[i - 1] = new Date( boundary.longValue() );
+          break;
+        case ValueMetaInterface.TYPE_TIMESTAMP:
+          boundaries[i - 1] = new Timestamp( boundary.longValue() );
+          break;
+        default:
+          boundaries[i - 1] = boundary;
+          break;
+      }
+    }
+    return boundaries;
+  }
+
   @Override
   protected Class<?> getPKG() {
     return PKG;
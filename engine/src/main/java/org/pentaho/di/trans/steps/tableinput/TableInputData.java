@@ -17,6 +17,7 @@ import java.sql.ResultSet;
 
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.PrefetchingRowReader;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseDatabaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
@@ -36,6 +37,21 @@ public class TableInputData extends BaseDatabaseStepData implements StepDataInte
   public boolean isCanceled;
   public StreamInterface infoStream;
 
+  /** The number of step copies the query is split over, 1 if the query isn't split */
+  public int splitCount;
+
+  /** The range of split field values this copy reads */
+  public int splitNr;
+
+  /** The minimum and maximum split field values, shared by the copies */
+  public SharedSplitRange splitRange;
+
+  /** The number of rows to read ahead on a separate thread, 0 to read on the step thread */
+  public int prefetchRows;
+
+  /** Reads ahead from the result set of the current query when prefetching */
+  public PrefetchingRowReader reader;
+
   public TableInputData() {
     super();
 
@@ -44,6 +60,7 @@ public class TableInputData extends BaseDatabaseStepData implements StepDataInte
     nextrow = null;
     rs = null;
     lookupStep = null;
+    splitCount = 1;
   }
 
 }
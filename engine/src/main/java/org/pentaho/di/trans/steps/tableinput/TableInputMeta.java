@@ -85,6 +85,10 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
   @Injection( name = "CACHED_ROW_META" )
   private boolean cachedRowMetaActive;
 
+  /** The numeric or date column used to split the query in disjoint ranges over the step copies */
+  @Injection( name = "SPLIT_FIELD" )
+  private String splitField;
+
   private RowMetaInterface cachedRowMeta;
 
   public TableInputMeta() {
@@ -181,6 +185,7 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
       variableReplacementActive = "Y".equals( XMLHandler.getTagValue( stepnode, "variables_active" ) );
       lazyConversionActive = "Y".equals( XMLHandler.getTagValue( stepnode, "lazy_conversion_active" ) );
       cachedRowMetaActive = "Y".equals( XMLHandler.getTagValue( stepnode, "cached_row_meta_active" ) );
+      splitField = XMLHandler.getTagValue( stepnode, "split_field" );
       cachedRowMeta = new RowMeta( XMLHandler.getSubNode( stepnode, RowMeta.XML_META_TAG ) );
 
     } catch ( Exception e ) {
@@ -192,6 +197,7 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
     databaseMeta = null;
     sql = "SELECT <values> FROM <table name> WHERE <conditions>";
     rowLimit = "0";
+    splitField = null;
   }
 
   protected Database getDatabase() {
@@ -300,6 +306,7 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
     retval.append( "    " + XMLHandler.addTagValue( "variables_active", variableReplacementActive ) );
     retval.append( "    " + XMLHandler.addTagValue( "lazy_conversion_active", lazyConversionActive ) );
     retval.append( "    " + XMLHandler.addTagValue( "cached_row_meta_active", cachedRowMetaActive ) );
+    retval.append( "    " + XMLHandler.addTagValue( "split_field", splitField ) );
     storeCachedRowMeta( retval );
     return retval.toString();
   }
@@ -353,6 +360,7 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
       variableReplacementActive = rep.getStepAttributeBoolean( id_step, "variables_active" );
       lazyConversionActive = rep.getStepAttributeBoolean( id_step, "lazy_conversion_active" );
       cachedRowMetaActive = rep.getStepAttributeBoolean( id_step, "cached_row_meta_active" );
+      splitField = rep.getStepAttributeString( id_step, "split_field" );
 
       String sRowMeta = rep.getStepAttributeString( id_step, RowMeta.XML_META_TAG );
       if ( sRowMeta != null ) {
@@ -379,6 +387,7 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
       rep.saveStepAttribute( id_transformation, id_step, "variables_active", variableReplacementActive );
       rep.saveStepAttribute( id_transformation, id_step, "lazy_conversion_active", lazyConversionActive );
       rep.saveStepAttribute( id_transformation, id_step, "cached_row_meta_active", cachedRowMetaActive );
+      rep.saveStepAttribute( id_transformation, id_step, "split_field", splitField );
       if ( cachedRowMeta != null ) {
         rep.saveStepAttribute( id_transformation, id_step, RowMeta.XML_META_TAG, cachedRowMeta.getMetaXML() );
       }
@@ -604,6 +613,25 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
     this.cachedRowMetaActive = cachedRowMetaActive;
   }
 
+  /**
+   * @return the name of the numeric or date column used to split the query over the step copies, empty if the query
+   *         is not split
+   */
+  public String getSplitField() {
+    return splitField;
+  }
+
+  /**
+   * When a split field is set and the step runs in more than one copy, every copy reads a disjoint range of the values
+   * of this column. The boundaries of the ranges are calculated from the minimum and maximum value of the column.
+   *
+   * @param splitField
+   *          the name of the numeric or date column to split on
+   */
+  public void setSplitField( String splitField ) {
+    this.splitField = splitField;
+  }
+
   /**
    * @return the cachedRowMetaActive
    */
@@ -15,6 +15,7 @@ package org.pentaho.di.trans.steps.tableoutput;
 
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.database.BulkInsertWriter;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseInterface;
 import org.pentaho.di.core.exception.KettleDatabaseBatchException;
@@ -34,6 +35,7 @@ import org.pentaho.di.trans.step.*;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -46,6 +48,9 @@ import java.util.List;
 public class TableOutput extends BaseDatabaseStep implements StepInterface {
   private static Class<?> PKG = TableOutputMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /** The number of rows per bulk load when there is no commit size, the rows are then committed at the end */
+  static final int BULK_INSERT_SIZE_WITHOUT_COMMIT = 10000;
+
   private TableOutputMeta meta;
   private TableOutputData data;
 
@@ -64,6 +69,12 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
       if ( first && meta.truncateTable() ) {
         truncateTable();
       }
+      if ( data.writers != null ) {
+        finishWriters();
+      }
+      if ( data.useBulkInsert ) {
+        finishBulkInsert();
+      }
       return false;
     }
 
@@ -106,13 +117,26 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
           }
         }
       }
+
+      if ( data.nrWriters > 1 ) {
+        startWriters();
+      }
+      if ( data.useBulkInsert ) {
+        startBulkInsert();
+      }
     }
 
     try {
-      Object[] outputRowData = writeToTable( getInputRowMeta(), r );
-      if ( outputRowData != null ) {
-        putRow( data.outputRowMeta, outputRowData ); // in case we want it go further...
-        incrementLinesOutput();
+      if ( data.writers != null ) {
+        writeToWriters( getInputRowMeta(), r );
+      } else if ( data.useBulkInsert ) {
+        writeToBulkInsert( r );
+      } else {
+        Object[] outputRowData = writeToTable( getInputRowMeta(), r );
+        if ( outputRowData != null ) {
+          putRow( data.outputRowMeta, outputRowData ); // in case we want it go further...
+          incrementLinesOutput();
+        }
       }
 
       if ( checkFeedback( getLinesRead() ) ) {
@@ -323,16 +347,7 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
       } else {
         data.db.clearBatch( insertStatement );
         data.db.rollback();
-        StringBuilder msg = new StringBuilder( "Error batch inserting rows into table [" + tableName + "]." );
-        msg.append( Const.CR );
-        msg.append( "Errors encountered (first 10):" ).append( Const.CR );
-        for ( int x = 0; x < be.getExceptionsList().size() && x < 10; x++ ) {
-          Exception exception = be.getExceptionsList().get( x );
-          if ( exception.getMessage() != null ) {
-            msg.append( exception.getMessage() ).append( Const.CR );
-          }
-        }
-        throw new KettleException( msg.toString(), be );
+        throw new KettleException( getBatchErrorMessage( tableName, be ), be );
       }
     } catch ( KettleDatabaseException dbe ) {
       if ( getStepMeta().isDoingErrorHandling() ) {
@@ -414,18 +429,308 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
     return outputRowData;
   }
 
+  private String getBatchErrorMessage( String tableName, KettleDatabaseBatchException be ) {
+    StringBuilder msg = new StringBuilder( "Error batch inserting rows into table [" + tableName + "]." );
+    msg.append( Const.CR );
+    msg.append( "Errors encountered (first 10):" ).append( Const.CR );
+    for ( int x = 0; x < be.getExceptionsList().size() && x < 10; x++ ) {
+      Exception exception = be.getExceptionsList().get( x );
+      if ( exception.getMessage() != null ) {
+        msg.append( exception.getMessage() ).append( Const.CR );
+      }
+    }
+    return msg.toString();
+  }
+
+  /**
+   * Start the writers that insert the rows over their own connections in parallel. Falls back to inserting on the
+   * connection of the step if the database doesn't support batch inserts.
+   */
+  void startWriters() throws KettleException {
+    if ( !data.db.getUseBatchInsert( data.batchMode ) ) {
+      logBasic( BaseMessages.getString( PKG, "TableOutput.Log.ParallelWritersNotPossible", data.nrWriters ) );
+      data.nrWriters = 1;
+      return;
+    }
+
+    String writerKeyField = environmentSubstitute( meta.getWriterKeyField() );
+    if ( !Utils.isEmpty( writerKeyField ) ) {
+      data.indexOfWriterKeyField = getInputRowMeta().indexOfValue( writerKeyField );
+      if ( data.indexOfWriterKeyField < 0 ) {
+        throw new KettleStepException( BaseMessages.getString(
+          PKG, "TableOutput.Exception.FieldRequired", writerKeyField ) );
+      }
+    }
+
+    // Release the locks of a truncate, the writers insert over other connections
+    //
+    data.db.commit( true );
+
+    String sql =
+      data.db.getInsertStatement( environmentSubstitute( meta.getSchemaName() ), data.tableName, data.insertRowMeta );
+    if ( log.isDetailed() ) {
+      logDetailed( "Prepared statement : " + sql );
+    }
+
+    data.writers = new ArrayList<TableOutputWriter>( data.nrWriters );
+    data.pendingChunks = new TableOutputWriter.Chunk[data.nrWriters];
+    for ( int i = 0; i < data.nrWriters; i++ ) {
+      Database db = new Database( this, data.databaseMeta );
+      db.shareVariablesWith( this );
+      try {
+        db.connect( getPartitionID() );
+        db.setCommitSize( data.commitSize );
+        db.setAutoCommit();
+        PreparedStatement insertStatement = db.prepareSQL( sql );
+        data.writers.add( new TableOutputWriter( db, insertStatement, data.insertRowMeta, data.processedChunks,
+          getStepname() + " writer " + ( i + 1 ) ) );
+      } catch ( KettleException e ) {
+        db.disconnect();
+        throw e;
+      }
+    }
+
+    if ( log.isBasic() ) {
+      logBasic( BaseMessages.getString( PKG, "TableOutput.Log.ParallelWritersStarted", data.nrWriters ) );
+    }
+  }
+
+  /**
+   * Add a row to the next batch of a writer. The rows are passed on once their batch is executed.
+   */
+  void writeToWriters( RowMetaInterface rowMeta, Object[] r ) throws KettleException {
+    Object[] insertRowData = getInsertRowData( r );
+
+    // Rows with the same key always go to the same writer, otherwise the writers get the batches in turn
+    //
+    int writerNr = data.nextWriter;
+    if ( data.indexOfWriterKeyField >= 0 ) {
+      ValueMetaInterface keyMeta = rowMeta.getValueMeta( data.indexOfWriterKeyField );
+      writerNr = ( keyMeta.hashCode( r[data.indexOfWriterKeyField] ) & Integer.MAX_VALUE ) % data.nrWriters;
+    }
+
+    TableOutputWriter.Chunk chunk = data.pendingChunks[writerNr];
+    if ( chunk == null ) {
+      chunk = new TableOutputWriter.Chunk( data.commitSize );
+      data.pendingChunks[writerNr] = chunk;
+    }
+    chunk.add( insertRowData, r );
+    if ( chunk.size() >= data.commitSize ) {
+      sendChunk( writerNr );
+      if ( data.indexOfWriterKeyField < 0 ) {
+        data.nextWriter = ( data.nextWriter + 1 ) % data.nrWriters;
+      }
+    }
+
+    processChunks();
+  }
+
+  private Object[] getInsertRowData( Object[] r ) {
+    if ( !meta.specifyFields() ) {
+      return r;
+    }
+    Object[] insertRowData = new Object[data.valuenrs.length];
+    for ( int idx = 0; idx < data.valuenrs.length; idx++ ) {
+      insertRowData[idx] = r[data.valuenrs[idx]];
+    }
+    return insertRowData;
+  }
+
+  private void sendChunk( int writerNr ) throws KettleException {
+    TableOutputWriter.Chunk chunk = data.pendingChunks[writerNr];
+    if ( chunk == null || chunk.size() == 0 ) {
+      return;
+    }
+    data.pendingChunks[writerNr] = null;
+    try {
+      if ( !data.writers.get( writerNr ).write( chunk ) ) {
+        throw new KettleException( BaseMessages.getString( PKG, "TableOutput.Exception.WriterStopped", writerNr + 1 ) );
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException(
+        BaseMessages.getString( PKG, "TableOutput.Exception.InterruptedWaitingForWriters" ), e );
+    }
+  }
+
+  /**
+   * Pass on the rows of the batches the writers executed, or send them to the error handling.
+   */
+  void processChunks() throws KettleException {
+    TableOutputWriter.Chunk chunk = data.processedChunks.poll();
+    while ( chunk != null ) {
+      if ( chunk.batchException != null ) {
+        KettleDatabaseBatchException be = chunk.batchException;
+        if ( !getStepMeta().isDoingErrorHandling() ) {
+          throw new KettleException( getBatchErrorMessage( data.tableName, be ), be );
+        }
+        processBatchException( be.toString(), be.getUpdateCounts(), be.getExceptionsList(), chunk.rows );
+      } else if ( chunk.exception != null ) {
+        if ( !getStepMeta().isDoingErrorHandling() ) {
+          throw new KettleException( "Error inserting rows into table [" + data.tableName + "]", chunk.exception );
+        }
+        for ( Object[] row : chunk.rows ) {
+          putError( data.outputRowMeta, row, 1L, chunk.exception.toString(), null, "TOP001" );
+        }
+      } else {
+        for ( Object[] row : chunk.rows ) {
+          putRow( data.outputRowMeta, row );
+          incrementLinesOutput();
+        }
+      }
+      chunk = data.processedChunks.poll();
+    }
+  }
+
+  /**
+   * Wait for the writers to execute the remaining batches and commit all of their connections. The writers only
+   * commit after all of the batches succeeded, so either all rows of this step copy are committed or none.
+   */
+  void finishWriters() throws KettleException {
+    try {
+      for ( int i = 0; i < data.nrWriters; i++ ) {
+        sendChunk( i );
+      }
+      for ( TableOutputWriter writer : data.writers ) {
+        writer.finish();
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException(
+        BaseMessages.getString( PKG, "TableOutput.Exception.InterruptedWaitingForWriters" ), e );
+    }
+    processChunks();
+
+    if ( getErrors() > 0 || isStopped() ) {
+      closeWriters( true );
+      return;
+    }
+    for ( TableOutputWriter writer : data.writers ) {
+      writer.getDatabase().commit( true );
+    }
+    closeWriters( false );
+  }
+
+  /**
+   * Stop the writers and close their connections.
+   *
+   * @param rollback
+   *          roll back the rows the writers inserted
+   */
+  void closeWriters( boolean rollback ) {
+    for ( TableOutputWriter writer : data.writers ) {
+      writer.stop();
+      Database db = writer.getDatabase();
+      try {
+        if ( rollback ) {
+          db.rollback( true );
+        }
+        db.closePreparedStatement( writer.getInsertStatement() );
+      } catch ( KettleDatabaseException e ) {
+        logError( "Unexpected error closing the connection of a writer.", e );
+      }
+      db.disconnect();
+    }
+    data.writers = null;
+  }
+
+  /**
+   * Start loading the rows through the native bulk load path of the database. Falls back to INSERT statements if the
+   * database, the driver or the data types don't allow it.
+   */
+  void startBulkInsert() throws KettleException {
+    data.bulkInsertWriter =
+      data.db.createBulkInsertWriter( environmentSubstitute( meta.getSchemaName() ), data.tableName,
+        data.insertRowMeta );
+    if ( data.bulkInsertWriter == null ) {
+      logBasic( BaseMessages.getString( PKG, "TableOutput.Log.BulkInsertNotSupported" ) );
+      data.useBulkInsert = false;
+    } else if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "TableOutput.Log.BulkInsertStarted" ) );
+    }
+  }
+
+  /**
+   * Send a row to the bulk load. The rows are passed on once they are committed. Without a commit size everything is
+   * committed at the end: the bulk load is then finished every so many rows so the rows can be passed on.
+   */
+  void writeToBulkInsert( Object[] r ) throws KettleException {
+    if ( data.bulkInsertWriter == null ) {
+      data.bulkInsertWriter =
+        data.db.createBulkInsertWriter( environmentSubstitute( meta.getSchemaName() ), data.tableName,
+          data.insertRowMeta );
+      if ( data.bulkInsertWriter == null ) {
+        throw new KettleException( BaseMessages.getString(
+          PKG, "TableOutput.Exception.UnableToStartBulkInsert", data.tableName ) );
+      }
+    }
+    data.bulkInsertWriter.writeRow( getInsertRowData( r ) );
+    data.batchBuffer.add( r );
+    if ( isRowLevel() ) {
+      logRowlevel( "Written row: " + getInputRowMeta().getString( r ) );
+    }
+
+    if ( data.commitSize > 0 && data.commitSize < Integer.MAX_VALUE ) {
+      if ( data.batchBuffer.size() >= data.commitSize ) {
+        finishBulkInsert();
+      }
+    } else if ( data.batchBuffer.size() >= BULK_INSERT_SIZE_WITHOUT_COMMIT ) {
+      finishBulkInsert( false );
+    }
+  }
+
+  /**
+   * Wait for the database to load the rows sent so far, commit them and pass them on.
+   */
+  void finishBulkInsert() throws KettleException {
+    finishBulkInsert( true );
+  }
+
+  /**
+   * Wait for the database to load the rows sent so far and pass them on.
+   *
+   * @param commit
+   *          true to commit the rows, false to leave that to the end of the transformation
+   */
+  void finishBulkInsert( boolean commit ) throws KettleException {
+    if ( data.bulkInsertWriter == null ) {
+      return;
+    }
+    BulkInsertWriter writer = data.bulkInsertWriter;
+    data.bulkInsertWriter = null;
+    long nrRows = writer.finish();
+    if ( commit ) {
+      data.db.commit( true );
+    }
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, commit
+        ? "TableOutput.Log.BulkInsertCommitted" : "TableOutput.Log.BulkInsertFinished", nrRows ) );
+    }
+
+    for ( Object[] row : data.batchBuffer ) {
+      putRow( data.outputRowMeta, row );
+      incrementLinesOutput();
+    }
+    data.batchBuffer.clear();
+  }
+
   public boolean isRowLevel() {
     return log.isRowLevel();
   }
 
   private void processBatchException( String errorMessage, int[] updateCounts, List<Exception> exceptionsList ) throws KettleException {
+    processBatchException( errorMessage, updateCounts, exceptionsList, data.batchBuffer );
+  }
+
+  private void processBatchException( String errorMessage, int[] updateCounts, List<Exception> exceptionsList,
+    List<Object[]> rows ) throws KettleException {
     // There was an error with the commit
     // We should put all the failing rows out there...
     //
     if ( updateCounts != null ) {
       int errNr = 0;
       for ( int i = 0; i < updateCounts.length; i++ ) {
-        Object[] row = data.batchBuffer.get( i );
+        Object[] row = rows.get( i );
         if ( updateCounts[i] > 0 ) {
           // send the error foward
           putRow( data.outputRowMeta, row );
@@ -444,14 +749,14 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
       // If we don't have update counts, it probably means the DB doesn't support it.
       // In this case we don't have a choice but to consider all inserted rows to be error rows.
       //
-      for ( int i = 0; i < data.batchBuffer.size(); i++ ) {
-        Object[] row = data.batchBuffer.get( i );
+      for ( int i = 0; i < rows.size(); i++ ) {
+        Object[] row = rows.get( i );
         putError( data.outputRowMeta, row, 1L, errorMessage, null, "TOP0003" );
       }
     }
 
     // Clear the buffer afterwards...
-    data.batchBuffer.clear();
+    rows.clear();
   }
 
   public boolean init( StepMetaInterface smi, StepDataInterface sdi ) {
@@ -485,6 +790,22 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
             && data.commitSize > 0 && !meta.isReturningGeneratedKeys()
             && !getTransMeta().isUsingUniqueConnections() && !data.useSafePoints;
 
+        // Parallel writers need batch mode and the same table for all the rows
+        data.nrWriters = Const.toInt( environmentSubstitute( meta.getNrWriters() ), 1 );
+        if ( data.nrWriters > 1
+          && ( !data.batchMode || meta.isTableNameInField() || meta.isPartitioningEnabled() ) ) {
+          logBasic( BaseMessages.getString( PKG, "TableOutput.Log.ParallelWritersNotPossible", data.nrWriters ) );
+          data.nrWriters = 1;
+        }
+
+        // A bulk load succeeds or fails as a whole, so rows can't be sent to the error handling one by one
+        data.useBulkInsert =
+          meta.isUseBulkInsert() && data.nrWriters == 1 && !meta.isReturningGeneratedKeys()
+            && !meta.isTableNameInField() && !meta.isPartitioningEnabled() && !getStepMeta().isDoingErrorHandling();
+        if ( meta.isUseBulkInsert() && !data.useBulkInsert ) {
+          logBasic( BaseMessages.getString( PKG, "TableOutput.Log.BulkInsertNotPossible" ) );
+        }
+
         // Per PDI-6211 : give a warning that batch mode operation in combination with step error handling can lead to
         // incorrectly processed rows.
         if ( getStepMeta().isDoingErrorHandling() && !dbInterface.supportsErrorHandlingOnBatchUpdates() ) {
@@ -542,8 +863,23 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
     meta = (TableOutputMeta) smi;
     data = (TableOutputData) sdi;
 
+    // Writers that didn't finish never commit
+    if ( data.writers != null ) {
+      closeWriters( true );
+    }
+
     if ( data.db != null ) {
       try {
+        if ( data.bulkInsertWriter != null ) {
+          if ( getErrors() == 0 ) {
+            finishBulkInsert();
+          } else {
+            // None of the rows of the bulk load are inserted
+            data.bulkInsertWriter.cancel();
+            data.bulkInsertWriter = null;
+            data.batchBuffer.clear();
+          }
+        }
         for ( String schemaTable : data.preparedStatements.keySet() ) {
           // Get a commit counter per prepared statement to keep track of separate tables, etc.
           //
@@ -21,7 +21,10 @@ import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+import org.pentaho.di.core.database.BulkInsertWriter;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -69,6 +72,21 @@ public class TableOutputData extends BaseDatabaseStepData implements StepDataInt
 
   public int commitSize;
 
+  /** The number of connections to insert over in parallel, 1 to insert on the connection of the step only */
+  public int nrWriters;
+  public List<TableOutputWriter> writers;
+  /** The rows collected for the next batch of every writer */
+  public TableOutputWriter.Chunk[] pendingChunks;
+  /** The batches the writers executed, waiting to be passed on by the step */
+  public Queue<TableOutputWriter.Chunk> processedChunks;
+  public int indexOfWriterKeyField;
+  public int nextWriter;
+
+  /** Load the rows through the native bulk load path of the database */
+  public boolean useBulkInsert;
+  /** Loads the rows up to the next commit, null before the first row after a commit */
+  public BulkInsertWriter bulkInsertWriter;
+
   public TableOutputData() {
     super();
 
@@ -80,10 +98,14 @@ public class TableOutputData extends BaseDatabaseStepData implements StepDataInt
 
     indexOfPartitioningField = -1;
     indexOfTableNameField = -1;
+    indexOfWriterKeyField = -1;
 
     batchBuffer = new ArrayList<Object[]>();
     commitCounterMap = new HashMap<String, Integer>();
 
+    nrWriters = 1;
+    processedChunks = new ConcurrentLinkedQueue<TableOutputWriter.Chunk>();
+
     releaseSavepoint = true;
   }
 }
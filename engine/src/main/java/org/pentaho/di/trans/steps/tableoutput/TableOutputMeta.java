@@ -137,6 +137,27 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
   @Injection( name = "AUTO_GENERATED_KEY_FIELD" )
   private String generatedKeyField;
 
+  /**
+   * The number of connections that insert rows in parallel
+   */
+  @Injection( name = "NR_WRITERS" )
+  private String nrWriters;
+
+  /**
+   * The field used to send rows with the same value to the same writer
+   */
+  @Injection( name = "WRITER_KEY_FIELD" )
+  private String writerKeyField;
+
+  @Injection( name = "USE_BULK_INSERT" )
+  public void metaSetUseBulkInsert( String value ) {
+    setUseBulkInsert( "Y".equalsIgnoreCase( value ) );
+  }
+  /**
+   * Load the rows through the native bulk load path of the database (COPY, ...) when it has one
+   */
+  private boolean useBulkInsert;
+
   // This follows the naming convention on TableInputMeta see
   // @See https://github.com/pentaho/pentaho-kettle/blob/285c5962c8bc73c5bec30933fe0b8fee00426043/engine/src/main/java/org/pentaho/di/trans/steps/tableinput/TableInputMeta.java#L100
   @Injection( name = "CONNECTIONNAME" )
@@ -348,6 +369,52 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
     this.commitSize = commitSize;
   }
 
+  /**
+   * @return the number of connections that insert rows in parallel, each in its own batches and transaction
+   */
+  public String getNrWriters() {
+    return nrWriters;
+  }
+
+  /**
+   * @param nrWriters the number of connections that insert rows in parallel
+   */
+  public void setNrWriters( String nrWriters ) {
+    this.nrWriters = nrWriters;
+  }
+
+  /**
+   * @return true if the rows are loaded through the native bulk load path of the database when it has one
+   */
+  public boolean isUseBulkInsert() {
+    return useBulkInsert;
+  }
+
+  /**
+   * @param useBulkInsert true to load the rows through the native bulk load path of the database, for example COPY on
+   *                      PostgreSQL. Databases without such a path use INSERT statements.
+   */
+  public void setUseBulkInsert( boolean useBulkInsert ) {
+    this.useBulkInsert = useBulkInsert;
+  }
+
+  /**
+   * @return the field used to send rows with the same value to the same writer, empty to spread the rows evenly
+   */
+  public String getWriterKeyField() {
+    return writerKeyField;
+  }
+
+  /**
+   * Rows with the same value in this field are always inserted by the same writer. This avoids lock contention between
+   * the writers, for example on a clustered index.
+   *
+   * @param writerKeyField the field used to route rows to the writers
+   */
+  public void setWriterKeyField( String writerKeyField ) {
+    this.writerKeyField = writerKeyField;
+  }
+
   /**
    * @return the table name
    */
@@ -464,6 +531,10 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
       returningGeneratedKeys = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "return_keys" ) );
       generatedKeyField = XMLHandler.getTagValue( stepnode, "return_field" );
 
+      nrWriters = XMLHandler.getTagValue( stepnode, "nr_writers" );
+      writerKeyField = XMLHandler.getTagValue( stepnode, "writer_key_field" );
+      useBulkInsert = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "use_bulk_insert" ) );
+
       Node fields = XMLHandler.getSubNode( stepnode, "fields" );
       int nrRows = XMLHandler.countNodes( fields, "field" );
 
@@ -484,6 +555,8 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
     databaseMeta = null;
     tableName = "";
     commitSize = "1000";
+    nrWriters = "1";
+    useBulkInsert = false;
 
     partitioningEnabled = false;
     partitioningMonthly = true;
@@ -520,6 +593,10 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
     retval.append( "    " + XMLHandler.addTagValue( "return_keys", returningGeneratedKeys ) );
     retval.append( "    " + XMLHandler.addTagValue( "return_field", generatedKeyField ) );
 
+    retval.append( "    " + XMLHandler.addTagValue( "nr_writers", nrWriters ) );
+    retval.append( "    " + XMLHandler.addTagValue( "writer_key_field", writerKeyField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "use_bulk_insert", useBulkInsert ) );
+
     retval.append( "    <fields>" ).append( Const.CR );
 
     for ( int i = 0; i < fieldDatabase.length; i++ ) {
@@ -557,6 +634,10 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
       returningGeneratedKeys = rep.getStepAttributeBoolean( id_step, "return_keys" );
       generatedKeyField = rep.getStepAttributeString( id_step, "return_field" );
 
+      nrWriters = rep.getStepAttributeString( id_step, "nr_writers" );
+      writerKeyField = rep.getStepAttributeString( id_step, "writer_key_field" );
+      useBulkInsert = rep.getStepAttributeBoolean( id_step, "use_bulk_insert" );
+
       int nrCols = rep.countNrStepAttributes( id_step, "column_name" );
       int nrStreams = rep.countNrStepAttributes( id_step, "stream_name" );
 
@@ -596,6 +677,10 @@ public class TableOutputMeta extends BaseDatabaseStepMeta implements StepMetaInt
       rep.saveStepAttribute( id_transformation, id_step, "return_keys", returningGeneratedKeys );
       rep.saveStepAttribute( id_transformation, id_step, "return_field", generatedKeyField );
 
+      rep.saveStepAttribute( id_transformation, id_step, "nr_writers", nrWriters );
+      rep.saveStepAttribute( id_transformation, id_step, "writer_key_field", writerKeyField );
+      rep.saveStepAttribute( id_transformation, id_step, "use_bulk_insert", useBulkInsert );
+
       int nrRows = ( fieldDatabase.length < fieldStream.length ? fieldStream.length : fieldDatabase.length );
       for ( int idx = 0; idx < nrRows; idx++ ) {
         String columnName = ( idx < fieldDatabase.length ? fieldDatabase[ idx ] : "" );
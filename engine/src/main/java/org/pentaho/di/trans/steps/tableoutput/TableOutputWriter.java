@@ -0,0 +1,193 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleDatabaseBatchException;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * One of the writers Table output uses to insert rows over several connections in parallel. A writer has its own
+ * connection and thread and inserts every chunk of rows it receives as one JDBC batch. Nothing is committed while the
+ * rows come in: at the end the step either commits all writers or rolls all of them back.
+ * <p>
+ * A writer never passes rows on itself. Processed chunks are handed back to the step thread, which sends the rows to
+ * the next steps or to the error handling.
+ */
+public class TableOutputWriter implements Runnable {
+
+  /** The number of chunks that can wait for a writer, so the step can prepare the next one while a batch executes */
+  private static final int QUEUE_SIZE = 2;
+
+  private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+  private static final Chunk END_OF_CHUNKS = new Chunk( 0 );
+
+  /**
+   * A batch of rows for a writer with the outcome of inserting it.
+   */
+  public static class Chunk {
+    /** The values to insert */
+    final List<Object[]> insertRows;
+    /** The rows as they were received, to pass on to the next steps */
+    final List<Object[]> rows;
+
+    KettleDatabaseBatchException batchException;
+    KettleDatabaseException exception;
+
+    Chunk( int size ) {
+      insertRows = new ArrayList<>( size );
+      rows = new ArrayList<>( size );
+    }
+
+    void add( Object[] insertRow, Object[] row ) {
+      insertRows.add( insertRow );
+      rows.add( row );
+    }
+
+    int size() {
+      return rows.size();
+    }
+  }
+
+  private final Database db;
+  private final PreparedStatement insertStatement;
+  private final RowMetaInterface insertRowMeta;
+  private final BlockingQueue<Chunk> input = new ArrayBlockingQueue<>( QUEUE_SIZE );
+  private final Queue<Chunk> processed;
+  private final Thread thread;
+
+  private volatile boolean stopped;
+
+  /**
+   * Create a writer and start its thread.
+   *
+   * @param db              the connected database, used by this writer only
+   * @param insertStatement the prepared insert statement
+   * @param insertRowMeta   the metadata of the values to insert
+   * @param processed       the queue to hand the processed chunks back to the step
+   * @param name            the name of the writer thread
+   */
+  TableOutputWriter( Database db, PreparedStatement insertStatement, RowMetaInterface insertRowMeta,
+    Queue<Chunk> processed, String name ) {
+    this.db = db;
+    this.insertStatement = insertStatement;
+    this.insertRowMeta = insertRowMeta;
+    this.processed = processed;
+
+    thread = new Thread( this, name );
+    thread.setDaemon( true );
+    thread.start();
+  }
+
+  @Override
+  public void run() {
+    try {
+      Chunk chunk = input.take();
+      while ( chunk != END_OF_CHUNKS && !stopped ) {
+        insert( chunk );
+        processed.add( chunk );
+        chunk = input.take();
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void insert( Chunk chunk ) {
+    try {
+      for ( Object[] insertRow : chunk.insertRows ) {
+        db.setValues( insertRowMeta, insertRow, insertStatement );
+        insertStatement.addBatch();
+      }
+      insertStatement.executeBatch();
+      insertStatement.clearBatch();
+    } catch ( SQLException e ) {
+      chunk.batchException = Database.createKettleDatabaseBatchException( "Error updating batch", e );
+      clearBatch();
+    } catch ( KettleDatabaseException e ) {
+      chunk.exception = e;
+      clearBatch();
+    } catch ( RuntimeException e ) {
+      chunk.exception = new KettleDatabaseException( "Unexpected error inserting rows", e );
+      clearBatch();
+    }
+  }
+
+  private void clearBatch() {
+    try {
+      db.clearBatch( insertStatement );
+    } catch ( KettleDatabaseException e ) {
+      // Reported through the exception of the chunk already
+    }
+  }
+
+  /**
+   * Queue a chunk of rows, waiting while the writer is busy.
+   *
+   * @return false if the writer stopped
+   */
+  boolean write( Chunk chunk ) throws InterruptedException {
+    if ( stopped ) {
+      return false;
+    }
+    while ( !input.offer( chunk, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS ) ) {
+      if ( stopped || !thread.isAlive() ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Wait until all the queued chunks are processed.
+   */
+  void finish() throws InterruptedException {
+    if ( write( END_OF_CHUNKS ) ) {
+      thread.join();
+    }
+  }
+
+  /**
+   * Stop processing chunks and wait for the chunk that is being inserted, if any.
+   */
+  void stop() {
+    stopped = true;
+    input.clear();
+    input.offer( END_OF_CHUNKS );
+    try {
+      thread.join();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  Database getDatabase() {
+    return db;
+  }
+
+  PreparedStatement getInsertStatement() {
+    return insertStatement;
+  }
+}
@@ -18,13 +18,18 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 import org.apache.commons.vfs2.FileObject;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.compress.CompressionOutputStream;
+import org.pentaho.di.core.compress.WriteBehindCompressionOutputStream;
 import org.pentaho.di.core.compress.zip.ZIPCompressionProvider;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.ResultFile;
@@ -61,6 +66,14 @@ public class TextFileOutput extends BaseStep implements StepInterface {
 
   private static final String FILE_COMPRESSION_TYPE_NONE =
       TextFileOutputMeta.fileCompressionTypeCodes[TextFileOutputMeta.FILE_COMPRESSION_TYPE_NONE];
+
+  private static final int DEFAULT_BUFFER_SIZE = 5000;
+
+  /** The default integer format, which writes integers as plain digits */
+  private static final String PLAIN_INTEGER_MASK = "####0;-####0";
+
+  private static final String PLAIN_DIGITS = "-0123456789";
+
   private static final boolean COMPATIBILITY_APPEND_NO_HEADER = "Y".equals(
           Const.NVL( System.getProperty( Const.KETTLE_COMPATIBILITY_TEXT_FILE_OUTPUT_APPEND_NO_HEADER ), "N" ) );
 
@@ -176,7 +189,8 @@ public class TextFileOutput extends BaseStep implements StepInterface {
 
           OutputStream fileOutputStream =
             getOutputStream( filename, getTransMeta(), !isZipFile && appendToExistingFile );
-          CompressionOutputStream compressionOutputStream = compressionProvider.createOutputStream( fileOutputStream );
+          CompressionOutputStream compressionOutputStream =
+            createCompressionOutputStream( compressionProvider, fileOutputStream );
 
           // The compression output stream may also archive entries. For this we create the filename
           // (with appropriate extension) and add it as an entry to the output stream. For providers
@@ -191,7 +205,8 @@ public class TextFileOutput extends BaseStep implements StepInterface {
             }
           }
 
-          BufferedOutputStream bufferedOutputStream = new BufferedOutputStream( compressionOutputStream, 5000 );
+          BufferedOutputStream bufferedOutputStream =
+            new BufferedOutputStream( compressionOutputStream, getBufferSize() );
 
           fileStreams = data.new FileStream( fileOutputStream, compressionOutputStream, bufferedOutputStream );
 
@@ -209,9 +224,11 @@ public class TextFileOutput extends BaseStep implements StepInterface {
 
           OutputStream fileOutputStream = getOutputStream( filename, getTransMeta(), true );
           CompressionProvider compressionProvider = getCompressionProvider();
-          CompressionOutputStream compressionOutputStream = compressionProvider.createOutputStream( fileOutputStream );
+          CompressionOutputStream compressionOutputStream =
+            createCompressionOutputStream( compressionProvider, fileOutputStream );
           compressionOutputStream.addEntry( filename, environmentSubstitute( meta.getExtension() ) );
-          BufferedOutputStream bufferedOutputStream = new BufferedOutputStream( compressionOutputStream, 5000 );
+          BufferedOutputStream bufferedOutputStream =
+            new BufferedOutputStream( compressionOutputStream, getBufferSize() );
 
           fileStreams.setFileOutputStream( fileOutputStream );
           fileStreams.setCompressedOutputStream( compressionOutputStream );
@@ -237,6 +254,15 @@ public class TextFileOutput extends BaseStep implements StepInterface {
     }
   }
 
+  private CompressionOutputStream createCompressionOutputStream( CompressionProvider compressionProvider,
+    OutputStream fileOutputStream ) throws IOException {
+    CompressionOutputStream compressionOutputStream = compressionProvider.createOutputStream( fileOutputStream );
+    if ( isWriteBehind() ) {
+      return new WriteBehindCompressionOutputStream( compressionOutputStream );
+    }
+    return compressionOutputStream;
+  }
+
   public String getOutputFileName( Object[] row ) throws KettleException {
     String filename = null;
     if ( row == null ) {
@@ -279,6 +305,15 @@ public class TextFileOutput extends BaseStep implements StepInterface {
     return flushInterval;
   }
 
+  public int getBufferSize() {
+    int bufferSize = Const.toInt( getTransMeta().getVariable( Const.KETTLE_FILE_OUTPUT_BUFFER_SIZE ), 0 );
+    return bufferSize > 0 ? bufferSize : DEFAULT_BUFFER_SIZE;
+  }
+
+  public boolean isWriteBehind() {
+    return "Y".equalsIgnoreCase( getTransMeta().getVariable( Const.KETTLE_FILE_OUTPUT_WRITE_BEHIND ) );
+  }
+
   public int getMaxOpenFiles(  )  {
     String maxStreamCountStr = getTransMeta().getVariable( "KETTLE_FILE_OUTPUT_MAX_STREAM_COUNT" );
     int maxStreamCount = 0;
@@ -478,7 +513,7 @@ public class TextFileOutput extends BaseStep implements StepInterface {
           // no special null value default was specified since no fields are specified at all
           // As such, we pass null
           //
-          writeField( v, valueData, null );
+          writeField( v, valueData, null, i );
         }
       } else {
         /*
@@ -491,7 +526,7 @@ public class TextFileOutput extends BaseStep implements StepInterface {
 
           ValueMetaInterface v = meta.getMetaWithFieldOptions()[ i ];
           Object valueData = r[ data.fieldnrs[ i ] ];
-          writeField( v, valueData, data.binaryNullValue[ i ] );
+          writeField( v, valueData, data.binaryNullValue[ i ], i );
         }
       }
 
@@ -504,7 +539,7 @@ public class TextFileOutput extends BaseStep implements StepInterface {
     }
   }
 
-  private byte[] formatField( ValueMetaInterface v, Object valueData ) throws KettleValueException {
+  private byte[] formatField( ValueMetaInterface v, Object valueData, int fieldIndex ) throws KettleValueException {
     if ( v.isString() ) {
       if ( v.isStorageBinaryString() && v.getTrimType() == ValueMetaInterface.TRIM_TYPE_NONE && v.getLength() < 0
           && Utils.isEmpty( v.getStringEncoding() ) ) {
@@ -513,11 +548,64 @@ public class TextFileOutput extends BaseStep implements StepInterface {
         String svalue = ( valueData instanceof String ) ? (String) valueData : v.getString( valueData );
         return convertStringToBinaryString( v, Const.trimToType( svalue, v.getTrimType() ) );
       }
+    } else if ( isPlainInteger( v, valueData ) ) {
+      return toDigits( (Long) valueData );
+    } else if ( v.getType() == ValueMetaInterface.TYPE_DATE
+      && v.getStorageType() == ValueMetaInterface.STORAGE_TYPE_NORMAL && valueData instanceof Date ) {
+      return formatDate( v, (Date) valueData, fieldIndex );
     } else {
       return v.getBinaryString( valueData );
     }
   }
 
+  /**
+   * @return true if the value would be formatted with the default integer format, which gives the same digits as
+   *         {@link #toDigits(long)}
+   */
+  private boolean isPlainInteger( ValueMetaInterface v, Object valueData ) {
+    return data.plainIntegerDigits && valueData instanceof Long && v.getType() == ValueMetaInterface.TYPE_INTEGER
+      && v.getStorageType() == ValueMetaInterface.STORAGE_TYPE_NORMAL && v.getConversionMetadata() == null
+      && Utils.isEmpty( v.getStringEncoding() ) && PLAIN_INTEGER_MASK.equals( v.getFormatMask() );
+  }
+
+  /**
+   * Write the ASCII digits of an integer without formatting it as a string first.
+   */
+  static byte[] toDigits( long value ) {
+    // Work with the negative value, so Long.MIN_VALUE doesn't overflow
+    long rest = value < 0 ? value : -value;
+    int length = value < 0 ? 2 : 1;
+    for ( long r = rest; r <= -10; r /= 10 ) {
+      length++;
+    }
+    byte[] digits = new byte[length];
+    int i = length;
+    do {
+      digits[--i] = (byte) ( '0' - rest % 10 );
+      rest /= 10;
+    } while ( rest < 0 );
+    if ( value < 0 ) {
+      digits[0] = '-';
+    }
+    return digits;
+  }
+
+  /**
+   * Dates often repeat from one row to the next, so the last date of every field is only formatted once.
+   */
+  private byte[] formatDate( ValueMetaInterface v, Date date, int fieldIndex ) throws KettleValueException {
+    if ( data.lastDateBytes == null || data.lastDateBytes.length <= fieldIndex ) {
+      data.lastDates = new long[fieldIndex + 1];
+      data.lastDateBytes = new byte[fieldIndex + 1][];
+    }
+    long time = date.getTime();
+    if ( data.lastDateBytes[fieldIndex] == null || data.lastDates[fieldIndex] != time ) {
+      data.lastDates[fieldIndex] = time;
+      data.lastDateBytes[fieldIndex] = v.getBinaryString( date );
+    }
+    return data.lastDateBytes[fieldIndex];
+  }
+
   private byte[] convertStringToBinaryString( ValueMetaInterface v, String string ) throws KettleValueException {
     int length = v.getLength();
 
@@ -599,7 +687,8 @@ public class TextFileOutput extends BaseStep implements StepInterface {
     }
   }
 
-  private void writeField( ValueMetaInterface v, Object valueData, byte[] nullString ) throws KettleStepException {
+  private void writeField( ValueMetaInterface v, Object valueData, byte[] nullString, int fieldIndex )
+    throws KettleStepException {
     try {
       byte[] str;
 
@@ -616,7 +705,7 @@ public class TextFileOutput extends BaseStep implements StepInterface {
             str = getBinaryString( ( valueData == null ) ? "" : valueData.toString() );
           }
         } else {
-          str = formatField( v, valueData );
+          str = formatField( v, valueData, fieldIndex );
         }
       }
 
@@ -898,6 +987,10 @@ public class TextFileOutput extends BaseStep implements StepInterface {
         }
       }
       data.splitEvery = meta.getSplitEvery( variables );
+
+      DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance( Locale.getDefault( Locale.Category.FORMAT ) );
+      data.plainIntegerDigits = symbols.getZeroDigit() == '0' && symbols.getMinusSign() == '-'
+        && Arrays.equals( PLAIN_DIGITS.getBytes(), PLAIN_DIGITS.getBytes( StandardCharsets.US_ASCII ) );
     } catch ( Exception e ) {
       throw new KettleException( "Unexpected error while encoding binary fields", e );
     }
@@ -424,6 +424,13 @@ public class TextFileOutputData extends BaseStepData implements StepDataInterfac
 
   public int splitEvery;
 
+  /** True if integers are formatted as plain ASCII digits by default, so they can be written without formatting */
+  public boolean plainIntegerDigits;
+
+  /** The last date written to every field and its formatted value */
+  public long[] lastDates;
+  public byte[][] lastDateBytes;
+
   public TextFileOutputData() {
     super();
 
@@ -15,14 +15,22 @@ package org.pentaho.di.trans.steps.update;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.util.Utils;
+import org.pentaho.di.core.database.BatchLookup;
+import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
@@ -49,34 +57,12 @@ public class Update extends BaseDatabaseStep implements StepInterface {
   }
 
   private synchronized Object[] lookupValues( RowMetaInterface rowMeta, Object[] row ) throws KettleException {
-    Object[] outputRow = row;
+    Object[] outputRow = getOutputRow( rowMeta, row );
     Object[] add;
 
-    // Create the output row and copy the input values
-    if ( !Utils.isEmpty( meta.getIgnoreFlagField() ) ) { // add flag field!
-
-      outputRow = new Object[data.outputRowMeta.size()];
-      for ( int i = 0; i < rowMeta.size(); i++ ) {
-        outputRow[i] = row[i];
-      }
-    }
-
     // OK, now do the lookup.
     // We need the lookupvalues for that.
-    Object[] lookupRow = new Object[data.lookupParameterRowMeta.size()];
-    int lookupIndex = 0;
-
-    for ( int i = 0; i < data.keynrs.length; i++ ) {
-      if ( data.keynrs[i] >= 0 ) {
-        lookupRow[lookupIndex] = row[data.keynrs[i]];
-        lookupIndex++;
-
-      }
-      if ( data.keynrs2[i] >= 0 ) {
-        lookupRow[lookupIndex] = row[data.keynrs2[i]];
-        lookupIndex++;
-      }
-    }
+    Object[] lookupRow = getLookupRow( row );
     RowMetaInterface returnRowMeta = null;
     if ( !meta.isSkipLookup() ) {
       data.db.setValues( data.lookupParameterRowMeta, lookupRow, data.prepStatementLookup );
@@ -93,39 +79,7 @@ public class Update extends BaseDatabaseStep implements StepInterface {
     incrementLinesInput();
 
     if ( add == null && !meta.isSkipLookup() ) {
-      /*
-       * nothing was found: throw error!
-       */
-      if ( !meta.isErrorIgnored() ) {
-        if ( getStepMeta().isDoingErrorHandling() ) {
-          outputRow = null;
-          if ( data.stringErrorKeyNotFound == null ) {
-            data.stringErrorKeyNotFound =
-              BaseMessages.getString( PKG, "Update.Exception.KeyCouldNotFound" )
-                + data.lookupParameterRowMeta.getString( lookupRow );
-            data.stringFieldnames = "";
-            for ( int i = 0; i < data.lookupParameterRowMeta.size(); i++ ) {
-              if ( i > 0 ) {
-                data.stringFieldnames += ", ";
-              }
-              data.stringFieldnames += data.lookupParameterRowMeta.getValueMeta( i ).getName();
-            }
-          }
-          putError( rowMeta, row, 1L, data.stringErrorKeyNotFound, data.stringFieldnames, "UPD001" );
-        } else {
-          throw new KettleDatabaseException( BaseMessages.getString( PKG, "Update.Exception.KeyCouldNotFound" )
-            + data.lookupParameterRowMeta.getString( lookupRow ) );
-        }
-      } else {
-        if ( log.isDetailed() ) {
-          logDetailed( BaseMessages.getString( PKG, "Update.Log.KeyCouldNotFound" )
-            + data.lookupParameterRowMeta.getString( lookupRow ) );
-        }
-        if ( !Utils.isEmpty( meta.getIgnoreFlagField() ) ) { // set flag field!
-
-          outputRow[rowMeta.size()] = Boolean.FALSE;
-        }
-      }
+      outputRow = handleKeyNotFound( rowMeta, row, lookupRow, outputRow );
     } else {
       if ( !meta.isSkipLookup() ) {
         if ( log.isRowLevel() ) {
@@ -145,34 +99,15 @@ public class Update extends BaseDatabaseStep implements StepInterface {
         // Update fields directly
         update = true;
       } else {
-        for ( int i = 0; i < data.valuenrs.length; i++ ) {
-          ValueMetaInterface valueMeta = rowMeta.getValueMeta( data.valuenrs[i] );
-          Object rowvalue = row[data.valuenrs[i]];
-          ValueMetaInterface returnValueMeta = returnRowMeta.getValueMeta( i );
-          Object retvalue = add[i];
-
-          if ( returnValueMeta.compare( retvalue, valueMeta, rowvalue ) != 0 ) {
-            update = true;
-          }
-        }
+        update = isChanged( rowMeta, row, returnRowMeta, add );
       }
 
       if ( update ) {
-        // Create the update row...
-        Object[] updateRow = new Object[data.updateParameterRowMeta.size()];
-        for ( int i = 0; i < data.valuenrs.length; i++ ) {
-          updateRow[i] = row[data.valuenrs[i]]; // the setters
-        }
-        // add the where clause parameters, they are exactly the same for lookup and update
-        for ( int i = 0; i < lookupRow.length; i++ ) {
-          updateRow[data.valuenrs.length + i] = lookupRow[i];
-        }
-
         if ( log.isRowLevel() ) {
           logRowlevel( BaseMessages.getString( PKG, "Update.Log.UpdateRow" )
             + data.lookupParameterRowMeta.getString( lookupRow ) );
         }
-        data.db.setValues( data.updateParameterRowMeta, updateRow, data.prepStatementUpdate );
+        data.db.setValues( data.updateParameterRowMeta, getUpdateRow( row, lookupRow ), data.prepStatementUpdate );
         data.db.insertRow( data.prepStatementUpdate, meta.useBatchUpdate(), true );
         incrementLinesUpdated();
       } else {
@@ -188,6 +123,327 @@ public class Update extends BaseDatabaseStep implements StepInterface {
     return outputRow;
   }
 
+  private Object[] getOutputRow( RowMetaInterface rowMeta, Object[] row ) {
+    Object[] outputRow = row;
+
+    // Create the output row and copy the input values
+    if ( !Utils.isEmpty( meta.getIgnoreFlagField() ) ) { // add flag field!
+
+      outputRow = new Object[data.outputRowMeta.size()];
+      for ( int i = 0; i < rowMeta.size(); i++ ) {
+        outputRow[i] = row[i];
+      }
+    }
+    return outputRow;
+  }
+
+  private Object[] getLookupRow( Object[] row ) {
+    Object[] lookupRow = new Object[data.lookupParameterRowMeta.size()];
+    int lookupIndex = 0;
+
+    for ( int i = 0; i < data.keynrs.length; i++ ) {
+      if ( data.keynrs[i] >= 0 ) {
+        lookupRow[lookupIndex] = row[data.keynrs[i]];
+        lookupIndex++;
+
+      }
+      if ( data.keynrs2[i] >= 0 ) {
+        lookupRow[lookupIndex] = row[data.keynrs2[i]];
+        lookupIndex++;
+      }
+    }
+    return lookupRow;
+  }
+
+  private Object[] getUpdateRow( Object[] row, Object[] lookupRow ) {
+    Object[] updateRow = new Object[data.updateParameterRowMeta.size()];
+    for ( int i = 0; i < data.valuenrs.length; i++ ) {
+      updateRow[i] = row[data.valuenrs[i]]; // the setters
+    }
+    // add the where clause parameters, they are exactly the same for lookup and update
+    for ( int i = 0; i < lookupRow.length; i++ ) {
+      updateRow[data.valuenrs.length + i] = lookupRow[i];
+    }
+    return updateRow;
+  }
+
+  /**
+   * @return true if one of the fields to update has a different value in the row than in the table
+   */
+  private boolean isChanged( RowMetaInterface rowMeta, Object[] row, RowMetaInterface returnRowMeta, Object[] add )
+    throws KettleValueException {
+    for ( int i = 0; i < data.valuenrs.length; i++ ) {
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( data.valuenrs[i] );
+      Object rowvalue = row[data.valuenrs[i]];
+      ValueMetaInterface returnValueMeta = returnRowMeta.getValueMeta( i );
+      Object retvalue = add[i];
+
+      if ( returnValueMeta.compare( retvalue, valueMeta, rowvalue ) != 0 ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Nothing was found: throw an error, send the row to the error handling or flag it.
+   *
+   * @return the output row or null if the row went to the error handling
+   */
+  private Object[] handleKeyNotFound( RowMetaInterface rowMeta, Object[] row, Object[] lookupRow,
+    Object[] outputRow ) throws KettleException {
+    if ( !meta.isErrorIgnored() ) {
+      if ( getStepMeta().isDoingErrorHandling() ) {
+        putError( rowMeta, row, 1L, getKeyNotFoundError( lookupRow ), data.stringFieldnames, "UPD001" );
+        return null;
+      } else {
+        throw new KettleDatabaseException( BaseMessages.getString( PKG, "Update.Exception.KeyCouldNotFound" )
+          + data.lookupParameterRowMeta.getString( lookupRow ) );
+      }
+    } else {
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "Update.Log.KeyCouldNotFound" )
+          + data.lookupParameterRowMeta.getString( lookupRow ) );
+      }
+      if ( !Utils.isEmpty( meta.getIgnoreFlagField() ) ) { // set flag field!
+
+        outputRow[rowMeta.size()] = Boolean.FALSE;
+      }
+      return outputRow;
+    }
+  }
+
+  /**
+   * @return the error description of a key that wasn't found, {@link UpdateData#stringFieldnames} holds the key fields
+   */
+  private String getKeyNotFoundError( Object[] lookupRow ) throws KettleValueException {
+    if ( data.stringErrorKeyNotFound == null ) {
+      data.stringErrorKeyNotFound =
+        BaseMessages.getString( PKG, "Update.Exception.KeyCouldNotFound" )
+          + data.lookupParameterRowMeta.getString( lookupRow );
+      data.stringFieldnames = "";
+      for ( int i = 0; i < data.lookupParameterRowMeta.size(); i++ ) {
+        if ( i > 0 ) {
+          data.stringFieldnames += ", ";
+        }
+        data.stringFieldnames += data.lookupParameterRowMeta.getValueMeta( i ).getName();
+      }
+    }
+    return data.stringErrorKeyNotFound;
+  }
+
+  /**
+   * Looks up the keys of all the buffered rows with a few queries and sends the updates to the database as a single
+   * batch. Rows with the same key are handled in order, just like row by row.
+   * <p>
+   * A row that can't be updated goes to the error handling on its own, when the batch fails its rows go there.
+   */
+  private void updateBulk() throws KettleException {
+    RowMetaInterface rowMeta = getInputRowMeta();
+    int nrRows = data.bulkRows.size();
+
+    // Look up the distinct keys, a key with a null value never matches
+    List<Object[]> lookupRows = new ArrayList<Object[]>( nrRows );
+    List<RowMetaAndData> keyRows = new ArrayList<RowMetaAndData>( nrRows );
+    Map<RowMetaAndData, Integer> distinct = new HashMap<RowMetaAndData, Integer>();
+    List<Object[]> keys = new ArrayList<Object[]>();
+    for ( Object[] row : data.bulkRows ) {
+      Object[] lookupRow = getLookupRow( row );
+      Object[] keyRow = BatchLookup.getKey( data.lookupParameterRowMeta, lookupRow );
+      RowMetaAndData key = keyRow == null ? null : new RowMetaAndData( data.bulkKeyMeta, keyRow );
+      lookupRows.add( lookupRow );
+      keyRows.add( key );
+      if ( key != null && !distinct.containsKey( key ) ) {
+        distinct.put( key, keys.size() );
+        keys.add( keyRow );
+      }
+    }
+    Map<RowMetaAndData, Object[]> existing = lookupKeys( keys, distinct );
+
+    Object[][] outputRows = new Object[nrRows][];
+    String[] errors = new String[nrRows];
+    String[] errorFields = new String[nrRows];
+    List<Integer> updates = new ArrayList<Integer>();
+    for ( int r = 0; r < nrRows; r++ ) {
+      Object[] row = data.bulkRows.get( r );
+      Object[] lookupRow = lookupRows.get( r );
+      RowMetaAndData key = keyRows.get( r );
+      incrementLinesInput();
+
+      try {
+        Object[] outputRow = getOutputRow( rowMeta, row );
+        Object[] current = key == null ? null : existing.get( key );
+        if ( current == null ) {
+          if ( !meta.isErrorIgnored() && getStepMeta().isDoingErrorHandling() ) {
+            // The row goes to the error handling with the others once the buffer is written
+            errors[r] = getKeyNotFoundError( lookupRow );
+            errorFields[r] = data.stringFieldnames;
+            continue;
+          }
+          outputRow = handleKeyNotFound( rowMeta, row, lookupRow, outputRow );
+        } else {
+          if ( isChanged( rowMeta, row, data.bulkValueMeta, current ) ) {
+            if ( log.isRowLevel() ) {
+              logRowlevel( BaseMessages.getString( PKG, "Update.Log.UpdateRow" )
+                + data.lookupParameterRowMeta.getString( lookupRow ) );
+            }
+            data.db.setValues( data.updateParameterRowMeta, getUpdateRow( row, lookupRow ),
+              data.prepStatementUpdate );
+            try {
+              if ( data.useBatch ) {
+                data.prepStatementUpdate.addBatch();
+              } else {
+                data.prepStatementUpdate.executeUpdate();
+              }
+            } catch ( SQLException ex ) {
+              throw new KettleDatabaseException( "Error updating row", ex );
+            }
+            updates.add( r );
+            existing.put( key, getCurrentValues( rowMeta, row ) );
+          } else {
+            incrementLinesSkipped();
+          }
+          if ( !Utils.isEmpty( meta.getIgnoreFlagField() ) ) { // add flag field!
+
+            outputRow[rowMeta.size()] = Boolean.TRUE;
+          }
+        }
+        outputRows[r] = outputRow;
+      } catch ( KettleException e ) {
+        failRows( Collections.singletonList( r ), errors, e );
+      }
+    }
+
+    boolean written = true;
+    if ( data.useBatch && !updates.isEmpty() ) {
+      try {
+        data.prepStatementUpdate.executeBatch();
+        data.prepStatementUpdate.clearBatch();
+      } catch ( SQLException ex ) {
+        data.db.clearBatch( data.prepStatementUpdate );
+        failRows( updates, errors, Database.createKettleDatabaseBatchException( "Error updating batch", ex ) );
+        written = false;
+      }
+    }
+    if ( written ) {
+      for ( int i = 0; i < updates.size(); i++ ) {
+        incrementLinesUpdated();
+      }
+      data.bulkWritten += updates.size();
+    }
+    if ( !data.db.isAutoCommit() && data.commitSize > 0 && data.bulkWritten >= data.commitSize ) {
+      data.db.commit();
+      data.bulkWritten = 0;
+    }
+
+    for ( int r = 0; r < nrRows; r++ ) {
+      if ( errors[r] != null ) {
+        putError( rowMeta, data.bulkRows.get( r ), 1L, errors[r], errorFields[r], "UPD001" );
+      } else if ( outputRows[r] != null ) {
+        putRow( data.outputRowMeta, outputRows[r] );
+      }
+    }
+    data.bulkRows.clear();
+  }
+
+  /**
+   * Looks up the distinct keys and returns the values of the fields to update, converted to the data types of the
+   * stream fields, by key.
+   */
+  private Map<RowMetaAndData, Object[]> lookupKeys( List<Object[]> keys, Map<RowMetaAndData, Integer> distinct )
+    throws KettleException {
+    Map<RowMetaAndData, Object[]> existing = new HashMap<RowMetaAndData, Object[]>();
+    if ( keys.isEmpty() ) {
+      return existing;
+    }
+    if ( log.isRowLevel() ) {
+      logRowlevel( BaseMessages.getString( PKG, "Update.Log.LookingUpBulk", keys.size() ) );
+    }
+    Object[][] results = data.bulkLookup.lookup( keys );
+    RowMetaInterface returnedMeta = data.bulkLookup.getReturnRowMeta();
+    for ( Map.Entry<RowMetaAndData, Integer> entry : distinct.entrySet() ) {
+      Object[] result = results[entry.getValue()];
+      if ( result != null ) {
+        Object[] values = new Object[data.bulkValueMeta.size()];
+        for ( int i = 0; i < values.length; i++ ) {
+          values[i] = data.bulkValueMeta.getValueMeta( i ).convertData( returnedMeta.getValueMeta( i ), result[i] );
+        }
+        existing.put( entry.getKey(), values );
+      }
+    }
+    return existing;
+  }
+
+  /**
+   * @return the values of the fields to update in the table after updating the row
+   */
+  private Object[] getCurrentValues( RowMetaInterface rowMeta, Object[] row ) throws KettleValueException {
+    Object[] values = new Object[data.valuenrs.length];
+    for ( int i = 0; i < data.valuenrs.length; i++ ) {
+      values[i] = data.bulkValueMeta.getValueMeta( i ).convertData(
+        rowMeta.getValueMeta( data.valuenrs[i] ), row[data.valuenrs[i]] );
+    }
+    return values;
+  }
+
+  /**
+   * Sends the rows to the error handling, or stops the step when there is none.
+   */
+  private void failRows( List<Integer> rows, String[] errors, KettleException e ) throws KettleException {
+    if ( !getStepMeta().isDoingErrorHandling() ) {
+      throw e;
+    }
+    for ( int r : rows ) {
+      errors[r] = e.toString();
+    }
+  }
+
+  private boolean processBulk() throws KettleException {
+    try {
+      updateBulk();
+    } catch ( KettleException e ) {
+      if ( data.useBatch ) {
+        data.db.clearBatch( data.prepStatementUpdate );
+      }
+      if ( getStepMeta().isDoingErrorHandling() ) {
+        // Nothing of the buffer was passed on yet: the lookup or the commit failed
+        for ( Object[] row : data.bulkRows ) {
+          putError( getInputRowMeta(), row, 1, e.toString(), null, "UPD001" );
+        }
+        data.bulkRows.clear();
+      } else {
+        logError( BaseMessages.getString( PKG, "Update.Log.ErrorInStep" ), e );
+        setErrors( 1 );
+        stopAll();
+        setOutputDone(); // signal end to receiver(s)
+        return false;
+      }
+    }
+    if ( checkFeedback( getLinesRead() ) ) {
+      if ( log.isBasic() ) {
+        logBasic( BaseMessages.getString( PKG, "Update.Log.LineNumber" ) + getLinesRead() );
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Bulk mode is used when asked for, when the lookup isn't skipped and when every key is compared with "=", other
+   * conditions can't be matched with the rows found afterwards.
+   */
+  private int determineBulkSize() {
+    if ( meta.getBulkSize() <= 1 || meta.isSkipLookup() || meta.getKeyLookup().length == 0 ) {
+      return 0;
+    }
+    for ( int i = 0; i < meta.getKeyCondition().length; i++ ) {
+      if ( !"=".equals( meta.getKeyCondition()[i] ) ) {
+        logBasic( BaseMessages.getString( PKG, "Update.Log.BulkNotPossible" ) );
+        return 0;
+      }
+    }
+    return meta.getBulkSize();
+  }
+
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
     meta = (UpdateMeta) smi;
     data = (UpdateData) sdi;
@@ -197,6 +453,9 @@ public class Update extends BaseDatabaseStep implements StepInterface {
 
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if ( r == null ) { // no more input to be expected...
+      if ( data.bulkSize > 0 && !data.bulkRows.isEmpty() && !processBulk() ) {
+        return false;
+      }
 
       setOutputDone();
       return false;
@@ -299,6 +558,27 @@ public class Update extends BaseDatabaseStep implements StepInterface {
         setLookup( getInputRowMeta() );
       }
       prepareUpdate( getInputRowMeta() );
+
+      data.bulkSize = determineBulkSize();
+      if ( data.bulkSize > 0 ) {
+        data.bulkRows = new ArrayList<Object[]>( data.bulkSize );
+        data.bulkKeyMeta = BatchLookup.getNormalStorageRowMeta( data.lookupParameterRowMeta );
+        data.bulkValueMeta = BatchLookup.getNormalStorageRowMeta( data.lookupReturnRowMeta );
+        data.bulkLookup = new BatchLookup( data.db, environmentSubstitute( meta.getSchemaName() ),
+          environmentSubstitute( meta.getTableName() ), meta.getKeyLookup(), meta.getUpdateLookup(), null,
+          data.bulkKeyMeta, BatchLookup.getMaxKeys( meta.getDatabaseMeta(), meta.getKeyLookup().length,
+            data.bulkSize ), false );
+        data.useBatch = !data.db.isAutoCommit() && data.db.getUseBatchInsert( true );
+        logBasic( BaseMessages.getString( PKG, "Update.Log.UsingBulk", data.bulkSize ) );
+      }
+    }
+
+    if ( data.bulkSize > 0 ) {
+      data.bulkRows.add( r );
+      if ( data.bulkRows.size() >= data.bulkSize ) {
+        return processBulk();
+      }
+      return true;
     }
 
     try {
@@ -468,7 +748,8 @@ public class Update extends BaseDatabaseStep implements StepInterface {
     data = (UpdateData) sdi;
 
     if ( super.init( smi, sdi ) ) {
-      data.db.setCommitSize( meta.getCommitSize( this ) );
+      data.commitSize = meta.getCommitSize( this );
+      data.db.setCommitSize( data.commitSize );
 
       return true;
     }
@@ -495,6 +776,9 @@ public class Update extends BaseDatabaseStep implements StepInterface {
         }
         data.db.closePreparedStatement( data.prepStatementUpdate );
         data.db.closePreparedStatement( data.prepStatementLookup );
+        if ( data.bulkLookup != null ) {
+          data.bulkLookup.close();
+        }
       } catch ( KettleDatabaseException e ) {
         logError( BaseMessages.getString( PKG, "Update.Log.UnableToCommitUpdateConnection" )
           + data.db + "] :" + e.toString() );
@@ -14,7 +14,9 @@
 package org.pentaho.di.trans.steps.update;
 
 import java.sql.PreparedStatement;
+import java.util.List;
 
+import org.pentaho.di.core.database.BatchLookup;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseDatabaseStepData;
@@ -47,6 +49,20 @@ public class UpdateData extends BaseDatabaseStepData implements StepDataInterfac
   public RowMetaInterface lookupReturnRowMeta;
   public RowMetaInterface updateParameterRowMeta;
 
+  /** The number of rows looked up and updated together, 0 when handling the rows one by one */
+  public int bulkSize;
+  public int commitSize;
+  /** true if the bulk updates are sent as a JDBC batch */
+  public boolean useBatch;
+  /** The number of rows updated in bulk since the last commit */
+  public int bulkWritten;
+  public List<Object[]> bulkRows;
+  /** Looks up the keys of the buffered rows */
+  public BatchLookup bulkLookup;
+  /** The lookup keys and the values to compare in normal storage */
+  public RowMetaInterface bulkKeyMeta;
+  public RowMetaInterface bulkValueMeta;
+
   public UpdateData() {
     super();
 
@@ -112,6 +112,10 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
   @Injection( name = "BATCH_UPDATE" )
   private boolean useBatchUpdate;
 
+  /** The number of rows to look up and update together, 0 or 1 to handle the rows one by one */
+  @Injection( name = "BULK_SIZE" )
+  private int bulkSize;
+
   @Injection( name = "CONNECTIONNAME" )
   public void setConnection( String connectionName ) {
     databaseMeta = DatabaseMeta.findDatabase( databases, connectionName );
@@ -371,6 +375,7 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
       csize = XMLHandler.getTagValue( stepnode, "commit" );
       commitSize = ( csize == null ) ? "0" : csize;
       useBatchUpdate = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "use_batch" ) );
+      bulkSize = Const.toInt( XMLHandler.getTagValue( stepnode, "bulk_size" ), 0 );
       skipLookup = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "skip_lookup" ) );
       errorIgnored = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "error_ignored" ) );
       ignoreFlagField = XMLHandler.getTagValue( stepnode, "ignore_flag_field" );
@@ -417,6 +422,7 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
     updateLookup = null;
     databaseMeta = null;
     commitSize = "100";
+    bulkSize = 0;
     schemaName = "";
     tableName = BaseMessages.getString( PKG, "UpdateMeta.DefaultTableName" );
 
@@ -447,6 +453,7 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
     retval.append( "    " + XMLHandler.addTagValue( "skip_lookup", skipLookup ) );
     retval.append( "    " + XMLHandler.addTagValue( "commit", commitSize ) );
     retval.append( "    " + XMLHandler.addTagValue( "use_batch", useBatchUpdate ) );
+    retval.append( "    " + XMLHandler.addTagValue( "bulk_size", bulkSize ) );
     retval.append( "    " + XMLHandler.addTagValue( "error_ignored", errorIgnored ) );
     retval.append( "    " + XMLHandler.addTagValue( "ignore_flag_field", ignoreFlagField ) );
     retval.append( "    <lookup>" + Const.CR );
@@ -493,6 +500,7 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
         }
       }
       useBatchUpdate = rep.getStepAttributeBoolean( id_step, "use_batch" );
+      bulkSize = (int) rep.getStepAttributeInteger( id_step, "bulk_size" );
       schemaName = rep.getStepAttributeString( id_step, "schema" );
       tableName = rep.getStepAttributeString( id_step, "table" );
 
@@ -537,6 +545,7 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
       rep.saveStepAttribute( id_transformation, id_step, "skip_lookup", skipLookup );
       rep.saveStepAttribute( id_transformation, id_step, "commit", commitSize );
       rep.saveStepAttribute( id_transformation, id_step, "use_batch", useBatchUpdate );
+      rep.saveStepAttribute( id_transformation, id_step, "bulk_size", bulkSize );
       rep.saveStepAttribute( id_transformation, id_step, "schema", schemaName );
       rep.saveStepAttribute( id_transformation, id_step, "table", tableName );
 
@@ -927,6 +936,21 @@ public class UpdateMeta extends BaseDatabaseStepMeta implements StepMetaInterfac
     this.useBatchUpdate = useBatchUpdate;
   }
 
+  /**
+   * @return the number of rows to look up and update together, 0 or 1 to handle the rows one by one
+   */
+  public int getBulkSize() {
+    return bulkSize;
+  }
+
+  /**
+   * @param bulkSize
+   *          the number of rows to look up and update together, 0 or 1 to handle the rows one by one
+   */
+  public void setBulkSize( int bulkSize ) {
+    this.bulkSize = bulkSize;
+  }
+
   /**
    * If we use injection we can have different arrays lengths.
    * We need synchronize them for consistency behavior with UI
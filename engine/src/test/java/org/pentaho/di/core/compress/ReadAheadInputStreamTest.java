@@ -0,0 +1,104 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.compress;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ReadAheadInputStreamTest {
+
+  private static byte[] randomBytes( int size ) {
+    byte[] data = new byte[size];
+    new Random( 42 ).nextBytes( data );
+    return data;
+  }
+
+  @Test
+  public void testReadsAllData() throws IOException {
+    byte[] data = randomBytes( 10000 );
+    ReadAheadInputStream in = new ReadAheadInputStream( new ByteArrayInputStream( data ), "test", 7, 2 );
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write( in.read() );
+    byte[] buffer = new byte[100];
+    int n = in.read( buffer, 0, buffer.length );
+    while ( n >= 0 ) {
+      out.write( buffer, 0, n );
+      n = in.read( buffer, 0, buffer.length );
+    }
+    assertEquals( -1, in.read() );
+    in.close();
+
+    assertArrayEquals( data, out.toByteArray() );
+  }
+
+  @Test
+  public void testFailureIsPassedOn() throws IOException {
+    IOException failure = new IOException( "Corrupt data" );
+    InputStream data = new ByteArrayInputStream( randomBytes( 10 ) );
+    InputStream source = new InputStream() {
+      @Override
+      public int read() throws IOException {
+        int b = data.read();
+        if ( b < 0 ) {
+          throw failure;
+        }
+        return b;
+      }
+    };
+
+    ReadAheadInputStream in = new ReadAheadInputStream( source, "test", 4, 2 );
+    try {
+      in.readAllBytes();
+      fail( "Expected the failure of the reading thread" );
+    } catch ( IOException e ) {
+      assertSame( failure, e );
+    }
+    in.close();
+  }
+
+  @Test
+  public void testCloseStopsReading() throws IOException {
+    boolean[] closed = new boolean[1];
+    InputStream endless = new InputStream() {
+      @Override
+      public int read() {
+        return 1;
+      }
+
+      @Override
+      public void close() {
+        closed[0] = true;
+      }
+    };
+
+    ReadAheadInputStream in = new ReadAheadInputStream( endless, "test", 16, 2 );
+    assertEquals( 1, in.read() );
+
+    // returns once the reading thread stopped, even though the queue is full
+    in.close();
+    assertTrue( closed[0] );
+  }
+}
@@ -0,0 +1,101 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.compress;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.Test;
+import org.pentaho.di.core.compress.gzip.GZIPCompressionProvider;
+import org.pentaho.di.core.compress.zip.ZIPCompressionProvider;
+
+public class WriteBehindCompressionOutputStreamTest {
+
+  private static byte[] randomBytes( int size ) {
+    byte[] data = new byte[size];
+    new Random( 42 ).nextBytes( data );
+    return data;
+  }
+
+  @Test
+  public void testWritesAllData() throws IOException {
+    byte[] data = randomBytes( 100000 );
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CompressionProvider provider = new GZIPCompressionProvider();
+
+    WriteBehindCompressionOutputStream stream =
+      new WriteBehindCompressionOutputStream( provider.createOutputStream( out ), 1000 );
+    assertSame( provider, stream.getCompressionProvider() );
+    stream.write( data[0] );
+    stream.write( data, 1, 4999 );
+    stream.flush();
+    stream.write( data, 5000, data.length - 5000 );
+    stream.close();
+
+    try ( GZIPInputStream in = new GZIPInputStream( new ByteArrayInputStream( out.toByteArray() ) ) ) {
+      assertArrayEquals( data, in.readAllBytes() );
+    }
+  }
+
+  @Test
+  public void testDataIsWrittenBeforeNextEntry() throws IOException {
+    byte[] data = randomBytes( 10000 );
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    WriteBehindCompressionOutputStream stream =
+      new WriteBehindCompressionOutputStream( new ZIPCompressionProvider().createOutputStream( out ), 1000 );
+    stream.addEntry( "file", "txt" );
+    stream.write( data );
+    stream.close();
+
+    try ( ZipInputStream in = new ZipInputStream( new ByteArrayInputStream( out.toByteArray() ) ) ) {
+      ZipEntry entry = in.getNextEntry();
+      assertEquals( "file.txt", entry.getName() );
+      assertArrayEquals( data, in.readAllBytes() );
+    }
+  }
+
+  @Test
+  public void testFailureIsPassedOn() throws IOException {
+    IOException failure = new IOException( "No space left on device" );
+    OutputStream full = new OutputStream() {
+      @Override
+      public void write( int b ) throws IOException {
+        throw failure;
+      }
+    };
+    CompressionOutputStream compressionOutputStream = new CompressionOutputStream( full, null ) {
+    };
+
+    WriteBehindCompressionOutputStream stream = new WriteBehindCompressionOutputStream( compressionOutputStream, 10 );
+    try {
+      stream.write( new byte[100] );
+      stream.flush();
+      fail( "Expected the failure of the writing thread" );
+    } catch ( IOException e ) {
+      assertSame( failure, e );
+    }
+  }
+}
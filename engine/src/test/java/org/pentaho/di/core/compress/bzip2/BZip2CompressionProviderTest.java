@@ -0,0 +1,84 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.compress.bzip2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.compress.CompressionPluginType;
+import org.pentaho.di.core.compress.CompressionProviderFactory;
+import org.pentaho.di.core.plugins.PluginRegistry;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+
+public class BZip2CompressionProviderTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  public static final String PROVIDER_NAME = "BZip2";
+
+  public CompressionProviderFactory factory = null;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    PluginRegistry.addPluginType( CompressionPluginType.getInstance() );
+    PluginRegistry.init( false );
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    factory = CompressionProviderFactory.getInstance();
+  }
+
+  @Test
+  public void testGetName() {
+    BZip2CompressionProvider provider =
+      (BZip2CompressionProvider) factory.getCompressionProviderByName( PROVIDER_NAME );
+    assertNotNull( provider );
+    assertEquals( PROVIDER_NAME, provider.getName() );
+  }
+
+  @Test
+  public void testGetProviderAttributes() {
+    BZip2CompressionProvider provider =
+      (BZip2CompressionProvider) factory.getCompressionProviderByName( PROVIDER_NAME );
+    assertEquals( "BZip2 compression", provider.getDescription() );
+    assertTrue( provider.supportsInput() );
+    assertTrue( provider.supportsOutput() );
+    assertEquals( "bz2", provider.getDefaultExtension() );
+  }
+
+  @Test
+  public void testCreateStreams() throws IOException {
+    BZip2CompressionProvider provider =
+      (BZip2CompressionProvider) factory.getCompressionProviderByName( PROVIDER_NAME );
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BZip2CompressionOutputStream outStream = provider.createOutputStream( out );
+    assertNotNull( outStream );
+    outStream.write( "Test".getBytes() );
+    outStream.close();
+
+    BZip2CompressionInputStream inStream = provider.createInputStream( new ByteArrayInputStream( out.toByteArray() ) );
+    assertNotNull( inStream );
+    assertEquals( "Test", new String( inStream.readAllBytes() ) );
+    inStream.close();
+  }
+}
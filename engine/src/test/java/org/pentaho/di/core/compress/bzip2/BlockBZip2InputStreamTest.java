@@ -0,0 +1,153 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.compress.bzip2;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.junit.Test;
+
+public class BlockBZip2InputStreamTest {
+
+  private static byte[] testData( int size ) {
+    // text with some randomness, so the blocks do not compress to almost nothing
+    Random random = new Random( 42 );
+    StringBuilder data = new StringBuilder();
+    for ( int i = 0; data.length() < size; i++ ) {
+      data.append( i ).append( ';' ).append( random.nextInt() ).append( ";row " ).append( i ).append( '\n' );
+    }
+    return data.substring( 0, size ).getBytes();
+  }
+
+  private static byte[] bzip2( byte[] data, int blockSize ) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try ( BZip2CompressorOutputStream bzos = new BZip2CompressorOutputStream( out, blockSize ) ) {
+      bzos.write( data );
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] decompress( byte[] compressed ) throws IOException {
+    try ( InputStream in = new BlockBZip2InputStream( new ByteArrayInputStream( compressed ), "test" ) ) {
+      byte[] data = in.readAllBytes();
+      assertEquals( -1, in.read() );
+      return data;
+    }
+  }
+
+  @Test
+  public void testReadsAllBlocks() throws IOException {
+    // blocks of 100 kB
+    byte[] data = testData( 1000 * 1000 );
+    assertArrayEquals( data, decompress( bzip2( data, 1 ) ) );
+  }
+
+  @Test
+  public void testReadsSingleBlock() throws IOException {
+    byte[] data = testData( 1000 );
+    assertArrayEquals( data, decompress( bzip2( data, 9 ) ) );
+  }
+
+  @Test
+  public void testReadsEmptyStream() throws IOException {
+    assertArrayEquals( new byte[0], decompress( bzip2( new byte[0], 9 ) ) );
+  }
+
+  @Test
+  public void testReadsConcatenatedStreams() throws IOException {
+    byte[] data = testData( 300 * 1000 );
+    ByteArrayOutputStream streams = new ByteArrayOutputStream();
+    streams.write( bzip2( Arrays.copyOf( data, 150 * 1000 ), 1 ) );
+    streams.write( bzip2( Arrays.copyOfRange( data, 150 * 1000, data.length ), 1 ) );
+    assertArrayEquals( data, decompress( streams.toByteArray() ) );
+  }
+
+  @Test
+  public void testReadsBlocksWithFalseEndOfStreamMarker() throws IOException {
+    // Every block starts with a bitmap of the byte values it holds, 105 bits after its marker. With exactly these
+    // values the bitmap spells the end of stream marker, 0x177245385090: groups 3, 5, 6, 7, 9, 10, 11 and 14 of 16
+    // values (0x1772), then 0x31, 0x35, 0x37, 0x3a, 0x3b and 0x3c (0x4538), then 0x51, 0x53, 0x58 and 0x5b (0x5090)
+    byte[] alphabet = { 0x31, 0x35, 0x37, 0x3a, 0x3b, 0x3c, 0x51, 0x53, 0x58, 0x5b, 0x61, 0x70, (byte) 0x90,
+      (byte) 0xa0, (byte) 0xb0, (byte) 0xe0 };
+    Random random = new Random( 42 );
+    byte[] data = new byte[250 * 1000];
+    for ( int i = 0; i < data.length; i++ ) {
+      data[i] = alphabet[random.nextInt( alphabet.length )];
+      // no runs of 4 equal bytes, the run length would add a byte value to the bitmap
+      while ( i >= 3 && data[i] == data[i - 1] && data[i] == data[i - 2] && data[i] == data[i - 3] ) {
+        data[i] = alphabet[random.nextInt( alphabet.length )];
+      }
+    }
+    byte[] compressed = bzip2( data, 1 );
+    // one in each of the 3 blocks and the real one
+    assertEquals( 4, countEndOfStreamMarkers( compressed ) );
+
+    assertArrayEquals( data, decompress( compressed ) );
+  }
+
+  private static int countEndOfStreamMarkers( byte[] data ) {
+    int count = 0;
+    long window = 0;
+    for ( int i = 0; i < data.length * 8; i++ ) {
+      window = ( window << 1 | ( data[i / 8] >>> ( 7 - i % 8 ) ) & 1 ) & 0xffffffffffffL;
+      if ( i >= 47 && window == 0x177245385090L ) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Test
+  public void testNotBZip2Fails() {
+    try {
+      decompress( "Not compressed".getBytes() );
+      fail( "Expected the header to be rejected" );
+    } catch ( IOException e ) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testTruncatedStreamFails() throws IOException {
+    byte[] compressed = bzip2( testData( 500 * 1000 ), 1 );
+    try {
+      decompress( Arrays.copyOf( compressed, compressed.length / 2 ) );
+      fail( "Expected the end of the stream to be reported" );
+    } catch ( IOException e ) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testCompressionStreamsRoundTrip() throws IOException {
+    byte[] data = testData( 250 * 1000 );
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try ( BZip2CompressionOutputStream bzos = new BZip2CompressionOutputStream( out, null ) ) {
+      bzos.write( data );
+    }
+    try ( BZip2CompressionInputStream in = new BZip2CompressionInputStream(
+      new ByteArrayInputStream( out.toByteArray() ), null ) ) {
+      assertArrayEquals( data, in.readAllBytes() );
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.compress.gzip;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+public class BlockGZIPInputStreamTest {
+
+  private static final int MEMBER_DATA_SIZE = 1000;
+
+  private static byte[] testData( int size ) {
+    StringBuilder data = new StringBuilder();
+    for ( int i = 0; data.length() < size; i++ ) {
+      data.append( i ).append( ";row " ).append( i ).append( '\n' );
+    }
+    return data.substring( 0, size ).getBytes();
+  }
+
+  /**
+   * Write the data as a block gzip file: members with their size in a "BC" extra field, ending with an empty member.
+   */
+  private static byte[] blockGZIP( byte[] data ) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for ( int offset = 0; offset < data.length; offset += MEMBER_DATA_SIZE ) {
+      writeMember( out, Arrays.copyOfRange( data, offset, Math.min( offset + MEMBER_DATA_SIZE, data.length ) ) );
+    }
+    writeMember( out, new byte[0] );
+    return out.toByteArray();
+  }
+
+  private static void writeMember( ByteArrayOutputStream out, byte[] data ) {
+    Deflater deflater = new Deflater( Deflater.DEFAULT_COMPRESSION, true );
+    deflater.setInput( data );
+    deflater.finish();
+    byte[] deflated = new byte[data.length + 100];
+    int deflatedSize = deflater.deflate( deflated );
+    deflater.end();
+
+    CRC32 crc = new CRC32();
+    crc.update( data );
+    int blockSize = 18 + deflatedSize + 8;
+
+    out.write( new byte[] { 0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0 }, 0, 16 );
+    writeShort( out, blockSize - 1 );
+    out.write( deflated, 0, deflatedSize );
+    writeInt( out, (int) crc.getValue() );
+    writeInt( out, data.length );
+  }
+
+  private static void writeShort( ByteArrayOutputStream out, int value ) {
+    out.write( value & 0xff );
+    out.write( ( value >> 8 ) & 0xff );
+  }
+
+  private static void writeInt( ByteArrayOutputStream out, int value ) {
+    writeShort( out, value & 0xffff );
+    writeShort( out, ( value >> 16 ) & 0xffff );
+  }
+
+  private static byte[] plainGZIP( byte[] data ) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try ( GZIPOutputStream gos = new GZIPOutputStream( out ) ) {
+      gos.write( data );
+    }
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testIsBlockGZIP() throws IOException {
+    InputStream in = new BufferedInputStream( new ByteArrayInputStream( blockGZIP( testData( 100 ) ) ) );
+    assertTrue( BlockGZIPInputStream.isBlockGZIP( in ) );
+    // the stream is left where it was
+    assertEquals( 0x1f, in.read() );
+
+    assertFalse( BlockGZIPInputStream.isBlockGZIP(
+      new BufferedInputStream( new ByteArrayInputStream( plainGZIP( testData( 100 ) ) ) ) ) );
+    assertFalse(
+      BlockGZIPInputStream.isBlockGZIP( new BufferedInputStream( new ByteArrayInputStream( new byte[3] ) ) ) );
+  }
+
+  @Test
+  public void testReadsAllMembers() throws IOException {
+    byte[] data = testData( 100 * MEMBER_DATA_SIZE + 123 );
+    try ( InputStream in = new BlockGZIPInputStream( new ByteArrayInputStream( blockGZIP( data ) ), "test" ) ) {
+      assertArrayEquals( data, in.readAllBytes() );
+      assertEquals( -1, in.read() );
+    }
+  }
+
+  @Test
+  public void testCorruptMemberFails() throws IOException {
+    byte[] compressed = blockGZIP( testData( 10 * MEMBER_DATA_SIZE ) );
+    // the CRC of the first member
+    int blockSize = ( compressed[16] & 0xff | ( compressed[17] & 0xff ) << 8 ) + 1;
+    compressed[blockSize - 8]++;
+
+    try ( InputStream in = new BlockGZIPInputStream( new ByteArrayInputStream( compressed ), "test" ) ) {
+      in.readAllBytes();
+      fail( "Expected a CRC error" );
+    } catch ( IOException e ) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testTruncatedStreamFails() throws IOException {
+    byte[] compressed = blockGZIP( testData( 10 * MEMBER_DATA_SIZE ) );
+    compressed = Arrays.copyOf( compressed, compressed.length / 2 );
+
+    try ( InputStream in = new BlockGZIPInputStream( new ByteArrayInputStream( compressed ), "test" ) ) {
+      in.readAllBytes();
+      fail( "Expected the end of the stream to be reported" );
+    } catch ( IOException e ) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testCompressionInputStreamReadsBothFormats() throws IOException {
+    byte[] data = testData( 20 * MEMBER_DATA_SIZE );
+
+    try ( InputStream in = new GZIPCompressionInputStream( new ByteArrayInputStream( blockGZIP( data ) ), null ) ) {
+      assertArrayEquals( data, in.readAllBytes() );
+    }
+
+    // concatenated plain gzip members
+    ByteArrayOutputStream members = new ByteArrayOutputStream();
+    members.write( plainGZIP( Arrays.copyOf( data, 5000 ) ) );
+    members.write( plainGZIP( Arrays.copyOfRange( data, 5000, data.length ) ) );
+    try ( InputStream in = new GZIPCompressionInputStream( new ByteArrayInputStream( members.toByteArray() ), null ) ) {
+      assertArrayEquals( data, in.readAllBytes() );
+    }
+  }
+}
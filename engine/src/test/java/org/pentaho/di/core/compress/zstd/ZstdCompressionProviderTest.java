@@ -0,0 +1,91 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.compress.zstd;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.commons.compress.compressors.zstandard.ZstdUtils;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.compress.CompressionPluginType;
+import org.pentaho.di.core.compress.CompressionProviderFactory;
+import org.pentaho.di.core.compress.ReadAheadInputStream;
+import org.pentaho.di.core.plugins.PluginRegistry;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+
+public class ZstdCompressionProviderTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  public static final String PROVIDER_NAME = "Zstd";
+
+  public CompressionProviderFactory factory = null;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    PluginRegistry.addPluginType( CompressionPluginType.getInstance() );
+    PluginRegistry.init( false );
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    factory = CompressionProviderFactory.getInstance();
+  }
+
+  @Test
+  public void testGetName() {
+    ZstdCompressionProvider provider = (ZstdCompressionProvider) factory.getCompressionProviderByName( PROVIDER_NAME );
+    assertNotNull( provider );
+    assertEquals( PROVIDER_NAME, provider.getName() );
+  }
+
+  @Test
+  public void testGetProviderAttributes() {
+    ZstdCompressionProvider provider = (ZstdCompressionProvider) factory.getCompressionProviderByName( PROVIDER_NAME );
+    assertEquals( "Zstandard compression", provider.getDescription() );
+    assertEquals( ZstdUtils.isZstdCompressionAvailable(), provider.supportsInput() );
+    assertEquals( ZstdUtils.isZstdCompressionAvailable(), provider.supportsOutput() );
+    assertEquals( "zst", provider.getDefaultExtension() );
+  }
+
+  @Test
+  public void testCreateStreams() throws IOException {
+    ZstdCompressionProvider provider = (ZstdCompressionProvider) factory.getCompressionProviderByName( PROVIDER_NAME );
+    // More than one chunk of the read ahead thread, text-like so that it compresses
+    byte[] data = new byte[ ReadAheadInputStream.DEFAULT_CHUNK_SIZE * 3 + 1234 ];
+    Random random = new Random( 1 );
+    for ( int i = 0; i < data.length; i++ ) {
+      data[ i ] = (byte) ( 'a' + random.nextInt( 8 ) );
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ZstdCompressionOutputStream outStream = provider.createOutputStream( out );
+    assertNotNull( outStream );
+    outStream.write( data );
+    outStream.close();
+
+    ZstdCompressionInputStream inStream = provider.createInputStream( new ByteArrayInputStream( out.toByteArray() ) );
+    assertNotNull( inStream );
+    assertArrayEquals( data, inStream.readAllBytes() );
+    inStream.close();
+  }
+}
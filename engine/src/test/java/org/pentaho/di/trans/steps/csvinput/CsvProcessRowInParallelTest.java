@@ -262,6 +262,30 @@ public class CsvProcessRowInParallelTest extends CsvInputUnitTestBase {
     assertEquals( 11, t1 + t2 + t3 + t4 );
   }
 
+  /**
+   * The blocks of the copies start and end inside enclosed fields with line ends. The copies agree on the row starts at
+   * the edges of the blocks, so every row is read by exactly one of them.
+   */
+  @Test
+  public void enclosedNewLines_4Threads() throws Exception {
+    final int totalNumberOfSteps = 4;
+
+    final String fileContent =
+            "1;\"a\nb\"\n"
+          + "2;\"a\nb\"\n"
+          + "3;\"a\nb\"\n"
+          + "4;\"a\nb\"\n"
+          + "5;\"a\nb\"\n"
+          + "6;\"a\nb\"\n";
+
+    File sharedFile = createTestFile( "UTF-8", fileContent );
+
+    assertEquals( 2, createAndRunOneStep( sharedFile, 0, totalNumberOfSteps ) );
+    assertEquals( 2, createAndRunOneStep( sharedFile, 1, totalNumberOfSteps ) );
+    assertEquals( 1, createAndRunOneStep( sharedFile, 2, totalNumberOfSteps ) );
+    assertEquals( 1, createAndRunOneStep( sharedFile, 3, totalNumberOfSteps ) );
+  }
+
   /**
    * So as not to heap up list of taken parameters, we are passing combi, but we expect to see CsvInput class instances
    * in it's content.
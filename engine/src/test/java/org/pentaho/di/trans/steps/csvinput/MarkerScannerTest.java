@@ -0,0 +1,76 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.csvinput;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MarkerScannerTest {
+
+  private final MarkerScanner scanner = new MarkerScanner( (byte) ';', (byte) '"', (byte) '\r', (byte) '\n' );
+
+  private static byte[] bytes( String string ) {
+    return string.getBytes( StandardCharsets.ISO_8859_1 );
+  }
+
+  @Test
+  public void testFindsMarkersInAndAfterWords() {
+    byte[] line = bytes( "abcdefghijklmnop;qrs\"tu\r\n" );
+    assertEquals( 16, scanner.indexOf( line, 0, line.length ) );
+    assertEquals( 20, scanner.indexOf( line, 17, line.length ) );
+    assertEquals( 23, scanner.indexOf( line, 21, line.length ) );
+    assertEquals( 24, scanner.indexOf( line, 24, line.length ) );
+  }
+
+  @Test
+  public void testReturnsEndWithoutMarker() {
+    byte[] line = bytes( "abcdefghijklmnopqrstuvwxyz;" );
+    assertEquals( 26, scanner.indexOf( line, 0, line.length ) );
+    assertEquals( 20, scanner.indexOf( line, 3, 20 ) );
+    assertEquals( 5, scanner.indexOf( line, 5, 5 ) );
+  }
+
+  @Test
+  public void testHighBytesAreNoMarkers() {
+    byte[] line = new byte[] { (byte) 0x80, (byte) 0xFF, (byte) 0xBB, 0x3A, 0x3C, 0x0B, 0x01, 0x00, (byte) 0xA2, ';' };
+    assertEquals( 9, scanner.indexOf( line, 0, line.length ) );
+
+    MarkerScanner highScanner = new MarkerScanner( (byte) 0xA2 );
+    assertEquals( 8, highScanner.indexOf( line, 0, line.length ) );
+  }
+
+  @Test
+  public void testSameResultAsByteByByte() {
+    Random random = new Random( 42 );
+    byte[] buffer = new byte[ 4096 ];
+    for ( int i = 0; i < buffer.length; i++ ) {
+      // Mostly ordinary bytes, with markers and their neighbours now and then
+      int kind = random.nextInt( 20 );
+      buffer[ i ] = kind == 0 ? (byte) ';' : kind == 1 ? (byte) '\n' : kind == 2 ? (byte) ':' : (byte) random.nextInt();
+    }
+    for ( int from = 0; from < buffer.length; from += random.nextInt( 7 ) + 1 ) {
+      int expected = from;
+      while ( expected < buffer.length
+        && buffer[ expected ] != ';' && buffer[ expected ] != '"'
+        && buffer[ expected ] != '\r' && buffer[ expected ] != '\n' ) {
+        expected++;
+      }
+      assertEquals( expected, scanner.indexOf( buffer, from, buffer.length ) );
+    }
+  }
+}
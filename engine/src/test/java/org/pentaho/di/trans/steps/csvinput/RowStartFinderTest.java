@@ -0,0 +1,111 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.csvinput;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RowStartFinderTest {
+
+  private Path file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = Files.createTempFile( "RowStartFinderTest", ".csv" );
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists( file );
+  }
+
+  private long findRowStart( RowStartFinder finder, String content, long position ) throws IOException {
+    Files.write( file, content.getBytes( StandardCharsets.ISO_8859_1 ) );
+    try ( FileChannel fc = FileChannel.open( file ) ) {
+      long rowStart = finder.findRowStart( fc, position, fc.size() );
+      assertEquals( "The position of the channel shouldn't change", 0L, fc.position() );
+      return rowStart;
+    }
+  }
+
+  private long findRowStart( String content, long position ) throws IOException {
+    return findRowStart( new RowStartFinder( (byte) ';', (byte) '"' ), content, position );
+  }
+
+  @Test
+  public void testRowStartingAtThePosition() throws Exception {
+    assertEquals( 4, findRowStart( "a;1\nb;2\n", 4 ) );
+    assertEquals( 5, findRowStart( "a;1\r\nb;2\r\n", 5 ) );
+  }
+
+  @Test
+  public void testLineEndsAreSkippedTogether() throws Exception {
+    assertEquals( 5, findRowStart( "a;1\r\nb;2\r\n", 2 ) );
+    assertEquals( 5, findRowStart( "a;1\r\nb;2\r\n", 4 ) );
+  }
+
+  @Test
+  public void testEnclosedLineEndsDontEndARow() throws Exception {
+    // The position is right after the line end in the enclosed field of the first row
+    String content = "1;\"a\nb\"\n2;\"c\nd\"\n";
+    assertEquals( 8, findRowStart( content, 5 ) );
+    assertEquals( 8, findRowStart( content, 4 ) );
+    assertEquals( 16, findRowStart( content, 12 ) );
+  }
+
+  @Test
+  public void testEscapedEnclosures() throws Exception {
+    String content = "1;\"a\"\"\nb\"\"\"\n2;x\n";
+    assertEquals( 12, findRowStart( content, 7 ) );
+  }
+
+  @Test
+  public void testEnclosuresInFieldsAreIgnored() throws Exception {
+    String content = "1;a\"b\n2;c\n";
+    assertEquals( 6, findRowStart( content, 4 ) );
+  }
+
+  @Test
+  public void testNoRowStartAfterThePosition() throws Exception {
+    assertEquals( 8, findRowStart( "a;1\nb;2\n", 5 ) );
+    assertEquals( 7, findRowStart( "a;1\nb;2", 5 ) );
+  }
+
+  @Test
+  public void testFirstLineEndWithoutEnclosures() throws Exception {
+    // Without enclosures the parses never agree, the one that started in a field that isn't enclosed is taken
+    assertEquals( 9, findRowStart( "abc;defg\nhij;klmn\nop", 2 ) );
+    RowStartFinder finder = new RowStartFinder( (byte) ';', (byte) '"', 4 );
+    assertEquals( 9, findRowStart( finder, "abc;defg\nhij;klmn\nop", 2 ) );
+  }
+
+  @Test
+  public void testRowsLongerThanABlock() throws Exception {
+    StringBuilder content = new StringBuilder( "1;\"" );
+    for ( int i = 0; i < 100000; i++ ) {
+      content.append( i % 10 == 0 ? '\n' : 'x' );
+    }
+    content.append( "\"\n2;y\n" );
+    assertEquals( content.length() - 4, findRowStart( content.toString(), 50000 ) );
+  }
+}
@@ -57,7 +57,8 @@ public class DatabaseLookupMetaTest implements InitializerInterface<StepMetaInte
     PluginRegistry.init( false );
     List<String> attributes =
         Arrays.asList( "schemaName", "tablename", "databaseMeta", "orderByClause", "cached",
-            "cacheSize", "loadingAllDataInCache", "failingOnMultipleResults", "eatingRowOnLookupFailure",
+            "cacheSize", "batchSize", "loadingAllDataInCache", "sharedCache", "failingOnMultipleResults",
+            "eatingRowOnLookupFailure",
             "streamKeyField1", "streamKeyField2", "keyCondition", "tableKeyField", "returnValueField",
             "returnValueNewName", "returnValueDefault", "returnValueDefaultType" );
 
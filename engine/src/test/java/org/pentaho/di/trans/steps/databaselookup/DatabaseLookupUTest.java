@@ -63,6 +63,7 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
@@ -446,6 +447,150 @@ public class DatabaseLookupUTest {
     assertNotNull( data.cache.getRowFromCache( data.lookupMeta, new Object[] { 2L } ) );
   }
 
+  @Test
+  public void batchedLookupKeepsOrderAndHandlesMissesAndDuplicates() throws Exception {
+    Database db = mock( Database.class );
+    PreparedStatement ps = mock( PreparedStatement.class );
+    PreparedStatement single = mock( PreparedStatement.class );
+    when( db.prepareBatchLookup( any(), any(), any(), any(), any(), eq( 4 ) ) ).thenReturn( ps );
+    when( db.prepareBatchLookup( any(), any(), any(), any(), any(), eq( 1 ) ) ).thenReturn( single );
+    final List<Object> keys = new ArrayList<>();
+    doAnswer( invocation -> keys.add( invocation.getArgument( 2 ) ) )
+      .when( db ).setValue( any(), any(), any(), anyInt() );
+    when( db.getBatchLookup( ps ) ).thenReturn(
+      Arrays.asList( new Object[] { 3L, "three" }, new Object[] { 1L, "one" } ) );
+    when( db.getBatchLookup( single ) ).thenReturn( new ArrayList<>() );
+    RowMeta returnRowMeta = new RowMeta();
+    returnRowMeta.addValueMeta( new ValueMetaInteger( "ID" ) );
+    returnRowMeta.addValueMeta( new ValueMetaString( "NAME" ) );
+    when( db.getReturnRowMeta() ).thenReturn( returnRowMeta );
+
+    MySQLDatabaseMeta mysql = new MySQLDatabaseMeta();
+    mysql.setName( "MySQL" );
+    DatabaseMeta dbMeta = new DatabaseMeta();
+    dbMeta.setDatabaseInterface( mysql );
+
+    DatabaseLookupMeta meta = new DatabaseLookupMeta();
+    meta.allocate( 1, 1 );
+    meta.setDatabaseMeta( dbMeta );
+    meta.setTablename( "VirtualTable" );
+    meta.setStreamKeyField1( new String[] { "id" } );
+    meta.setTableKeyField( new String[] { "ID" } );
+    meta.setKeyCondition( new String[] { "=" } );
+    meta.setReturnValueField( new String[] { "NAME" } );
+    meta.setReturnValueNewName( new String[] { "name" } );
+    meta.setReturnValueDefault( new String[] { "unknown" } );
+    meta.setReturnValueDefaultType( new int[] { ValueMetaInterface.TYPE_STRING } );
+    meta.setBatchSize( 10 );
+    DatabaseLookupData data = new DatabaseLookupData();
+
+    DatabaseLookup step = spyLookup( mockHelper, db, dbMeta );
+    doNothing().when( step ).determineFieldsTypesQueryingDb();
+    RowMeta input = new RowMeta();
+    input.addValueMeta( new ValueMetaInteger( "id" ) );
+    doCallRealMethod().when( step ).setInputRowMeta( any() );
+    step.setInputRowMeta( input );
+
+    final List<Object[]> inputRows = Arrays.asList(
+      new Object[] { 1L }, new Object[] { 2L }, new Object[] { 1L }, new Object[] { null }, new Object[] { 3L }, null );
+    final int[] index = { 0 };
+    doAnswer( invocation -> inputRows.get( index[ 0 ]++ ) ).when( step ).getRow();
+    final List<Object[]> outputRows = new ArrayList<>();
+    doAnswer( invocation -> outputRows.add( invocation.getArgument( 1 ) ) )
+      .when( step ).putRow( any( RowMetaInterface.class ), any( Object[].class ) );
+
+    assertTrue( step.init( meta, data ) );
+    data.keytypes = new int[] { ValueMetaInterface.TYPE_INTEGER };
+    while ( step.processRow( meta, data ) ) {
+      // keep going until all rows are looked up
+    }
+
+    // Every distinct key that can match is asked for once, padded with a null key to a power of two. The key without
+    // a match is asked for again to make sure the database doesn't know it under another spelling.
+    verify( db ).prepareBatchLookup( any(), eq( "VirtualTable" ), any(), any(), any(), eq( 4 ) );
+    verify( db, times( 1 ) ).getBatchLookup( ps );
+    verify( db, times( 1 ) ).getBatchLookup( single );
+    assertEquals( Arrays.asList( 1L, 2L, 3L, null, 2L ), keys );
+
+    assertEquals( 5, outputRows.size() );
+    String[] expected = { "one", "unknown", "one", "unknown", "three" };
+    for ( int i = 0; i < expected.length; i++ ) {
+      assertEquals( inputRows.get( i )[ 0 ], outputRows.get( i )[ 0 ] );
+      assertEquals( expected[ i ], outputRows.get( i )[ 1 ] );
+    }
+  }
+
+  @Test
+  public void batchedLookupMatchesKeysTheDatabaseSpellsDifferently() throws Exception {
+    Database db = mock( Database.class );
+    PreparedStatement ps = mock( PreparedStatement.class );
+    PreparedStatement single = mock( PreparedStatement.class );
+    when( db.prepareBatchLookup( any(), any(), any(), any(), any(), eq( 2 ) ) ).thenReturn( ps );
+    when( db.prepareBatchLookup( any(), any(), any(), any(), any(), eq( 1 ) ) ).thenReturn( single );
+    // A case insensitive collation: the rows found don't equal the keys asked for in Java
+    when( db.getBatchLookup( ps ) ).thenReturn(
+      Arrays.asList( new Object[] { "A", "ay" }, new Object[] { "b", "bee" } ) );
+    when( db.getBatchLookup( single ) ).thenReturn(
+      Collections.singletonList( new Object[] { "A", "ay" } ),
+      Collections.singletonList( new Object[] { "b", "bee" } ) );
+    RowMeta returnRowMeta = new RowMeta();
+    returnRowMeta.addValueMeta( new ValueMetaString( "CODE" ) );
+    returnRowMeta.addValueMeta( new ValueMetaString( "NAME" ) );
+    when( db.getReturnRowMeta() ).thenReturn( returnRowMeta );
+
+    MySQLDatabaseMeta mysql = new MySQLDatabaseMeta();
+    mysql.setName( "MySQL" );
+    DatabaseMeta dbMeta = new DatabaseMeta();
+    dbMeta.setDatabaseInterface( mysql );
+
+    DatabaseLookupMeta meta = new DatabaseLookupMeta();
+    meta.allocate( 1, 1 );
+    meta.setDatabaseMeta( dbMeta );
+    meta.setTablename( "VirtualTable" );
+    meta.setStreamKeyField1( new String[] { "code" } );
+    meta.setTableKeyField( new String[] { "CODE" } );
+    meta.setKeyCondition( new String[] { "=" } );
+    meta.setReturnValueField( new String[] { "NAME" } );
+    meta.setReturnValueNewName( new String[] { "name" } );
+    meta.setReturnValueDefault( new String[] { "unknown" } );
+    meta.setReturnValueDefaultType( new int[] { ValueMetaInterface.TYPE_STRING } );
+    meta.setCached( true );
+    meta.setCacheSize( 10 );
+    meta.setBatchSize( 10 );
+    DatabaseLookupData data = new DatabaseLookupData();
+
+    DatabaseLookup step = spyLookup( mockHelper, db, dbMeta );
+    doNothing().when( step ).determineFieldsTypesQueryingDb();
+    RowMeta input = new RowMeta();
+    input.addValueMeta( new ValueMetaString( "code" ) );
+    doCallRealMethod().when( step ).setInputRowMeta( any() );
+    step.setInputRowMeta( input );
+
+    final List<Object[]> inputRows = Arrays.asList( new Object[] { "a" }, new Object[] { "B" }, null );
+    final int[] index = { 0 };
+    doAnswer( invocation -> inputRows.get( index[ 0 ]++ ) ).when( step ).getRow();
+    final List<Object[]> outputRows = new ArrayList<>();
+    doAnswer( invocation -> outputRows.add( invocation.getArgument( 1 ) ) )
+      .when( step ).putRow( any( RowMetaInterface.class ), any( Object[].class ) );
+
+    assertTrue( step.init( meta, data ) );
+    data.keytypes = new int[] { ValueMetaInterface.TYPE_STRING };
+    while ( step.processRow( meta, data ) ) {
+      // keep going until all rows are looked up
+    }
+
+    // Nothing matched in Java, so both keys are looked up one by one
+    verify( db, times( 2 ) ).getBatchLookup( single );
+    assertEquals( 2, outputRows.size() );
+    assertEquals( "ay", outputRows.get( 0 )[ 1 ] );
+    assertEquals( "bee", outputRows.get( 1 )[ 1 ] );
+
+    // The values are cached under the keys that were asked for
+    assertArrayEquals( new Object[] { "ay" }, data.cache.getRowFromCache( data.lookupMeta, new Object[] { "a" } ) );
+    assertArrayEquals( new Object[] { "bee" }, data.cache.getRowFromCache( data.lookupMeta, new Object[] { "B" } ) );
+    assertNull( data.cache.getRowFromCache( data.lookupMeta, new Object[] { "A" } ) );
+  }
+
   @Test
   public void testIncrementLinesNotClustered() {
 
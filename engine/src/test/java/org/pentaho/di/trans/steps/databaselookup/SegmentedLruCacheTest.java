@@ -0,0 +1,108 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.databaselookup;
+
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class SegmentedLruCacheTest {
+
+  private final DatabaseLookupMeta meta = mock( DatabaseLookupMeta.class );
+
+  private static RowMeta keyMeta() {
+    RowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    return rowMeta;
+  }
+
+  @Test
+  public void keepsTheFirstValueOfAKey() {
+    SegmentedLruCache cache = new SegmentedLruCache( 10 );
+    RowMeta rowMeta = keyMeta();
+    cache.storeRowInCache( meta, rowMeta, new Object[] { 1L }, new Object[] { 100 } );
+    cache.storeRowInCache( meta, rowMeta, new Object[] { 1L }, new Object[] { 200 } );
+
+    assertEquals( 1, cache.size() );
+    assertEquals( 100, cache.getRowFromCache( keyMeta(), new Object[] { 1L } )[ 0 ] );
+    assertNull( cache.getRowFromCache( rowMeta, new Object[] { 2L } ) );
+  }
+
+  @Test
+  public void evictsTheLeastRecentlyUsedEntries() {
+    int maxSize = 4 * SegmentedLruCache.NR_SEGMENTS;
+    SegmentedLruCache cache = new SegmentedLruCache( maxSize );
+    RowMeta rowMeta = keyMeta();
+    for ( long i = 0; i < 10 * maxSize; i++ ) {
+      cache.storeRowInCache( meta, rowMeta, new Object[] { i }, new Object[] { i } );
+      // key 0 stays in use all the time
+      assertNotNull( cache.getRowFromCache( rowMeta, new Object[] { 0L } ) );
+    }
+
+    assertTrue( cache.size() <= maxSize );
+    assertNotNull( cache.getRowFromCache( rowMeta, new Object[] { 0L } ) );
+  }
+
+  @Test
+  public void noLimitKeepsEverything() {
+    SegmentedLruCache cache = new SegmentedLruCache( 0 );
+    RowMeta rowMeta = keyMeta();
+    for ( long i = 0; i < 1000; i++ ) {
+      cache.storeRowInCache( meta, rowMeta, new Object[] { i }, new Object[] { i } );
+    }
+    assertEquals( 1000, cache.size() );
+  }
+
+  @Test
+  public void copiesCanUseTheCacheAtTheSameTime() throws Exception {
+    final SegmentedLruCache cache = new SegmentedLruCache( 0 );
+    final int nrKeys = 5000;
+    ExecutorService executor = Executors.newFixedThreadPool( 4 );
+    try {
+      List<Future<?>> copies = new ArrayList<>();
+      for ( int copy = 0; copy < 4; copy++ ) {
+        copies.add( executor.submit( () -> {
+          RowMeta rowMeta = keyMeta();
+          for ( long i = 0; i < nrKeys; i++ ) {
+            if ( cache.getRowFromCache( rowMeta, new Object[] { i } ) == null ) {
+              cache.storeRowInCache( meta, rowMeta, new Object[] { i }, new Object[] { i * 10 } );
+            }
+          }
+          return null;
+        } ) );
+      }
+      for ( Future<?> copy : copies ) {
+        copy.get( 30, TimeUnit.SECONDS );
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals( nrKeys, cache.size() );
+    assertEquals( 42L * 10, cache.getRowFromCache( keyMeta(), new Object[] { 42L } )[ 0 ] );
+  }
+}
@@ -0,0 +1,92 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.databaselookup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.trans.Trans;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SharedLookupCacheTest {
+
+  private Trans trans;
+  private Map<String, Object> extensionData;
+
+  @Before
+  public void setUp() {
+    extensionData = new HashMap<>();
+    trans = mock( Trans.class );
+    when( trans.getExtensionDataMap() ).thenReturn( extensionData );
+  }
+
+  @Test
+  public void copiesOfAStepShareOneCacheCreatedOnce() throws Exception {
+    SharedLookupCache first = SharedLookupCache.acquire( trans, "lookup" );
+    SharedLookupCache second = SharedLookupCache.acquire( trans, "lookup" );
+    assertSame( first, second );
+    assertEquals( 2, first.getUsers() );
+    assertNotSame( first, SharedLookupCache.acquire( trans, "other lookup" ) );
+
+    AtomicInteger loads = new AtomicInteger();
+    DatabaseLookupData.Cache cache = first.getCache( () -> {
+      loads.incrementAndGet();
+      return new SegmentedLruCache( 0 );
+    } );
+    assertSame( cache, second.getCache( () -> {
+      loads.incrementAndGet();
+      return new SegmentedLruCache( 0 );
+    } ) );
+    assertEquals( 1, loads.get() );
+  }
+
+  @Test
+  public void lastCopyRemovesTheCache() {
+    SharedLookupCache first = SharedLookupCache.acquire( trans, "lookup" );
+    SharedLookupCache second = SharedLookupCache.acquire( trans, "lookup" );
+
+    first.release( trans );
+    assertTrue( extensionData.containsValue( second ) );
+    second.release( trans );
+    assertTrue( extensionData.isEmpty() );
+
+    assertNotSame( first, SharedLookupCache.acquire( trans, "lookup" ) );
+  }
+
+  @Test
+  public void failedLoadIsRetried() throws Exception {
+    SharedLookupCache shared = SharedLookupCache.acquire( trans, "lookup" );
+    try {
+      shared.getCache( () -> {
+        throw new KettleException( "Unable to read the table" );
+      } );
+      fail( "Expected the failure to load the cache" );
+    } catch ( KettleException e ) {
+      // expected
+    }
+    DatabaseLookupData.Cache cache = new SegmentedLruCache( 0 );
+    assertSame( cache, shared.getCache( () -> cache ) );
+  }
+}
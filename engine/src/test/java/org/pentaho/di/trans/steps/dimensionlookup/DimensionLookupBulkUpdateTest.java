@@ -0,0 +1,215 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.dimensionlookup;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.TransTestFactory;
+
+/**
+ * Runs the step in bulk update mode against an in memory database: the current versions are pre-loaded and the changes
+ * are applied in batches.
+ */
+public class DimensionLookupBulkUpdateTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final String STEP_NAME = "Dimension lookup/update";
+  private static final String DB_NAME = "mem:DIMENSIONBULK;DB_CLOSE_DELAY=-1";
+  private static final String TABLE = "DIM_CUSTOMER";
+
+  private final SimpleDateFormat dateFormat = new SimpleDateFormat( "yyyy-MM-dd" );
+
+  private DimensionLookupMeta meta;
+  private String minDate;
+  private String maxDate;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws KettleException {
+    KettleEnvironment.init( false );
+  }
+
+  @Before
+  public void setUp() {
+    meta = new DimensionLookupMeta();
+    meta.setDefault();
+    meta.allocate( 1, 3 );
+    meta.setDatabaseMeta( new DatabaseMeta( "dimension", "H2", "Native", null, DB_NAME, null, null, null ) );
+    meta.setTableName( TABLE );
+    meta.setUpdate( true );
+    meta.setBulkUpdate( true );
+    meta.setCommitSize( 100 );
+    meta.setKeyStream( new String[] { "id" } );
+    meta.setKeyLookup( new String[] { "CUSTOMER_ID" } );
+    meta.setFieldStream( new String[] { "cust_name", "city", "segment" } );
+    meta.setFieldLookup( new String[] { "CUST_NAME", "CITY", "SEGMENT" } );
+    meta.setFieldUpdate( new int[] {
+      DimensionLookupMeta.TYPE_UPDATE_DIM_INSERT,
+      DimensionLookupMeta.TYPE_UPDATE_DIM_UPDATE,
+      DimensionLookupMeta.TYPE_UPDATE_DIM_PUNCHTHROUGH } );
+    meta.setKeyField( "CUSTOMER_TK" );
+    meta.setVersionField( "VERSION" );
+    meta.setDateFrom( "DATE_FROM" );
+    meta.setDateTo( "DATE_TO" );
+    meta.setDateField( "load_date" );
+    meta.setTechKeyCreation( DimensionLookupMeta.CREATION_METHOD_TABLEMAX );
+
+    minDate = dateFormat.format( meta.getMinDate() );
+    maxDate = dateFormat.format( meta.getMaxDate() );
+  }
+
+  @Test
+  public void testChangesAreAppliedInBatches() throws Exception {
+    createTable( "VARCHAR(10)" );
+    insert( 1, 1, "C1", "Ann", "Paris", "A", minDate, maxDate );
+    insert( 2, 1, "C2", "Bob", "Rome", "B", minDate, "2020-01-01" );
+    insert( 3, 2, "C2", "Bob", "Rome", "B", "2020-01-01", maxDate );
+
+    List<RowMetaAndData> output = run(
+      row( "C1", "Ann", "Paris", "A", "2024-01-01" ), // unchanged
+      row( "C2", "Bob", "Milan", "B", "2024-01-01" ), // type 1 change of the current version
+      row( "C1", "Anne", "Paris", "A", "2024-01-01" ), // type 2 change
+      row( "C3", "Cid", "Oslo", "C", "2024-01-01" ), // new key
+      row( "C2", "Bob", "Milan", "X", "2024-01-01" ), // punch through to all versions
+      row( "C3", "Cidney", "Oslo", "C", "2024-01-02" ), // new version of a new key
+      row( "C1", "Annie", "Paris", "A", "2024-01-03" ) ); // third version of a key in the same batch
+
+    assertEquals( Arrays.asList( 1L, 3L, 4L, 5L, 3L, 6L, 7L ), getTechnicalKeys( output ) );
+    assertEquals( Arrays.asList(
+      "1|1|C1|Ann|Paris|A|" + minDate + "|2024-01-01",
+      "2|1|C2|Bob|Rome|X|" + minDate + "|2020-01-01",
+      "3|2|C2|Bob|Milan|X|2020-01-01|" + maxDate,
+      "4|2|C1|Anne|Paris|A|2024-01-01|2024-01-03",
+      "5|1|C3|Cid|Oslo|C|" + minDate + "|2024-01-02",
+      "6|2|C3|Cidney|Oslo|C|2024-01-02|" + maxDate,
+      "7|3|C1|Annie|Paris|A|2024-01-03|" + maxDate ), readTable() );
+  }
+
+  @Test
+  public void testKeysSpelledDifferentlyAreLookedUpInTheDatabase() throws Exception {
+    // The database doesn't tell the case of the natural keys apart
+    createTable( "VARCHAR_IGNORECASE(10)" );
+    insert( 1, 1, "C1", "Ann", "Paris", "A", minDate, maxDate );
+
+    List<RowMetaAndData> output = run(
+      row( "c1", "Ann", "Paris", "A", "2024-01-01" ), // pre-loaded key
+      row( "C5", "Eve", "Lima", "E", "2024-01-01" ), // new key
+      row( "c5", "Eve", "Lima", "E", "2024-01-01" ) ); // the same new key, still in the batch
+
+    assertEquals( Arrays.asList( 1L, 2L, 2L ), getTechnicalKeys( output ) );
+    assertEquals( Arrays.asList(
+      "1|1|C1|Ann|Paris|A|" + minDate + "|" + maxDate,
+      "2|1|C5|Eve|Lima|E|" + minDate + "|" + maxDate ), readTable() );
+  }
+
+  private List<RowMetaAndData> run( RowMetaAndData... rows ) throws KettleException {
+    TransMeta transMeta = TransTestFactory.generateTestTransformation( null, meta, STEP_NAME );
+    return TransTestFactory.executeTestTransformation( transMeta, STEP_NAME, Arrays.asList( rows ) );
+  }
+
+  private RowMetaAndData row( String id, String name, String city, String segment, String loadDate )
+    throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "cust_name" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "city" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "segment" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "load_date" ) );
+    return new RowMetaAndData( rowMeta, id, name, city, segment, dateFormat.parse( loadDate ) );
+  }
+
+  private static List<Long> getTechnicalKeys( List<RowMetaAndData> rows ) throws KettleException {
+    List<Long> keys = new ArrayList<>();
+    for ( RowMetaAndData row : rows ) {
+      keys.add( row.getInteger( "CUSTOMER_TK" ) );
+    }
+    return keys;
+  }
+
+  private static Connection connect() throws Exception {
+    return DriverManager.getConnection( "jdbc:h2:" + DB_NAME );
+  }
+
+  private static void createTable( String idType ) throws Exception {
+    try ( Connection connection = connect(); Statement statement = connection.createStatement() ) {
+      statement.execute( "DROP TABLE IF EXISTS " + TABLE );
+      statement.execute( "CREATE TABLE " + TABLE + " ( CUSTOMER_TK BIGINT, VERSION INTEGER, DATE_FROM TIMESTAMP, "
+        + "DATE_TO TIMESTAMP, CUSTOMER_ID " + idType + ", CUST_NAME VARCHAR(20), CITY VARCHAR(20), "
+        + "SEGMENT VARCHAR(5) )" );
+    }
+  }
+
+  private void insert( long tk, int version, String id, String name, String city, String segment, String from,
+                       String to ) throws Exception {
+    try ( Connection connection = connect();
+          PreparedStatement statement = connection.prepareStatement( "INSERT INTO " + TABLE + " VALUES ( ?, ?, ?, ?, "
+            + "?, ?, ?, ? )" ) ) {
+      statement.setLong( 1, tk );
+      statement.setInt( 2, version );
+      statement.setTimestamp( 3, new Timestamp( dateFormat.parse( from ).getTime() ) );
+      statement.setTimestamp( 4, new Timestamp( dateFormat.parse( to ).getTime() ) );
+      statement.setString( 5, id );
+      statement.setString( 6, name );
+      statement.setString( 7, city );
+      statement.setString( 8, segment );
+      statement.executeUpdate();
+    }
+  }
+
+  /**
+   * @return the versions of the natural keys, leaving out the "unknown" entry, as tk|version|id|fields|from|to
+   */
+  private List<String> readTable() throws Exception {
+    List<String> rows = new ArrayList<>();
+    try ( Connection connection = connect(); Statement statement = connection.createStatement();
+          ResultSet resultSet = statement.executeQuery( "SELECT CUSTOMER_TK, VERSION, CUSTOMER_ID, CUST_NAME, CITY, "
+            + "SEGMENT, DATE_FROM, DATE_TO FROM " + TABLE + " WHERE CUSTOMER_ID IS NOT NULL ORDER BY CUSTOMER_TK" ) ) {
+      while ( resultSet.next() ) {
+        rows.add( resultSet.getLong( 1 ) + "|" + resultSet.getInt( 2 ) + "|" + resultSet.getString( 3 ) + "|"
+          + resultSet.getString( 4 ) + "|" + resultSet.getString( 5 ) + "|" + resultSet.getString( 6 ) + "|"
+          + format( resultSet.getTimestamp( 7 ) ) + "|" + format( resultSet.getTimestamp( 8 ) ) );
+      }
+    }
+    return rows;
+  }
+
+  private String format( Date date ) {
+    return date == null ? null : dateFormat.format( date );
+  }
+}
@@ -165,6 +165,18 @@ public class DimensionLookupMetaInjectionTest extends BaseMetadataInjectionTest<
         return meta.isPreloadingCache();
       }
     } );
+    check( "SEQUENCE_BLOCK_SIZE", new IntGetter() {
+      @Override
+      public int get() {
+        return meta.getSequenceBlockSize();
+      }
+    } );
+    check( "BULK_UPDATE", new BooleanGetter() {
+      @Override
+      public boolean get() {
+        return meta.isBulkUpdate();
+      }
+    } );
     check( "CONNECTION_NAME", new StringGetter() {
       public String get() {
         return "My Connection";
@@ -13,16 +13,28 @@
 
 package org.pentaho.di.trans.steps.dummytrans;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.pentaho.di.core.QueueRowSet;
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.logging.LoggingObjectInterface;
@@ -82,8 +94,43 @@ public class DummyTransTest {
     dummy.addRowSetToInputRowSets( rowSet );
     RowSet outputRowSet = mock( RowSet.class );
     dummy.addRowSetToOutputRowSets( outputRowSet );
-    when( outputRowSet.putRow( inputRowMeta, row ) ).thenReturn( true );
+    when( outputRowSet.putRows( eq( inputRowMeta ), anyList(), anyInt() ) ).thenReturn( 1 );
     dummy.processRow( stepMockHelper.processRowsStepMetaInterface, stepMockHelper.processRowsStepDataInterface );
-    verify( outputRowSet, times( 1 ) ).putRow( inputRowMeta, row );
+    verify( outputRowSet, times( 1 ) ).putRows( inputRowMeta, Collections.singletonList( row ), 0 );
+    assertEquals( 1, dummy.getLinesRead() );
+    assertEquals( 1, dummy.getLinesWritten() );
+  }
+
+  @Test
+  public void testDummyTransPassesRowsInBatches() throws KettleException {
+    DummyTrans dummy =
+      new DummyTrans(
+        stepMockHelper.stepMeta, stepMockHelper.stepDataInterface, 0, stepMockHelper.transMeta,
+        stepMockHelper.trans );
+    dummy.init( stepMockHelper.initStepMetaInterface, stepMockHelper.initStepDataInterface );
+    List<Object[]> rows = new ArrayList<>();
+    for ( int i = 0; i < 3; i++ ) {
+      rows.add( new Object[] { "row" + i } );
+    }
+    RowSet rowSet = stepMockHelper.getMockInputRowSet( rows );
+    RowMetaInterface inputRowMeta = mock( RowMetaInterface.class );
+    when( inputRowMeta.clone() ).thenReturn( inputRowMeta );
+    when( rowSet.getRowMeta() ).thenReturn( inputRowMeta );
+    dummy.addRowSetToInputRowSets( rowSet );
+    RowSet outputRowSet = new QueueRowSet();
+    dummy.addRowSetToOutputRowSets( outputRowSet );
+
+    assertTrue( dummy.processRow( stepMockHelper.processRowsStepMetaInterface,
+      stepMockHelper.processRowsStepDataInterface ) );
+    assertFalse( dummy.processRow( stepMockHelper.processRowsStepMetaInterface,
+      stepMockHelper.processRowsStepDataInterface ) );
+
+    assertEquals( 3, dummy.getLinesRead() );
+    assertEquals( 3, dummy.getLinesWritten() );
+    assertEquals( 3, outputRowSet.size() );
+    assertTrue( outputRowSet.isDone() );
+    for ( Object[] row : rows ) {
+      assertSame( row, outputRowSet.getRowImmediate() );
+    }
   }
 }
@@ -0,0 +1,60 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class BaseFileInputStepUtilsTest {
+
+  @Test
+  public void testDivideFilesBySize() {
+    long[] sizes = { 10L, 70L, 20L, 30L, 40L, 30L };
+    int[] copies = BaseFileInputStepUtils.divideFilesBySize( sizes, 2 );
+
+    // 70 to copy 0, 40 and 30 to copy 1, 30 to copy 0, 20 and 10 to copy 1
+    assertArrayEquals( new int[] { 1, 0, 1, 1, 1, 0 }, copies );
+  }
+
+  @Test
+  public void testEveryCopyGetsAboutTheSameNumberOfBytes() {
+    long[] sizes = new long[100];
+    for ( int i = 0; i < sizes.length; i++ ) {
+      sizes[i] = 1000L + ( i * 7919L ) % 5000L;
+    }
+    int nrCopies = 4;
+    int[] copies = BaseFileInputStepUtils.divideFilesBySize( sizes, nrCopies );
+
+    long[] bytesPerCopy = new long[nrCopies];
+    for ( int i = 0; i < sizes.length; i++ ) {
+      bytesPerCopy[copies[i]] += sizes[i];
+    }
+    long min = Long.MAX_VALUE;
+    long max = 0L;
+    for ( long bytes : bytesPerCopy ) {
+      min = Math.min( min, bytes );
+      max = Math.max( max, bytes );
+    }
+    // The difference is never more than the size of the largest file
+    assertTrue( max - min <= 6000L );
+  }
+
+  @Test
+  public void testMoreCopiesThanFiles() {
+    int[] copies = BaseFileInputStepUtils.divideFilesBySize( new long[] { 5L, 5L }, 4 );
+    assertArrayEquals( new int[] { 0, 1 }, copies );
+  }
+}
@@ -0,0 +1,95 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedFileReaderTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File file;
+  private byte[] content;
+
+  @Before
+  public void setUp() throws Exception {
+    content = new byte[1000];
+    for ( int i = 0; i < content.length; i++ ) {
+      content[i] = (byte) i;
+    }
+    file = tempFolder.newFile( "mapped.bin" );
+    Files.write( file.toPath(), content );
+  }
+
+  @Test
+  public void testReadsOverWindowBoundaries() throws Exception {
+    try ( FileInputStream fis = new FileInputStream( file ) ) {
+      FileChannel fc = fis.getChannel();
+      MappedFileReader reader = new MappedFileReader( fc, 64 );
+
+      byte[] buffer = new byte[300];
+      assertEquals( 300, reader.read( buffer, 0, 300 ) );
+      assertArrayEquals( Arrays.copyOfRange( content, 0, 300 ), buffer );
+      assertEquals( 300, fc.position() );
+
+      assertEquals( 300, reader.read( buffer, 0, 300 ) );
+      assertArrayEquals( Arrays.copyOfRange( content, 300, 600 ), buffer );
+    }
+  }
+
+  @Test
+  public void testEndOfFile() throws Exception {
+    try ( FileInputStream fis = new FileInputStream( file ) ) {
+      FileChannel fc = fis.getChannel();
+      MappedFileReader reader = new MappedFileReader( fc, 64 );
+      fc.position( 900 );
+
+      byte[] buffer = new byte[200];
+      assertEquals( 100, reader.read( buffer, 50, 150 ) );
+      assertArrayEquals( Arrays.copyOfRange( content, 900, 1000 ), Arrays.copyOfRange( buffer, 50, 150 ) );
+      assertEquals( -1, reader.read( buffer, 0, 200 ) );
+    }
+  }
+
+  @Test
+  public void testFollowsThePositionOfTheChannel() throws Exception {
+    try ( FileInputStream fis = new FileInputStream( file ) ) {
+      FileChannel fc = fis.getChannel();
+      MappedFileReader reader = new MappedFileReader( fc, 64 );
+
+      byte[] buffer = new byte[10];
+      reader.read( buffer, 0, 10 );
+      fc.position( 500 );
+      assertEquals( 10, reader.read( buffer, 0, 10 ) );
+      assertArrayEquals( Arrays.copyOfRange( content, 500, 510 ), buffer );
+
+      fc.position( 5 );
+      assertEquals( 10, reader.read( buffer, 0, 10 ) );
+      assertArrayEquals( Arrays.copyOfRange( content, 5, 15 ), buffer );
+    }
+  }
+}
@@ -279,6 +279,11 @@ public class TextFileInputMetaNewInjectionTest extends BaseMetadataInjectionTest
         return meta.inputFiles.isaddresult;
       }
     } );
+    check( "RUNNING_IN_PARALLEL", new BooleanGetter() {
+      public boolean get() {
+        return meta.content.runningInParallel;
+      }
+    } );
 
     /////////////////////////////
     check( "FIELD_NAME", new StringGetter() {
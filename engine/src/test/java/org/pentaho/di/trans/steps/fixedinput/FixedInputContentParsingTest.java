@@ -37,4 +37,25 @@ public class FixedInputContentParsingTest extends BaseFixedParsingTest {
     check( new Object[][] { { "first   ", "1       ", "1.1     " }, { "second  ", "2       ", "2.2     " }, {
         "third   ", "3       ", "3.3     " } } );
   }
+
+  @Test
+  public void testMemoryMapped() throws Exception {
+    meta.setLineWidth( "24" );
+    meta.setBufferSize( "10" );
+    meta.setMemoryMapped( true );
+    init( "default.txt" );
+
+    FixedFileInputField f1 = new FixedFileInputField( "f1" );
+    FixedFileInputField f2 = new FixedFileInputField( "f2" );
+    FixedFileInputField f3 = new FixedFileInputField( "f2" );
+    f1.setWidth( 8 );
+    f2.setWidth( 8 );
+    f3.setWidth( 8 );
+    setFields( f1, f2, f3 );
+
+    process();
+
+    check( new Object[][] { { "first   ", "1       ", "1.1     " }, { "second  ", "2       ", "2.2     " }, {
+        "third   ", "3       ", "3.3     " } } );
+  }
 }
@@ -45,7 +45,7 @@ public class FixedInputMetaTest implements InitializerInterface<StepMetaInterfac
     PluginRegistry.init( false );
     List<String> attributes =
         Arrays.asList( "filename", "headerPresent", "lineWidth", "bufferSize", "lazyConversionActive", "lineFeedPresent",
-            "runningInParallel", "fileType", "addResultFile", "encoding", "fieldDefinition" );
+            "runningInParallel", "memoryMapped", "fileType", "addResultFile", "encoding", "fieldDefinition" );
 
     Map<String, String> getterMap = new HashMap<String, String>();
     Map<String, String> setterMap = new HashMap<String, String>();
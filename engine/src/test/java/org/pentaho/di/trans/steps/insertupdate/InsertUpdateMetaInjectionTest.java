@@ -49,6 +49,16 @@ public class InsertUpdateMetaInjectionTest extends BaseMetadataInjectionTest<Ins
         return meta.isUpdateBypassed();
       }
     } );
+    check( "BULK_SIZE", new IntGetter() {
+      public int get() {
+        return meta.getBulkSize();
+      }
+    } );
+    check( "NATIVE_UPSERT", new BooleanGetter() {
+      public boolean get() {
+        return meta.isNativeUpsert();
+      }
+    } );
     check( "KEY_STREAM", new StringGetter() {
       public String get() {
         return meta.getKeyFields()[ 0 ].getKeyStream();
@@ -159,7 +159,7 @@ public class InsertUpdateMetaTest {
   public void setUpLoadSave() throws Exception {
     List<String> attributes =
       Arrays.asList( "schemaName", "tableName", "databaseMeta", "keyFields", "updateFields", "commitSize",
-        "updateBypassed" );
+        "updateBypassed", "bulkSize", "nativeUpsert" );
 
     Map<String, String> getterMap = new HashMap<String, String>() {
       {
@@ -175,6 +175,8 @@ public class InsertUpdateMetaTest {
         put( "update", "getUpdate" );
         put( "commitSize", "getCommitSizeVar" );
         put( "updateBypassed", "isUpdateBypassed" );
+        put( "bulkSize", "getBulkSize" );
+        put( "nativeUpsert", "isNativeUpsert" );
       }
     };
 
@@ -192,6 +194,8 @@ public class InsertUpdateMetaTest {
         put( "update", "setUpdate" );
         put( "commitSize", "setCommitSize" );
         put( "updateBypassed", "setUpdateBypassed" );
+        put( "bulkSize", "setBulkSize" );
+        put( "nativeUpsert", "setNativeUpsert" );
       }
     };
     FieldLoadSaveValidator<String[]> stringArrayLoadSaveValidator =
@@ -0,0 +1,207 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.insertupdate;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.database.BatchLookup;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.logging.LoggingObjectInterface;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.trans.steps.mock.StepMockHelper;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class InsertUpdateTest {
+  private StepMockHelper<InsertUpdateMeta, InsertUpdateData> smh;
+
+  @Before
+  public void setUp() {
+    smh = new StepMockHelper<>( "insertUpdate", InsertUpdateMeta.class, InsertUpdateData.class );
+    when( smh.logChannelInterfaceFactory.create( any(), any( LoggingObjectInterface.class ) ) ).thenReturn(
+      smh.logChannelInterface );
+    when( smh.trans.isRunning() ).thenReturn( true );
+  }
+
+  @After
+  public void cleanUp() {
+    smh.cleanUp();
+  }
+
+  private RowMetaInterface inputRowMeta;
+  private Database db;
+  private PreparedStatement lookupStatement;
+  private PreparedStatement insertStatement;
+  private PreparedStatement updateStatement;
+
+  /**
+   * The table has ID 1 with an unchanged name and ID 2 with a different one, ID 3 is missing.
+   */
+  private InsertUpdateData setUpBulk() throws Exception {
+    inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "ID" ) );
+    inputRowMeta.addValueMeta( new ValueMetaString( "NAME" ) );
+
+    InsertUpdateMeta.KeyField keyField = new InsertUpdateMeta.KeyField();
+    keyField.setKeyStream( "ID" );
+    keyField.setKeyLookup( "ID" );
+    keyField.setKeyCondition( "=" );
+    InsertUpdateMeta.UpdateField idField = new InsertUpdateMeta.UpdateField();
+    idField.setUpdateLookup( "ID" );
+    idField.setUpdateStream( "ID" );
+    idField.setUpdate( false );
+    InsertUpdateMeta.UpdateField nameField = new InsertUpdateMeta.UpdateField();
+    nameField.setUpdateLookup( "NAME" );
+    nameField.setUpdateStream( "NAME" );
+    nameField.setUpdate( true );
+    InsertUpdateMeta stepMeta = smh.processRowsStepMetaInterface;
+    doReturn( new InsertUpdateMeta.KeyField[] { keyField } ).when( stepMeta ).getKeyFields();
+    doReturn( new InsertUpdateMeta.UpdateField[] { idField, nameField } ).when( stepMeta ).getUpdateFields();
+
+    RowMetaInterface returnedMeta = new RowMeta();
+    returnedMeta.addValueMeta( new ValueMetaInteger( "ID" ) );
+    returnedMeta.addValueMeta( new ValueMetaInteger( "ID" ) );
+    returnedMeta.addValueMeta( new ValueMetaString( "NAME" ) );
+    lookupStatement = mock( PreparedStatement.class );
+    PreparedStatement recheckStatement = mock( PreparedStatement.class );
+    insertStatement = mock( PreparedStatement.class );
+    updateStatement = mock( PreparedStatement.class );
+    db = mock( Database.class );
+    doReturn( lookupStatement ).when( db ).prepareBatchLookup( any(), any(), any(), any(), any(), eq( 4 ) );
+    doReturn( recheckStatement ).when( db ).prepareBatchLookup( any(), any(), any(), any(), any(), eq( 1 ) );
+    doReturn( Arrays.asList( new Object[] { 1L, 1L, "a" }, new Object[] { 2L, 2L, "x" } ) ).when( db )
+      .getBatchLookup( lookupStatement );
+    doReturn( new ArrayList<>() ).when( db ).getBatchLookup( recheckStatement );
+    doReturn( returnedMeta ).when( db ).getReturnRowMeta();
+    doReturn( insertStatement ).when( db ).getPrepStatementInsert();
+
+    InsertUpdateData stepData = smh.processRowsStepDataInterface;
+    stepData.db = db;
+    stepData.keynrs = new int[] { 0 };
+    stepData.keynrs2 = new int[] { -1 };
+    stepData.valuenrs = new int[] { 0, 1 };
+    stepData.lookupParameterRowMeta = new RowMeta();
+    stepData.lookupParameterRowMeta.addValueMeta( inputRowMeta.getValueMeta( 0 ) );
+    stepData.lookupReturnRowMeta = inputRowMeta.clone();
+    stepData.insertRowMeta = inputRowMeta.clone();
+    stepData.updateParameterRowMeta = when( mock( RowMeta.class ).size() ).thenReturn( 2 ).getMock();
+    stepData.prepStatementUpdate = updateStatement;
+    stepData.outputRowMeta = inputRowMeta;
+    stepData.bulkSize = 4;
+    stepData.useBatch = true;
+    stepData.bulkRows = new ArrayList<>();
+    stepData.bulkKeyMeta = stepData.lookupParameterRowMeta;
+    stepData.bulkValueMeta = stepData.lookupReturnRowMeta;
+    stepData.bulkLookup = new BatchLookup( db, null, "T", new String[] { "ID" }, new String[] { "ID", "NAME" }, null,
+      stepData.bulkKeyMeta, 4, false );
+    return stepData;
+  }
+
+  private InsertUpdate createStep() {
+    InsertUpdate step = spy( new InsertUpdate( smh.stepMeta, smh.stepDataInterface, 0, smh.transMeta, smh.trans ) );
+    step.setInputRowMeta( inputRowMeta );
+    step.addRowSetToInputRowSets( smh.getMockInputRowSet( new Object[] { 1L, "a" }, new Object[] { 2L, "b" },
+      new Object[] { 3L, "c" }, new Object[] { 3L, "z" } ) );
+    step.first = false;
+    return step;
+  }
+
+  @Test
+  public void bulkModeInsertsMissingKeysAndUpdatesChangedRows() throws Exception {
+    InsertUpdateData stepData = setUpBulk();
+    InsertUpdate step = createStep();
+    while ( step.processRow( smh.processRowsStepMetaInterface, stepData ) ) {
+      // process all rows
+    }
+
+    // A single lookup for the three distinct keys, the last row updates the row inserted by the one before it
+    verify( db, times( 1 ) ).getBatchLookup( lookupStatement );
+    verify( insertStatement, times( 1 ) ).addBatch();
+    verify( insertStatement, times( 1 ) ).executeBatch();
+    verify( updateStatement, times( 2 ) ).addBatch();
+    verify( updateStatement, times( 1 ) ).executeBatch();
+    assertEquals( 4, step.getLinesInput() );
+    assertEquals( 1, step.getLinesOutput() );
+    assertEquals( 2, step.getLinesUpdated() );
+    assertEquals( 1, step.getLinesSkipped() );
+  }
+
+  @Test
+  public void bulkModeSendsTheRowsOfAFailedBatchToTheErrorHandlingOnce() throws Exception {
+    InsertUpdateData stepData = setUpBulk();
+    when( insertStatement.executeBatch() ).thenThrow( new BatchUpdateException() );
+    when( smh.stepMeta.isDoingErrorHandling() ).thenReturn( true );
+    InsertUpdate step = createStep();
+    List<Object[]> outputRows = new ArrayList<>();
+    List<Object[]> errorRows = new ArrayList<>();
+    doAnswer( invocation -> outputRows.add( invocation.getArgument( 1 ) ) ).when( step ).putRow( any(), any() );
+    doAnswer( invocation -> errorRows.add( invocation.getArgument( 1 ) ) ).when( step )
+      .putError( any(), any(), anyLong(), any(), any(), any() );
+    while ( step.processRow( smh.processRowsStepMetaInterface, stepData ) ) {
+      // process all rows
+    }
+
+    // The insert of ID 3 failed, so did the update meant for the row it would have inserted
+    assertEquals( 2, outputRows.size() );
+    assertEquals( 1L, outputRows.get( 0 )[ 0 ] );
+    assertEquals( 2L, outputRows.get( 1 )[ 0 ] );
+    assertEquals( 2, errorRows.size() );
+    assertEquals( "c", errorRows.get( 0 )[ 1 ] );
+    assertEquals( "z", errorRows.get( 1 )[ 1 ] );
+    assertEquals( 0, step.getLinesOutput() );
+    assertEquals( 1, step.getLinesSkipped() );
+  }
+
+  @Test
+  public void bulkModeStillUpdatesExistingKeysAfterAFailedInsertBatch() throws Exception {
+    InsertUpdateData stepData = setUpBulk();
+    when( insertStatement.executeBatch() ).thenThrow( new BatchUpdateException() );
+    when( smh.stepMeta.isDoingErrorHandling() ).thenReturn( true );
+    InsertUpdate step = createStep();
+    doNothing().when( step ).putRow( any(), any() );
+    doNothing().when( step ).putError( any(), any(), anyLong(), any(), any(), any() );
+    while ( step.processRow( smh.processRowsStepMetaInterface, stepData ) ) {
+      // process all rows
+    }
+
+    // The update batch is built again with just the update of ID 2, which is sent as usual
+    verify( db ).clearBatch( updateStatement );
+    verify( db, times( 2 ) ).setValues( stepData.updateParameterRowMeta, new Object[] { "b", 2L }, updateStatement );
+    verify( db, times( 1 ) ).setValues( stepData.updateParameterRowMeta, new Object[] { "z", 3L }, updateStatement );
+    verify( updateStatement, times( 3 ) ).addBatch();
+    verify( updateStatement, times( 1 ) ).executeBatch();
+    assertEquals( 1, step.getLinesUpdated() );
+  }
+}
@@ -74,6 +74,7 @@ public class MemoryGroupByAggregationTest {
 
   private Variables variables;
   private Map<String, Integer> aggregates;
+  private boolean spillingToDisk;
 
   public static final String STEP_NAME = "testStep";
   private static final ImmutableMap<String, Integer> default_aggregates;
@@ -166,6 +167,12 @@ public class MemoryGroupByAggregationTest {
     assertThat( output.getInteger( "date1_count_distinct" ), is( 2L ) );
   }
 
+  @Test
+  public void testDefaultSpillingToDisk() throws Exception {
+    spillingToDisk = true;
+    testDefault();
+  }
+
   @Test
   public void testCompatibility() throws KettleException {
     variables.setVariable( Const.KETTLE_COMPATIBILITY_MEMORY_GROUP_BY_SUM_AVERAGE_RETURN_NUMBER_TYPE, "Y" );
@@ -219,6 +226,12 @@ public class MemoryGroupByAggregationTest {
     assertThat( output.getInteger( "mix3_count_distinct" ), is( 2L ) );
   }
 
+  @Test
+  public void testCompatibilitySpillingToDisk() throws Exception {
+    spillingToDisk = true;
+    testCompatibility();
+  }
+
   @Test
   public void testNullMin() throws Exception {
     variables.setVariable( Const.KETTLE_AGGREGATION_MIN_NULL_IS_VALUED, "Y" );
@@ -237,6 +250,12 @@ public class MemoryGroupByAggregationTest {
     assertThat( output.getString( "str_max", "invalid" ), is( "B" ) );
   }
 
+  @Test
+  public void testNullMinSpillingToDisk() throws Exception {
+    spillingToDisk = true;
+    testNullMin();
+  }
+
   @Test
   public void testNullsAreZeroCompatible() throws Exception {
     variables.setVariable( Const.KETTLE_AGGREGATION_ALL_NULLS_ARE_ZERO, "Y" );
@@ -299,6 +318,12 @@ public class MemoryGroupByAggregationTest {
     assertThat( output.getInteger( "both_num_count_distinct" ), is( 3L ) );
   }
 
+  @Test
+  public void testNullsAreZeroDefaultSpillingToDisk() throws Exception {
+    spillingToDisk = true;
+    testNullsAreZeroDefault();
+  }
+
   @Test
   public void testSQLCompatible() throws Exception {
     addColumn( new ValueMetaInteger( "value" ), null, -2L, null, 0L, null, 10L, null, null, 0L, null );
@@ -314,11 +339,18 @@ public class MemoryGroupByAggregationTest {
     assertThat( output.getInteger( "value_count_distinct" ), is( 3L ) );
   }
 
+  @Test
+  public void testSQLCompatibleSpillingToDisk() throws Exception {
+    spillingToDisk = true;
+    testSQLCompatible();
+  }
+
   private RowMetaAndData runStep() throws KettleException {
     // Allocate meta
     List<String> aggKeys = ImmutableList.copyOf( aggregates.keySet() );
     MemoryGroupByMeta meta = new MemoryGroupByMeta();
     meta.allocate( 0, rowMeta.size() * aggKeys.size() );
+    meta.setSpillingToDisk( spillingToDisk );
     for ( int i = 0; i < rowMeta.size(); i++ ) {
       String name = rowMeta.getValueMeta( i ).getName();
       for ( int j = 0; j < aggKeys.size(); j++ ) {
@@ -63,5 +63,41 @@ public class MemoryGroupByMetaInjectionTest extends BaseMetadataInjectionTest<Me
           return meta.isAlwaysGivingBackOneRow();
         }
       } );
+    check( "SPILLTODISK", new BooleanGetter() {
+      @Override
+      public boolean get() {
+        return meta.isSpillingToDisk();
+      }
+    } );
+    check( "SPILLDIRECTORY", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getDirectory();
+      }
+    } );
+    check( "SPILLFILEPREFIX", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getPrefix();
+      }
+    } );
+    check( "MAXGROUPSINMEMORY", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getMaxGroups();
+      }
+    } );
+    check( "FREEMEMORYLIMIT", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getFreeMemoryLimit();
+      }
+    } );
+    check( "AGGREGATIONTHREADS", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getAggregationThreads();
+      }
+    } );
   }
 }
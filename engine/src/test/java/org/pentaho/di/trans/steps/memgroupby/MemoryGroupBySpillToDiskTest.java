@@ -0,0 +1,202 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.memgroupby;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.di.core.KettleClientEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+
+public class MemoryGroupBySpillToDiskTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static final String STEP_NAME = "testStep";
+  private static final int NR_GROUPS = 500;
+  private static final int NR_ROWS = 5000;
+
+  private RowMetaInterface rowMeta;
+  private List<Object[]> rows;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws KettleException {
+    KettleClientEnvironment.init();
+  }
+
+  @Before
+  public void setUp() {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "key" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "intg" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "num" ) );
+
+    rows = new ArrayList<>();
+    for ( int i = 0; i < NR_ROWS; i++ ) {
+      long value = ( i * 7919L ) % 1000;
+      rows.add( new Object[] {
+        "key" + ( ( i * 31 ) % NR_GROUPS ), i % 10 == 0 ? null : value, value / 4.0 } );
+    }
+  }
+
+  @Test
+  public void testSameResultAsInMemory() throws Exception {
+    Map<String, Object[]> expected = runStep( false, null );
+    Map<String, Object[]> actual = runStep( true, "10" );
+
+    assertEquals( NR_GROUPS, expected.size() );
+    assertEquals( expected.keySet(), actual.keySet() );
+    for ( String key : expected.keySet() ) {
+      Object[] expectedRow = expected.get( key );
+      Object[] actualRow = actual.get( key );
+      for ( int i = 0; i < expectedRow.length; i++ ) {
+        assertEquals( key + " field " + i, expectedRow[i], actualRow[i] );
+      }
+    }
+
+    // All the temporary files are removed
+    assertEquals( 0, folder.getRoot().list().length );
+  }
+
+  @Test
+  public void testEverythingFitsInMemory() throws Exception {
+    Map<String, Object[]> actual = runStep( true, String.valueOf( NR_GROUPS ) );
+
+    assertEquals( NR_GROUPS, actual.size() );
+    assertEquals( 0, folder.getRoot().list().length );
+  }
+
+  @Test
+  public void testGroupTable() throws Exception {
+    RowMetaInterface groupMeta = new RowMeta();
+    groupMeta.addValueMeta( new ValueMetaString( "key" ) );
+    GroupTable table = new GroupTable( groupMeta, 1 );
+
+    for ( int i = 0; i < 100; i++ ) {
+      Object[] groupData = new Object[] { "key" + i };
+      int hash = table.hash( groupData );
+      assertEquals( -1, table.find( groupData, hash ) );
+      assertEquals( i, table.add( groupData, hash ) );
+    }
+
+    assertEquals( 100, table.size() );
+    Object[] groupData = new Object[] { "key42" };
+    assertEquals( 42, table.find( groupData, table.hash( groupData ) ) );
+    assertEquals( "key42", table.getGroupData( 42 )[0] );
+  }
+
+  @Test
+  public void testPrimitiveColumns() {
+    ValueMetaInteger integer = new ValueMetaInteger( "intg" );
+    ValueMetaNumber number = new ValueMetaNumber( "num" );
+    ValueMetaString string = new ValueMetaString( "str" );
+
+    assertTrue( GroupAccumulators.createColumn( MemoryGroupByMeta.TYPE_GROUP_SUM, integer, integer, false )
+      instanceof GroupAccumulators.LongSumColumn );
+    assertTrue( GroupAccumulators.createColumn( MemoryGroupByMeta.TYPE_GROUP_MAX, number, number, false )
+      instanceof GroupAccumulators.DoubleMinMaxColumn );
+    assertTrue( GroupAccumulators.createColumn( MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL, string, integer, false )
+      instanceof GroupAccumulators.CountColumn );
+    // Compatibility mode: sum of integers as a number
+    assertEquals( null, GroupAccumulators.createColumn( MemoryGroupByMeta.TYPE_GROUP_SUM, integer, number, false ) );
+    assertEquals( null, GroupAccumulators.createColumn( MemoryGroupByMeta.TYPE_GROUP_MIN, string, string, false ) );
+    assertEquals( null, GroupAccumulators.createColumn( MemoryGroupByMeta.TYPE_GROUP_MEDIAN, number, number, false ) );
+
+    GroupAccumulators accumulators = new GroupAccumulators( new GroupAccumulators.Column[] {
+      GroupAccumulators.createColumn( MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY, integer, integer, false ) } );
+    assertFalse( accumulators.isUsingAggregates() );
+  }
+
+  private Map<String, Object[]> runStep( boolean spillingToDisk, String maxGroups ) throws KettleException {
+    int[] types = new int[] {
+      MemoryGroupByMeta.TYPE_GROUP_SUM, MemoryGroupByMeta.TYPE_GROUP_AVERAGE, MemoryGroupByMeta.TYPE_GROUP_MIN,
+      MemoryGroupByMeta.TYPE_GROUP_MAX, MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL, MemoryGroupByMeta.TYPE_GROUP_SUM,
+      MemoryGroupByMeta.TYPE_GROUP_MEDIAN, MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT,
+      MemoryGroupByMeta.TYPE_GROUP_FIRST, MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA, };
+    String[] subjects = new String[] { "intg", "intg", "intg", "intg", "intg", "num", "num", "intg", "intg", "intg" };
+
+    MemoryGroupByMeta meta = new MemoryGroupByMeta();
+    meta.setDefault();
+    meta.allocate( 1, types.length );
+    meta.getGroupField()[0] = "key";
+    for ( int i = 0; i < types.length; i++ ) {
+      meta.getAggregateField()[i] = "agg" + i;
+      meta.getSubjectField()[i] = subjects[i];
+      meta.getAggregateType()[i] = types[i];
+    }
+    meta.setSpillingToDisk( spillingToDisk );
+    meta.setDirectory( folder.getRoot().getAbsolutePath() );
+    meta.setMaxGroups( maxGroups );
+
+    MemoryGroupByData data = new MemoryGroupByData();
+    data.map = new HashMap<>();
+
+    TransMeta transMeta = mock( TransMeta.class );
+    StepMeta stepMeta = new StepMeta( STEP_NAME, meta );
+    when( transMeta.findStep( STEP_NAME ) ).thenReturn( stepMeta );
+
+    MemoryGroupBy step = spy( new MemoryGroupBy( stepMeta, data, 0, transMeta, mock( Trans.class ) ) );
+    final Map<String, Object[]> output = new TreeMap<>();
+    doAnswer( invocation -> {
+      Object[] row = invocation.getArgument( 1 );
+      assertFalse( output.containsKey( row[0] ) );
+      output.put( (String) row[0], row );
+      return null;
+    } ).when( step ).putRow( any(), any() );
+    doNothing().when( step ).setOutputDone();
+    doReturn( rowMeta ).when( step ).getInputRowMeta();
+
+    for ( Object[] row : rows ) {
+      doReturn( row ).when( step ).getRow();
+      assertTrue( step.processRow( meta, data ) );
+    }
+    doReturn( null ).when( step ).getRow();
+    assertFalse( step.processRow( meta, data ) );
+    step.dispose( meta, data );
+
+    return output;
+  }
+}
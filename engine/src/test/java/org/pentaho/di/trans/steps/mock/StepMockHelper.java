@@ -38,6 +38,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.lenient;
@@ -91,6 +92,17 @@ public class StepMockHelper<Meta extends StepMetaInterface, Data extends StepDat
     };
     lenient().when( rowSet.getRowWait( anyLong(), any( TimeUnit.class ) ) ).thenAnswer( answer );
     when( rowSet.getRow() ).thenAnswer( answer );
+    lenient().when( rowSet.getRows( anyInt() ) ).thenAnswer( new Answer<List<Object[]>>() {
+      @Override
+      public List<Object[]> answer( InvocationOnMock invocation ) throws Throwable {
+        int max = invocation.getArgument( 0 );
+        List<Object[]> batch = new ArrayList<Object[]>();
+        while ( batch.size() < max && index.get() < rows.size() ) {
+          batch.add( rows.get( index.getAndIncrement() ) );
+        }
+        return batch;
+      }
+    } );
     when( rowSet.isDone() ).thenAnswer( new Answer<Boolean>() {
 
       @Override
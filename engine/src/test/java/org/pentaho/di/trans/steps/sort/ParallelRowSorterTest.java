@@ -0,0 +1,109 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ParallelRowSorterTest {
+  private static ForkJoinPool pool;
+
+  private final Comparator<Object[]> comparator = new Comparator<Object[]>() {
+    @Override
+    public int compare( Object[] o1, Object[] o2 ) {
+      return ( (Long) o1[0] ).compareTo( (Long) o2[0] );
+    }
+  };
+
+  @BeforeClass
+  public static void setUpPool() {
+    pool = new ForkJoinPool( 4 );
+  }
+
+  @AfterClass
+  public static void shutdownPool() {
+    pool.shutdown();
+  }
+
+  @Test
+  public void testSortIsStable() {
+    Random random = new Random( 1 );
+    Object[][] rows = new Object[ParallelRowSorter.MIN_SEGMENT_SIZE * 10 + 7][];
+    for ( int i = 0; i < rows.length; i++ ) {
+      rows[i] = new Object[] { (long) random.nextInt( 1000 ), (long) i };
+    }
+    List<Object[]> expected = new ArrayList<>( Arrays.asList( rows ) );
+    Collections.sort( expected, comparator );
+
+    new ParallelRowSorter<Object[]>( pool, comparator ).sort( rows );
+
+    for ( int i = 0; i < rows.length; i++ ) {
+      assertSame( expected.get( i ), rows[i] );
+    }
+  }
+
+  @Test
+  public void testMergeRuns() throws Exception {
+    List<LoserTreeMerger.Run<Object[]>> runs = new ArrayList<>();
+    runs.add( run( 1L, 4L, 7L ) );
+    runs.add( run() );
+    runs.add( run( 2L, 2L, 9L ) );
+    runs.add( run( 3L ) );
+    runs.add( run( 0L, 5L ) );
+
+    LoserTreeMerger<Object[]> merger = new LoserTreeMerger<Object[]>( runs, comparator );
+    List<Long> merged = new ArrayList<>();
+    Object[] row;
+    while ( ( row = merger.next() ) != null ) {
+      merged.add( (Long) row[0] );
+    }
+
+    assertEquals( Arrays.asList( 0L, 1L, 2L, 2L, 3L, 4L, 5L, 7L, 9L ), merged );
+    assertNull( merger.next() );
+  }
+
+  @Test
+  public void testMergeWithoutRuns() throws Exception {
+    assertNull( new LoserTreeMerger<Object[]>( new ArrayList<LoserTreeMerger.Run<Object[]>>(), comparator ).next() );
+  }
+
+  private static LoserTreeMerger.Run<Object[]> run( final Long... values ) {
+    return new LoserTreeMerger.Run<Object[]>() {
+      private int index;
+
+      @Override
+      public Object[] next() {
+        return index < values.length ? new Object[] { values[index++] } : null;
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+  }
+}
@@ -64,6 +64,12 @@ public class SortRowsMetaInjectionTest extends BaseMetadataInjectionTest<SortRow
         return meta.getCompressFiles();
       }
     } );
+    check( "SORT_THREADS", new StringGetter() {
+      @Override
+      public String get() {
+        return meta.getSortThreads();
+      }
+    } );
     check( "NAME", new StringGetter() {
       @Override
       public String get() {
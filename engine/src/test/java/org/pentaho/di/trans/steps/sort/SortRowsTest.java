@@ -0,0 +1,134 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.sort;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.row.value.ValueMetaTimestamp;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.TransTestFactory;
+
+/**
+ * Runs the step with several sort threads and compares the output with the single threaded sort. The sort size is
+ * small enough for the rows to be written to several temporary files in the background, the last rows are merged with
+ * them from memory.
+ */
+public class SortRowsTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final String STEP_NAME = "Sort rows";
+  private static final int NR_ROWS = 2000;
+  private static final int NR_IDS = 500;
+  private static final String SORT_SIZE = "300";
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws KettleException {
+    KettleEnvironment.init( false );
+  }
+
+  @Test
+  public void testParallelSortMatchesSingleThreadedSort() throws Exception {
+    for ( boolean compress : new boolean[] { false, true } ) {
+      for ( boolean unique : new boolean[] { false, true } ) {
+        assertParallelSortMatches( new String[] { "group", "id" }, new boolean[] { false, true }, compress, unique );
+      }
+    }
+  }
+
+  @Test
+  public void testParallelSortWithoutSortKeysMatchesSingleThreadedSort() throws Exception {
+    // Timestamps have no sort key, the rows in the temporary files are compared field by field
+    for ( boolean compress : new boolean[] { false, true } ) {
+      for ( boolean unique : new boolean[] { false, true } ) {
+        assertParallelSortMatches( new String[] { "created" }, new boolean[] { true }, compress, unique );
+      }
+    }
+  }
+
+  private void assertParallelSortMatches( String[] fields, boolean[] ascending, boolean compress, boolean unique )
+    throws Exception {
+    List<String> expected = sort( fields, ascending, compress, unique, null );
+    List<String> actual = sort( fields, ascending, compress, unique, "2" );
+
+    String message = "compress=" + compress + ", unique=" + unique;
+    assertEquals( message, unique ? countIds() : NR_ROWS, expected.size() );
+    assertEquals( message, expected, actual );
+  }
+
+  private List<String> sort( String[] fields, boolean[] ascending, boolean compress, boolean unique,
+                             String sortThreads ) throws KettleException {
+    SortRowsMeta meta = new SortRowsMeta();
+    meta.setDefault();
+    meta.allocate( fields.length );
+    meta.setFieldName( fields );
+    meta.setAscending( ascending );
+    meta.setSortSize( SORT_SIZE );
+    meta.setCompressFiles( compress );
+    meta.setOnlyPassingUniqueRows( unique );
+    meta.setSortThreads( sortThreads );
+
+    TransMeta transMeta = TransTestFactory.generateTestTransformation( null, meta, STEP_NAME );
+    List<RowMetaAndData> output = TransTestFactory.executeTestTransformation( transMeta, STEP_NAME, createRows() );
+
+    List<String> rows = new ArrayList<>( output.size() );
+    for ( RowMetaAndData row : output ) {
+      rows.add( row.getRowMeta().getString( row.getData() ) );
+    }
+    return rows;
+  }
+
+  /**
+   * @return rows with duplicate ids, all the fields of a row follow from its id
+   */
+  private static List<RowMetaAndData> createRows() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "group" ) );
+    rowMeta.addValueMeta( new ValueMetaTimestamp( "created" ) );
+
+    Random random = new Random( 1 );
+    List<RowMetaAndData> rows = new ArrayList<>( NR_ROWS );
+    for ( int i = 0; i < NR_ROWS; i++ ) {
+      long id = random.nextInt( NR_IDS );
+      rows.add( new RowMetaAndData( rowMeta, id, "g" + ( id % 7 ), new Timestamp( id * 1000L ) ) );
+    }
+    return rows;
+  }
+
+  private static int countIds() {
+    Set<Object> ids = new HashSet<>();
+    for ( RowMetaAndData row : createRows() ) {
+      ids.add( row.getData()[ 0 ] );
+    }
+    return ids.size();
+  }
+}
@@ -0,0 +1,94 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableinput;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.trans.Trans;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SharedSplitRangeTest {
+
+  private Trans trans;
+  private Map<String, Object> extensionData;
+
+  @Before
+  public void setUp() {
+    extensionData = new HashMap<>();
+    trans = mock( Trans.class );
+    when( trans.getExtensionDataMap() ).thenReturn( extensionData );
+  }
+
+  @Test
+  public void copiesOfAStepShareOneRangeCalculatedOnce() throws Exception {
+    SharedSplitRange first = SharedSplitRange.acquire( trans, "input" );
+    SharedSplitRange second = SharedSplitRange.acquire( trans, "input" );
+    assertSame( first, second );
+    assertEquals( 2, first.getUsers() );
+    assertNotSame( first, SharedSplitRange.acquire( trans, "other input" ) );
+
+    AtomicInteger loads = new AtomicInteger();
+    RowMetaAndData range = first.getRange( "query", () -> {
+      loads.incrementAndGet();
+      return new RowMetaAndData();
+    } );
+    assertSame( range, second.getRange( "query", () -> {
+      loads.incrementAndGet();
+      return new RowMetaAndData();
+    } ) );
+    assertEquals( 1, loads.get() );
+
+    // Other parameters give another range
+    assertNotSame( range, second.getRange( "query with other parameters", RowMetaAndData::new ) );
+  }
+
+  @Test
+  public void lastCopyRemovesTheRange() {
+    SharedSplitRange first = SharedSplitRange.acquire( trans, "input" );
+    SharedSplitRange second = SharedSplitRange.acquire( trans, "input" );
+
+    first.release( trans );
+    assertTrue( extensionData.containsValue( second ) );
+    second.release( trans );
+    assertTrue( extensionData.isEmpty() );
+  }
+
+  @Test
+  public void failedCalculationIsRetried() throws Exception {
+    SharedSplitRange shared = SharedSplitRange.acquire( trans, "input" );
+    try {
+      shared.getRange( "query", () -> {
+        throw new KettleException( "Unable to read the range" );
+      } );
+      fail( "Expected the failure to calculate the range" );
+    } catch ( KettleException e ) {
+      // expected
+    }
+    RowMetaAndData range = new RowMetaAndData();
+    assertSame( range, shared.getRange( "query", () -> range ) );
+  }
+}
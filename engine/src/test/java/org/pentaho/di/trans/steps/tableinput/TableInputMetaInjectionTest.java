@@ -59,6 +59,11 @@ public class TableInputMetaInjectionTest extends BaseMetadataInjectionTest<Table
         return meta.isCachedRowMetaActive();
       }
     } );
+    check( "SPLIT_FIELD", new StringGetter() {
+      public String get() {
+        return meta.getSplitField();
+      }
+    } );
     skipPropertyTest( "CONNECTIONNAME" );
   }
 }
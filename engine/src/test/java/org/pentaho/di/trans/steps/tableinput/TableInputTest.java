@@ -17,17 +17,25 @@ import org.junit.Before;
 import org.junit.Test;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
 import org.pentaho.di.trans.step.StepPartitioningMeta;
 
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.util.Date;
 
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doReturn;
@@ -113,4 +121,54 @@ public class TableInputTest {
     verify( mockStepDataInterface.db, times( 0 ) ).cancelStatement( any( PreparedStatement.class ) );
     assertFalse( mockStepDataInterface.isCanceled );
   }
+
+  @Test
+  public void testSplitBoundaries() throws KettleException {
+    assertArrayEquals( new Object[] { new BigDecimal( 25 ), new BigDecimal( 50 ), new BigDecimal( 75 ) },
+      TableInput.getSplitBoundaries( new ValueMetaInteger( "id" ), 0L, 101L, 4 ) );
+    assertArrayEquals( new Object[] { new Date( 1500L ) },
+      TableInput.getSplitBoundaries( new ValueMetaDate( "day" ), new Date( 1000L ), new Date( 2000L ), 2 ) );
+    assertNull( TableInput.getSplitBoundaries( new ValueMetaInteger( "id" ), null, null, 4 ) );
+  }
+
+  @Test( expected = KettleException.class )
+  public void testSplitOnStringIsNotSupported() throws KettleException {
+    TableInput.getSplitBoundaries( new ValueMetaString( "name" ), "a", "z", 2 );
+  }
+
+  @Test
+  public void testSplitSQL() {
+    String sql = "SELECT id FROM orders;";
+
+    assertEquals( "SELECT MIN( id ), MAX( id ) FROM ( SELECT id FROM orders ) split_source",
+      TableInput.getSplitRangeSQL( sql, "id" ) );
+    assertEquals( "SELECT * FROM ( SELECT id FROM orders ) split_source WHERE ( id < ? OR id IS NULL )",
+      TableInput.getSplitSQL( sql, "id", 0, 3, true ) );
+    assertEquals( "SELECT * FROM ( SELECT id FROM orders ) split_source WHERE id >= ? AND id < ?",
+      TableInput.getSplitSQL( sql, "id", 1, 3, true ) );
+    assertEquals( "SELECT * FROM ( SELECT id FROM orders ) split_source WHERE id >= ?",
+      TableInput.getSplitSQL( sql, "id", 2, 3, true ) );
+    assertEquals( sql, TableInput.getSplitSQL( sql, "id", 0, 3, false ) );
+    assertEquals( "SELECT * FROM ( SELECT id FROM orders ) split_source WHERE 1 = 0",
+      TableInput.getSplitSQL( sql, "id", 1, 3, false ) );
+  }
+
+  @Test
+  public void testSplitSQLLeavesOutTheOrderBy() {
+    assertEquals( "SELECT * FROM ( SELECT id FROM orders ) split_source WHERE id >= ?",
+      TableInput.getSplitSQL( "SELECT id FROM orders ORDER BY id DESC;", "id", 2, 3, true ) );
+    assertEquals( "SELECT MIN( id ), MAX( id ) FROM ( SELECT id FROM orders ) split_source",
+      TableInput.getSplitRangeSQL( "SELECT id FROM orders order by id", "id" ) );
+
+    // Only the ORDER BY that ends the query goes, and not when the rows are limited
+    assertEquals( "SELECT id, ROW_NUMBER() OVER ( ORDER BY id ) FROM orders",
+      TableInput.stripOrderBy( "SELECT id, ROW_NUMBER() OVER ( ORDER BY id ) FROM orders" ) );
+    assertEquals( "SELECT 'ORDER BY' FROM orders", TableInput.stripOrderBy( "SELECT 'ORDER BY' FROM orders" ) );
+    assertEquals( "SELECT id /* ORDER BY */ FROM orders",
+      TableInput.stripOrderBy( "SELECT id /* ORDER BY */ FROM orders ORDER BY 1" ) );
+    assertEquals( "SELECT TOP 10 id FROM orders ORDER BY id",
+      TableInput.stripOrderBy( "SELECT TOP 10 id FROM orders ORDER BY id" ) );
+    assertEquals( "SELECT id FROM orders ORDER BY id LIMIT 10",
+      TableInput.stripOrderBy( "SELECT id FROM orders ORDER BY id LIMIT 10" ) );
+  }
 }
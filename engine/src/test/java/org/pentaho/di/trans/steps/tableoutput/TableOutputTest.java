@@ -16,6 +16,7 @@ package org.pentaho.di.trans.steps.tableoutput;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.pentaho.di.core.database.BulkInsertWriter;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseInterface;
 import org.pentaho.di.core.database.DatabaseMeta;
@@ -27,9 +28,11 @@ import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepPartitioningMeta;
 
 import java.sql.Connection;
+import java.util.ArrayList;
 import java.util.Map;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.any;
@@ -93,6 +96,46 @@ public class TableOutputTest {
     tableOutputSpy.writeToTable( mock( RowMetaInterface.class ), new Object[]{} );
   }
 
+  @Test
+  public void testBulkInsertPassesRowsOnAfterCommit() throws Exception {
+    BulkInsertWriter writer = mock( BulkInsertWriter.class );
+    tableOutputData.bulkInsertWriter = writer;
+    tableOutputData.batchBuffer = new ArrayList<>();
+    tableOutputData.commitSize = 2;
+    doNothing().when( tableOutputSpy ).putRow( any(), any() );
+
+    tableOutputSpy.writeToBulkInsert( new Object[] { 1L } );
+    verify( tableOutputSpy, never() ).putRow( any(), any() );
+
+    tableOutputSpy.writeToBulkInsert( new Object[] { 2L } );
+    verify( writer, times( 2 ) ).writeRow( any() );
+    verify( writer ).finish();
+    verify( db ).commit( true );
+    verify( tableOutputSpy, times( 2 ) ).putRow( any(), any() );
+    assertNull( tableOutputData.bulkInsertWriter );
+  }
+
+  @Test
+  public void testBulkInsertWithoutCommitSizeCommitsAtTheEnd() throws Exception {
+    BulkInsertWriter writer = mock( BulkInsertWriter.class );
+    tableOutputData.bulkInsertWriter = writer;
+    tableOutputData.batchBuffer = new ArrayList<>();
+    tableOutputData.commitSize = Integer.MAX_VALUE;
+    doNothing().when( tableOutputSpy ).putRow( any(), any() );
+
+    for ( long i = 1; i < TableOutput.BULK_INSERT_SIZE_WITHOUT_COMMIT; i++ ) {
+      tableOutputSpy.writeToBulkInsert( new Object[] { i } );
+    }
+    verify( writer, never() ).finish();
+
+    // The load is finished every so many rows to pass them on, the commit is left to the end
+    tableOutputSpy.writeToBulkInsert( new Object[] { 0L } );
+    verify( writer ).finish();
+    verify( db, never() ).commit( true );
+    verify( tableOutputSpy, times( TableOutput.BULK_INSERT_SIZE_WITHOUT_COMMIT ) ).putRow( any(), any() );
+    assertNull( tableOutputData.bulkInsertWriter );
+  }
+
   @Test
   public void testTruncateTable_off() throws Exception {
     tableOutputSpy.truncateTable();
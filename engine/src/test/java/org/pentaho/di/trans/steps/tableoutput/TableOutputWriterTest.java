@@ -0,0 +1,105 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+
+public class TableOutputWriterTest {
+
+  private Database db;
+  private PreparedStatement insertStatement;
+  private RowMetaInterface rowMeta;
+  private Queue<TableOutputWriter.Chunk> processed;
+
+  @Before
+  public void setUp() {
+    db = mock( Database.class );
+    insertStatement = mock( PreparedStatement.class );
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    processed = new ConcurrentLinkedQueue<>();
+  }
+
+  private TableOutputWriter.Chunk createChunk( int nrRows ) {
+    TableOutputWriter.Chunk chunk = new TableOutputWriter.Chunk( nrRows );
+    for ( long i = 0; i < nrRows; i++ ) {
+      Object[] row = new Object[] { i };
+      chunk.add( row, row );
+    }
+    return chunk;
+  }
+
+  @Test
+  public void testChunksAreInsertedAsBatches() throws Exception {
+    TableOutputWriter writer = new TableOutputWriter( db, insertStatement, rowMeta, processed, "writer" );
+    TableOutputWriter.Chunk first = createChunk( 3 );
+    TableOutputWriter.Chunk second = createChunk( 2 );
+    writer.write( first );
+    writer.write( second );
+    writer.finish();
+
+    assertEquals( 2, processed.size() );
+    assertSame( first, processed.poll() );
+    assertSame( second, processed.poll() );
+    assertNull( first.batchException );
+    assertNull( first.exception );
+    verify( db, times( 5 ) ).setValues( any( RowMetaInterface.class ), any( Object[].class ), any() );
+    verify( insertStatement, times( 5 ) ).addBatch();
+    verify( insertStatement, times( 2 ) ).executeBatch();
+  }
+
+  @Test
+  public void testBatchErrorIsKeptWithTheChunk() throws Exception {
+    when( insertStatement.executeBatch() ).thenThrow( new BatchUpdateException( "duplicate key", new int[] { 1, 0 } ) );
+
+    TableOutputWriter writer = new TableOutputWriter( db, insertStatement, rowMeta, processed, "writer" );
+    TableOutputWriter.Chunk chunk = createChunk( 2 );
+    writer.write( chunk );
+    writer.finish();
+
+    assertSame( chunk, processed.poll() );
+    assertNotNull( chunk.batchException );
+    assertEquals( 0, chunk.batchException.getUpdateCounts()[1] );
+    verify( db ).clearBatch( insertStatement );
+  }
+
+  @Test
+  public void testStoppedWriterRefusesChunks() throws Exception {
+    TableOutputWriter writer = new TableOutputWriter( db, insertStatement, rowMeta, processed, "writer" );
+    writer.stop();
+
+    assertFalse( writer.write( createChunk( 1 ) ) );
+  }
+}
@@ -44,6 +44,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Random;
 //import java.util.concurrent.TimeUnit;
@@ -70,6 +71,8 @@ import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.row.value.ValueMetaBase;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
@@ -455,6 +458,47 @@ public class TextFileOutputTest {
     assertEquals( "this is the end", baos.toString( StandardCharsets.UTF_8.name() ) );
   }
 
+  @Test
+  public void testToDigits() {
+    long[] values = { 0, 7, -7, 10, -10, 123456789, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1 };
+    for ( long value : values ) {
+      assertEquals( Long.toString( value ), new String( TextFileOutput.toDigits( value ), StandardCharsets.US_ASCII ) );
+    }
+  }
+
+  @Test
+  public void testIntegersAndDatesAreFormattedAsBefore() throws Exception {
+    TextFileOutputData data = new TextFileOutputData();
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    data.writer = baos;
+    TextFileOutputMeta meta = getTextFileOutputMeta();
+    meta.setSeparator( ";" );
+    meta.setEnclosure( "" );
+    stepMockHelper.stepMeta.setStepMetaInterface( meta );
+    TextFileOutput textFileOutput =
+      new TextFileOutputTestHandler( stepMockHelper.stepMeta, data, 0, stepMockHelper.transMeta,
+        stepMockHelper.trans );
+    textFileOutput.meta = meta;
+    textFileOutput.data = data;
+    textFileOutput.initBinaryDataFields();
+    data.binaryNewline = "\n".getBytes();
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "date" ) );
+    Date date = new Date( 1234567890123L );
+    Object[][] rows = {
+      { 42L, date }, { -42L, date }, { Long.MIN_VALUE, new Date( 0L ) }, { null, null }, { 0L, date } };
+
+    StringBuilder expected = new StringBuilder();
+    for ( Object[] row : rows ) {
+      textFileOutput.writeRow( rowMeta, row );
+      expected.append( Const.NVL( rowMeta.getValueMeta( 0 ).getString( row[0] ), "" ) ).append( ';' )
+        .append( Const.NVL( rowMeta.getValueMeta( 1 ).getString( row[1] ), "" ) ).append( '\n' );
+    }
+    assertEquals( expected.toString(), baos.toString( StandardCharsets.UTF_8.name() ) );
+  }
+
   private void assertNotInvokedTwice( TextFileField field ) {
     TextFileOutput step =
         new TextFileOutput( stepMockHelper.stepMeta, stepMockHelper.stepDataInterface, 1, stepMockHelper.transMeta,
@@ -48,6 +48,11 @@ public class UpdateMetaInjectionTest extends BaseMetadataInjectionTest<UpdateMet
         return meta.useBatchUpdate();
       }
     } );
+    check( "BULK_SIZE", new IntGetter() {
+      public int get() {
+        return meta.getBulkSize();
+      }
+    } );
     check( "SKIP_LOOKUP", new BooleanGetter() {
       public boolean get() {
         return meta.isSkipLookup();
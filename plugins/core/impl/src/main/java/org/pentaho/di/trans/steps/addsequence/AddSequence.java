@@ -13,8 +13,11 @@
 
 package org.pentaho.di.trans.steps.addsequence;
 
+import org.pentaho.di.cluster.SlaveServer;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.Counter;
 import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.SequenceBlock;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
@@ -68,8 +71,12 @@ public class AddSequence extends BaseStep implements StepInterface {
       }
     } else if ( meta.isDatabaseUsed() ) {
       try {
-        next = data.getDb().getNextSequenceValue( data.realSchemaName, data.realSequenceName, meta.getValuename() );
-      } catch ( KettleDatabaseException dbe ) {
+        if ( data.sequenceBlock != null ) {
+          next = data.sequenceBlock.getNextValue();
+        } else {
+          next = data.getDb().getNextSequenceValue( data.realSchemaName, data.realSequenceName, meta.getValuename() );
+        }
+      } catch ( KettleException dbe ) {
         throw new KettleStepException( BaseMessages.getString(
           PKG, "AddSequence.Exception.ErrorReadingSequence", data.realSequenceName ), dbe );
       }
@@ -144,7 +151,27 @@ public class AddSequence extends BaseStep implements StepInterface {
     if ( super.init( smi, sdi ) ) {
       data.realSchemaName = environmentSubstitute( meta.getSchemaName() );
       data.realSequenceName = environmentSubstitute( meta.getSequenceName() );
-      if ( meta.isDatabaseUsed() ) {
+      if ( meta.isDatabaseUsed() && !Utils.isEmpty( meta.getSlaveServerName() ) ) {
+        // The blocks come from the slave sequence, which keeps its counter in a table
+        //
+        String slaveServerName = environmentSubstitute( meta.getSlaveServerName() );
+        SlaveServer slaveServer = getTransMeta().findSlaveServer( slaveServerName );
+        if ( slaveServer == null ) {
+          logError( BaseMessages.getString( PKG, "AddSequence.Log.SlaveServerNotFound", slaveServerName ) );
+          return false;
+        }
+        data.sequenceBlock =
+          new SequenceBlock( blockSize -> slaveServer.getNextSlaveSequenceValue( data.realSequenceName, blockSize ),
+            Math.max( getBlockSize(), 1L ) );
+        return true;
+      } else if ( meta.isDatabaseUsed() ) {
+        long blockSize = getBlockSize();
+        if ( blockSize > 1 ) {
+          // The database sequence increments by the block size: every value of it reserves a block
+          //
+          data.sequenceBlock = new SequenceBlock( size -> data.getDb().getNextSequenceValue(
+            data.realSchemaName, data.realSequenceName, meta.getValuename() ), blockSize, true );
+        }
         Database db = new Database( this, meta.getDatabase() );
         db.shareVariablesWith( this );
         data.setDb( db );
@@ -232,6 +259,10 @@ public class AddSequence extends BaseStep implements StepInterface {
     return false;
   }
 
+  private long getBlockSize() {
+    return Const.toLong( environmentSubstitute( meta.getBlockSize() ), 1L );
+  }
+
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
     meta = (AddSequenceMeta) smi;
     data = (AddSequenceData) sdi;
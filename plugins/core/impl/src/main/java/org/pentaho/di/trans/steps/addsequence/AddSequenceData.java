@@ -15,6 +15,7 @@ package org.pentaho.di.trans.steps.addsequence;
 
 import org.pentaho.di.core.Counter;
 import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.SequenceBlock;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
@@ -37,6 +38,9 @@ public class AddSequenceData extends BaseStepData implements StepDataInterface {
   public String realSchemaName;
   public String realSequenceName;
 
+  /** Hands out the values of the reserved blocks, null to get every value from the database sequence */
+  public SequenceBlock sequenceBlock;
+
   /**
    *
    */
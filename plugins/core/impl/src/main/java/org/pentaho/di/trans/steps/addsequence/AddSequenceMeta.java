@@ -28,6 +28,7 @@ import org.pentaho.di.core.exception.KettleXMLException;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.core.xml.XMLHandler;
 import org.pentaho.di.i18n.BaseMessages;
@@ -61,6 +62,10 @@ public class AddSequenceMeta extends BaseStepMeta implements StepMetaInterface {
   private DatabaseMeta database;
   private String schemaName;
   private String sequenceName;
+  /** The number of values to reserve at once, the database sequence has to increment by it */
+  private String blockSize;
+  /** The slave server with the slave sequence to reserve the blocks from, instead of the database sequence */
+  private String slaveServerName;
 
   private boolean useCounter;
   private String counterName;
@@ -232,6 +237,8 @@ public class AddSequenceMeta extends BaseStepMeta implements StepMetaInterface {
       database = DatabaseMeta.findDatabase( databases, conn );
       schemaName = XMLHandler.getTagValue( stepnode, "schema" );
       sequenceName = XMLHandler.getTagValue( stepnode, "seqname" );
+      blockSize = XMLHandler.getTagValue( stepnode, "block_size" );
+      slaveServerName = XMLHandler.getTagValue( stepnode, "slave_server" );
 
       useCounter = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "use_counter" ) );
       counterName = XMLHandler.getTagValue( stepnode, "counter_name" );
@@ -255,6 +262,8 @@ public class AddSequenceMeta extends BaseStepMeta implements StepMetaInterface {
     useDatabase = false;
     schemaName = "";
     sequenceName = "SEQ_";
+    blockSize = "1";
+    slaveServerName = null;
     database = null;
 
     useCounter = true;
@@ -283,6 +292,8 @@ public class AddSequenceMeta extends BaseStepMeta implements StepMetaInterface {
       .append( "      " ).append( XMLHandler.addTagValue( "connection", database == null ? "" : database.getName() ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "schema", schemaName ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "seqname", sequenceName ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "block_size", blockSize ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "slave_server", slaveServerName ) );
 
     retval.append( "      " ).append( XMLHandler.addTagValue( "use_counter", useCounter ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "counter_name", counterName ) );
@@ -304,6 +315,8 @@ public class AddSequenceMeta extends BaseStepMeta implements StepMetaInterface {
 
       schemaName = rep.getStepAttributeString( id_step, "schema" );
       sequenceName = rep.getStepAttributeString( id_step, "seqname" );
+      blockSize = rep.getStepAttributeString( id_step, "block_size" );
+      slaveServerName = rep.getStepAttributeString( id_step, "slave_server" );
 
       useCounter = rep.getStepAttributeBoolean( id_step, "use_counter" );
       counterName = rep.getStepAttributeString( id_step, "counter_name" );
@@ -345,6 +358,8 @@ public class AddSequenceMeta extends BaseStepMeta implements StepMetaInterface {
 
       rep.saveStepAttribute( id_transformation, id_step, "schema", schemaName );
       rep.saveStepAttribute( id_transformation, id_step, "seqname", sequenceName );
+      rep.saveStepAttribute( id_transformation, id_step, "block_size", blockSize );
+      rep.saveStepAttribute( id_transformation, id_step, "slave_server", slaveServerName );
 
       rep.saveStepAttribute( id_transformation, id_step, "use_counter", useCounter );
       rep.saveStepAttribute( id_transformation, id_step, "counter_name", counterName );
@@ -367,7 +382,7 @@ public class AddSequenceMeta extends BaseStepMeta implements StepMetaInterface {
     RowMetaInterface prev, String[] input, String[] output, RowMetaInterface info, VariableSpace space,
     Repository repository, IMetaStore metaStore ) {
     CheckResult cr;
-    if ( useDatabase ) {
+    if ( useDatabase && Utils.isEmpty( slaveServerName ) ) {
       Database db = new Database( loggingObject, database );
       db.shareVariablesWith( transMeta );
       try {
@@ -411,7 +426,7 @@ public class AddSequenceMeta extends BaseStepMeta implements StepMetaInterface {
     Repository repository, IMetaStore metaStore ) {
     SQLStatement retval = new SQLStatement( stepMeta.getName(), database, null ); // default: nothing to do!
 
-    if ( useDatabase ) {
+    if ( useDatabase && Utils.isEmpty( slaveServerName ) ) {
       // Otherwise, don't bother!
       if ( database != null ) {
         Database db = new Database( loggingObject, database );
@@ -419,7 +434,10 @@ public class AddSequenceMeta extends BaseStepMeta implements StepMetaInterface {
         try {
           db.connect();
           if ( !db.checkSequenceExists( schemaName, sequenceName ) ) {
-            String cr_table = db.getCreateSequenceStatement( sequenceName, startAt, incrementBy, maxValue, true );
+            long realBlockSize = Const.toLong( transMeta.environmentSubstitute( blockSize ), 1L );
+            String cr_table =
+              db.getCreateSequenceStatement( sequenceName, startAt,
+                realBlockSize > 1 ? Long.toString( realBlockSize ) : incrementBy, maxValue, true );
             retval.setSQL( cr_table );
           } else {
             retval.setSQL( null ); // Empty string means: nothing to do: set it to null...
@@ -473,6 +491,36 @@ public class AddSequenceMeta extends BaseStepMeta implements StepMetaInterface {
     this.counterName = counterName;
   }
 
+  /**
+   * @return the number of values to reserve at once
+   */
+  public String getBlockSize() {
+    return blockSize;
+  }
+
+  /**
+   * @param blockSize
+   *          the number of values to reserve at once. The database sequence has to increment by this number.
+   */
+  public void setBlockSize( String blockSize ) {
+    this.blockSize = blockSize;
+  }
+
+  /**
+   * @return the name of the slave server to reserve the blocks from, or null to use the database sequence
+   */
+  public String getSlaveServerName() {
+    return slaveServerName;
+  }
+
+  /**
+   * @param slaveServerName
+   *          the name of the slave server with the slave sequence to reserve the blocks from
+   */
+  public void setSlaveServerName( String slaveServerName ) {
+    this.slaveServerName = slaveServerName;
+  }
+
   /**
    * @return the schemaName
    */
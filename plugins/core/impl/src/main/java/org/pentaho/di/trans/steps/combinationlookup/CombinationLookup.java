@@ -13,24 +13,25 @@
 
 package org.pentaho.di.trans.steps.combinationlookup;
 
+import java.nio.ByteBuffer;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
-import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.database.SequenceBlock;
 import org.pentaho.di.core.exception.KettleConfigException;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.hash.ByteArrayHashIndex;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
@@ -99,7 +100,7 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
     }
   }
 
-  private Long lookupInCache( RowMetaInterface rowMeta, Object[] row ) {
+  private Long lookupInCache( RowMetaInterface rowMeta, Object[] row ) throws KettleValueException {
     // Short circuit if cache is disabled.
     if ( meta.getCacheSize() == -1 ) {
       return null;
@@ -107,8 +108,26 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
 
     // try to find the row in the cache...
     //
-    Long tk = data.cache.get( new RowMetaAndData( rowMeta, row ) );
-    return tk;
+    byte[] tk = data.cache.get( getCacheKey( rowMeta, row ) );
+    return tk == null ? null : ByteBuffer.wrap( tk ).getLong();
+  }
+
+  /**
+   * Serialize the key fields for the cache. Normalized sort keys are used where possible: they are compact and equal
+   * for the values that compare as equal, just like the rows did as keys of a hash map.
+   */
+  private byte[] getCacheKey( RowMetaInterface rowMeta, Object[] row ) throws KettleValueException {
+    if ( data.cacheKeyFieldnrs == null ) {
+      data.cacheKeyFieldnrs = new int[ rowMeta.size() ];
+      for ( int i = 0; i < data.cacheKeyFieldnrs.length; i++ ) {
+        data.cacheKeyFieldnrs[ i ] = i;
+      }
+      data.sortKeyCache = rowMeta.isSortKeySupported( data.cacheKeyFieldnrs );
+    }
+    if ( data.sortKeyCache ) {
+      return rowMeta.getSortKey( row, data.cacheKeyFieldnrs );
+    }
+    return RowMeta.extractData( rowMeta, row );
   }
 
   /**
@@ -128,15 +147,20 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
       return;
     }
 
+    // Short circuit if there is nothing to store.
+    if ( tk == null ) {
+      return;
+    }
+
     // store it in the cache if needed.
-    data.cache.put( new RowMetaAndData( rowMeta, row ), tk );
+    data.cache.put( getCacheKey( rowMeta, row ), ByteBuffer.allocate( Long.BYTES ).putLong( tk ).array() );
 
     // check if the size is not too big...
     // Allow for a buffer overrun of 20% and then remove those 20% in one go.
     // Just to keep performance in track.
     //
     int tenPercent = meta.getCacheSize() / 10;
-    if ( meta.getCacheSize() > 0 && data.cache.size() > meta.getCacheSize() + tenPercent ) {
+    if ( meta.getCacheSize() > 0 && data.cache.getSize() > meta.getCacheSize() + tenPercent ) {
       // Which cache entries do we delete here?
       // We delete those with the lowest technical key...
       // Those would arguably be the "oldest" dimension entries.
@@ -147,7 +171,7 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
       //
       // Perhaps we should get 20% random values and delete everything below the lowest but one TK.
       //
-      List<RowMetaAndData> keys = new ArrayList<RowMetaAndData>( data.cache.keySet() );
+      List<byte[]> keys = data.cache.getKeys();
       int sizeBefore = keys.size();
       List<Long> samples = new ArrayList<Long>();
 
@@ -157,10 +181,9 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
         stepsize = 1; // make sure we have no endless loop
       }
       for ( int i = 0; i < keys.size(); i += stepsize ) {
-        RowMetaAndData key = keys.get( i );
-        Long value = data.cache.get( key );
+        byte[] value = data.cache.get( keys.get( i ) );
         if ( value != null ) {
-          samples.add( value );
+          samples.add( ByteBuffer.wrap( value ).getLong() );
         }
       }
       // Sort these 5 elements...
@@ -179,16 +202,16 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
       // This algorithm is not 100% correct, but I guess it beats sorting the whole cache all the time.
       //
       for ( int i = 0; i < keys.size(); i++ ) {
-        RowMetaAndData key = keys.get( i );
-        Long value = data.cache.get( key );
+        byte[] key = keys.get( i );
+        byte[] value = data.cache.get( key );
         if ( value != null ) {
-          if ( value.longValue() <= data.smallestCacheKey ) {
+          if ( ByteBuffer.wrap( value ).getLong() <= data.smallestCacheKey ) {
             data.cache.remove( key ); // this one has to go.
           }
         }
       }
 
-      int sizeAfter = data.cache.size();
+      int sizeAfter = data.cache.getSize();
       logDetailed( "Reduced the lookup cache from " + sizeBefore + " to " + sizeAfter + " rows." );
     }
 
@@ -262,9 +285,13 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
             val_key = new Long( 0 ); // value to accept new key...
             break;
           case CREATION_METHOD_SEQUENCE:
-            val_key =
-              data.db.getNextSequenceValue( data.realSchemaName, meta.getSequenceFrom(), meta
-                .getTechnicalKeyField() );
+            if ( data.sequenceBlock != null ) {
+              val_key = data.sequenceBlock.getNextValue();
+            } else {
+              val_key =
+                data.db.getNextSequenceValue( data.realSchemaName, meta.getSequenceFrom(), meta
+                  .getTechnicalKeyField() );
+            }
             if ( val_key != null && isRowLevel() ) {
               logRowlevel( BaseMessages.getString( PKG, "CombinationLookup.Log.FoundNextSequenceValue" )
                 + val_key.toString() );
@@ -334,6 +361,14 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
 
       determineTechKeyCreation();
 
+      if ( getTechKeyCreation() == CREATION_METHOD_SEQUENCE && meta.getSequenceBlockSize() > 1 ) {
+        // Every value of the sequence reserves a block of keys, the sequence increments by the block size
+        //
+        data.sequenceBlock = new SequenceBlock( blockSize -> data.db.getNextSequenceValue(
+          data.realSchemaName, meta.getSequenceFrom(), meta.getTechnicalKeyField() ), meta.getSequenceBlockSize(),
+          true );
+      }
+
       // The indexes of the key values...
       //
       data.keynrs = new int[ meta.getKeyField().length ];
@@ -660,7 +695,7 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
       data.realSchemaName = environmentSubstitute( meta.getSchemaName() );
       data.realTableName = environmentSubstitute( meta.getTableName() );
 
-      data.cache = meta.getCacheSize() > 0 ? new HashMap<>( (int) ( meta.getCacheSize() * 1.5 ) ) : new HashMap<>();
+      data.cache = new ByteArrayHashIndex( meta.getCacheSize() > 0 ? (int) ( meta.getCacheSize() * 1.5 ) : 512 );
 
       data.db.setCommitSize( meta.getCommitSize() );
       return true;
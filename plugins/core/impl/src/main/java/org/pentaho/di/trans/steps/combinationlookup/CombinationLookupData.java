@@ -14,10 +14,10 @@
 package org.pentaho.di.trans.steps.combinationlookup;
 
 import java.sql.PreparedStatement;
-import java.util.Map;
 
-import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.SequenceBlock;
+import org.pentaho.di.core.hash.ByteArrayHashIndex;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseDatabaseStepData;
 import org.pentaho.di.trans.step.BaseStepData;
@@ -30,7 +30,10 @@ import org.pentaho.di.trans.step.StepDataInterface;
 public class CombinationLookupData extends BaseDatabaseStepData implements StepDataInterface {
   public int[] keynrs; // nrs in row of the keys
 
-  public Map<RowMetaAndData, Long> cache;
+  /** Technical keys (8 bytes) by serialized key fields */
+  public ByteArrayHashIndex cache;
+  public int[] cacheKeyFieldnrs;
+  public boolean sortKeyCache;
 
   public RowMetaInterface outputRowMeta;
   public RowMetaInterface lookupRowMeta;
@@ -45,6 +48,7 @@ public class CombinationLookupData extends BaseDatabaseStepData implements StepD
   public PreparedStatement prepStatementLookup;
   public PreparedStatement prepStatementInsert;
   public long smallestCacheKey;
+  public SequenceBlock sequenceBlock; // The reserved keys, null to get every key from the sequence
 
   /**
    * Default Constructor
@@ -131,6 +131,12 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
   @Injection( name = "SEQUENCE_FROM" )
   private String sequenceFrom;
 
+  /**
+   * The number of keys to reserve with one sequence value, the sequence has to increment by it
+   */
+  @Injection( name = "SEQUENCE_BLOCK_SIZE" )
+  private int sequenceBlockSize;
+
   /**
    * Commit size for insert / update
    */
@@ -208,6 +214,21 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
     return this.techKeyCreation;
   }
 
+  /**
+   * @return the number of keys to reserve with one sequence value, 1 or less to get a sequence value per key
+   */
+  public int getSequenceBlockSize() {
+    return sequenceBlockSize;
+  }
+
+  /**
+   * @param sequenceBlockSize the number of keys to reserve with one sequence value. The sequence has to increment by
+   *                          this number.
+   */
+  public void setSequenceBlockSize( int sequenceBlockSize ) {
+    this.sequenceBlockSize = sequenceBlockSize;
+  }
+
   /**
    * @return Returns the commitSize.
    */
@@ -434,6 +455,7 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
 
       // If this is empty: use auto-increment field!
       sequenceFrom = XMLHandler.getTagValue( stepnode, "sequence" );
+      sequenceBlockSize = Const.toInt( XMLHandler.getTagValue( stepnode, "sequence_block_size" ), 1 );
 
       Node fields = XMLHandler.getSubNode( stepnode, "fields" );
       Node retkey = XMLHandler.getSubNode( fields, "return" );
@@ -455,6 +477,7 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
     databaseMeta = null;
     commitSize = 100;
     cacheSize = DEFAULT_CACHE_SIZE;
+    sequenceBlockSize = 1;
     replaceFields = false;
     preloadCache = false;
     useHash = false;
@@ -525,6 +548,7 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
 
     // If sequence is empty: use auto-increment field!
     retval.append( "      " ).append( XMLHandler.addTagValue( "sequence", sequenceFrom ) );
+    retval.append( "      " ).append( XMLHandler.addTagValue( "sequence_block_size", sequenceBlockSize ) );
     retval.append( "      " ).append( XMLHandler.addTagValue( "last_update_field", lastUpdateField ) );
 
     return retval.toString();
@@ -558,6 +582,7 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
       technicalKeyField = rep.getStepAttributeString( id_step, "return_name" );
       useAutoinc = rep.getStepAttributeBoolean( id_step, "use_autoinc" );
       sequenceFrom = rep.getStepAttributeString( id_step, "sequence" );
+      sequenceBlockSize = (int) rep.getStepAttributeInteger( id_step, "sequence_block_size" );
       techKeyCreation = rep.getStepAttributeString( id_step, "creation_method" );
       lastUpdateField = rep.getStepAttributeString( id_step, "last_update_field" );
     } catch ( Exception e ) {
@@ -588,6 +613,7 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
 
       rep.saveStepAttribute( id_transformation, id_step, "return_name", technicalKeyField );
       rep.saveStepAttribute( id_transformation, id_step, "sequence", sequenceFrom );
+      rep.saveStepAttribute( id_transformation, id_step, "sequence_block_size", sequenceBlockSize );
       rep.saveStepAttribute( id_transformation, id_step, "creation_method", techKeyCreation );
 
       // For the moment still save 'use_autoinc' for backwards compatibility (Sven Boden).
@@ -972,7 +998,9 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
             String cr_seq = "";
             if ( databaseMeta.supportsSequences() && !Utils.isEmpty( sequenceFrom ) ) {
               if ( !db.checkSequenceExists( schemaName, sequenceFrom ) ) {
-                cr_seq += db.getCreateSequenceStatement( schemaName, sequenceFrom, 1L, 1L, -1L, true );
+                cr_seq +=
+                  db.getCreateSequenceStatement( schemaName, sequenceFrom, 1L, Math.max( sequenceBlockSize, 1 ), -1L,
+                    true );
                 cr_seq += Const.CR;
               }
             }
@@ -1061,6 +1089,9 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
     if ( getCacheSize() != o.getCacheSize() ) {
       return false;
     }
+    if ( getSequenceBlockSize() != o.getSequenceBlockSize() ) {
+      return false;
+    }
     if ( !getTechKeyCreation().equals( o.getTechKeyCreation() ) ) {
       return false;
     }
@@ -1116,7 +1147,8 @@ public class CombinationLookupMeta extends BaseDatabaseStepMeta implements StepM
   @Override
   public int hashCode() {
     return Objects.hash( getCommitSize(), getCacheSize(), getTechKeyCreation(), replaceFields(), useHash(),
-      getPreloadCache(), getSequenceFrom(), getSchemaName(), getTableName(), getHashField(), getTechnicalKeyField() );
+      getPreloadCache(), getSequenceFrom(), getSequenceBlockSize(), getSchemaName(), getTableName(), getHashField(),
+      getTechnicalKeyField() );
   }
 
   /**
@@ -38,7 +38,7 @@ public class AddSequenceMetaTest {
   @Test
   public void testRoundTrip() throws KettleException {
     List<String> attributes = Arrays.asList( "valuename", "useDatabase", "database", "schemaName", "sequenceName",
-      "useCounter", "counterName", "startAt", "incrementBy", "maxValue" );
+      "blockSize", "slaveServerName", "useCounter", "counterName", "startAt", "incrementBy", "maxValue" );
 
     Map<String, String> getterMap = new HashMap<String, String>();
     Map<String, String> setterMap = new HashMap<String, String>();
@@ -74,6 +74,11 @@ public class CombinationLookupMetaInjectionTest extends BaseMetadataInjectionTes
         return meta.getSequenceFrom();
       }
     } );
+    check( "SEQUENCE_BLOCK_SIZE", new IntGetter() {
+      public int get() {
+        return meta.getSequenceBlockSize();
+      }
+    } );
     check( "COMMIT_SIZE", new IntGetter() {
       public int get() {
         return meta.getCommitSize();
@@ -52,8 +52,8 @@ public class CombinationLookupMetaTest implements InitializerInterface<StepMetaI
     KettleEnvironment.init();
     List<String> attributes =
       Arrays.asList( "schemaName", "tableName", "databaseMeta", "replaceFields", "keyField", "keyLookup",
-        "useHash", "hashField", "technicalKeyField", "sequenceFrom", "commitSize", "preloadCache", "cacheSize",
-        "useAutoinc", "techKeyCreation", "lastUpdateField" );
+        "useHash", "hashField", "technicalKeyField", "sequenceFrom", "sequenceBlockSize", "commitSize", "preloadCache",
+        "cacheSize", "useAutoinc", "techKeyCreation", "lastUpdateField" );
 
     Map<String, String> getterMap = new HashMap<String, String>() {
       {
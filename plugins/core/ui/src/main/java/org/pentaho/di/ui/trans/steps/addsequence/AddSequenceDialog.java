@@ -45,6 +45,7 @@ import org.pentaho.di.trans.step.StepDialogInterface;
 import org.pentaho.di.trans.steps.addsequence.AddSequenceMeta;
 import org.pentaho.di.ui.core.dialog.EnterSelectionDialog;
 import org.pentaho.di.ui.core.dialog.ErrorDialog;
+import org.pentaho.di.ui.core.widget.ComboVar;
 import org.pentaho.di.ui.core.widget.TextVar;
 import org.pentaho.di.ui.trans.step.BaseStepDialog;
 
@@ -79,6 +80,12 @@ public class AddSequenceDialog extends BaseStepDialog implements StepDialogInter
   private Label wlSeqname;
   private TextVar wSeqname;
 
+  private Label wlBlockSize;
+  private TextVar wBlockSize;
+
+  private Label wlSlaveServer;
+  private ComboVar wSlaveServer;
+
   private Label wlUseCounter;
   private Button wUseCounter;
 
@@ -272,6 +279,45 @@ public class AddSequenceDialog extends BaseStepDialog implements StepDialogInter
     fdSeqname.right = new FormAttachment( wbSequence, -margin );
     wSeqname.setLayoutData( fdSeqname );
 
+    // Block size line
+    wlBlockSize = new Label( gDatabase, SWT.RIGHT );
+    wlBlockSize.setText( BaseMessages.getString( PKG, "AddSequenceDialog.BlockSize.Label" ) );
+    props.setLook( wlBlockSize );
+    FormData fdlBlockSize = new FormData();
+    fdlBlockSize.left = new FormAttachment( 0, 0 );
+    fdlBlockSize.right = new FormAttachment( middle, -margin );
+    fdlBlockSize.top = new FormAttachment( wSeqname, margin );
+    wlBlockSize.setLayoutData( fdlBlockSize );
+    wBlockSize = new TextVar( transMeta, gDatabase, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wBlockSize );
+    wBlockSize.setToolTipText( BaseMessages.getString( PKG, "AddSequenceDialog.BlockSize.Tooltip" ) );
+    wBlockSize.addModifyListener( lsMod );
+    FormData fdBlockSize = new FormData();
+    fdBlockSize.left = new FormAttachment( middle, 0 );
+    fdBlockSize.top = new FormAttachment( wSeqname, margin );
+    fdBlockSize.right = new FormAttachment( 100, 0 );
+    wBlockSize.setLayoutData( fdBlockSize );
+
+    // Slave server line
+    wlSlaveServer = new Label( gDatabase, SWT.RIGHT );
+    wlSlaveServer.setText( BaseMessages.getString( PKG, "AddSequenceDialog.SlaveServer.Label" ) );
+    props.setLook( wlSlaveServer );
+    FormData fdlSlaveServer = new FormData();
+    fdlSlaveServer.left = new FormAttachment( 0, 0 );
+    fdlSlaveServer.right = new FormAttachment( middle, -margin );
+    fdlSlaveServer.top = new FormAttachment( wBlockSize, margin );
+    wlSlaveServer.setLayoutData( fdlSlaveServer );
+    wSlaveServer = new ComboVar( transMeta, gDatabase, SWT.LEFT | SWT.SINGLE | SWT.BORDER );
+    wSlaveServer.setItems( transMeta.getSlaveServerNames() );
+    props.setLook( wSlaveServer );
+    wSlaveServer.setToolTipText( BaseMessages.getString( PKG, "AddSequenceDialog.SlaveServer.Tooltip" ) );
+    wSlaveServer.addModifyListener( lsMod );
+    FormData fdSlaveServer = new FormData();
+    fdSlaveServer.left = new FormAttachment( middle, 0 );
+    fdSlaveServer.top = new FormAttachment( wBlockSize, margin );
+    fdSlaveServer.right = new FormAttachment( 100, 0 );
+    wSlaveServer.setLayoutData( fdSlaveServer );
+
     gCounter = new Group( shell, SWT.NONE );
     gCounter.setText( BaseMessages.getString( PKG, "AddSequenceDialog.UseCounterGroup.Label" ) );
     FormLayout counterLayout = new FormLayout();
@@ -467,6 +513,10 @@ public class AddSequenceDialog extends BaseStepDialog implements StepDialogInter
     wSchema.setEnabled( useDatabase );
     wlSeqname.setEnabled( useDatabase );
     wSeqname.setEnabled( useDatabase );
+    wlBlockSize.setEnabled( useDatabase );
+    wBlockSize.setEnabled( useDatabase );
+    wlSlaveServer.setEnabled( useDatabase );
+    wSlaveServer.setEnabled( useDatabase );
 
     wlCounterName.setEnabled( useCounter );
     wCounterName.setEnabled( useCounter );
@@ -501,6 +551,8 @@ public class AddSequenceDialog extends BaseStepDialog implements StepDialogInter
     if ( input.getSequenceName() != null ) {
       wSeqname.setText( input.getSequenceName() );
     }
+    wBlockSize.setText( Const.NVL( input.getBlockSize(), "1" ) );
+    wSlaveServer.setText( Const.NVL( input.getSlaveServerName(), "" ) );
 
     wUseCounter.setSelection( input.isCounterUsed() );
     wCounterName.setText( Const.NVL( input.getCounterName(), "" ) );
@@ -534,6 +586,8 @@ public class AddSequenceDialog extends BaseStepDialog implements StepDialogInter
     input.setDatabase( transMeta.findDatabase( connection ) );
     input.setSchemaName( wSchema.getText() );
     input.setSequenceName( wSeqname.getText() );
+    input.setBlockSize( wBlockSize.getText() );
+    input.setSlaveServerName( wSlaveServer.getText() );
     input.setValuename( wValuename.getText() );
 
     input.setCounterName( wCounterName.getText() );
@@ -541,7 +595,8 @@ public class AddSequenceDialog extends BaseStepDialog implements StepDialogInter
     input.setIncrementBy( wIncrBy.getText() );
     input.setMaxValue( wMaxVal.getText() );
 
-    if ( input.isDatabaseUsed() && transMeta.findDatabase( connection ) == null ) {
+    if ( input.isDatabaseUsed() && Utils.isEmpty( input.getSlaveServerName() )
+      && transMeta.findDatabase( connection ) == null ) {
       MessageBox mb = new MessageBox( shell, SWT.OK | SWT.ICON_ERROR );
       mb.setMessage( BaseMessages.getString( PKG, "AddSequenceDialog.NoValidConnectionError.DialogMessage" ) );
       mb.setText( BaseMessages.getString( PKG, "AddSequenceDialog.NoValidConnectionError.DialogTitle" ) );
@@ -111,6 +111,9 @@ public class CombinationLookupDialog extends BaseStepDialog implements StepDialo
   private Button wSeqButton;
   private Text wSeq;
 
+  private Label wlSeqBlockSize;
+  private Text wSeqBlockSize;
+
   private Label wlReplace;
   private Button wReplace;
 
@@ -511,6 +514,19 @@ public class CombinationLookupDialog extends BaseStepDialog implements StepDialo
       }
     } );
 
+    // The number of keys to reserve with one sequence value
+    new Label( gTechGroup, SWT.NONE );
+    wlSeqBlockSize = new Label( gTechGroup, SWT.LEFT );
+    wlSeqBlockSize.setText( BaseMessages.getString( PKG, "CombinationLookupDialog.SequenceBlockSize.Label" ) );
+    props.setLook( wlSeqBlockSize );
+    wlSeqBlockSize.setLayoutData( new GridData() );
+    wSeqBlockSize = new Text( gTechGroup, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wSeqBlockSize );
+    wSeqBlockSize.setToolTipText( BaseMessages.getString(
+      PKG, "CombinationLookupDialog.SequenceBlockSize.Tooltip", Const.CR ) );
+    wSeqBlockSize.addModifyListener( lsMod );
+    wSeqBlockSize.setLayoutData( new GridData( GridData.FILL_HORIZONTAL ) );
+
     // Use an autoincrement field?
     wAutoinc = new Button( gTechGroup, SWT.RADIO );
     props.setLook( wAutoinc );
@@ -752,6 +768,8 @@ public class CombinationLookupDialog extends BaseStepDialog implements StepDialo
   public void setSequence() {
     boolean seq = ( ci == null ) || ci.supportsSequences();
     wSeq.setEnabled( seq );
+    wlSeqBlockSize.setEnabled( seq );
+    wSeqBlockSize.setEnabled( seq );
     wlSeqButton.setEnabled( seq );
     wSeqButton.setEnabled( seq );
     if ( !seq && wSeqButton.getSelection() ) {
@@ -846,6 +864,7 @@ public class CombinationLookupDialog extends BaseStepDialog implements StepDialo
     }
 
     wCommit.setText( "" + input.getCommitSize() );
+    wSeqBlockSize.setText( "" + Math.max( input.getSequenceBlockSize(), 1 ) );
     wCachesize.setText( "" + input.getCacheSize() );
 
     wLastUpdateField.setText( Const.NVL( input.getLastUpdateField(), "" ) );
@@ -923,6 +942,7 @@ public class CombinationLookupDialog extends BaseStepDialog implements StepDialo
     in.setDatabaseMeta( transMeta.findDatabase( wConnection.getText() ) );
 
     in.setCommitSize( Const.toInt( wCommit.getText(), 0 ) );
+    in.setSequenceBlockSize( Const.toInt( wSeqBlockSize.getText(), 1 ) );
     in.setCacheSize( Const.toInt( wCachesize.getText(), 0 ) );
 
     in.setLastUpdateField( wLastUpdateField.getText() );
@@ -187,6 +187,8 @@ public class TransDialog extends Dialog {
 
   private Button wManageThreads;
 
+  private Button wLockFreeRowSets;
+
   private boolean directoryChangeAllowed;
 
   private Label wlDirectory;
@@ -1940,6 +1942,25 @@ public class TransDialog extends Dialog {
     fdManageThreads.right = new FormAttachment( 100, 0 );
     wManageThreads.setLayoutData( fdManageThreads );
 
+    Label wlLockFreeRowSets = new Label( wMiscComp, SWT.RIGHT );
+    wlLockFreeRowSets.setText( BaseMessages.getString( PKG, "TransDialog.LockFreeRowSets.Label" ) );
+    wlLockFreeRowSets.setToolTipText( BaseMessages.getString( PKG, "TransDialog.LockFreeRowSets.Tooltip" ) );
+    props.setLook( wlLockFreeRowSets );
+    FormData fdlLockFreeRowSets = new FormData();
+    fdlLockFreeRowSets.left = new FormAttachment( 0, 0 );
+    fdlLockFreeRowSets.top = new FormAttachment( wManageThreads, margin );
+    fdlLockFreeRowSets.right = new FormAttachment( middle, -margin );
+    wlLockFreeRowSets.setLayoutData( fdlLockFreeRowSets );
+    wLockFreeRowSets = new Button( wMiscComp, SWT.CHECK );
+    wLockFreeRowSets.setToolTipText( BaseMessages.getString( PKG, "TransDialog.LockFreeRowSets.Tooltip" ) );
+    wLockFreeRowSets.addSelectionListener( lsModSel );
+    props.setLook( wLockFreeRowSets );
+    FormData fdLockFreeRowSets = new FormData();
+    fdLockFreeRowSets.left = new FormAttachment( middle, 0 );
+    fdLockFreeRowSets.top = new FormAttachment( wManageThreads, margin );
+    fdLockFreeRowSets.right = new FormAttachment( 100, 0 );
+    wLockFreeRowSets.setLayoutData( fdLockFreeRowSets );
+
     // Single threaded option ...
     Label wlTransformationType = new Label( wMiscComp, SWT.RIGHT );
     wlTransformationType.setText( BaseMessages.getString( PKG, "TransDialog.TransformationType.Label" ) );
@@ -1949,7 +1970,7 @@ public class TransDialog extends Dialog {
     FormData fdlTransformationType = new FormData();
     fdlTransformationType.left = new FormAttachment( 0, 0 );
     fdlTransformationType.right = new FormAttachment( middle, -margin );
-    fdlTransformationType.top = new FormAttachment( wManageThreads, margin );
+    fdlTransformationType.top = new FormAttachment( wLockFreeRowSets, margin );
     wlTransformationType.setLayoutData( fdlTransformationType );
     wTransformationType = new CCombo( wMiscComp, SWT.NORMAL );
     wTransformationType.setToolTipText( BaseMessages.getString(
@@ -1958,7 +1979,7 @@ public class TransDialog extends Dialog {
     props.setLook( wTransformationType );
     FormData fdTransformationType = new FormData();
     fdTransformationType.left = new FormAttachment( middle, 0 );
-    fdTransformationType.top = new FormAttachment( wManageThreads, margin );
+    fdTransformationType.top = new FormAttachment( wLockFreeRowSets, margin );
     fdTransformationType.right = new FormAttachment( 100, 0 );
     wTransformationType.setLayoutData( fdTransformationType );
     wTransformationType.setItems( TransformationType.getTransformationTypesDescriptions() );
@@ -2166,6 +2187,7 @@ public class TransDialog extends Dialog {
     wFeedbackSize.setText( Integer.toString( transMeta.getFeedbackSize() ) );
     wSharedObjectsFile.setText( Const.NVL( transMeta.getSharedObjectsFile(), "" ) );
     wManageThreads.setSelection( transMeta.isUsingThreadPriorityManagment() );
+    wLockFreeRowSets.setSelection( transMeta.isUsingLockFreeRowSets() );
     wTransformationType.setText( transMeta.getTransformationType().getDescription() );
 
     wFields.setRowNums();
@@ -2304,6 +2326,7 @@ public class TransDialog extends Dialog {
     transMeta.setFeedbackSize( Const.toInt( wFeedbackSize.getText(), Const.ROWS_UPDATE ) );
     transMeta.setSharedObjectsFile( wSharedObjectsFile.getText() );
     transMeta.setUsingThreadPriorityManagment( wManageThreads.getSelection() );
+    transMeta.setUsingLockFreeRowSets( wLockFreeRowSets.getSelection() );
     transMeta.setTransformationType( TransformationType.values()[Const.indexOfString( wTransformationType
       .getText(), TransformationType.getTransformationTypesDescriptions() )] );
 
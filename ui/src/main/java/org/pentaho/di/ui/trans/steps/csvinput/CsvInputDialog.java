@@ -122,6 +122,7 @@ public class CsvInputDialog extends BaseStepDialog implements StepDialogInterfac
   private boolean isReceivingInput;
   private Button wRunningInParallel;
   private Button wNewlinePossible;
+  private Button wMemoryMapped;
   private ComboVar wEncoding;
   private CCombo wFormat;
 
@@ -483,6 +484,25 @@ public class CsvInputDialog extends BaseStepDialog implements StepDialogInterfac
     } );
     lastControl = wNewlinePossible;
 
+    // Read the files through memory mapped windows?
+    //
+    Label wlMemoryMapped = new Label( shell, SWT.RIGHT );
+    wlMemoryMapped.setText( BaseMessages.getString( PKG, inputMeta.getDescription( "MEMORY_MAPPED" ) ) );
+    props.setLook( wlMemoryMapped );
+    FormData fdlMemoryMapped = new FormData();
+    fdlMemoryMapped.top = new FormAttachment( lastControl, margin );
+    fdlMemoryMapped.left = new FormAttachment( 0, 0 );
+    fdlMemoryMapped.right = new FormAttachment( middle, -margin );
+    wlMemoryMapped.setLayoutData( fdlMemoryMapped );
+    wMemoryMapped = new Button( shell, SWT.CHECK );
+    wMemoryMapped.setToolTipText( BaseMessages.getString( PKG, inputMeta.getTooltip( "MEMORY_MAPPED" ) ) );
+    props.setLook( wMemoryMapped );
+    FormData fdMemoryMapped = new FormData();
+    fdMemoryMapped.top = new FormAttachment( lastControl, margin );
+    fdMemoryMapped.left = new FormAttachment( middle, 0 );
+    wMemoryMapped.setLayoutData( fdMemoryMapped );
+    lastControl = wMemoryMapped;
+
     // Format
     Label wlFormat = new Label( shell, SWT.RIGHT );
     wlFormat.setText( BaseMessages.getString( PKG, inputMeta.getDescription( "FORMAT" ) ) );
@@ -781,6 +801,7 @@ public class CsvInputDialog extends BaseStepDialog implements StepDialogInterfac
     wHeaderPresent.setSelection( inputMeta.isHeaderPresent() );
     wRunningInParallel.setSelection( inputMeta.isRunningInParallel() );
     wNewlinePossible.setSelection( inputMeta.isNewlinePossibleInFields() );
+    wMemoryMapped.setSelection( inputMeta.isMemoryMapped() );
     wRowNumField.setText( Const.NVL( inputMeta.getRowNumField(), "" ) );
     wAddResult.setSelection( inputMeta.isAddResultFile() );
     wFormat.setText( Const.NVL( inputMeta.getFileFormat(), "" ) );
@@ -840,6 +861,7 @@ public class CsvInputDialog extends BaseStepDialog implements StepDialogInterfac
     inputMeta.setAddResultFile( wAddResult.getSelection() );
     inputMeta.setRunningInParallel( wRunningInParallel.getSelection() );
     inputMeta.setNewlinePossibleInFields( wNewlinePossible.getSelection() );
+    inputMeta.setMemoryMapped( wMemoryMapped.getSelection() );
     inputMeta.setFileFormat( wFormat.getText() );
     inputMeta.setEncoding( wEncoding.getText() );
 
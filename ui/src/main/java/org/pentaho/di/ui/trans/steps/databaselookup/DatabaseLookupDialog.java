@@ -74,10 +74,18 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
   private Button wCacheLoadAll;
   private FormData fdlCacheLoadAll, fdCacheLoadAll;
 
+  private Label wlSharedCache;
+  private Button wSharedCache;
+  private FormData fdlSharedCache, fdSharedCache;
+
   private Label wlCachesize;
   private Text wCachesize;
   private FormData fdlCachesize, fdCachesize;
 
+  private Label wlBatchsize;
+  private Text wBatchsize;
+  private FormData fdlBatchsize, fdBatchsize;
+
   private Label wlKey;
   private TableView wKey;
   private FormData fdlKey, fdKey;
@@ -324,12 +332,55 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
       }
     } );
 
+    // Share the cache between the step copies
+    wlSharedCache = new Label( shell, SWT.RIGHT );
+    wlSharedCache.setText( BaseMessages.getString( PKG, "DatabaseLookupDialog.SharedCache.Label" ) );
+    wlSharedCache.setToolTipText( BaseMessages.getString( PKG, "DatabaseLookupDialog.SharedCache.Tooltip" ) );
+    props.setLook( wlSharedCache );
+    fdlSharedCache = new FormData();
+    fdlSharedCache.left = new FormAttachment( 0, 0 );
+    fdlSharedCache.right = new FormAttachment( middle, -margin );
+    fdlSharedCache.top = new FormAttachment( wCacheLoadAll, margin );
+    wlSharedCache.setLayoutData( fdlSharedCache );
+    wSharedCache = new Button( shell, SWT.CHECK );
+    props.setLook( wSharedCache );
+    wSharedCache.setToolTipText( BaseMessages.getString( PKG, "DatabaseLookupDialog.SharedCache.Tooltip" ) );
+    fdSharedCache = new FormData();
+    fdSharedCache.left = new FormAttachment( middle, 0 );
+    fdSharedCache.top = new FormAttachment( wCacheLoadAll, margin );
+    wSharedCache.setLayoutData( fdSharedCache );
+    wSharedCache.addSelectionListener( new SelectionAdapter() {
+      public void widgetSelected( SelectionEvent e ) {
+        input.setChanged();
+      }
+    } );
+
+    // Batch size
+    wlBatchsize = new Label( shell, SWT.RIGHT );
+    wlBatchsize.setText( BaseMessages.getString( PKG, "DatabaseLookupDialog.Batchsize.Label" ) );
+    wlBatchsize.setToolTipText( BaseMessages.getString( PKG, "DatabaseLookupDialog.Batchsize.Tooltip" ) );
+    props.setLook( wlBatchsize );
+    fdlBatchsize = new FormData();
+    fdlBatchsize.left = new FormAttachment( 0, 0 );
+    fdlBatchsize.right = new FormAttachment( middle, -margin );
+    fdlBatchsize.top = new FormAttachment( wSharedCache, margin );
+    wlBatchsize.setLayoutData( fdlBatchsize );
+    wBatchsize = new Text( shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wBatchsize );
+    wBatchsize.setToolTipText( BaseMessages.getString( PKG, "DatabaseLookupDialog.Batchsize.Tooltip" ) );
+    wBatchsize.addModifyListener( lsMod );
+    fdBatchsize = new FormData();
+    fdBatchsize.left = new FormAttachment( middle, 0 );
+    fdBatchsize.right = new FormAttachment( 100, 0 );
+    fdBatchsize.top = new FormAttachment( wSharedCache, margin );
+    wBatchsize.setLayoutData( fdBatchsize );
+
     wlKey = new Label( shell, SWT.NONE );
     wlKey.setText( BaseMessages.getString( PKG, "DatabaseLookupDialog.Keys.Label" ) );
     props.setLook( wlKey );
     fdlKey = new FormData();
     fdlKey.left = new FormAttachment( 0, 0 );
-    fdlKey.top = new FormAttachment( wCacheLoadAll, margin );
+    fdlKey.top = new FormAttachment( wBatchsize, margin );
     wlKey.setLayoutData( fdlKey );
 
     int nrKeyCols = 4;
@@ -521,6 +572,7 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
     wTable.addSelectionListener( lsDef );
     wOrderBy.addSelectionListener( lsDef );
     wCachesize.addSelectionListener( lsDef );
+    wBatchsize.addSelectionListener( lsDef );
 
     // Detect X or ALT-F4 or something that kills this window...
     shell.addShellListener( new ShellAdapter() {
@@ -634,8 +686,12 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
     wlCachesize.setEnabled( wCache.getSelection() && !wCacheLoadAll.getSelection() );
     wCacheLoadAll.setEnabled( wCache.getSelection() );
     wlCacheLoadAll.setEnabled( wCache.getSelection() );
+    wSharedCache.setEnabled( wCache.getSelection() );
+    wlSharedCache.setEnabled( wCache.getSelection() );
     wFailMultiple.setEnabled( !wCache.getSelection() );
     wlFailMultiple.setEnabled( !wCache.getSelection() );
+    wBatchsize.setEnabled( !( wCache.getSelection() && wCacheLoadAll.getSelection() ) );
+    wlBatchsize.setEnabled( !( wCache.getSelection() && wCacheLoadAll.getSelection() ) );
   }
 
   /**
@@ -647,6 +703,8 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
     wCache.setSelection( input.isCached() );
     wCachesize.setText( "" + input.getCacheSize() );
     wCacheLoadAll.setSelection( input.isLoadingAllDataInCache() );
+    wSharedCache.setSelection( input.isSharedCache() );
+    wBatchsize.setText( "" + input.getBatchSize() );
 
     if ( input.getStreamKeyField1() != null ) {
       for ( int i = 0; i < input.getStreamKeyField1().length; i++ ) {
@@ -730,7 +788,9 @@ public class DatabaseLookupDialog extends BaseStepDialog implements StepDialogIn
 
     input.setCached( wCache.getSelection() );
     input.setCacheSize( Const.toInt( wCachesize.getText(), 0 ) );
+    input.setBatchSize( Const.toInt( wBatchsize.getText(), 0 ) );
     input.setLoadingAllDataInCache( wCacheLoadAll.getSelection() );
+    input.setSharedCache( wSharedCache.getSelection() );
 
     logDebug( BaseMessages.getString( PKG, "DatabaseLookupDialog.Log.FoundKeys", String.valueOf( nrkeys ) ) );
     //CHECKSTYLE:Indentation:OFF
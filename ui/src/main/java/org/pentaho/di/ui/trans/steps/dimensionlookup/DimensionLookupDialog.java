@@ -118,6 +118,9 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
   private Label wlPreloadCache;
   private Button wPreloadCache;
 
+  private Label wlBulkUpdate;
+  private Button wBulkUpdate;
+
   private Label wlCacheSize;
   private Text wCacheSize;
 
@@ -139,6 +142,9 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
   private Button wSeqButton;
   private Text wSeq;
 
+  private Label wlSeqBlockSize;
+  private Text wSeqBlockSize;
+
   private Label wlVersion;
   private CCombo wVersion;
 
@@ -455,6 +461,29 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
     fdPreloadCache.right = new FormAttachment( 100, 0 );
     wPreloadCache.setLayoutData( fdPreloadCache );
 
+    // Bulk update?
+    wlBulkUpdate = new Label( comp, SWT.RIGHT );
+    wlBulkUpdate.setText( BaseMessages.getString( PKG, "DimensionLookupDialog.BulkUpdate.Label" ) );
+    props.setLook( wlBulkUpdate );
+    FormData fdlBulkUpdate = new FormData();
+    fdlBulkUpdate.left = new FormAttachment( 0, 0 );
+    fdlBulkUpdate.right = new FormAttachment( middle, -margin );
+    fdlBulkUpdate.top = new FormAttachment( wPreloadCache, margin );
+    wlBulkUpdate.setLayoutData( fdlBulkUpdate );
+    wBulkUpdate = new Button( comp, SWT.CHECK );
+    props.setLook( wBulkUpdate );
+    wBulkUpdate.setToolTipText( BaseMessages.getString( PKG, "DimensionLookupDialog.BulkUpdate.Tooltip" ) );
+    wBulkUpdate.addSelectionListener( new SelectionAdapter() {
+      public void widgetSelected( SelectionEvent arg0 ) {
+        input.setChanged();
+      }
+    } );
+    FormData fdBulkUpdate = new FormData();
+    fdBulkUpdate.left = new FormAttachment( middle, 0 );
+    fdBulkUpdate.top = new FormAttachment( wPreloadCache, margin );
+    fdBulkUpdate.right = new FormAttachment( 100, 0 );
+    wBulkUpdate.setLayoutData( fdBulkUpdate );
+
     // Cache size ...
     wlCacheSize = new Label( comp, SWT.RIGHT );
     wlCacheSize.setText( BaseMessages.getString( PKG, "DimensionLookupDialog.CacheSize.Label" ) );
@@ -462,14 +491,14 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
     FormData fdlCacheSize = new FormData();
     fdlCacheSize.left = new FormAttachment( 0, 0 );
     fdlCacheSize.right = new FormAttachment( middle, -margin );
-    fdlCacheSize.top = new FormAttachment( wPreloadCache, margin );
+    fdlCacheSize.top = new FormAttachment( wBulkUpdate, margin );
     wlCacheSize.setLayoutData( fdlCacheSize );
     wCacheSize = new Text( comp, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
     props.setLook( wCacheSize );
     wCacheSize.addModifyListener( lsMod );
     FormData fdCacheSize = new FormData();
     fdCacheSize.left = new FormAttachment( middle, 0 );
-    fdCacheSize.top = new FormAttachment( wPreloadCache, margin );
+    fdCacheSize.top = new FormAttachment( wBulkUpdate, margin );
     fdCacheSize.right = new FormAttachment( 100, 0 );
     wCacheSize.setLayoutData( fdCacheSize );
 
@@ -742,6 +771,19 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
       }
     } );
 
+    // The number of technical keys to reserve with one sequence value
+    new Label( gTechGroup, SWT.NONE );
+    wlSeqBlockSize = new Label( gTechGroup, SWT.LEFT );
+    wlSeqBlockSize.setText( BaseMessages.getString( PKG, "DimensionLookupDialog.SequenceBlockSize.Label" ) );
+    props.setLook( wlSeqBlockSize );
+    wlSeqBlockSize.setLayoutData( new GridData() );
+    wSeqBlockSize = new Text( gTechGroup, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wSeqBlockSize );
+    wSeqBlockSize.setToolTipText( BaseMessages.getString(
+      PKG, "DimensionLookupDialog.SequenceBlockSize.Tooltip", Const.CR ) );
+    wSeqBlockSize.addModifyListener( lsMod );
+    wSeqBlockSize.setLayoutData( new GridData( GridData.FILL_HORIZONTAL ) );
+
     // Use an autoincrement field?
     wAutoinc = new Button( gTechGroup, SWT.RADIO );
     props.setLook( wAutoinc );
@@ -1195,6 +1237,9 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
     wlCacheSize.setEnabled( wUseCache.getSelection() && !wPreloadCache.getSelection() );
     wCacheSize.setEnabled( wUseCache.getSelection() && !wPreloadCache.getSelection() );
 
+    wlBulkUpdate.setEnabled( wUpdate.getSelection() );
+    wBulkUpdate.setEnabled( wUpdate.getSelection() );
+
   }
 
   protected void setComboBoxes() {
@@ -1234,6 +1279,8 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
   public void setSequence() {
     boolean seq = ( ci == null ) || ci.supportsSequences();
     wSeq.setEnabled( seq );
+    wlSeqBlockSize.setEnabled( seq );
+    wSeqBlockSize.setEnabled( seq );
     wlSeqButton.setEnabled( seq );
     wSeqButton.setEnabled( seq );
     if ( !seq && wSeqButton.getSelection() ) {
@@ -1359,9 +1406,11 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
     }
 
     wCommit.setText( "" + input.getCommitSize() );
+    wSeqBlockSize.setText( "" + Math.max( input.getSequenceBlockSize(), 1 ) );
 
     wUseCache.setSelection( input.getCacheSize() >= 0 );
     wPreloadCache.setSelection( input.isPreloadingCache() );
+    wBulkUpdate.setSelection( input.isBulkUpdate() );
     if ( input.getCacheSize() >= 0 ) {
       wCacheSize.setText( "" + input.getCacheSize() );
     }
@@ -1479,6 +1528,7 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
     in.setDateTo( wTodate.getText() );
 
     in.setCommitSize( Const.toInt( wCommit.getText(), 0 ) );
+    in.setSequenceBlockSize( Const.toInt( wSeqBlockSize.getText(), 1 ) );
 
     if ( wUseCache.getSelection() ) {
       in.setCacheSize( Const.toInt( wCacheSize.getText(), -1 ) );
@@ -1486,6 +1536,7 @@ public class DimensionLookupDialog extends BaseStepDialog implements StepDialogI
       in.setCacheSize( -1 );
     }
     in.setPreloadingCache( wPreloadCache.getSelection() );
+    in.setBulkUpdate( wBulkUpdate.getSelection() );
     if ( wPreloadCache.getSelection() ) {
       in.setCacheSize( 0 );
     }
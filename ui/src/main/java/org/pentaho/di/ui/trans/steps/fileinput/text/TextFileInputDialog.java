@@ -295,6 +295,10 @@ public class TextFileInputDialog extends BaseStepDialog implements StepDialogInt
   private CCombo wDateLocale;
   private FormData fdlDateLocale, fdDateLocale;
 
+  private Label wlRunningInParallel;
+  private Button wRunningInParallel;
+  private FormData fdlRunningInParallel, fdRunningInParallel;
+
   // ERROR HANDLING...
   private Label wlErrorIgnored;
   private Button wErrorIgnored;
@@ -1513,6 +1517,24 @@ public class TextFileInputDialog extends BaseStepDialog implements StepDialogInt
       }
     } );
 
+    // Running in parallel checkbox
+    wlRunningInParallel = new Label( wContentComp, SWT.RIGHT );
+    wlRunningInParallel.setText( BaseMessages.getString( PKG, "TextFileInputDialog.RunningInParallel.Label" ) );
+    props.setLook( wlRunningInParallel );
+    fdlRunningInParallel = new FormData();
+    fdlRunningInParallel.left = new FormAttachment( 0, 0 );
+    fdlRunningInParallel.top = new FormAttachment( wDateLocale, margin );
+    fdlRunningInParallel.right = new FormAttachment( middle, -margin );
+    wlRunningInParallel.setLayoutData( fdlRunningInParallel );
+    wRunningInParallel = new Button( wContentComp, SWT.CHECK );
+    wRunningInParallel.setToolTipText(
+      BaseMessages.getString( PKG, "TextFileInputDialog.RunningInParallel.Tooltip" ) );
+    props.setLook( wRunningInParallel );
+    fdRunningInParallel = new FormData();
+    fdRunningInParallel.left = new FormAttachment( middle, 0 );
+    fdRunningInParallel.top = new FormAttachment( wDateLocale, margin );
+    wRunningInParallel.setLayoutData( fdRunningInParallel );
+
     // ///////////////////////////////
     // START OF AddFileResult GROUP //
     // ///////////////////////////////
@@ -1544,7 +1566,7 @@ public class TextFileInputDialog extends BaseStepDialog implements StepDialogInt
 
     fdAddFileResult = new FormData();
     fdAddFileResult.left = new FormAttachment( 0, margin );
-    fdAddFileResult.top = new FormAttachment( wDateLocale, margin );
+    fdAddFileResult.top = new FormAttachment( wRunningInParallel, margin );
     fdAddFileResult.right = new FormAttachment( 100, -margin );
     wAddFileResult.setLayoutData( fdAddFileResult );
 
@@ -2210,6 +2232,7 @@ public class TextFileInputDialog extends BaseStepDialog implements StepDialogInt
     wInclRownum.setSelection( meta.content.includeRowNumber );
     wRownumByFile.setSelection( meta.content.rowNumberByFile );
     wDateLenient.setSelection( meta.content.dateFormatLenient );
+    wRunningInParallel.setSelection( meta.content.runningInParallel );
     wAddResult.setSelection( meta.inputFiles.isaddresult );
 
     if ( meta.content.filenameField != null ) {
@@ -2493,6 +2516,7 @@ public class TextFileInputDialog extends BaseStepDialog implements StepDialogInt
     meta.content.nrLinesDocHeader = Const.toInt( wNrLinesDocHeader.getText(), 0 );
     meta.content.fileCompression = wCompression.getText();
     meta.content.dateFormatLenient = wDateLenient.getSelection();
+    meta.content.runningInParallel = wRunningInParallel.getSelection();
     meta.content.noEmptyLines = wNoempty.getSelection();
     meta.content.encoding = wEncoding.getText();
     meta.content.length = wLength.getText();
@@ -100,6 +100,7 @@ public class FixedInputDialog extends BaseStepDialog implements StepDialogInterf
   private TableView wFields;
 
   private Button wRunningInParallel;
+  private Button wMemoryMapped;
 
   private Label wlFileType;
 
@@ -337,6 +338,25 @@ public class FixedInputDialog extends BaseStepDialog implements StepDialogInterf
       }
     } );
 
+    // Read the file through memory mapped windows?
+    //
+    Label wlMemoryMapped = new Label( shell, SWT.RIGHT );
+    wlMemoryMapped.setText( BaseMessages.getString( PKG, "FixedInputDialog.MemoryMapped.Label" ) );
+    props.setLook( wlMemoryMapped );
+    FormData fdlMemoryMapped = new FormData();
+    fdlMemoryMapped.top = new FormAttachment( lastControl, margin );
+    fdlMemoryMapped.left = new FormAttachment( 0, 0 );
+    fdlMemoryMapped.right = new FormAttachment( middle, -margin );
+    wlMemoryMapped.setLayoutData( fdlMemoryMapped );
+    wMemoryMapped = new Button( shell, SWT.CHECK );
+    wMemoryMapped.setToolTipText( BaseMessages.getString( PKG, "FixedInputDialog.MemoryMapped.ToolTip" ) );
+    props.setLook( wMemoryMapped );
+    FormData fdMemoryMapped = new FormData();
+    fdMemoryMapped.top = new FormAttachment( lastControl, margin );
+    fdMemoryMapped.left = new FormAttachment( middle, 0 );
+    wMemoryMapped.setLayoutData( fdMemoryMapped );
+    lastControl = wMemoryMapped;
+
     Label wlEncoding = new Label( shell, SWT.RIGHT );
     wlEncoding.setText( BaseMessages.getString( PKG, "FixedInputDialog.Encoding.Label" ) );
     props.setLook( wlEncoding );
@@ -570,6 +590,7 @@ public class FixedInputDialog extends BaseStepDialog implements StepDialogInterf
     wLazyConversion.setSelection( inputMeta.isLazyConversionActive() );
     wHeaderPresent.setSelection( inputMeta.isHeaderPresent() );
     wRunningInParallel.setSelection( inputMeta.isRunningInParallel() );
+    wMemoryMapped.setSelection( inputMeta.isMemoryMapped() );
     wFileType.setText( inputMeta.getFileTypeDesc() );
     wEncoding.setText( Const.NVL( inputMeta.getEncoding(), "" ) );
     wAddResult.setSelection( inputMeta.isAddResultFile() );
@@ -627,6 +648,7 @@ public class FixedInputDialog extends BaseStepDialog implements StepDialogInterf
     fixedInputMeta.setHeaderPresent( wHeaderPresent.getSelection() );
     fixedInputMeta.setLineFeedPresent( wLineFeedPresent.getSelection() );
     fixedInputMeta.setRunningInParallel( wRunningInParallel.getSelection() );
+    fixedInputMeta.setMemoryMapped( wMemoryMapped.getSelection() );
     fixedInputMeta.setFileType( FixedInputMeta.getFileType( wFileType.getText() ) );
     fixedInputMeta.setEncoding( wEncoding.getText() );
     fixedInputMeta.setAddResultFile( wAddResult.getSelection() );
@@ -102,6 +102,14 @@ public class InsertUpdateDialog extends BaseStepDialog implements StepDialogInte
   private Button wUpdateBypassed;
   private FormData fdlUpdateBypassed, fdUpdateBypassed;
 
+  private Label wlBulkSize;
+  private Text wBulkSize;
+  private FormData fdlBulkSize, fdBulkSize;
+
+  private Label wlNativeUpsert;
+  private Button wNativeUpsert;
+  private FormData fdlNativeUpsert, fdNativeUpsert;
+
   private Button wGetLU;
   private FormData fdGetLU;
   private Listener lsGetLU;
@@ -282,12 +290,52 @@ public class InsertUpdateDialog extends BaseStepDialog implements StepDialogInte
     wUpdateBypassed.setLayoutData( fdUpdateBypassed );
     wUpdateBypassed.addSelectionListener( new ComponentSelectionListener( input ) );
 
+    // Bulk size line
+    wlBulkSize = new Label( shell, SWT.RIGHT );
+    wlBulkSize.setText( BaseMessages.getString( PKG, "InsertUpdateDialog.BulkSize.Label" ) );
+    wlBulkSize.setToolTipText( BaseMessages.getString( PKG, "InsertUpdateDialog.BulkSize.Tooltip" ) );
+    props.setLook( wlBulkSize );
+    fdlBulkSize = new FormData();
+    fdlBulkSize.left = new FormAttachment( 0, 0 );
+    fdlBulkSize.top = new FormAttachment( wUpdateBypassed, margin );
+    fdlBulkSize.right = new FormAttachment( middle, -margin );
+    wlBulkSize.setLayoutData( fdlBulkSize );
+    wBulkSize = new Text( shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wBulkSize );
+    wBulkSize.setToolTipText( BaseMessages.getString( PKG, "InsertUpdateDialog.BulkSize.Tooltip" ) );
+    wBulkSize.addModifyListener( lsMod );
+    fdBulkSize = new FormData();
+    fdBulkSize.left = new FormAttachment( middle, 0 );
+    fdBulkSize.top = new FormAttachment( wUpdateBypassed, margin );
+    fdBulkSize.right = new FormAttachment( 100, 0 );
+    wBulkSize.setLayoutData( fdBulkSize );
+
+    // NativeUpsert line
+    wlNativeUpsert = new Label( shell, SWT.RIGHT );
+    wlNativeUpsert.setText( BaseMessages.getString( PKG, "InsertUpdateDialog.NativeUpsert.Label" ) );
+    wlNativeUpsert.setToolTipText( BaseMessages.getString( PKG, "InsertUpdateDialog.NativeUpsert.Tooltip" ) );
+    props.setLook( wlNativeUpsert );
+    fdlNativeUpsert = new FormData();
+    fdlNativeUpsert.left = new FormAttachment( 0, 0 );
+    fdlNativeUpsert.top = new FormAttachment( wBulkSize, margin );
+    fdlNativeUpsert.right = new FormAttachment( middle, -margin );
+    wlNativeUpsert.setLayoutData( fdlNativeUpsert );
+    wNativeUpsert = new Button( shell, SWT.CHECK );
+    props.setLook( wNativeUpsert );
+    wNativeUpsert.setToolTipText( BaseMessages.getString( PKG, "InsertUpdateDialog.NativeUpsert.Tooltip" ) );
+    fdNativeUpsert = new FormData();
+    fdNativeUpsert.left = new FormAttachment( middle, 0 );
+    fdNativeUpsert.top = new FormAttachment( wBulkSize, margin );
+    fdNativeUpsert.right = new FormAttachment( 100, 0 );
+    wNativeUpsert.setLayoutData( fdNativeUpsert );
+    wNativeUpsert.addSelectionListener( new ComponentSelectionListener( input ) );
+
     wlKey = new Label( shell, SWT.NONE );
     wlKey.setText( BaseMessages.getString( PKG, "InsertUpdateDialog.Keys.Label" ) );
     props.setLook( wlKey );
     fdlKey = new FormData();
     fdlKey.left = new FormAttachment( 0, 0 );
-    fdlKey.top = new FormAttachment( wUpdateBypassed, margin );
+    fdlKey.top = new FormAttachment( wNativeUpsert, margin );
     wlKey.setLayoutData( fdlKey );
 
     int nrKeyCols = 4;
@@ -467,6 +515,7 @@ public class InsertUpdateDialog extends BaseStepDialog implements StepDialogInte
     wSchema.addSelectionListener( lsDef );
     wTable.addSelectionListener( lsDef );
     wCommit.addSelectionListener( lsDef );
+    wBulkSize.addSelectionListener( lsDef );
 
     // Detect X or ALT-F4 or something that kills this window...
     shell.addShellListener( new ShellAdapter() {
@@ -656,6 +705,8 @@ public class InsertUpdateDialog extends BaseStepDialog implements StepDialogInte
 
     wCommit.setText( input.getCommitSizeVar() );
     wUpdateBypassed.setSelection( input.isUpdateBypassed() );
+    wBulkSize.setText( "" + input.getBulkSize() );
+    wNativeUpsert.setSelection( input.isNativeUpsert() );
 
     if ( input.getKeyFields() != null ) {
       for ( int i = 0; i < input.getKeyFields().length; i++ ) {
@@ -728,6 +779,8 @@ public class InsertUpdateDialog extends BaseStepDialog implements StepDialogInte
 
     inf.setCommitSize( wCommit.getText() );
     inf.setUpdateBypassed( wUpdateBypassed.getSelection() );
+    inf.setBulkSize( Const.toInt( wBulkSize.getText(), 0 ) );
+    inf.setNativeUpsert( wNativeUpsert.getSelection() );
 
     if ( log.isDebug() ) {
       logDebug( BaseMessages.getString( PKG, "InsertUpdateDialog.Log.FoundKeys", nrkeys + "" ) );
@@ -49,8 +49,12 @@ import org.pentaho.di.trans.step.StepDialogInterface;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.steps.memgroupby.MemoryGroupByMeta;
 import org.pentaho.di.ui.core.dialog.ErrorDialog;
+import org.pentaho.di.ui.core.events.dialog.SelectionAdapterFileDialogTextVar;
+import org.pentaho.di.ui.core.events.dialog.SelectionAdapterOptions;
+import org.pentaho.di.ui.core.events.dialog.SelectionOperation;
 import org.pentaho.di.ui.core.widget.ColumnInfo;
 import org.pentaho.di.ui.core.widget.TableView;
+import org.pentaho.di.ui.core.widget.TextVar;
 import org.pentaho.di.ui.trans.step.BaseStepDialog;
 
 public class MemoryGroupByDialog extends BaseStepDialog implements StepDialogInterface {
@@ -68,6 +72,31 @@ public class MemoryGroupByDialog extends BaseStepDialog implements StepDialogInt
   private Button wAlwaysAddResult;
   private FormData fdlAlwaysAddResult, fdAlwaysAddResult;
 
+  private Label wlSpillToDisk;
+  private Button wSpillToDisk;
+  private FormData fdlSpillToDisk, fdSpillToDisk;
+
+  private Label wlSortDir;
+  private Button wbSortDir;
+  private TextVar wSortDir;
+  private FormData fdlSortDir, fdbSortDir, fdSortDir;
+
+  private Label wlPrefix;
+  private TextVar wPrefix;
+  private FormData fdlPrefix, fdPrefix;
+
+  private Label wlMaxGroups;
+  private TextVar wMaxGroups;
+  private FormData fdlMaxGroups, fdMaxGroups;
+
+  private Label wlFreeMemory;
+  private TextVar wFreeMemory;
+  private FormData fdlFreeMemory, fdFreeMemory;
+
+  private Label wlAggregationThreads;
+  private TextVar wAggregationThreads;
+  private FormData fdlAggregationThreads, fdAggregationThreads;
+
   private Button wGet, wGetAgg;
   private FormData fdGet, fdGetAgg;
   private Listener lsGet, lsGetAgg;
@@ -159,12 +188,144 @@ public class MemoryGroupByDialog extends BaseStepDialog implements StepDialogInt
     wAlwaysAddResult.setLayoutData( fdAlwaysAddResult );
     wAlwaysAddResult.addSelectionListener( lsSel );
 
+    // Spill to disk?
+    //
+    wlSpillToDisk = new Label( shell, SWT.RIGHT );
+    wlSpillToDisk.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.SpillToDisk.Label" ) );
+    wlSpillToDisk.setToolTipText( BaseMessages.getString( PKG, "MemoryGroupByDialog.SpillToDisk.Tooltip" ) );
+    props.setLook( wlSpillToDisk );
+    fdlSpillToDisk = new FormData();
+    fdlSpillToDisk.left = new FormAttachment( 0, 0 );
+    fdlSpillToDisk.top = new FormAttachment( wAlwaysAddResult, margin );
+    fdlSpillToDisk.right = new FormAttachment( middle, -margin );
+    wlSpillToDisk.setLayoutData( fdlSpillToDisk );
+    wSpillToDisk = new Button( shell, SWT.CHECK );
+    wSpillToDisk.setToolTipText( BaseMessages.getString( PKG, "MemoryGroupByDialog.SpillToDisk.Tooltip" ) );
+    props.setLook( wSpillToDisk );
+    fdSpillToDisk = new FormData();
+    fdSpillToDisk.left = new FormAttachment( middle, 0 );
+    fdSpillToDisk.top = new FormAttachment( wAlwaysAddResult, margin );
+    fdSpillToDisk.right = new FormAttachment( 100, 0 );
+    wSpillToDisk.setLayoutData( fdSpillToDisk );
+    wSpillToDisk.addSelectionListener( new SelectionAdapter() {
+      @Override
+      public void widgetSelected( SelectionEvent e ) {
+        input.setChanged();
+        setFlags();
+      }
+    } );
+
+    wlSortDir = new Label( shell, SWT.RIGHT );
+    wlSortDir.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.TempDir.Label" ) );
+    props.setLook( wlSortDir );
+    fdlSortDir = new FormData();
+    fdlSortDir.left = new FormAttachment( 0, 0 );
+    fdlSortDir.right = new FormAttachment( middle, -margin );
+    fdlSortDir.top = new FormAttachment( wSpillToDisk, margin );
+    wlSortDir.setLayoutData( fdlSortDir );
+
+    wbSortDir = new Button( shell, SWT.PUSH | SWT.CENTER );
+    props.setLook( wbSortDir );
+    wbSortDir.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.Browse.Button" ) );
+    fdbSortDir = new FormData();
+    fdbSortDir.right = new FormAttachment( 100, 0 );
+    fdbSortDir.top = new FormAttachment( wSpillToDisk, margin );
+    wbSortDir.setLayoutData( fdbSortDir );
+
+    wSortDir = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wSortDir );
+    wSortDir.addModifyListener( lsMod );
+    fdSortDir = new FormData();
+    fdSortDir.left = new FormAttachment( middle, 0 );
+    fdSortDir.top = new FormAttachment( wSpillToDisk, margin );
+    fdSortDir.right = new FormAttachment( wbSortDir, -margin );
+    wSortDir.setLayoutData( fdSortDir );
+
+    wbSortDir.addSelectionListener( new SelectionAdapterFileDialogTextVar( log, wSortDir, transMeta,
+      new SelectionAdapterOptions( SelectionOperation.FOLDER ) ) );
+
+    // Prefix line...
+    wlPrefix = new Label( shell, SWT.RIGHT );
+    wlPrefix.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.FilePrefix.Label" ) );
+    props.setLook( wlPrefix );
+    fdlPrefix = new FormData();
+    fdlPrefix.left = new FormAttachment( 0, 0 );
+    fdlPrefix.right = new FormAttachment( middle, -margin );
+    fdlPrefix.top = new FormAttachment( wbSortDir, margin );
+    wlPrefix.setLayoutData( fdlPrefix );
+    wPrefix = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wPrefix );
+    wPrefix.addModifyListener( lsMod );
+    fdPrefix = new FormData();
+    fdPrefix.left = new FormAttachment( middle, 0 );
+    fdPrefix.top = new FormAttachment( wbSortDir, margin );
+    fdPrefix.right = new FormAttachment( 100, 0 );
+    wPrefix.setLayoutData( fdPrefix );
+
+    // Maximum number of groups in memory
+    wlMaxGroups = new Label( shell, SWT.RIGHT );
+    wlMaxGroups.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.MaxGroups.Label" ) );
+    props.setLook( wlMaxGroups );
+    fdlMaxGroups = new FormData();
+    fdlMaxGroups.left = new FormAttachment( 0, 0 );
+    fdlMaxGroups.right = new FormAttachment( middle, -margin );
+    fdlMaxGroups.top = new FormAttachment( wPrefix, margin );
+    wlMaxGroups.setLayoutData( fdlMaxGroups );
+    wMaxGroups = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wMaxGroups );
+    wMaxGroups.addModifyListener( lsMod );
+    fdMaxGroups = new FormData();
+    fdMaxGroups.left = new FormAttachment( middle, 0 );
+    fdMaxGroups.top = new FormAttachment( wPrefix, margin );
+    fdMaxGroups.right = new FormAttachment( 100, 0 );
+    wMaxGroups.setLayoutData( fdMaxGroups );
+
+    // Free memory threshold
+    wlFreeMemory = new Label( shell, SWT.RIGHT );
+    wlFreeMemory.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.FreeMemoryLimit.Label" ) );
+    props.setLook( wlFreeMemory );
+    fdlFreeMemory = new FormData();
+    fdlFreeMemory.left = new FormAttachment( 0, 0 );
+    fdlFreeMemory.right = new FormAttachment( middle, -margin );
+    fdlFreeMemory.top = new FormAttachment( wMaxGroups, margin );
+    wlFreeMemory.setLayoutData( fdlFreeMemory );
+    wFreeMemory = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wFreeMemory );
+    wFreeMemory.addModifyListener( lsMod );
+    fdFreeMemory = new FormData();
+    fdFreeMemory.left = new FormAttachment( middle, 0 );
+    fdFreeMemory.top = new FormAttachment( wMaxGroups, margin );
+    fdFreeMemory.right = new FormAttachment( 100, 0 );
+    wFreeMemory.setLayoutData( fdFreeMemory );
+
+    // Aggregation threads
+    wlAggregationThreads = new Label( shell, SWT.RIGHT );
+    wlAggregationThreads.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.AggregationThreads.Label" ) );
+    wlAggregationThreads.setToolTipText(
+      BaseMessages.getString( PKG, "MemoryGroupByDialog.AggregationThreads.Tooltip" ) );
+    props.setLook( wlAggregationThreads );
+    fdlAggregationThreads = new FormData();
+    fdlAggregationThreads.left = new FormAttachment( 0, 0 );
+    fdlAggregationThreads.right = new FormAttachment( middle, -margin );
+    fdlAggregationThreads.top = new FormAttachment( wFreeMemory, margin );
+    wlAggregationThreads.setLayoutData( fdlAggregationThreads );
+    wAggregationThreads = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wAggregationThreads.setToolTipText(
+      BaseMessages.getString( PKG, "MemoryGroupByDialog.AggregationThreads.Tooltip" ) );
+    props.setLook( wAggregationThreads );
+    wAggregationThreads.addModifyListener( lsMod );
+    fdAggregationThreads = new FormData();
+    fdAggregationThreads.left = new FormAttachment( middle, 0 );
+    fdAggregationThreads.top = new FormAttachment( wFreeMemory, margin );
+    fdAggregationThreads.right = new FormAttachment( 100, 0 );
+    wAggregationThreads.setLayoutData( fdAggregationThreads );
+
     wlGroup = new Label( shell, SWT.NONE );
     wlGroup.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.Group.Label" ) );
     props.setLook( wlGroup );
     fdlGroup = new FormData();
     fdlGroup.left = new FormAttachment( 0, 0 );
-    fdlGroup.top = new FormAttachment( wAlwaysAddResult, margin );
+    fdlGroup.top = new FormAttachment( wAggregationThreads, margin );
     wlGroup.setLayoutData( fdlGroup );
 
     int nrKeyCols = 1;
@@ -366,6 +527,13 @@ public class MemoryGroupByDialog extends BaseStepDialog implements StepDialogInt
     logDebug( BaseMessages.getString( PKG, "MemoryGroupByDialog.Log.GettingKeyInfo" ) );
 
     wAlwaysAddResult.setSelection( input.isAlwaysGivingBackOneRow() );
+    wSpillToDisk.setSelection( input.isSpillingToDisk() );
+    wSortDir.setText( Const.NVL( input.getDirectory(), "" ) );
+    wPrefix.setText( Const.NVL( input.getPrefix(), "" ) );
+    wMaxGroups.setText( Const.NVL( input.getMaxGroups(), "" ) );
+    wFreeMemory.setText( Const.NVL( input.getFreeMemoryLimit(), "" ) );
+    wAggregationThreads.setText( Const.NVL( input.getAggregationThreads(), "" ) );
+    setFlags();
 
     if ( input.getGroupField() != null ) {
       for ( int i = 0; i < input.getGroupField().length; i++ ) {
@@ -401,6 +569,21 @@ public class MemoryGroupByDialog extends BaseStepDialog implements StepDialogInt
     wStepname.setFocus();
   }
 
+  private void setFlags() {
+    boolean spilling = wSpillToDisk.getSelection();
+    wlSortDir.setEnabled( spilling );
+    wbSortDir.setEnabled( spilling );
+    wSortDir.setEnabled( spilling );
+    wlPrefix.setEnabled( spilling );
+    wPrefix.setEnabled( spilling );
+    wlMaxGroups.setEnabled( spilling );
+    wMaxGroups.setEnabled( spilling );
+    wlFreeMemory.setEnabled( spilling );
+    wFreeMemory.setEnabled( spilling );
+    wlAggregationThreads.setEnabled( !spilling );
+    wAggregationThreads.setEnabled( !spilling );
+  }
+
   private void cancel() {
     stepname = null;
     input.setChanged( backupChanged );
@@ -416,6 +599,12 @@ public class MemoryGroupByDialog extends BaseStepDialog implements StepDialogInt
     int nrfields = wAgg.nrNonEmpty();
 
     input.setAlwaysGivingBackOneRow( wAlwaysAddResult.getSelection() );
+    input.setSpillingToDisk( wSpillToDisk.getSelection() );
+    input.setDirectory( wSortDir.getText() );
+    input.setPrefix( wPrefix.getText() );
+    input.setMaxGroups( wMaxGroups.getText() );
+    input.setFreeMemoryLimit( wFreeMemory.getText() );
+    input.setAggregationThreads( wAggregationThreads.getText() );
 
     input.allocate( sizegroup, nrfields );
 
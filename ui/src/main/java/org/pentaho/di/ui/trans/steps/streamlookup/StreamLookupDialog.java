@@ -55,6 +55,7 @@ import org.pentaho.di.trans.steps.streamlookup.StreamLookupMeta;
 import org.pentaho.di.ui.core.dialog.ErrorDialog;
 import org.pentaho.di.ui.core.widget.ColumnInfo;
 import org.pentaho.di.ui.core.widget.TableView;
+import org.pentaho.di.ui.core.widget.TextVar;
 import org.pentaho.di.ui.trans.step.BaseStepDialog;
 
 public class StreamLookupDialog extends BaseStepDialog implements StepDialogInterface {
@@ -84,6 +85,18 @@ public class StreamLookupDialog extends BaseStepDialog implements StepDialogInte
   private Button wIntegerPair;
   private FormData fdlIntegerPair, fdIntegerPair;
 
+  private Label wlOffHeap;
+  private Button wOffHeap;
+  private FormData fdlOffHeap, fdOffHeap;
+
+  private Label wlMemoryBudget;
+  private TextVar wMemoryBudget;
+  private FormData fdlMemoryBudget, fdMemoryBudget;
+
+  private Label wlSpillDirectory;
+  private TextVar wSpillDirectory;
+  private FormData fdlSpillDirectory, fdSpillDirectory;
+
   private StreamLookupMeta input;
 
   private Button wGetLU;
@@ -249,7 +262,7 @@ public class StreamLookupDialog extends BaseStepDialog implements StepDialogInte
     fdReturn.left = new FormAttachment( 0, 0 );
     fdReturn.top = new FormAttachment( wlReturn, margin );
     fdReturn.right = new FormAttachment( 100, 0 );
-    fdReturn.bottom = new FormAttachment( 100, -125 );
+    fdReturn.bottom = new FormAttachment( 100, -200 );
     wReturn.setLayoutData( fdReturn );
 
     wlPreserveMemory = new Label( shell, SWT.RIGHT );
@@ -316,6 +329,64 @@ public class StreamLookupDialog extends BaseStepDialog implements StepDialogInte
         input.setChanged();
       }
     } );
+
+    wlOffHeap = new Label( shell, SWT.RIGHT );
+    wlOffHeap.setText( BaseMessages.getString( PKG, "StreamLookupDialog.OffHeap.Label" ) );
+    props.setLook( wlOffHeap );
+    fdlOffHeap = new FormData();
+    fdlOffHeap.left = new FormAttachment( 0, 0 );
+    fdlOffHeap.top = new FormAttachment( wSortedList, margin );
+    fdlOffHeap.right = new FormAttachment( middle, -margin );
+    wlOffHeap.setLayoutData( fdlOffHeap );
+    wOffHeap = new Button( shell, SWT.RADIO );
+    wOffHeap.setEnabled( false );
+    props.setLook( wOffHeap );
+    fdOffHeap = new FormData();
+    fdOffHeap.left = new FormAttachment( middle, 0 );
+    fdOffHeap.top = new FormAttachment( wSortedList, margin );
+    fdOffHeap.right = new FormAttachment( 100, 0 );
+    wOffHeap.setLayoutData( fdOffHeap );
+    wOffHeap.addSelectionListener( new SelectionAdapter() {
+      public void widgetSelected( SelectionEvent e ) {
+        input.setChanged();
+      }
+    } );
+
+    wlMemoryBudget = new Label( shell, SWT.RIGHT );
+    wlMemoryBudget.setText( BaseMessages.getString( PKG, "StreamLookupDialog.MemoryBudget.Label" ) );
+    props.setLook( wlMemoryBudget );
+    fdlMemoryBudget = new FormData();
+    fdlMemoryBudget.left = new FormAttachment( 0, 0 );
+    fdlMemoryBudget.top = new FormAttachment( wOffHeap, margin );
+    fdlMemoryBudget.right = new FormAttachment( middle, -margin );
+    wlMemoryBudget.setLayoutData( fdlMemoryBudget );
+    wMemoryBudget = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wMemoryBudget.setToolTipText( BaseMessages.getString( PKG, "StreamLookupDialog.MemoryBudget.ToolTip" ) );
+    props.setLook( wMemoryBudget );
+    wMemoryBudget.addModifyListener( lsMod );
+    fdMemoryBudget = new FormData();
+    fdMemoryBudget.left = new FormAttachment( middle, 0 );
+    fdMemoryBudget.top = new FormAttachment( wOffHeap, margin );
+    fdMemoryBudget.right = new FormAttachment( 100, 0 );
+    wMemoryBudget.setLayoutData( fdMemoryBudget );
+
+    wlSpillDirectory = new Label( shell, SWT.RIGHT );
+    wlSpillDirectory.setText( BaseMessages.getString( PKG, "StreamLookupDialog.SpillDirectory.Label" ) );
+    props.setLook( wlSpillDirectory );
+    fdlSpillDirectory = new FormData();
+    fdlSpillDirectory.left = new FormAttachment( 0, 0 );
+    fdlSpillDirectory.top = new FormAttachment( wMemoryBudget, margin );
+    fdlSpillDirectory.right = new FormAttachment( middle, -margin );
+    wlSpillDirectory.setLayoutData( fdlSpillDirectory );
+    wSpillDirectory = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wSpillDirectory );
+    wSpillDirectory.addModifyListener( lsMod );
+    fdSpillDirectory = new FormData();
+    fdSpillDirectory.left = new FormAttachment( middle, 0 );
+    fdSpillDirectory.top = new FormAttachment( wMemoryBudget, margin );
+    fdSpillDirectory.right = new FormAttachment( 100, 0 );
+    wSpillDirectory.setLayoutData( fdSpillDirectory );
+
     // PDI-2107 preserve memory should be enabled to have this options on.
     wPreserveMemory.addListener( SWT.Selection, new Listener() {
       @Override
@@ -323,6 +394,14 @@ public class StreamLookupDialog extends BaseStepDialog implements StepDialogInte
         boolean selection = wPreserveMemory.getSelection();
         wSortedList.setEnabled( selection );
         wIntegerPair.setEnabled( selection );
+        wOffHeap.setEnabled( selection );
+        setOffHeapFlags();
+      }
+    } );
+    wOffHeap.addListener( SWT.Selection, new Listener() {
+      @Override
+      public void handleEvent( Event event ) {
+        setOffHeapFlags();
       }
     } );
 
@@ -522,12 +601,17 @@ public class StreamLookupDialog extends BaseStepDialog implements StepDialogInte
     if ( isPreserveMemory ) {
       wSortedList.setEnabled( true );
       wIntegerPair.setEnabled( true );
+      wOffHeap.setEnabled( true );
     }
     // PDI-2107 usually this is sorted list or integer pair
     // for backward compatibility they can be set both
     // but user will be forced to choose only one option later.
     wSortedList.setSelection( input.isUsingSortedList() );
     wIntegerPair.setSelection( input.isUsingIntegerPair() );
+    wOffHeap.setSelection( input.isUsingOffHeap() );
+    wMemoryBudget.setText( Const.NVL( input.getMemoryBudget(), "" ) );
+    wSpillDirectory.setText( Const.NVL( input.getSpillDirectory(), "" ) );
+    setOffHeapFlags();
 
     wKey.setRowNums();
     wKey.optWidth( true );
@@ -538,6 +622,14 @@ public class StreamLookupDialog extends BaseStepDialog implements StepDialogInte
     wStepname.setFocus();
   }
 
+  private void setOffHeapFlags() {
+    boolean offHeap = wPreserveMemory.getSelection() && wOffHeap.getSelection();
+    wlMemoryBudget.setEnabled( offHeap );
+    wMemoryBudget.setEnabled( offHeap );
+    wlSpillDirectory.setEnabled( offHeap );
+    wSpillDirectory.setEnabled( offHeap );
+  }
+
   private void cancel() {
     stepname = null;
     input.setChanged( changed );
@@ -555,6 +647,9 @@ public class StreamLookupDialog extends BaseStepDialog implements StepDialogInte
     input.setMemoryPreservationActive( wPreserveMemory.getSelection() );
     input.setUsingSortedList( wSortedList.getSelection() );
     input.setUsingIntegerPair( wIntegerPair.getSelection() );
+    input.setUsingOffHeap( wOffHeap.getSelection() );
+    input.setMemoryBudget( wMemoryBudget.getText() );
+    input.setSpillDirectory( wSpillDirectory.getText() );
 
     if ( log.isDebug() ) {
       logDebug( BaseMessages.getString( PKG, "StreamLookupDialog.Log.FoundKeys", nrkeys + "" ) );
@@ -85,6 +85,10 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
   private TextVar wLimit;
   private FormData fdlLimit, fdLimit;
 
+  private Label wlSplitField;
+  private TextVar wSplitField;
+  private FormData fdlSplitField, fdSplitField;
+
   private Label wlEachRow;
   private Button wEachRow;
   private FormData fdlEachRow, fdEachRow;
@@ -179,6 +183,26 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
 
     setButtonPositions( new Button[] { wOK, wPreview, wCancel }, margin, null );
 
+    // Split over the step copies by field...
+    wlSplitField = new Label( shell, SWT.RIGHT );
+    wlSplitField.setText( BaseMessages.getString( PKG, "TableInputDialog.SplitField" ) );
+    wlSplitField.setToolTipText( BaseMessages.getString( PKG, "TableInputDialog.SplitField.Tooltip" ) );
+    props.setLook( wlSplitField );
+    fdlSplitField = new FormData();
+    fdlSplitField.left = new FormAttachment( 0, 0 );
+    fdlSplitField.right = new FormAttachment( middle, -margin );
+    fdlSplitField.bottom = new FormAttachment( wOK, -2 * margin );
+    wlSplitField.setLayoutData( fdlSplitField );
+    wSplitField = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wSplitField.setToolTipText( BaseMessages.getString( PKG, "TableInputDialog.SplitField.Tooltip" ) );
+    props.setLook( wSplitField );
+    wSplitField.addModifyListener( lsMod );
+    fdSplitField = new FormData();
+    fdSplitField.left = new FormAttachment( middle, 0 );
+    fdSplitField.right = new FormAttachment( 100, 0 );
+    fdSplitField.bottom = new FormAttachment( wOK, -2 * margin );
+    wSplitField.setLayoutData( fdSplitField );
+
     // Limit input ...
     wlLimit = new Label( shell, SWT.RIGHT );
     wlLimit.setText( BaseMessages.getString( PKG, "TableInputDialog.LimitSize" ) );
@@ -186,7 +210,7 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
     fdlLimit = new FormData();
     fdlLimit.left = new FormAttachment( 0, 0 );
     fdlLimit.right = new FormAttachment( middle, -margin );
-    fdlLimit.bottom = new FormAttachment( wOK, -2 * margin );
+    fdlLimit.bottom = new FormAttachment( wSplitField, -margin );
     wlLimit.setLayoutData( fdlLimit );
     wLimit = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
     props.setLook( wLimit );
@@ -194,7 +218,7 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
     fdLimit = new FormData();
     fdLimit.left = new FormAttachment( middle, 0 );
     fdLimit.right = new FormAttachment( 100, 0 );
-    fdLimit.bottom = new FormAttachment( wOK, -2 * margin );
+    fdLimit.bottom = new FormAttachment( wSplitField, -margin );
     wLimit.setLayoutData( fdLimit );
 
     // Execute for each row?
@@ -434,6 +458,7 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
 
     wStepname.addSelectionListener( lsDef );
     wLimit.addSelectionListener( lsDef );
+    wSplitField.addSelectionListener( lsDef );
 
     // Detect X or ALT-F4 or something that kills this window...
     shell.addShellListener( new ShellAdapter() {
@@ -491,6 +516,7 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
       wConnection.setText( input.getDatabaseMeta().getName() );
     }
     wLimit.setText( Const.NVL( input.getRowLimit(), "" ) );
+    wSplitField.setText( Const.NVL( input.getSplitField(), "" ) );
 
     StreamInterface infoStream = input.getStepIOMeta().getInfoStreams().get( 0 );
     if ( infoStream.getStepMeta() != null ) {
@@ -537,6 +563,7 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
     meta.setSQL( preview && !Utils.isEmpty( wSQL.getSelectionText() ) ? wSQL.getSelectionText() : wSQL.getText() );
     meta.setDatabaseMeta( transMeta.findDatabase( wConnection.getText() ) );
     meta.setRowLimit( wLimit.getText() );
+    meta.setSplitField( wSplitField.getText() );
     StreamInterface infoStream = input.getStepIOMeta().getInfoStreams().get( 0 );
     infoStream.setStepMeta( transMeta.findStep( wDatefrom.getText() ) );
     meta.setExecuteEachInputRow( wEachRow.getSelection() );
@@ -126,6 +126,18 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
   private Button wBatch;
   private FormData fdlBatch, fdBatch;
 
+  private Label wlNrWriters;
+  private TextVar wNrWriters;
+  private FormData fdlNrWriters, fdNrWriters;
+
+  private Label wlWriterKeyField;
+  private TextVar wWriterKeyField;
+  private FormData fdlWriterKeyField, fdWriterKeyField;
+
+  private Label wlBulkInsert;
+  private Button wBulkInsert;
+  private FormData fdlBulkInsert, fdBulkInsert;
+
   private Label wlUsePart;
   private Button wUsePart;
   private FormData fdlUsePart, fdUsePart;
@@ -557,20 +569,77 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
       }
     } );
 
+    // Number of parallel writers
+    wlNrWriters = new Label( wMainComp, SWT.RIGHT );
+    wlNrWriters.setText( BaseMessages.getString( PKG, "TableOutputDialog.NrWriters.Label" ) );
+    wlNrWriters.setToolTipText( BaseMessages.getString( PKG, "TableOutputDialog.NrWriters.Tooltip" ) );
+    props.setLook( wlNrWriters );
+    fdlNrWriters = new FormData();
+    fdlNrWriters.left = new FormAttachment( 0, 0 );
+    fdlNrWriters.top = new FormAttachment( wBatch, margin );
+    fdlNrWriters.right = new FormAttachment( middle, -margin );
+    wlNrWriters.setLayoutData( fdlNrWriters );
+    wNrWriters = new TextVar( transMeta, wMainComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wNrWriters );
+    wNrWriters.addModifyListener( lsMod );
+    fdNrWriters = new FormData();
+    fdNrWriters.left = new FormAttachment( middle, 0 );
+    fdNrWriters.top = new FormAttachment( wBatch, margin );
+    fdNrWriters.right = new FormAttachment( 100, 0 );
+    wNrWriters.setLayoutData( fdNrWriters );
+
+    // Field to divide the rows over the writers
+    wlWriterKeyField = new Label( wMainComp, SWT.RIGHT );
+    wlWriterKeyField.setText( BaseMessages.getString( PKG, "TableOutputDialog.WriterKeyField.Label" ) );
+    wlWriterKeyField.setToolTipText( BaseMessages.getString( PKG, "TableOutputDialog.WriterKeyField.Tooltip" ) );
+    props.setLook( wlWriterKeyField );
+    fdlWriterKeyField = new FormData();
+    fdlWriterKeyField.left = new FormAttachment( 0, 0 );
+    fdlWriterKeyField.top = new FormAttachment( wNrWriters, margin );
+    fdlWriterKeyField.right = new FormAttachment( middle, -margin );
+    wlWriterKeyField.setLayoutData( fdlWriterKeyField );
+    wWriterKeyField = new TextVar( transMeta, wMainComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wWriterKeyField );
+    wWriterKeyField.addModifyListener( lsMod );
+    fdWriterKeyField = new FormData();
+    fdWriterKeyField.left = new FormAttachment( middle, 0 );
+    fdWriterKeyField.top = new FormAttachment( wNrWriters, margin );
+    fdWriterKeyField.right = new FormAttachment( 100, 0 );
+    wWriterKeyField.setLayoutData( fdWriterKeyField );
+
+    // Bulk load
+    wlBulkInsert = new Label( wMainComp, SWT.RIGHT );
+    wlBulkInsert.setText( BaseMessages.getString( PKG, "TableOutputDialog.BulkInsert.Label" ) );
+    wlBulkInsert.setToolTipText( BaseMessages.getString( PKG, "TableOutputDialog.BulkInsert.Tooltip" ) );
+    props.setLook( wlBulkInsert );
+    fdlBulkInsert = new FormData();
+    fdlBulkInsert.left = new FormAttachment( 0, 0 );
+    fdlBulkInsert.top = new FormAttachment( wWriterKeyField, margin );
+    fdlBulkInsert.right = new FormAttachment( middle, -margin );
+    wlBulkInsert.setLayoutData( fdlBulkInsert );
+    wBulkInsert = new Button( wMainComp, SWT.CHECK );
+    props.setLook( wBulkInsert );
+    fdBulkInsert = new FormData();
+    fdBulkInsert.left = new FormAttachment( middle, 0 );
+    fdBulkInsert.top = new FormAttachment( wWriterKeyField, margin );
+    fdBulkInsert.right = new FormAttachment( 100, 0 );
+    wBulkInsert.setLayoutData( fdBulkInsert );
+    wBulkInsert.addSelectionListener( lsSelMod );
+
     // NameInField
     wlNameInField = new Label( wMainComp, SWT.RIGHT );
     wlNameInField.setText( BaseMessages.getString( PKG, "TableOutputDialog.NameInField.Label" ) );
     props.setLook( wlNameInField );
     fdlNameInField = new FormData();
     fdlNameInField.left = new FormAttachment( 0, 0 );
-    fdlNameInField.top = new FormAttachment( wBatch, margin * 5 );
+    fdlNameInField.top = new FormAttachment( wBulkInsert, margin * 5 );
     fdlNameInField.right = new FormAttachment( middle, -margin );
     wlNameInField.setLayoutData( fdlNameInField );
     wNameInField = new Button( wMainComp, SWT.CHECK );
     props.setLook( wNameInField );
     fdNameInField = new FormData();
     fdNameInField.left = new FormAttachment( middle, 0 );
-    fdNameInField.top = new FormAttachment( wBatch, margin * 5 );
+    fdNameInField.top = new FormAttachment( wBulkInsert, margin * 5 );
     fdNameInField.right = new FormAttachment( 100, 0 );
     wNameInField.setLayoutData( fdNameInField );
     wNameInField.addSelectionListener( new SelectionAdapter() {
@@ -1235,6 +1304,18 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
     wlBatch.setEnabled( enableBatch );
     wBatch.setEnabled( enableBatch );
 
+    // Parallel writers insert in batches into a single table
+    boolean enableWriters = useBatch && !usePartitioning && !isTableNameInField;
+    wlNrWriters.setEnabled( enableWriters );
+    wNrWriters.setEnabled( enableWriters );
+    wlWriterKeyField.setEnabled( enableWriters );
+    wWriterKeyField.setEnabled( enableWriters );
+
+    // A bulk load goes into a single table and doesn't return keys
+    boolean enableBulkInsert = !returnKeys && !usePartitioning && !isTableNameInField;
+    wlBulkInsert.setEnabled( enableBulkInsert );
+    wBulkInsert.setEnabled( enableBulkInsert );
+
     boolean specifyFields = wSpecifyFields.getSelection();
     wFields.setEnabled( specifyFields );
     wGetFields.setEnabled( specifyFields );
@@ -1282,6 +1363,9 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
     wBatch.setSelection( input.useBatchUpdate() );
 
     wCommit.setText( input.getCommitSize() );
+    wNrWriters.setText( Const.NVL( input.getNrWriters(), "" ) );
+    wWriterKeyField.setText( Const.NVL( input.getWriterKeyField(), "" ) );
+    wBulkInsert.setSelection( input.isUseBulkInsert() );
 
     wUsePart.setSelection( input.isPartitioningEnabled() );
     wPartDaily.setSelection( input.isPartitioningDaily() );
@@ -1330,6 +1414,9 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
     info.setTableName( wTable.getText() );
     info.setDatabaseMeta( transMeta.findDatabase( wConnection.getText() ) );
     info.setCommitSize( wCommit.getText() );
+    info.setNrWriters( wNrWriters.getText() );
+    info.setWriterKeyField( wWriterKeyField.getText() );
+    info.setUseBulkInsert( wBulkInsert.getSelection() );
     info.setTruncateTable( wTruncate.getSelection() );
     info.setIgnoreErrors( wIgnore.getSelection() );
     info.setUseBatchUpdate( wBatch.getSelection() );
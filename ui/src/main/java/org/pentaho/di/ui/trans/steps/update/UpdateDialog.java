@@ -120,6 +120,10 @@ public class UpdateDialog extends BaseStepDialog implements StepDialogInterface
   private Button wSkipLookup;
   private FormData fdlSkipLookup, fdSkipLookup;
 
+  private Label wlBulkSize;
+  private Text wBulkSize;
+  private FormData fdlBulkSize, fdBulkSize;
+
   /**
    * List of ColumnInfo that should have the field names of the selected database table
    */
@@ -353,12 +357,32 @@ public class UpdateDialog extends BaseStepDialog implements StepDialogInterface
     fdIgnoreFlagField.right = new FormAttachment( 100, 0 );
     wIgnoreFlagField.setLayoutData( fdIgnoreFlagField );
 
+    // Bulk size
+    wlBulkSize = new Label( shell, SWT.RIGHT );
+    wlBulkSize.setText( BaseMessages.getString( PKG, "UpdateDialog.BulkSize.Label" ) );
+    wlBulkSize.setToolTipText( BaseMessages.getString( PKG, "UpdateDialog.BulkSize.Tooltip" ) );
+    props.setLook( wlBulkSize );
+    fdlBulkSize = new FormData();
+    fdlBulkSize.left = new FormAttachment( 0, 0 );
+    fdlBulkSize.top = new FormAttachment( wIgnoreFlagField, margin );
+    fdlBulkSize.right = new FormAttachment( middle, -margin );
+    wlBulkSize.setLayoutData( fdlBulkSize );
+    wBulkSize = new Text( shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wBulkSize );
+    wBulkSize.setToolTipText( BaseMessages.getString( PKG, "UpdateDialog.BulkSize.Tooltip" ) );
+    wBulkSize.addModifyListener( lsMod );
+    fdBulkSize = new FormData();
+    fdBulkSize.left = new FormAttachment( middle, 0 );
+    fdBulkSize.top = new FormAttachment( wIgnoreFlagField, margin );
+    fdBulkSize.right = new FormAttachment( 100, 0 );
+    wBulkSize.setLayoutData( fdBulkSize );
+
     wlKey = new Label( shell, SWT.NONE );
     wlKey.setText( BaseMessages.getString( PKG, "UpdateDialog.Key.Label" ) );
     props.setLook( wlKey );
     fdlKey = new FormData();
     fdlKey.left = new FormAttachment( 0, 0 );
-    fdlKey.top = new FormAttachment( wIgnoreFlagField, margin );
+    fdlKey.top = new FormAttachment( wBulkSize, margin );
     wlKey.setLayoutData( fdlKey );
 
     int nrKeyCols = 4;
@@ -521,6 +545,7 @@ public class UpdateDialog extends BaseStepDialog implements StepDialogInterface
     wSchema.addSelectionListener( lsDef );
     wTable.addSelectionListener( lsDef );
     wCommit.addSelectionListener( lsDef );
+    wBulkSize.addSelectionListener( lsDef );
     wIgnoreFlagField.addSelectionListener( lsDef );
 
     // Detect X or ALT-F4 or something that kills this window...
@@ -565,6 +590,8 @@ public class UpdateDialog extends BaseStepDialog implements StepDialogInterface
     wlErrorIgnored.setEnabled( !wSkipLookup.getSelection() );
     wlIgnoreFlagField.setEnabled( !wSkipLookup.getSelection() && wErrorIgnored.getSelection() );
     wIgnoreFlagField.setEnabled( !wSkipLookup.getSelection() && wErrorIgnored.getSelection() );
+    wlBulkSize.setEnabled( !wSkipLookup.getSelection() );
+    wBulkSize.setEnabled( !wSkipLookup.getSelection() );
 
   }
 
@@ -669,6 +696,7 @@ public class UpdateDialog extends BaseStepDialog implements StepDialogInterface
 
     wCommit.setText( input.getCommitSizeVar() );
     wBatch.setSelection( input.useBatchUpdate() );
+    wBulkSize.setText( "" + input.getBulkSize() );
     wSkipLookup.setSelection( input.isSkipLookup() );
     wErrorIgnored.setSelection( input.isErrorIgnored() );
     if ( input.getIgnoreFlagField() != null ) {
@@ -743,6 +771,7 @@ public class UpdateDialog extends BaseStepDialog implements StepDialogInterface
 
     inf.setCommitSize(  wCommit.getText() );
     inf.setUseBatchUpdate( wBatch.getSelection() );
+    inf.setBulkSize( Const.toInt( wBulkSize.getText(), 0 ) );
     inf.setSkipLookup( wSkipLookup.getSelection() );
 
     if ( log.isDebug() ) {